@@ -20,6 +20,7 @@
 
 package com.apple.foundationdb.async;
 
+import com.apple.foundationdb.FDBException;
 import com.apple.foundationdb.KeySelector;
 import com.apple.foundationdb.KeyValue;
 import com.apple.foundationdb.MutationType;
@@ -34,16 +35,25 @@ import com.apple.foundationdb.subspace.Subspace;
 import com.apple.foundationdb.tuple.ByteArrayUtil;
 import com.apple.foundationdb.tuple.ByteArrayUtil2;
 import com.apple.foundationdb.tuple.Tuple;
+import com.apple.foundationdb.tuple.Versionstamp;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 import java.util.zip.CRC32;
 
 import static com.apple.foundationdb.async.AsyncUtil.DONE;
@@ -118,6 +128,7 @@ public class RankedSet {
     protected final Subspace subspace;
     protected final Executor executor;
     protected final Config config;
+    protected final UpperLevelCache upperLevelCache;
 
     static {
         LEVEL_FAN_VALUES = new int[MAX_LEVELS];
@@ -128,6 +139,9 @@ public class RankedSet {
 
     private static final byte[] EMPTY_ARRAY = { };
     private static final byte[] ZERO_ARRAY = { 0 };
+    private static final byte[] VERSION_VALUE = Tuple.from(Versionstamp.incomplete()).packWithVersionstamp();
+    // The error from reading a key that this transaction has changed with a versionstamp.
+    private static final int ACCESSED_UNREADABLE = 1036;
 
     private static byte[] encodeLong(long count) {
         return ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(count).array();
@@ -155,17 +169,24 @@ public class RankedSet {
         private final HashFunction hashFunction;
         private final int nlevels;
         private final boolean countDuplicates;
+        private final boolean versioned;
 
         protected Config() {
             this.hashFunction = DEFAULT_HASH_FUNCTION;
             this.nlevels = DEFAULT_LEVELS;
             this.countDuplicates = false;
+            this.versioned = false;
         }
 
         protected Config(HashFunction hashFunction, int nlevels, boolean countDuplicates) {
+            this(hashFunction, nlevels, countDuplicates, false);
+        }
+
+        protected Config(HashFunction hashFunction, int nlevels, boolean countDuplicates, boolean versioned) {
             this.hashFunction = hashFunction;
             this.nlevels = nlevels;
             this.countDuplicates = countDuplicates;
+            this.versioned = versioned;
         }
 
         /**
@@ -192,8 +213,17 @@ public class RankedSet {
             return countDuplicates;
         }
 
+        /**
+         * Get whether every change to the set also records a new version for it.
+         * @return {@code true} if the set is versioned so that its upper levels can be cached
+         * @see UpperLevelCache
+         */
+        public boolean isVersioned() {
+            return versioned;
+        }
+
         public ConfigBuilder toBuilder() {
-            return new ConfigBuilder(hashFunction, nlevels, countDuplicates);
+            return new ConfigBuilder(hashFunction, nlevels, countDuplicates, versioned);
         }
     }
 
@@ -206,14 +236,20 @@ public class RankedSet {
         private HashFunction hashFunction = DEFAULT_HASH_FUNCTION;
         private int nlevels = DEFAULT_LEVELS;
         private boolean countDuplicates = false;
+        private boolean versioned = false;
 
         protected ConfigBuilder() {
         }
 
         protected ConfigBuilder(HashFunction hashFunction, int nlevels, boolean countDuplicates) {
+            this(hashFunction, nlevels, countDuplicates, false);
+        }
+
+        protected ConfigBuilder(HashFunction hashFunction, int nlevels, boolean countDuplicates, boolean versioned) {
             this.hashFunction = hashFunction;
             this.nlevels = nlevels;
             this.countDuplicates = countDuplicates;
+            this.versioned = versioned;
         }
 
         public HashFunction getHashFunction() {
@@ -268,8 +304,28 @@ public class RankedSet {
             return this;
         }
 
+        public boolean isVersioned() {
+            return versioned;
+        }
+
+        /**
+         * Set whether every change to the set also records a new version for it.
+         *
+         * The version is a versionstamp stored at the key of the set's subspace itself, outside of the skip-list levels.
+         * It lets an {@link UpperLevelCache} check with a single read that the cached levels are still current.
+         * Reading the version in a transaction that has itself changed the set is not possible, so lookups in such a
+         * transaction read all the levels, as without a cache.
+         * All updates to a set must agree on this setting.
+         * @param versioned whether to record a version
+         * @return this builder
+         */
+        public ConfigBuilder setVersioned(boolean versioned) {
+            this.versioned = versioned;
+            return this;
+        }
+
         public Config build() {
-            return new Config(hashFunction, nlevels, countDuplicates);
+            return new Config(hashFunction, nlevels, countDuplicates, versioned);
         }
     }
 
@@ -282,6 +338,133 @@ public class RankedSet {
         return new ConfigBuilder();
     }
 
+    /**
+     * A cache of the coarsest levels of {@link Config#isVersioned versioned} ranked sets, shared between transactions.
+     *
+     * <p>
+     * A lookup reads each level of the skip-list in turn, but the coarser levels have few keys and, apart from their
+     * counts, change rarely. A lookup through a ranked set with a cache takes those levels from memory when the set's
+     * version shows that they have not changed since they were read, so that it only needs to read the finer levels.
+     * Reading the version adds a read conflict with any change to the set, where a lookup without the cache only
+     * conflicts with changes to the parts of each level that it reads.
+     * </p>
+     *
+     * <p>
+     * At most {@link #getLevels} levels are cached for each ranked set, and only as many of these, starting from the
+     * coarsest, as have at most {@link #getMaxKeys} keys in all. Up to {@link #getMaxSets} ranked sets are cached,
+     * evicting the least recently used.
+     * </p>
+     */
+    public static class UpperLevelCache {
+        public static final int DEFAULT_LEVELS = 3;
+        public static final int DEFAULT_MAX_KEYS = 10_000;
+        public static final int DEFAULT_MAX_SETS = 100;
+
+        private final int levels;
+        private final int maxKeys;
+        private final int maxSets;
+        // In access order, so that the first entry is the least recently used.
+        private final Map<ByteBuffer, UpperLevels> sets = new LinkedHashMap<>(16, 0.75f, true);
+
+        public UpperLevelCache() {
+            this(DEFAULT_LEVELS, DEFAULT_MAX_KEYS, DEFAULT_MAX_SETS);
+        }
+
+        public UpperLevelCache(int levels, int maxKeys, int maxSets) {
+            if (levels < 1 || maxKeys < 1 || maxSets < 1) {
+                throw new IllegalArgumentException("cache limits must be positive");
+            }
+            this.levels = levels;
+            this.maxKeys = maxKeys;
+            this.maxSets = maxSets;
+        }
+
+        /**
+         * Get the greatest number of levels cached for a ranked set.
+         * Level zero, which has every key of the set, is never cached.
+         * @return the number of levels to cache
+         */
+        public int getLevels() {
+            return levels;
+        }
+
+        /**
+         * Get the greatest number of keys in all the cached levels of a ranked set.
+         * @return the number of keys to cache for each set
+         */
+        public int getMaxKeys() {
+            return maxKeys;
+        }
+
+        /**
+         * Get the greatest number of ranked sets cached.
+         * @return the number of sets to cache
+         */
+        public int getMaxSets() {
+            return maxSets;
+        }
+
+        /**
+         * Get the number of ranked sets currently cached.
+         * @return the number of sets in the cache
+         */
+        public synchronized int size() {
+            return sets.size();
+        }
+
+        /**
+         * Remove all ranked sets from the cache.
+         */
+        public synchronized void clear() {
+            sets.clear();
+        }
+
+        synchronized UpperLevels get(byte[] subspaceKey, byte[] version) {
+            final UpperLevels upperLevels = sets.get(ByteBuffer.wrap(subspaceKey));
+            return upperLevels != null && Arrays.equals(upperLevels.version, version) ? upperLevels : null;
+        }
+
+        synchronized void put(byte[] subspaceKey, UpperLevels upperLevels) {
+            sets.put(ByteBuffer.wrap(subspaceKey), upperLevels);
+            if (sets.size() > maxSets) {
+                final Iterator<ByteBuffer> eldest = sets.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    // The levels of one ranked set from fromLevel up, as of the given version.
+    static class UpperLevels {
+        private final byte[] version;
+        private final int fromLevel;
+        private final List<List<LevelEntry>> levels;
+
+        UpperLevels(byte[] version, int fromLevel, List<List<LevelEntry>> levels) {
+            this.version = version;
+            this.fromLevel = fromLevel;
+            this.levels = levels;
+        }
+
+        boolean hasLevel(int level) {
+            return level >= fromLevel;
+        }
+
+        List<LevelEntry> getLevel(int level) {
+            return levels.get(level - fromLevel);
+        }
+    }
+
+    static class LevelEntry {
+        private final byte[] key;
+        private final long count;
+
+        LevelEntry(byte[] key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+
     /**
      * Initialize a new ranked set.
      * @param subspace the subspace where the ranked set is stored
@@ -289,9 +472,24 @@ public class RankedSet {
      * @param config configuration to use
      */
     public RankedSet(Subspace subspace, Executor executor, Config config) {
+        this(subspace, executor, config, null);
+    }
+
+    /**
+     * Initialize a new ranked set that takes its coarser levels from a cache when it can.
+     * @param subspace the subspace where the ranked set is stored
+     * @param executor an executor to use when running asynchronous tasks
+     * @param config configuration to use, which must be {@link Config#isVersioned versioned} if there is a cache
+     * @param upperLevelCache a cache of upper levels shared with other ranked sets or {@code null} for none
+     */
+    public RankedSet(Subspace subspace, Executor executor, Config config, UpperLevelCache upperLevelCache) {
+        if (upperLevelCache != null && !config.isVersioned()) {
+            throw new IllegalArgumentException("Upper level cache requires a versioned ranked set");
+        }
         this.subspace = subspace;
         this.executor = executor;
         this.config = config;
+        this.upperLevelCache = upperLevelCache;
     }
 
     /**
@@ -367,6 +565,14 @@ public class RankedSet {
         return config;
     }
 
+    /**
+     * Get the cache of upper levels used by this ranked set.
+     * @return the upper level cache or {@code null} if lookups read all levels
+     */
+    public UpperLevelCache getUpperLevelCache() {
+        return upperLevelCache;
+    }
+
     /**
      * Add a key to the set.
      *
@@ -409,6 +615,7 @@ public class RankedSet {
                         }
                         futures.add(future);
                     }
+                    updateVersion(tr);
                     return AsyncUtil.whenAll(futures).thenApply(vignore -> true);
                 }));
     }
@@ -508,6 +715,7 @@ public class RankedSet {
                                 }
                                 futures.add(future);
                             }
+                            updateVersion(tr);
                             return AsyncUtil.whenAll(futures).thenApply(vignore -> true);
                         }));
     }
@@ -521,6 +729,7 @@ public class RankedSet {
         Range range = subspace.range();
         return tc.runAsync(tr -> {
             tr.clear(range);
+            updateVersion(tr);
             return initLevels(tr);
         });
     }
@@ -628,6 +837,9 @@ public class RankedSet {
         if (rank < 0) {
             return CompletableFuture.completedFuture((byte[])null);
         }
+        if (upperLevelCache != null) {
+            return getNth(tc, Collections.singletonList(rank)).thenApply(keys -> keys.get(0));
+        }
         return tc.readAsync(tr -> {
             NthLookup nth = new NthLookup(rank);
             return AsyncUtil.whileTrue(() -> nextLookup(nth, tr), executor).thenApply(vignore -> nth.getKey());
@@ -788,10 +1000,401 @@ public class RankedSet {
     }
 
     private CompletableFuture<Long> rankLookup(ReadTransaction tr, byte[] key, boolean keyShouldBePresent) {
+        if (upperLevelCache != null) {
+            return rankLookups(tr, Collections.singletonList(key), keyShouldBePresent).thenApply(ranks -> ranks.get(key));
+        }
         RankLookup rank = new RankLookup(key, keyShouldBePresent);
         return AsyncUtil.whileTrue(() -> nextLookup(rank, tr), executor).thenApply(vignore -> rank.getRank());
     }
 
+    /**
+     * Return the indexes of several keys within the set.
+     *
+     * The lookups share their reads: each level of the skip-list is read once for all of the keys, with one range read
+     * for each run of keys that come between the same two keys of the next coarser level, rather than once for each key.
+     * @param tc the transaction to use to access the database
+     * @param keys the keys to find
+     * @param nullIfMissing whether to return {@code null} for keys that are not present in the set
+     * @return a future that completes to the index of each of {@code keys} in the ranked set, in the same order,
+     * as would be returned by {@link #rank(ReadTransactionContext, byte[], boolean)}
+     */
+    public CompletableFuture<List<Long>> rank(ReadTransactionContext tc, List<byte[]> keys, boolean nullIfMissing) {
+        keys.forEach(RankedSet::checkKey);
+        return tc.readAsync(tr -> {
+            final CompletableFuture<List<byte[]>> lookupKeys;
+            if (nullIfMissing) {
+                final List<CompletableFuture<Long>> counts = keys.stream()
+                        .map(key -> countCheckedKey(tr, key))
+                        .collect(Collectors.toList());
+                lookupKeys = AsyncUtil.getAll(counts).thenApply(countList -> {
+                    final List<byte[]> present = new ArrayList<>(keys.size());
+                    for (int i = 0; i < keys.size(); i++) {
+                        final Long count = countList.get(i);
+                        if (count != null && count > 0) {
+                            present.add(keys.get(i));
+                        }
+                    }
+                    return present;
+                });
+            } else {
+                lookupKeys = CompletableFuture.completedFuture(keys);
+            }
+            return lookupKeys.thenCompose(present -> rankLookups(tr, present, nullIfMissing))
+                    .thenApply(ranks -> keys.stream().map(ranks::get).collect(Collectors.toList()));
+        });
+    }
+
+    /**
+     * Return the Nth item in the set for several values of N.
+     *
+     * The lookups share their reads in the same way as {@link #rank(ReadTransactionContext, List, boolean)}.
+     * @param tc the transaction to use to access the database
+     * @param ranks the rank indexes to find
+     * @return a future that completes to the key for each of {@code ranks}, in the same order, or {@code null} for
+     * those that are out of bounds
+     * @see #getNth(ReadTransactionContext, long)
+     */
+    public CompletableFuture<List<byte[]>> getNth(ReadTransactionContext tc, List<Long> ranks) {
+        return tc.readAsync(tr -> nthLookups(tr, ranks)
+                .thenApply(keys -> ranks.stream().map(keys::get).collect(Collectors.toList())));
+    }
+
+    private CompletableFuture<Map<byte[], Long>> rankLookups(ReadTransaction tr, List<byte[]> keys, boolean keyShouldBePresent) {
+        final Map<byte[], RankState> states = new TreeMap<>(ByteArrayUtil::compareUnsigned);
+        for (byte[] key : keys) {
+            states.computeIfAbsent(key, RankState::new);
+        }
+        return getUpperLevels(tr)
+                .thenCompose(upperLevels -> rankLevel(tr, upperLevels, new ArrayList<>(states.values()), config.getNLevels() - 1, keyShouldBePresent))
+                .thenApply(vignore -> {
+                    final Map<byte[], Long> ranks = new TreeMap<>(ByteArrayUtil::compareUnsigned);
+                    states.forEach((key, state) -> ranks.put(key, state.rank));
+                    return ranks;
+                });
+    }
+
+    // Advance the lookups of keys that are sorted and so, at each level, start from sorted keys.
+    private CompletableFuture<Void> rankLevel(ReadTransaction tr, UpperLevels upperLevels, List<RankState> states,
+                                              int level, boolean keyShouldBePresent) {
+        if (level < 0 || states.isEmpty()) {
+            return DONE;
+        }
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        int start = 0;
+        while (start < states.size()) {
+            int end = start + 1;
+            while (end < states.size() && Arrays.equals(states.get(end).rankKey, states.get(start).rankKey)) {
+                end++;
+            }
+            final RankWalker walker = new RankWalker(states.subList(start, end), level, keyShouldBePresent);
+            futures.add(readLevel(tr, upperLevels, level, states.get(start).rankKey, states.get(end - 1).key, walker, true));
+            start = end;
+        }
+        return AsyncUtil.whenAll(futures).thenCompose(vignore -> {
+            final List<RankState> remaining = states.stream().filter(state -> !state.done).collect(Collectors.toList());
+            return rankLevel(tr, upperLevels, remaining, level - 1, keyShouldBePresent);
+        });
+    }
+
+    private CompletableFuture<Map<Long, byte[]>> nthLookups(ReadTransaction tr, List<Long> ranks) {
+        final Map<Long, NthState> states = new TreeMap<>();
+        for (Long rank : ranks) {
+            if (rank >= 0) {
+                states.computeIfAbsent(rank, NthState::new);
+            }
+        }
+        return getUpperLevels(tr)
+                .thenCompose(upperLevels -> nthLevel(tr, upperLevels, new ArrayList<>(states.values()), config.getNLevels() - 1))
+                .thenApply(vignore -> {
+                    final Map<Long, byte[]> keys = new HashMap<>();
+                    states.forEach((rank, state) -> keys.put(rank, state.result));
+                    return keys;
+                });
+    }
+
+    // Advance the lookups of ranks that are sorted and so, at each level, start from sorted keys.
+    private CompletableFuture<Void> nthLevel(ReadTransaction tr, UpperLevels upperLevels, List<NthState> states, int level) {
+        if (states.isEmpty()) {
+            return DONE;
+        }
+        if (level < 0) {
+            // Down to finest level within the count of a duplicated key.
+            for (NthState state : states) {
+                state.result = config.isCountDuplicates() ? state.key : null;
+            }
+            return DONE;
+        }
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        int start = 0;
+        while (start < states.size()) {
+            int end = start + 1;
+            while (end < states.size() && Arrays.equals(states.get(end).key, states.get(start).key)) {
+                end++;
+            }
+            final NthWalker walker = new NthWalker(states.subList(start, end));
+            futures.add(readLevel(tr, upperLevels, level, states.get(start).key, null, walker, false));
+            start = end;
+        }
+        return AsyncUtil.whenAll(futures).thenCompose(vignore -> {
+            final List<NthState> remaining = states.stream().filter(state -> !state.done).collect(Collectors.toList());
+            return nthLevel(tr, upperLevels, remaining, level - 1);
+        });
+    }
+
+    // Give the keys of a level from beginKey through endKey (or the end of the level) to walker, until it has enough.
+    private CompletableFuture<Void> readLevel(ReadTransaction tr, UpperLevels upperLevels, int level,
+                                              byte[] beginKey, byte[] endKey, LevelWalker walker, boolean rankLookup) {
+        if (upperLevels != null && upperLevels.hasLevel(level)) {
+            final List<LevelEntry> entries = upperLevels.getLevel(level);
+            int low = 0;
+            int high = entries.size();
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (ByteArrayUtil.compareUnsigned(entries.get(mid).key, beginKey) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            for (int i = low; i < entries.size(); i++) {
+                final LevelEntry entry = entries.get(i);
+                if ((endKey != null && ByteArrayUtil.compareUnsigned(entry.key, endKey) > 0) || !walker.accept(entry.key, entry.count)) {
+                    break;
+                }
+            }
+            walker.finish();
+            return DONE;
+        }
+        final LevelRead read = new LevelRead(level, beginKey, endKey, walker, rankLookup);
+        return AsyncUtil.whileTrue(() -> nextLookup(read, tr), executor).thenRun(walker::finish);
+    }
+
+    // Get the cached upper levels for this set, if they are current, loading them if necessary.
+    private CompletableFuture<UpperLevels> getUpperLevels(ReadTransaction tr) {
+        if (upperLevelCache == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final byte[] subspaceKey = subspace.getKey();
+        return tr.get(subspaceKey).handle((version, err) -> {
+            if (err != null) {
+                final Throwable cause = err instanceof CompletionException ? err.getCause() : err;
+                if (cause instanceof FDBException && ((FDBException)cause).getCode() == ACCESSED_UNREADABLE) {
+                    // Changed by this transaction, so cached levels may be out of date.
+                    return null;
+                }
+                throw err instanceof CompletionException ? (CompletionException)err : new CompletionException(err);
+            }
+            return version;
+        }).thenCompose(version -> {
+            if (version == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            final UpperLevels cached = upperLevelCache.get(subspaceKey, version);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+            final int lowestLevel = Math.max(1, config.getNLevels() - upperLevelCache.getLevels());
+            return loadLevels(tr, config.getNLevels() - 1, lowestLevel, upperLevelCache.getMaxKeys(), new ArrayList<>())
+                    .thenApply(levels -> {
+                        final UpperLevels loaded = new UpperLevels(version, config.getNLevels() - levels.size(), levels);
+                        upperLevelCache.put(subspaceKey, loaded);
+                        return loaded;
+                    });
+        });
+    }
+
+    // Read levels from the coarsest down, stopping at one that would take the cache over its limit.
+    private CompletableFuture<List<List<LevelEntry>>> loadLevels(ReadTransaction tr, int level, int lowestLevel, int remainingKeys,
+                                                                 List<List<LevelEntry>> levels) {
+        if (level < lowestLevel) {
+            return CompletableFuture.completedFuture(levels);
+        }
+        final Subspace levelSubspace = subspace.get(level);
+        return tr.getRange(levelSubspace.range(), remainingKeys + 1).asList().thenCompose(keyValues -> {
+            if (keyValues.size() > remainingKeys) {
+                return CompletableFuture.completedFuture(levels);
+            }
+            final List<LevelEntry> entries = new ArrayList<>(keyValues.size());
+            for (KeyValue kv : keyValues) {
+                entries.add(new LevelEntry(levelSubspace.unpack(kv.getKey()).getBytes(0), decodeLong(kv.getValue())));
+            }
+            levels.add(0, entries);
+            return loadLevels(tr, level - 1, lowestLevel, remainingKeys - entries.size(), levels);
+        });
+    }
+
+    private interface LevelWalker {
+        // Take the next key on the level, returning whether more keys are needed.
+        boolean accept(byte[] key, long count);
+
+        // Called after the last key that will be given.
+        void finish();
+    }
+
+    private static class RankState {
+        private final byte[] key;
+        private byte[] rankKey = EMPTY_ARRAY;
+        private long rank = 0;
+        private boolean done;
+
+        RankState(byte[] key) {
+            this.key = key;
+        }
+    }
+
+    // Does for several keys what RankLookup does for one, given the level's keys from their common rankKey.
+    private static class RankWalker implements LevelWalker {
+        private final List<RankState> states;
+        private final int level;
+        private final boolean keyShouldBePresent;
+        private int nextState = 0;
+        private byte[] lastKey = null;
+        private long lastCount;
+        private long totalCount;
+
+        RankWalker(List<RankState> states, int level, boolean keyShouldBePresent) {
+            this.states = states;
+            this.level = level;
+            this.keyShouldBePresent = keyShouldBePresent;
+        }
+
+        @Override
+        public boolean accept(byte[] key, long count) {
+            while (nextState < states.size() && ByteArrayUtil.compareUnsigned(key, states.get(nextState).key) > 0) {
+                finishState(states.get(nextState++));
+            }
+            lastKey = key;
+            lastCount = count;
+            totalCount += count;
+            return true;
+        }
+
+        @Override
+        public void finish() {
+            while (nextState < states.size()) {
+                finishState(states.get(nextState++));
+            }
+        }
+
+        private void finishState(RankState state) {
+            if (lastKey != null) {
+                state.rank += totalCount - lastCount;
+                state.rankKey = lastKey;
+            }
+            if (Arrays.equals(state.rankKey, state.key)) {
+                // Exact match on this level: no need for finer.
+                state.done = true;
+            } else if (level == 0) {
+                if (!keyShouldBePresent && lastCount > 0) {
+                    // As in RankLookup, the key would come after the last one.
+                    state.rank++;
+                }
+                state.done = true;
+            }
+        }
+    }
+
+    private static class NthState {
+        private long rank;
+        private byte[] key = EMPTY_ARRAY;
+        private byte[] result;
+        private boolean done;
+
+        NthState(long rank) {
+            this.rank = rank;
+        }
+    }
+
+    // Does for several ranks what NthLookup does for one, given the level's keys from their common starting key.
+    private static class NthWalker implements LevelWalker {
+        private final List<NthState> states;
+        private int nextState = 0;
+        private long passedCount;
+
+        NthWalker(List<NthState> states) {
+            this.states = states;
+        }
+
+        @Override
+        public boolean accept(byte[] key, long count) {
+            while (nextState < states.size()) {
+                final NthState state = states.get(nextState);
+                final long rank = state.rank - passedCount;
+                if (rank == 0 && key.length > 0) {
+                    // Moved along correct rank, this is the key.
+                    state.result = key;
+                    state.done = true;
+                } else if (count > rank) {
+                    // Narrow search in next finer level.
+                    state.key = key;
+                    state.rank = rank;
+                } else {
+                    break;
+                }
+                nextState++;
+            }
+            passedCount += count;
+            return nextState < states.size();
+        }
+
+        @Override
+        public void finish() {
+            while (nextState < states.size()) {
+                // Not enough on this level.
+                final NthState state = states.get(nextState++);
+                state.result = null;
+                state.done = true;
+            }
+        }
+    }
+
+    class LevelRead implements Lookup {
+        private final int level;
+        private final byte[] beginKey;
+        private final byte[] endKey;
+        private final LevelWalker walker;
+        private final boolean rankLookup;
+        private final Subspace levelSubspace;
+        private AsyncIterator<KeyValue> asyncIterator = null;
+
+        LevelRead(int level, byte[] beginKey, byte[] endKey, LevelWalker walker, boolean rankLookup) {
+            this.level = level;
+            this.beginKey = beginKey;
+            this.endKey = endKey;
+            this.walker = walker;
+            this.rankLookup = rankLookup;
+            this.levelSubspace = subspace.get(level);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> next(ReadTransaction tr) {
+            final boolean newIterator = asyncIterator == null;
+            if (newIterator) {
+                asyncIterator = lookupIterator(tr.getRange(
+                        KeySelector.firstGreaterOrEqual(levelSubspace.pack(beginKey)),
+                        endKey == null ?
+                                KeySelector.firstGreaterOrEqual(levelSubspace.range().end) :
+                                KeySelector.firstGreaterThan(levelSubspace.pack(endKey)),
+                        ReadTransaction.ROW_LIMIT_UNLIMITED,
+                        false,
+                        StreamingMode.WANT_ALL));
+            }
+            final long startTime = System.nanoTime();
+            final CompletableFuture<Boolean> onHasNext = asyncIterator.onHasNext();
+            final boolean wasDone = onHasNext.isDone();
+            return onHasNext.thenApply(hasNext -> {
+                if (!wasDone) {
+                    nextLookupKey(System.nanoTime() - startTime, newIterator, hasNext, level, rankLookup);
+                }
+                if (!hasNext) {
+                    return false;
+                }
+                final KeyValue kv = asyncIterator.next();
+                return walker.accept(levelSubspace.unpack(kv.getKey()).getBytes(0), decodeLong(kv.getValue()));
+            });
+        }
+    }
+
     /**
      * Count the items in the set.
      * @param tc the transaction to use to access the database
@@ -906,6 +1509,12 @@ public class RankedSet {
         return kf.thenApply(prevk -> subspace.unpack(prevk).getBytes(1));
     }
 
+    private void updateVersion(Transaction tr) {
+        if (config.isVersioned()) {
+            tr.mutate(MutationType.SET_VERSIONSTAMPED_VALUE, subspace.getKey(), VERSION_VALUE);
+        }
+    }
+
     private CompletableFuture<Void> initLevels(TransactionContext tc) {
         return tc.runAsync(tr -> {
             final int nlevels = config.getNLevels();
@@ -917,6 +1526,7 @@ public class RankedSet {
                 futures.add(tr.get(k).thenAccept(value -> {
                     if (value == null) {
                         tr.set(k, v);
+                        updateVersion(tr);
                     }
                 }));
             }
@@ -0,0 +1,214 @@
+/*
+ * CompactStorageAdapter.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.async.hnsw;
+
+import com.apple.foundationdb.KeyValue;
+import com.apple.foundationdb.ReadTransaction;
+import com.apple.foundationdb.Transaction;
+import com.apple.foundationdb.subspace.Subspace;
+import com.apple.foundationdb.tuple.Tuple;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Storage adapter that stores each node of a layer in a single key/value pair. The key is made up of the layer and
+ * the primary key of the vector, and the value holds the encoded vector and the primary keys of the node's
+ * neighbors in that layer, so that a search has everything it needs to evaluate and expand a node with one read.
+ * <br>
+ * If the {@link VectorEncoder} is lossy, the nodes hold the smaller encoded form for computing approximate distances
+ * during the search, and the exact vector is stored once more under its own key, to be read only for the final
+ * candidates of a search.
+ */
+class CompactStorageAdapter implements StorageAdapter {
+    private static final long ENTRY_POINT_KEY = 0L;
+    private static final long NODES_KEY = 1L;
+    private static final long EXACT_VECTORS_KEY = 2L;
+
+    @Nonnull
+    private final Subspace subspace;
+    @Nonnull
+    private final byte[] entryPointKey;
+    @Nonnull
+    private final Subspace exactVectorsSubspace;
+    @Nullable
+    private final VectorEncoder encoder;
+    @Nonnull
+    private final OnReadListener onReadListener;
+
+    CompactStorageAdapter(@Nonnull final Subspace subspace, @Nullable final VectorEncoder encoder,
+                          @Nonnull final OnReadListener onReadListener) {
+        this.subspace = subspace;
+        this.entryPointKey = subspace.pack(Tuple.from(ENTRY_POINT_KEY));
+        this.exactVectorsSubspace = subspace.subspace(Tuple.from(EXACT_VECTORS_KEY));
+        this.encoder = encoder;
+        this.onReadListener = onReadListener;
+    }
+
+    @Nonnull
+    @Override
+    public Subspace getSubspace() {
+        return subspace;
+    }
+
+    /**
+     * Get the encoder for the vectors held by nodes.
+     * @return the encoder
+     * @throws IllegalStateException if the encoder is not available
+     */
+    @Nonnull
+    protected VectorEncoder getEncoder() {
+        if (encoder == null) {
+            throw new IllegalStateException("vector encoder is not available");
+        }
+        return encoder;
+    }
+
+    /**
+     * Get the encoder for the vectors held by nodes, reading any state it needs from the database.
+     * @param transaction the transaction to use
+     * @return a future that when completed holds the encoder or {@code null} if the encoder is not available
+     */
+    @Nonnull
+    protected CompletableFuture<VectorEncoder> fetchEncoder(@Nonnull final ReadTransaction transaction) {
+        return CompletableFuture.completedFuture(encoder);
+    }
+
+    @Nonnull
+    private Subspace getLayerSubspace(final int layer) {
+        return subspace.subspace(Tuple.from(NODES_KEY, layer));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Node> fetchNode(@Nonnull final ReadTransaction transaction, final int layer,
+                                             @Nonnull final Tuple primaryKey) {
+        final byte[] key = getLayerSubspace(layer).pack(primaryKey);
+        return fetchEncoder(transaction).thenCompose(vignore -> transaction.get(key)).thenApply(value -> {
+            if (value == null) {
+                return null;
+            }
+            onReadListener.onNodeRead(layer, key, value);
+            return decodeNode(primaryKey, value);
+        });
+    }
+
+    @Override
+    public void writeNode(@Nonnull final Transaction transaction, final int layer, @Nonnull final Node node) {
+        transaction.set(getLayerSubspace(layer).pack(node.getPrimaryKey()), encodeNode(node));
+    }
+
+    @Override
+    public void deleteNode(@Nonnull final Transaction transaction, final int layer, @Nonnull final Tuple primaryKey) {
+        transaction.clear(getLayerSubspace(layer).pack(primaryKey));
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<Node> fetchAnyNode(@Nonnull final ReadTransaction transaction, final int layer) {
+        final Subspace layerSubspace = getLayerSubspace(layer);
+        return fetchEncoder(transaction).thenCompose(vignore -> transaction.getRange(layerSubspace.range(), 1).asList()).thenApply(keyValues -> {
+            if (keyValues.isEmpty()) {
+                return null;
+            }
+            final KeyValue keyValue = keyValues.get(0);
+            onReadListener.onNodeRead(layer, keyValue.getKey(), keyValue.getValue());
+            return decodeNode(layerSubspace.unpack(keyValue.getKey()), keyValue.getValue());
+        });
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<EntryPoint> fetchEntryPoint(@Nonnull final ReadTransaction transaction) {
+        // Every operation starts by reading the entry point, so this is also where any state of the encoder is loaded.
+        return fetchEncoder(transaction).thenCompose(vignore -> transaction.get(entryPointKey)).thenApply(value -> {
+            if (value == null) {
+                return null;
+            }
+            final Tuple tuple = Tuple.fromBytes(value);
+            return new EntryPoint(Math.toIntExact(tuple.getLong(0)), tuple.getNestedTuple(1));
+        });
+    }
+
+    @Override
+    public void writeEntryPoint(@Nonnull final Transaction transaction, @Nullable final EntryPoint entryPoint) {
+        if (entryPoint == null) {
+            transaction.clear(entryPointKey);
+        } else {
+            transaction.set(entryPointKey, Tuple.from(entryPoint.getLayer(), entryPoint.getPrimaryKey()).pack());
+        }
+    }
+
+    @Override
+    public boolean isExact() {
+        return getEncoder().isExact();
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<double[]> fetchExactVector(@Nonnull final ReadTransaction transaction, @Nonnull final Tuple primaryKey) {
+        if (isExact()) {
+            return fetchNode(transaction, 0, primaryKey).thenApply(node -> node == null ? null : node.getVector());
+        }
+        final byte[] key = exactVectorsSubspace.pack(primaryKey);
+        return transaction.get(key).thenApply(value -> {
+            if (value == null) {
+                return null;
+            }
+            onReadListener.onExactVectorRead(key, value);
+            return VectorEncoder.decodeDoubles(value);
+        });
+    }
+
+    @Override
+    public void writeExactVector(@Nonnull final Transaction transaction, @Nonnull final Tuple primaryKey, @Nonnull final double[] vector) {
+        if (!isExact()) {
+            transaction.set(exactVectorsSubspace.pack(primaryKey), VectorEncoder.encodeDoubles(vector));
+        }
+    }
+
+    @Override
+    public void deleteExactVector(@Nonnull final Transaction transaction, @Nonnull final Tuple primaryKey) {
+        if (!isExact()) {
+            transaction.clear(exactVectorsSubspace.pack(primaryKey));
+        }
+    }
+
+    @Nonnull
+    private byte[] encodeNode(@Nonnull final Node node) {
+        final List<Object> neighbors = new ArrayList<>(node.getNeighbors());
+        return Tuple.from(getEncoder().encode(node.getVector()), Tuple.fromList(neighbors)).pack();
+    }
+
+    @Nonnull
+    private Node decodeNode(@Nonnull final Tuple primaryKey, @Nonnull final byte[] value) {
+        final Tuple tuple = Tuple.fromBytes(value);
+        final Tuple neighborsTuple = tuple.getNestedTuple(1);
+        final List<Tuple> neighbors = new ArrayList<>(neighborsTuple.size());
+        for (int i = 0; i < neighborsTuple.size(); i++) {
+            neighbors.add(neighborsTuple.getNestedTuple(i));
+        }
+        return new Node(primaryKey, getEncoder().decode(tuple.getBytes(0)), neighbors);
+    }
+}
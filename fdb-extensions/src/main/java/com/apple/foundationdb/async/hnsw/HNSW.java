@@ -0,0 +1,734 @@
+/*
+ * HNSW.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.async.hnsw;
+
+import com.apple.foundationdb.ReadTransaction;
+import com.apple.foundationdb.Transaction;
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.subspace.Subspace;
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * An implementation of a hierarchical navigable small world (HNSW) graph for approximate nearest neighbor search.
+ * See <a href="https://arxiv.org/abs/1603.09320">the paper by Malkov and Yashunin</a> for a detailed description.
+ * <br>
+ * The graph consists of layers. The bottom layer {@code 0} holds every vector, and each vector is also placed in the
+ * layers above it up to a randomly chosen top layer, with the number of vectors in a layer decreasing exponentially
+ * from one layer to the next. Within a layer, each vector is connected to a bounded number of its nearest neighbors.
+ * A search starts at the single entry point in the top layer, greedily walks towards the query vector in each layer,
+ * and continues from the closest vector found in the layer below, finishing with a wider beam search of the bottom
+ * layer. This only visits a small number of nodes for each search, which makes the graph usable at sizes where a
+ * brute-force comparison against every vector is not.
+ * <br>
+ * Every node of every layer is stored under its own key (see {@link StorageAdapter}), so that inserts and deletes
+ * only rewrite the nodes whose neighbors change, and they can be performed transactionally along with the rest of a
+ * record's index updates. Insertions and deletions read many nodes, so concurrent modifications of the same graph
+ * are likely to conflict.
+ * <br>
+ * Nodes can hold their vectors in a compressed form (see {@link Storage}), which cuts the number of bytes read for
+ * every node visited by a search. Distances computed while traversing the graph are then approximate, and the final
+ * candidates of a search are re-ranked by their exact distances, reading each of their exact vectors once.
+ * <br>
+ * Links between nodes are not always symmetric, since a node's neighbor list may have been pruned. A delete removes
+ * the links from the deleted vector's own neighbors, and searches skip any remaining links to vectors that no longer
+ * exist.
+ */
+@API(API.Status.EXPERIMENTAL)
+public class HNSW {
+    public static final int DEFAULT_M = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 100;
+    public static final int DEFAULT_EF_SEARCH = 64;
+    @Nonnull
+    public static final Metric DEFAULT_METRIC = Metric.EUCLIDEAN_METRIC;
+    @Nonnull
+    public static final Storage DEFAULT_STORAGE = Storage.FULL;
+    public static final int DEFAULT_PQ_SUBVECTORS = 16;
+    public static final int DEFAULT_PQ_TRAINING_ITERATIONS = 10;
+    @Nonnull
+    public static final Config DEFAULT_CONFIG = new Config();
+
+    // Caps the layer chosen for a new vector, which would otherwise be unbounded in theory.
+    private static final int MAX_LAYER = 16;
+
+    @Nonnull
+    private final StorageAdapter storageAdapter;
+    @Nonnull
+    private final Executor executor;
+    @Nonnull
+    private final Config config;
+
+    /**
+     * Different kinds of storage layouts.
+     */
+    public enum Storage {
+        /**
+         * Every node holds its vector with full precision.
+         */
+        FULL((subspace, onReadListener) -> new CompactStorageAdapter(subspace, VectorEncoder.FULL, onReadListener)),
+        /**
+         * Every node holds its vector with each component quantized to a single byte, about an eighth of the size of
+         * the full vector. The full vectors are stored separately for re-ranking.
+         */
+        SCALAR_QUANTIZED((subspace, onReadListener) -> new CompactStorageAdapter(subspace, ScalarQuantizer.INSTANCE, onReadListener)),
+        /**
+         * Every node holds its vector as product quantization codes, one byte per subvector. The full vectors are
+         * stored separately for re-ranking. The codebook must be trained with {@link HNSW#trainProductQuantizer} before
+         * any vectors are inserted.
+         */
+        PRODUCT_QUANTIZED(ProductQuantizedStorageAdapter::new);
+
+        @Nonnull
+        private final StorageAdapterCreator storageAdapterCreator;
+
+        Storage(@Nonnull final StorageAdapterCreator storageAdapterCreator) {
+            this.storageAdapterCreator = storageAdapterCreator;
+        }
+
+        @Nonnull
+        private StorageAdapter newStorageAdapter(@Nonnull final Subspace subspace, @Nonnull final OnReadListener onReadListener) {
+            return storageAdapterCreator.create(subspace, onReadListener);
+        }
+    }
+
+    /**
+     * Functional interface to create a {@link StorageAdapter}.
+     */
+    private interface StorageAdapterCreator {
+        StorageAdapter create(@Nonnull Subspace subspace, @Nonnull OnReadListener onReadListener);
+    }
+
+    /**
+     * Configuration settings for a {@link HNSW}.
+     */
+    public static class Config {
+        @Nonnull
+        private final Metric metric;
+        private final int m;
+        private final int efConstruction;
+        @Nonnull
+        private final Storage storage;
+        private final int pqSubvectors;
+
+        protected Config() {
+            this.metric = DEFAULT_METRIC;
+            this.m = DEFAULT_M;
+            this.efConstruction = DEFAULT_EF_CONSTRUCTION;
+            this.storage = DEFAULT_STORAGE;
+            this.pqSubvectors = DEFAULT_PQ_SUBVECTORS;
+        }
+
+        protected Config(@Nonnull final Metric metric, final int m, final int efConstruction,
+                         @Nonnull final Storage storage, final int pqSubvectors) {
+            this.metric = metric;
+            this.m = m;
+            this.efConstruction = efConstruction;
+            this.storage = storage;
+            this.pqSubvectors = pqSubvectors;
+        }
+
+        @Nonnull
+        public Metric getMetric() {
+            return metric;
+        }
+
+        /**
+         * Get the number of neighbors that a new vector is connected to in each layer. Nodes may have up to this many
+         * neighbors in the upper layers and twice as many in the bottom layer.
+         * @return the number of neighbors per node
+         */
+        public int getM() {
+            return m;
+        }
+
+        /**
+         * Get the number of candidate neighbors considered when inserting a vector. Larger values build a better
+         * connected graph at the cost of slower inserts.
+         * @return the size of the candidate list during insertion
+         */
+        public int getEfConstruction() {
+            return efConstruction;
+        }
+
+        @Nonnull
+        public Storage getStorage() {
+            return storage;
+        }
+
+        /**
+         * Get the number of subvectors that vectors are split into for {@link Storage#PRODUCT_QUANTIZED} storage,
+         * which is also the number of bytes stored for each vector in a node.
+         * @return the number of subvectors
+         */
+        public int getPqSubvectors() {
+            return pqSubvectors;
+        }
+
+        public ConfigBuilder toBuilder() {
+            return new ConfigBuilder(metric, m, efConstruction, storage, pqSubvectors);
+        }
+
+        @Override
+        public String toString() {
+            return metric + ", M=" + m + ", efConstruction=" + efConstruction + ", storage=" + storage +
+                   (storage == Storage.PRODUCT_QUANTIZED ? ", pqSubvectors=" + pqSubvectors : "");
+        }
+    }
+
+    /**
+     * Builder for {@link Config}.
+     *
+     * @see #newConfigBuilder
+     */
+    @CanIgnoreReturnValue
+    public static class ConfigBuilder {
+        @Nonnull
+        private Metric metric = DEFAULT_METRIC;
+        private int m = DEFAULT_M;
+        private int efConstruction = DEFAULT_EF_CONSTRUCTION;
+        @Nonnull
+        private Storage storage = DEFAULT_STORAGE;
+        private int pqSubvectors = DEFAULT_PQ_SUBVECTORS;
+
+        public ConfigBuilder() {
+        }
+
+        public ConfigBuilder(@Nonnull final Metric metric, final int m, final int efConstruction,
+                             @Nonnull final Storage storage, final int pqSubvectors) {
+            this.metric = metric;
+            this.m = m;
+            this.efConstruction = efConstruction;
+            this.storage = storage;
+            this.pqSubvectors = pqSubvectors;
+        }
+
+        @Nonnull
+        public Metric getMetric() {
+            return metric;
+        }
+
+        public ConfigBuilder setMetric(@Nonnull final Metric metric) {
+            this.metric = metric;
+            return this;
+        }
+
+        public int getM() {
+            return m;
+        }
+
+        public ConfigBuilder setM(final int m) {
+            this.m = m;
+            return this;
+        }
+
+        public int getEfConstruction() {
+            return efConstruction;
+        }
+
+        public ConfigBuilder setEfConstruction(final int efConstruction) {
+            this.efConstruction = efConstruction;
+            return this;
+        }
+
+        @Nonnull
+        public Storage getStorage() {
+            return storage;
+        }
+
+        public ConfigBuilder setStorage(@Nonnull final Storage storage) {
+            this.storage = storage;
+            return this;
+        }
+
+        public int getPqSubvectors() {
+            return pqSubvectors;
+        }
+
+        public ConfigBuilder setPqSubvectors(final int pqSubvectors) {
+            this.pqSubvectors = pqSubvectors;
+            return this;
+        }
+
+        public Config build() {
+            if (m < 2) {
+                throw new IllegalArgumentException("M must be at least 2");
+            }
+            if (pqSubvectors < 1) {
+                throw new IllegalArgumentException("number of product quantization subvectors must be positive");
+            }
+            return new Config(getMetric(), getM(), Math.max(getEfConstruction(), getM()), getStorage(), getPqSubvectors());
+        }
+    }
+
+    /**
+     * Start building a {@link Config}.
+     * @return a new {@code Config} that can be altered and then built for use with a {@link HNSW}
+     * @see ConfigBuilder#build
+     */
+    public static ConfigBuilder newConfigBuilder() {
+        return new ConfigBuilder();
+    }
+
+    /**
+     * Initialize a new graph with the default configuration.
+     * @param subspace the subspace where the graph is stored
+     * @param executor an executor to use when running asynchronous tasks
+     */
+    public HNSW(@Nonnull final Subspace subspace, @Nonnull final Executor executor) {
+        this(subspace, executor, DEFAULT_CONFIG);
+    }
+
+    /**
+     * Initialize a new graph.
+     * @param subspace the subspace where the graph is stored
+     * @param executor an executor to use when running asynchronous tasks
+     * @param config configuration to use
+     */
+    public HNSW(@Nonnull final Subspace subspace, @Nonnull final Executor executor, @Nonnull final Config config) {
+        this(subspace, executor, config, OnReadListener.NOOP);
+    }
+
+    /**
+     * Initialize a new graph.
+     * @param subspace the subspace where the graph is stored
+     * @param executor an executor to use when running asynchronous tasks
+     * @param config configuration to use
+     * @param onReadListener an on-read listener to be called after nodes and vectors are read
+     */
+    public HNSW(@Nonnull final Subspace subspace, @Nonnull final Executor executor, @Nonnull final Config config,
+                @Nonnull final OnReadListener onReadListener) {
+        this.storageAdapter = config.getStorage().newStorageAdapter(subspace, onReadListener);
+        this.executor = executor;
+        this.config = config;
+    }
+
+    /**
+     * Get the {@link StorageAdapter} used to manage this graph.
+     * @return the storage adapter
+     */
+    @Nonnull
+    StorageAdapter getStorageAdapter() {
+        return storageAdapter;
+    }
+
+    @Nonnull
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    @Nonnull
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * Find the approximate {@code k} nearest neighbors of a query vector.
+     * @param readTransaction the transaction to use
+     * @param k the number of neighbors to return
+     * @param efSearch the number of candidates considered in the bottom layer; larger values give better recall at
+     * the cost of more reads. Values less than {@code k} are treated as {@code k}.
+     * @param queryVector the vector to find the neighbors of
+     * @return a future that when completed holds up to {@code k} vectors, ordered by increasing distance from
+     * the query vector
+     */
+    @Nonnull
+    public CompletableFuture<List<NodeReferenceWithDistance>> kNearestNeighborsSearch(@Nonnull final ReadTransaction readTransaction,
+                                                                                      final int k, final int efSearch,
+                                                                                      @Nonnull final double[] queryVector) {
+        return storageAdapter.fetchEntryPoint(readTransaction).thenCompose(entryPoint -> {
+            if (entryPoint == null) {
+                return CompletableFuture.completedFuture(List.of());
+            }
+            return fetchWithDistances(readTransaction, entryPoint.getLayer(), List.of(entryPoint.getPrimaryKey()), queryVector)
+                    .thenCompose(entryNodes -> descend(readTransaction, entryNodes, entryPoint.getLayer(), 0, queryVector))
+                    .thenCompose(entryNodes -> searchLayer(readTransaction, 0, entryNodes, Math.max(k, efSearch), queryVector))
+                    .thenCompose(nearest -> storageAdapter.isExact() ? CompletableFuture.completedFuture(nearest) : rerank(readTransaction, nearest, queryVector))
+                    .thenApply(nearest -> nearest.stream()
+                            .limit(k)
+                            .map(nodeWithDistance -> new NodeReferenceWithDistance(nodeWithDistance.node.getPrimaryKey(),
+                                    nodeWithDistance.node.getVector(), nodeWithDistance.distance))
+                            .collect(Collectors.toList()));
+        });
+    }
+
+    /**
+     * Replace approximate distances by exact ones, reading the exact vector of each candidate.
+     * @return the candidates with exact vectors, ordered by increasing distance
+     */
+    @Nonnull
+    private CompletableFuture<List<NodeWithDistance>> rerank(@Nonnull final ReadTransaction transaction,
+                                                             @Nonnull final List<NodeWithDistance> candidates,
+                                                             @Nonnull final double[] queryVector) {
+        final List<CompletableFuture<double[]>> exactVectors = candidates.stream()
+                .map(candidate -> storageAdapter.fetchExactVector(transaction, candidate.node.getPrimaryKey()))
+                .collect(Collectors.toList());
+        return AsyncUtil.whenAll(exactVectors).thenApply(vignore -> {
+            final List<NodeWithDistance> reranked = new ArrayList<>(candidates.size());
+            for (int i = 0; i < candidates.size(); i++) {
+                final double[] exactVector = exactVectors.get(i).join();
+                if (exactVector != null) {
+                    final Node node = candidates.get(i).node;
+                    reranked.add(new NodeWithDistance(new Node(node.getPrimaryKey(), exactVector, node.getNeighbors()),
+                            distance(queryVector, exactVector)));
+                }
+            }
+            reranked.sort(NodeWithDistance.BY_DISTANCE);
+            return reranked;
+        });
+    }
+
+    /**
+     * Learn the codebook for {@link Storage#PRODUCT_QUANTIZED} storage from a sample of the vectors to be indexed.
+     * This must be done before any vectors are inserted.
+     * @param transaction the transaction to use
+     * @param samples sample vectors, all with the same number of dimensions as the vectors to be indexed
+     * @return a future that completes when the codebook has been stored
+     */
+    @Nonnull
+    public CompletableFuture<Void> trainProductQuantizer(@Nonnull final Transaction transaction, @Nonnull final List<double[]> samples) {
+        if (!(storageAdapter instanceof ProductQuantizedStorageAdapter)) {
+            throw new IllegalStateException("graph does not use product quantization");
+        }
+        final ProductQuantizedStorageAdapter productQuantizedStorageAdapter = (ProductQuantizedStorageAdapter)storageAdapter;
+        return storageAdapter.fetchEntryPoint(transaction).thenAccept(entryPoint -> {
+            if (entryPoint != null) {
+                throw new IllegalStateException("product quantizer can only be trained for an empty graph");
+            }
+            productQuantizedStorageAdapter.writeProductQuantizer(transaction,
+                    ProductQuantizer.train(samples, config.getPqSubvectors(), DEFAULT_PQ_TRAINING_ITERATIONS, ThreadLocalRandom.current()));
+        });
+    }
+
+    /**
+     * Insert a vector into the graph, replacing any vector already stored under the same primary key.
+     * @param transaction the transaction to use
+     * @param primaryKey the primary key identifying the vector
+     * @param vector the vector
+     * @return a future that completes when the vector has been inserted
+     */
+    @Nonnull
+    public CompletableFuture<Void> insertOrUpdate(@Nonnull final Transaction transaction, @Nonnull final Tuple primaryKey,
+                                                  @Nonnull final double[] vector) {
+        return storageAdapter.fetchNode(transaction, 0, primaryKey)
+                .thenCompose(existing -> existing == null ? AsyncUtil.DONE : delete(transaction, primaryKey))
+                .thenCompose(vignore -> insert(transaction, primaryKey, vector));
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> insert(@Nonnull final Transaction transaction, @Nonnull final Tuple primaryKey,
+                                           @Nonnull final double[] vector) {
+        final int insertLayer = randomLayer();
+        return storageAdapter.fetchEntryPoint(transaction).thenCompose(entryPoint -> {
+            storageAdapter.writeExactVector(transaction, primaryKey, vector);
+            if (entryPoint == null) {
+                for (int layer = 0; layer <= insertLayer; layer++) {
+                    storageAdapter.writeNode(transaction, layer, new Node(primaryKey, vector, List.of()));
+                }
+                storageAdapter.writeEntryPoint(transaction, new StorageAdapter.EntryPoint(insertLayer, primaryKey));
+                return AsyncUtil.DONE;
+            }
+            final int topLayer = entryPoint.getLayer();
+            final int firstLinkedLayer = Math.min(insertLayer, topLayer);
+            return fetchWithDistances(transaction, topLayer, List.of(entryPoint.getPrimaryKey()), vector)
+                    .thenCompose(entryNodes -> descend(transaction, entryNodes, topLayer, firstLinkedLayer, vector))
+                    .thenCompose(entryNodes -> insertIntoLayers(transaction, primaryKey, vector, entryNodes, firstLinkedLayer))
+                    .thenRun(() -> {
+                        // Above the old top layer there is nothing to link to, and the new vector becomes the entry point.
+                        for (int layer = topLayer + 1; layer <= insertLayer; layer++) {
+                            storageAdapter.writeNode(transaction, layer, new Node(primaryKey, vector, List.of()));
+                        }
+                        if (insertLayer > topLayer) {
+                            storageAdapter.writeEntryPoint(transaction, new StorageAdapter.EntryPoint(insertLayer, primaryKey));
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Delete a vector from the graph.
+     * @param transaction the transaction to use
+     * @param primaryKey the primary key identifying the vector
+     * @return a future that completes when the vector has been deleted
+     */
+    @Nonnull
+    public CompletableFuture<Void> delete(@Nonnull final Transaction transaction, @Nonnull final Tuple primaryKey) {
+        return storageAdapter.fetchEntryPoint(transaction).thenCompose(entryPoint -> {
+            if (entryPoint == null) {
+                return AsyncUtil.DONE;
+            }
+            storageAdapter.deleteExactVector(transaction, primaryKey);
+            final List<CompletableFuture<Void>> layerFutures = new ArrayList<>(entryPoint.getLayer() + 1);
+            for (int layer = 0; layer <= entryPoint.getLayer(); layer++) {
+                layerFutures.add(deleteFromLayer(transaction, layer, primaryKey));
+            }
+            return AsyncUtil.whenAll(layerFutures).thenCompose(vignore -> {
+                if (!entryPoint.getPrimaryKey().equals(primaryKey)) {
+                    return AsyncUtil.DONE;
+                }
+                return findNewEntryPoint(transaction, entryPoint.getLayer())
+                        .thenAccept(newEntryPoint -> storageAdapter.writeEntryPoint(transaction, newEntryPoint));
+            });
+        });
+    }
+
+    private CompletableFuture<Void> deleteFromLayer(@Nonnull final Transaction transaction, final int layer,
+                                                    @Nonnull final Tuple primaryKey) {
+        return storageAdapter.fetchNode(transaction, layer, primaryKey).thenCompose(node -> {
+            if (node == null) {
+                return AsyncUtil.DONE;
+            }
+            storageAdapter.deleteNode(transaction, layer, primaryKey);
+            return fetchNodes(transaction, layer, node.getNeighbors()).thenAccept(neighbors -> {
+                // Reconnect each former neighbor to the closest of the deleted node's other neighbors, to
+                // keep the layer connected.
+                final int maxNeighbors = maxNeighbors(layer);
+                for (Node neighbor : neighbors) {
+                    final List<Tuple> newNeighbors = new ArrayList<>(neighbor.getNeighbors());
+                    newNeighbors.remove(primaryKey);
+                    final Set<Tuple> present = new HashSet<>(newNeighbors);
+                    final List<NodeWithDistance> replacements = new ArrayList<>();
+                    for (Node candidate : neighbors) {
+                        if (!candidate.getPrimaryKey().equals(neighbor.getPrimaryKey()) && !present.contains(candidate.getPrimaryKey())) {
+                            replacements.add(new NodeWithDistance(candidate, distance(neighbor.getVector(), candidate.getVector())));
+                        }
+                    }
+                    replacements.sort(NodeWithDistance.BY_DISTANCE);
+                    for (NodeWithDistance replacement : replacements) {
+                        if (newNeighbors.size() >= maxNeighbors) {
+                            break;
+                        }
+                        newNeighbors.add(replacement.node.getPrimaryKey());
+                    }
+                    storageAdapter.writeNode(transaction, layer, neighbor.withNeighbors(newNeighbors));
+                }
+            });
+        });
+    }
+
+    @Nonnull
+    private CompletableFuture<StorageAdapter.EntryPoint> findNewEntryPoint(@Nonnull final ReadTransaction transaction,
+                                                                           final int layer) {
+        if (layer < 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return storageAdapter.fetchAnyNode(transaction, layer).thenCompose(node -> {
+            if (node != null) {
+                return CompletableFuture.completedFuture(new StorageAdapter.EntryPoint(layer, node.getPrimaryKey()));
+            }
+            return findNewEntryPoint(transaction, layer - 1);
+        });
+    }
+
+    /**
+     * Link a new vector into the layers from {@code layer} down to the bottom layer.
+     */
+    @Nonnull
+    private CompletableFuture<Void> insertIntoLayers(@Nonnull final Transaction transaction, @Nonnull final Tuple primaryKey,
+                                                     @Nonnull final double[] vector, @Nonnull final List<NodeWithDistance> entryNodes,
+                                                     final int layer) {
+        return searchLayer(transaction, layer, entryNodes, config.getEfConstruction(), vector).thenCompose(candidates -> {
+            final List<NodeWithDistance> selected = candidates.subList(0, Math.min(config.getM(), candidates.size()));
+            storageAdapter.writeNode(transaction, layer, new Node(primaryKey, vector,
+                    selected.stream().map(nodeWithDistance -> nodeWithDistance.node.getPrimaryKey()).collect(Collectors.toList())));
+            final List<CompletableFuture<Void>> linkFutures = new ArrayList<>(selected.size());
+            for (NodeWithDistance neighbor : selected) {
+                linkFutures.add(addLink(transaction, layer, neighbor.node, primaryKey, vector));
+            }
+            final CompletableFuture<Void> linked = AsyncUtil.whenAll(linkFutures);
+            if (layer == 0) {
+                return linked;
+            }
+            final List<Tuple> nextEntries = candidates.stream()
+                    .map(nodeWithDistance -> nodeWithDistance.node.getPrimaryKey())
+                    .collect(Collectors.toList());
+            return linked.thenCompose(vignore -> fetchWithDistances(transaction, layer - 1, nextEntries, vector))
+                    .thenCompose(nextEntryNodes -> insertIntoLayers(transaction, primaryKey, vector, nextEntryNodes, layer - 1));
+        });
+    }
+
+    /**
+     * Add a link from an existing node to a new vector, pruning the node's neighbors back to the closest ones if it
+     * now has too many.
+     */
+    @Nonnull
+    private CompletableFuture<Void> addLink(@Nonnull final Transaction transaction, final int layer, @Nonnull final Node node,
+                                            @Nonnull final Tuple newPrimaryKey, @Nonnull final double[] newVector) {
+        final List<Tuple> neighbors = new ArrayList<>(node.getNeighbors());
+        neighbors.add(newPrimaryKey);
+        if (neighbors.size() <= maxNeighbors(layer)) {
+            storageAdapter.writeNode(transaction, layer, node.withNeighbors(neighbors));
+            return AsyncUtil.DONE;
+        }
+        return fetchNodes(transaction, layer, node.getNeighbors()).thenAccept(existing -> {
+            final List<NodeWithDistance> all = new ArrayList<>(existing.size() + 1);
+            for (Node neighbor : existing) {
+                all.add(new NodeWithDistance(neighbor, distance(node.getVector(), neighbor.getVector())));
+            }
+            all.add(new NodeWithDistance(new Node(newPrimaryKey, newVector, List.of()), distance(node.getVector(), newVector)));
+            all.sort(NodeWithDistance.BY_DISTANCE);
+            final List<Tuple> pruned = all.stream()
+                    .limit(maxNeighbors(layer))
+                    .map(nodeWithDistance -> nodeWithDistance.node.getPrimaryKey())
+                    .collect(Collectors.toList());
+            storageAdapter.writeNode(transaction, layer, node.withNeighbors(pruned));
+        });
+    }
+
+    /**
+     * Greedily walk from the given entry nodes towards the query vector in each layer from {@code layer} down to
+     * just above {@code targetLayer}, and return the closest nodes found as fetched from {@code targetLayer}.
+     */
+    @Nonnull
+    private CompletableFuture<List<NodeWithDistance>> descend(@Nonnull final ReadTransaction transaction,
+                                                              @Nonnull final List<NodeWithDistance> entryNodes,
+                                                              final int layer, final int targetLayer,
+                                                              @Nonnull final double[] queryVector) {
+        if (layer <= targetLayer) {
+            return CompletableFuture.completedFuture(entryNodes);
+        }
+        return searchLayer(transaction, layer, entryNodes, 1, queryVector)
+                .thenCompose(nearest -> fetchWithDistances(transaction, layer - 1,
+                        nearest.stream().map(nodeWithDistance -> nodeWithDistance.node.getPrimaryKey()).collect(Collectors.toList()),
+                        queryVector))
+                .thenCompose(nextEntryNodes -> descend(transaction, nextEntryNodes, layer - 1, targetLayer, queryVector));
+    }
+
+    /**
+     * Beam search of one layer: starting from the entry nodes, repeatedly expand the closest unexpanded candidate
+     * until none is closer than the furthest of the {@code ef} nearest nodes found so far.
+     * @return the nearest nodes found, ordered by increasing distance
+     */
+    @Nonnull
+    private CompletableFuture<List<NodeWithDistance>> searchLayer(@Nonnull final ReadTransaction transaction, final int layer,
+                                                                  @Nonnull final List<NodeWithDistance> entryNodes, final int ef,
+                                                                  @Nonnull final double[] queryVector) {
+        final Set<Tuple> visited = new HashSet<>();
+        final PriorityQueue<NodeWithDistance> candidates = new PriorityQueue<>(NodeWithDistance.BY_DISTANCE);
+        final PriorityQueue<NodeWithDistance> nearest = new PriorityQueue<>(NodeWithDistance.BY_DISTANCE.reversed());
+        for (NodeWithDistance entryNode : entryNodes) {
+            if (visited.add(entryNode.node.getPrimaryKey())) {
+                candidates.add(entryNode);
+                nearest.add(entryNode);
+                if (nearest.size() > ef) {
+                    nearest.poll();
+                }
+            }
+        }
+        return AsyncUtil.whileTrue(() -> {
+            final NodeWithDistance candidate = candidates.poll();
+            if (candidate == null || (nearest.size() >= ef && candidate.distance > Objects.requireNonNull(nearest.peek()).distance)) {
+                return AsyncUtil.READY_FALSE;
+            }
+            final List<Tuple> toVisit = candidate.node.getNeighbors().stream()
+                    .filter(visited::add)
+                    .collect(Collectors.toList());
+            return fetchWithDistances(transaction, layer, toVisit, queryVector).thenApply(neighbors -> {
+                for (NodeWithDistance neighbor : neighbors) {
+                    if (nearest.size() < ef || neighbor.distance < Objects.requireNonNull(nearest.peek()).distance) {
+                        candidates.add(neighbor);
+                        nearest.add(neighbor);
+                        if (nearest.size() > ef) {
+                            nearest.poll();
+                        }
+                    }
+                }
+                return true;
+            });
+        }, executor).thenApply(vignore -> {
+            final List<NodeWithDistance> result = new ArrayList<>(nearest);
+            result.sort(NodeWithDistance.BY_DISTANCE);
+            return result;
+        });
+    }
+
+    @Nonnull
+    private CompletableFuture<List<Node>> fetchNodes(@Nonnull final ReadTransaction transaction, final int layer,
+                                                     @Nonnull final List<Tuple> primaryKeys) {
+        final Map<Tuple, CompletableFuture<Node>> futures = new HashMap<>();
+        for (Tuple primaryKey : primaryKeys) {
+            futures.computeIfAbsent(primaryKey, key -> storageAdapter.fetchNode(transaction, layer, key));
+        }
+        return AsyncUtil.whenAll(futures.values()).thenApply(vignore -> futures.values().stream()
+                .map(CompletableFuture::join)
+                // Links to vectors that have since been deleted are skipped.
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+    }
+
+    @Nonnull
+    private CompletableFuture<List<NodeWithDistance>> fetchWithDistances(@Nonnull final ReadTransaction transaction, final int layer,
+                                                                         @Nonnull final List<Tuple> primaryKeys,
+                                                                         @Nonnull final double[] queryVector) {
+        return fetchNodes(transaction, layer, primaryKeys).thenApply(nodes -> nodes.stream()
+                .map(node -> new NodeWithDistance(node, distance(queryVector, node.getVector())))
+                .collect(Collectors.toList()));
+    }
+
+    private double distance(@Nonnull final double[] vector1, @Nonnull final double[] vector2) {
+        return config.getMetric().distance(vector1, vector2);
+    }
+
+    private int maxNeighbors(final int layer) {
+        return layer == 0 ? 2 * config.getM() : config.getM();
+    }
+
+    /**
+     * Choose the top layer for a new vector, so that each layer has about {@code 1/M} as many vectors as the one
+     * below it.
+     */
+    private int randomLayer() {
+        final double levelMultiplier = 1.0d / Math.log(config.getM());
+        final double random = ThreadLocalRandom.current().nextDouble();
+        return Math.min((int)Math.floor(-Math.log(1.0d - random) * levelMultiplier), MAX_LAYER);
+    }
+
+    /**
+     * A node together with its distance from a query vector.
+     */
+    private static final class NodeWithDistance {
+        private static final Comparator<NodeWithDistance> BY_DISTANCE = Comparator.comparingDouble(nodeWithDistance -> nodeWithDistance.distance);
+
+        @Nonnull
+        private final Node node;
+        private final double distance;
+
+        private NodeWithDistance(@Nonnull final Node node, final double distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Metric.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.async.hnsw;
+
+import com.apple.foundationdb.annotation.API;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The measure of distance between two vectors used to find nearest neighbors in a {@link HNSW}. Smaller distances
+ * mean more similar vectors for all metrics.
+ */
+@API(API.Status.EXPERIMENTAL)
+public enum Metric {
+    /**
+     * The Euclidean (L2) distance.
+     */
+    EUCLIDEAN_METRIC {
+        @Override
+        public double distance(@Nonnull final double[] vector1, @Nonnull final double[] vector2) {
+            validate(vector1, vector2);
+            double sum = 0.0d;
+            for (int i = 0; i < vector1.length; i++) {
+                final double difference = vector1[i] - vector2[i];
+                sum += difference * difference;
+            }
+            return Math.sqrt(sum);
+        }
+    },
+    /**
+     * One minus the cosine of the angle between the vectors, which ignores their lengths.
+     */
+    COSINE_METRIC {
+        @Override
+        public double distance(@Nonnull final double[] vector1, @Nonnull final double[] vector2) {
+            validate(vector1, vector2);
+            double dotProduct = 0.0d;
+            double norm1 = 0.0d;
+            double norm2 = 0.0d;
+            for (int i = 0; i < vector1.length; i++) {
+                dotProduct += vector1[i] * vector2[i];
+                norm1 += vector1[i] * vector1[i];
+                norm2 += vector2[i] * vector2[i];
+            }
+            if (norm1 == 0.0d || norm2 == 0.0d) {
+                return 1.0d;
+            }
+            return 1.0d - dotProduct / Math.sqrt(norm1 * norm2);
+        }
+    },
+    /**
+     * The negated dot product, for vectors that are already normalized or for which the length carries meaning.
+     */
+    DOT_PRODUCT_METRIC {
+        @Override
+        public double distance(@Nonnull final double[] vector1, @Nonnull final double[] vector2) {
+            validate(vector1, vector2);
+            double dotProduct = 0.0d;
+            for (int i = 0; i < vector1.length; i++) {
+                dotProduct += vector1[i] * vector2[i];
+            }
+            return -dotProduct;
+        }
+    };
+
+    /**
+     * Compute the distance between two vectors.
+     * @param vector1 the first vector
+     * @param vector2 the second vector, which must have the same number of dimensions as the first
+     * @return the distance between the vectors
+     */
+    public abstract double distance(@Nonnull double[] vector1, @Nonnull double[] vector2);
+
+    private static void validate(@Nonnull final double[] vector1, @Nonnull final double[] vector2) {
+        if (vector1.length != vector2.length) {
+            throw new IllegalArgumentException("vectors have different numbers of dimensions: " +
+                                               vector1.length + " and " + vector2.length);
+        }
+    }
+}
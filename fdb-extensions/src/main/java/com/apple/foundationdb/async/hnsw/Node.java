@@ -0,0 +1,65 @@
+/*
+ * Node.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.async.hnsw;
+
+import com.apple.foundationdb.tuple.Tuple;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * A node of one layer of a {@link HNSW}: an indexed vector together with the primary keys of its neighbors in that
+ * layer.
+ */
+final class Node {
+    @Nonnull
+    private final Tuple primaryKey;
+    @Nonnull
+    private final double[] vector;
+    @Nonnull
+    private final List<Tuple> neighbors;
+
+    Node(@Nonnull final Tuple primaryKey, @Nonnull final double[] vector, @Nonnull final List<Tuple> neighbors) {
+        this.primaryKey = primaryKey;
+        this.vector = vector;
+        this.neighbors = neighbors;
+    }
+
+    @Nonnull
+    public Tuple getPrimaryKey() {
+        return primaryKey;
+    }
+
+    @Nonnull
+    public double[] getVector() {
+        return vector;
+    }
+
+    @Nonnull
+    public List<Tuple> getNeighbors() {
+        return neighbors;
+    }
+
+    @Nonnull
+    public Node withNeighbors(@Nonnull final List<Tuple> newNeighbors) {
+        return new Node(primaryKey, vector, newNeighbors);
+    }
+}
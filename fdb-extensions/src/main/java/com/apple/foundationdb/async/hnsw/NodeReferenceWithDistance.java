@@ -0,0 +1,64 @@
+/*
+ * NodeReferenceWithDistance.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.async.hnsw;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.tuple.Tuple;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * A vector found by a nearest neighbor search of a {@link HNSW}, together with its distance from the query vector.
+ */
+@API(API.Status.EXPERIMENTAL)
+public class NodeReferenceWithDistance {
+    @Nonnull
+    private final Tuple primaryKey;
+    @Nonnull
+    private final double[] vector;
+    private final double distance;
+
+    public NodeReferenceWithDistance(@Nonnull final Tuple primaryKey, @Nonnull final double[] vector, final double distance) {
+        this.primaryKey = primaryKey;
+        this.vector = vector;
+        this.distance = distance;
+    }
+
+    @Nonnull
+    public Tuple getPrimaryKey() {
+        return primaryKey;
+    }
+
+    @Nonnull
+    public double[] getVector() {
+        return vector;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return primaryKey + "@" + distance + Arrays.toString(vector);
+    }
+}
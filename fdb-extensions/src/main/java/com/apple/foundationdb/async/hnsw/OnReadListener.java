@@ -0,0 +1,42 @@
+/*
+ * OnReadListener.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.async.hnsw;
+
+import com.apple.foundationdb.annotation.API;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Function interface for a call back whenever we read a node or an exact vector of a graph.
+ */
+@API(API.Status.EXPERIMENTAL)
+public interface OnReadListener {
+    OnReadListener NOOP = new OnReadListener() {
+    };
+
+    default void onNodeRead(int layer, @Nonnull byte[] key, @Nonnull byte[] value) {
+        // nothing
+    }
+
+    default void onExactVectorRead(@Nonnull byte[] key, @Nonnull byte[] value) {
+        // nothing
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * ProductQuantizedStorageAdapter.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.async.hnsw;
+
+import com.apple.foundationdb.KeyValue;
+import com.apple.foundationdb.ReadTransaction;
+import com.apple.foundationdb.Transaction;
+import com.apple.foundationdb.subspace.Subspace;
+import com.apple.foundationdb.tuple.Tuple;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Storage adapter that stores nodes like {@link CompactStorageAdapter} with their vectors encoded by a
+ * {@link ProductQuantizer}. The codebook of the quantizer is stored in the graph's subspace with one key per
+ * centroid, keeping each value small regardless of the number of dimensions, and is read once by each instance of the
+ * adapter.
+ */
+class ProductQuantizedStorageAdapter extends CompactStorageAdapter {
+    private static final long CODEBOOK_KEY = 3L;
+
+    @Nonnull
+    private final Subspace codebookSubspace;
+    @Nullable
+    private volatile ProductQuantizer productQuantizer;
+
+    ProductQuantizedStorageAdapter(@Nonnull final Subspace subspace, @Nonnull final OnReadListener onReadListener) {
+        super(subspace, null, onReadListener);
+        this.codebookSubspace = subspace.subspace(Tuple.from(CODEBOOK_KEY));
+    }
+
+    @Nonnull
+    @Override
+    protected VectorEncoder getEncoder() {
+        final ProductQuantizer loaded = productQuantizer;
+        if (loaded == null) {
+            throw new IllegalStateException("product quantizer has not been trained");
+        }
+        return loaded;
+    }
+
+    @Nonnull
+    @Override
+    protected CompletableFuture<VectorEncoder> fetchEncoder(@Nonnull final ReadTransaction transaction) {
+        final ProductQuantizer loaded = productQuantizer;
+        if (loaded != null) {
+            return CompletableFuture.completedFuture(loaded);
+        }
+        return transaction.getRange(codebookSubspace.range()).asList().thenApply(keyValues -> {
+            if (keyValues.isEmpty()) {
+                return null;
+            }
+            final ProductQuantizer decoded = decodeCodebook(keyValues);
+            productQuantizer = decoded;
+            return decoded;
+        });
+    }
+
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+
+    /**
+     * Persist the codebook of a newly trained quantizer.
+     * @param transaction the transaction to use
+     * @param quantizer the trained quantizer
+     */
+    void writeProductQuantizer(@Nonnull final Transaction transaction, @Nonnull final ProductQuantizer quantizer) {
+        transaction.clear(codebookSubspace.range());
+        for (int subvector = 0; subvector < quantizer.getNumSubvectors(); subvector++) {
+            final double[][] centroids = quantizer.getCentroids(subvector);
+            for (int centroid = 0; centroid < centroids.length; centroid++) {
+                transaction.set(codebookSubspace.pack(Tuple.from(subvector, centroid)),
+                        Tuple.from(quantizer.getNumDimensions(), VectorEncoder.encodeDoubles(centroids[centroid])).pack());
+            }
+        }
+    }
+
+    @Nonnull
+    private ProductQuantizer decodeCodebook(@Nonnull final List<KeyValue> keyValues) {
+        final List<List<double[]>> centroidsBySubvector = new ArrayList<>();
+        int numDimensions = 0;
+        for (KeyValue keyValue : keyValues) {
+            final int subvector = Math.toIntExact(codebookSubspace.unpack(keyValue.getKey()).getLong(0));
+            final Tuple tuple = Tuple.fromBytes(keyValue.getValue());
+            numDimensions = Math.toIntExact(tuple.getLong(0));
+            while (centroidsBySubvector.size() <= subvector) {
+                centroidsBySubvector.add(new ArrayList<>());
+            }
+            centroidsBySubvector.get(subvector).add(VectorEncoder.decodeDoubles(tuple.getBytes(1)));
+        }
+        final double[][][] centroids = new double[centroidsBySubvector.size()][][];
+        for (int subvector = 0; subvector < centroids.length; subvector++) {
+            centroids[subvector] = centroidsBySubvector.get(subvector).toArray(new double[0][]);
+        }
+        return new ProductQuantizer(numDimensions, centroids);
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * ProductQuantizer.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.async.hnsw;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Lossy encoding that splits a vector into subvectors and replaces each subvector by the index of the closest of
+ * up to 256 centroids, taking one byte per subvector. The centroids of each subvector form a codebook, which is
+ * learned from sample vectors with k-means clustering and must be stored alongside the encoded vectors.
+ */
+final class ProductQuantizer implements VectorEncoder {
+    static final int MAX_CENTROIDS = 256;
+
+    private final int numDimensions;
+    // centroids[subvector][centroid] is a vector with the dimensions of that subvector.
+    @Nonnull
+    private final double[][][] centroids;
+
+    ProductQuantizer(final int numDimensions, @Nonnull final double[][][] centroids) {
+        this.numDimensions = numDimensions;
+        this.centroids = centroids;
+    }
+
+    public int getNumDimensions() {
+        return numDimensions;
+    }
+
+    public int getNumSubvectors() {
+        return centroids.length;
+    }
+
+    @Nonnull
+    double[][] getCentroids(final int subvector) {
+        return centroids[subvector];
+    }
+
+    private int subvectorStart(final int subvector) {
+        return subvector * numDimensions / centroids.length;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] encode(@Nonnull final double[] vector) {
+        if (vector.length != numDimensions) {
+            throw new IllegalArgumentException("vector has " + vector.length + " dimensions but the codebook has " + numDimensions);
+        }
+        final byte[] codes = new byte[centroids.length];
+        for (int subvector = 0; subvector < centroids.length; subvector++) {
+            codes[subvector] = (byte)nearestCentroid(centroids[subvector], vector, subvectorStart(subvector));
+        }
+        return codes;
+    }
+
+    @Nonnull
+    @Override
+    public double[] decode(@Nonnull final byte[] bytes) {
+        final double[] vector = new double[numDimensions];
+        for (int subvector = 0; subvector < centroids.length; subvector++) {
+            final double[] centroid = centroids[subvector][Byte.toUnsignedInt(bytes[subvector])];
+            System.arraycopy(centroid, 0, vector, subvectorStart(subvector), centroid.length);
+        }
+        return vector;
+    }
+
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+
+    /**
+     * Learn the codebooks for a set of vectors using k-means clustering of each subvector.
+     * @param samples sample vectors, all with the same number of dimensions
+     * @param numSubvectors the number of subvectors to split vectors into
+     * @param iterations the number of k-means iterations
+     * @param random source of randomness for choosing the initial centroids
+     * @return a new quantizer
+     */
+    @Nonnull
+    static ProductQuantizer train(@Nonnull final List<double[]> samples, final int numSubvectors, final int iterations,
+                                  @Nonnull final Random random) {
+        if (samples.isEmpty()) {
+            throw new IllegalArgumentException("cannot train product quantizer without samples");
+        }
+        final int numDimensions = samples.get(0).length;
+        for (double[] sample : samples) {
+            if (sample.length != numDimensions) {
+                throw new IllegalArgumentException("sample vectors must all have the same number of dimensions");
+            }
+        }
+        if (numSubvectors < 1 || numSubvectors > numDimensions) {
+            throw new IllegalArgumentException("number of subvectors must be between 1 and the number of dimensions");
+        }
+        final int numCentroids = Math.min(MAX_CENTROIDS, samples.size());
+        final double[][][] centroids = new double[numSubvectors][][];
+        for (int subvector = 0; subvector < numSubvectors; subvector++) {
+            final int start = subvector * numDimensions / numSubvectors;
+            final int end = (subvector + 1) * numDimensions / numSubvectors;
+            centroids[subvector] = kMeans(samples, start, end, numCentroids, iterations, random);
+        }
+        return new ProductQuantizer(numDimensions, centroids);
+    }
+
+    @Nonnull
+    private static double[][] kMeans(@Nonnull final List<double[]> samples, final int start, final int end,
+                                     final int numCentroids, final int iterations, @Nonnull final Random random) {
+        final int length = end - start;
+        // Start from distinct randomly chosen samples.
+        final List<double[]> shuffled = new ArrayList<>(samples);
+        Collections.shuffle(shuffled, random);
+        final double[][] centroids = new double[numCentroids][];
+        for (int i = 0; i < numCentroids; i++) {
+            centroids[i] = new double[length];
+            System.arraycopy(shuffled.get(i), start, centroids[i], 0, length);
+        }
+        final double[][] sums = new double[numCentroids][length];
+        final int[] counts = new int[numCentroids];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            for (int i = 0; i < numCentroids; i++) {
+                Arrays.fill(sums[i], 0.0d);
+                counts[i] = 0;
+            }
+            for (double[] sample : samples) {
+                final int nearest = nearestCentroid(centroids, sample, start);
+                for (int d = 0; d < length; d++) {
+                    sums[nearest][d] += sample[start + d];
+                }
+                counts[nearest]++;
+            }
+            for (int i = 0; i < numCentroids; i++) {
+                // A centroid that lost all its samples keeps its previous position.
+                if (counts[i] > 0) {
+                    for (int d = 0; d < length; d++) {
+                        centroids[i][d] = sums[i][d] / counts[i];
+                    }
+                }
+            }
+        }
+        return centroids;
+    }
+
+    private static int nearestCentroid(@Nonnull final double[][] centroids, @Nonnull final double[] vector, final int start) {
+        int nearest = 0;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < centroids.length; i++) {
+            final double[] centroid = centroids[i];
+            double distance = 0.0d;
+            for (int d = 0; d < centroid.length; d++) {
+                final double diff = vector[start + d] - centroid[d];
+                distance += diff * diff;
+            }
+            if (distance < nearestDistance) {
+                nearest = i;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+}
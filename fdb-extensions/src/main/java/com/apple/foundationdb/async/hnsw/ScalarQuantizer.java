@@ -0,0 +1,81 @@
+/*
+ * ScalarQuantizer.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.async.hnsw;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+
+/**
+ * Lossy encoding that maps every component of a vector to one of 256 evenly spaced values between the smallest and
+ * the largest component of that vector. This needs no training, and takes one byte per component plus a fixed
+ * sixteen byte header, about an eighth of the size of the full vector.
+ */
+final class ScalarQuantizer implements VectorEncoder {
+    static final ScalarQuantizer INSTANCE = new ScalarQuantizer();
+
+    private static final int LEVELS = 255;
+
+    private ScalarQuantizer() {
+    }
+
+    @Nonnull
+    @Override
+    public byte[] encode(@Nonnull final double[] vector) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double component : vector) {
+            min = Math.min(min, component);
+            max = Math.max(max, component);
+        }
+        if (vector.length == 0) {
+            min = 0.0d;
+            max = 0.0d;
+        }
+        final double range = max - min;
+        final ByteBuffer buffer = ByteBuffer.allocate(2 * Double.BYTES + vector.length);
+        buffer.putDouble(min);
+        buffer.putDouble(max);
+        for (double component : vector) {
+            final long level = range == 0.0d ? 0L : Math.round((component - min) / range * LEVELS);
+            buffer.put((byte)level);
+        }
+        return buffer.array();
+    }
+
+    @Nonnull
+    @Override
+    public double[] decode(@Nonnull final byte[] bytes) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final double min = buffer.getDouble();
+        final double max = buffer.getDouble();
+        final double step = (max - min) / LEVELS;
+        final double[] vector = new double[buffer.remaining()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = min + Byte.toUnsignedInt(buffer.get()) * step;
+        }
+        return vector;
+    }
+
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+}
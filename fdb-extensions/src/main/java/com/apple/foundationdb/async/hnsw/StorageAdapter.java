@@ -0,0 +1,162 @@
+/*
+ * StorageAdapter.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.async.hnsw;
+
+import com.apple.foundationdb.ReadTransaction;
+import com.apple.foundationdb.Transaction;
+import com.apple.foundationdb.subspace.Subspace;
+import com.apple.foundationdb.tuple.Tuple;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Storage adapter used for serialization and deserialization of the nodes and the entry point of a {@link HNSW}.
+ */
+interface StorageAdapter {
+
+    /**
+     * Get the subspace used to store this graph.
+     *
+     * @return graph subspace
+     */
+    @Nonnull
+    Subspace getSubspace();
+
+    /**
+     * Fetch the node for a vector in one layer of the graph.
+     *
+     * @param transaction the transaction to use
+     * @param layer the layer counting starting at {@code 0} for the bottom layer that holds every vector
+     * @param primaryKey the primary key of the vector
+     *
+     * @return a future that when completed holds the node or {@code null} if the vector is not in that layer
+     */
+    @Nonnull
+    CompletableFuture<Node> fetchNode(@Nonnull ReadTransaction transaction, int layer, @Nonnull Tuple primaryKey);
+
+    /**
+     * Persist a node in one layer of the graph, replacing any previous version of it.
+     *
+     * @param transaction the transaction to use
+     * @param layer the layer of the node
+     * @param node the node to persist
+     */
+    void writeNode(@Nonnull Transaction transaction, int layer, @Nonnull Node node);
+
+    /**
+     * Remove a node from one layer of the graph.
+     *
+     * @param transaction the transaction to use
+     * @param layer the layer of the node
+     * @param primaryKey the primary key of the node's vector
+     */
+    void deleteNode(@Nonnull Transaction transaction, int layer, @Nonnull Tuple primaryKey);
+
+    /**
+     * Fetch any one node of a layer.
+     *
+     * @param transaction the transaction to use
+     * @param layer the layer to look in
+     *
+     * @return a future that when completed holds a node of the layer or {@code null} if the layer is empty
+     */
+    @Nonnull
+    CompletableFuture<Node> fetchAnyNode(@Nonnull ReadTransaction transaction, int layer);
+
+    /**
+     * Fetch the entry point of the graph, which is a node in its top layer.
+     *
+     * @param transaction the transaction to use
+     *
+     * @return a future that when completed holds the entry point or {@code null} if the graph is empty
+     */
+    @Nonnull
+    CompletableFuture<EntryPoint> fetchEntryPoint(@Nonnull ReadTransaction transaction);
+
+    /**
+     * Persist the entry point of the graph.
+     *
+     * @param transaction the transaction to use
+     * @param entryPoint the new entry point or {@code null} if the graph is now empty
+     */
+    void writeEntryPoint(@Nonnull Transaction transaction, @Nullable EntryPoint entryPoint);
+
+    /**
+     * Get whether the vectors of the nodes returned by {@link #fetchNode} are exact. If not, they are only good for
+     * approximate distances and {@link #fetchExactVector} returns the exact vectors.
+     *
+     * @return {@code true} if nodes hold exact vectors
+     */
+    boolean isExact();
+
+    /**
+     * Fetch the exact vector for a primary key.
+     *
+     * @param transaction the transaction to use
+     * @param primaryKey the primary key of the vector
+     *
+     * @return a future that when completed holds the vector or {@code null} if there is no vector for the key
+     */
+    @Nonnull
+    CompletableFuture<double[]> fetchExactVector(@Nonnull ReadTransaction transaction, @Nonnull Tuple primaryKey);
+
+    /**
+     * Persist the exact vector for a primary key, if the nodes of the graph do not already hold it.
+     *
+     * @param transaction the transaction to use
+     * @param primaryKey the primary key of the vector
+     * @param vector the vector
+     */
+    void writeExactVector(@Nonnull Transaction transaction, @Nonnull Tuple primaryKey, @Nonnull double[] vector);
+
+    /**
+     * Remove the exact vector for a primary key.
+     *
+     * @param transaction the transaction to use
+     * @param primaryKey the primary key of the vector
+     */
+    void deleteExactVector(@Nonnull Transaction transaction, @Nonnull Tuple primaryKey);
+
+    /**
+     * The node in the top layer of the graph where all searches start.
+     */
+    final class EntryPoint {
+        private final int layer;
+        @Nonnull
+        private final Tuple primaryKey;
+
+        EntryPoint(final int layer, @Nonnull final Tuple primaryKey) {
+            this.layer = layer;
+            this.primaryKey = primaryKey;
+        }
+
+        public int getLayer() {
+            return layer;
+        }
+
+        @Nonnull
+        public Tuple getPrimaryKey() {
+            return primaryKey;
+        }
+    }
+}
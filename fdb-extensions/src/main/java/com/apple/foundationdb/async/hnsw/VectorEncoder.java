@@ -0,0 +1,83 @@
+/*
+ * VectorEncoder.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.async.hnsw;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+
+/**
+ * Encoding of the vectors stored in the nodes of a graph. An encoding can be lossy, in which case the distances
+ * computed while traversing the graph are approximate, and the exact vectors are stored separately.
+ */
+interface VectorEncoder {
+    /**
+     * Encoding storing every component as an eight byte double.
+     */
+    VectorEncoder FULL = new VectorEncoder() {
+        @Nonnull
+        @Override
+        public byte[] encode(@Nonnull final double[] vector) {
+            return encodeDoubles(vector);
+        }
+
+        @Nonnull
+        @Override
+        public double[] decode(@Nonnull final byte[] bytes) {
+            return decodeDoubles(bytes);
+        }
+
+        @Override
+        public boolean isExact() {
+            return true;
+        }
+    };
+
+    @Nonnull
+    byte[] encode(@Nonnull double[] vector);
+
+    @Nonnull
+    double[] decode(@Nonnull byte[] bytes);
+
+    /**
+     * Get whether decoding an encoded vector gives back exactly the original vector.
+     * @return {@code true} if this encoding is lossless
+     */
+    boolean isExact();
+
+    @Nonnull
+    static byte[] encodeDoubles(@Nonnull final double[] vector) {
+        final ByteBuffer buffer = ByteBuffer.allocate(vector.length * Double.BYTES);
+        for (double component : vector) {
+            buffer.putDouble(component);
+        }
+        return buffer.array();
+    }
+
+    @Nonnull
+    static double[] decodeDoubles(@Nonnull final byte[] bytes) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final double[] vector = new double[bytes.length / Double.BYTES];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = buffer.getDouble();
+        }
+        return vector;
+    }
+}
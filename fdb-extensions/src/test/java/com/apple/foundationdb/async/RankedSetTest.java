@@ -23,6 +23,7 @@ package com.apple.foundationdb.async;
 import com.apple.foundationdb.Database;
 import com.apple.foundationdb.FDB;
 import com.apple.foundationdb.NetworkOptions;
+import com.apple.foundationdb.ReadTransaction;
 import com.apple.foundationdb.Transaction;
 import com.apple.foundationdb.TransactionContext;
 import com.apple.foundationdb.subspace.Subspace;
@@ -49,6 +50,7 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -286,6 +288,122 @@ public class RankedSetTest {
         });
     }
 
+    @Test
+    public void batchLookups() {
+        batchLookupOperations();
+    }
+
+    @Test
+    public void batchLookupsWithDuplicates() {
+        config = RankedSet.newConfigBuilder().setCountDuplicates(true).build();
+        batchLookupOperations();
+    }
+
+    private void batchLookupOperations() {
+        final RankedSet rs = newRankedSet();
+        for (int i = 0; i < 2000; i += 100) {
+            final int start = i;
+            db.run(tr -> {
+                for (int j = start; j < start + 100; j++) {
+                    rs.add(tr, Tuple.from(j * 2).pack()).join();
+                    if (j % 7 == 0) {
+                        rs.add(tr, Tuple.from(j * 2).pack()).join();
+                    }
+                }
+                return null;
+            });
+        }
+        db.read(tr -> {
+            assertBatchLookups(tr, rs, rs);
+            return null;
+        });
+    }
+
+    @Test
+    public void cachedUpperLevels() {
+        final RankedSet.UpperLevelCache cache = new RankedSet.UpperLevelCache(3, 1000, 10);
+        config = RankedSet.newConfigBuilder().setVersioned(true).build();
+        final RankedSet uncached = newRankedSet();
+        final RankedSet cached = new RankedSet(rsSubspace, TestExecutors.defaultThreadPool(), config, cache);
+        for (int i = 0; i < 2000; i += 100) {
+            final int start = i;
+            db.run(tr -> {
+                for (int j = start; j < start + 100; j++) {
+                    cached.add(tr, Tuple.from(j * 2).pack()).join();
+                }
+                return null;
+            });
+        }
+        db.run(tr -> {
+            cached.add(tr, Tuple.from(4001).pack()).join();
+            // Lookups in the transaction that changed the set cannot use the cache.
+            assertBatchLookups(tr, uncached, cached);
+            return null;
+        });
+        assertEquals(0, cache.size());
+        db.read(tr -> {
+            assertBatchLookups(tr, uncached, cached);
+            return null;
+        });
+        assertEquals(1, cache.size());
+        db.run(tr -> {
+            for (int i = 0; i < 100; i++) {
+                cached.add(tr, Tuple.from(i * 40 + 1).pack()).join();
+                cached.remove(tr, Tuple.from(i * 60).pack()).join();
+            }
+            return null;
+        });
+        // The change of version makes the cached levels stale.
+        db.read(tr -> {
+            assertBatchLookups(tr, uncached, cached);
+            return null;
+        });
+        db.run(tr -> {
+            cached.clear(tr).join();
+            cached.add(tr, Tuple.from(1).pack()).join();
+            return null;
+        });
+        db.read(tr -> {
+            assertEquals(0L, cached.rank(tr, Tuple.from(1).pack()).join());
+            assertArrayEquals(Tuple.from(1).pack(), cached.getNth(tr, 0).join());
+            assertNull(cached.getNth(tr, 1).join());
+            return null;
+        });
+        assertThrows(IllegalArgumentException.class, () -> new RankedSet(rsSubspace, TestExecutors.defaultThreadPool(), RankedSet.DEFAULT_CONFIG, cache));
+    }
+
+    // Check batch lookups on actual against single lookups on expected, for both present and absent keys.
+    private static void assertBatchLookups(ReadTransaction tr, RankedSet expected, RankedSet actual) {
+        final long size = expected.size(tr).join();
+        final List<byte[]> keys = new ArrayList<>();
+        final List<Long> ranks = new ArrayList<>();
+        for (int i = -2; i < 4100; i += 3) {
+            keys.add(Tuple.from(i).pack());
+        }
+        keys.add(Tuple.from(10).pack());
+        Collections.shuffle(keys);
+        for (long rank = -1; rank < size + 2; rank += 5) {
+            ranks.add(rank);
+        }
+        ranks.add(size - 1);
+        ranks.add(0L);
+        Collections.shuffle(ranks);
+        for (boolean nullIfMissing : new boolean[] {true, false}) {
+            final List<Long> batchRanks = actual.rank(tr, keys, nullIfMissing).join();
+            assertEquals(keys.size(), batchRanks.size());
+            for (int i = 0; i < keys.size(); i++) {
+                assertEquals(expected.rank(tr, keys.get(i), nullIfMissing).join(), batchRanks.get(i));
+                assertEquals(batchRanks.get(i), actual.rank(tr, keys.get(i), nullIfMissing).join());
+            }
+        }
+        final List<byte[]> batchKeys = actual.getNth(tr, ranks).join();
+        assertEquals(ranks.size(), batchKeys.size());
+        for (int i = 0; i < ranks.size(); i++) {
+            assertArrayEquals(expected.getNth(tr, ranks.get(i)).join(), batchKeys.get(i));
+            assertArrayEquals(batchKeys.get(i), actual.getNth(tr, ranks.get(i)).join());
+        }
+    }
+
     //
     // Helpers
     //
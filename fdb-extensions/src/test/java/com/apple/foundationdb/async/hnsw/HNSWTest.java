@@ -0,0 +1,251 @@
+/*
+ * HNSWTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.async.hnsw;
+
+import com.apple.foundationdb.Database;
+import com.apple.foundationdb.KeyValue;
+import com.apple.foundationdb.Range;
+import com.apple.foundationdb.test.TestDatabaseExtension;
+import com.apple.foundationdb.test.TestExecutors;
+import com.apple.foundationdb.test.TestSubspaceExtension;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.test.Tags;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Tests for inserting into, deleting from and searching {@link HNSW} graphs.
+ */
+@Tag(Tags.RequiresFDB)
+public class HNSWTest {
+    private static final int NUM_DIMENSIONS = 16;
+    private static final int NUM_SAMPLES = 1_000;
+    private static final int K = 10;
+
+    @RegisterExtension
+    static final TestDatabaseExtension dbExtension = new TestDatabaseExtension();
+    @RegisterExtension
+    TestSubspaceExtension hnswSubspace = new TestSubspaceExtension(dbExtension);
+
+    private Database db;
+
+    @BeforeEach
+    public void setUpDb() {
+        db = dbExtension.getDatabase();
+    }
+
+    @Nonnull
+    private static double[][] randomVectors(final long seed, final int numVectors) {
+        final Random random = new Random(seed);
+        final double[][] vectors = new double[numVectors][NUM_DIMENSIONS];
+        for (double[] vector : vectors) {
+            for (int i = 0; i < NUM_DIMENSIONS; i++) {
+                vector[i] = random.nextDouble();
+            }
+        }
+        return vectors;
+    }
+
+    private void insertAll(@Nonnull final HNSW hnsw, @Nonnull final double[][] vectors) {
+        final int batchSize = 50;
+        for (int i = 0; i < vectors.length; i += batchSize) {
+            final int batchStart = i; // lambdas
+            db.run(tr -> {
+                for (int j = batchStart; j < Math.min(batchStart + batchSize, vectors.length); j++) {
+                    hnsw.insertOrUpdate(tr, Tuple.from(j), vectors[j]).join();
+                }
+                return null;
+            });
+        }
+    }
+
+    @Nonnull
+    private static Set<Tuple> bruteForceNearest(@Nonnull final Metric metric, @Nonnull final double[][] vectors,
+                                                @Nonnull final double[] query, @Nonnull final Set<Integer> deleted) {
+        return IntStream.range(0, vectors.length)
+                .filter(i -> !deleted.contains(i))
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> metric.distance(vectors[i], query)))
+                .limit(K)
+                .map(Tuple::from)
+                .collect(Collectors.toSet());
+    }
+
+    private double recall(@Nonnull final HNSW hnsw, @Nonnull final double[][] vectors, @Nonnull final Set<Integer> deleted) {
+        final double[][] queries = randomVectors(0xfdbL, 20);
+        int found = 0;
+        for (double[] query : queries) {
+            final List<NodeReferenceWithDistance> results =
+                    db.run(tr -> hnsw.kNearestNeighborsSearch(tr, K, HNSW.DEFAULT_EF_SEARCH, query).join());
+            Assertions.assertEquals(K, results.size());
+            for (int i = 1; i < results.size(); i++) {
+                Assertions.assertTrue(results.get(i - 1).getDistance() <= results.get(i).getDistance());
+            }
+            final Set<Tuple> expected = bruteForceNearest(hnsw.getConfig().getMetric(), vectors, query, deleted);
+            for (NodeReferenceWithDistance result : results) {
+                Assertions.assertFalse(deleted.contains(Math.toIntExact(result.getPrimaryKey().getLong(0))));
+                if (expected.contains(result.getPrimaryKey())) {
+                    found++;
+                }
+            }
+        }
+        return (double)found / (queries.length * K);
+    }
+
+    @ParameterizedTest
+    @EnumSource(Metric.class)
+    public void testSearchRecall(@Nonnull final Metric metric) {
+        final HNSW hnsw = new HNSW(hnswSubspace.getSubspace(), TestExecutors.defaultThreadPool(),
+                HNSW.newConfigBuilder().setMetric(metric).build());
+        final double[][] vectors = randomVectors(metric.ordinal(), NUM_SAMPLES);
+        insertAll(hnsw, vectors);
+        final double recall = recall(hnsw, vectors, Set.of());
+        Assertions.assertTrue(recall >= 0.8, "recall too low: " + recall);
+    }
+
+    @ParameterizedTest
+    @EnumSource(HNSW.Storage.class)
+    public void testStorageRecall(@Nonnull final HNSW.Storage storage) {
+        final AtomicInteger exactVectorReads = new AtomicInteger();
+        final OnReadListener onReadListener = new OnReadListener() {
+            @Override
+            public void onExactVectorRead(@Nonnull final byte[] key, @Nonnull final byte[] value) {
+                exactVectorReads.incrementAndGet();
+            }
+        };
+        final HNSW hnsw = new HNSW(hnswSubspace.getSubspace(), TestExecutors.defaultThreadPool(),
+                HNSW.newConfigBuilder().setStorage(storage).setPqSubvectors(8).build(), onReadListener);
+        final double[][] vectors = randomVectors(46L, NUM_SAMPLES);
+        if (storage == HNSW.Storage.PRODUCT_QUANTIZED) {
+            db.run(tr -> hnsw.trainProductQuantizer(tr, Arrays.asList(vectors)).join());
+        }
+        insertAll(hnsw, vectors);
+
+        final double recall = recall(hnsw, vectors, Set.of());
+        Assertions.assertTrue(recall >= 0.8, "recall too low: " + recall);
+        if (storage == HNSW.Storage.FULL) {
+            Assertions.assertEquals(0, exactVectorReads.get());
+        } else {
+            // Only the final candidates of each search are re-ranked using their exact vectors.
+            Assertions.assertTrue(exactVectorReads.get() > 0);
+            Assertions.assertTrue(exactVectorReads.get() <= 20 * HNSW.DEFAULT_EF_SEARCH);
+        }
+    }
+
+    @Test
+    public void testProductQuantizerRequiresTraining() {
+        final HNSW hnsw = new HNSW(hnswSubspace.getSubspace(), TestExecutors.defaultThreadPool(),
+                HNSW.newConfigBuilder().setStorage(HNSW.Storage.PRODUCT_QUANTIZED).build());
+        final double[] vector = randomVectors(47L, 1)[0];
+        Throwable e = Assertions.assertThrows(RuntimeException.class,
+                () -> db.run(tr -> hnsw.insertOrUpdate(tr, Tuple.from(0), vector).join()));
+        while (e instanceof CompletionException) {
+            e = e.getCause();
+        }
+        Assertions.assertInstanceOf(IllegalStateException.class, e);
+    }
+
+    @Test
+    public void testRandomDeletes() {
+        final HNSW hnsw = new HNSW(hnswSubspace.getSubspace(), TestExecutors.defaultThreadPool());
+        final double[][] vectors = randomVectors(42L, NUM_SAMPLES);
+        insertAll(hnsw, vectors);
+
+        final Random random = new Random(43L);
+        final Set<Integer> deleted = new HashSet<>();
+        while (deleted.size() < NUM_SAMPLES / 4) {
+            deleted.add(random.nextInt(NUM_SAMPLES));
+        }
+        db.run(tr -> {
+            for (int i : deleted) {
+                hnsw.delete(tr, Tuple.from(i)).join();
+            }
+            return null;
+        });
+
+        final double recall = recall(hnsw, vectors, deleted);
+        Assertions.assertTrue(recall >= 0.85, "recall too low: " + recall);
+    }
+
+    @Test
+    public void testUpdate() {
+        final HNSW hnsw = new HNSW(hnswSubspace.getSubspace(), TestExecutors.defaultThreadPool());
+        final double[][] vectors = randomVectors(45L, 100);
+        insertAll(hnsw, vectors);
+
+        final double[] updated = new double[NUM_DIMENSIONS];
+        Arrays.fill(updated, 10.0d);
+        db.run(tr -> hnsw.insertOrUpdate(tr, Tuple.from(0), updated).join());
+
+        final List<NodeReferenceWithDistance> results =
+                db.run(tr -> hnsw.kNearestNeighborsSearch(tr, 1, HNSW.DEFAULT_EF_SEARCH, updated).join());
+        Assertions.assertEquals(1, results.size());
+        Assertions.assertEquals(Tuple.from(0), results.get(0).getPrimaryKey());
+        Assertions.assertEquals(0.0d, results.get(0).getDistance());
+
+        final List<NodeReferenceWithDistance> nearOld =
+                db.run(tr -> hnsw.kNearestNeighborsSearch(tr, 100, HNSW.DEFAULT_EF_SEARCH, vectors[0]).join());
+        Assertions.assertEquals(100, nearOld.size());
+        Assertions.assertEquals(Tuple.from(0), nearOld.get(nearOld.size() - 1).getPrimaryKey());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = HNSW.Storage.class, names = {"FULL", "SCALAR_QUANTIZED"})
+    public void testAllDeleted(@Nonnull final HNSW.Storage storage) {
+        final HNSW hnsw = new HNSW(hnswSubspace.getSubspace(), TestExecutors.defaultThreadPool(),
+                HNSW.newConfigBuilder().setM(4).setEfConstruction(20).setStorage(storage).build());
+        final double[][] vectors = randomVectors(44L, 200);
+        insertAll(hnsw, vectors);
+
+        db.run(tr -> {
+            for (int i = 0; i < vectors.length; i++) {
+                hnsw.delete(tr, Tuple.from(i)).join();
+            }
+            return null;
+        });
+
+        final List<NodeReferenceWithDistance> results =
+                db.run(tr -> hnsw.kNearestNeighborsSearch(tr, K, HNSW.DEFAULT_EF_SEARCH, vectors[0]).join());
+        Assertions.assertTrue(results.isEmpty());
+
+        // Check that no nodes were left behind
+        final List<KeyValue> keyValues =
+                db.run(tr -> tr.getRange(Range.startsWith(hnsw.getStorageAdapter().getSubspace().getKey())).asList().join());
+        Assertions.assertTrue(keyValues.isEmpty());
+    }
+}
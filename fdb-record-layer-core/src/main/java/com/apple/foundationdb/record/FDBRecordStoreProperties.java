@@ -63,6 +63,36 @@ public final class FDBRecordStoreProperties {
     public static final RecordLayerPropertyKey<Boolean> LOAD_RECORDS_VIA_GETS = RecordLayerPropertyKey.booleanPropertyKey(
             "com.apple.foundationdb.record.recordstore.load_records_via_gets", false);
 
+    /**
+     * The maximum number of build side records that a
+     * {@linkplain com.apple.foundationdb.record.query.plan.plans.RecordQueryHashJoinPlan hash join} keeps in memory.
+     * If the build side of the join has more records than this, they are spilled to a temporary file and the join is
+     * executed in multiple passes over the probe side, each joining with one partition of the build side.
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final RecordLayerPropertyKey<Integer> HASH_JOIN_MAX_BUILD_RECORDS_IN_MEMORY = RecordLayerPropertyKey.integerPropertyKey(
+            "com.apple.foundationdb.record.recordstore.hash_join_max_build_records_in_memory", 100_000);
+
+    /**
+     * The maximum number of groups that a
+     * {@linkplain com.apple.foundationdb.record.query.plan.plans.RecordQueryHashAggregationPlan hash aggregation} keeps
+     * in memory. If the input has more groups than this, the groups are split by the hash of their grouping key into
+     * ranges that are aggregated in separate passes.
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final RecordLayerPropertyKey<Integer> HASH_AGGREGATION_MAX_GROUPS_IN_MEMORY = RecordLayerPropertyKey.integerPropertyKey(
+            "com.apple.foundationdb.record.recordstore.hash_aggregation_max_groups_in_memory", 10_000);
+
+    /**
+     * The maximum number of partial groups that a
+     * {@linkplain com.apple.foundationdb.record.query.plan.plans.RecordQueryHashAggregationPlan hash aggregation} puts
+     * into a continuation when it stops while reading its input. If more groups than this are in memory, the range of
+     * groups being aggregated is narrowed until they fit, and the other groups are aggregated again by a later pass.
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final RecordLayerPropertyKey<Integer> HASH_AGGREGATION_MAX_GROUPS_IN_CONTINUATION = RecordLayerPropertyKey.integerPropertyKey(
+            "com.apple.foundationdb.record.recordstore.hash_aggregation_max_groups_in_continuation", 100);
+
     private FDBRecordStoreProperties() {
         throw new RecordCoreException("should not instantiate class of static prop");
     }
@@ -41,11 +41,13 @@ public class FunctionNames {
     /* Aggregate index functions */
     public static final String MIN_EVER = "min_ever";
     public static final String MAX_EVER = "max_ever";
+    public static final String APPROXIMATE_COUNT_DISTINCT = "approximate_count_distinct";
 
     /* Record functions */
     public static final String RANK = "rank";
     public static final String TIME_WINDOW_RANK = "time_window_rank";
     public static final String TIME_WINDOW_RANK_AND_ENTRY = "time_window_rank_and_entry";
+    public static final String DISTANCE_RANK = "distance_rank";
     public static final String VERSION = "version";
 
     /* Score for rank functions */
@@ -58,6 +58,8 @@ public class PipelineOperation {
     public static final PipelineOperation DELETE = new PipelineOperation("DELETE");
     @Nonnull
     public static final PipelineOperation INSERT = new PipelineOperation("INSERT");
+    @Nonnull
+    public static final PipelineOperation HASH_JOIN = new PipelineOperation("HASH_JOIN");
 
     private final String name;
 
@@ -36,6 +36,7 @@ import com.apple.foundationdb.record.cursors.MapResultCursor;
 import com.apple.foundationdb.record.cursors.OrElseCursor;
 import com.apple.foundationdb.record.cursors.RowLimitedCursor;
 import com.apple.foundationdb.record.cursors.SkipCursor;
+import com.apple.foundationdb.record.cursors.batch.BatchCursor;
 import com.apple.foundationdb.record.logging.CompletionExceptionLogHelper;
 import com.apple.foundationdb.record.provider.common.StoreTimer;
 import com.apple.foundationdb.tuple.ByteArrayUtil2;
@@ -260,6 +261,20 @@ public interface RecordCursor<T> extends AutoCloseable {
         return new RecordCursorIterator<>(this);
     }
 
+    /**
+     * Return a view of this cursor that returns its elements a batch at a time. Each batch contains the results
+     * that are available without waiting, up to the given size, so consumers that process many small elements
+     * complete one future per batch rather than one per element.
+     *
+     * @param maxBatchSize the maximum number of elements in each batch
+     * @return a view of this cursor as a {@link BatchCursor}
+     */
+    @Nonnull
+    @API(API.Status.EXPERIMENTAL)
+    default BatchCursor<T> asBatchCursor(int maxBatchSize) {
+        return BatchCursor.fromRecordCursor(this, maxBatchSize);
+    }
+
     @Override
     void close();
 
@@ -0,0 +1,548 @@
+/*
+ * HashJoinCursor.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.ByteArrayContinuation;
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorContinuation;
+import com.apple.foundationdb.record.RecordCursorProto;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordCursorStartContinuation;
+import com.apple.foundationdb.record.RecordCursorVisitor;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.record.provider.common.StoreTimer;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
+import com.apple.foundationdb.tuple.ByteArrayUtil2;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A cursor that implements an equi-join by building a hash table over the elements of a <em>build</em> cursor and
+ * then probing that table with each element of a <em>probe</em> cursor.
+ *
+ * <p>
+ * The build side is always read in its entirety before the first result is returned. Since the hash table cannot be
+ * part of a continuation, it is rebuilt from the start of the build side whenever the cursor is resumed; the
+ * continuation only records the position within the probe side. The probe side is executed using a
+ * {@link RecordCursor#flatMapPipelined flat map} whose inner cursors are the (already joined) matches of each probe
+ * element. If all build elements fit into memory, the output is therefore in probe order.
+ * </p>
+ *
+ * <p>
+ * If the build side cannot be read completely (because of a scan, byte or time limit), it is unlikely to fit into a
+ * later transaction either, so the cursor stops and continues as a nested loop join: the inner cursor of each probe
+ * element is then a scan of the build side filtered by the probe key. Unlike the hash table, that scan can be
+ * resumed from its own continuation, so the join makes progress however large the build side is. The nested loop
+ * join produces the matches of a probe element in the same order as the hash table, which allows it to take over in
+ * the middle of the matches of a probe element.
+ * </p>
+ *
+ * <p>
+ * If the build side has more than {@code maxBuildRecordsInMemory} elements, the build elements are spilled to a
+ * temporary {@link SpillFile} and the join is performed in several passes.
+ * Each pass loads the build elements of one hash partition into memory and then scans the complete probe side,
+ * joining only those probe elements whose key falls into that partition. The number of partitions is chosen when the
+ * cursor first spills and is then fixed by the continuation, so that a resumed cursor partitions the build side in
+ * the same way. Because of this, keys must have a {@link Object#hashCode() hash code} that is stable across JVMs.
+ * Note that the output of a partitioned join is not in probe order.
+ * </p>
+ *
+ * <p>
+ * Keys that are {@code null} never match anything, mirroring the semantics of SQL equality.
+ * </p>
+ *
+ * @param <B> the type of elements of the build side
+ * @param <P> the type of elements of the probe side
+ * @param <K> the type of the join key
+ * @param <R> the type of elements of the cursor
+ */
+@API(API.Status.EXPERIMENTAL)
+public class HashJoinCursor<B, P, K, R> implements RecordCursor<R> {
+    @Nonnull
+    private final Function<byte[], RecordCursor<B>> buildCursorFunction;
+    @Nonnull
+    private final Function<byte[], RecordCursor<P>> probeCursorFunction;
+    @Nonnull
+    private final Function<B, K> buildKeyFunction;
+    @Nonnull
+    private final Function<P, K> probeKeyFunction;
+    @Nonnull
+    private final BiFunction<P, B, R> joinFunction;
+    @Nonnull
+    private final Function<B, byte[]> packBuild;
+    @Nonnull
+    private final Function<byte[], B> unpackBuild;
+    private final int maxBuildRecordsInMemory;
+    private final int pipelineSize;
+    @Nonnull
+    private final Executor executor;
+    @Nullable
+    private final StoreTimer timer;
+
+    private int partitionCount;
+    private int partition;
+    @Nullable
+    private byte[] probeContinuation;
+    private boolean nestedLoop;
+    private int nestedLoopSkip;
+    private boolean nestedLoopInnerCreated;
+
+    @Nullable
+    private RecordCursor<B> buildCursor;
+    @Nullable
+    private Map<K, List<B>> hashTable;
+    @Nullable
+    private SpillFile spillFile;
+    @Nullable
+    private RecordCursor<R> probeCursor;
+    @Nullable
+    private RecordCursorResult<R> lastResult;
+    private boolean closed;
+
+    /**
+     * Create a new hash join cursor.
+     * @param buildCursorFunction a function to create the build side cursor given a continuation
+     * @param probeCursorFunction a function to create the probe side cursor given a continuation
+     * @param buildKeyFunction a function extracting the join key from a build element, returning {@code null} for elements that never match
+     * @param probeKeyFunction a function extracting the join key from a probe element, returning {@code null} for elements that never match
+     * @param joinFunction a function combining a probe element and a matching build element, returning {@code null} if the pair is to be discarded
+     * @param packBuild a function serializing a build element when it needs to be spilled
+     * @param unpackBuild a function deserializing a spilled build element
+     * @param maxBuildRecordsInMemory the maximum number of build elements held in memory before spilling to disk
+     * @param pipelineSize the pipeline size used when flat-mapping over the probe side
+     * @param executor executor used for the probe side and for file I/O
+     * @param timer a timer to record hash join statistics or {@code null}
+     * @param continuation the continuation of a previous invocation or {@code null} to start from the beginning
+     */
+    @SuppressWarnings("squid:S00107") // too many parameters
+    public HashJoinCursor(@Nonnull Function<byte[], RecordCursor<B>> buildCursorFunction,
+                          @Nonnull Function<byte[], RecordCursor<P>> probeCursorFunction,
+                          @Nonnull Function<B, K> buildKeyFunction,
+                          @Nonnull Function<P, K> probeKeyFunction,
+                          @Nonnull BiFunction<P, B, R> joinFunction,
+                          @Nonnull Function<B, byte[]> packBuild,
+                          @Nonnull Function<byte[], B> unpackBuild,
+                          int maxBuildRecordsInMemory,
+                          int pipelineSize,
+                          @Nonnull Executor executor,
+                          @Nullable StoreTimer timer,
+                          @Nullable byte[] continuation) {
+        if (maxBuildRecordsInMemory <= 0) {
+            throw new RecordCoreException("hash join must be allowed to hold at least one record in memory");
+        }
+        this.buildCursorFunction = buildCursorFunction;
+        this.probeCursorFunction = probeCursorFunction;
+        this.buildKeyFunction = buildKeyFunction;
+        this.probeKeyFunction = probeKeyFunction;
+        this.joinFunction = joinFunction;
+        this.packBuild = packBuild;
+        this.unpackBuild = unpackBuild;
+        this.maxBuildRecordsInMemory = maxBuildRecordsInMemory;
+        this.pipelineSize = pipelineSize;
+        this.executor = executor;
+        this.timer = timer;
+        if (continuation != null) {
+            try {
+                final RecordCursorProto.HashJoinContinuation parsed = RecordCursorProto.HashJoinContinuation.parseFrom(continuation);
+                this.partitionCount = parsed.getPartitionCount();
+                this.partition = parsed.getPartition();
+                this.probeContinuation = parsed.hasProbeContinuation() ? parsed.getProbeContinuation().toByteArray() : null;
+                this.nestedLoop = parsed.getNestedLoop();
+                this.nestedLoopSkip = parsed.getNestedLoopSkip();
+            } catch (InvalidProtocolBufferException ex) {
+                throw new RecordCoreException("invalid continuation", ex)
+                        .addLogInfo(LogMessageKeys.RAW_BYTES, ByteArrayUtil2.loggable(continuation));
+            }
+            if (partitionCount < 0 || (partitionCount > 0 && (partition < 0 || partition >= partitionCount)) || nestedLoopSkip < 0) {
+                throw new RecordCoreException("invalid hash join continuation")
+                        .addLogInfo(LogMessageKeys.RAW_BYTES, ByteArrayUtil2.loggable(continuation));
+            }
+        }
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<RecordCursorResult<R>> onNext() {
+        if (lastResult != null && !lastResult.hasNext()) {
+            return CompletableFuture.completedFuture(lastResult);
+        }
+        if (!nestedLoop && hashTable == null) {
+            return loadBuildSide().thenCompose(buildResult -> {
+                if (!buildResult.getNoNextReason().isSourceExhausted()) {
+                    // The hash table is incomplete and cannot be saved, so continue from the same probe position
+                    // without one.
+                    switchToNestedLoop();
+                    lastResult = RecordCursorResult.withoutNextValue(
+                            new Continuation(partitionCount, partition, probeContinuation == null
+                                                                        ? RecordCursorStartContinuation.START
+                                                                        : ByteArrayContinuation.fromNullable(probeContinuation),
+                                    true, nestedLoopSkip),
+                            buildResult.getNoNextReason());
+                    return CompletableFuture.completedFuture(lastResult);
+                }
+                return onNext();
+            });
+        }
+        if (probeCursor == null) {
+            if (nestedLoop) {
+                probeCursor = RecordCursor.flatMapPipelined(probeCursorFunction, this::nestedLoopMatches,
+                        probeContinuation, pipelineSize);
+            } else {
+                probeCursor = RecordCursor.flatMapPipelined(probeCursorFunction,
+                        (probe, innerContinuation) -> RecordCursor.fromList(executor, joinMatches(probe), innerContinuation),
+                        probeContinuation, pipelineSize);
+            }
+        }
+        return probeCursor.onNext().thenCompose(probeResult -> {
+            if (probeResult.hasNext()) {
+                lastResult = RecordCursorResult.withNextValue(probeResult.get(),
+                        new Continuation(partitionCount, partition, probeResult.getContinuation(), nestedLoop, nestedLoopSkip));
+                return CompletableFuture.completedFuture(lastResult);
+            }
+            if (!probeResult.getNoNextReason().isSourceExhausted()) {
+                lastResult = RecordCursorResult.withoutNextValue(
+                        new Continuation(partitionCount, partition, probeResult.getContinuation(), nestedLoop, nestedLoopSkip),
+                        probeResult.getNoNextReason());
+                return CompletableFuture.completedFuture(lastResult);
+            }
+            if (partition + 1 >= partitionCount) {
+                lastResult = RecordCursorResult.exhausted();
+                return CompletableFuture.completedFuture(lastResult);
+            }
+            // Done with this partition: start the next pass over the probe side.
+            probeCursor.close();
+            probeCursor = null;
+            probeContinuation = null;
+            partition++;
+            if (nestedLoop) {
+                nestedLoopSkip = 0;
+                return onNext();
+            }
+            return CompletableFuture.supplyAsync(() -> readPartition(partition), executor).thenCompose(table -> {
+                hashTable = table;
+                return onNext();
+            });
+        });
+    }
+
+    @Nonnull
+    private List<R> joinMatches(@Nonnull P probe) {
+        final K key = probeKeyFunction.apply(probe);
+        if (key == null || partitionOf(key) != partition) {
+            return Collections.emptyList();
+        }
+        final List<B> matches = hashTable.get(key);
+        if (matches == null) {
+            return Collections.emptyList();
+        }
+        final List<R> results = new ArrayList<>(matches.size());
+        for (B build : matches) {
+            final R result = joinFunction.apply(probe, build);
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Scan the build side for the matches of a single probe element. The first inner cursor created after switching to
+     * a nested loop join skips the matches the hash join already returned for that probe element.
+     */
+    @Nonnull
+    private RecordCursor<R> nestedLoopMatches(@Nonnull P probe, @Nullable byte[] innerContinuation) {
+        final boolean first = !nestedLoopInnerCreated;
+        nestedLoopInnerCreated = true;
+        final K key = probeKeyFunction.apply(probe);
+        if (key == null || partitionOf(key) != partition) {
+            if (first) {
+                nestedLoopSkip = 0;
+            }
+            return RecordCursor.empty(executor);
+        }
+        RecordCursor<R> matches = buildCursorFunction.apply(innerContinuation)
+                .filter(build -> key.equals(buildKeyFunction.apply(build)))
+                .map(build -> joinFunction.apply(probe, build))
+                .filter(Objects::nonNull);
+        if (first && nestedLoopSkip > 0) {
+            matches = matches.filter(result -> {
+                if (nestedLoopSkip > 0) {
+                    nestedLoopSkip--;
+                    return false;
+                }
+                return true;
+            });
+        } else if (first) {
+            nestedLoopSkip = 0;
+        }
+        return matches;
+    }
+
+    private void switchToNestedLoop() {
+        nestedLoop = true;
+        nestedLoopSkip = 0;
+        if (partitionCount == 0) {
+            partitionCount = 1;
+        }
+        if (probeContinuation != null) {
+            final RecordCursorProto.FlatMapContinuation parsed;
+            try {
+                parsed = RecordCursorProto.FlatMapContinuation.parseFrom(probeContinuation);
+            } catch (InvalidProtocolBufferException ex) {
+                throw new RecordCoreException("invalid continuation", ex)
+                        .addLogInfo(LogMessageKeys.RAW_BYTES, ByteArrayUtil2.loggable(probeContinuation));
+            }
+            if (parsed.hasInnerContinuation()) {
+                // Stopped within the matches of a probe element: the inner continuation is the position in the list
+                // of its matches, that is, the number of matches returned. Restart that probe element and skip them.
+                nestedLoopSkip = ByteBuffer.wrap(parsed.getInnerContinuation().toByteArray()).getInt();
+                probeContinuation = parsed.hasOuterContinuation()
+                                    ? parsed.toBuilder().clearInnerContinuation().build().toByteArray()
+                                    : null;
+            }
+        }
+        if (timer != null) {
+            timer.increment(FDBStoreTimer.Counts.QUERY_HASH_JOIN_NESTED_LOOP_FALLBACKS);
+        }
+    }
+
+    private int partitionOf(@Nonnull K key) {
+        if (partitionCount <= 1) {
+            return 0;
+        }
+        // Spread the bits of the hash code so that keys with similar hash codes land in different partitions.
+        final int hash = key.hashCode() * 0x9E3779B1;
+        return Math.floorMod(hash ^ (hash >>> 16), partitionCount);
+    }
+
+    @Nonnull
+    private CompletableFuture<RecordCursorResult<B>> loadBuildSide() {
+        final Map<K, List<B>> table = new HashMap<>();
+        final boolean partitionCountKnown = partitionCount > 0;
+        final int[] inMemory = {0};
+        buildCursor = buildCursorFunction.apply(null);
+        return buildCursor.forEachResult(buildResult -> {
+            final B build = buildResult.get();
+            final K key = buildKeyFunction.apply(build);
+            if (key == null) {
+                return;
+            }
+            if (partitionCountKnown) {
+                final int buildPartition = partitionOf(key);
+                if (buildPartition == partition) {
+                    addToTable(table, key, build);
+                    inMemory[0]++;
+                } else if (buildPartition > partition) {
+                    spill(build);
+                }
+            } else if (spillFile != null) {
+                spill(build);
+            } else {
+                addToTable(table, key, build);
+                inMemory[0]++;
+                if (inMemory[0] > maxBuildRecordsInMemory) {
+                    // Over budget: move everything that has been loaded so far to disk and continue there.
+                    for (List<B> builds : table.values()) {
+                        for (B spilled : builds) {
+                            spill(spilled);
+                        }
+                    }
+                    table.clear();
+                    inMemory[0] = 0;
+                }
+            }
+        }).thenApplyAsync(buildResult -> {
+            buildCursor.close();
+            buildCursor = null;
+            if (!buildResult.getNoNextReason().isSourceExhausted()) {
+                closeSpillFile();
+                return buildResult;
+            }
+            if (!partitionCountKnown) {
+                if (spillFile == null) {
+                    partitionCount = 1;
+                } else {
+                    final long spilled = spillFile.getCount();
+                    partitionCount = (int)Math.max(2L, (spilled + maxBuildRecordsInMemory - 1) / maxBuildRecordsInMemory);
+                    partition = 0;
+                    if (timer != null) {
+                        timer.increment(FDBStoreTimer.Counts.QUERY_HASH_JOIN_PARTITIONS, partitionCount);
+                    }
+                    hashTable = readPartition(partition);
+                    return buildResult;
+                }
+            }
+            if (timer != null) {
+                timer.increment(FDBStoreTimer.Counts.QUERY_HASH_JOIN_BUILD_RECORDS, inMemory[0]);
+            }
+            hashTable = table;
+            return buildResult;
+        }, executor);
+    }
+
+    private void addToTable(@Nonnull Map<K, List<B>> table, @Nonnull K key, @Nonnull B build) {
+        table.computeIfAbsent(key, k -> new ArrayList<>()).add(build);
+    }
+
+    private void spill(@Nonnull B build) {
+        if (spillFile == null) {
+            spillFile = new SpillFile("hash join");
+        }
+        spillFile.write(packBuild.apply(build));
+        if (timer != null) {
+            timer.increment(FDBStoreTimer.Counts.QUERY_HASH_JOIN_SPILLED_RECORDS);
+        }
+    }
+
+    @Nonnull
+    private Map<K, List<B>> readPartition(int partitionToRead) {
+        final Map<K, List<B>> table = new HashMap<>();
+        if (spillFile != null) {
+            spillFile.forEach(bytes -> {
+                final B build = unpackBuild.apply(bytes);
+                final K key = buildKeyFunction.apply(build);
+                if (key != null && partitionOf(key) == partitionToRead) {
+                    addToTable(table, key, build);
+                }
+            });
+        }
+        if (timer != null) {
+            timer.increment(FDBStoreTimer.Counts.QUERY_HASH_JOIN_BUILD_RECORDS, table.values().stream().mapToInt(List::size).sum());
+        }
+        return table;
+    }
+
+    private void closeSpillFile() {
+        if (spillFile != null) {
+            spillFile.close();
+            spillFile = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (buildCursor != null) {
+            buildCursor.close();
+        }
+        if (probeCursor != null) {
+            probeCursor.close();
+        }
+        closeSpillFile();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Nonnull
+    @Override
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public boolean accept(@Nonnull RecordCursorVisitor visitor) {
+        if (visitor.visitEnter(this)) {
+            if (buildCursor != null) {
+                buildCursor.accept(visitor);
+            }
+            if (probeCursor != null) {
+                probeCursor.accept(visitor);
+            }
+        }
+        return visitor.visitLeave(this);
+    }
+
+    /**
+     * Continuation of a {@link HashJoinCursor}: the partition being probed, the position within the probe side and
+     * whether the join continues as a nested loop join.
+     */
+    private static class Continuation implements RecordCursorContinuation {
+        private final int partitionCount;
+        private final int partition;
+        @Nonnull
+        private final RecordCursorContinuation probeContinuation;
+        private final boolean nestedLoop;
+        private final int nestedLoopSkip;
+        @Nullable
+        private byte[] cachedBytes;
+
+        private Continuation(int partitionCount, int partition, @Nonnull RecordCursorContinuation probeContinuation,
+                             boolean nestedLoop, int nestedLoopSkip) {
+            this.partitionCount = partitionCount;
+            this.partition = partition;
+            this.probeContinuation = probeContinuation;
+            this.nestedLoop = nestedLoop;
+            this.nestedLoopSkip = nestedLoopSkip;
+        }
+
+        @Nullable
+        @Override
+        public byte[] toBytes() {
+            if (isEnd()) {
+                return null;
+            }
+            if (cachedBytes == null) {
+                final RecordCursorProto.HashJoinContinuation.Builder builder = RecordCursorProto.HashJoinContinuation.newBuilder()
+                        .setPartitionCount(partitionCount)
+                        .setPartition(partition);
+                final ByteString probeBytes = probeContinuation.toByteString();
+                if (!probeBytes.isEmpty()) {
+                    builder.setProbeContinuation(probeBytes);
+                }
+                if (nestedLoop) {
+                    builder.setNestedLoop(true);
+                }
+                if (nestedLoopSkip > 0) {
+                    builder.setNestedLoopSkip(nestedLoopSkip);
+                }
+                cachedBytes = builder.build().toByteArray();
+            }
+            return cachedBytes;
+        }
+
+        @Override
+        public boolean isEnd() {
+            return probeContinuation.isEnd() && partition + 1 >= partitionCount;
+        }
+    }
+}
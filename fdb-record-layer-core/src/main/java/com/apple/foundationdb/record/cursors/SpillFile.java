@@ -0,0 +1,173 @@
+/*
+ * SpillFile.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.provider.common.CipherPool;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
+import javax.crypto.KeyGenerator;
+import javax.crypto.spec.IvParameterSpec;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.SecureRandom;
+import java.util.function.Consumer;
+
+/**
+ * A temporary file that operators use to spill serialized elements to disk once they exceed their in-memory budget.
+ * Elements are appended with {@link #write(byte[])} and can then be read back (any number of times) in the order in
+ * which they were written with {@link #forEach(Consumer)}. Once reading has started, no more elements can be written.
+ *
+ * <p>
+ * The file is encrypted with a key that only lives as long as this object (like the files written by
+ * {@link com.apple.foundationdb.record.sorting.FileSorter}), so its contents are useless once the operator is gone.
+ * The file is deleted by {@link #close()}.
+ * </p>
+ */
+@API(API.Status.INTERNAL)
+public class SpillFile implements Closeable {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Nonnull
+    private final String operator;
+    @Nonnull
+    private final File file;
+    @Nonnull
+    private final Key encryptionKey;
+    @Nonnull
+    private final byte[] iv;
+    @Nullable
+    private DataOutputStream output;
+    private long count;
+
+    /**
+     * Create a new spill file.
+     * @param operator the name of the operator spilling to the file, used in error messages
+     */
+    @SuppressWarnings("PMD.CloseResource")
+    public SpillFile(@Nonnull String operator) {
+        this.operator = operator;
+        try {
+            final KeyGenerator keyGen = KeyGenerator.getInstance("AES");
+            keyGen.init(128, RANDOM);
+            encryptionKey = keyGen.generateKey();
+            iv = new byte[CipherPool.IV_SIZE];
+            RANDOM.nextBytes(iv);
+            file = File.createTempFile("fdb", ".bin");
+            final Cipher cipher = Cipher.getInstance(CipherPool.DEFAULT_CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+            output = new DataOutputStream(new CipherOutputStream(new BufferedOutputStream(new FileOutputStream(file)), cipher));
+        } catch (IOException | GeneralSecurityException ex) {
+            throw new RecordCoreException("unable to create " + operator + " spill file", ex);
+        }
+    }
+
+    /**
+     * Get the number of elements written to this file.
+     * @return the number of elements
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Append an element to the file.
+     * @param bytes the serialized element
+     */
+    public void write(@Nonnull byte[] bytes) {
+        if (output == null) {
+            throw new RecordCoreException(operator + " spill file already finished");
+        }
+        try {
+            output.writeInt(bytes.length);
+            output.write(bytes);
+            count++;
+        } catch (IOException ex) {
+            throw new RecordCoreException("unable to write " + operator + " spill file", ex);
+        }
+    }
+
+    /**
+     * Read all elements of the file in the order in which they were written. Only one element is held in memory at
+     * a time.
+     * @param consumer a consumer that is called for each element
+     */
+    public void forEach(@Nonnull Consumer<byte[]> consumer) {
+        finishWriting();
+        try {
+            final Cipher cipher = Cipher.getInstance(CipherPool.DEFAULT_CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new IvParameterSpec(iv));
+            try (DataInputStream input = new DataInputStream(new CipherInputStream(new BufferedInputStream(new FileInputStream(file)), cipher))) {
+                for (long i = 0; i < count; i++) {
+                    final byte[] bytes = new byte[input.readInt()];
+                    input.readFully(bytes);
+                    consumer.accept(bytes);
+                }
+            }
+        } catch (EOFException ex) {
+            throw new RecordCoreException(operator + " spill file truncated", ex);
+        } catch (IOException | GeneralSecurityException ex) {
+            throw new RecordCoreException("unable to read " + operator + " spill file", ex);
+        }
+    }
+
+    private void finishWriting() {
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException ex) {
+                throw new RecordCoreException("unable to finish " + operator + " spill file", ex);
+            } finally {
+                output = null;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            finishWriting();
+        } finally {
+            try {
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException ex) {
+                // Temporary file; nothing else can be done about it.
+                file.deleteOnExit();
+            }
+        }
+    }
+}
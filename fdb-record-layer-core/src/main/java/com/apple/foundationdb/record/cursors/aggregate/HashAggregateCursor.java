@@ -0,0 +1,578 @@
+/*
+ * HashAggregateCursor.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors.aggregate;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.Bindings;
+import com.apple.foundationdb.record.EvaluationContext;
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorContinuation;
+import com.apple.foundationdb.record.RecordCursorEndContinuation;
+import com.apple.foundationdb.record.RecordCursorProto;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordCursorVisitor;
+import com.apple.foundationdb.record.cursors.SpillFile;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.record.provider.common.StoreTimer;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStoreBase;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
+import com.apple.foundationdb.record.query.plan.cascades.CorrelationIdentifier;
+import com.apple.foundationdb.record.query.plan.cascades.values.Accumulator;
+import com.apple.foundationdb.record.query.plan.cascades.values.AggregateValue;
+import com.apple.foundationdb.record.query.plan.cascades.values.Value;
+import com.apple.foundationdb.record.query.plan.plans.QueryResult;
+import com.apple.foundationdb.tuple.ByteArrayUtil;
+import com.apple.foundationdb.tuple.ByteArrayUtil2;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * A cursor that groups the records of its (unordered) inner cursor by a grouping key using a hash table and
+ * aggregates each group. Unlike {@link AggregateCursor}, the input does not need to be ordered by the grouping key.
+ * The groups are returned ordered by a hash of their grouping key and then by its serialized form (which is stable,
+ * but not meaningful).
+ *
+ * <p>
+ * Each pass over the input aggregates the groups whose (unsigned 32-bit) key hash falls in a range, starting with the
+ * whole hash space. Whenever the groups of the range would exceed {@code maxGroupsInMemory}, the range is cut in half
+ * and the groups of the upper half are evicted; they are aggregated by a later pass, which starts where the previous
+ * range ended. Since narrowing the range never needs the evicted groups again, the bound holds for every pass,
+ * including one resumed from a continuation. When a pass reads the input from its beginning, the records (and partial
+ * aggregates) of groups above the range are spilled to a temporary {@link SpillFile}, so that the later passes of the
+ * same cursor do not need to read the input again. Otherwise, the later passes re-execute the inner cursor.
+ * </p>
+ *
+ * <p>
+ * A continuation taken while aggregating a range contains the continuation of the inner cursor as well as the
+ * partial aggregates of the groups in memory (see {@link StreamGrouping#getPartialAggregationResult()}). Before it is
+ * taken, the range is narrowed until there are at most {@code maxGroupsInContinuation} such groups. A continuation
+ * taken while returning the groups of a range only contains the number of groups already returned; resuming from it
+ * aggregates the range again.
+ * </p>
+ *
+ * @param <M> the type of records in the store
+ */
+@API(API.Status.EXPERIMENTAL)
+public class HashAggregateCursor<M extends Message> implements RecordCursor<QueryResult> {
+    private static final long HASH_SPACE = 1L << Integer.SIZE;
+
+    @Nonnull
+    private final Function<byte[], RecordCursor<QueryResult>> innerCursorFunction;
+    @Nonnull
+    private final Value groupingKeyValue;
+    @Nonnull
+    private final AggregateValue aggregateValue;
+    @Nonnull
+    private final Value completeResultValue;
+    @Nonnull
+    private final CorrelationIdentifier groupingKeyAlias;
+    @Nonnull
+    private final CorrelationIdentifier aggregateAlias;
+    @Nonnull
+    private final FDBRecordStoreBase<M> store;
+    @Nonnull
+    private final EvaluationContext context;
+    @Nonnull
+    private final CorrelationIdentifier alias;
+    private final int maxGroupsInMemory;
+    private final int maxGroupsInContinuation;
+    @Nonnull
+    private final Executor executor;
+    @Nullable
+    private final StoreTimer timer;
+    @Nullable
+    private final Descriptors.Descriptor groupingKeyDescriptor;
+
+    private long rangeStart;
+    private long rangeEnd;
+    @Nullable
+    private byte[] innerContinuation;
+    @Nonnull
+    private List<RecordCursorProto.PartialAggregationResult> restoredGroups;
+    private int returnedGroups;
+
+    @Nullable
+    private List<Group> completedGroups;
+    private long nextRangeEnd;
+    @Nullable
+    private RecordCursor<QueryResult> innerCursor;
+    @Nullable
+    private SpillFile spillFile;
+    private boolean spillFileComplete;
+    private boolean overBudget;
+    @Nullable
+    private Descriptors.Descriptor rowDescriptor;
+    @Nullable
+    private RecordCursorResult<QueryResult> lastResult;
+    private boolean closed;
+
+    /**
+     * Create a new hash aggregate cursor.
+     *
+     * @param innerCursorFunction a function to create the inner cursor given a continuation
+     * @param groupingKeyValue the {@link Value} to group by
+     * @param aggregateValue the {@link AggregateValue} to aggregate by grouping key
+     * @param completeResultValue the {@link Value} of the aggregate results
+     * @param groupingKeyAlias the identifier of {@code groupingKeyValue}
+     * @param aggregateAlias the identifier of {@code aggregateValue}
+     * @param store record store used to evaluate values
+     * @param context evaluation context containing parameter bindings
+     * @param alias the quantifier alias for the value evaluation
+     * @param maxGroupsInMemory the maximum number of groups held in memory
+     * @param maxGroupsInContinuation the maximum number of partial groups in a continuation
+     * @param continuation the continuation of a previous invocation or {@code null} to start from the beginning
+     */
+    @SuppressWarnings("squid:S00107") // too many parameters
+    public HashAggregateCursor(@Nonnull final Function<byte[], RecordCursor<QueryResult>> innerCursorFunction,
+                               @Nonnull final Value groupingKeyValue,
+                               @Nonnull final AggregateValue aggregateValue,
+                               @Nonnull final Value completeResultValue,
+                               @Nonnull final CorrelationIdentifier groupingKeyAlias,
+                               @Nonnull final CorrelationIdentifier aggregateAlias,
+                               @Nonnull final FDBRecordStoreBase<M> store,
+                               @Nonnull final EvaluationContext context,
+                               @Nonnull final CorrelationIdentifier alias,
+                               final int maxGroupsInMemory,
+                               final int maxGroupsInContinuation,
+                               @Nullable final byte[] continuation) {
+        if (maxGroupsInMemory <= 0) {
+            throw new RecordCoreException("hash aggregation must be allowed to hold at least one group in memory");
+        }
+        if (maxGroupsInContinuation < 0) {
+            throw new RecordCoreException("hash aggregation continuation group limit cannot be negative");
+        }
+        this.innerCursorFunction = innerCursorFunction;
+        this.groupingKeyValue = groupingKeyValue;
+        this.aggregateValue = aggregateValue;
+        this.completeResultValue = completeResultValue;
+        this.groupingKeyAlias = groupingKeyAlias;
+        this.aggregateAlias = aggregateAlias;
+        this.store = store;
+        this.context = context;
+        this.alias = alias;
+        this.maxGroupsInMemory = maxGroupsInMemory;
+        this.maxGroupsInContinuation = Math.min(maxGroupsInContinuation, maxGroupsInMemory);
+        this.executor = store.getExecutor();
+        this.timer = store.getTimer();
+        this.groupingKeyDescriptor = groupingKeyValue.getResultType().isRecord()
+                                     ? context.getTypeRepository().newMessageBuilder(groupingKeyValue.getResultType()).getDescriptorForType()
+                                     : null;
+        this.rangeStart = 0;
+        this.rangeEnd = HASH_SPACE;
+        this.restoredGroups = Collections.emptyList();
+        if (continuation != null) {
+            final RecordCursorProto.HashAggregationContinuation parsed;
+            try {
+                parsed = RecordCursorProto.HashAggregationContinuation.parseFrom(continuation);
+            } catch (InvalidProtocolBufferException ex) {
+                throw new RecordCoreException("invalid continuation", ex)
+                        .addLogInfo(LogMessageKeys.RAW_BYTES, ByteArrayUtil2.loggable(continuation));
+            }
+            this.rangeStart = parsed.getRangeStart();
+            this.rangeEnd = parsed.getRangeEnd();
+            this.innerContinuation = parsed.hasInnerContinuation() ? parsed.getInnerContinuation().toByteArray() : null;
+            this.restoredGroups = parsed.getPartialAggregationResultsList();
+            this.returnedGroups = parsed.getReturnedGroups();
+            if (rangeStart < 0 || rangeEnd <= rangeStart || rangeEnd > HASH_SPACE || returnedGroups < 0) {
+                throw new RecordCoreException("invalid hash aggregation continuation")
+                        .addLogInfo(LogMessageKeys.RAW_BYTES, ByteArrayUtil2.loggable(continuation));
+            }
+        }
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<RecordCursorResult<QueryResult>> onNext() {
+        if (lastResult != null && !lastResult.hasNext()) {
+            return CompletableFuture.completedFuture(lastResult);
+        }
+        if (completedGroups == null) {
+            return aggregateRange().thenCompose(stoppedResult -> {
+                if (stoppedResult != null) {
+                    lastResult = stoppedResult;
+                    return CompletableFuture.completedFuture(lastResult);
+                }
+                return onNext();
+            });
+        }
+        if (returnedGroups < completedGroups.size()) {
+            final Group group = completedGroups.get(returnedGroups);
+            // release the group as soon as it has been returned
+            completedGroups.set(returnedGroups, null);
+            returnedGroups++;
+            final RecordCursorContinuation continuation;
+            if (returnedGroups < completedGroups.size()) {
+                continuation = new Continuation(rangeStart, rangeEnd, null, Collections.emptyList(), returnedGroups);
+            } else if (rangeEnd < HASH_SPACE) {
+                continuation = new Continuation(rangeEnd, nextRangeEnd, null, Collections.emptyList(), 0);
+            } else {
+                continuation = RecordCursorEndContinuation.END;
+            }
+            lastResult = RecordCursorResult.withNextValue(QueryResult.ofComputed(finishGroup(group)), continuation);
+            return CompletableFuture.completedFuture(lastResult);
+        }
+        if (rangeEnd >= HASH_SPACE) {
+            lastResult = RecordCursorResult.exhausted();
+            return CompletableFuture.completedFuture(lastResult);
+        }
+        rangeStart = rangeEnd;
+        rangeEnd = nextRangeEnd;
+        completedGroups = null;
+        returnedGroups = 0;
+        return onNext();
+    }
+
+    /**
+     * Aggregate the current range, either from the inner cursor or from the spill file.
+     * @return a future that completes with {@code null} if the range has been aggregated completely, or with the
+     *         result to return if the inner cursor stopped before it was exhausted
+     */
+    @Nonnull
+    private CompletableFuture<RecordCursorResult<QueryResult>> aggregateRange() {
+        if (timer != null) {
+            timer.increment(FDBStoreTimer.Counts.QUERY_HASH_AGGREGATE_PASSES);
+        }
+        final Map<ByteString, Group> groups = new HashMap<>();
+        for (RecordCursorProto.PartialAggregationResult restoredGroup : restoredGroups) {
+            addPartialGroup(groups, restoredGroup, false);
+        }
+        restoredGroups = Collections.emptyList();
+
+        if (spillFileComplete) {
+            return CompletableFuture.supplyAsync(() -> {
+                if (spillFile != null) {
+                    spillFile.forEach(bytes -> readSpillEntry(groups, bytes));
+                }
+                completeRange(groups);
+                return null;
+            }, executor);
+        }
+
+        // Only a pass that sees the complete input can spill the groups above its range for the later passes.
+        final boolean spill = innerContinuation == null && groups.isEmpty();
+        innerCursor = innerCursorFunction.apply(innerContinuation);
+        return innerCursor.forEachResult(innerResult -> accumulateRow(groups, innerResult.get(), spill))
+                .thenApply(innerResult -> {
+                    closeInnerCursor();
+                    if (!innerResult.getNoNextReason().isSourceExhausted()) {
+                        // Rather than carrying every group in memory, only keep as many as the continuation allows;
+                        // the evicted ones will be aggregated again by a later pass.
+                        narrowRange(groups, maxGroupsInContinuation, false);
+                        final List<RecordCursorProto.PartialAggregationResult> partialGroups = new ArrayList<>(groups.size());
+                        for (Group group : groups.values()) {
+                            partialGroups.add(group.toPartialAggregationResult());
+                        }
+                        innerContinuation = innerResult.getContinuation().toBytes();
+                        return RecordCursorResult.withoutNextValue(
+                                new Continuation(rangeStart, rangeEnd, innerResult.getContinuation(), partialGroups, 0),
+                                innerResult.getNoNextReason());
+                    }
+                    innerContinuation = null;
+                    spillFileComplete = spill;
+                    completeRange(groups);
+                    return null;
+                });
+    }
+
+    private void accumulateRow(@Nonnull Map<ByteString, Group> groups, @Nonnull QueryResult row, boolean spill) {
+        final EvaluationContext nestedContext = context.withBinding(Bindings.Internal.CORRELATION, alias, row);
+        final Object key = groupingKeyValue.eval(store, nestedContext);
+        final ByteString keyBytes = QueryResult.ofComputed(key).toProto().toByteString();
+        if (!inRange(keyBytes, spill, row)) {
+            return;
+        }
+        Group group = groups.get(keyBytes);
+        if (group == null) {
+            if (groups.size() >= maxGroupsInMemory) {
+                narrowRange(groups, maxGroupsInMemory - 1, spill);
+                if (!inRange(keyBytes, spill, row)) {
+                    return;
+                }
+            }
+            group = new Group(keyBytes, key, aggregateValue.createAccumulatorWithInitialState(context.getTypeRepository(), null));
+            groups.put(keyBytes, group);
+        }
+        group.accumulator.accumulate(aggregateValue.evalToPartial(store, nestedContext));
+    }
+
+    /**
+     * Check whether a group belongs to the current range. A row of a group above the range is spilled if requested.
+     */
+    private boolean inRange(@Nonnull ByteString keyBytes, boolean spill, @Nonnull QueryResult row) {
+        final long hash = hashOf(keyBytes);
+        if (hash < rangeStart) {
+            // already returned by an earlier range
+            return false;
+        }
+        if (hash >= rangeEnd) {
+            if (spill) {
+                spillRow(row);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Halve the current range until at most {@code maxGroups} of the groups in memory remain in it.
+     * The groups above the new end of the range are removed, being spilled as partial aggregates if requested.
+     */
+    private void narrowRange(@Nonnull Map<ByteString, Group> groups, int maxGroups, boolean spill) {
+        while (groups.size() > maxGroups && rangeEnd - rangeStart > 1) {
+            rangeEnd = rangeStart + (rangeEnd - rangeStart) / 2;
+            final Iterator<Group> iterator = groups.values().iterator();
+            while (iterator.hasNext()) {
+                final Group group = iterator.next();
+                if (hashOf(group.keyBytes) >= rangeEnd) {
+                    if (spill) {
+                        spillEntry(RecordCursorProto.HashAggregationSpillEntry.newBuilder()
+                                .setPartialAggregationResult(group.toPartialAggregationResult())
+                                .build());
+                    }
+                    iterator.remove();
+                }
+            }
+        }
+        if (groups.size() > maxGroups && !overBudget) {
+            // Every group in memory has the same hash, so there is no way to split them further.
+            overBudget = true;
+            if (timer != null) {
+                timer.increment(FDBStoreTimer.Counts.QUERY_HASH_AGGREGATE_OVER_BUDGET);
+            }
+        }
+    }
+
+    private void readSpillEntry(@Nonnull Map<ByteString, Group> groups, @Nonnull byte[] bytes) {
+        final RecordCursorProto.HashAggregationSpillEntry entry;
+        try {
+            entry = RecordCursorProto.HashAggregationSpillEntry.parseFrom(bytes);
+        } catch (InvalidProtocolBufferException ex) {
+            throw new RecordCoreException("invalid hash aggregation spill entry", ex);
+        }
+        if (entry.hasPartialAggregationResult()) {
+            final long hash = hashOf(entry.getPartialAggregationResult().getGroupKey());
+            if (hash >= rangeStart && hash < rangeEnd) {
+                addPartialGroup(groups, entry.getPartialAggregationResult(), true);
+            }
+        } else {
+            accumulateRow(groups, QueryResult.from(rowDescriptor, entry.getRow()), false);
+        }
+    }
+
+    private void addPartialGroup(@Nonnull Map<ByteString, Group> groups,
+                                 @Nonnull RecordCursorProto.PartialAggregationResult partialGroup,
+                                 boolean makeRoom) {
+        final ByteString keyBytes = partialGroup.getGroupKey();
+        if (makeRoom && groups.size() >= maxGroupsInMemory) {
+            narrowRange(groups, maxGroupsInMemory - 1, false);
+            if (hashOf(keyBytes) >= rangeEnd) {
+                return;
+            }
+        }
+        final Object key = QueryResult.from(groupingKeyDescriptor, keyBytes).getDatum();
+        groups.put(keyBytes, new Group(keyBytes, key,
+                aggregateValue.createAccumulatorWithInitialState(context.getTypeRepository(), partialGroup.getAccumulatorStatesList())));
+    }
+
+    private void spillRow(@Nonnull QueryResult row) {
+        final Object datum = row.getDatum();
+        if (rowDescriptor == null && datum instanceof Message) {
+            rowDescriptor = ((Message)datum).getDescriptorForType();
+        }
+        spillEntry(RecordCursorProto.HashAggregationSpillEntry.newBuilder()
+                .setRow(row.toProto().toByteString())
+                .build());
+    }
+
+    private void spillEntry(@Nonnull RecordCursorProto.HashAggregationSpillEntry entry) {
+        if (spillFile == null) {
+            spillFile = new SpillFile("hash aggregation");
+        }
+        spillFile.write(entry.toByteArray());
+        if (timer != null) {
+            timer.increment(FDBStoreTimer.Counts.QUERY_HASH_AGGREGATE_SPILLED_RECORDS);
+        }
+    }
+
+    private void completeRange(@Nonnull Map<ByteString, Group> groups) {
+        final List<Group> sortedGroups = new ArrayList<>(groups.values());
+        sortedGroups.sort(Comparator.comparingLong((Group group) -> hashOf(group.keyBytes))
+                .thenComparing((group1, group2) -> ByteArrayUtil.compareUnsigned(group1.keyBytes.toByteArray(), group2.keyBytes.toByteArray())));
+        completedGroups = sortedGroups;
+        // The next range starts out as wide as this one, or twice as wide if this one was sparse, so that a range
+        // narrowed by a dense part of the hash space does not make every later pass equally narrow.
+        long width = rangeEnd - rangeStart;
+        if (groups.size() <= maxGroupsInMemory / 2) {
+            width *= 2;
+        }
+        nextRangeEnd = Math.min(HASH_SPACE, rangeEnd + width);
+    }
+
+    @Nullable
+    private Object finishGroup(@Nonnull Group group) {
+        final EvaluationContext nestedContext = context.childBuilder()
+                .setBinding(groupingKeyAlias, group.key)
+                .setBinding(aggregateAlias, group.accumulator.finish())
+                .build(context.getTypeRepository());
+        return completeResultValue.eval(store, nestedContext);
+    }
+
+    private static long hashOf(@Nonnull ByteString keyBytes) {
+        // Spread the bits of the hash code so that keys with similar hash codes land in different ranges.
+        final int hash = keyBytes.hashCode() * 0x9E3779B1;
+        return Integer.toUnsignedLong(hash ^ (hash >>> 16));
+    }
+
+    private void closeInnerCursor() {
+        if (innerCursor != null) {
+            innerCursor.close();
+            innerCursor = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeInnerCursor();
+        if (spillFile != null) {
+            spillFile.close();
+            spillFile = null;
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Nonnull
+    @Override
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public boolean accept(@Nonnull RecordCursorVisitor visitor) {
+        if (visitor.visitEnter(this)) {
+            if (innerCursor != null) {
+                innerCursor.accept(visitor);
+            }
+        }
+        return visitor.visitLeave(this);
+    }
+
+    /**
+     * A group in memory: its key (and serialized key) and the accumulator for its aggregates.
+     */
+    private static final class Group {
+        @Nonnull
+        private final ByteString keyBytes;
+        @Nullable
+        private final Object key;
+        @Nonnull
+        private final Accumulator accumulator;
+
+        private Group(@Nonnull ByteString keyBytes, @Nullable Object key, @Nonnull Accumulator accumulator) {
+            this.keyBytes = keyBytes;
+            this.key = key;
+            this.accumulator = accumulator;
+        }
+
+        @Nonnull
+        private RecordCursorProto.PartialAggregationResult toPartialAggregationResult() {
+            return RecordCursorProto.PartialAggregationResult.newBuilder()
+                    .setGroupKey(keyBytes)
+                    .addAllAccumulatorStates(accumulator.getAccumulatorStates())
+                    .build();
+        }
+    }
+
+    /**
+     * Continuation of a {@link HashAggregateCursor}.
+     */
+    private static class Continuation implements RecordCursorContinuation {
+        private final long rangeStart;
+        private final long rangeEnd;
+        @Nullable
+        private final RecordCursorContinuation innerContinuation;
+        @Nonnull
+        private final List<RecordCursorProto.PartialAggregationResult> partialGroups;
+        private final int returnedGroups;
+        @Nullable
+        private byte[] cachedBytes;
+
+        private Continuation(long rangeStart, long rangeEnd, @Nullable RecordCursorContinuation innerContinuation,
+                             @Nonnull List<RecordCursorProto.PartialAggregationResult> partialGroups, int returnedGroups) {
+            this.rangeStart = rangeStart;
+            this.rangeEnd = rangeEnd;
+            this.innerContinuation = innerContinuation;
+            this.partialGroups = ImmutableList.copyOf(partialGroups);
+            this.returnedGroups = returnedGroups;
+        }
+
+        @Nonnull
+        @Override
+        public byte[] toBytes() {
+            if (cachedBytes == null) {
+                final RecordCursorProto.HashAggregationContinuation.Builder builder = RecordCursorProto.HashAggregationContinuation.newBuilder()
+                        .setRangeStart(rangeStart)
+                        .setRangeEnd(rangeEnd)
+                        .addAllPartialAggregationResults(partialGroups);
+                if (innerContinuation != null) {
+                    final ByteString innerBytes = innerContinuation.toByteString();
+                    if (!innerBytes.isEmpty()) {
+                        builder.setInnerContinuation(innerBytes);
+                    }
+                }
+                if (returnedGroups > 0) {
+                    builder.setReturnedGroups(returnedGroups);
+                }
+                cachedBytes = builder.build().toByteArray();
+            }
+            return cachedBytes;
+        }
+
+        @Override
+        public boolean isEnd() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * BatchCursor.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.apple.foundationdb.record.cursors.batch;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordCursorVisitor;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * An asynchronous iterator that returns its elements a {@link RecordCursorBatch} at a time.
+ *
+ * <p>
+ * This is the batch-at-a-time counterpart of {@link RecordCursor}. Operators such as {@link #map} and {@link #filter}
+ * work on whole batches, so that a pipeline only waits on one future per batch instead of one per element. Each element
+ * still has its own continuation, so a batch cursor can be turned back into a record cursor with {@link #asRecordCursor()}
+ * and resumed from any element.
+ * </p>
+ *
+ * <p>
+ * As with {@link RecordCursor#onNext()}, only one call to {@link #onNextBatch()} may be outstanding at a time. Once a
+ * batch without a next value has been returned, further calls return an empty batch with the same final result.
+ * </p>
+ *
+ * @param <T> the type of elements of the cursor
+ * @see RecordCursor#asBatchCursor(int)
+ */
+@API(API.Status.EXPERIMENTAL)
+public interface BatchCursor<T> extends AutoCloseable {
+    /**
+     * Asynchronously return the next batch from this cursor.
+     * @return a future that will complete with the next batch
+     */
+    @Nonnull
+    CompletableFuture<RecordCursorBatch<T>> onNextBatch();
+
+    @Override
+    void close();
+
+    boolean isClosed();
+
+    @Nonnull
+    Executor getExecutor();
+
+    /**
+     * Accept a visit from a cursor visitor. Since the visitor only knows about record cursors, a batch cursor visits
+     * the record cursors that it reads from, if any.
+     * @param visitor a visitor that will visit the underlying record cursors
+     * @return the result of the last {@link RecordCursorVisitor#visitLeave} call, or {@code true} if there was none
+     */
+    boolean accept(@Nonnull RecordCursorVisitor visitor);
+
+    /**
+     * Get a new cursor by applying the given function to the elements of this cursor, a batch at a time.
+     * @param func the function to apply
+     * @param <V> the type of elements of the new cursor
+     * @return a new cursor that applies the given function
+     */
+    @Nonnull
+    default <V> BatchCursor<V> map(@Nonnull Function<T, V> func) {
+        return new MapBatchCursor<>(this, batch -> batch.map(func));
+    }
+
+    /**
+     * Get a new cursor that skips elements that do not satisfy the given predicate, a batch at a time.
+     * @param pred the predicate to apply
+     * @return a new cursor that filters out elements for which {@code pred} returns {@code false} or {@code null}
+     */
+    @Nonnull
+    default BatchCursor<T> filter(@Nonnull Function<T, Boolean> pred) {
+        return new MapBatchCursor<>(this, batch -> batch.filter(pred));
+    }
+
+    /**
+     * Reduce the contents of the cursor to a single value, looping over each batch without waiting between elements.
+     * @param identity initial value for reduction
+     * @param accumulator function that takes previous reduced value and computes new value by combining with each element
+     * @param <U> the result type of the reduction
+     * @return a future that completes to the result of reduction
+     */
+    @Nonnull
+    default <U> CompletableFuture<U> reduce(U identity, @Nonnull BiFunction<U, ? super T, U> accumulator) {
+        final AtomicReference<U> holder = new AtomicReference<>(identity);
+        return forEachBatch(batch -> {
+            U accumulated = holder.get();
+            for (int i = 0; i < batch.size(); i++) {
+                accumulated = accumulator.apply(accumulated, batch.get(i));
+            }
+            holder.set(accumulated);
+        }).thenApply(vignore -> holder.get());
+    }
+
+    /**
+     * Count the number of elements in the cursor.
+     * @return a future that completes to the number of elements in the cursor
+     */
+    @Nonnull
+    default CompletableFuture<Integer> getCount() {
+        final AtomicReference<Integer> holder = new AtomicReference<>(0);
+        return forEachBatch(batch -> holder.set(holder.get() + batch.size())).thenApply(vignore -> holder.get());
+    }
+
+    /**
+     * Call the given consumer on each batch of this cursor, including the last.
+     * @param consumer function to be applied to each batch
+     * @return a future that completes with the final result of the cursor when all batches have been processed
+     */
+    @Nonnull
+    default CompletableFuture<RecordCursorResult<T>> forEachBatch(@Nonnull Consumer<RecordCursorBatch<T>> consumer) {
+        final AtomicReference<RecordCursorResult<T>> lastResult = new AtomicReference<>();
+        return AsyncUtil.whileTrue(() -> onNextBatch().thenApply(batch -> {
+            consumer.accept(batch);
+            lastResult.set(batch.getNoNextResult());
+            return batch.hasNext();
+        }), getExecutor()).thenApply(vignore -> lastResult.get());
+    }
+
+    /**
+     * Get a record cursor that returns the elements of this cursor one at a time.
+     * @return a new record cursor over the elements of this cursor
+     */
+    @Nonnull
+    default RecordCursor<T> asRecordCursor() {
+        return new UnbatchingCursor<>(this);
+    }
+
+    /**
+     * Get a batch cursor that reads the given record cursor a batch at a time.
+     * @param cursor the record cursor to read
+     * @param maxBatchSize the maximum number of elements in each batch
+     * @param <T> the type of elements of the cursor
+     * @return a new batch cursor over the elements of {@code cursor}
+     */
+    @Nonnull
+    static <T> BatchCursor<T> fromRecordCursor(@Nonnull RecordCursor<T> cursor, int maxBatchSize) {
+        return new BatchingCursor<>(cursor, maxBatchSize);
+    }
+}
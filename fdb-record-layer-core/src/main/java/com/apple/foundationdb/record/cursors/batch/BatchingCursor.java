@@ -0,0 +1,121 @@
+/*
+ * BatchingCursor.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.apple.foundationdb.record.cursors.batch;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordCursorVisitor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A batch cursor that reads a {@link RecordCursor}, gathering into each batch the results that are already available.
+ *
+ * <p>
+ * Each batch waits for at most one result. After that, results are only added while the inner cursor returns them
+ * without waiting, such as from a buffered range read, and a result that is not ready yet starts the next batch.
+ * </p>
+ *
+ * @param <T> the type of elements of the cursor
+ * @see BatchCursor#fromRecordCursor
+ */
+@API(API.Status.EXPERIMENTAL)
+public class BatchingCursor<T> implements BatchCursor<T> {
+    @Nonnull
+    private final RecordCursor<T> inner;
+    private final int maxBatchSize;
+    @Nullable
+    private CompletableFuture<RecordCursorResult<T>> pendingResult;
+    @Nullable
+    private RecordCursorResult<T> noNextResult;
+
+    public BatchingCursor(@Nonnull RecordCursor<T> inner, int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new RecordCoreArgumentException("batch size must be positive")
+                    .addLogInfo("maxBatchSize", maxBatchSize);
+        }
+        this.inner = inner;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<RecordCursorBatch<T>> onNextBatch() {
+        if (noNextResult != null) {
+            return CompletableFuture.completedFuture(RecordCursorBatch.empty(noNextResult));
+        }
+        final CompletableFuture<RecordCursorResult<T>> firstResult = pendingResult != null ? pendingResult : inner.onNext();
+        pendingResult = null;
+        return firstResult.thenApply(this::fillBatch);
+    }
+
+    @Nonnull
+    private RecordCursorBatch<T> fillBatch(@Nonnull RecordCursorResult<T> firstResult) {
+        final RecordCursorBatch.Builder<T> builder = RecordCursorBatch.newBuilder(Math.min(maxBatchSize, 16));
+        RecordCursorResult<T> result = firstResult;
+        while (result.hasNext()) {
+            builder.add(result);
+            if (builder.size() >= maxBatchSize) {
+                return builder.build();
+            }
+            final CompletableFuture<RecordCursorResult<T>> nextResult = inner.onNext();
+            if (!nextResult.isDone() || nextResult.isCompletedExceptionally()) {
+                // Do not wait (or fail) in the middle of a batch; the next batch starts with this result.
+                pendingResult = nextResult;
+                return builder.build();
+            }
+            result = nextResult.join();
+        }
+        noNextResult = result;
+        return builder.build(result);
+    }
+
+    @Override
+    public void close() {
+        if (pendingResult != null) {
+            pendingResult.cancel(false);
+            pendingResult = null;
+        }
+        inner.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return inner.isClosed();
+    }
+
+    @Nonnull
+    @Override
+    public Executor getExecutor() {
+        return inner.getExecutor();
+    }
+
+    @Override
+    public boolean accept(@Nonnull RecordCursorVisitor visitor) {
+        return inner.accept(visitor);
+    }
+}
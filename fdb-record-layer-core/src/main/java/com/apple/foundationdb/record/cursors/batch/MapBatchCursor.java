@@ -0,0 +1,77 @@
+/*
+ * MapBatchCursor.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.apple.foundationdb.record.cursors.batch;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCursorVisitor;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * A batch cursor that applies a function to each batch of another batch cursor, such as to map or filter its elements.
+ * @param <T> the type of elements of the source cursor
+ * @param <V> the type of elements of the cursor after applying the function
+ * @see BatchCursor#map
+ * @see BatchCursor#filter
+ */
+@API(API.Status.EXPERIMENTAL)
+public class MapBatchCursor<T, V> implements BatchCursor<V> {
+    @Nonnull
+    private final BatchCursor<T> inner;
+    @Nonnull
+    private final Function<RecordCursorBatch<T>, RecordCursorBatch<V>> func;
+
+    public MapBatchCursor(@Nonnull BatchCursor<T> inner, @Nonnull Function<RecordCursorBatch<T>, RecordCursorBatch<V>> func) {
+        this.inner = inner;
+        this.func = func;
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<RecordCursorBatch<V>> onNextBatch() {
+        return inner.onNextBatch().thenApply(func);
+    }
+
+    @Override
+    public void close() {
+        inner.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return inner.isClosed();
+    }
+
+    @Nonnull
+    @Override
+    public Executor getExecutor() {
+        return inner.getExecutor();
+    }
+
+    @Override
+    public boolean accept(@Nonnull RecordCursorVisitor visitor) {
+        return inner.accept(visitor);
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * RecordCursorBatch.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.apple.foundationdb.record.cursors.batch;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.RecordCursorContinuation;
+import com.apple.foundationdb.record.RecordCursorResult;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * A batch of elements returned by a {@link BatchCursor}, each with the continuation that resumes the cursor after it.
+ *
+ * <p>
+ * The continuations are either given along with each element or, if the batch was built with a continuation function,
+ * derived from the element as the cursor originally returned it only when asked for, so that a batch consumer that only
+ * needs the continuation after its last element does not pay for the others.
+ * </p>
+ *
+ * <p>
+ * If the batch is the last one, it also carries the result without a next value that the equivalent
+ * {@link com.apple.foundationdb.record.RecordCursor} would have returned after its elements. A batch that is not the
+ * last one may be empty, such as when a filter rejected all of its elements.
+ * </p>
+ *
+ * @param <T> the type of elements of the batch
+ */
+@API(API.Status.EXPERIMENTAL)
+public final class RecordCursorBatch<T> {
+    private static final Object[] NO_VALUES = new Object[0];
+
+    // The arrays are never mutated once the batch is built, so they may be shared between batches.
+    @Nonnull
+    private final Object[] values;
+    // Either the continuations themselves or, with a continuation function, the elements to derive them from.
+    @Nonnull
+    private final Object[] continuations;
+    @Nullable
+    private final Function<Object, RecordCursorContinuation> continuationFunction;
+    private final int size;
+    @Nullable
+    private final RecordCursorResult<T> noNextResult;
+
+    private RecordCursorBatch(@Nonnull Object[] values, @Nonnull Object[] continuations,
+                              @Nullable Function<Object, RecordCursorContinuation> continuationFunction, int size,
+                              @Nullable RecordCursorResult<T> noNextResult) {
+        this.values = values;
+        this.continuations = continuations;
+        this.continuationFunction = continuationFunction;
+        this.size = size;
+        this.noNextResult = noNextResult;
+    }
+
+    /**
+     * Get the number of elements in the batch.
+     * @return the number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get an element of the batch.
+     * @param index the position of the element in the batch
+     * @return the element at the given position
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        checkIndex(index);
+        return (T)values[index];
+    }
+
+    /**
+     * Get the continuation that resumes the cursor after an element of the batch.
+     * @param index the position of the element in the batch
+     * @return the continuation after the element at the given position
+     */
+    @Nonnull
+    public RecordCursorContinuation getContinuation(int index) {
+        checkIndex(index);
+        if (continuationFunction == null) {
+            return (RecordCursorContinuation)continuations[index];
+        }
+        return continuationFunction.apply(continuations[index]);
+    }
+
+    /**
+     * Get an element of the batch as the result that a {@link com.apple.foundationdb.record.RecordCursor} would
+     * have returned for it.
+     * @param index the position of the element in the batch
+     * @return a result with the element at the given position and its continuation
+     */
+    @Nonnull
+    public RecordCursorResult<T> getResult(int index) {
+        return RecordCursorResult.withNextValue(get(index), getContinuation(index));
+    }
+
+    /**
+     * Get whether the cursor might return more batches after this one.
+     * @return {@code true} if this is not the last batch
+     */
+    public boolean hasNext() {
+        return noNextResult == null;
+    }
+
+    /**
+     * Get the result without a next value that ends the cursor after the elements of this batch.
+     * @return the final result of the cursor or {@code null} if this is not the last batch
+     */
+    @Nullable
+    public RecordCursorResult<T> getNoNextResult() {
+        return noNextResult;
+    }
+
+    /**
+     * Apply a function to each element of the batch. The continuations are unchanged.
+     * @param func the function to apply
+     * @param <V> the type of the elements after applying the function
+     * @return a new batch with the results of the function
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public <V> RecordCursorBatch<V> map(@Nonnull Function<? super T, ? extends V> func) {
+        final Object[] mapped = new Object[size];
+        for (int i = 0; i < size; i++) {
+            mapped[i] = func.apply((T)values[i]);
+        }
+        return new RecordCursorBatch<>(mapped, continuations, continuationFunction, size, mappedNoNextResult());
+    }
+
+    /**
+     * Keep only the elements of the batch that satisfy a predicate, along with their continuations.
+     * @param pred the predicate to test each element with; a {@code null} result rejects the element
+     * @return a batch with the elements for which the predicate returned {@code true}
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public RecordCursorBatch<T> filter(@Nonnull Function<? super T, Boolean> pred) {
+        Object[] kept = null;
+        Object[] keptContinuations = null;
+        int keptSize = 0;
+        for (int i = 0; i < size; i++) {
+            final boolean keep = Boolean.TRUE.equals(pred.apply((T)values[i]));
+            if (kept == null) {
+                if (keep) {
+                    keptSize++;
+                    continue;
+                }
+                // First rejected element: only copy the arrays once something is actually removed.
+                kept = new Object[size - 1];
+                keptContinuations = new Object[size - 1];
+                System.arraycopy(values, 0, kept, 0, keptSize);
+                System.arraycopy(continuations, 0, keptContinuations, 0, keptSize);
+            } else if (keep) {
+                kept[keptSize] = values[i];
+                keptContinuations[keptSize] = continuations[i];
+                keptSize++;
+            }
+        }
+        if (kept == null) {
+            return this;
+        }
+        return new RecordCursorBatch<>(kept, keptContinuations, continuationFunction, keptSize, noNextResult);
+    }
+
+    @Override
+    public String toString() {
+        return "RecordCursorBatch{size=" + size + ", values=" + Arrays.toString(Arrays.copyOf(values, size)) +
+               ", noNextResult=" + noNextResult + "}";
+    }
+
+    @Nullable
+    private <V> RecordCursorResult<V> mappedNoNextResult() {
+        return noNextResult == null ? null : RecordCursorResult.withoutNextValue(noNextResult);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new RecordCoreArgumentException("batch index out of range")
+                    .addLogInfo("index", index)
+                    .addLogInfo("size", size);
+        }
+    }
+
+    /**
+     * Get an empty batch.
+     * @param noNextResult the result that ends the cursor or {@code null} if more batches may follow
+     * @param <T> the type of elements of the batch
+     * @return a batch without any elements
+     */
+    @Nonnull
+    public static <T> RecordCursorBatch<T> empty(@Nullable RecordCursorResult<?> noNextResult) {
+        return new RecordCursorBatch<>(NO_VALUES, NO_VALUES, null, 0,
+                noNextResult == null ? null : RecordCursorResult.withoutNextValue(noNextResult));
+    }
+
+    /**
+     * Create a builder for a batch.
+     * @param expectedSize the number of elements that the batch is expected to have
+     * @param <T> the type of elements of the batch
+     * @return a new builder
+     */
+    @Nonnull
+    public static <T> Builder<T> newBuilder(int expectedSize) {
+        return new Builder<>(expectedSize, null);
+    }
+
+    /**
+     * Create a builder for a batch whose continuations are derived from its elements. Elements are then added with
+     * {@link Builder#add(Object)} and the function is only called for the continuations that are asked for.
+     * @param expectedSize the number of elements that the batch is expected to have
+     * @param continuationFunction a function returning the continuation that resumes the cursor after an element
+     * @param <T> the type of elements of the batch
+     * @return a new builder
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    public static <T> Builder<T> newBuilder(int expectedSize,
+                                            @Nonnull Function<? super T, ? extends RecordCursorContinuation> continuationFunction) {
+        return new Builder<>(expectedSize, (Function<Object, RecordCursorContinuation>)continuationFunction);
+    }
+
+    /**
+     * A builder for {@link RecordCursorBatch}.
+     * @param <T> the type of elements of the batch
+     */
+    public static final class Builder<T> {
+        @Nonnull
+        private Object[] values;
+        @Nonnull
+        private Object[] continuations;
+        @Nullable
+        private final Function<Object, RecordCursorContinuation> continuationFunction;
+        private int size;
+
+        private Builder(int expectedSize, @Nullable Function<Object, RecordCursorContinuation> continuationFunction) {
+            this.values = expectedSize > 0 ? new Object[expectedSize] : NO_VALUES;
+            // With a continuation function, the elements themselves are what the continuations are derived from.
+            this.continuations = continuationFunction != null || expectedSize <= 0 ? NO_VALUES : new Object[expectedSize];
+            this.continuationFunction = continuationFunction;
+        }
+
+        /**
+         * Add an element to the batch.
+         * @param value the element to add
+         * @param continuation the continuation that resumes the cursor after the element
+         * @return this builder
+         */
+        @Nonnull
+        public Builder<T> add(@Nullable T value, @Nonnull RecordCursorContinuation continuation) {
+            if (continuationFunction != null) {
+                throw new RecordCoreArgumentException("batch builder derives continuations from its elements");
+            }
+            if (size == values.length) {
+                final int newLength = Math.max(8, size * 2);
+                values = Arrays.copyOf(values, newLength);
+                continuations = Arrays.copyOf(continuations, newLength);
+            }
+            values[size] = value;
+            continuations[size] = continuation;
+            size++;
+            return this;
+        }
+
+        /**
+         * Add an element to a batch whose continuations are derived from its elements.
+         * @param value the element to add
+         * @return this builder
+         * @see RecordCursorBatch#newBuilder(int, Function)
+         */
+        @Nonnull
+        public Builder<T> add(@Nullable T value) {
+            if (continuationFunction == null) {
+                throw new RecordCoreArgumentException("batch builder needs a continuation for each element");
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(8, size * 2));
+            }
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        /**
+         * Add a result with a next value to the batch.
+         * @param result the result to add
+         * @return this builder
+         */
+        @Nonnull
+        public Builder<T> add(@Nonnull RecordCursorResult<T> result) {
+            return add(result.get(), result.getContinuation());
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Build a batch after which the cursor might return more.
+         * @return a new batch with the elements added so far
+         */
+        @Nonnull
+        public RecordCursorBatch<T> build() {
+            return build(null);
+        }
+
+        /**
+         * Build a batch, possibly the last.
+         * @param noNextResult the result that ends the cursor after this batch or {@code null} if more batches may follow
+         * @return a new batch with the elements added so far
+         */
+        @Nonnull
+        public RecordCursorBatch<T> build(@Nullable RecordCursorResult<?> noNextResult) {
+            if (noNextResult != null && noNextResult.hasNext()) {
+                throw new RecordCoreArgumentException("final result of batch must not have a next value");
+            }
+            final RecordCursorBatch<T> batch = new RecordCursorBatch<>(values,
+                    continuationFunction == null ? continuations : values, continuationFunction, size,
+                    noNextResult == null ? null : RecordCursorResult.withoutNextValue(noNextResult));
+            // The built batch owns the arrays now.
+            values = NO_VALUES;
+            continuations = NO_VALUES;
+            size = 0;
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * UnbatchingCursor.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.apple.foundationdb.record.cursors.batch;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordCursorVisitor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A record cursor that returns the elements of a {@link BatchCursor} one at a time.
+ * @param <T> the type of elements of the cursor
+ * @see BatchCursor#asRecordCursor()
+ */
+@API(API.Status.EXPERIMENTAL)
+public class UnbatchingCursor<T> implements RecordCursor<T> {
+    @Nonnull
+    private final BatchCursor<T> inner;
+    @Nullable
+    private RecordCursorBatch<T> currentBatch;
+    private int position;
+    @Nullable
+    private RecordCursorResult<T> nextResult;
+
+    public UnbatchingCursor(@Nonnull BatchCursor<T> inner) {
+        this.inner = inner;
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<RecordCursorResult<T>> onNext() {
+        if (nextResult != null && !nextResult.hasNext()) {
+            return CompletableFuture.completedFuture(nextResult);
+        }
+        if (advanceInCurrentBatch()) {
+            return CompletableFuture.completedFuture(nextResult);
+        }
+        return AsyncUtil.whileTrue(() -> inner.onNextBatch().thenApply(batch -> {
+            currentBatch = batch;
+            position = 0;
+            return !advanceInCurrentBatch();
+        }), getExecutor()).thenApply(vignore -> nextResult);
+    }
+
+    private boolean advanceInCurrentBatch() {
+        if (currentBatch == null) {
+            return false;
+        }
+        if (position < currentBatch.size()) {
+            nextResult = currentBatch.getResult(position++);
+            return true;
+        }
+        if (!currentBatch.hasNext()) {
+            nextResult = currentBatch.getNoNextResult();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        inner.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return inner.isClosed();
+    }
+
+    @Nonnull
+    @Override
+    public Executor getExecutor() {
+        return inner.getExecutor();
+    }
+
+    @Override
+    public boolean accept(@Nonnull RecordCursorVisitor visitor) {
+        if (visitor.visitEnter(this)) {
+            inner.accept(visitor);
+        }
+        return visitor.visitLeave(this);
+    }
+}
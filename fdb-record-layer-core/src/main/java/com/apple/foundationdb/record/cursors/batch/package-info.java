@@ -0,0 +1,36 @@
+/*
+ * package-info.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/**
+ * Cursors that pass records between operators a batch at a time.
+ *
+ * <p>
+ * A {@link com.apple.foundationdb.record.RecordCursor} produces one {@link com.apple.foundationdb.record.RecordCursorResult}
+ * per element, each behind its own future. For scans that return many small rows, such as covering index scans, that
+ * overhead can dominate the cost of the query. A {@link com.apple.foundationdb.record.cursors.batch.BatchCursor}
+ * instead completes one future per {@link com.apple.foundationdb.record.cursors.batch.RecordCursorBatch}, which holds
+ * as many elements as were available without waiting. Batch cursors can be built from any record cursor with
+ * {@link com.apple.foundationdb.record.RecordCursor#asBatchCursor(int)} and turned back into one with
+ * {@link com.apple.foundationdb.record.cursors.batch.BatchCursor#asRecordCursor()}, so that a pipeline can be
+ * vectorized one step at a time.
+ * </p>
+ */
+package com.apple.foundationdb.record.cursors.batch;
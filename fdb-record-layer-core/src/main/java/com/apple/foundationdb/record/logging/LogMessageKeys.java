@@ -160,6 +160,9 @@ public enum LogMessageKeys {
     NEW_STORE,
     RECORDS_WHILE_BUILDING,
     RECORDS_PER_SECOND,
+    OLD_RECORDS_PER_SECOND,
+    TARGET_LATENCY_MILLIS,
+    OBSERVED_LATENCY_MILLIS,
     DOCUMENT,
     SESSION_ID,
     INDEXER_SESSION_ID,
@@ -247,6 +250,7 @@ public enum LogMessageKeys {
     RANGE_END,
     RANGE_ID,
     RANGE_RESET,
+    INCREMENTAL,
     // meta-data evolution
     FIELD_NAME,
     OLD_FIELD_NAME,
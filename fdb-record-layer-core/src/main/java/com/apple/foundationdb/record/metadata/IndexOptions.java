@@ -21,6 +21,8 @@
 package com.apple.foundationdb.record.metadata;
 
 import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.hnsw.HNSW;
+import com.apple.foundationdb.async.hnsw.Metric;
 import com.apple.foundationdb.async.rtree.RTree;
 import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainer;
 
@@ -137,6 +139,15 @@ public class IndexOptions {
      * It will only be possible to determine that an indexed field contains the token someplace.
      */
     public static final String TEXT_OMIT_POSITIONS_OPTION = "textOmitPositions";
+    /**
+     * If {@code "true"}, a {@link IndexTypes#TEXT} index will also maintain the document counts, document lengths and
+     * token frequencies needed to score documents with BM25 in a
+     * {@link com.apple.foundationdb.record.IndexScanType#BY_TEXT_SCORE} scan.
+     *
+     * If {@link #TEXT_OMIT_POSITIONS_OPTION} is also set, each token counts once per document when scoring.
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final String TEXT_SCORE_STATISTICS_OPTION = "textScoreStatistics";
 
     /**
      * The number of levels in the {@link IndexTypes#RANK} skip list {@link com.apple.foundationdb.async.RankedSet}.
@@ -159,6 +170,17 @@ public class IndexOptions {
      */
     public static final String RANK_COUNT_DUPLICATES = "rankCountDuplicates";
 
+    /**
+     * Whether the {@link IndexTypes#RANK} skip list {@link com.apple.foundationdb.async.RankedSet} records a version
+     * with each change, so that lookups can take its coarser levels from the
+     * {@linkplain com.apple.foundationdb.record.provider.foundationdb.FDBDatabase#getRankedSetUpperLevelCache database's cache}.
+     *
+     * Reading the version makes a rank lookup conflict with any concurrent change to the same ranked set.
+     * The default is {@code false}.
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final String RANK_CACHE_UPPER_LEVELS = "rankCacheUpperLevels";
+
     /**
      * Size of each position bitmap for {@link IndexTypes#BITMAP_VALUE} indexes.
      *
@@ -166,6 +188,25 @@ public class IndexOptions {
      */
     public static final String BITMAP_VALUE_ENTRY_SIZE_OPTION = "bitmapValueEntrySize";
 
+    /**
+     * Whether to store each position bitmap for {@link IndexTypes#BITMAP_VALUE} indexes in a compressed container
+     * format, chosen per entry from sorted positions, runs of positions or the uncompressed bitmap.
+     *
+     * Compressed entries cannot be updated with atomic mutations, so concurrent updates to the same entry conflict.
+     * The default is {@code false}.
+     */
+    public static final String BITMAP_VALUE_COMPRESSED_OPTION = "bitmapValueCompressed";
+
+    /**
+     * The precision of the HyperLogLog sketches of {@link IndexTypes#APPROXIMATE_COUNT_DISTINCT} indexes, that is,
+     * the base-two log of the number of registers in each sketch.
+     *
+     * The relative standard error of an estimate is about {@code 1.04 / sqrt(2^precision)}.
+     * Must be between {@code 4} and {@code 16}. The default is {@code 12}.
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static final String HLL_PRECISION_OPTION = "hllPrecision";
+
     /**
      * Whether to remove index entry for {@link IndexTypes#COUNT} type indexes when they decrement to zero.
      *
@@ -223,6 +264,43 @@ public class IndexOptions {
      */
     public static final String RTREE_USE_NODE_SLOT_INDEX = "rtreeUseNodeSlotIndex";
 
+    /**
+     * The number of neighbors each vector is connected to in each layer of the HNSW graph of a vector index.
+     * See {@link HNSW#DEFAULT_M} for the default. Larger values improve recall at the cost of more storage and
+     * slower updates.
+     */
+    public static final String HNSW_M = "hnswM";
+
+    /**
+     * The number of candidate neighbors considered when inserting into the HNSW graph of a vector index.
+     * See {@link HNSW#DEFAULT_EF_CONSTRUCTION} for the default.
+     */
+    public static final String HNSW_EF_CONSTRUCTION = "hnswEfConstruction";
+
+    /**
+     * The distance metric used by a vector index. Available options are the names of the values of {@link Metric},
+     * with {@link Metric#EUCLIDEAN_METRIC} used if unspecified.
+     */
+    public static final String HNSW_METRIC = "hnswMetric";
+
+    /**
+     * The storage format of the HNSW graph of a vector index. Available options are {@code FULL}
+     * (see {@link HNSW.Storage#FULL}) and {@code SCALAR_QUANTIZED} (see {@link HNSW.Storage#SCALAR_QUANTIZED}),
+     * which reads far fewer bytes per search and re-ranks the final candidates using the exact vectors.
+     */
+    public static final String HNSW_STORAGE = "hnswStorage";
+
+    /**
+     * If {@code "true"}, the maintenance of a {@link IndexTypes#VALUE} index logs the index entries it writes and the
+     * records it writes them for, so that an incremental
+     * {@link com.apple.foundationdb.record.provider.foundationdb.OnlineIndexScrubber} only needs to re-verify those
+     * after its first full scrubbing. The log is written with versionstamped keys, without any reads, and is only
+     * written while the index is readable.
+     *
+     * @see com.apple.foundationdb.record.provider.foundationdb.OnlineIndexScrubber.ScrubbingPolicy.Builder#setIncremental
+     */
+    public static final String INCREMENTAL_SCRUB_OPTION = "incrementalScrub";
+
     private IndexOptions() {
     }
 }
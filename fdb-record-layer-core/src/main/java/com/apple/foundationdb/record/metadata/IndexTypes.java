@@ -149,6 +149,12 @@ public class IndexTypes {
      */
     public static final String BITMAP_VALUE = "bitmap_value";
 
+    /**
+     * An estimate of the number of distinct values of the grouped field(s), kept as a HyperLogLog sketch per group.
+     * @see com.apple.foundationdb.record.provider.foundationdb.indexes.ApproximateCountDistinctIndexMaintainer
+     */
+    public static final String APPROXIMATE_COUNT_DISTINCT = FunctionNames.APPROXIMATE_COUNT_DISTINCT;
+
     /**
      * An index remembering minimum values in a way that can enumerate minima ordered by value and not (part of the) group.
      */
@@ -164,6 +170,12 @@ public class IndexTypes {
      */
     public static final String MULTIDIMENSIONAL = "multidimensional";
 
+    /**
+     * An index of vectors that supports approximate nearest neighbor searches using a hierarchical navigable small
+     * world (HNSW) graph.
+     */
+    public static final String VECTOR = "vector";
+
     private IndexTypes() {
     }
 }
@@ -0,0 +1,176 @@
+/*
+ * CompressionDictionaryTrainer.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.common;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trains a preset dictionary for Deflate compression by {@link TransformedRecordSerializer} from a sample of
+ * serialized records.
+ *
+ * <p>
+ * The dictionary is assembled from segments of the samples, chosen in the style of the COVER algorithm. Each
+ * 8-byte substring is scored by the number of samples it occurs in, and a segment is scored by the sum of the
+ * scores of the substrings it contains. The samples are split into as many epochs as there are segments in the
+ * dictionary, the best scoring segment of each epoch is selected, and the substrings of a selected segment no
+ * longer count towards the score of other segments, so the dictionary does not hold the same content twice.
+ * Deflate encodes nearby matches more cheaply, so the best segments are put at the end of the dictionary.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public final class CompressionDictionaryTrainer {
+    /**
+     * The maximum useful size of a dictionary, which is the size of the Deflate window.
+     */
+    public static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+    /**
+     * The default size of trained dictionaries.
+     */
+    public static final int DEFAULT_DICTIONARY_SIZE = 16 * 1024;
+    private static final int KGRAM_LENGTH = Long.BYTES;
+    private static final int SEGMENT_SIZE = 64;
+
+    private CompressionDictionaryTrainer() {
+    }
+
+    /**
+     * Train a dictionary from the given samples.
+     * @param samples serialized records, as produced by the serializer wrapped by {@link TransformedRecordSerializer}
+     * @param dictionarySize the maximum size of the dictionary
+     * @return the dictionary, which is empty if the samples have no content in common
+     */
+    @Nonnull
+    public static byte[] train(@Nonnull List<byte[]> samples, int dictionarySize) {
+        if (dictionarySize <= 0 || dictionarySize > MAX_DICTIONARY_SIZE) {
+            throw new RecordCoreArgumentException("dictionary size out of range")
+                    .addLogInfo("dictionarySize", dictionarySize);
+        }
+        final Map<Long, Integer> scores = countSamplesContaining(samples);
+        // Content that only occurs in a single sample is not worth having in the dictionary.
+        scores.values().removeIf(count -> count < 2);
+
+        final int epochCount = Math.max(1, Math.min(samples.size(), dictionarySize / SEGMENT_SIZE));
+        final List<Segment> selected = new ArrayList<>();
+        int size = 0;
+        boolean progress = true;
+        while (size < dictionarySize && progress && !scores.isEmpty()) {
+            progress = false;
+            for (int epoch = 0; epoch < epochCount && size < dictionarySize; epoch++) {
+                Segment best = null;
+                for (int i = epoch; i < samples.size(); i += epochCount) {
+                    best = bestSegment(samples.get(i), scores, best);
+                }
+                if (best != null) {
+                    selected.add(best);
+                    size += best.length;
+                    for (int j = best.offset; j + KGRAM_LENGTH <= best.offset + best.length; j++) {
+                        scores.remove(kgram(best.sample, j));
+                    }
+                    progress = true;
+                }
+            }
+        }
+
+        selected.sort(Comparator.comparingLong(segment -> segment.score));
+        final ByteArrayOutputStream dictionary = new ByteArrayOutputStream(size);
+        for (Segment segment : selected) {
+            dictionary.write(segment.sample, segment.offset, segment.length);
+        }
+        final byte[] bytes = dictionary.toByteArray();
+        if (bytes.length <= dictionarySize) {
+            return bytes;
+        }
+        // Drop the least valuable segments, which are at the start.
+        final byte[] truncated = new byte[dictionarySize];
+        System.arraycopy(bytes, bytes.length - dictionarySize, truncated, 0, dictionarySize);
+        return truncated;
+    }
+
+    @Nonnull
+    private static Map<Long, Integer> countSamplesContaining(@Nonnull List<byte[]> samples) {
+        final Map<Long, Integer> counts = new HashMap<>();
+        final Set<Long> seen = new HashSet<>();
+        for (byte[] sample : samples) {
+            seen.clear();
+            for (int i = 0; i + KGRAM_LENGTH <= sample.length; i++) {
+                final long kgram = kgram(sample, i);
+                if (seen.add(kgram)) {
+                    counts.merge(kgram, 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static Segment bestSegment(@Nonnull byte[] sample, @Nonnull Map<Long, Integer> scores, Segment best) {
+        final int segmentLength = Math.min(SEGMENT_SIZE, sample.length);
+        if (segmentLength < KGRAM_LENGTH) {
+            return best;
+        }
+        // Slide a window of segmentLength over the sample, keeping the sum of the scores of the k-grams in it.
+        final int kgramsPerSegment = segmentLength - KGRAM_LENGTH + 1;
+        long score = 0;
+        for (int i = 0; i + KGRAM_LENGTH <= sample.length; i++) {
+            score += scores.getOrDefault(kgram(sample, i), 0);
+            if (i >= kgramsPerSegment) {
+                score -= scores.getOrDefault(kgram(sample, i - kgramsPerSegment), 0);
+            }
+            if (i >= kgramsPerSegment - 1 && score > 0 && (best == null || score > best.score)) {
+                best = new Segment(sample, i - kgramsPerSegment + 1, segmentLength, score);
+            }
+        }
+        return best;
+    }
+
+    private static long kgram(@Nonnull byte[] buf, int offset) {
+        long kgram = 0;
+        for (int i = 0; i < KGRAM_LENGTH; i++) {
+            kgram = (kgram << 8) | (buf[offset + i] & 0xFF);
+        }
+        return kgram;
+    }
+
+    private static final class Segment {
+        @Nonnull
+        private final byte[] sample;
+        private final int offset;
+        private final int length;
+        private final long score;
+
+        private Segment(@Nonnull byte[] sample, int offset, int length, long score) {
+            this.sample = sample;
+            this.offset = offset;
+            this.length = length;
+            this.score = score;
+        }
+    }
+}
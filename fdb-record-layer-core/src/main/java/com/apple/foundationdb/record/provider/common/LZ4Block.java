@@ -0,0 +1,236 @@
+/*
+ * LZ4Block.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.common;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+
+/**
+ * A self-contained implementation of the <a href="https://github.com/lz4/lz4/blob/dev/doc/lz4_Block_format.md">LZ4
+ * block format</a>, used by {@link TransformedRecordSerializer} for {@link TransformedRecordSerializer.CompressionAlgorithm#LZ4}.
+ * The compressor is the simple greedy one with a single hash table probe per position, which trades some compression
+ * ratio for speed. The block format has no checksum, so unlike Deflate, corruption of the compressed data is
+ * not necessarily detected.
+ */
+final class LZ4Block {
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_DISTANCE = 0xFFFF;
+    private static final int HASH_LOG = 12;
+    private static final int RUN_MASK = 0x0F;
+    private static final int ML_MASK = 0x0F;
+    private static final int ML_BITS = 4;
+
+    private LZ4Block() {
+    }
+
+    /**
+     * Compress <code>srcLength</code> bytes of <code>src</code> starting at <code>srcOffset</code> into
+     * <code>dest</code>.
+     * @param src the data to compress
+     * @param srcOffset offset of the data in <code>src</code>
+     * @param srcLength length of the data
+     * @param dest buffer to compress into
+     * @param destOffset offset in <code>dest</code> at which to start writing
+     * @param destLength maximum number of bytes to write to <code>dest</code>
+     * @return the number of bytes written, or <code>-1</code> if the compressed data would not fit
+     */
+    static int compress(@Nonnull byte[] src, int srcOffset, int srcLength,
+                        @Nonnull byte[] dest, int destOffset, int destLength) {
+        final int srcEnd = srcOffset + srcLength;
+        final int destEnd = destOffset + destLength;
+        final int matchLimit = srcEnd - LAST_LITERALS;
+        final int mfLimit = srcEnd - MF_LIMIT;
+        int sOff = srcOffset;
+        int anchor = srcOffset;
+        int dOff = destOffset;
+        if (srcLength > MF_LIMIT) {
+            final int[] hashTable = new int[1 << HASH_LOG];
+            Arrays.fill(hashTable, -1);
+            while (sOff < mfLimit) {
+                final int sequence = readInt(src, sOff);
+                final int h = hash(sequence);
+                int ref = hashTable[h];
+                hashTable[h] = sOff;
+                if (ref < 0 || sOff - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+                    sOff++;
+                    continue;
+                }
+                // Extend the match backwards into the pending literals, then forwards.
+                while (sOff > anchor && ref > srcOffset && src[sOff - 1] == src[ref - 1]) {
+                    sOff--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (sOff + matchLength < matchLimit && src[ref + matchLength] == src[sOff + matchLength]) {
+                    matchLength++;
+                }
+                dOff = writeSequence(src, anchor, sOff - anchor, sOff - ref, matchLength, dest, dOff, destEnd);
+                if (dOff < 0) {
+                    return -1;
+                }
+                sOff += matchLength;
+                anchor = sOff;
+            }
+        }
+        dOff = writeLastLiterals(src, anchor, srcEnd - anchor, dest, dOff, destEnd);
+        return dOff < 0 ? -1 : dOff - destOffset;
+    }
+
+    /**
+     * Decompress an LZ4 block into <code>dest</code>.
+     * @param src the compressed data
+     * @param srcOffset offset of the compressed data in <code>src</code>
+     * @param srcLength length of the compressed data
+     * @param dest buffer to decompress into, starting at offset zero
+     * @return the number of bytes written to <code>dest</code>
+     * @throws DataFormatException if the compressed data are malformed or do not fit into <code>dest</code>
+     */
+    static int decompress(@Nonnull byte[] src, int srcOffset, int srcLength, @Nonnull byte[] dest) throws DataFormatException {
+        final int srcEnd = srcOffset + srcLength;
+        int sOff = srcOffset;
+        int dOff = 0;
+        while (sOff < srcEnd) {
+            final int token = src[sOff++] & 0xFF;
+            int literalLength = token >>> ML_BITS;
+            if (literalLength == RUN_MASK) {
+                int b;
+                do {
+                    if (sOff >= srcEnd) {
+                        throw new DataFormatException("truncated literal length");
+                    }
+                    b = src[sOff++] & 0xFF;
+                    literalLength += b;
+                } while (b == 0xFF);
+            }
+            if (literalLength > srcEnd - sOff || literalLength > dest.length - dOff) {
+                throw new DataFormatException("literals out of bounds");
+            }
+            System.arraycopy(src, sOff, dest, dOff, literalLength);
+            sOff += literalLength;
+            dOff += literalLength;
+            if (sOff == srcEnd) {
+                // The last sequence only has literals.
+                break;
+            }
+            if (srcEnd - sOff < 2) {
+                throw new DataFormatException("truncated match offset");
+            }
+            final int offset = (src[sOff] & 0xFF) | ((src[sOff + 1] & 0xFF) << 8);
+            sOff += 2;
+            if (offset == 0 || offset > dOff) {
+                throw new DataFormatException("match offset out of bounds");
+            }
+            int matchLength = token & ML_MASK;
+            if (matchLength == ML_MASK) {
+                int b;
+                do {
+                    if (sOff >= srcEnd) {
+                        throw new DataFormatException("truncated match length");
+                    }
+                    b = src[sOff++] & 0xFF;
+                    matchLength += b;
+                } while (b == 0xFF);
+            }
+            matchLength += MIN_MATCH;
+            if (matchLength > dest.length - dOff) {
+                throw new DataFormatException("match out of bounds");
+            }
+            // Matches may overlap the bytes they produce, so copy one byte at a time.
+            int ref = dOff - offset;
+            for (int i = 0; i < matchLength; i++) {
+                dest[dOff++] = dest[ref++];
+            }
+        }
+        return dOff;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (Integer.SIZE - HASH_LOG);
+    }
+
+    private static int readInt(@Nonnull byte[] buf, int offset) {
+        return (buf[offset] & 0xFF)
+                | ((buf[offset + 1] & 0xFF) << 8)
+                | ((buf[offset + 2] & 0xFF) << 16)
+                | ((buf[offset + 3] & 0xFF) << 24);
+    }
+
+    private static int lengthBytes(int length, int mask) {
+        return length < mask ? 0 : (length - mask) / 0xFF + 1;
+    }
+
+    private static int writeLength(int length, @Nonnull byte[] dest, int dOff) {
+        while (length >= 0xFF) {
+            dest[dOff++] = (byte) 0xFF;
+            length -= 0xFF;
+        }
+        dest[dOff++] = (byte) length;
+        return dOff;
+    }
+
+    private static int writeSequence(@Nonnull byte[] src, int literalOffset, int literalLength, int matchOffset, int matchLength,
+                                     @Nonnull byte[] dest, int dOff, int destEnd) {
+        final int extraMatchLength = matchLength - MIN_MATCH;
+        final int required = 1 + lengthBytes(literalLength, RUN_MASK) + literalLength + 2 + lengthBytes(extraMatchLength, ML_MASK);
+        if (required > destEnd - dOff) {
+            return -1;
+        }
+        final int tokenOffset = dOff++;
+        int token;
+        if (literalLength >= RUN_MASK) {
+            token = RUN_MASK << ML_BITS;
+            dOff = writeLength(literalLength - RUN_MASK, dest, dOff);
+        } else {
+            token = literalLength << ML_BITS;
+        }
+        System.arraycopy(src, literalOffset, dest, dOff, literalLength);
+        dOff += literalLength;
+        dest[dOff++] = (byte) matchOffset;
+        dest[dOff++] = (byte) (matchOffset >>> 8);
+        if (extraMatchLength >= ML_MASK) {
+            token |= ML_MASK;
+            dOff = writeLength(extraMatchLength - ML_MASK, dest, dOff);
+        } else {
+            token |= extraMatchLength;
+        }
+        dest[tokenOffset] = (byte) token;
+        return dOff;
+    }
+
+    private static int writeLastLiterals(@Nonnull byte[] src, int literalOffset, int literalLength,
+                                         @Nonnull byte[] dest, int dOff, int destEnd) {
+        final int required = 1 + lengthBytes(literalLength, RUN_MASK) + literalLength;
+        if (required > destEnd - dOff) {
+            return -1;
+        }
+        if (literalLength >= RUN_MASK) {
+            dest[dOff++] = (byte) (RUN_MASK << ML_BITS);
+            dOff = writeLength(literalLength - RUN_MASK, dest, dOff);
+        } else {
+            dest[dOff++] = (byte) (literalLength << ML_BITS);
+        }
+        System.arraycopy(src, literalOffset, dest, dOff, literalLength);
+        return dOff + literalLength;
+    }
+}
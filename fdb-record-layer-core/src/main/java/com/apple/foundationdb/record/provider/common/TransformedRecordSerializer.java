@@ -37,7 +37,11 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.security.GeneralSecurityException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.Adler32;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
@@ -60,6 +64,15 @@ import java.util.zip.Inflater;
  * </p>
  *
  * <p>
+ * Compressed data begin with a compression version identifying the {@link CompressionAlgorithm}, so a serializer
+ * can read records compressed with any algorithm regardless of the one it is configured to write with. Deflate
+ * compression can additionally use a preset dictionary per record type, which helps most with small records
+ * that share a lot of content, such as field names and common values. Deflate streams identify their
+ * dictionary by its Adler-32 checksum, so a dictionary must remain registered with the serializer for as long
+ * as there are records compressed with it.
+ * </p>
+ *
+ * <p>
  * This base class does not itself support encryption: an exception will be thrown
  * when trying to construct a serializer with encryption enabled or when encountering
  * a serialized record that requires decryption. Subclasses, such as {@link TransformedRecordSerializerJCE},
@@ -89,12 +102,51 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
     protected static final int ENCODING_PROTO_TYPE_MASK = 0x07;
     protected static final int DEFAULT_COMPRESSION_LEVEL = Deflater.BEST_COMPRESSION;
     protected static final int MIN_COMPRESSION_VERSION = 1;
-    protected static final int MAX_COMPRESSION_VERSION = 1;
+    protected static final int MAX_COMPRESSION_VERSION = 2;
+
+    /**
+     * The algorithm used to compress records. The algorithm is recorded as the compression version at the start of
+     * the compressed data.
+     */
+    public enum CompressionAlgorithm {
+        /**
+         * Compress using {@link Deflater} at the configured compression level, optionally with a preset dictionary.
+         * This is the default and the only algorithm understood by older versions of this class.
+         */
+        DEFLATE(1),
+        /**
+         * Compress using the LZ4 block format. LZ4 compresses less well than Deflate, but is several times
+         * faster both to compress and to decompress. The compression level and dictionaries are ignored.
+         */
+        LZ4(2);
+
+        private final int compressionVersion;
+
+        CompressionAlgorithm(int compressionVersion) {
+            this.compressionVersion = compressionVersion;
+        }
+
+        public int getCompressionVersion() {
+            return compressionVersion;
+        }
+    }
 
     @Nonnull
     protected final RecordSerializer<M> inner;
     protected final boolean compressWhenSerializing;
     protected final int compressionLevel;
+    @Nonnull
+    protected final CompressionAlgorithm compressionAlgorithm;
+    /**
+     * Deflate dictionaries to compress records with, by record type name.
+     */
+    @Nonnull
+    protected final Map<String, byte[]> compressionDictionaries;
+    /**
+     * Deflate dictionaries that records may have been compressed with, by Adler-32 checksum.
+     */
+    @Nonnull
+    protected final Map<Integer, byte[]> decompressionDictionaries;
     protected final boolean encryptWhenSerializing;
     protected final double writeValidationRatio;
 
@@ -103,9 +155,24 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
                                           int compressionLevel,
                                           boolean encryptWhenSerializing,
                                           double writeValidationRatio) {
+        this(inner, compressWhenSerializing, compressionLevel, CompressionAlgorithm.DEFLATE,
+                Collections.emptyMap(), Collections.emptyMap(), encryptWhenSerializing, writeValidationRatio);
+    }
+
+    protected TransformedRecordSerializer(@Nonnull RecordSerializer<M> inner,
+                                          boolean compressWhenSerializing,
+                                          int compressionLevel,
+                                          @Nonnull CompressionAlgorithm compressionAlgorithm,
+                                          @Nonnull Map<String, byte[]> compressionDictionaries,
+                                          @Nonnull Map<Integer, byte[]> decompressionDictionaries,
+                                          boolean encryptWhenSerializing,
+                                          double writeValidationRatio) {
         this.inner = inner;
         this.compressWhenSerializing = compressWhenSerializing;
         this.compressionLevel = compressionLevel;
+        this.compressionAlgorithm = compressionAlgorithm;
+        this.compressionDictionaries = compressionDictionaries;
+        this.decompressionDictionaries = decompressionDictionaries;
         this.encryptWhenSerializing = encryptWhenSerializing;
         this.writeValidationRatio = writeValidationRatio;
     }
@@ -157,6 +224,16 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
     }
 
     protected void compress(@Nonnull TransformState state, @Nullable StoreTimer timer) {
+        compress(state, null, timer);
+    }
+
+    /**
+     * Compress the data in <code>state</code> with the configured {@link CompressionAlgorithm}.
+     * @param state the data to compress
+     * @param dictionary a preset dictionary to use if compressing with Deflate
+     * @param timer timer to record compression metrics with
+     */
+    protected void compress(@Nonnull TransformState state, @Nullable byte[] dictionary, @Nullable StoreTimer timer) {
         long startTime = System.nanoTime();
 
         increment(timer, Counts.RECORD_BYTES_BEFORE_COMPRESSION, state.length);
@@ -170,22 +247,19 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
             // Actually compress. If we end up filling the buffer, then just
             // return the uncompressed value because it's pointless to compress
             // if we actually increase the amount of data.
-            Deflater compressor = new Deflater(compressionLevel);
             int compressedLength;
-            try {
-                compressor.setInput(state.data, state.offset, state.length);
-                compressor.finish(); // necessary to include checksum
-                compressedLength = compressor.deflate(compressed, 5, compressed.length - 5, Deflater.FULL_FLUSH);
-            } finally {
-                compressor.end();
+            if (compressionAlgorithm == CompressionAlgorithm.LZ4) {
+                compressedLength = LZ4Block.compress(state.data, state.offset, state.length, compressed, 5, compressed.length - 5);
+            } else {
+                compressedLength = deflate(state, dictionary, compressed);
             }
-            if (compressedLength == compressed.length - 5) {
+            if (compressedLength < 0) {
                 increment(timer, Counts.RECORD_BYTES_AFTER_COMPRESSION, state.length);
                 state.compressed = false;
             } else {
                 // Write compression version number and uncompressed size as these
                 // meta-data are needed when decompressing.
-                compressed[0] = (byte)MAX_COMPRESSION_VERSION;
+                compressed[0] = (byte)compressionAlgorithm.getCompressionVersion();
                 ByteBuffer.wrap(compressed, 1, 4).order(ByteOrder.BIG_ENDIAN).putInt(state.length);
                 state.compressed = true;
                 increment(timer, Counts.RECORD_BYTES_AFTER_COMPRESSION, compressedLength + 5);
@@ -203,6 +277,22 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
         }
     }
 
+    private int deflate(@Nonnull TransformState state, @Nullable byte[] dictionary, @Nonnull byte[] compressed) {
+        Deflater compressor = new Deflater(compressionLevel);
+        int compressedLength;
+        try {
+            if (dictionary != null) {
+                compressor.setDictionary(dictionary);
+            }
+            compressor.setInput(state.data, state.offset, state.length);
+            compressor.finish(); // necessary to include checksum
+            compressedLength = compressor.deflate(compressed, 5, compressed.length - 5, Deflater.FULL_FLUSH);
+        } finally {
+            compressor.end();
+        }
+        return compressedLength == compressed.length - 5 ? -1 : compressedLength;
+    }
+
     private void increment(@Nullable StoreTimer timer, StoreTimer.Count counter, int amount) {
         if (timer != null) {
             timer.increment(counter, amount);
@@ -228,7 +318,7 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
         TransformState state = new TransformState(innerSerialized);
 
         if (compressWhenSerializing) {
-            compress(state, timer);
+            compress(state, compressionDictionaries.get(recordType.getName()), timer);
         }
 
         if (encryptWhenSerializing) {
@@ -269,10 +359,6 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
     protected void decompress(@Nonnull TransformState state, @Nullable StoreTimer timer) throws DataFormatException {
         final long startTime = System.nanoTime();
 
-        // At the moment, there is only one compression version, so
-        // we after we've verified it is in the right range, we
-        // can just move on. If we ever introduce a new format version,
-        // we will need to make this code more complicated.
         int compressionVersion = state.data[state.offset];
         if (compressionVersion < MIN_COMPRESSION_VERSION || compressionVersion > MAX_COMPRESSION_VERSION) {
             throw new RecordSerializationException("unknown compression version")
@@ -282,20 +368,15 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
         int decompressedLength = ByteBuffer.wrap(state.data, state.offset + 1, 4).order(ByteOrder.BIG_ENDIAN).getInt();
         byte[] decompressed = new byte[decompressedLength];
 
-        Inflater decompressor = new Inflater();
-        try {
-            decompressor.setInput(state.data, state.offset + 5, state.length - 5);
-            int actualDecompressedSize = decompressor.inflate(decompressed);
+        if (compressionVersion == CompressionAlgorithm.LZ4.getCompressionVersion()) {
+            int actualDecompressedSize = LZ4Block.decompress(state.data, state.offset + 5, state.length - 5, decompressed);
             if (actualDecompressedSize < decompressedLength) {
                 throw new RecordSerializationException("decompressed record too small")
                         .addLogInfo(LogMessageKeys.EXPECTED, decompressedLength)
                         .addLogInfo(LogMessageKeys.ACTUAL, actualDecompressedSize);
-            } else if (decompressor.getRemaining() > 0) {
-                throw new RecordSerializationException("decompressed record too large")
-                        .addLogInfo(LogMessageKeys.EXPECTED, decompressedLength);
             }
-        } finally {
-            decompressor.end();
+        } else {
+            inflate(state, decompressed);
         }
 
         state.setDataArray(decompressed);
@@ -305,6 +386,33 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
         }
     }
 
+    private void inflate(@Nonnull TransformState state, @Nonnull byte[] decompressed) throws DataFormatException {
+        Inflater decompressor = new Inflater();
+        try {
+            decompressor.setInput(state.data, state.offset + 5, state.length - 5);
+            int actualDecompressedSize = decompressor.inflate(decompressed);
+            if (decompressor.needsDictionary()) {
+                final byte[] dictionary = decompressionDictionaries.get(decompressor.getAdler());
+                if (dictionary == null) {
+                    throw new RecordSerializationException("missing compression dictionary")
+                            .addLogInfo("dictionaryChecksum", decompressor.getAdler());
+                }
+                decompressor.setDictionary(dictionary);
+                actualDecompressedSize = decompressor.inflate(decompressed);
+            }
+            if (actualDecompressedSize < decompressed.length) {
+                throw new RecordSerializationException("decompressed record too small")
+                        .addLogInfo(LogMessageKeys.EXPECTED, decompressed.length)
+                        .addLogInfo(LogMessageKeys.ACTUAL, actualDecompressedSize);
+            } else if (decompressor.getRemaining() > 0) {
+                throw new RecordSerializationException("decompressed record too large")
+                        .addLogInfo(LogMessageKeys.EXPECTED, decompressed.length);
+            }
+        } finally {
+            decompressor.end();
+        }
+    }
+
     protected void decrypt(@Nonnull TransformState state, @Nullable StoreTimer timer) throws GeneralSecurityException {
         throw new RecordSerializationException("this serializer cannot decrypt");
     }
@@ -367,7 +475,8 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
     @Nonnull
     @Override
     public RecordSerializer<Message> widen() {
-        return new TransformedRecordSerializer<>(inner.widen(), compressWhenSerializing, compressionLevel, encryptWhenSerializing, writeValidationRatio);
+        return new TransformedRecordSerializer<>(inner.widen(), compressWhenSerializing, compressionLevel, compressionAlgorithm,
+                compressionDictionaries, decompressionDictionaries, encryptWhenSerializing, writeValidationRatio);
     }
 
     @Nonnull
@@ -416,6 +525,12 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
         protected final RecordSerializer<M> inner;
         protected boolean compressWhenSerializing;
         protected int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+        @Nonnull
+        protected CompressionAlgorithm compressionAlgorithm = CompressionAlgorithm.DEFLATE;
+        @Nonnull
+        protected final Map<String, byte[]> compressionDictionaries = new HashMap<>();
+        @Nonnull
+        protected final Map<Integer, byte[]> decompressionDictionaries = new HashMap<>();
         protected boolean encryptWhenSerializing;
         protected double writeValidationRatio;
 
@@ -457,6 +572,52 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
             return this;
         }
 
+        /**
+         * Algorithm to use if compressing. The default is {@link CompressionAlgorithm#DEFLATE}.
+         * Records are always decompressed with the algorithm they were compressed with, so this can be
+         * changed for an existing store, but note that older versions of this class cannot read records
+         * compressed with other algorithms than {@link CompressionAlgorithm#DEFLATE}. Setting
+         * this does <i>not</i> automatically enable compression when serializing.
+         * @param compressionAlgorithm the compression algorithm
+         * @return this <code>Builder</code>
+         */
+        @Nonnull
+        public Builder<M> setCompressionAlgorithm(@Nonnull CompressionAlgorithm compressionAlgorithm) {
+            this.compressionAlgorithm = compressionAlgorithm;
+            return this;
+        }
+
+        /**
+         * Preset dictionary to use when compressing records of the given type with {@link CompressionAlgorithm#DEFLATE}.
+         * A good dictionary is a concatenation of byte strings that commonly occur in serialized records of the type,
+         * most common last, for example a sample of actual records. The dictionary is also registered for
+         * decompression as with {@link #addDecompressionDictionary(byte[])}.
+         * @param recordTypeName the name of the record type
+         * @param dictionary the dictionary to compress records of the type with
+         * @return this <code>Builder</code>
+         * @see Deflater#setDictionary(byte[])
+         */
+        @Nonnull
+        public Builder<M> setCompressionDictionary(@Nonnull String recordTypeName, @Nonnull byte[] dictionary) {
+            this.compressionDictionaries.put(recordTypeName, dictionary);
+            return addDecompressionDictionary(dictionary);
+        }
+
+        /**
+         * Register a dictionary that records may have been compressed with, without compressing new records
+         * with it. When replacing the dictionary of a record type, the old one must remain registered this way
+         * for as long as there are records compressed with it.
+         * @param dictionary a dictionary that records may have been compressed with
+         * @return this <code>Builder</code>
+         */
+        @Nonnull
+        public Builder<M> addDecompressionDictionary(@Nonnull byte[] dictionary) {
+            final Adler32 checksum = new Adler32();
+            checksum.update(dictionary);
+            this.decompressionDictionaries.put((int)checksum.getValue(), dictionary);
+            return this;
+        }
+
         /**
          * Whether to encrypt records after serializing. Should
          * compression and encryption both be set, then data
@@ -508,6 +669,9 @@ public class TransformedRecordSerializer<M extends Message> implements RecordSer
                     inner,
                     compressWhenSerializing,
                     compressionLevel,
+                    compressionAlgorithm,
+                    new HashMap<>(compressionDictionaries),
+                    new HashMap<>(decompressionDictionaries),
                     encryptWhenSerializing,
                     writeValidationRatio
             );
@@ -31,6 +31,9 @@ import javax.crypto.spec.IvParameterSpec;
 import java.security.GeneralSecurityException;
 import java.security.Key;
 import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * An extension of {@link TransformedRecordSerializer} to use JCE to encrypt and decrypt records.
@@ -54,7 +57,25 @@ public class TransformedRecordSerializerJCE<M extends Message> extends Transform
                                              @Nullable String cipherName,
                                              @Nullable Key encryptionKey,
                                              @Nullable SecureRandom secureRandom) {
-        super(inner, compressWhenSerializing, compressionLevel, encryptWhenSerializing, writeValidationRatio);
+        this(inner, compressWhenSerializing, compressionLevel, CompressionAlgorithm.DEFLATE,
+                Collections.emptyMap(), Collections.emptyMap(), encryptWhenSerializing, writeValidationRatio,
+                cipherName, encryptionKey, secureRandom);
+    }
+
+    @SuppressWarnings("squid:S00107") // Constructor with too many parameters, but it is only called by the builder
+    protected TransformedRecordSerializerJCE(@Nonnull RecordSerializer<M> inner,
+                                             boolean compressWhenSerializing,
+                                             int compressionLevel,
+                                             @Nonnull CompressionAlgorithm compressionAlgorithm,
+                                             @Nonnull Map<String, byte[]> compressionDictionaries,
+                                             @Nonnull Map<Integer, byte[]> decompressionDictionaries,
+                                             boolean encryptWhenSerializing,
+                                             double writeValidationRatio,
+                                             @Nullable String cipherName,
+                                             @Nullable Key encryptionKey,
+                                             @Nullable SecureRandom secureRandom) {
+        super(inner, compressWhenSerializing, compressionLevel, compressionAlgorithm, compressionDictionaries,
+                decompressionDictionaries, encryptWhenSerializing, writeValidationRatio);
         this.cipherName = cipherName;
         this.encryptionKey = encryptionKey;
         this.secureRandom = secureRandom;
@@ -180,6 +201,27 @@ public class TransformedRecordSerializerJCE<M extends Message> extends Transform
             return this;
         }
 
+        @Override
+        @Nonnull
+        public Builder<M> setCompressionAlgorithm(@Nonnull CompressionAlgorithm compressionAlgorithm) {
+            super.setCompressionAlgorithm(compressionAlgorithm);
+            return this;
+        }
+
+        @Override
+        @Nonnull
+        public Builder<M> setCompressionDictionary(@Nonnull String recordTypeName, @Nonnull byte[] dictionary) {
+            super.setCompressionDictionary(recordTypeName, dictionary);
+            return this;
+        }
+
+        @Override
+        @Nonnull
+        public Builder<M> addDecompressionDictionary(@Nonnull byte[] dictionary) {
+            super.addDecompressionDictionary(dictionary);
+            return this;
+        }
+
         /**
          * Whether to encrypt records after serializing. Should
          * compression and encryption both be set, then data
@@ -299,6 +341,9 @@ public class TransformedRecordSerializerJCE<M extends Message> extends Transform
                     inner,
                     compressWhenSerializing,
                     compressionLevel,
+                    compressionAlgorithm,
+                    new HashMap<>(compressionDictionaries),
+                    new HashMap<>(decompressionDictionaries),
                     encryptWhenSerializing,
                     writeValidationRatio,
                     cipherName,
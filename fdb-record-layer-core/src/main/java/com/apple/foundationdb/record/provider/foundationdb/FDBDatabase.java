@@ -24,6 +24,7 @@ import com.apple.foundationdb.Database;
 import com.apple.foundationdb.FDBException;
 import com.apple.foundationdb.Transaction;
 import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.RankedSet;
 import com.apple.foundationdb.record.AsyncLoadingCache;
 import com.apple.foundationdb.record.LoggableTimeoutException;
 import com.apple.foundationdb.record.RecordCoreException;
@@ -137,6 +138,10 @@ public class FDBDatabase {
     private final long reverseDirectoryMaxMillisPerTransaction;
     @Nonnull
     private FDBRecordStoreStateCache storeStateCache = PassThroughRecordStoreStateCache.instance();
+    @Nullable
+    private FDBRecordCache recordCache;
+    @Nonnull
+    private RankedSet.UpperLevelCache rankedSetUpperLevelCache = new RankedSet.UpperLevelCache();
     private final Supplier<Boolean> transactionIsTracedSupplier;
     private final long warnAndCloseOpenContextsAfterSeconds;
     // The number of cache entries to maintain in memory
@@ -715,6 +720,52 @@ public class FDBDatabase {
         this.storeStateCache = storeStateCache;
     }
 
+    /**
+     * Get the cache of records shared by the transactions of this database.
+     *
+     * @return the record cache for this database or {@code null} if records are not cached
+     * @see FDBRecordCache
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nullable
+    public FDBRecordCache getRecordCache() {
+        return recordCache;
+    }
+
+    /**
+     * Set the cache of records shared by the transactions of this database. Only records of stores marked with
+     * {@link FDBRecordStore#setRecordsCacheability(boolean)} are cached.
+     *
+     * @param recordCache the record cache or {@code null} to not cache records
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public void setRecordCache(@Nullable FDBRecordCache recordCache) {
+        this.recordCache = recordCache;
+    }
+
+    /**
+     * Get the cache of ranked set upper levels shared by the transactions of this database.
+     * Only {@link com.apple.foundationdb.record.metadata.IndexTypes#RANK} indexes with the
+     * {@link com.apple.foundationdb.record.metadata.IndexOptions#RANK_CACHE_UPPER_LEVELS} option use it.
+     *
+     * @return the ranked set upper level cache for this database
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public RankedSet.UpperLevelCache getRankedSetUpperLevelCache() {
+        return rankedSetUpperLevelCache;
+    }
+
+    /**
+     * Set the cache of ranked set upper levels shared by the transactions of this database.
+     *
+     * @param rankedSetUpperLevelCache the ranked set upper level cache
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public void setRankedSetUpperLevelCache(@Nonnull RankedSet.UpperLevelCache rankedSetUpperLevelCache) {
+        this.rankedSetUpperLevelCache = rankedSetUpperLevelCache;
+    }
+
     @VisibleForTesting
     @API(API.Status.INTERNAL)
     public void clearCaches() {
@@ -722,6 +773,10 @@ public class FDBDatabase {
         clearForwardDirectoryCache();
         clearReverseDirectoryCache();
         storeStateCache.clear();
+        if (recordCache != null) {
+            recordCache.clear();
+        }
+        rankedSetUpperLevelCache.clear();
     }
 
     public synchronized void close() {
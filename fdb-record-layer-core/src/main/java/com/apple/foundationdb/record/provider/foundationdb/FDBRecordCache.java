@@ -0,0 +1,157 @@
+/*
+ * FDBRecordCache.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordMetaData;
+import com.apple.foundationdb.record.metadata.RecordType;
+import com.apple.foundationdb.record.provider.common.RecordSerializer;
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cache of deserialized records shared by all transactions of an {@link FDBDatabase}.
+ *
+ * <p>
+ * Only records of stores marked with {@link FDBRecordStore#setRecordsCacheability(boolean)} are cached. Each such
+ * store keeps a record cache version key, which every transaction that changes the records of the store sets to its
+ * commit versionstamp. A record is cached along with the value of that key at the read version of the transaction
+ * that loaded it. A later transaction reads the key once, at snapshot isolation, and only uses cached records of the
+ * store if the key still has the same value, which means that no records of the store have changed since they
+ * were cached. A load at serializable isolation that is served from the cache still adds a read conflict range for
+ * the record, so that transactions remain serializable.
+ * </p>
+ *
+ * <p>
+ * This works best for small, rarely changing stores that are read in most transactions, such as configuration. For
+ * stores that change often, the version key changes with every transaction and the cache is mostly missed.
+ * </p>
+ *
+ * @see FDBDatabase#setRecordCache(FDBRecordCache)
+ */
+@API(API.Status.EXPERIMENTAL)
+public class FDBRecordCache {
+    /**
+     * The default maximum number of cached records.
+     */
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+
+    @Nonnull
+    private final Cache<Tuple, Entry> cache;
+
+    public FDBRecordCache() {
+        this(DEFAULT_MAX_SIZE, 0L);
+    }
+
+    /**
+     * Create a new record cache.
+     * @param maxSize the maximum number of cached records
+     * @param expireAfterWriteMillis how long to keep a record in the cache, or {@code 0} to keep records until
+     * evicted by size
+     */
+    public FDBRecordCache(int maxSize, long expireAfterWriteMillis) {
+        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(maxSize);
+        if (expireAfterWriteMillis > 0) {
+            cacheBuilder = cacheBuilder.expireAfterWrite(expireAfterWriteMillis, TimeUnit.MILLISECONDS);
+        }
+        this.cache = cacheBuilder.build();
+    }
+
+    @Nullable
+    Entry get(@Nonnull byte[] recordsSubspace, @Nonnull Tuple primaryKey) {
+        return cache.getIfPresent(key(recordsSubspace, primaryKey));
+    }
+
+    void put(@Nonnull byte[] recordsSubspace, @Nonnull Tuple primaryKey, @Nonnull byte[] cacheVersion,
+             @Nonnull FDBStoredRecord<?> storedRecord, @Nonnull RecordSerializer<?> serializer) {
+        cache.put(key(recordsSubspace, primaryKey), new Entry(cacheVersion, storedRecord, serializer));
+    }
+
+    /**
+     * Get the number of cached records.
+     * @return the number of cached records
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Remove all records from the cache.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    @Nonnull
+    private static Tuple key(@Nonnull byte[] recordsSubspace, @Nonnull Tuple primaryKey) {
+        return Tuple.from(recordsSubspace).addAll(primaryKey);
+    }
+
+    /**
+     * A cached record and the record cache version of its store when it was loaded.
+     */
+    static final class Entry {
+        @Nonnull
+        private final byte[] cacheVersion;
+        @Nonnull
+        private final FDBStoredRecord<?> storedRecord;
+        @Nonnull
+        private final RecordSerializer<?> serializer;
+
+        private Entry(@Nonnull byte[] cacheVersion, @Nonnull FDBStoredRecord<?> storedRecord, @Nonnull RecordSerializer<?> serializer) {
+            this.cacheVersion = cacheVersion;
+            this.storedRecord = storedRecord;
+            this.serializer = serializer;
+        }
+
+        /**
+         * Get the cached record as a store at the given record cache version would have loaded it.
+         * @param currentCacheVersion the record cache version of the store as of the loading transaction
+         * @param typedSerializer the serializer of the loading store
+         * @param metaData the meta-data of the loading store
+         * @param <M> type used to represent stored records
+         * @return the cached record or {@code null} if it is out of date or was not deserialized the way the store would
+         */
+        @Nullable
+        @SuppressWarnings({"unchecked", "PMD.CompareObjectsWithEquals"})
+        <M extends Message> FDBStoredRecord<M> getRecord(@Nonnull byte[] currentCacheVersion,
+                                                         @Nonnull RecordSerializer<M> typedSerializer,
+                                                         @Nonnull RecordMetaData metaData) {
+            if (!Arrays.equals(cacheVersion, currentCacheVersion) || serializer != typedSerializer) {
+                return null;
+            }
+            final RecordType cachedType = storedRecord.getRecordType();
+            final RecordType recordType = metaData.getRecordTypes().get(cachedType.getName());
+            if (recordType == null || recordType.getDescriptor() != cachedType.getDescriptor()) {
+                return null;
+            }
+            final FDBStoredRecord<M> typedRecord = (FDBStoredRecord<M>)storedRecord;
+            return recordType == cachedType ? typedRecord : typedRecord.asBuilder().setRecordType(recordType).build();
+        }
+    }
+}
@@ -174,6 +174,10 @@ public class FDBRecordContext extends FDBTransactionContext implements AutoClose
     private final LockRegistry lockRegistry = new LockRegistry(this.getTimer());
     @Nonnull
     private final TempTable.Factory tempTableFactory = TempTable.Factory.instance();
+    @Nullable
+    private final FDBRecordReadCache recordReadCache;
+    @Nonnull
+    private final ConcurrentNavigableMap<byte[], CompletableFuture<byte[]>> recordCacheVersions = new ConcurrentSkipListMap<>(ByteArrayUtil::compareUnsigned);
 
     @SuppressWarnings("PMD.CloseResource")
     protected FDBRecordContext(@Nonnull FDBDatabase fdb,
@@ -210,6 +214,7 @@ public class FDBRecordContext extends FDBTransactionContext implements AutoClose
         }
 
         this.config = config;
+        this.recordReadCache = config.getRecordReadCacheSize() > 0 ? new FDBRecordReadCache(config.getRecordReadCacheSize()) : null;
 
         // If a causal read risky is requested, we set the corresponding transaction option
         if (config.getWeakReadSemantics() != null && config.getWeakReadSemantics().isCausalReadRisky()) {
@@ -1585,4 +1590,47 @@ public class FDBRecordContext extends FDBTransactionContext implements AutoClose
     public TempTable.Factory getTempTableFactory() {
         return tempTableFactory;
     }
+
+    /**
+     * Get the cache of records loaded in this transaction.
+     * @return the record cache or {@code null} if records are not cached
+     * @see FDBRecordContextConfig.Builder#setRecordReadCacheSize(int)
+     */
+    @Nullable
+    FDBRecordReadCache getRecordReadCache() {
+        return recordReadCache;
+    }
+
+    /**
+     * Get the record cache version of a record store, as of the read version of this transaction. The key is read
+     * at most once per transaction and at snapshot isolation, so that concurrent changes to the records of the store
+     * do not by themselves cause conflicts.
+     * @param key the record cache version key of the record store
+     * @return a future that completes to the record cache version or {@code null} if it is not set or was changed
+     * by this transaction
+     * @see FDBRecordCache
+     */
+    @Nonnull
+    CompletableFuture<byte[]> getRecordCacheVersionAsync(@Nonnull byte[] key) {
+        return recordCacheVersions.computeIfAbsent(key, k -> ensureActive().snapshot().get(k));
+    }
+
+    /**
+     * Set the record cache version of a record store to the version of this transaction, so that records cached
+     * before the transaction commits are no longer used.
+     * @param key the record cache version key of the record store
+     */
+    void setRecordCacheVersionStamp(@Nonnull byte[] key) {
+        ensureActive().mutate(MutationType.SET_VERSIONSTAMPED_VALUE, key, META_DATA_VERSION_STAMP_VALUE);
+        markRecordCacheVersionChanged(key);
+    }
+
+    /**
+     * Note that this transaction has changed the record cache version of a record store. The new value cannot be
+     * read back before commit, so the record cache is not used for the store for the rest of the transaction.
+     * @param key the record cache version key of the record store
+     */
+    void markRecordCacheVersionChanged(@Nonnull byte[] key) {
+        recordCacheVersions.put(key, CompletableFuture.completedFuture(null));
+    }
 }
@@ -61,6 +61,7 @@ public class FDBRecordContextConfig {
     private final boolean reportConflictingKeys;
     @Nullable
     private final KeyChecker keyChecker;
+    private final int recordReadCacheSize;
 
     private FDBRecordContextConfig(@Nonnull Builder builder) {
         this.mdcContext = builder.mdcContext;
@@ -79,6 +80,7 @@ public class FDBRecordContextConfig {
         this.tags = builder.tags;
         this.reportConflictingKeys = builder.reportConflictingKeys;
         this.keyChecker = builder.keyChecker;
+        this.recordReadCacheSize = builder.recordReadCacheSize;
     }
 
     /**
@@ -245,6 +247,15 @@ public class FDBRecordContextConfig {
         return keyChecker;
     }
 
+    /**
+     * Get the maximum number of loaded records to cache in the transaction.
+     * @return the maximum number of records cached, or {@code 0} if loaded records are not cached
+     * @see Builder#setRecordReadCacheSize(int)
+     */
+    public int getRecordReadCacheSize() {
+        return recordReadCacheSize;
+    }
+
     /**
      * Convert the current configuration to a builder. This will set all options in the builder to their
      * current values in this configuration object.
@@ -283,6 +294,7 @@ public class FDBRecordContextConfig {
         private boolean reportConflictingKeys = false;
         @Nullable
         private KeyChecker keyChecker;
+        private int recordReadCacheSize = 0;
 
         private Builder() {
         }
@@ -304,6 +316,7 @@ public class FDBRecordContextConfig {
             this.tags = config.tags;
             this.reportConflictingKeys = config.reportConflictingKeys;
             this.keyChecker = config.keyChecker;
+            this.recordReadCacheSize = config.recordReadCacheSize;
         }
 
         private Builder(@Nonnull Builder config) {
@@ -323,6 +336,7 @@ public class FDBRecordContextConfig {
             this.tags = config.tags;
             this.reportConflictingKeys = config.reportConflictingKeys;
             this.keyChecker = config.keyChecker;
+            this.recordReadCacheSize = config.recordReadCacheSize;
         }
 
         /**
@@ -706,6 +720,30 @@ public class FDBRecordContextConfig {
             this.keyChecker = keyChecker;
         }
 
+        /**
+         * Get the maximum number of loaded records to cache in the transaction.
+         * @return the maximum number of records cached, or {@code 0} if loaded records are not cached
+         */
+        public int getRecordReadCacheSize() {
+            return recordReadCacheSize;
+        }
+
+        /**
+         * Set the maximum number of loaded records to cache in the transaction. When positive, records loaded by
+         * primary key are kept deserialized in the context, and loading the same record again from a store with the
+         * same subspace, meta-data and serializer returns the cached record without reading it from the database.
+         * Saving or deleting a record through a record store invalidates its entry. Changes made to the records
+         * subspace directly through the transaction are not seen by the cache.
+         * By default, this is {@code 0}, which disables the cache.
+         *
+         * @param recordReadCacheSize the maximum number of records cached
+         * @return this builder
+         */
+        public Builder setRecordReadCacheSize(int recordReadCacheSize) {
+            this.recordReadCacheSize = recordReadCacheSize;
+            return this;
+        }
+
         /**
          * Create an {@link FDBRecordContextConfig} from this builder.
          *
@@ -0,0 +1,209 @@
+/*
+ * FDBRecordReadCache.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordMetaData;
+import com.apple.foundationdb.record.metadata.RecordType;
+import com.apple.foundationdb.record.provider.common.RecordSerializer;
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A cache of deserialized records loaded in a transaction, shared by all the record stores opened in the same
+ * {@link FDBRecordContext}. Entries are keyed by the records subspace of the store and the primary key of the record.
+ *
+ * <p>
+ * Like {@link FDBPreloadRecordCache}, a load first reserves its entry with {@link #beginLoad}, and only
+ * completing that reservation makes the record visible. A save or delete that {@linkplain #invalidate invalidates}
+ * the entry while the load is still outstanding therefore discards the stale record instead of caching it.
+ * </p>
+ */
+@API(API.Status.INTERNAL)
+class FDBRecordReadCache {
+    @Nonnull
+    private final Cache<Key, Object> cache;
+
+    public FDBRecordReadCache(int maximumSize) {
+        cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    /**
+     * Get a cached record.
+     * @param recordsSubspace the key of the records subspace of the store
+     * @param primaryKey the primary key of the record
+     * @return the cached entry or {@code null} if the record is not cached or still being loaded
+     */
+    @Nullable
+    public Entry get(@Nonnull byte[] recordsSubspace, @Nonnull Tuple primaryKey) {
+        final Object value = cache.getIfPresent(new Key(recordsSubspace, primaryKey));
+        return value instanceof Entry ? (Entry)value : null;
+    }
+
+    /**
+     * Reserve the entry for a record that is about to be loaded.
+     * @param recordsSubspace the key of the records subspace of the store
+     * @param primaryKey the primary key of the record
+     * @return a holder with which to set the loaded record
+     */
+    @Nonnull
+    public Reservation beginLoad(@Nonnull byte[] recordsSubspace, @Nonnull Tuple primaryKey) {
+        final Reservation reservation = new Reservation(new Key(recordsSubspace, primaryKey));
+        cache.put(reservation.key, reservation);
+        return reservation;
+    }
+
+    /**
+     * Invalidate the entry for a record, discarding the result of a load of it that has not completed yet.
+     * @param recordsSubspace the key of the records subspace of the store
+     * @param primaryKey the primary key of the record
+     */
+    public void invalidate(@Nonnull byte[] recordsSubspace, @Nonnull Tuple primaryKey) {
+        cache.invalidate(new Key(recordsSubspace, primaryKey));
+    }
+
+    /**
+     * Clear all entries from the cache.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * A cached record, together with what is needed to decide whether it can be returned to a given store.
+     */
+    public static final class Entry {
+        @Nonnull
+        private final FDBStoredRecord<?> storedRecord;
+        @Nonnull
+        private final RecordSerializer<?> serializer;
+        private volatile boolean snapshot;
+
+        private Entry(@Nonnull FDBStoredRecord<?> storedRecord, @Nonnull RecordSerializer<?> serializer, boolean snapshot) {
+            this.storedRecord = storedRecord;
+            this.serializer = serializer;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Get the cached record as the given store would have loaded it.
+         * @param typedSerializer the serializer of the loading store
+         * @param metaData the meta-data of the loading store
+         * @param <M> type used to represent stored records
+         * @return the cached record or {@code null} if it was not deserialized the way the store would
+         */
+        @Nullable
+        @SuppressWarnings({"unchecked", "PMD.CompareObjectsWithEquals"})
+        public <M extends Message> FDBStoredRecord<M> getRecord(@Nonnull RecordSerializer<M> typedSerializer, @Nonnull RecordMetaData metaData) {
+            if (serializer != typedSerializer) {
+                return null;
+            }
+            final RecordType cachedType = storedRecord.getRecordType();
+            final RecordType recordType = metaData.getRecordTypes().get(cachedType.getName());
+            if (recordType == null || recordType.getDescriptor() != cachedType.getDescriptor()) {
+                return null;
+            }
+            final FDBStoredRecord<M> typedRecord = (FDBStoredRecord<M>)storedRecord;
+            // Stores opened with equivalent meta-data built separately can still use the deserialized message.
+            return recordType == cachedType ? typedRecord : typedRecord.asBuilder().setRecordType(recordType).build();
+        }
+
+        /**
+         * Get whether the record was only read at snapshot isolation, so that no read conflict was added for it.
+         * @return {@code true} if no read conflict has been added for the record
+         */
+        public boolean isSnapshot() {
+            return snapshot;
+        }
+
+        /**
+         * Note that a read conflict has now been added for the record.
+         */
+        public void markConflictAdded() {
+            snapshot = false;
+        }
+    }
+
+    /**
+     * A reserved entry for a record that is being loaded.
+     */
+    public final class Reservation {
+        @Nonnull
+        private final Key key;
+
+        private Reservation(@Nonnull Key key) {
+            this.key = key;
+        }
+
+        /**
+         * Make the loaded record visible in the cache, unless the entry was invalidated in the meantime.
+         * @param storedRecord the loaded record
+         * @param serializer the serializer used to deserialize the record
+         * @param snapshot whether the record was read at snapshot isolation
+         */
+        public void complete(@Nonnull FDBStoredRecord<?> storedRecord, @Nonnull RecordSerializer<?> serializer, boolean snapshot) {
+            cache.asMap().replace(key, this, new Entry(storedRecord, serializer, snapshot));
+        }
+
+        /**
+         * Release the reservation without caching anything, as when the record does not exist or the load failed.
+         */
+        public void cancel() {
+            cache.asMap().remove(key, this);
+        }
+    }
+
+    private static final class Key {
+        @Nonnull
+        private final byte[] recordsSubspace;
+        @Nonnull
+        private final Tuple primaryKey;
+
+        private Key(@Nonnull byte[] recordsSubspace, @Nonnull Tuple primaryKey) {
+            this.recordsSubspace = recordsSubspace;
+            this.primaryKey = primaryKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Key key = (Key)o;
+            return Arrays.equals(recordsSubspace, key.recordsSubspace) && primaryKey.equals(key.primaryKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(Arrays.hashCode(recordsSubspace), primaryKey);
+        }
+    }
+}
@@ -42,6 +42,7 @@ import com.apple.foundationdb.record.ExecuteProperties;
 import com.apple.foundationdb.record.ExecuteState;
 import com.apple.foundationdb.record.FunctionNames;
 import com.apple.foundationdb.record.IndexBuildProto;
+import com.apple.foundationdb.record.IndexStatisticsProto;
 import com.apple.foundationdb.record.IndexEntry;
 import com.apple.foundationdb.record.IndexScanType;
 import com.apple.foundationdb.record.IndexState;
@@ -96,6 +97,8 @@ import com.apple.foundationdb.record.query.expressions.QueryComponent;
 import com.apple.foundationdb.record.query.expressions.RecordTypeKeyComparison;
 import com.apple.foundationdb.record.query.plan.RecordQueryPlanner;
 import com.apple.foundationdb.record.query.plan.RecordQueryPlannerConfiguration;
+import com.apple.foundationdb.record.query.plan.cascades.IndexStatistics;
+import com.apple.foundationdb.record.query.plan.cascades.PlannerStatistics;
 import com.apple.foundationdb.record.StoreIsLockedForRecordUpdates;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlan;
 import com.apple.foundationdb.record.query.plan.serialization.DefaultPlanSerializationRegistry;
@@ -253,6 +256,9 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
     protected static final Object INDEX_UNIQUENESS_VIOLATIONS_KEY = FDBRecordStoreKeyspace.INDEX_UNIQUENESS_VIOLATIONS_SPACE.key();
     protected static final Object RECORD_VERSION_KEY = FDBRecordStoreKeyspace.RECORD_VERSION_SPACE.key();
     protected static final Object INDEX_BUILD_SPACE_KEY = FDBRecordStoreKeyspace.INDEX_BUILD_SPACE.key();
+    protected static final Object INDEX_STATISTICS_SPACE_KEY = FDBRecordStoreKeyspace.INDEX_STATISTICS_SPACE.key();
+    protected static final Object COMPRESSION_DICTIONARY_SPACE_KEY = FDBRecordStoreKeyspace.COMPRESSION_DICTIONARY_SPACE.key();
+    protected static final Object RECORD_CACHE_VERSION_KEY = FDBRecordStoreKeyspace.RECORD_CACHE_VERSION.key();
 
     @SuppressWarnings("squid:S2386")
     @SpotBugsSuppressWarnings("MS_MUTABLE_ARRAY")
@@ -653,6 +659,8 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         final FDBRecordVersion splitVersion = useOldVersionFormat() ? null : version;
         final SplitHelper.SizeInfo sizeInfo = new SplitHelper.SizeInfo();
         preloadCache.invalidate(primaryKey); // clear out cache of older value if present
+        invalidateRecordReadCache(primaryKey);
+        updateRecordCacheVersion();
         SplitHelper.saveWithSplit(context, recordsSubspace(), recordBuilder.getPrimaryKey(), serialized, splitVersion, metaData.isSplitLongRecords(), omitUnsplitRecordSuffix, true, oldSizeInfo, sizeInfo);
         countKeysAndValues(FDBStoreTimer.Counts.SAVE_RECORD_KEY, FDBStoreTimer.Counts.SAVE_RECORD_KEY_BYTES, FDBStoreTimer.Counts.SAVE_RECORD_VALUE_BYTES, sizeInfo);
         recordBuilder.setSize(sizeInfo);
@@ -916,6 +924,17 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         return getSubspace().subspace(Tuple.from(INDEX_STATE_SPACE_KEY));
     }
 
+    /**
+     * Subspace in which the record compression dictionaries are saved.
+     * @return the subspace for the compression dictionaries of all record types
+     * @see #saveCompressionDictionaryAsync
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public Subspace compressionDictionarySubspace() {
+        return getSubspace().subspace(Tuple.from(COMPRESSION_DICTIONARY_SPACE_KEY));
+    }
+
     @Nonnull
     public Subspace indexSecondarySubspace(@Nonnull Index index) {
         return getSubspace().subspace(Tuple.from(INDEX_SECONDARY_SPACE_KEY, index.getSubspaceTupleKey()));
@@ -1012,6 +1031,48 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
                                                                                         final boolean snapshot) {
         final RecordMetaData metaData = metaDataProvider.getRecordMetaData();
 
+        // With the old version format, the version is stored apart from the record, so do not cache the record.
+        final FDBRecordReadCache readCache = useOldVersionFormat() ? null : context.getRecordReadCache();
+        final FDBRecordReadCache.Reservation reservation;
+        if (readCache != null) {
+            final FDBRecordReadCache.Entry cached = readCache.get(recordsSubspace().getKey(), primaryKey);
+            final FDBStoredRecord<M> cachedRecord = cached == null ? null : cached.getRecord(typedSerializer, metaData);
+            if (cachedRecord != null) {
+                if (!snapshot && cached.isSnapshot()) {
+                    addRecordReadConflict(primaryKey);
+                    cached.markConflictAdded();
+                }
+                context.increment(FDBStoreTimer.Counts.RECORD_READ_CACHE_HIT);
+                return CompletableFuture.completedFuture(cachedRecord);
+            }
+            context.increment(FDBStoreTimer.Counts.RECORD_READ_CACHE_MISS);
+            reservation = readCache.beginLoad(recordsSubspace().getKey(), primaryKey);
+        } else {
+            reservation = null;
+        }
+
+        final FDBRecordCache recordCache = getRecordCache();
+        CompletableFuture<FDBStoredRecord<M>> result = recordCache == null
+                ? loadTypedRecordFromDatabase(typedSerializer, primaryKey, executeState, snapshot, metaData)
+                : loadTypedRecordThroughCache(recordCache, typedSerializer, primaryKey, executeState, snapshot, metaData);
+        if (reservation != null) {
+            result = result.whenComplete((storedRecord, err) -> {
+                if (err == null && storedRecord != null) {
+                    reservation.complete(storedRecord, typedSerializer, snapshot);
+                } else {
+                    reservation.cancel();
+                }
+            });
+        }
+        return context.instrument(FDBStoreTimer.Events.LOAD_RECORD, result);
+    }
+
+    @Nonnull
+    private <M extends Message> CompletableFuture<FDBStoredRecord<M>> loadTypedRecordFromDatabase(@Nonnull RecordSerializer<M> typedSerializer,
+                                                                                                  @Nonnull final Tuple primaryKey,
+                                                                                                  @Nonnull ExecuteState executeState,
+                                                                                                  final boolean snapshot,
+                                                                                                  @Nonnull final RecordMetaData metaData) {
         final Optional<CompletableFuture<FDBRecordVersion>> versionFutureOptional;
         if (useOldVersionFormat()) {
             versionFutureOptional = loadRecordVersionAsync(primaryKey);
@@ -1020,7 +1081,7 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         }
 
         final SplitHelper.SizeInfo sizeInfo = new SplitHelper.SizeInfo();
-        CompletableFuture<FDBStoredRecord<M>> result = loadRawRecordAsync(primaryKey, sizeInfo, snapshot)
+        return loadRawRecordAsync(primaryKey, sizeInfo, snapshot)
                 .thenCompose(rawRecord -> {
                     final ByteScanLimiter byteScanLimiter = executeState.getByteScanLimiter();
                     if (byteScanLimiter != null) {
@@ -1029,7 +1090,74 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
                     return rawRecord == null ? CompletableFuture.completedFuture(null) :
                             deserializeRecord(typedSerializer, rawRecord, metaData, versionFutureOptional);
                 });
-        return context.instrument(FDBStoreTimer.Events.LOAD_RECORD, result);
+    }
+
+    @Nonnull
+    private <M extends Message> CompletableFuture<FDBStoredRecord<M>> loadTypedRecordThroughCache(@Nonnull FDBRecordCache recordCache,
+                                                                                                  @Nonnull RecordSerializer<M> typedSerializer,
+                                                                                                  @Nonnull final Tuple primaryKey,
+                                                                                                  @Nonnull ExecuteState executeState,
+                                                                                                  final boolean snapshot,
+                                                                                                  @Nonnull final RecordMetaData metaData) {
+        final byte[] versionKey = recordCacheVersionKey();
+        final CompletableFuture<byte[]> cacheVersionFuture = context.getRecordCacheVersionAsync(versionKey);
+        return cacheVersionFuture.thenCompose(cacheVersion -> {
+            if (cacheVersion == null) {
+                // Either no records have been saved since the store became cacheable or this transaction changed them.
+                return loadTypedRecordFromDatabase(typedSerializer, primaryKey, executeState, snapshot, metaData);
+            }
+            final byte[] recordsSubspaceKey = recordsSubspace().getKey();
+            final FDBRecordCache.Entry cached = recordCache.get(recordsSubspaceKey, primaryKey);
+            final FDBStoredRecord<M> cachedRecord = cached == null ? null : cached.getRecord(cacheVersion, typedSerializer, metaData);
+            if (cachedRecord != null) {
+                if (!snapshot) {
+                    addRecordReadConflict(primaryKey);
+                }
+                context.increment(FDBStoreTimer.Counts.RECORD_CACHE_HIT);
+                return CompletableFuture.completedFuture(cachedRecord);
+            }
+            context.increment(FDBStoreTimer.Counts.RECORD_CACHE_MISS);
+            return loadTypedRecordFromDatabase(typedSerializer, primaryKey, executeState, snapshot, metaData)
+                    .thenApply(storedRecord -> {
+                        // Only cache the record if this transaction has not changed the store in the meantime, as
+                        // then the record might include changes that are not committed yet.
+                        if (storedRecord != null && context.getRecordCacheVersionAsync(versionKey) == cacheVersionFuture) {
+                            recordCache.put(recordsSubspaceKey, primaryKey, cacheVersion, storedRecord, typedSerializer);
+                        }
+                        return storedRecord;
+                    });
+        });
+    }
+
+    @Nullable
+    private FDBRecordCache getRecordCache() {
+        final FDBRecordCache recordCache = context.getDatabase().getRecordCache();
+        return recordCache != null && !useOldVersionFormat() && isRecordsCacheableInternal() ? recordCache : null;
+    }
+
+    @Nonnull
+    private byte[] recordCacheVersionKey() {
+        return getSubspace().pack(RECORD_CACHE_VERSION_KEY);
+    }
+
+    private void updateRecordCacheVersion() {
+        if (isRecordsCacheableInternal()) {
+            context.setRecordCacheVersionStamp(recordCacheVersionKey());
+        }
+    }
+
+    private void invalidateRecordReadCache(@Nonnull Tuple primaryKey) {
+        final FDBRecordReadCache readCache = context.getRecordReadCache();
+        if (readCache != null) {
+            readCache.invalidate(recordsSubspace().getKey(), primaryKey);
+        }
+    }
+
+    private void invalidateRecordReadCache() {
+        final FDBRecordReadCache readCache = context.getRecordReadCache();
+        if (readCache != null) {
+            readCache.invalidateAll();
+        }
     }
 
     /**
@@ -1707,6 +1835,8 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
 
     @API(API.Status.INTERNAL)
     public <M extends Message> void deleteRecordSplits(final @Nonnull Tuple primaryKey, final boolean clearBasedOnPreviousSizeInfo, final @Nullable FDBStoredRecord<M> oldRecord, final @Nonnull RecordMetaData metaData) {
+        invalidateRecordReadCache(primaryKey);
+        updateRecordCacheVersion();
         SplitHelper.deleteSplit(getRecordContext(), recordsSubspace(), primaryKey, metaData.isSplitLongRecords(), omitUnsplitRecordSuffix, clearBasedOnPreviousSizeInfo, oldRecord);
     }
 
@@ -1747,6 +1877,11 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         // meta-data is cacheable, but we can't know that from here.
         context.setMetaDataVersionStamp();
         context.setDirtyStoreState(true);
+        final FDBRecordReadCache readCache = context.getRecordReadCache();
+        if (readCache != null) {
+            readCache.invalidateAll();
+        }
+        context.markRecordCacheVersionChanged(subspace.pack(RECORD_CACHE_VERSION_KEY));
         context.clear(subspace.range());
     }
 
@@ -1754,18 +1889,23 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
     @SuppressWarnings("PMD.CloseResource")
     public void deleteAllRecords() {
         preloadCache.invalidateAll();
+        invalidateRecordReadCache();
 
-        // Clear out all data except for the store header key and the index state space.
-        // Those two subspaces are determined by the configuration of the record store rather then
-        // the records.
+        // Clear out all data except for the store header key, the index state space and the compression dictionaries.
+        // Those subspaces are determined by the configuration of the record store rather then
+        // the records. In particular, the serializer may still compress new records with a saved dictionary.
+        // Index statistics describe the records, so they are cleared along with them.
         final RecordStoreState localRecordStoreState = recordStoreStateRef.get();
         if (localRecordStoreState == null) {
             throw new RecordCoreException("checkVersion must be called before calling deleteAllRecords");
         }
         validateRecordUpdateAllowed(localRecordStoreState);
         Range indexStateRange = indexStateSubspace().range();
+        Range compressionDictionaryRange = compressionDictionarySubspace().range();
         context.clear(new Range(recordsSubspace().getKey(), indexStateRange.begin));
-        context.clear(new Range(indexStateRange.end, getSubspace().range().end));
+        context.clear(new Range(indexStateRange.end, compressionDictionaryRange.begin));
+        context.clear(new Range(compressionDictionaryRange.end, getSubspace().range().end));
+        updateRecordCacheVersion();
     }
 
     @Override
@@ -1775,6 +1915,8 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         }
         validateRecordUpdateAllowed(recordStoreStateRef.get());
         preloadCache.invalidateAll();
+        invalidateRecordReadCache();
+        updateRecordCacheVersion();
         recordStoreStateRef.get().beginRead();
         boolean async = false;
         try {
@@ -3109,6 +3251,54 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         return context.asyncToSync(FDBStoreTimer.Waits.WAIT_SET_STATE_CACHEABILITY, setStateCacheabilityAsync(cacheable));
     }
 
+    /**
+     * Set whether records of this store may be cached across transactions by the database's {@link FDBRecordCache}.
+     * While the records are cacheable, every transaction that changes them also sets a record cache version key in
+     * the store to its versionstamp, which is how other transactions tell whether their cached records are current.
+     * By default, records are <em>not</em> cacheable, as the extra key written makes every change to records slightly
+     * more expensive and caching only pays off for stores that are read much more often than they are changed.
+     *
+     * @param cacheable whether records of the store may be cached
+     * @return a future that will complete to {@code true} if the records' cacheability has changed
+     * @see FDBDatabase#setRecordCache(FDBRecordCache)
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public CompletableFuture<Boolean> setRecordsCacheabilityAsync(boolean cacheable) {
+        if (recordStoreStateRef.get() == null) {
+            return preloadRecordStoreStateAsync().thenCompose(vignore -> setRecordsCacheabilityAsync(cacheable));
+        }
+        if (!formatVersion.isAtLeast(FormatVersion.RECORDS_CACHEABLE)) {
+            throw recordCoreException("cannot mark records cacheable at format version " + formatVersion);
+        }
+        if (isRecordsCacheableInternal() == cacheable) {
+            return AsyncUtil.READY_FALSE;
+        } else {
+            // Whichever way this changes, anything cached before must not be used again.
+            context.setRecordCacheVersionStamp(recordCacheVersionKey());
+            return updateStoreHeaderAsync(headerBuilder -> headerBuilder.setRecordsCacheable(cacheable))
+                    .thenApply(ignore -> true);
+        }
+    }
+
+    /**
+     * Set whether records of this store may be cached across transactions. This operation might block if the record
+     * store state has not yet been loaded. Use {@link #setRecordsCacheabilityAsync(boolean)} in asynchronous contexts.
+     *
+     * @param cacheable whether records of the store may be cached
+     * @return whether the records' cacheability has changed
+     * @see #setRecordsCacheabilityAsync(boolean)
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public boolean setRecordsCacheability(boolean cacheable) {
+        return context.asyncToSync(FDBStoreTimer.Waits.WAIT_SET_RECORDS_CACHEABILITY, setRecordsCacheabilityAsync(cacheable));
+    }
+
+    private boolean isRecordsCacheableInternal() {
+        final RecordStoreState recordStoreState = recordStoreStateRef.get();
+        return recordStoreState != null && recordStoreState.getStoreHeader().getRecordsCacheable();
+    }
+
     private boolean isStateCacheableInternal() {
         if (recordStoreStateRef.get() == null) {
             throw uninitializedStoreException("cannot check record store state cacheability on uninitialized store");
@@ -3116,6 +3306,52 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         return recordStoreStateRef.get().getStoreHeader().getCacheable();
     }
 
+    /**
+     * Get whether an index is being bulk loaded by the {@link OnlineIndexer}. This is recorded in the store header,
+     * so checking it does not read from the database.
+     *
+     * @param index the index to check
+     * @return whether saving records needs to mark them for a bulk load of the index
+     * @see OnlineIndexer.IndexingPolicy.Builder#setBulkLoad(boolean)
+     */
+    @API(API.Status.INTERNAL)
+    public boolean isIndexBulkLoading(@Nonnull Index index) {
+        final RecordStoreState recordStoreState = recordStoreStateRef.get();
+        return recordStoreState != null && recordStoreState.getStoreHeader().getBulkLoadingIndexList().contains(index.getName());
+    }
+
+    /**
+     * Set whether an index is being bulk loaded by the {@link OnlineIndexer}.
+     *
+     * @param index the index being bulk loaded
+     * @param bulkLoading whether a bulk load of the index is starting or ending
+     * @return a future that completes when the store header is updated
+     * @see #isIndexBulkLoading(Index)
+     */
+    @API(API.Status.INTERNAL)
+    @Nonnull
+    public CompletableFuture<Void> setIndexBulkLoadingAsync(@Nonnull Index index, boolean bulkLoading) {
+        if (recordStoreStateRef.get() == null) {
+            return preloadRecordStoreStateAsync().thenCompose(vignore -> setIndexBulkLoadingAsync(index, bulkLoading));
+        }
+        if (isIndexBulkLoading(index) == bulkLoading) {
+            return AsyncUtil.DONE;
+        }
+        if (bulkLoading && !formatVersion.isAtLeast(FormatVersion.BULK_LOAD_STATE)) {
+            throw recordCoreException("cannot bulk load index at format version " + formatVersion,
+                    LogMessageKeys.INDEX_NAME, index.getName());
+        }
+        return updateStoreHeaderAsync(headerBuilder -> {
+            final List<String> bulkLoadingIndexes = new ArrayList<>(headerBuilder.getBulkLoadingIndexList());
+            if (bulkLoading) {
+                bulkLoadingIndexes.add(index.getName());
+            } else {
+                bulkLoadingIndexes.remove(index.getName());
+            }
+            return headerBuilder.clearBulkLoadingIndex().addAllBulkLoadingIndex(bulkLoadingIndexes);
+        });
+    }
+
     private void validateCanAccessHeaderUserFields() {
         if (!formatVersion.isAtLeast(FormatVersion.HEADER_USER_FIELDS)) {
             throw recordCoreException("cannot access header user fields at current format version",
@@ -4179,6 +4415,135 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         ensureContextActive().set(stampKey, stamp.toByteArray());
     }
 
+    /**
+     * Load the statistics about the keys of the given index that were saved by
+     * {@link #saveIndexStatistics(Index, IndexStatistics)}. The statistics are read at snapshot isolation level,
+     * as they are only advisory.
+     *
+     * @param index the index to load the statistics of
+     * @return a future that completes to the statistics of the index or to {@code null} if there are none
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public CompletableFuture<IndexStatistics> loadIndexStatisticsAsync(@Nonnull Index index) {
+        return ensureContextActive().snapshot().get(indexStatisticsKey(index))
+                .thenApply(serialized -> serialized == null ? null : parseIndexStatistics(index, serialized));
+    }
+
+    /**
+     * Load the statistics of all readable indexes of this store, so they can be used by the
+     * {@link com.apple.foundationdb.record.query.plan.cascades.CascadesPlanner} to cost index scans. The number of
+     * records in the store, which is used to cost record scans, is estimated from an ungrouped {@code COUNT} index,
+     * if there is one, and from the statistics of value indexes with a single entry per record.
+     *
+     * @return a future that completes to the statistics of all readable indexes that have any
+     * @see com.apple.foundationdb.record.query.plan.cascades.CascadesPlanner#setStatistics(PlannerStatistics)
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public CompletableFuture<PlannerStatistics> loadPlannerStatisticsAsync() {
+        final List<Index> indexes = getRecordMetaData().getAllIndexes().stream()
+                .filter(this::isIndexReadable)
+                .collect(Collectors.toList());
+        final List<CompletableFuture<IndexStatistics>> futures = indexes.stream()
+                .map(this::loadIndexStatisticsAsync)
+                .collect(Collectors.toList());
+        final CompletableFuture<Long> recordCountFuture = IndexFunctionHelper.indexMaintainerForAggregateFunction(this,
+                        IndexFunctionHelper.count(EmptyKeyExpression.EMPTY), Collections.emptyList(), IndexQueryabilityFilter.TRUE)
+                .map(indexMaintainer -> indexMaintainer.evaluateAggregateFunction(IndexFunctionHelper.count(EmptyKeyExpression.EMPTY),
+                                TupleRange.ALL, IsolationLevel.SNAPSHOT)
+                        .thenApply(tuple -> tuple.getLong(0)))
+                .orElse(CompletableFuture.completedFuture(-1L));
+        return AsyncUtil.whenAll(futures).thenCombine(recordCountFuture, (vignore, countedRecords) -> {
+            final Map<String, IndexStatistics> indexStatistics = new HashMap<>();
+            long recordCount = countedRecords;
+            for (int i = 0; i < indexes.size(); i++) {
+                final IndexStatistics statistics = futures.get(i).join();
+                if (statistics != null) {
+                    final Index index = indexes.get(i);
+                    indexStatistics.put(index.getName(), statistics);
+                    if (IndexTypes.VALUE.equals(index.getType()) && !index.getRootExpression().createsDuplicates()) {
+                        // there are at least as many records as entries in such an index
+                        recordCount = Math.max(recordCount, statistics.getKeyCount());
+                    }
+                }
+            }
+            return new PlannerStatistics(indexStatistics, recordCount);
+        });
+    }
+
+    /**
+     * Save statistics about the keys of the given index, replacing any previous statistics. The statistics are
+     * cleared when the index is rebuilt or removed.
+     *
+     * @param index the index the statistics were collected on
+     * @param statistics the statistics to save
+     * @see com.apple.foundationdb.record.provider.foundationdb.cursors.IndexStatisticsCollectorCursor
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public void saveIndexStatistics(@Nonnull Index index, @Nonnull IndexStatistics statistics) {
+        ensureContextActive().set(indexStatisticsKey(index), statistics.toProto().toByteArray());
+    }
+
+    @Nonnull
+    private byte[] indexStatisticsKey(@Nonnull Index index) {
+        return getSubspace().pack(Tuple.from(INDEX_STATISTICS_SPACE_KEY, index.getSubspaceTupleKey()));
+    }
+
+    @Nonnull
+    private static IndexStatistics parseIndexStatistics(@Nonnull Index index, @Nonnull byte[] serialized) {
+        try {
+            return IndexStatistics.fromProto(IndexStatisticsProto.IndexStatistics.parseFrom(serialized));
+        } catch (InvalidProtocolBufferException ex) {
+            throw new RecordCoreException("invalid index statistics", ex)
+                    .addLogInfo(LogMessageKeys.INDEX_NAME, index.getName())
+                    .addLogInfo(LogMessageKeys.RAW_BYTES, ByteArrayUtil2.loggable(serialized));
+        }
+    }
+
+    /**
+     * Load the record compression dictionaries saved by {@link #saveCompressionDictionaryAsync(String, byte[])}.
+     * The dictionaries are not used by the store itself; they are meant to configure the
+     * {@link com.apple.foundationdb.record.provider.common.TransformedRecordSerializer} with which the store is opened.
+     *
+     * @return a future that completes to all versions of the dictionaries of each record type, oldest first
+     * @see OnlineDictionaryTrainer#addDictionaries
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public CompletableFuture<Map<String, List<byte[]>>> loadCompressionDictionariesAsync() {
+        final Subspace dictionarySubspace = compressionDictionarySubspace();
+        return ensureContextActive().getRange(dictionarySubspace.range()).asList().thenApply(kvs -> {
+            final Map<String, List<byte[]>> dictionaries = new HashMap<>();
+            for (KeyValue kv : kvs) {
+                final String recordTypeName = dictionarySubspace.unpack(kv.getKey()).getString(0);
+                dictionaries.computeIfAbsent(recordTypeName, k -> new ArrayList<>()).add(kv.getValue());
+            }
+            return dictionaries;
+        });
+    }
+
+    /**
+     * Save a new version of the record compression dictionary of the given record type. Older versions are kept,
+     * as records compressed with them remain readable only as long as they are registered with the serializer.
+     *
+     * @param recordTypeName the name of the record type the dictionary was trained for
+     * @param dictionary the dictionary
+     * @return a future that completes to the version of the saved dictionary
+     * @see OnlineDictionaryTrainer
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public CompletableFuture<Long> saveCompressionDictionaryAsync(@Nonnull String recordTypeName, @Nonnull byte[] dictionary) {
+        final Subspace typeSubspace = compressionDictionarySubspace().subspace(Tuple.from(recordTypeName));
+        final Transaction tr = ensureContextActive();
+        return tr.getRange(typeSubspace.range(), 1, true).asList().thenApply(kvs -> {
+            final long version = kvs.isEmpty() ? 1L : typeSubspace.unpack(kvs.get(0).getKey()).getLong(0) + 1;
+            tr.set(typeSubspace.pack(version), dictionary);
+            return version;
+        });
+    }
+
     // Remove any indexes that do not match the filter.
     // NOTE: This assumes that the filter will not filter out any indexes if all indexes are readable.
     private List<Index> sanitizeIndexes(@Nonnull List<Index> indexes, @Nonnull Predicate<Index> filter) {
@@ -4946,6 +5311,7 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         IndexingRangeSet.forIndexBuild(this, index).clear();
         // clear even if non-unique in case the index was previously unique
         context.clear(indexUniquenessViolationsSubspace(index).range());
+        context.clear(indexStatisticsKey(index));
         // Under the index build subspace, there are multiple lower level subspaces - the lock subspace and few others. We are
         // not supposed to clear the lock subspace, which might have been used to an online index job that had invoked this method.
         IndexingSubspaces.eraseAllIndexingDataButTheLock(context, this, index);
@@ -4970,6 +5336,7 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
         context.clear(getSubspace().range(Tuple.from(INDEX_RANGE_SPACE_KEY, formerIndex.getSubspaceTupleKey())));
         context.clear(getSubspace().pack(Tuple.from(INDEX_STATE_SPACE_KEY, formerIndex.getSubspaceTupleKey())));
         context.clear(getSubspace().range(Tuple.from(INDEX_UNIQUENESS_VIOLATIONS_KEY, formerIndex.getSubspaceTupleKey())));
+        context.clear(getSubspace().pack(Tuple.from(INDEX_STATISTICS_SPACE_KEY, formerIndex.getSubspaceTupleKey())));
         if (getTimer() != null) {
             getTimer().recordSinceNanoTime(FDBStoreTimer.Events.REMOVE_FORMER_INDEX, startTime);
         }
@@ -5722,9 +6089,17 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
          *             MetaDataVersion will be bumped, ensuring that any other potential instances stop using the cache.
          *         </li>
          *         <li>
+         *             The {@link #setRecordsCacheability recordsCacheability} will be disabled, so no cached records
+         *             will be used for the store.
+         *         </li>
+         *         <li>
          *             Any Store Lock State (see {@link #setStoreLockStateAsync(RecordMetaDataProto.DataStoreInfo.StoreLockState.State, String)}).<br/>
          *             Unless restored by the user, any previous store lock state will be cleared.
          *         </li>
+         *         <li>
+         *             Any {@linkplain #isIndexBulkLoading bulk loads} in progress will be forgotten. Records saved
+         *             after that are not marked for the bulk load, so the build of any such index should be restarted.
+         *         </li>
          *     </ul>
          * </p>
          *
@@ -5775,6 +6150,8 @@ public class FDBRecordStore extends FDBStoreBase implements FDBRecordStoreBase<M
             // These values cannot be repaired automatically:
             //     * user_field
             //     * Store lock state
+            //     * records_cacheable, which is safe to leave disabled, as the record cache is not used at all then
+            //     * bulk_loading_index, which is not safe to lose during a bulk load, so such index builds must restart
             // users can set after repairing as they see fit, transactionally before doing anything else.
 
             // We cannot tell whether the recordCountKey had changed since the last time we did checkVersion, so
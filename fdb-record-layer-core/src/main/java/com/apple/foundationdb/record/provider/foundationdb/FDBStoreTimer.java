@@ -246,6 +246,8 @@ public class FDBStoreTimer extends StoreTimer {
         TIME_WINDOW_LEADERBOARD_SAVE_SUB_DIRECTORY("leaderboard save sub-directory"),
         /** The amount of time spent during backoff delay on retryable errors in {@link FDBDatabase#run}. */
         RETRY_DELAY("retry delay"),
+        /** The amount of time maintenance jobs spent waiting for a turn from a {@link com.apple.foundationdb.record.provider.foundationdb.runners.throttled.MaintenanceScheduler}. */
+        MAINTENANCE_SCHEDULER_WAIT("maintenance scheduler wait"),
         /** The total number of timeouts that have happened during asyncToSync and their durations. */
         TIMEOUTS("timeouts"),
         /** Total number and duration of commits. */
@@ -393,6 +395,8 @@ public class FDBStoreTimer extends StoreTimer {
         WAIT_CHECK_ONGOING_ONLINE_INDEX_BUILD("wait for checking ongoing online index builds"),
         /** Wait for {@link OnlineIndexer} to complete ongoing online index merge(s). */
         WAIT_ONLINE_MERGE_INDEX("wait for online merge index"),
+        /** Wait for {@link OnlineDictionaryTrainer} to train a compression dictionary. */
+        WAIT_TRAIN_COMPRESSION_DICTIONARY("wait for training compression dictionary"),
         /** Wait for {@link OnlineIndexer} to build endpoints. */
         WAIT_BUILD_ENDPOINTS("wait for building endpoints"),
         /** Wait for a record scan without an index. */
@@ -454,6 +458,8 @@ public class FDBStoreTimer extends StoreTimer {
         WAIT_GET_BOUNDARY("wait for boundary result from locality api"),
         /** Wait for setting the store state cacheability. */
         WAIT_SET_STATE_CACHEABILITY("wait to set state cacheability"),
+        /** Wait to set whether the records of a store are cacheable. */
+        WAIT_SET_RECORDS_CACHEABILITY("wait to set records cacheability"),
         /** Wait for initializing a synchronized session. */
         WAIT_INIT_SYNC_SESSION("wait for initializing a synchronized session"),
         /** Wait for checking a synchronized session. */
@@ -464,6 +470,8 @@ public class FDBStoreTimer extends StoreTimer {
         WAIT_EDIT_HEADER_USER_FIELD("wait to edit a header user field"),
         /** Wait to read a key from the FDB system keyspace. */
         WAIT_LOAD_SYSTEM_KEY("wait for reading a key from the FDB system keyspace"),
+        /** Wait to load the index statistics used by the planner. */
+        WAIT_LOAD_PLANNER_STATISTICS("wait for load planner statistics"),
         /** Wait to perform validation of resolver reverse directory mapping. */
         WAIT_VALIDATE_RESOLVER("wait validating resolver"),
         /** wait to load partition metadata for one or more grouping key. */
@@ -510,6 +518,14 @@ public class FDBStoreTimer extends StoreTimer {
         STORE_STATE_CACHE_HIT("store info cache hit", false),
         /** The number of times the store state cache was unable to return a cached result. */
         STORE_STATE_CACHE_MISS("store info cache miss", false),
+        /** The number of times a record was loaded from the transaction's record read cache. */
+        RECORD_READ_CACHE_HIT("record read cache hit", false),
+        /** The number of times a record was not found in the transaction's record read cache. */
+        RECORD_READ_CACHE_MISS("record read cache miss", false),
+        /** The number of times a record was loaded from the database's {@link FDBRecordCache}. */
+        RECORD_CACHE_HIT("record cache hit", false),
+        /** The number of times a record of a cacheable store was not found in the database's {@link FDBRecordCache}. */
+        RECORD_CACHE_MISS("record cache miss", false),
         /** The number of record key-value pairs saved. */
         SAVE_RECORD_KEY("number of record keys saved", false, null, true),
         /** The size of keys for record key-value pairs saved. */
@@ -522,6 +538,10 @@ public class FDBStoreTimer extends StoreTimer {
         LOAD_KEY_VALUE("number of keys loaded", false),
         /** The number of entries loaded when scanning a text index. */
         LOAD_TEXT_ENTRY("number of text entries loaded", false),
+        /** The number of documents fully scored by a {@link com.apple.foundationdb.record.IndexScanType#BY_TEXT_SCORE} scan. */
+        TEXT_SCORE_DOCUMENTS_SCORED("number of text documents scored", false),
+        /** The number of documents skipped by a {@link com.apple.foundationdb.record.IndexScanType#BY_TEXT_SCORE} scan because they could not make the top results. */
+        TEXT_SCORE_DOCUMENTS_PRUNED("number of text documents pruned from scoring", false),
         /** The number of record key-value pairs loaded. */
         LOAD_RECORD_KEY("number of record keys loaded", false),
         /** The size of keys for record key-value pairs loaded. */
@@ -641,6 +661,8 @@ public class FDBStoreTimer extends StoreTimer {
         QUERY_INTERSECTION_PLAN_MATCHES("number of matching records found by RecordQueryIntersectionPlan", false),
         /** The number of non-matching records found by {@link com.apple.foundationdb.record.query.plan.plans.RecordQueryIntersectionPlan}. */
         QUERY_INTERSECTION_PLAN_NONMATCHES("number of non-matching records found by RecordQueryIntersectionPlan", false),
+        /** The number of times an intersection re-opened a child cursor at a later key rather than reading up to it. */
+        QUERY_INTERSECTION_SEEKS("number of intersection child cursors re-opened at a later key", false),
         /** The number of duplicate records found by {@link com.apple.foundationdb.record.query.plan.plans.RecordQueryUnorderedDistinctPlan}. */
         QUERY_UNION_PLAN_DUPLICATES("number of duplicates found by RecordQueryUnorderedDistinctPlan", false),
         /** The number of unique records found by {@link com.apple.foundationdb.record.query.plan.plans.RecordQueryUnorderedDistinctPlan}. */
@@ -651,6 +673,24 @@ public class FDBStoreTimer extends StoreTimer {
         QUERY_AGGREGATE_GROUPS("number of aggregate groups", false),
         /** The max size of aggregate group created by {@link RecordQueryStreamingAggregationPlan}. */
         QUERY_AGGREGATE_GROUP_MAX_SIZE("max size of aggregate group", false),
+        /** The number of query plans that include a {@link com.apple.foundationdb.record.query.plan.plans.RecordQueryHashJoinPlan}. */
+        PLAN_HASH_JOIN("number of hash join plans", false),
+        /** The number of build side records loaded into the hash table of a {@link com.apple.foundationdb.record.cursors.HashJoinCursor}. */
+        QUERY_HASH_JOIN_BUILD_RECORDS("number of records loaded into hash join tables", false),
+        /** The number of build side records spilled to temporary files by a {@link com.apple.foundationdb.record.cursors.HashJoinCursor}. */
+        QUERY_HASH_JOIN_SPILLED_RECORDS("number of records spilled by hash joins", false),
+        /** The number of partitions (probe passes) used by a {@link com.apple.foundationdb.record.cursors.HashJoinCursor} that had to spill. */
+        QUERY_HASH_JOIN_PARTITIONS("number of hash join partitions", false),
+        /** The number of times a {@link com.apple.foundationdb.record.cursors.HashJoinCursor} could not read its build side within the execution limits and switched to a nested loop join. */
+        QUERY_HASH_JOIN_NESTED_LOOP_FALLBACKS("number of hash joins that fell back to nested loop joins", false),
+        /** The number of query plans that include a {@link com.apple.foundationdb.record.query.plan.plans.RecordQueryHashAggregationPlan}. */
+        PLAN_HASH_AGGREGATE("number of hash aggregate plans", false),
+        /** The number of passes over its input made by a {@link com.apple.foundationdb.record.cursors.aggregate.HashAggregateCursor}. */
+        QUERY_HASH_AGGREGATE_PASSES("number of hash aggregate passes", false),
+        /** The number of records and partial groups spilled to temporary files by a {@link com.apple.foundationdb.record.cursors.aggregate.HashAggregateCursor}. */
+        QUERY_HASH_AGGREGATE_SPILLED_RECORDS("number of records spilled by hash aggregates", false),
+        /** The number of times a {@link com.apple.foundationdb.record.cursors.aggregate.HashAggregateCursor} had to exceed its group budget because it could not partition further. */
+        QUERY_HASH_AGGREGATE_OVER_BUDGET("number of hash aggregate passes over budget", false),
         /** The number of query plans that include a {@link com.apple.foundationdb.record.query.plan.plans.RecordQueryComparatorPlan}. */
         PLAN_COMPARATOR("number of comparator plans", false),
         /** The number of query plans that include a {@link com.apple.foundationdb.record.query.plan.plans.RecordQuerySelectorPlan}. */
@@ -686,9 +726,33 @@ public class FDBStoreTimer extends StoreTimer {
         /** {@link IndexingMutuallyByRecords} counter: done indexing an 'ANY' fragment. */
         MUTUAL_INDEXER_ANY_JUMP("counter: had conflicts while indexing an 'ANY' fragment, jump ahead", false),
         /** {@link IndexingMutuallyByRecords} counter: had conflicts while indexing an 'ANY' fragment, jump ahead. */
+        /** {@link IndexingMutuallyByRecords} counter: claimed a range from the work queue. */
+        MUTUAL_INDEXER_QUEUE_CLAIM("counter: claimed a work queue range", false),
+        /** {@link IndexingMutuallyByRecords} counter: done indexing a range claimed from the work queue. */
+        MUTUAL_INDEXER_QUEUE_DONE("counter: done indexing a work queue range", false),
+        /** {@link IndexingMutuallyByRecords} counter: split a range claimed by another indexer and claimed its upper part. */
+        MUTUAL_INDEXER_QUEUE_SPLIT("counter: split a work queue range", false),
+        /** {@link IndexingMutuallyByRecords} counter: stopped indexing a range whose claim was taken over by another indexer. */
+        MUTUAL_INDEXER_QUEUE_LEASE_LOST("counter: lost the claim of a work queue range", false),
+        /** {@link IndexingMutuallyByRecords} counter: found no range to claim or split, and waited for a lease to expire. */
+        MUTUAL_INDEXER_QUEUE_WAIT("counter: waited for a work queue lease to expire", false),
+        /** The number of index entries written by an {@link OnlineIndexer} bulk load. */
+        ONLINE_INDEX_BUILDER_BULK_LOAD_ENTRIES("number of index entries written by a bulk load", false),
+        /** The number of index entries that an {@link OnlineIndexer} bulk load skipped because their record changed meanwhile. */
+        ONLINE_INDEX_BUILDER_BULK_LOAD_SKIPPED("number of bulk load index entries skipped for changed records", false),
+        /** The number of times an {@link OnlineIndexer} lowered its records per second rate because the cluster was loaded. */
+        ONLINE_INDEX_BUILDER_RATE_DECREASED("number of times the online index records per second rate was lowered", false),
+        /** The number of transactions reported by the jobs of a {@link com.apple.foundationdb.record.provider.foundationdb.runners.throttled.MaintenanceScheduler}. */
+        MAINTENANCE_SCHEDULER_TRANSACTIONS("number of maintenance transactions", false),
+        /** The number of records reported by the jobs of a {@link com.apple.foundationdb.record.provider.foundationdb.runners.throttled.MaintenanceScheduler}. */
+        MAINTENANCE_SCHEDULER_RECORDS("number of maintenance records", false),
+        /** The number of bytes reported by the jobs of a {@link com.apple.foundationdb.record.provider.foundationdb.runners.throttled.MaintenanceScheduler}. */
+        MAINTENANCE_SCHEDULER_BYTES("number of maintenance bytes", true),
         INDEX_SCRUBBER_MISSING_ENTRIES("number of missing index entries detected by online scrubber", false),
         /** The number of dangling index entries detected by online scrubber. */
         INDEX_SCRUBBER_DANGLING_ENTRIES("number of dangling index entries detected by online scrubber", false),
+        /** The number of logged index changes re-verified by an incremental online scrubber. */
+        INDEX_SCRUBBER_CHANGES_VERIFIED("number of logged index changes verified by online scrubber", false),
         /** The number of times that a leaderboard update adds a time window. */
         TIME_WINDOW_LEADERBOARD_ADD_WINDOW("number of leaderboard windows added", false),
         /** The number of times that a leaderboard update deleted a time window. */
@@ -753,6 +817,14 @@ public class FDBStoreTimer extends StoreTimer {
         MULTIDIMENSIONAL_INTERMEDIATE_NODE_WRITES("intermediate nodes written", false),
         MULTIDIMENSIONAL_INTERMEDIATE_NODE_WRITE_BYTES("intermediate node bytes written", true),
         MULTIDIMENSIONAL_CHILD_NODE_DISCARDS("child node discards", false),
+        /** Count of the nodes of a vector index graph read during searches. */
+        VECTOR_NODE_READS("vector index nodes read", false),
+        /** Total size of the nodes of a vector index graph read during searches. */
+        VECTOR_NODE_READ_BYTES("vector index node bytes read", true),
+        /** Count of the exact vectors read to re-rank the result of a search of a quantized vector index. */
+        VECTOR_EXACT_VECTOR_READS("vector index exact vectors read", false),
+        /** Total size of the exact vectors read to re-rank the result of a search of a quantized vector index. */
+        VECTOR_EXACT_VECTOR_READ_BYTES("vector index exact vector bytes read", true),
         /** Count of the locks created. */
         LOCKS_ATTEMPTED("number of attempts to register a lock", false),
         /** Count of the locks released. */
@@ -156,6 +156,22 @@ public enum FormatVersion implements Comparable<FormatVersion> {
      * This FormatVersion supports setting a store lock state.
      */
     STORE_LOCK_STATE(12),
+    /**
+     * This FormatVersion allows the records of a store to be cached across transactions. Every process writing to
+     * a store whose records are cacheable must know to update the store's record cache version along with the
+     * records, or else other processes would keep using outdated cached records.
+     * @see FDBRecordStore#setRecordsCacheability
+     * @see FDBRecordCache
+     */
+    RECORDS_CACHEABLE(13),
+    /**
+     * This FormatVersion allows indexes to be bulk loaded by the {@link OnlineIndexer}. While an index is bulk
+     * loaded, every process saving records must mark them for the bulk load, or else the bulk load could write index
+     * entries for outdated versions of the records.
+     * @see RecordMetaDataProto.DataStoreInfo#getBulkLoadingIndexList()
+     * @see OnlineIndexer.IndexingPolicy.Builder#setBulkLoad(boolean)
+     */
+    BULK_LOAD_STATE(14),
     ;
 
     private final int value;
@@ -20,6 +20,8 @@
 
 package com.apple.foundationdb.record.provider.foundationdb;
 
+import com.apple.foundationdb.KeyValue;
+import com.apple.foundationdb.ReadTransaction;
 import com.apple.foundationdb.annotation.API;
 import com.apple.foundationdb.async.AsyncUtil;
 import com.apple.foundationdb.async.RangeSet;
@@ -34,6 +36,7 @@ import com.apple.foundationdb.record.logging.KeyValueLogMessage;
 import com.apple.foundationdb.record.logging.LogMessageKeys;
 import com.apple.foundationdb.record.metadata.Index;
 import com.apple.foundationdb.record.metadata.MetaDataException;
+import com.apple.foundationdb.record.provider.foundationdb.indexing.IndexScrubbingChangeLog;
 import com.apple.foundationdb.record.provider.foundationdb.indexing.IndexingRangeSet;
 import com.apple.foundationdb.subspace.Subspace;
 import com.apple.foundationdb.tuple.Tuple;
@@ -47,6 +50,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -89,6 +93,7 @@ public class IndexScrubbing extends IndexingBase {
                 LogMessageKeys.ALLOW_REPAIR, scrubbingPolicy.allowRepair(),
                 LogMessageKeys.RANGE_ID, scrubbingPolicy.getScrubbingRangeId(),
                 LogMessageKeys.RANGE_RESET, scrubbingPolicy.isScrubbingRangeReset(),
+                LogMessageKeys.INCREMENTAL, scrubbingPolicy.isIncremental(),
                 LogMessageKeys.SCRUB_TYPE, scrubbingType,
                 LogMessageKeys.SCAN_LIMIT, scrubbingPolicy.getEntriesScanLimit()
         );
@@ -158,6 +163,10 @@ public class IndexScrubbing extends IndexingBase {
         tools.presetCommonParams(index, scrubbingPolicy.allowRepair(), common.getIndexContext().isSynthetic, common.getAllRecordTypes());
 
         return rangeSet.firstMissingRangeAsync().thenCompose(range -> {
+            if (range == null && scrubbingPolicy.isIncremental()) {
+                // Here: the whole range was scrubbed. Keep it that way, and only re-verify what has changed since.
+                return indexScrubChangesOnly(store, recordsScanned, index, tools, isIdempotent);
+            }
             if (range == null) {
                 // Here: no more missing ranges - all done
                 // This scrubbing is done. Clear the rangeSet - the next time scrubbing is called it will start from scratch
@@ -184,6 +193,40 @@ public class IndexScrubbing extends IndexingBase {
         });
     }
 
+    private <T> CompletableFuture<Boolean> indexScrubChangesOnly(final @Nonnull FDBRecordStore store, final @Nonnull AtomicLong recordsScanned, final Index index, final IndexScrubbingTools<T> tools, boolean isIdempotent) {
+        final IndexScrubbingChangeLog changeLog = IndexScrubbingChangeLog.forIndex(store, index);
+        final int limit = getLimit();
+        return changeLog.readAsync(scrubbingType, limit + 1).thenCompose(entries -> {
+            if (entries.isEmpty()) {
+                // Here: nothing has changed since the last scrubbing
+                return AsyncUtil.READY_FALSE;
+            }
+            final boolean hasMoreChanges = entries.size() > limit;
+            final List<KeyValue> changes = hasMoreChanges ? entries.subList(0, limit) : entries;
+            final long scanLimit = scrubbingPolicy.getEntriesScanLimit();
+            List<IndexScrubbingTools.Issue> issueList = new LinkedList<>();
+            final AtomicInteger verifiedCount = new AtomicInteger();
+
+            // Each logged key is either a whole index entry key or a primary key, so its cursor returns one item at most.
+            // It is read to its end, as there is no next item that could serve as a continuation.
+            return iterateKeysOnly(store, changes,
+                    change -> tools.getCursor(TupleRange.allOf(IndexScrubbingChangeLog.getLoggedKey(change)), store, ReadTransaction.ROW_LIMIT_UNLIMITED),
+                    (recordStore, result) -> handleOneItem(recordStore, result, tools, issueList),
+                    recordsScanned, isIdempotent)
+                    .thenApply(changesVerified -> {
+                        // only consume the changes that were verified, the rest are left for the next transaction
+                        changeLog.clearThrough(scrubbingType, changes.get(changesVerified - 1));
+                        verifiedCount.set(changesVerified);
+                        return hasMoreChanges || changesVerified < changes.size();
+                    })
+                    .thenApply(ret -> checkScanLimit(ret, recordsScanned, scanLimit))
+                    .whenComplete((ignore, err) -> {
+                        reportIssues(issueList, err);
+                        reportChanges(verifiedCount.get(), err);
+                    });
+        });
+    }
+
     private <T> CompletableFuture<FDBStoredRecord<Message>> handleOneItem(FDBRecordStore store, final RecordCursorResult<T> result, final IndexScrubbingTools<T> tools, List<IndexScrubbingTools.Issue> issueList) {
         return tools.handleOneItem(store, result)
                 .thenApply(issue -> {
@@ -230,6 +273,13 @@ public class IndexScrubbing extends IndexingBase {
         }
     }
 
+    private void reportChanges(int changesCount, Throwable err) {
+        final FDBStoreTimer timer = getRunner().getTimer();
+        if (err == null && timer != null) {
+            timer.increment(FDBStoreTimer.Counts.INDEX_SCRUBBER_CHANGES_VERIFIED, changesCount);
+        }
+    }
+
     IndexingRangeSet getRangeset(FDBRecordStore store, Index index) {
         switch (scrubbingType) {
             case MISSING:
@@ -255,6 +305,12 @@ public class IndexScrubbing extends IndexingBase {
         if (scrubbingPolicy.isScrubbingRangeReset()) {
             logScrubberRangeReset("forced reset");
             rangeSet.clear();
+            // the whole range is about to be scrubbed, including the logged changes
+            IndexScrubbingChangeLog.forIndex(store, index).clear(scrubbingType);
+            return AsyncUtil.DONE;
+        }
+        if (scrubbingPolicy.isIncremental()) {
+            // an exhausted range means that only the logged changes need scrubbing
             return AsyncUtil.DONE;
         }
         return rangeSet.firstMissingRangeAsync()
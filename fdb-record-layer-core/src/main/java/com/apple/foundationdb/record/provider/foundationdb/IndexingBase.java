@@ -77,6 +77,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
@@ -295,6 +296,8 @@ public abstract class IndexingBase {
             return AsyncUtil.whenAll(indexesToClear.stream().map(store::clearAndMarkIndexWriteOnly).collect(Collectors.toList()))
                     .thenCompose(vignore -> markIndexesWriteOnly(continuedBuild, store))
                     .thenCompose(vignore -> setIndexingTypeOrThrow(store, continuedBuild))
+                    // A bulk load decides for itself whether to restart an interrupted bulk load.
+                    .thenCompose(vignore -> policy.isBulkLoad() ? AsyncUtil.DONE : IndexingBulkLoader.abandonAsync(store, targetIndexes))
                     .thenApply(ignore -> true);
         }), common.indexLogMessageKeyValues("IndexingBase::handleIndexingState")
         ).thenCompose(doIndex ->
@@ -570,6 +573,12 @@ public abstract class IndexingBase {
 
     // Helpers for implementing modules. Some of them are public to support unit-testing.
     protected CompletableFuture<Boolean> doneOrThrottleDelayAndMaybeLogProgress(boolean done, SubspaceProvider subspaceProvider, List<Object> additionalLogMessageKeyValues) {
+        return doneOrThrottleDelayAndMaybeLogProgress(done, subspaceProvider, additionalLogMessageKeyValues, throttle);
+    }
+
+    private CompletableFuture<Boolean> doneOrThrottleDelayAndMaybeLogProgress(boolean done, SubspaceProvider subspaceProvider,
+                                                                              List<Object> additionalLogMessageKeyValues,
+                                                                              @Nonnull IndexingThrottle throttle) {
         if (done) {
             return AsyncUtil.READY_FALSE;
         }
@@ -713,21 +722,97 @@ public abstract class IndexingBase {
                                                 recordsScannedCounter, hasMore, isIdempotent)
                                 ), cursor.getExecutor()))
                 .thenApply(vignore -> {
-                    long recordsScannedInTransaction = recordsScannedCounter.get();
-                    if (recordsScanned != null) {
-                        recordsScanned.addAndGet(recordsScannedInTransaction);
+                    addRecordsScanned(store, recordsScannedCounter.get(), recordsScanned);
+                    return null;
+                });
+    }
+
+    /**
+     * iterate a list of keys, and index the items of each key's cursor. Unlike {@link #iterateRangeOnly}, there is
+     * no look-ahead item: each key's cursor is read to its end, and the transaction's limits are only checked between
+     * keys.
+     *
+     * @param store the record store.
+     * @param keys the keys to iterate, in order.
+     * @param getCursor function to open a cursor, without a row limit, over the items of a key.
+     * @param getRecordToIndex function to convert cursor's item to a record that should be indexed (or null, if inapplicable)
+     * @param recordsScanned when return, number of scanned records.
+     * @param isIdempotent are all the built indexes idempotent
+     * @param <K> key's type.
+     * @param <T> cursor result's type.
+     *
+     * @return the number of keys that were processed, which is less than the number of keys if the transaction had
+     * reached its limits first.
+     */
+    @SuppressWarnings("PMD.CloseResource")
+    protected <K, T> CompletableFuture<Integer> iterateKeysOnly(@Nonnull FDBRecordStore store,
+                                                                @Nonnull List<K> keys,
+                                                                @Nonnull Function<K, RecordCursor<T>> getCursor,
+                                                                @Nonnull BiFunction<FDBRecordStore, RecordCursorResult<T>, CompletableFuture<FDBStoredRecord<Message>>> getRecordToIndex,
+                                                                @Nullable AtomicLong recordsScanned,
+                                                                final boolean isIdempotent) {
+        AtomicLong recordsScannedCounter = new AtomicLong();
+        AtomicInteger keysProcessed = new AtomicInteger();
+        deferAutoMergeDuringCommit(store);
+
+        return validateTypeStamp(store)
+                .thenCompose(ignore ->
+                        AsyncUtil.whileTrue(() -> {
+                            if (keysProcessed.get() >= keys.size()) {
+                                return AsyncUtil.READY_FALSE;
+                            }
+                            final RecordCursor<T> cursor = getCursor.apply(keys.get(keysProcessed.get()));
+                            return cursor.forEachResultAsync(result -> indexOneItem(store, result, getRecordToIndex, recordsScannedCounter, isIdempotent))
+                                    .whenComplete((result, err) -> cursor.close())
+                                    .thenCompose(lastResult -> {
+                                        if (!lastResult.getNoNextReason().isSourceExhausted()) {
+                                            throw new RecordCoreException("cursor of a single key stopped before its end")
+                                                    .addLogInfo(LogMessageKeys.NO_NEXT_REASON, lastResult.getNoNextReason());
+                                        }
+                                        keysProcessed.incrementAndGet();
+                                        return hadTransactionReachedLimits(store).thenApply(shouldCommit -> !shouldCommit);
+                                    });
+                        }, store.getExecutor()))
+                .thenApply(vignore -> {
+                    addRecordsScanned(store, recordsScannedCounter.get(), recordsScanned);
+                    return keysProcessed.get();
+                });
+    }
+
+    private <T> CompletableFuture<Void> indexOneItem(@Nonnull FDBRecordStore store,
+                                                     @Nonnull RecordCursorResult<T> result,
+                                                     @Nonnull BiFunction<FDBRecordStore, RecordCursorResult<T>, CompletableFuture<FDBStoredRecord<Message>>> getRecordToIndex,
+                                                     @Nonnull AtomicLong recordsScannedCounter,
+                                                     final boolean isIdempotent) {
+        timerIncrement(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_SCANNED);
+        recordsScannedCounter.incrementAndGet();
+        return getRecordToIndex.apply(store, result)
+                .thenCompose(rec -> {
+                    if (null == rec) {
+                        return AsyncUtil.DONE;
                     }
-                    if (common.isTrackProgress()) {
-                        for (Index index: common.getTargetIndexes()) {
-                            final Subspace scannedRecordsSubspace = IndexingSubspaces.indexBuildScannedRecordsSubspace(store, index);
-                            store.context.ensureActive().mutate(MutationType.ADD, scannedRecordsSubspace.getKey(),
-                                    FDBRecordStore.encodeRecordCount(recordsScannedInTransaction));
-                        }
+                    // This record should be indexed. Add it to the transaction.
+                    if (isIdempotent) {
+                        store.addRecordReadConflict(rec.getPrimaryKey());
                     }
-                    return null;
+                    timerIncrement(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_INDEXED);
+                    return updateMaintainerBuilder(store, rec);
                 });
     }
 
+    private void addRecordsScanned(@Nonnull FDBRecordStore store, long recordsScannedInTransaction, @Nullable AtomicLong recordsScanned) {
+        if (recordsScanned != null) {
+            recordsScanned.addAndGet(recordsScannedInTransaction);
+        }
+        if (common.isTrackProgress()) {
+            for (Index index: common.getTargetIndexes()) {
+                final Subspace scannedRecordsSubspace = IndexingSubspaces.indexBuildScannedRecordsSubspace(store, index);
+                store.context.ensureActive().mutate(MutationType.ADD, scannedRecordsSubspace.getKey(),
+                        FDBRecordStore.encodeRecordCount(recordsScannedInTransaction));
+            }
+        }
+    }
+
     @SuppressWarnings("squid:S00107") // too many parameters
     private <T> CompletableFuture<Boolean> handleCursorResult(@Nonnull FDBRecordStore store,
                                                               @Nonnull RecordCursorResult<T> cursorResult,
@@ -959,7 +1044,18 @@ public abstract class IndexingBase {
                                                        BiFunction<FDBRecordStore, AtomicLong,  CompletableFuture<Boolean>> iterateRange,
                                                        @Nonnull SubspaceProvider subspaceProvider, @Nonnull Subspace subspace,
                                                        @Nullable Function<FDBException, Optional<Boolean>> shouldReturnQuietly) {
+        return iterateAllRanges(additionalLogMessageKeyValues, iterateRange, subspaceProvider, subspace, shouldReturnQuietly, throttle);
+    }
 
+    /**
+     * Iterate ranges like {@link #iterateAllRanges(List, BiFunction, SubspaceProvider, Subspace)}, but adjusting the
+     * limits of the given throttle. This allows building several ranges concurrently, each with its own throttle.
+     */
+    protected CompletableFuture<Void> iterateAllRanges(List<Object> additionalLogMessageKeyValues,
+                                                       BiFunction<FDBRecordStore, AtomicLong,  CompletableFuture<Boolean>> iterateRange,
+                                                       @Nonnull SubspaceProvider subspaceProvider, @Nonnull Subspace subspace,
+                                                       @Nullable Function<FDBException, Optional<Boolean>> shouldReturnQuietly,
+                                                       @Nonnull IndexingThrottle throttle) {
         return AsyncUtil.whileTrue(() ->
                     throttle.buildCommitRetryAsync(iterateRange, shouldReturnQuietly, additionalLogMessageKeyValues, true)
                             .handle((hasMore, ex) -> {
@@ -967,9 +1063,9 @@ public abstract class IndexingBase {
                                     final Set<Index> indexSet = throttle.getAndResetMergeRequiredIndexes();
                                     if (indexSet != null && !indexSet.isEmpty()) {
                                         return mergeIndexes(indexSet, subspaceProvider)
-                                                .thenCompose(ignore -> doneOrThrottleDelayAndMaybeLogProgress(!hasMore, subspaceProvider, additionalLogMessageKeyValues));
+                                                .thenCompose(ignore -> doneOrThrottleDelayAndMaybeLogProgress(!hasMore, subspaceProvider, additionalLogMessageKeyValues, throttle));
                                     }
-                                    return doneOrThrottleDelayAndMaybeLogProgress(!hasMore, subspaceProvider, additionalLogMessageKeyValues);
+                                    return doneOrThrottleDelayAndMaybeLogProgress(!hasMore, subspaceProvider, additionalLogMessageKeyValues, throttle);
                                 }
                                 final RuntimeException unwrappedEx = getRunner().getDatabase().mapAsyncToSyncException(ex);
                                 if (LOGGER.isInfoEnabled()) {
@@ -1010,6 +1106,10 @@ public abstract class IndexingBase {
     }
 
     protected ScanProperties scanPropertiesWithLimits(boolean isIdempotent) {
+        return scanPropertiesWithLimits(isIdempotent, getLimit());
+    }
+
+    protected ScanProperties scanPropertiesWithLimits(boolean isIdempotent, int limit) {
         final IsolationLevel isolationLevel =
                 isIdempotent ?
                 IsolationLevel.SNAPSHOT :
@@ -1017,7 +1117,7 @@ public abstract class IndexingBase {
         final boolean isReverse = policy.isReverseScanOrder();
         final ExecuteProperties.Builder executeProperties = ExecuteProperties.newBuilder()
                 .setIsolationLevel(isolationLevel)
-                .setReturnedRowLimit(getLimit() + (isReverse ? 0 : 1)); // always respect limit in this path; +1 allows a continuation item in forward scan
+                .setReturnedRowLimit(limit + (isReverse ? 0 : 1)); // always respect limit in this path; +1 allows a continuation item in forward scan
 
         return new ScanProperties(executeProperties.build(), isReverse);
     }
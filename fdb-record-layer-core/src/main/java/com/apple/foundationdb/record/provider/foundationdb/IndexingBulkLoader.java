@@ -0,0 +1,546 @@
+/*
+ * IndexingBulkLoader.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.MutationType;
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.async.RangeSet;
+import com.apple.foundationdb.record.IndexEntry;
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.ScanProperties;
+import com.apple.foundationdb.record.TupleRange;
+import com.apple.foundationdb.record.logging.KeyValueLogMessage;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.metadata.IndexTypes;
+import com.apple.foundationdb.record.provider.common.CipherPool;
+import com.apple.foundationdb.record.provider.foundationdb.indexes.ValueIndexMaintainer;
+import com.apple.foundationdb.record.provider.foundationdb.indexing.IndexingBulkLoadState;
+import com.apple.foundationdb.record.provider.foundationdb.indexing.IndexingRangeSet;
+import com.apple.foundationdb.record.sorting.FileSortAdapter;
+import com.apple.foundationdb.record.sorting.FileSorter;
+import com.apple.foundationdb.record.sorting.MemorySortAdapter;
+import com.apple.foundationdb.record.sorting.MemorySorter;
+import com.apple.foundationdb.record.sorting.SortedFileReader;
+import com.apple.foundationdb.subspace.Subspace;
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.common.base.Suppliers;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.crypto.KeyGenerator;
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk load new value indexes for {@link IndexingMultiTargetByRecords}. Rather than updating the indexes record by
+ * record, which scatters the writes across the index key space, the records are scanned once and their index entries
+ * are sorted by a {@link FileSorter}. The sorted entries are then written in index key order, so that each
+ * transaction writes a contiguous range of each index.
+ *
+ * <p>
+ * The records range is only marked as built once all the entries are written. Until then, the records that are saved
+ * are tracked in the {@link IndexingBulkLoadState}, and the entries extracted from their older versions are skipped.
+ * A bulk load that is interrupted starts over. A build that does not bulk load the indexes abandons the state of an
+ * interrupted bulk load (see {@link #abandonAsync}).
+ * </p>
+ */
+@API(API.Status.INTERNAL)
+class IndexingBulkLoader {
+    @Nonnull
+    private static final Logger LOGGER = LoggerFactory.getLogger(IndexingBulkLoader.class);
+    // Keep the transactions writing sorted entries well below the transaction size limit.
+    private static final int WRITE_BATCH_BYTES = 1_000_000;
+
+    @Nonnull
+    private final IndexingBase indexer;
+    @Nonnull
+    private final IndexingCommon common;
+    @Nonnull
+    private final SubspaceProvider subspaceProvider;
+    @Nonnull
+    private final SortAdapter adapter;
+
+    IndexingBulkLoader(@Nonnull IndexingBase indexer, @Nonnull IndexingCommon common, @Nonnull SubspaceProvider subspaceProvider) {
+        this.indexer = indexer;
+        this.common = common;
+        this.subspaceProvider = subspaceProvider;
+        this.adapter = new SortAdapter(indexer.policy.getBulkLoadSortRunSize(), indexer.policy.getBulkLoadSortMaxFileCount());
+    }
+
+    /**
+     * Abandon any interrupted bulk load of the given indexes, which are about to be built some other way. This stops
+     * saved records from being marked for the bulk load. The entries that the bulk load already wrote were current when
+     * written and have been maintained since, so they can stay.
+     * @param store the store containing the indexes
+     * @param indexes the indexes being built
+     * @return a future that completes when the state of any interrupted bulk load is removed
+     */
+    @Nonnull
+    static CompletableFuture<Void> abandonAsync(@Nonnull FDBRecordStore store, @Nonnull List<Index> indexes) {
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Index index : indexes) {
+            final IndexingBulkLoadState bulkLoadState = IndexingBulkLoadState.forIndexBuild(store, index);
+            if (bulkLoadState.isActive()) {
+                if (LOGGER.isInfoEnabled()) {
+                    LOGGER.info(KeyValueLogMessage.build("abandoning interrupted bulk load",
+                                    LogMessageKeys.INDEX_NAME, index.getName())
+                            .toString());
+                }
+                futures.add(bulkLoadState.clearAsync());
+            }
+        }
+        return AsyncUtil.whenAll(futures);
+    }
+
+    /**
+     * Start the bulk load, if the target indexes can be bulk loaded and none of them was partly built.
+     * @return a future that completes to {@code true} if the bulk load was started
+     */
+    @Nonnull
+    CompletableFuture<Boolean> startIfEligibleAsync() {
+        return indexer.buildCommitRetryAsync((store, recordsScanned) -> {
+            if (!canBulkLoad(store)) {
+                return abandonAsync(store, common.getTargetIndexes()).thenApply(vignore -> false);
+            }
+            final IndexingRangeSet rangeSet = IndexingRangeSet.forIndexBuild(store, common.getPrimaryIndex());
+            return rangeSet.firstMissingRangeAsync().thenCompose(range -> {
+                if (range == null || !RangeSet.isFirstKey(range.begin) || !RangeSet.isFinalKey(range.end)) {
+                    return abandonAsync(store, common.getTargetIndexes()).thenApply(vignore -> false);
+                }
+                // Restarting an interrupted bulk load keeps its dirty records, whose entries index maintenance wrote.
+                return AsyncUtil.whenAll(common.getTargetIndexes().stream()
+                        .map(index -> IndexingBulkLoadState.forIndexBuild(store, index).startAsync())
+                        .collect(Collectors.toList())
+                ).thenApply(vignore -> true);
+            });
+        }, Arrays.asList(LogMessageKeys.CALLING_METHOD, "startIfEligibleAsync")
+        ).thenApply(started -> {
+            if (!started && LOGGER.isInfoEnabled()) {
+                LOGGER.info(KeyValueLogMessage.build("cannot bulk load, building by records")
+                        .addKeysAndValues(common.indexLogMessageKeyValues())
+                        .toString());
+            }
+            return started;
+        });
+    }
+
+    private boolean canBulkLoad(@Nonnull FDBRecordStore store) {
+        if (!store.getFormatVersionEnum().isAtLeast(FormatVersion.BULK_LOAD_STATE)) {
+            return false;
+        }
+        return common.getTargetIndexContexts().stream().allMatch(indexContext ->
+                !indexContext.isSynthetic &&
+                IndexTypes.VALUE.equals(indexContext.index.getType()) &&
+                !indexContext.index.isUnique() &&
+                store.getIndexMaintainer(indexContext.index) instanceof ValueIndexMaintainer);
+    }
+
+    /**
+     * Scan the records, sort their index entries, write them, and mark the records range as built.
+     * @return a future that completes when the target indexes are built
+     */
+    @Nonnull
+    CompletableFuture<Void> loadAsync() {
+        final FileSorter<Tuple, Tuple> sorter = new FileSorter<>(adapter, common.getRunner().getTimer(),
+                common.getRunner().getExecutor());
+        return scanAsync(sorter)
+                .thenCompose(vignore -> sorter.load(RecordCursor.empty(common.getRunner().getExecutor())))
+                .thenCompose(loadResult -> writeAsync(sorter, loadResult))
+                .thenCompose(vignore -> finishAsync())
+                .whenComplete((vignore, ex) -> {
+                    try {
+                        sorter.deleteFiles();
+                    } catch (IOException ioEx) {
+                        throw new RecordCoreException(ioEx);
+                    }
+                });
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> scanAsync(@Nonnull FileSorter<Tuple, Tuple> sorter) {
+        final List<Object> additionalLogMessageKeyValues = Arrays.asList(LogMessageKeys.CALLING_METHOD, "bulkLoadScan");
+        final AtomicReference<byte[]> continuation = new AtomicReference<>();
+        return AsyncUtil.whileTrue(() ->
+                indexer.buildCommitRetryAsync((store, recordsScanned) -> scanEntries(store, recordsScanned, continuation.get()),
+                        additionalLogMessageKeyValues, true)
+                        .thenCompose(scanned -> {
+                            continuation.set(scanned.continuation);
+                            // Only load the entries of a committed scan, so that a retried transaction does not
+                            // add entries twice. An out-of-band end keeps the sorter loading.
+                            final RecordCursor<Tuple> chunk = RecordCursor.fromList(common.getRunner().getExecutor(), scanned.entries)
+                                    .mapResult(result -> result.hasNext() ? result :
+                                                         RecordCursorResult.withoutNextValue(result.getContinuation(), RecordCursor.NoNextReason.SCAN_LIMIT_REACHED));
+                            return sorter.load(chunk)
+                                    .thenCompose(vignore -> indexer.doneOrThrottleDelayAndMaybeLogProgress(scanned.exhausted,
+                                            subspaceProvider, additionalLogMessageKeyValues));
+                        }),
+                common.getRunner().getExecutor());
+    }
+
+    /**
+     * Scan records in a single transaction.
+     * @return the entries extracted from the scanned records, along with the scan's continuation
+     */
+    @Nonnull
+    @SuppressWarnings("PMD.CloseResource")
+    private CompletableFuture<ScannedEntries> scanEntries(@Nonnull FDBRecordStore store, @Nonnull AtomicLong recordsScanned,
+                                                          @Nullable byte[] continuation) {
+        indexer.validateSameMetadataOrThrow(store);
+        final ScanProperties scanProperties = indexer.scanPropertiesWithLimits(true);
+        final TupleRange tupleRange = common.computeRecordsRange();
+        final RecordCursor<FDBStoredRecord<Message>> cursor = store.scanRecords(tupleRange == null ? TupleRange.ALL : tupleRange,
+                continuation, scanProperties);
+        final List<Tuple> entries = new ArrayList<>();
+        final AtomicLong recordsScannedInTransaction = new AtomicLong();
+        return cursor.forEachResultAsync(result -> {
+            recordsScannedInTransaction.incrementAndGet();
+            indexer.timerIncrement(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_SCANNED);
+            return indexer.recordIfInIndexedTypes(result.get()).thenAccept(rec -> {
+                if (rec != null) {
+                    indexer.timerIncrement(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_INDEXED);
+                    addEntries(store, rec, entries);
+                }
+            });
+        }).whenComplete((lastResult, ex) -> cursor.close()).thenApply(lastResult -> {
+            recordsScanned.addAndGet(recordsScannedInTransaction.get());
+            if (common.isTrackProgress()) {
+                for (Index index : common.getTargetIndexes()) {
+                    final Subspace scannedRecordsSubspace = IndexingSubspaces.indexBuildScannedRecordsSubspace(store, index);
+                    store.getContext().ensureActive().mutate(MutationType.ADD, scannedRecordsSubspace.getKey(),
+                            FDBRecordStore.encodeRecordCount(recordsScannedInTransaction.get()));
+                }
+            }
+            return new ScannedEntries(entries, lastResult.getContinuation().toBytes(), lastResult.getContinuation().isEnd());
+        });
+    }
+
+    /**
+     * Add the entries of a record to the given list. Each is a tuple of the target index position, the index entry key
+     * (including the primary key), the record's primary key, and the index entry value.
+     */
+    private void addEntries(@Nonnull FDBRecordStore store, @Nonnull FDBStoredRecord<Message> rec, @Nonnull List<Tuple> entries) {
+        final List<IndexingCommon.IndexContext> indexContexts = common.getTargetIndexContexts();
+        for (int i = 0; i < indexContexts.size(); i++) {
+            final IndexingCommon.IndexContext indexContext = indexContexts.get(i);
+            if (!indexContext.recordTypes.contains(rec.getRecordType())) {
+                continue;
+            }
+            final List<IndexEntry> indexEntries = store.getIndexMaintainer(indexContext.index).filteredIndexEntries(rec);
+            if (indexEntries == null) {
+                continue;
+            }
+            for (IndexEntry indexEntry : indexEntries) {
+                final Tuple entryKey = FDBRecordStoreBase.indexEntryKey(indexContext.index, indexEntry.getKey(), rec.getPrimaryKey());
+                entries.add(Tuple.from((long)i, entryKey, rec.getPrimaryKey(), indexEntry.getValue()));
+            }
+        }
+    }
+
+    @Nonnull
+    @SuppressWarnings("PMD.CloseResource")
+    private CompletableFuture<Void> writeAsync(@Nonnull FileSorter<Tuple, Tuple> sorter, @Nonnull FileSorter.LoadResult loadResult) {
+        final Supplier<Tuple> sortedEntries;
+        final SortedFileReader<Tuple> fileReader;
+        if (loadResult.isInMemory()) {
+            final Iterator<Tuple> iterator = sorter.getMapSorter().getMap().values().iterator();
+            sortedEntries = () -> iterator.hasNext() ? iterator.next() : null;
+            fileReader = null;
+        } else {
+            if (sorter.getFiles().size() != 1) {
+                throw new RecordCoreException("sort loading did not produce exactly one file");
+            }
+            try {
+                fileReader = new SortedFileReader<>(sorter.getFiles().get(0), adapter, common.getRunner().getTimer(), 0, Integer.MAX_VALUE);
+            } catch (IOException | GeneralSecurityException ex) {
+                throw new RecordCoreException(ex);
+            }
+            sortedEntries = () -> {
+                try {
+                    return fileReader.read();
+                } catch (IOException | GeneralSecurityException ex) {
+                    throw new RecordCoreException(ex);
+                }
+            };
+        }
+        final List<Object> additionalLogMessageKeyValues = Arrays.asList(LogMessageKeys.CALLING_METHOD, "bulkLoadWrite");
+        final AtomicReference<Tuple> pending = new AtomicReference<>(sortedEntries.get());
+        return AsyncUtil.whileTrue(() -> {
+            if (pending.get() == null) {
+                return AsyncUtil.READY_FALSE;
+            }
+            // Read the batch before the transaction, so that a retry writes the same entries.
+            final List<Tuple> batch = new ArrayList<>();
+            int batchBytes = 0;
+            while (pending.get() != null && batchBytes < WRITE_BATCH_BYTES) {
+                final Tuple entry = pending.get();
+                batch.add(entry);
+                batchBytes += entry.getPackedSize();
+                pending.set(sortedEntries.get());
+            }
+            return indexer.buildCommitRetryAsync((store, recordsScanned) -> writeEntries(store, batch), additionalLogMessageKeyValues)
+                    .thenApply(vignore -> true);
+        }, common.getRunner().getExecutor()).whenComplete((vignore, ex) -> {
+            if (fileReader != null) {
+                try {
+                    fileReader.close();
+                } catch (IOException ioEx) {
+                    throw new RecordCoreException(ioEx);
+                }
+            }
+        });
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> writeEntries(@Nonnull FDBRecordStore store, @Nonnull List<Tuple> batch) {
+        indexer.validateSameMetadataOrThrow(store);
+        final List<Index> indexes = common.getTargetIndexContexts().stream()
+                .map(indexContext -> indexContext.index)
+                .collect(Collectors.toList());
+        final List<IndexingBulkLoadState> bulkLoadStates = indexes.stream()
+                .map(index -> IndexingBulkLoadState.forIndexBuild(store, index))
+                .collect(Collectors.toList());
+        final List<Subspace> indexSubspaces = indexes.stream()
+                .map(store::indexSubspace)
+                .collect(Collectors.toList());
+        // The entries are sorted by index key, not primary key, so read the dirty records of each index once for
+        // the span of primary keys in the batch rather than checking each entry's record.
+        final Map<Integer, List<Tuple>> entriesByPosition = batch.stream()
+                .collect(Collectors.groupingBy(entry -> (int)entry.getLong(0)));
+        return AsyncUtil.whenAll(entriesByPosition.entrySet().stream().map(positionEntries -> {
+            final int position = positionEntries.getKey();
+            final List<Tuple> entries = positionEntries.getValue();
+            Tuple lowPrimaryKey = entries.get(0).getNestedTuple(2);
+            Tuple highPrimaryKey = lowPrimaryKey;
+            for (Tuple entry : entries) {
+                final Tuple primaryKey = entry.getNestedTuple(2);
+                if (primaryKey.compareTo(lowPrimaryKey) < 0) {
+                    lowPrimaryKey = primaryKey;
+                } else if (primaryKey.compareTo(highPrimaryKey) > 0) {
+                    highPrimaryKey = primaryKey;
+                }
+            }
+            return bulkLoadStates.get(position).dirtyRecordsAsync(lowPrimaryKey, highPrimaryKey).thenAccept(dirty -> {
+                for (Tuple entry : entries) {
+                    if (dirty.contains(entry.getNestedTuple(2))) {
+                        // The record changed after it was scanned, and its index maintenance wrote the current entries.
+                        indexer.timerIncrement(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_BULK_LOAD_SKIPPED);
+                    } else {
+                        store.getContext().ensureActive().set(indexSubspaces.get(position).pack(entry.getNestedTuple(1)),
+                                entry.getNestedTuple(3).pack());
+                        indexer.timerIncrement(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_BULK_LOAD_ENTRIES);
+                    }
+                }
+            });
+        }).collect(Collectors.toList()));
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> finishAsync() {
+        return indexer.buildCommitRetryAsync((store, recordsScanned) ->
+                AsyncUtil.whenAll(common.getTargetIndexes().stream().map(index ->
+                        IndexingBulkLoadState.forIndexBuild(store, index).clearAsync()
+                                .thenCompose(vignore -> IndexingRangeSet.forIndexBuild(store, index).insertRangeAsync(null, null, false))
+                ).collect(Collectors.toList())),
+                Arrays.asList(LogMessageKeys.CALLING_METHOD, "bulkLoadFinish"));
+    }
+
+    private static class ScannedEntries {
+        @Nonnull
+        private final List<Tuple> entries;
+        @Nullable
+        private final byte[] continuation;
+        private final boolean exhausted;
+
+        private ScannedEntries(@Nonnull List<Tuple> entries, @Nullable byte[] continuation, boolean exhausted) {
+            this.entries = entries;
+            this.continuation = continuation;
+            this.exhausted = exhausted;
+        }
+    }
+
+    /**
+     * A {@link FileSortAdapter} for index entries, keyed by target index position and index entry key.
+     */
+    private static class SortAdapter implements FileSortAdapter<Tuple, Tuple> {
+        private static final int RECORD_COUNT_PER_SECTION = 1_000;
+        private static final Supplier<SecureRandom> RANDOM = Suppliers.memoize(SecureRandom::new);
+
+        private final int runSize;
+        private final int maxFileCount;
+        @Nullable
+        private Key encryptionKey;
+
+        private SortAdapter(int runSize, int maxFileCount) {
+            this.runSize = runSize;
+            this.maxFileCount = maxFileCount;
+        }
+
+        @Override
+        public int compare(Tuple o1, Tuple o2) {
+            return o1.compareTo(o2);
+        }
+
+        @Nonnull
+        @Override
+        public Tuple generateKey(Tuple value) {
+            return Tuple.from(value.getLong(0)).addAll(value.getNestedTuple(1));
+        }
+
+        @Nonnull
+        @Override
+        public byte[] serializeKey(Tuple key) {
+            return key.pack();
+        }
+
+        @Override
+        public boolean isSerializedOrderReversed() {
+            return false;
+        }
+
+        @Nonnull
+        @Override
+        public Tuple deserializeKey(@Nonnull byte[] key) {
+            return Tuple.fromBytes(key);
+        }
+
+        @Nonnull
+        @Override
+        public byte[] serializeValue(Tuple value) {
+            return value.pack();
+        }
+
+        @Nonnull
+        @Override
+        public Tuple deserializeValue(@Nonnull byte[] value) {
+            return Tuple.fromBytes(value);
+        }
+
+        @Override
+        public int getMaxRecordCountInMemory() {
+            return runSize;
+        }
+
+        @Nonnull
+        @Override
+        public MemorySorter.RecordCountInMemoryLimitMode getRecordCountInMemoryLimitMode() {
+            return MemorySorter.RecordCountInMemoryLimitMode.STOP;
+        }
+
+        @Nonnull
+        @Override
+        public MemorySortAdapter.MemorySortComparator<Tuple> getComparator(@Nullable Tuple minimumKey) {
+            return new MemorySortAdapter.OrderComparator<>(this, minimumKey);
+        }
+
+        @Nonnull
+        @Override
+        public File generateFilename() throws IOException {
+            return File.createTempFile("fdb", ".bin");
+        }
+
+        @Override
+        public int getMetaDataVersion() {
+            // The files only live as long as the bulk load.
+            return 0;
+        }
+
+        @Override
+        public void writeValue(@Nonnull Tuple value, @Nonnull CodedOutputStream stream) throws IOException {
+            stream.writeByteArrayNoTag(value.pack());
+        }
+
+        @Nonnull
+        @Override
+        public Tuple readValue(@Nonnull CodedInputStream stream) throws IOException {
+            return Tuple.fromBytes(stream.readByteArray());
+        }
+
+        @Override
+        public int getMinFileRecordCount() {
+            return runSize;
+        }
+
+        @Override
+        public int getMaxFileCount() {
+            return maxFileCount;
+        }
+
+        @Override
+        public int getRecordCountPerSection() {
+            return RECORD_COUNT_PER_SECTION;
+        }
+
+        @Override
+        public boolean isCompressed() {
+            return true;
+        }
+
+        @Nullable
+        @Override
+        public String getEncryptionCipherName() {
+            return CipherPool.DEFAULT_CIPHER;
+        }
+
+        @Nullable
+        @Override
+        public synchronized Key getEncryptionKey() {
+            // Index entries contain record data, so they are not written to the temporary files in the clear.
+            if (encryptionKey == null) {
+                try {
+                    final KeyGenerator keyGen = KeyGenerator.getInstance("AES");
+                    keyGen.init(128, RANDOM.get());
+                    encryptionKey = keyGen.generateKey();
+                } catch (GeneralSecurityException ex) {
+                    throw new RecordCoreException(ex);
+                }
+            }
+            return encryptionKey;
+        }
+
+        @Nullable
+        @Override
+        public SecureRandom getSecureRandom() {
+            return RANDOM.get();
+        }
+    }
+}
@@ -21,12 +21,14 @@
 package com.apple.foundationdb.record.provider.foundationdb;
 
 import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.AsyncUtil;
 import com.apple.foundationdb.record.RecordMetaData;
 import com.apple.foundationdb.record.TupleRange;
 import com.apple.foundationdb.record.logging.LogMessageKeys;
 import com.apple.foundationdb.record.metadata.Index;
 import com.apple.foundationdb.record.metadata.MetaDataException;
 import com.apple.foundationdb.record.metadata.RecordType;
+import com.apple.foundationdb.record.provider.foundationdb.runners.throttled.MaintenanceScheduler;
 import com.apple.foundationdb.record.provider.foundationdb.synchronizedsession.SynchronizedSessionRunner;
 import com.apple.foundationdb.record.query.plan.synthetic.SyntheticRecordPlanner;
 import com.apple.foundationdb.tuple.Tuple;
@@ -39,6 +41,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
@@ -58,6 +61,7 @@ public class IndexingCommon {
     @Nonnull private final FDBRecordStore.Builder recordStoreBuilder;
     @Nonnull private final AtomicLong totalRecordsScanned;
     private final boolean trackProgress;
+    @Nullable private final MaintenanceScheduler.Job maintenanceJob;
 
     @Nonnull OnlineIndexOperationConfig config; // this item may be modified on the fly
     @Nullable private final Function<OnlineIndexOperationConfig, OnlineIndexOperationConfig> configLoader;
@@ -95,7 +99,20 @@ public class IndexingCommon {
                    @Nullable UnaryOperator<OnlineIndexOperationConfig> configLoader,
                    @Nonnull OnlineIndexOperationConfig config,
                    boolean trackProgress) {
+        this(runner, recordStoreBuilder, targetIndexes, allRecordTypes, configLoader, config, trackProgress, null);
+    }
+
+    @SuppressWarnings("squid:S00107")
+    IndexingCommon(@Nonnull FDBDatabaseRunner runner,
+                   @Nonnull FDBRecordStore.Builder recordStoreBuilder,
+                   @Nonnull List<Index> targetIndexes,
+                   @Nullable Collection<RecordType> allRecordTypes,
+                   @Nullable UnaryOperator<OnlineIndexOperationConfig> configLoader,
+                   @Nonnull OnlineIndexOperationConfig config,
+                   boolean trackProgress,
+                   @Nullable MaintenanceScheduler.Job maintenanceJob) {
         this.runner = runner;
+        this.maintenanceJob = maintenanceJob;
         this.configLoader = configLoader;
         this.config = config;
         this.trackProgress = trackProgress;
@@ -285,7 +302,38 @@ public class IndexingCommon {
         return true;
     }
 
+    /**
+     * Check whether the transactions are scheduled by a {@link MaintenanceScheduler}.
+     * @return {@code true} if each transaction must wait for a turn, and be reported
+     */
+    public boolean isMaintenanceScheduled() {
+        return maintenanceJob != null;
+    }
+
+    /**
+     * Wait for the {@link MaintenanceScheduler}, if any, to grant a turn to run the next transaction.
+     * @return a future that completes once the transaction can start
+     */
+    @Nonnull
+    public CompletableFuture<Void> acquireMaintenanceTurnAsync() {
+        return maintenanceJob == null ? AsyncUtil.DONE : maintenanceJob.acquireAsync();
+    }
+
+    /**
+     * Report a transaction to the {@link MaintenanceScheduler}, if any.
+     * @param recordCount the number of records processed by the transaction
+     * @param byteCount the approximate size of the transaction
+     */
+    public void reportMaintenanceTransaction(long recordCount, long byteCount) {
+        if (maintenanceJob != null) {
+            maintenanceJob.reportTransaction(recordCount, byteCount);
+        }
+    }
+
     public void close() {
+        if (maintenanceJob != null) {
+            maintenanceJob.close();
+        }
         runner.close();
         if (synchronizedSessionRunner != null) {
             synchronizedSessionRunner.close();
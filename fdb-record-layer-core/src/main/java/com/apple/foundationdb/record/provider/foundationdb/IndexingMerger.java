@@ -77,7 +77,7 @@ public class IndexingMerger {
                 // Merge operation may take a long time, hence the runner's context must be a read-only. Ensure that it
                 // isn't a synchronized one, which may attempt a heartbeat write
                 // Note: this runAsync will retry according to the runner's "maxAttempts" setting
-                common.getNonSynchronizedRunner().runAsync(context -> openRecordStore(context)
+                common.acquireMaintenanceTurnAsync().thenCompose(ignoreTurn -> common.getNonSynchronizedRunner().runAsync(context -> openRecordStore(context)
                                 .thenCompose(store -> {
                                     mergeStartTime.set(System.nanoTime());
                                     final IndexDeferredMaintenanceControl mergeControl = store.getIndexDeferredMaintenanceControl();
@@ -89,9 +89,12 @@ public class IndexingMerger {
                                     mergeControl.setRepartitionCapped(false);
                                     return store.getIndexMaintainer(index).mergeIndex();
                                 }).thenApply(ignore -> false),
-                        Result::of,
+                        (result, exception) -> {
+                            common.reportMaintenanceTransaction(0, 0);
+                            return Result.of(result, exception);
+                        },
                         common.indexLogMessageKeyValues()
-                ).handle((ignore, e) -> {
+                )).handle((ignore, e) -> {
                     if (timer != null && mergeStartTime.get() > 0) {
                         timer.recordSinceNanoTime(FDBStoreTimer.Events.MERGE_INDEX, mergeStartTime.get());
                     }
@@ -37,13 +37,17 @@ import com.apple.foundationdb.record.provider.foundationdb.indexing.IndexingRang
 import com.apple.foundationdb.subspace.Subspace;
 import com.apple.foundationdb.tuple.ByteArrayUtil;
 import com.apple.foundationdb.tuple.Tuple;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.protobuf.Message;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -123,6 +127,17 @@ public class IndexingMultiTargetByRecords extends IndexingBase {
 
     @Nonnull
     private CompletableFuture<Void> buildMultiTargetIndex(@Nonnull SubspaceProvider subspaceProvider, @Nonnull Subspace subspace) {
+        if (policy.isBulkLoad()) {
+            final IndexingBulkLoader bulkLoader = new IndexingBulkLoader(this, common, subspaceProvider);
+            return bulkLoader.startIfEligibleAsync().thenCompose(started -> started ?
+                                                                           bulkLoader.loadAsync() :
+                                                                           buildMultiTargetIndexByRecords(subspaceProvider, subspace));
+        }
+        return buildMultiTargetIndexByRecords(subspaceProvider, subspace);
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> buildMultiTargetIndexByRecords(@Nonnull SubspaceProvider subspaceProvider, @Nonnull Subspace subspace) {
         final TupleRange tupleRange = common.computeRecordsRange();
         final byte[] rangeStart;
         final byte[] rangeEnd;
@@ -156,12 +171,88 @@ public class IndexingMultiTargetByRecords extends IndexingBase {
                 LogMessageKeys.RANGE_START, rangeStart,
                 LogMessageKeys.RANGE_END, rangeEnd);
 
+        if (policy.getParallelism() > 1) {
+            return maybePresetRangeFuture.thenCompose(ignore -> buildRangesInParallel(subspaceProvider, subspace));
+        }
         return maybePresetRangeFuture.thenCompose(ignore ->
                         iterateAllRanges(additionalLogMessageKeyValues, this::buildRangeOnly, subspaceProvider, subspace));
     }
 
+    /**
+     * Split the missing ranges at the shard boundaries, then let {@link OnlineIndexer.IndexingPolicy#getParallelism()}
+     * workers build them concurrently. Each worker takes the next range to build and iterates over it with its own
+     * throttle, so that the transactions' limits are adjusted independently, while the records per second rate is
+     * divided among the workers.
+     */
+    @Nonnull
+    private CompletableFuture<Void> buildRangesInParallel(@Nonnull SubspaceProvider subspaceProvider, @Nonnull Subspace subspace) {
+        return buildCommitRetryAsync((store, recordsScanned) -> {
+            final IndexingRangeSet rangeSet = IndexingRangeSet.forIndexBuild(store, common.getPrimaryIndex());
+            return rangeSet.listMissingRangesAsync().thenCompose(missingRanges -> {
+                if (missingRanges.isEmpty()) {
+                    return CompletableFuture.completedFuture(missingRanges);
+                }
+                final RecordCursor<Tuple> cursor = store.getPrimaryKeyBoundaries(common.computeRecordsRange());
+                return cursor.asList().whenComplete((result, ex) -> cursor.close())
+                        .thenApply(boundaries -> splitRanges(missingRanges, boundaries));
+            });
+        }, Arrays.asList(LogMessageKeys.CALLING_METHOD, "buildRangesInParallel")
+        ).thenCompose(ranges -> {
+            final Queue<Range> rangesToBuild = new ConcurrentLinkedQueue<>(ranges);
+            final int workers = Math.min(policy.getParallelism(), ranges.size());
+            final List<CompletableFuture<Void>> workerFutures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                final IndexingThrottle throttle = new IndexingThrottle(common, false, workers);
+                workerFutures.add(AsyncUtil.whileTrue(() -> {
+                    final Range range = rangesToBuild.poll();
+                    if (range == null) {
+                        return AsyncUtil.READY_FALSE;
+                    }
+                    final List<Object> additionalLogMessageKeyValues = Arrays.asList(LogMessageKeys.CALLING_METHOD, "buildRangesInParallel",
+                            LogMessageKeys.RANGE_START, range.begin,
+                            LogMessageKeys.RANGE_END, range.end);
+                    return iterateAllRanges(additionalLogMessageKeyValues,
+                            (store, recordsScanned) -> buildRangeOnly(store, recordsScanned, range, throttle.getLimit()),
+                            subspaceProvider, subspace, null, throttle)
+                            .thenApply(ignore -> true);
+                }, getRunner().getExecutor()));
+            }
+            return AsyncUtil.whenAll(workerFutures);
+        });
+    }
+
+    /**
+     * Split ranges at the given boundaries.
+     * @param ranges the ranges to split
+     * @param boundaries sorted primary keys at which to split the ranges
+     * @return the split ranges
+     */
+    @VisibleForTesting
+    @Nonnull
+    static List<Range> splitRanges(@Nonnull List<Range> ranges, @Nonnull List<Tuple> boundaries) {
+        final List<Range> splitRanges = new ArrayList<>();
+        for (Range range : ranges) {
+            byte[] begin = range.begin;
+            for (Tuple boundary : boundaries) {
+                final byte[] key = boundary.pack();
+                if (ByteArrayUtil.compareUnsigned(key, begin) > 0 && ByteArrayUtil.compareUnsigned(key, range.end) < 0) {
+                    splitRanges.add(new Range(begin, key));
+                    begin = key;
+                }
+            }
+            splitRanges.add(new Range(begin, range.end));
+        }
+        return splitRanges;
+    }
+
     @Nonnull
     private CompletableFuture<Boolean> buildRangeOnly(@Nonnull FDBRecordStore store, @Nonnull AtomicLong recordsScanned) {
+        return buildRangeOnly(store, recordsScanned, null, getLimit());
+    }
+
+    @Nonnull
+    private CompletableFuture<Boolean> buildRangeOnly(@Nonnull FDBRecordStore store, @Nonnull AtomicLong recordsScanned,
+                                                      @Nullable Range bounds, int limit) {
         // return false when done
         /* Multi target consistency:
          * 1. Identify missing ranges from only the first index
@@ -171,10 +262,13 @@ public class IndexingMultiTargetByRecords extends IndexingBase {
         validateSameMetadataOrThrow(store);
         final List<Index> targetIndexes = common.getTargetIndexes();
         final boolean isIdempotent = areTheyAllIdempotent(store, targetIndexes);
-        final ScanProperties scanProperties = scanPropertiesWithLimits(isIdempotent);
+        final ScanProperties scanProperties = scanPropertiesWithLimits(isIdempotent, limit);
         IndexingRangeSet rangeSet = IndexingRangeSet.forIndexBuild(store, common.getPrimaryIndex());
 
-        return rangeSet.firstMissingRangeAsync().thenCompose(range -> {
+        final CompletableFuture<Range> firstMissingRange = bounds == null ?
+                                                           rangeSet.firstMissingRangeAsync() :
+                                                           rangeSet.firstMissingRangeAsync(bounds.begin, bounds.end);
+        return firstMissingRange.thenCompose(range -> {
             if (range == null) {
                 return AsyncUtil.READY_FALSE; // no more missing ranges - all done
             }
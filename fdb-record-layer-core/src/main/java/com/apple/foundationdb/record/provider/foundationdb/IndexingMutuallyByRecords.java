@@ -23,6 +23,7 @@ package com.apple.foundationdb.record.provider.foundationdb;
 import com.apple.foundationdb.FDBException;
 import com.apple.foundationdb.Range;
 import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.async.MoreAsyncUtil;
 import com.apple.foundationdb.async.RangeSet;
 import com.apple.foundationdb.record.IndexBuildProto;
 import com.apple.foundationdb.record.RecordCursor;
@@ -33,6 +34,7 @@ import com.apple.foundationdb.record.logging.KeyValueLogMessage;
 import com.apple.foundationdb.record.logging.LogMessageKeys;
 import com.apple.foundationdb.record.metadata.Index;
 import com.apple.foundationdb.record.provider.foundationdb.indexing.IndexingRangeSet;
+import com.apple.foundationdb.record.provider.foundationdb.indexing.IndexingWorkQueue;
 import com.apple.foundationdb.subspace.Subspace;
 import com.apple.foundationdb.tuple.ByteArrayUtil;
 import com.apple.foundationdb.tuple.Tuple;
@@ -46,12 +48,14 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -85,6 +89,13 @@ import java.util.stream.Collectors;
  *   - One iteration in FULL mode - only build fragments that are fully unbuilt (for efficiency).
  *   - One iteration in ANY mode - build any fragment that has a missing range.
  *   - Stop when the indexes are readable, convert to readable if there are no more missing ranges to build.
+ * With a work queue (see {@link OnlineIndexer.IndexingPolicy.Builder#setMutualIndexingWorkQueue(boolean)}):
+ *   - The first indexer fills a queue, stored with the index build data, with the fragments that are not fully built.
+ *   - Each indexer claims a random unclaimed fragment for a lease, and extends the lease in every transaction that builds it.
+ *   - A fragment whose lease has expired (e.g. its indexer crashed) can be claimed by another indexer.
+ *   - When no fragment can be claimed, an idle indexer splits the remaining range of the fragment that has the most
+ *     shard boundaries left to build, and claims its upper part. If none can be split, it waits for a lease to expire.
+ *   - Stop when there are no more missing ranges to build.
  */
 public class IndexingMutuallyByRecords extends IndexingBase {
     private IndexBuildProto.IndexBuildIndexingStamp myIndexingTypeStamp = null;
@@ -242,7 +253,10 @@ public class IndexingMutuallyByRecords extends IndexingBase {
     }
 
     private Range fragmentGet() {
-        int i = getFragmentCurrent();
+        return fragmentGet(getFragmentCurrent());
+    }
+
+    private Range fragmentGet(int i) {
         // Note that fragmentNum is fragmentBoundaries.size()-1
         Tuple low = fragmentBoundaries.get(i);
         Tuple high = fragmentBoundaries.get(i + 1);
@@ -323,12 +337,205 @@ public class IndexingMutuallyByRecords extends IndexingBase {
                 LogMessageKeys.RANGE_START, rangeStart,
                 LogMessageKeys.RANGE_END, rangeEnd);
 
+        if (policy.isMutualWorkQueue()) {
+            return maybePresetRangeFuture.thenCompose(ignore -> buildFromWorkQueue(subspaceProvider, subspace));
+        }
         return maybePresetRangeFuture.thenCompose(ignore ->
                 iterateAllRanges(additionalLogMessageKeyValues,
                         (store, recordsScanned) -> buildRangeOnly(store, subspaceProvider, subspace),
                         subspaceProvider, subspace));
     }
 
+    @Nonnull
+    @SuppressWarnings("PMD.CompareObjectsWithEquals")
+    private CompletableFuture<Void> buildFromWorkQueue(@Nonnull SubspaceProvider subspaceProvider, @Nonnull Subspace subspace) {
+        final List<Object> additionalLogMessageKeyValues = Arrays.asList(LogMessageKeys.CALLING_METHOD, "mutualWorkQueue");
+        return AsyncUtil.whileTrue(() -> buildCommitRetryAsync((store, recordsScanned) -> claimWorkItem(store), additionalLogMessageKeyValues)
+                .thenCompose(claim -> {
+                    if (claim == WorkItemClaim.DONE) {
+                        return AsyncUtil.READY_FALSE; // all done
+                    }
+                    if (claim.item == null) {
+                        return MoreAsyncUtil.delayedFuture(claim.waitMillis, TimeUnit.MILLISECONDS, getRunner().getScheduledExecutor())
+                                .thenApply(vignore -> true);
+                    }
+                    return buildWorkItem(claim.item, subspaceProvider, subspace).thenApply(vignore -> true);
+                }), getRunner().getExecutor());
+    }
+
+    @Nonnull
+    private CompletableFuture<WorkItemClaim> claimWorkItem(@Nonnull FDBRecordStore store) {
+        validateSameMetadataOrThrow(store);
+        final IndexingRangeSet rangeSet = IndexingRangeSet.forIndexBuild(store, common.getPrimaryIndex());
+        final IndexingWorkQueue queue = IndexingWorkQueue.forIndexBuild(store, common.getPrimaryIndex());
+        return rangeSet.listMissingRangesAsync().thenCompose(missingRanges -> {
+            if (missingRanges.isEmpty()) {
+                queue.clear();
+                return CompletableFuture.completedFuture(WorkItemClaim.DONE);
+            }
+            final List<Range> sortedMissingRanges = sortAndSquash(missingRanges);
+            return queue.listItemsAsync().thenCompose(listedItems -> {
+                final List<IndexingWorkQueue.WorkItem> items = listedItems.isEmpty() ?
+                                                               queue.populate(unbuiltFragments(sortedMissingRanges)) :
+                                                               listedItems;
+                final long now = System.currentTimeMillis();
+                final List<IndexingWorkQueue.WorkItem> available = items.stream()
+                        .filter(item -> item.isAvailable(now) || common.getUuid().equals(item.getOwner()))
+                        .collect(Collectors.toList());
+                if (available.isEmpty()) {
+                    return splitWorkItem(store, rangeSet, queue, items, now);
+                }
+                // Pick a random item, so that concurrent indexers rarely compete on the same one.
+                final IndexingWorkQueue.WorkItem item = available.get(ThreadLocalRandom.current().nextInt(available.size()));
+                return queue.claimAsync(item, common.getUuid(), now + common.config.getLeaseLengthMillis())
+                        .thenApply(claimed -> {
+                            if (claimed == null) {
+                                return WorkItemClaim.RETRY;
+                            }
+                            timerIncrement(FDBStoreTimer.Counts.MUTUAL_INDEXER_QUEUE_CLAIM);
+                            if (LOGGER.isDebugEnabled()) {
+                                LOGGER.debug(KeyValueLogMessage.of("claimed work queue range",
+                                        LogMessageKeys.RANGE, claimed,
+                                        LogMessageKeys.INDEXER_ID, common.getUuid()));
+                            }
+                            return new WorkItemClaim(claimed, 0L);
+                        });
+            });
+        });
+    }
+
+    @Nonnull
+    private List<Range> unbuiltFragments(@Nonnull List<Range> missingRanges) {
+        final List<Range> fragments = new ArrayList<>();
+        for (int i = 0; i < fragmentNum; i++) {
+            final Range fragmentRange = fragmentGet(i);
+            if (partlyUnBuiltRange(missingRanges, fragmentRange) != null) {
+                fragments.add(fragmentRange);
+            }
+        }
+        return fragments;
+    }
+
+    /**
+     * Split the remaining range of the work item with the most split points left to build, and claim its upper part.
+     * Split points are the shard boundaries and the fragment boundaries within the unbuilt part of the item.
+     */
+    @Nonnull
+    private CompletableFuture<WorkItemClaim> splitWorkItem(@Nonnull FDBRecordStore store, @Nonnull IndexingRangeSet rangeSet,
+                                                           @Nonnull IndexingWorkQueue queue,
+                                                           @Nonnull List<IndexingWorkQueue.WorkItem> items, long now) {
+        final List<CompletableFuture<List<Tuple>>> splitPointsFutures = items.stream()
+                .map(item -> rangeSet.firstMissingRangeAsync(item.getBegin(), item.getEnd())
+                        .thenCompose(missingRange -> missingRange == null ?
+                                                     CompletableFuture.completedFuture(Collections.<Tuple>emptyList()) :
+                                                     splitPoints(store, missingRange.begin, item.getEnd())))
+                .collect(Collectors.toList());
+        return AsyncUtil.getAll(splitPointsFutures).thenCompose(splitPoints -> {
+            int best = -1;
+            for (int i = 0; i < items.size(); i++) {
+                if (!splitPoints.get(i).isEmpty() && (best < 0 || splitPoints.get(i).size() > splitPoints.get(best).size())) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                // Nothing to split, wait for a lease to expire.
+                final long leaseLengthMillis = common.config.getLeaseLengthMillis();
+                final long untilExpiry = items.stream().mapToLong(item -> item.getLeaseEndMillis() - now).min().orElse(0L);
+                timerIncrement(FDBStoreTimer.Counts.MUTUAL_INDEXER_QUEUE_WAIT);
+                return CompletableFuture.completedFuture(
+                        new WorkItemClaim(null, Math.max(1L, Math.min(untilExpiry + 1, leaseLengthMillis / 4))));
+            }
+            final IndexingWorkQueue.WorkItem item = items.get(best);
+            final List<Tuple> itemSplitPoints = splitPoints.get(best);
+            final byte[] splitKey = itemSplitPoints.get(itemSplitPoints.size() / 2).pack();
+            return queue.splitAsync(item, splitKey, common.getUuid(), now + common.config.getLeaseLengthMillis())
+                    .thenApply(claimed -> {
+                        if (claimed == null) {
+                            return WorkItemClaim.RETRY;
+                        }
+                        timerIncrement(FDBStoreTimer.Counts.MUTUAL_INDEXER_QUEUE_SPLIT);
+                        if (LOGGER.isInfoEnabled()) {
+                            LOGGER.info(KeyValueLogMessage.build("split work queue range",
+                                            LogMessageKeys.ORIGINAL_RANGE, item,
+                                            LogMessageKeys.RANGE, claimed,
+                                            LogMessageKeys.INDEXER_ID, common.getUuid())
+                                    .addKeysAndValues(common.indexLogMessageKeyValues())
+                                    .toString());
+                        }
+                        return new WorkItemClaim(claimed, 0L);
+                    });
+        });
+    }
+
+    @Nonnull
+    private CompletableFuture<List<Tuple>> splitPoints(@Nonnull FDBRecordStore store, @Nonnull byte[] begin, @Nonnull byte[] end) {
+        final Tuple low = RangeSet.isFirstKey(begin) ? null : Tuple.fromBytes(begin);
+        final Tuple high = RangeSet.isFinalKey(end) ? null : Tuple.fromBytes(end);
+        final RecordCursor<Tuple> cursor = store.getPrimaryKeyBoundaries(TupleRange.between(low, high));
+        return cursor.asList().whenComplete((result, ex) -> cursor.close()).thenApply(shardBoundaries -> {
+            final List<Tuple> candidates = new ArrayList<>(shardBoundaries);
+            candidates.addAll(fragmentBoundaries);
+            return candidates.stream()
+                    .filter(Objects::nonNull)
+                    .filter(boundary -> (low == null || boundary.compareTo(low) > 0) && (high == null || boundary.compareTo(high) < 0))
+                    .sorted()
+                    .distinct()
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> buildWorkItem(@Nonnull IndexingWorkQueue.WorkItem item,
+                                                  @Nonnull SubspaceProvider subspaceProvider, @Nonnull Subspace subspace) {
+        final List<Object> additionalLogMessageKeyValues = Arrays.asList(LogMessageKeys.CALLING_METHOD, "mutualWorkQueue",
+                LogMessageKeys.RANGE, item);
+        return iterateAllRanges(additionalLogMessageKeyValues,
+                (store, recordsScanned) -> buildClaimedRange(store, recordsScanned, item),
+                subspaceProvider, subspace);
+    }
+
+    @Nonnull
+    private CompletableFuture<Boolean> buildClaimedRange(@Nonnull FDBRecordStore store, @Nonnull AtomicLong recordsScanned,
+                                                         @Nonnull IndexingWorkQueue.WorkItem item) {
+        // return false when done
+        final IndexingWorkQueue queue = IndexingWorkQueue.forIndexBuild(store, common.getPrimaryIndex());
+        final long leaseEndMillis = System.currentTimeMillis() + common.config.getLeaseLengthMillis();
+        return queue.extendLeaseAsync(item.getBegin(), common.getUuid(), leaseEndMillis).thenCompose(current -> {
+            if (current == null) {
+                // Here: the lease expired, and another indexer has claimed this range.
+                timerIncrement(FDBStoreTimer.Counts.MUTUAL_INDEXER_QUEUE_LEASE_LOST);
+                return AsyncUtil.READY_FALSE;
+            }
+            // Note that another indexer may have split this range, in which case only its lower part is left.
+            final IndexingRangeSet rangeSet = IndexingRangeSet.forIndexBuild(store, common.getPrimaryIndex());
+            return rangeSet.firstMissingRangeAsync(current.getBegin(), current.getEnd()).thenCompose(missingRange -> {
+                if (missingRange == null) {
+                    queue.remove(current);
+                    timerIncrement(FDBStoreTimer.Counts.MUTUAL_INDEXER_QUEUE_DONE);
+                    return AsyncUtil.READY_FALSE;
+                }
+                return buildThisRangeOnly(store, recordsScanned, current.getRange()).thenApply(ignore -> true);
+            });
+        });
+    }
+
+    /**
+     * The result of trying to claim a work item from the queue.
+     */
+    private static final class WorkItemClaim {
+        static final WorkItemClaim DONE = new WorkItemClaim(null, 0L);
+        static final WorkItemClaim RETRY = new WorkItemClaim(null, 0L);
+
+        @Nullable
+        private final IndexingWorkQueue.WorkItem item;
+        private final long waitMillis;
+
+        private WorkItemClaim(@Nullable IndexingWorkQueue.WorkItem item, long waitMillis) {
+            this.item = item;
+            this.waitMillis = waitMillis;
+        }
+    }
+
     @Nonnull
     private CompletableFuture<Boolean> buildRangeOnly(@Nonnull FDBRecordStore store,
                                                       @Nonnull SubspaceProvider subspaceProvider, @Nonnull Subspace subspace) {
@@ -40,6 +40,9 @@ public final class IndexingSubspaces {
     private static final Object INDEX_SCRUBBED_RECORDS_RANGES_ZERO = 4L;
     private static final Object INDEX_SCRUBBED_RECORDS_RANGES = 5L;
     private static final Object INDEX_SCRUBBED_INDEX_RANGES = 6L;
+    private static final Object INDEX_BUILD_WORK_QUEUE = 7L;
+    private static final Object INDEX_BUILD_BULK_LOAD = 8L;
+    private static final Object INDEX_SCRUB_CHANGE_LOG = 9L;
 
     private IndexingSubspaces() {
         throw new IllegalStateException("Utility class");
@@ -83,6 +86,28 @@ public final class IndexingSubspaces {
         return indexBuildSubspace(store, index, INDEX_BUILD_TYPE_VERSION);
     }
 
+    /**
+     * Subspace that stores the work queue shared by mutual indexers.
+     * @param store store
+     * @param index index
+     * @return subspace
+     */
+    @Nonnull
+    public static Subspace indexBuildWorkQueueSubspace(@Nonnull FDBRecordStoreBase<?> store, @Nonnull Index index) {
+        return indexBuildSubspace(store, index, INDEX_BUILD_WORK_QUEUE);
+    }
+
+    /**
+     * Subspace that stores the state of a bulk load, including the records saved while it is in progress.
+     * @param store store
+     * @param index index
+     * @return subspace
+     */
+    @Nonnull
+    public static Subspace indexBuildBulkLoadSubspace(@Nonnull FDBRecordStoreBase<?> store, @Nonnull Index index) {
+        return indexBuildSubspace(store, index, INDEX_BUILD_BULK_LOAD);
+    }
+
     /**
      * Subspace that stores scrubbed records ranges of the zero range-id. This subspace is backward compatible
      * to record ranges scrubbed before range-id was introduced.
@@ -160,6 +185,17 @@ public final class IndexingSubspaces {
             IndexingSubspaces.indexScrubIndexRangeSubspaceRoot(store, index).subspace(Tuple.from(rangeId));
     }
 
+    /**
+     * Subspace that stores the index changes logged for incremental scrubbing.
+     * @param store store
+     * @param index index
+     * @return subspace
+     */
+    @Nonnull
+    public static Subspace indexScrubChangeLogSubspace(@Nonnull FDBRecordStoreBase<?> store, @Nonnull Index index) {
+        return indexBuildSubspace(store, index, INDEX_SCRUB_CHANGE_LOG);
+    }
+
     /**
      * Erasing all the scrubbing ranges data. After calling this function, there would be no memory of scrubbed ranges.
      * @param context user context - the operation will run within this context
@@ -171,6 +207,7 @@ public final class IndexingSubspaces {
         context.clear(Range.startsWith(indexScrubIndexRangeSubspaceRoot(store, index).pack()));
         context.clear(Range.startsWith(indexScrubRecordsRangeSubspaceZero(store, index).pack()));
         context.clear(Range.startsWith(indexScrubRecordsRangeSubspaceRoot(store, index).pack()));
+        context.clear(Range.startsWith(indexScrubChangeLogSubspace(store, index).pack()));
     }
 
     /**
@@ -184,5 +221,7 @@ public final class IndexingSubspaces {
         eraseAllIndexingScrubbingData(context, store, index);
         context.clear(Range.startsWith(indexBuildScannedRecordsSubspace(store, index).pack()));
         context.clear(Range.startsWith(indexBuildTypeSubspace(store, index).pack()));
+        context.clear(Range.startsWith(indexBuildWorkQueueSubspace(store, index).pack()));
+        context.clear(Range.startsWith(indexBuildBulkLoadSubspace(store, index).pack()));
     }
 }
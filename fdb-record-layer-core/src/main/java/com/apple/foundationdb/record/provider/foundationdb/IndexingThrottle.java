@@ -20,6 +20,7 @@
 
 package com.apple.foundationdb.record.provider.foundationdb;
 
+import com.apple.foundationdb.FDBError;
 import com.apple.foundationdb.FDBException;
 import com.apple.foundationdb.annotation.API;
 import com.apple.foundationdb.async.AsyncUtil;
@@ -34,6 +35,8 @@ import com.apple.foundationdb.record.provider.foundationdb.runners.ExponentialDe
 import com.apple.foundationdb.record.util.Result;
 import com.apple.foundationdb.util.LoggableException;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +49,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
@@ -65,12 +69,28 @@ public class IndexingThrottle {
     private final boolean isScrubber;
     private Set<Index> mergeRequiredIndexes = new HashSet<>();
 
+    // Errors that indicate that the cluster, rather than the transaction, is overloaded
+    private static final Set<Integer> OVERLOADED_CLUSTER_CODES = ImmutableSet.of(
+            FDBError.TRANSACTION_TOO_OLD.code(),
+            FDBError.FUTURE_VERSION.code(),
+            FDBError.PROCESS_BEHIND.code(),
+            FDBError.PROXY_MEMORY_LIMIT_EXCEEDED.code());
+    // The cluster's latency, as observed by the indexer's transactions
+    private static final List<StoreTimer.Event> LATENCY_EVENTS = ImmutableList.of(
+            FDBStoreTimer.Events.GET_READ_VERSION,
+            FDBStoreTimer.Events.BATCH_GET_READ_VERSION,
+            FDBStoreTimer.Events.COMMIT);
+
     static class Booker {
         /**
          * Keep track of success/failures and adjust transactions' scanned records limit when needed.
          * Note that when adjustLimits=true, a single thread processing is assumed.
+         * If the config has a target latency, also adapt the records per second rate to the cluster's load: lower it
+         * multiplicatively when a transaction observes a higher latency or fails because the cluster is overloaded,
+         * and raise it additively, up to the configured rate, otherwise.
          */
         @Nonnull private final IndexingCommon common;
+        private final int rateShares;
         private long recordsLimit;
         private long lastFailureRecordsScanned;
         private long totalRecordsScannedSuccess = 0;
@@ -83,9 +103,20 @@ public class IndexingThrottle {
         private long recordsScannedSinceForcedDelayMilliSeconds = 0;
         private long consecutiveFailureCount = 0;
         private StoreTimerSnapshot storeTimerSnapshot = null;
+        private long adaptedRecordsPerSecond = 0; // if positive, the lowered rate
 
         Booker(@Nonnull IndexingCommon common) {
+            this(common, 1);
+        }
+
+        /**
+         * Create a booker that gets an equal share of the configured records per second rate.
+         * @param common the common indexing state
+         * @param rateShares the number of bookers that share the configured rate
+         */
+        Booker(@Nonnull IndexingCommon common, int rateShares) {
             this.common = common;
+            this.rateShares = Math.max(1, rateShares);
             this.recordsLimit = common.config.getInitialLimit();
         }
 
@@ -93,6 +124,27 @@ public class IndexingThrottle {
             return recordsLimit;
         }
 
+        long getRecordsPerSecond() {
+            final long recordsPerSecond = configuredRecordsPerSecond();
+            if (adaptedRecordsPerSecond <= 0 || !isAdaptive()) {
+                return recordsPerSecond;
+            }
+            return Math.min(recordsPerSecond, adaptedRecordsPerSecond);
+        }
+
+        private long configuredRecordsPerSecond() {
+            final int recordsPerSecond = common.config.getRecordsPerSecond();
+            if (recordsPerSecond == IndexingCommon.UNLIMITED) {
+                return recordsPerSecond;
+            }
+            return Math.max(1, recordsPerSecond / rateShares);
+        }
+
+        private boolean isAdaptive() {
+            return common.config.getTargetLatencyMillis() > 0 &&
+                   common.config.getRecordsPerSecond() != IndexingCommon.UNLIMITED;
+        }
+
         long waitTimeMilliseconds() {
             // let delta = transaction(s) actual time in millis
             // let count = transaction(s) actual count
@@ -103,7 +155,7 @@ public class IndexingThrottle {
             // - For simplicity and locality, assume that the next chunk starts at nowMillis+waitMillis
             // - Avoiding negative delta and restricting toWait's range implies self initialization
             // - Ignore failed transactions (they should be rare, and limited in number)
-            int recordsPerSecond = common.config.getRecordsPerSecond();
+            final long recordsPerSecond = getRecordsPerSecond();
             if (recordsPerSecond == IndexingCommon.UNLIMITED) {
                 // in case config loader changes this value from UNLIMITED to limit
                 recordsScannedSinceForcedDelayMilliSeconds = 0;
@@ -120,7 +172,7 @@ public class IndexingThrottle {
 
         public List<Object> logMessageKeyValues() {
             return Arrays.asList(LogMessageKeys.LIMIT, recordsLimit,
-                    LogMessageKeys.RECORDS_PER_SECOND, common.config.getRecordsPerSecond(),
+                    LogMessageKeys.RECORDS_PER_SECOND, getRecordsPerSecond(),
                     LogMessageKeys.SUCCESSFUL_TRANSACTIONS_COUNT, countSuccessfulTransactions,
                     LogMessageKeys.FAILED_TRANSACTIONS_COUNT, countFailedTransactions,
                     LogMessageKeys.FAILED_TRANSACTIONS_COUNT_IN_RUNNER, countRunnerFailedTransactions,
@@ -194,7 +246,9 @@ public class IndexingThrottle {
                 countSuccessfulTransactions++;
                 totalRecordsScannedSuccess += recordsScannedThisTransaction;
                 recordsScannedSinceForcedDelayMilliSeconds += recordsScannedThisTransaction;
-                if (consecutiveSuccessCount >= common.config.getIncreaseLimitAfter()) {
+                if (adaptRecordsPerSecond(additionalLogMessageKeyValues)) {
+                    consecutiveSuccessCount = 0; // do not grow the transactions while the cluster is loaded
+                } else if (consecutiveSuccessCount >= common.config.getIncreaseLimitAfter()) {
                     increaseLimit(additionalLogMessageKeyValues != null ? additionalLogMessageKeyValues : new ArrayList<>());
                     consecutiveSuccessCount = 0; // do not increase again immediately after the next success
                 } else {
@@ -208,10 +262,96 @@ public class IndexingThrottle {
                 lastFailureRecordsScanned = recordsScannedThisTransaction;
                 totalRecordsScannedFailure += recordsScannedThisTransaction;
                 recordsScanned.set(0);
+                final FDBException fdbException = getFDBException(exception);
+                if (isAdaptive() && fdbException != null && OVERLOADED_CLUSTER_CODES.contains(fdbException.getCode())) {
+                    lowerRecordsPerSecond(2, fdbException, additionalLogMessageKeyValues);
+                }
                 // in this path, reset the store timer snapshot only after proper logging
             }
         }
 
+        /**
+         * Adapt the records per second rate to the latency observed by the last successful transaction.
+         * @param additionalLogMessageKeyValues additional log keys and values
+         * @return {@code true} if the latency exceeded the target
+         */
+        private boolean adaptRecordsPerSecond(@Nullable List<Object> additionalLogMessageKeyValues) {
+            if (!isAdaptive()) {
+                adaptedRecordsPerSecond = 0;
+                return false;
+            }
+            final long latencyMillis = observedLatencyMillis();
+            if (latencyMillis > common.config.getTargetLatencyMillis()) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug(KeyValueLogMessage.build("Observed latency above target",
+                                    LogMessageKeys.OBSERVED_LATENCY_MILLIS, latencyMillis,
+                                    LogMessageKeys.TARGET_LATENCY_MILLIS, common.config.getTargetLatencyMillis())
+                            .addKeysAndValues(common.indexLogMessageKeyValues())
+                            .toString());
+                }
+                lowerRecordsPerSecond(4, null, additionalLogMessageKeyValues);
+                return true;
+            }
+            if (adaptedRecordsPerSecond > 0) {
+                final long recordsPerSecond = configuredRecordsPerSecond();
+                adaptedRecordsPerSecond += Math.max(1, recordsPerSecond / 20);
+                if (adaptedRecordsPerSecond >= recordsPerSecond) {
+                    adaptedRecordsPerSecond = 0; // back to the configured rate
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Lower the records per second rate by a fraction of itself.
+         * @param fraction lower the rate by one over this value
+         * @param fdbException the error that indicated an overloaded cluster, if any
+         * @param additionalLogMessageKeyValues additional log keys and values
+         */
+        private void lowerRecordsPerSecond(long fraction, @Nullable FDBException fdbException,
+                                           @Nullable List<Object> additionalLogMessageKeyValues) {
+            final long oldRecordsPerSecond = getRecordsPerSecond();
+            adaptedRecordsPerSecond = Math.max(1, oldRecordsPerSecond - oldRecordsPerSecond / fraction);
+            final FDBStoreTimer timer = common.getRunner().getTimer();
+            if (timer != null) {
+                timer.increment(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RATE_DECREASED);
+            }
+            if (LOGGER.isDebugEnabled()) {
+                final KeyValueLogMessage message = KeyValueLogMessage.build("Lowering records per second of online index build",
+                                LogMessageKeys.OLD_RECORDS_PER_SECOND, oldRecordsPerSecond)
+                        .addKeysAndValues(logMessageKeyValues())
+                        .addKeysAndValues(common.indexLogMessageKeyValues());
+                if (fdbException != null) {
+                    message.addKeyAndValue(LogMessageKeys.ERROR_CODE, fdbException.getCode());
+                }
+                if (additionalLogMessageKeyValues != null) {
+                    message.addKeysAndValues(additionalLogMessageKeyValues);
+                }
+                LOGGER.debug(message.toString());
+            }
+        }
+
+        /**
+         * Get the highest mean latency of the read version and commit requests since the last store timer snapshot.
+         * @return the latency in milliseconds, or zero if it could not be measured
+         */
+        private long observedLatencyMillis() {
+            final FDBStoreTimer timer = common.getRunner().getTimer();
+            if (timer == null || storeTimerSnapshot == null ||
+                    !storeTimerSnapshot.derivedFrom(timer) || !storeTimerSnapshot.takenAfterReset(timer)) {
+                return 0;
+            }
+            final StoreTimer metricsDiff = StoreTimer.getDifference(timer, storeTimerSnapshot);
+            long latencyNanos = 0;
+            for (StoreTimer.Event event : LATENCY_EVENTS) {
+                final int count = metricsDiff.getCount(event);
+                if (count > 0) {
+                    latencyNanos = Math.max(latencyNanos, metricsDiff.getTimeNanos(event) / count);
+                }
+            }
+            return TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+        }
+
         private void increaseLimit(final @Nonnull List<Object> additionalLogMessageKeyValues) {
             final long maxLimit = common.config.getMaxLimit();
             if (recordsLimit >= maxLimit) {
@@ -276,9 +416,20 @@ public class IndexingThrottle {
     }
 
     IndexingThrottle(@Nonnull IndexingCommon common, boolean isScrubber) {
+        this(common, isScrubber, 1);
+    }
+
+    /**
+     * Create a throttle for one of several concurrent indexing transactions, which share the configured records per
+     * second rate equally.
+     * @param common the common indexing state
+     * @param isScrubber whether the throttle is used by a scrubber
+     * @param rateShares the number of throttles that share the configured rate
+     */
+    IndexingThrottle(@Nonnull IndexingCommon common, boolean isScrubber, int rateShares) {
         this.common = common;
         this.isScrubber = isScrubber;
-        this.booker = new Booker(common);
+        this.booker = new Booker(common, rateShares);
     }
 
     public long waitTimeMilliseconds() {
@@ -317,25 +468,33 @@ public class IndexingThrottle {
 
         AtomicInteger tries = new AtomicInteger(0);
         AtomicLong recordsScanned = new AtomicLong(0);
+        AtomicLong transactionSize = new AtomicLong(0);
         CompletableFuture<R> ret = new CompletableFuture<>();
         booker.resetStoreTimerSnapshot();
         final ExponentialDelay delay = common.getRunner().createExponentialDelay();
         AsyncUtil.whileTrue(() -> {
             loadConfig();
             // TODO: eliminate the usage of the runner - call (and handle) every transaction here
-            return common.getRunner().runAsync(context -> common.getRecordStoreBuilder().copyBuilder().setContext(context).openAsync().thenCompose(store -> {
+            return common.acquireMaintenanceTurnAsync().thenCompose(ignore -> common.getRunner().runAsync(context -> common.getRecordStoreBuilder().copyBuilder().setContext(context).openAsync().thenCompose(store -> {
                 expectedIndexStatesOrThrow(store, context);
-                return buildFunction.apply(store, recordsScanned).thenApply(retVal -> {
+                return buildFunction.apply(store, recordsScanned).thenCompose(retVal -> {
                     Set<Index> indexSet = store.getIndexDeferredMaintenanceControl().getMergeRequiredIndexes();
                     if (indexSet != null) {
                         mergeRequiredIndexes.addAll(indexSet);
                     }
-                    return retVal;
+                    if (!common.isMaintenanceScheduled()) {
+                        return CompletableFuture.completedFuture(retVal);
+                    }
+                    return context.getApproximateTransactionSize().thenApply(size -> {
+                        transactionSize.set(size);
+                        return retVal;
+                    });
                 });
             }), (result, exception) -> {
+                common.reportMaintenanceTransaction(recordsScanned.get(), transactionSize.getAndSet(0));
                 booker.handleLimitsPostRunnerTransaction(exception, recordsScanned, adjustLimits, additionalLogMessageKeyValues);
                 return Result.of(result, exception);
-            }, onlineIndexerLogMessageKeyValues).handle((value, e) -> {
+            }, onlineIndexerLogMessageKeyValues)).handle((value, e) -> {
                 if (e == null) {
                     // Here: success path - also the common path (or so we hope)
                     common.getTotalRecordsScanned().addAndGet(recordsScanned.get());
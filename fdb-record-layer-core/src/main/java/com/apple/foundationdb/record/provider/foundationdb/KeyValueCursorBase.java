@@ -31,14 +31,18 @@ import com.apple.foundationdb.async.AsyncIterator;
 import com.apple.foundationdb.record.CursorStreamingMode;
 import com.apple.foundationdb.record.EndpointType;
 import com.apple.foundationdb.record.KeyRange;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCursorContinuation;
 import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordCursorVisitor;
 import com.apple.foundationdb.record.ScanProperties;
 import com.apple.foundationdb.record.TupleRange;
 import com.apple.foundationdb.record.cursors.AsyncIteratorCursor;
 import com.apple.foundationdb.record.cursors.BaseCursor;
 import com.apple.foundationdb.record.cursors.CursorLimitManager;
+import com.apple.foundationdb.record.cursors.batch.BatchCursor;
+import com.apple.foundationdb.record.cursors.batch.RecordCursorBatch;
 import com.apple.foundationdb.subspace.Subspace;
 import com.apple.foundationdb.tuple.Tuple;
 import com.google.protobuf.ByteString;
@@ -49,6 +53,7 @@ import javax.annotation.Nullable;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * The base class for cursors scanning ranges of the FDB database.
@@ -91,36 +96,117 @@ public abstract class KeyValueCursorBase<K extends KeyValue> extends AsyncIterat
             // of the tryRecordScan check.
             return CompletableFuture.completedFuture(nextResult);
         } else if (limitManager.tryRecordScan()) {
-            return iterator.onHasNext().thenApply(hasNext -> {
-                if (hasNext) {
-                    K kv = iterator.next();
-                    if (context != null) {
-                        context.increment(FDBStoreTimer.Counts.LOAD_SCAN_ENTRY);
-                        context.increment(FDBStoreTimer.Counts.LOAD_KEY_VALUE);
-                    }
-                    limitManager.reportScannedBytes((long)kv.getKey().length + (long)kv.getValue().length);
-                    // Note that this mutates the pointer and NOT the array.
-                    // If the value of lastKey is mutated, the Continuation class will break.
-                    lastKey = kv.getKey();
-                    valuesSeen++;
-                    nextResult = RecordCursorResult.withNextValue(kv, continuationHelper());
-                } else if (valuesSeen >= valuesLimit) {
-                    // Source iterator hit limit that we passed down.
-                    nextResult = RecordCursorResult.withoutNextValue(continuationHelper(), NoNextReason.RETURN_LIMIT_REACHED);
-                } else {
-                    // Source iterator is exhausted.
-                    nextResult = RecordCursorResult.exhausted();
-                }
-                return nextResult;
-            });
+            return iterator.onHasNext().thenApply(hasNext -> hasNext ? nextResultWithValue() : nextResultWithoutValue());
         } else { // a limit must have been exceeded
-            final Optional<NoNextReason> stoppedReason = limitManager.getStoppedReason();
-            if (!stoppedReason.isPresent()) {
-                throw new RecordCoreException("limit manager stopped KeyValueCursor but did not report a reason");
+            return CompletableFuture.completedFuture(limitReachedResult());
+        }
+    }
+
+    /**
+     * Return a view of this scan that returns its key-value pairs a batch at a time. Each batch takes the key-value
+     * pairs that the underlying range read has already fetched, up to the given size, without completing a future
+     * for each of them. Scan limits are enforced the same way as by {@link #onNext()}.
+     * @param maxBatchSize the maximum number of key-value pairs in each batch
+     * @return a view of this cursor as a {@link BatchCursor}
+     */
+    @Nonnull
+    @Override
+    @API(API.Status.EXPERIMENTAL)
+    public BatchCursor<K> asBatchCursor(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new RecordCoreArgumentException("batch size must be positive")
+                    .addLogInfo("maxBatchSize", maxBatchSize);
+        }
+        return new ScanBatchCursor(maxBatchSize);
+    }
+
+    @Nonnull
+    private CompletableFuture<RecordCursorBatch<K>> onNextBatch(int maxBatchSize) {
+        if (nextResult != null && !nextResult.hasNext()) {
+            return CompletableFuture.completedFuture(RecordCursorBatch.empty(nextResult));
+        } else if (limitManager.tryRecordScan()) {
+            return iterator.onHasNext().thenApply(hasNext -> fillBatch(hasNext, maxBatchSize));
+        } else {
+            return CompletableFuture.completedFuture(RecordCursorBatch.empty(limitReachedResult()));
+        }
+    }
+
+    @Nonnull
+    private RecordCursorBatch<K> fillBatch(boolean firstHasNext, int maxBatchSize) {
+        // Only the continuation after the last key-value is needed to resume, so the others are left to the batch
+        // to create if its consumer asks for them.
+        final RecordCursorBatch.Builder<K> builder = RecordCursorBatch.newBuilder(Math.min(maxBatchSize, 16),
+                kv -> new Continuation(kv.getKey(), prefixLength));
+        boolean hasNext = firstHasNext;
+        while (hasNext) {
+            final K kv = consumeNext();
+            builder.add(kv);
+            if (builder.size() >= maxBatchSize) {
+                return endBatch(builder, kv);
             }
-            nextResult = RecordCursorResult.withoutNextValue(continuationHelper(), stoppedReason.get());
-            return CompletableFuture.completedFuture(nextResult);
+            final CompletableFuture<Boolean> hasNextFuture = iterator.onHasNext();
+            if (!hasNextFuture.isDone() || hasNextFuture.isCompletedExceptionally()) {
+                // The next key-value is not fetched yet, so end the batch rather than wait.
+                return endBatch(builder, kv);
+            }
+            // Only record the scan once the next key-value is known to be available, as onNext would.
+            if (!limitManager.tryRecordScan()) {
+                return builder.build(limitReachedResult());
+            }
+            hasNext = hasNextFuture.join();
         }
+        return builder.build(nextResultWithoutValue());
+    }
+
+    @Nonnull
+    private RecordCursorBatch<K> endBatch(@Nonnull RecordCursorBatch.Builder<K> builder, @Nonnull K lastKv) {
+        // Leave the cursor where it would be after returning the last key-value of the batch from onNext.
+        nextResult = RecordCursorResult.withNextValue(lastKv, continuationHelper());
+        return builder.build();
+    }
+
+    @Nonnull
+    private RecordCursorResult<K> nextResultWithValue() {
+        final K kv = consumeNext();
+        nextResult = RecordCursorResult.withNextValue(kv, continuationHelper());
+        return nextResult;
+    }
+
+    @Nonnull
+    private K consumeNext() {
+        K kv = iterator.next();
+        if (context != null) {
+            context.increment(FDBStoreTimer.Counts.LOAD_SCAN_ENTRY);
+            context.increment(FDBStoreTimer.Counts.LOAD_KEY_VALUE);
+        }
+        limitManager.reportScannedBytes((long)kv.getKey().length + (long)kv.getValue().length);
+        // Note that this mutates the pointer and NOT the array.
+        // If the value of lastKey is mutated, the Continuation class will break.
+        lastKey = kv.getKey();
+        valuesSeen++;
+        return kv;
+    }
+
+    @Nonnull
+    private RecordCursorResult<K> nextResultWithoutValue() {
+        if (valuesSeen >= valuesLimit) {
+            // Source iterator hit limit that we passed down.
+            nextResult = RecordCursorResult.withoutNextValue(continuationHelper(), NoNextReason.RETURN_LIMIT_REACHED);
+        } else {
+            // Source iterator is exhausted.
+            nextResult = RecordCursorResult.exhausted();
+        }
+        return nextResult;
+    }
+
+    @Nonnull
+    private RecordCursorResult<K> limitReachedResult() {
+        final Optional<NoNextReason> stoppedReason = limitManager.getStoppedReason();
+        if (!stoppedReason.isPresent()) {
+            throw new RecordCoreException("limit manager stopped KeyValueCursor but did not report a reason");
+        }
+        nextResult = RecordCursorResult.withoutNextValue(continuationHelper(), stoppedReason.get());
+        return nextResult;
     }
 
     @Override
@@ -134,6 +220,41 @@ public abstract class KeyValueCursorBase<K extends KeyValue> extends AsyncIterat
         return new Continuation(lastKey, prefixLength);
     }
 
+    private class ScanBatchCursor implements BatchCursor<K> {
+        private final int maxBatchSize;
+
+        ScanBatchCursor(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        @Nonnull
+        @Override
+        public CompletableFuture<RecordCursorBatch<K>> onNextBatch() {
+            return KeyValueCursorBase.this.onNextBatch(maxBatchSize);
+        }
+
+        @Override
+        public void close() {
+            KeyValueCursorBase.this.close();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return KeyValueCursorBase.this.isClosed();
+        }
+
+        @Nonnull
+        @Override
+        public Executor getExecutor() {
+            return KeyValueCursorBase.this.getExecutor();
+        }
+
+        @Override
+        public boolean accept(@Nonnull RecordCursorVisitor visitor) {
+            return KeyValueCursorBase.this.accept(visitor);
+        }
+    }
+
     private static class Continuation implements RecordCursorContinuation {
         @Nullable
         private final byte[] lastKey;
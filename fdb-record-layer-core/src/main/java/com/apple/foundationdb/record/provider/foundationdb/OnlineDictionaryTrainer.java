@@ -0,0 +1,502 @@
+/*
+ * OnlineDictionaryTrainer.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.EndpointType;
+import com.apple.foundationdb.record.ExecuteProperties;
+import com.apple.foundationdb.record.IsolationLevel;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordMetaData;
+import com.apple.foundationdb.record.ScanProperties;
+import com.apple.foundationdb.record.TupleRange;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.record.metadata.MetaDataException;
+import com.apple.foundationdb.record.metadata.RecordType;
+import com.apple.foundationdb.record.provider.common.CompressionDictionaryTrainer;
+import com.apple.foundationdb.record.provider.common.RecordSerializer;
+import com.apple.foundationdb.record.provider.common.TransformedRecordSerializer;
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.protobuf.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Trains a compression dictionary for one record type of a record store and saves it in the store.
+ *
+ * <p>
+ * The records of the type are sampled in a series of transactions. The range of the record type is divided at the
+ * shard boundaries of the store and the first records of each piece are sampled, so that the sample is spread across
+ * the whole record type, but only about as many records as are sampled need to be read. The sampled records are serialized
+ * without compression or encryption and passed to {@link CompressionDictionaryTrainer}. The resulting dictionary is saved with
+ * {@link FDBRecordStore#saveCompressionDictionaryAsync}, which gives it a new version, so that records compressed
+ * with earlier dictionaries can still be read.
+ * </p>
+ *
+ * <p>
+ * If the primary keys of the record type do not begin with a record type key, records of other types are read, too.
+ * The total number of records read is bounded by {@link Builder#setMaxRecordsScanned}.
+ * </p>
+ *
+ * <p>
+ * The store's serializer is not changed by training. Before opening the store, load the dictionaries with
+ * {@link FDBRecordStore#loadCompressionDictionariesAsync} and give them to the serializer with
+ * {@link #addDictionaries}. Since a Deflate stream records the checksum of the dictionary it was compressed with,
+ * records do not need any other marker of the dictionary version.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class OnlineDictionaryTrainer implements AutoCloseable {
+    /**
+     * Default number of records to sample.
+     */
+    public static final int DEFAULT_SAMPLE_SIZE = 1000;
+    /**
+     * Default number of records to read in each transaction.
+     */
+    public static final int DEFAULT_LIMIT = 1000;
+    /**
+     * Default bound on the number of records read, as a multiple of the sample size.
+     */
+    public static final int DEFAULT_MAX_RECORDS_SCANNED_PER_SAMPLE = 10;
+
+    @Nonnull
+    private final FDBDatabaseRunner runner;
+    @Nonnull
+    private final FDBRecordStore.Builder recordStoreBuilder;
+    @Nonnull
+    private final RecordType recordType;
+    private final int limit;
+    private final int sampleSize;
+    private final int maxRecordsScanned;
+    private final int dictionarySize;
+
+    protected OnlineDictionaryTrainer(@Nonnull FDBDatabaseRunner runner,
+                                      @Nonnull FDBRecordStore.Builder recordStoreBuilder,
+                                      @Nonnull RecordType recordType,
+                                      int limit, int sampleSize, int maxRecordsScanned, int dictionarySize) {
+        this.runner = runner;
+        this.recordStoreBuilder = recordStoreBuilder;
+        this.recordType = recordType;
+        this.limit = limit;
+        this.sampleSize = sampleSize;
+        this.maxRecordsScanned = maxRecordsScanned;
+        this.dictionarySize = dictionarySize;
+    }
+
+    @Override
+    public void close() {
+        runner.close();
+    }
+
+    /**
+     * Sample the records of the record type, train a dictionary and save it in the record store.
+     * @return the version of the saved dictionary, or {@code 0} if there were too few records with content in common
+     * to train one
+     */
+    public long trainDictionary() {
+        return runner.asyncToSync(FDBStoreTimer.Waits.WAIT_TRAIN_COMPRESSION_DICTIONARY, trainDictionaryAsync());
+    }
+
+    /**
+     * Sample the records of the record type, train a dictionary and save it in the record store.
+     * @return a future that completes to the version of the saved dictionary, or {@code 0} if there were too few
+     * records with content in common to train one
+     */
+    @Nonnull
+    public CompletableFuture<Long> trainDictionaryAsync() {
+        return sampleAsync().thenCompose(samples -> {
+            final byte[] dictionary = CompressionDictionaryTrainer.train(samples, dictionarySize);
+            if (dictionary.length == 0) {
+                return CompletableFuture.completedFuture(0L);
+            }
+            return runner.runAsync(context -> openStore(context)
+                    .thenCompose(store -> store.saveCompressionDictionaryAsync(recordType.getName(), dictionary)));
+        });
+    }
+
+    /**
+     * Sample the records of the record type, serialized without compression or encryption.
+     * @return a future that completes to at most the sample size records
+     */
+    @Nonnull
+    CompletableFuture<List<byte[]>> sampleAsync() {
+        return runner.runAsync(context -> openStore(context).thenCompose(this::splitRangeAsync))
+                .thenCompose(pieces -> {
+                    final List<byte[]> samples = new ArrayList<>();
+                    final int samplesPerPiece = ceilDiv(sampleSize, pieces.size());
+                    final int scannedPerPiece = ceilDiv(maxRecordsScanned, pieces.size());
+                    final Iterator<TupleRange> iterator = pieces.iterator();
+                    return AsyncUtil.whileTrue(() -> {
+                        if (samples.size() >= sampleSize || !iterator.hasNext()) {
+                            return AsyncUtil.READY_FALSE;
+                        }
+                        return samplePieceAsync(iterator.next(), Math.min(samplesPerPiece, sampleSize - samples.size()), scannedPerPiece)
+                                .thenApply(pieceSamples -> {
+                                    samples.addAll(pieceSamples);
+                                    return true;
+                                });
+                    }, runner.getExecutor()).thenApply(vignore -> samples);
+                });
+    }
+
+    @Nonnull
+    private CompletableFuture<FDBRecordStore> openStore(@Nonnull FDBRecordContext context) {
+        return recordStoreBuilder.copyBuilder().setContext(context).openAsync();
+    }
+
+    // Divide the range of the record type at (no more than the sample size of) its shard boundaries.
+    @Nonnull
+    private CompletableFuture<List<TupleRange>> splitRangeAsync(@Nonnull FDBRecordStore store) {
+        final TupleRange range = recordTypeRange();
+        final RecordCursor<Tuple> cursor = store.getPrimaryKeyBoundaries(range);
+        return cursor.asList().whenComplete((result, ex) -> cursor.close()).thenApply(boundaries -> {
+            final int stride = ceilDiv(boundaries.size() + 1, sampleSize);
+            final List<TupleRange> pieces = new ArrayList<>();
+            Tuple low = range.getLow();
+            EndpointType lowEndpoint = range.getLowEndpoint();
+            for (int i = stride - 1; i < boundaries.size(); i += stride) {
+                final Tuple boundary = boundaries.get(i);
+                pieces.add(new TupleRange(low, boundary, lowEndpoint, EndpointType.RANGE_EXCLUSIVE));
+                low = boundary;
+                lowEndpoint = EndpointType.RANGE_INCLUSIVE;
+            }
+            pieces.add(new TupleRange(low, range.getHigh(), lowEndpoint, range.getHighEndpoint()));
+            return pieces;
+        });
+    }
+
+    @Nonnull
+    private TupleRange recordTypeRange() {
+        return recordType.primaryKeyHasRecordTypePrefix()
+               ? TupleRange.allOf(recordType.getRecordTypeKeyTuple())
+               : TupleRange.ALL;
+    }
+
+    // Sample the first records of one piece of the range, over as many transactions as needed.
+    @Nonnull
+    private CompletableFuture<List<byte[]>> samplePieceAsync(@Nonnull TupleRange piece, int maxSamples, int maxScanned) {
+        final List<byte[]> samples = new ArrayList<>();
+        final AtomicReference<byte[]> continuation = new AtomicReference<>();
+        final AtomicInteger scanned = new AtomicInteger();
+        final boolean onlyThisType = recordType.primaryKeyHasRecordTypePrefix();
+        return AsyncUtil.whileTrue(() -> {
+            int rowLimit = Math.min(limit, maxScanned - scanned.get());
+            if (onlyThisType) {
+                rowLimit = Math.min(rowLimit, maxSamples - samples.size());
+            }
+            final int batchLimit = rowLimit;
+            return runner.runAsync(context -> openStore(context)
+                            .thenCompose(store -> sampleBatchAsync(store, piece, continuation.get(), batchLimit)))
+                    .thenApply(batch -> {
+                        // Only add to the samples once the transaction has succeeded, so that retries do not
+                        // sample the same records twice.
+                        for (byte[] sample : batch.samples) {
+                            if (samples.size() < maxSamples) {
+                                samples.add(sample);
+                            }
+                        }
+                        scanned.addAndGet(batch.scanned);
+                        continuation.set(batch.continuation);
+                        return batch.continuation != null && samples.size() < maxSamples && scanned.get() < maxScanned;
+                    });
+        }, runner.getExecutor()).thenApply(vignore -> samples);
+    }
+
+    @Nonnull
+    private CompletableFuture<Batch> sampleBatchAsync(@Nonnull FDBRecordStore store, @Nonnull TupleRange piece,
+                                                      @Nullable byte[] continuation, int rowLimit) {
+        final RecordSerializer<Message> serializer = untransformed(store.getSerializer());
+        final RecordMetaData metaData = store.getRecordMetaData();
+        final ScanProperties scanProperties = new ScanProperties(ExecuteProperties.newBuilder()
+                .setReturnedRowLimit(rowLimit)
+                .setIsolationLevel(IsolationLevel.SNAPSHOT)
+                .build());
+        final List<byte[]> samples = new ArrayList<>();
+        final AtomicInteger scanned = new AtomicInteger();
+        return store.scanRecords(piece, continuation, scanProperties)
+                .forEachResult(result -> {
+                    final FDBStoredRecord<Message> rec = result.get();
+                    scanned.incrementAndGet();
+                    if (rec != null && rec.getRecordType().getName().equals(recordType.getName())) {
+                        samples.add(serializer.serialize(metaData, rec.getRecordType(), rec.getRecord(), null));
+                    }
+                })
+                .thenApply(lastResult -> new Batch(samples, scanned.get(), lastResult.getNoNextReason().isSourceExhausted()
+                                                                       ? null
+                                                                       : lastResult.getContinuation().toBytes()));
+    }
+
+    private static int ceilDiv(int dividend, int divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    private static RecordSerializer<Message> untransformed(@Nonnull RecordSerializer<Message> serializer) {
+        if (serializer instanceof TransformedRecordSerializer) {
+            return ((TransformedRecordSerializer<Message>)serializer).untransformed();
+        }
+        return serializer;
+    }
+
+    /**
+     * Configure a serializer with the dictionaries of a record store. For each record type, the latest dictionary
+     * is used to compress new records and all of them can be used to decompress records.
+     * @param builder the builder of the serializer
+     * @param dictionaries the dictionaries of each record type, oldest first, as returned by
+     * {@link FDBRecordStore#loadCompressionDictionariesAsync}
+     * @param <M> type of message the serializer handles
+     * @return the given builder
+     */
+    @Nonnull
+    public static <M extends Message> TransformedRecordSerializer.Builder<M> addDictionaries(@Nonnull TransformedRecordSerializer.Builder<M> builder,
+                                                                                             @Nonnull Map<String, List<byte[]>> dictionaries) {
+        for (Map.Entry<String, List<byte[]>> entry : dictionaries.entrySet()) {
+            final List<byte[]> versions = entry.getValue();
+            if (versions.isEmpty()) {
+                continue;
+            }
+            for (int i = 0; i < versions.size() - 1; i++) {
+                builder.addDecompressionDictionary(versions.get(i));
+            }
+            builder.setCompressionDictionary(entry.getKey(), versions.get(versions.size() - 1));
+        }
+        return builder;
+    }
+
+    /**
+     * Create a builder for an {@link OnlineDictionaryTrainer}.
+     * @return a new builder
+     */
+    @Nonnull
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    private static final class Batch {
+        @Nonnull
+        private final List<byte[]> samples;
+        private final int scanned;
+        @Nullable
+        private final byte[] continuation;
+
+        private Batch(@Nonnull List<byte[]> samples, int scanned, @Nullable byte[] continuation) {
+            this.samples = samples;
+            this.scanned = scanned;
+            this.continuation = continuation;
+        }
+    }
+
+    /**
+     * Builder for {@link OnlineDictionaryTrainer}.
+     *
+     * <pre><code>
+     * try (OnlineDictionaryTrainer trainer = OnlineDictionaryTrainer.newBuilder()
+     *         .setRecordStoreBuilder(recordStoreBuilder)
+     *         .setRecordType("MyRecord")
+     *         .build()) {
+     *     trainer.trainDictionary();
+     * }
+     * </code></pre>
+     */
+    public static class Builder {
+        @Nullable
+        private FDBDatabaseRunner runner;
+        @Nullable
+        private FDBRecordStore.Builder recordStoreBuilder;
+        @Nullable
+        private String recordTypeName;
+        private int limit = DEFAULT_LIMIT;
+        private int sampleSize = DEFAULT_SAMPLE_SIZE;
+        private int maxRecordsScanned = -1;
+        private int dictionarySize = CompressionDictionaryTrainer.DEFAULT_DICTIONARY_SIZE;
+
+        protected Builder() {
+        }
+
+        /**
+         * Set the runner that will be used to call into the database.
+         * Normally the runner is gotten from {@link #setDatabase} or {@link #setRecordStore} or {@link #setRecordStoreBuilder}.
+         * @param runner the runner that connects to the target database
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setRunner(@Nullable FDBDatabaseRunner runner) {
+            this.runner = runner;
+            return this;
+        }
+
+        /**
+         * Set the database in which to train the dictionary.
+         * Normally the database is gotten from {@link #setRecordStore} or {@link #setRecordStoreBuilder}.
+         * @param database the target database
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setDatabase(@Nonnull FDBDatabase database) {
+            this.runner = database.newRunner();
+            setRunnerDefaults();
+            return this;
+        }
+
+        /**
+         * Set the record store builder that will be used to open record store instances for sampling and saving.
+         * @param recordStoreBuilder the record store builder
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setRecordStoreBuilder(@Nonnull FDBRecordStore.Builder recordStoreBuilder) {
+            this.recordStoreBuilder = recordStoreBuilder.copyBuilder().setContext(null);
+            if (runner == null && recordStoreBuilder.getContext() != null) {
+                runner = recordStoreBuilder.getContext().newRunner();
+                setRunnerDefaults();
+            }
+            return this;
+        }
+
+        /**
+         * Set the record store that will be used as a template to open record store instances for sampling and saving.
+         * @param recordStore the target record store
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setRecordStore(@Nonnull FDBRecordStore recordStore) {
+            recordStoreBuilder = recordStore.asBuilder().setContext(null);
+            if (runner == null) {
+                runner = recordStore.getRecordContext().newRunner();
+                setRunnerDefaults();
+            }
+            return this;
+        }
+
+        private void setRunnerDefaults() {
+            Objects.requireNonNull(runner).setPriority(FDBTransactionPriority.BATCH);
+        }
+
+        /**
+         * Set the record type whose records to train a dictionary for.
+         * @param recordTypeName the name of the record type
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setRecordType(@Nonnull String recordTypeName) {
+            this.recordTypeName = recordTypeName;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of records to read in each transaction.
+         * If never called, the default is {@link #DEFAULT_LIMIT}.
+         * @param limit the maximum number of records per transaction
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setLimit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of records to train the dictionary from.
+         * If never called, the default is {@link #DEFAULT_SAMPLE_SIZE}.
+         * @param sampleSize the number of records to sample
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setSampleSize(int sampleSize) {
+            this.sampleSize = sampleSize;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of records to read in all, including records of other types when the primary keys
+         * of the record type do not begin with a record type key.
+         * If never called, the default is {@link #DEFAULT_MAX_RECORDS_SCANNED_PER_SAMPLE} times the sample size.
+         * @param maxRecordsScanned the maximum number of records to read
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setMaxRecordsScanned(int maxRecordsScanned) {
+            this.maxRecordsScanned = maxRecordsScanned;
+            return this;
+        }
+
+        /**
+         * Set the maximum size of the trained dictionary.
+         * If never called, the default is {@link CompressionDictionaryTrainer#DEFAULT_DICTIONARY_SIZE}.
+         * @param dictionarySize the maximum size in bytes
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setDictionarySize(int dictionarySize) {
+            this.dictionarySize = dictionarySize;
+            return this;
+        }
+
+        /**
+         * Build an {@link OnlineDictionaryTrainer}.
+         * @return a new dictionary trainer
+         */
+        @Nonnull
+        public OnlineDictionaryTrainer build() {
+            if (runner == null) {
+                throw new MetaDataException("record store or database must be set");
+            }
+            if (recordStoreBuilder == null || recordStoreBuilder.getMetaDataProvider() == null) {
+                throw new MetaDataException("record store builder must include metadata");
+            }
+            if (recordTypeName == null) {
+                throw new MetaDataException("record type must be set");
+            }
+            final RecordType recordType = recordStoreBuilder.getMetaDataProvider().getRecordMetaData().getRecordType(recordTypeName);
+            if (limit <= 0) {
+                throw new RecordCoreArgumentException("limit must be positive")
+                        .addLogInfo(LogMessageKeys.LIMIT, limit);
+            }
+            if (sampleSize <= 0) {
+                throw new RecordCoreArgumentException("sample size must be positive")
+                        .addLogInfo("sampleSize", sampleSize);
+            }
+            final int scanned = maxRecordsScanned < 0 ? sampleSize * DEFAULT_MAX_RECORDS_SCANNED_PER_SAMPLE : maxRecordsScanned;
+            if (scanned < sampleSize) {
+                throw new RecordCoreArgumentException("cannot scan fewer records than the sample size")
+                        .addLogInfo("maxRecordsScanned", scanned, "sampleSize", sampleSize);
+            }
+            if (dictionarySize <= 0 || dictionarySize > CompressionDictionaryTrainer.MAX_DICTIONARY_SIZE) {
+                throw new RecordCoreArgumentException("dictionary size out of range")
+                        .addLogInfo("dictionarySize", dictionarySize);
+            }
+            return new OnlineDictionaryTrainer(runner, recordStoreBuilder, recordType, limit, sampleSize, scanned, dictionarySize);
+        }
+    }
+}
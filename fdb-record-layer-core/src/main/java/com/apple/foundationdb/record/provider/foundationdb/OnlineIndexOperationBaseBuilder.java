@@ -26,6 +26,7 @@ import com.apple.foundationdb.record.RecordMetaDataProvider;
 import com.apple.foundationdb.record.metadata.Index;
 import com.apple.foundationdb.record.metadata.MetaDataException;
 import com.apple.foundationdb.record.provider.common.RecordSerializer;
+import com.apple.foundationdb.record.provider.foundationdb.runners.throttled.MaintenanceScheduler;
 import com.apple.foundationdb.record.provider.foundationdb.synchronizedsession.SynchronizedSessionRunner;
 import com.apple.foundationdb.subspace.Subspace;
 import com.google.protobuf.Message;
@@ -54,7 +55,9 @@ public abstract class OnlineIndexOperationBaseBuilder<B extends OnlineIndexOpera
     private final OnlineIndexOperationConfig.Builder configBuilder = OnlineIndexOperationConfig.newBuilder();
     // Maybe the performance impact of this is low enough to be always enabled?
     private boolean trackProgress = true;
-
+    @Nullable
+    private MaintenanceScheduler maintenanceScheduler = null;
+    private int maintenancePriority = 0;
 
     protected OnlineIndexOperationBaseBuilder() {
     }
@@ -722,7 +725,8 @@ public abstract class OnlineIndexOperationBaseBuilder<B extends OnlineIndexOpera
     }
 
     /**
-     * Set the lease length in milliseconds if the synchronized session is used. The default value is {@link OnlineIndexOperationConfig#DEFAULT_LEASE_LENGTH_MILLIS}.
+     * Set the lease length in milliseconds if the synchronized session is used, or if mutual indexers share a work queue
+     * (see {@link OnlineIndexer.IndexingPolicy.Builder#setMutualIndexingWorkQueue(boolean)}). The default value is {@link OnlineIndexOperationConfig#DEFAULT_LEASE_LENGTH_MILLIS}.
      * @see #setUseSynchronizedSession(boolean)
      * @see com.apple.foundationdb.synchronizedsession.SynchronizedSession
      * @param leaseLengthMillis length between last access and lease's end time in milliseconds
@@ -733,6 +737,72 @@ public abstract class OnlineIndexOperationBaseBuilder<B extends OnlineIndexOpera
         return self();
     }
 
+    /**
+     * Get the target latency of the cluster's read version and commit requests.
+     * @return the target latency in milliseconds
+     * @see #setTargetLatencyMillis(long)
+     */
+    public long getTargetLatencyMillis() {
+        return configBuilder.getTargetLatencyMillis();
+    }
+
+    /**
+     * Set the target latency of the cluster's read version and commit requests. If positive, the number of records
+     * processed in a single second is lowered while the cluster is loaded, and raised back up to
+     * {@link #getRecordsPerSecond()} while it is not.
+     * By default this is {@link OnlineIndexOperationConfig#NO_TARGET_LATENCY}, which means that the rate is not adapted.
+     * <p>
+     * Note {@link #setConfigLoader(UnaryOperator)} is the recommended way of loading online index builder's parameters
+     * and the values set by this method will be overwritten if the supplier is set.
+     * </p>
+     * @param targetLatencyMillis the target latency in milliseconds
+     * @return this builder
+     * @see OnlineIndexOperationConfig.Builder#setTargetLatencyMillis(long)
+     */
+    @Nonnull
+    public B setTargetLatencyMillis(long targetLatencyMillis) {
+        configBuilder.setTargetLatencyMillis(targetLatencyMillis);
+        return self();
+    }
+
+    /**
+     * Get the scheduler that shares a budget between this and other maintenance jobs.
+     * @return the scheduler or {@code null} if none is set
+     */
+    @Nullable
+    public MaintenanceScheduler getMaintenanceScheduler() {
+        return maintenanceScheduler;
+    }
+
+    /**
+     * Get the priority of this operation among the jobs of the maintenance scheduler.
+     * @return the priority
+     * @see #setMaintenanceScheduler(MaintenanceScheduler, int)
+     */
+    public int getMaintenancePriority() {
+        return maintenancePriority;
+    }
+
+    /**
+     * Set a scheduler that shares a budget between this and other maintenance jobs. If set, each transaction of this
+     * operation waits for a turn from the scheduler, in addition to the throttling of this operation's own
+     * configuration. Jobs with higher priorities are granted turns first.
+     * The default is {@code null}, which means that the transactions are not scheduled.
+     * @param maintenanceScheduler the scheduler, or {@code null} for none
+     * @param maintenancePriority the priority of this operation among the scheduler's jobs
+     * @return this builder
+     */
+    @Nonnull
+    public B setMaintenanceScheduler(@Nullable MaintenanceScheduler maintenanceScheduler, int maintenancePriority) {
+        this.maintenanceScheduler = maintenanceScheduler;
+        this.maintenancePriority = maintenancePriority;
+        return self();
+    }
+
+    @Nullable
+    protected MaintenanceScheduler.Job newMaintenanceJob(@Nonnull String name) {
+        return maintenanceScheduler == null ? null : maintenanceScheduler.newJob(name, maintenancePriority);
+    }
 
     @Nonnull
     protected OnlineIndexOperationConfig getConfig() {
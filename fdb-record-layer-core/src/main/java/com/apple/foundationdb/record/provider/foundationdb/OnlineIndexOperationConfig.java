@@ -67,6 +67,11 @@ public class OnlineIndexOperationConfig {
      * This is the default value.
      */
     public static final int DO_NOT_RE_INCREASE_LIMIT = -1;
+    /**
+     * If {@link #getTargetLatencyMillis()} is this value, the records per second rate is not adapted to the cluster's
+     * latency. This is the default value.
+     */
+    public static final long NO_TARGET_LATENCY = 0;
 
     private final int maxLimit;
     private final int initialLimit;
@@ -79,12 +84,13 @@ public class OnlineIndexOperationConfig {
     private final long transactionTimeLimitMilliseconds;
     private final boolean useSynchronizedSession;
     private final long leaseLengthMillis;
+    private final long targetLatencyMillis;
 
     public static final long UNLIMITED_TIME = 0;
 
     OnlineIndexOperationConfig(int maxLimit, int initialLimit, int maxRetries, int recordsPerSecond, long progressLogIntervalMillis, int increaseLimitAfter,
                                int maxWriteLimitBytes, long timeLimitMilliseconds, long transactionTimeLimitMilliseconds,
-                               boolean useSynchronizedSession, long leaseLengthMillis) {
+                               boolean useSynchronizedSession, long leaseLengthMillis, long targetLatencyMillis) {
         this.maxLimit = maxLimit;
         this.initialLimit = initialLimit;
         this.maxRetries = maxRetries;
@@ -96,6 +102,7 @@ public class OnlineIndexOperationConfig {
         this.transactionTimeLimitMilliseconds = transactionTimeLimitMilliseconds;
         this.useSynchronizedSession = useSynchronizedSession;
         this.leaseLengthMillis = leaseLengthMillis;
+        this.targetLatencyMillis = targetLatencyMillis;
     }
 
     /**
@@ -196,6 +203,18 @@ public class OnlineIndexOperationConfig {
         return leaseLengthMillis;
     }
 
+    /**
+     * Get the target latency of the cluster's read version and commit requests. If positive, the number of records
+     * processed in a single second is lowered while the indexer observes higher latencies, and raised back up to
+     * {@link #getRecordsPerSecond()} while it does not.
+     * By default this is {@link #NO_TARGET_LATENCY}, which means that the rate is not adapted.
+     *
+     * @return the target latency in milliseconds
+     */
+    public long getTargetLatencyMillis() {
+        return targetLatencyMillis;
+    }
+
     /**
      * To create a builder for the given config.
      *
@@ -214,7 +233,8 @@ public class OnlineIndexOperationConfig {
                 .setTimeLimitMilliseconds(timeLimitMilliseconds)
                 .setTransactionTimeLimitMilliseconds(this.transactionTimeLimitMilliseconds)
                 .setUseSynchronizedSession(useSynchronizedSession)
-                .setLeaseLengthMillis(leaseLengthMillis);
+                .setLeaseLengthMillis(leaseLengthMillis)
+                .setTargetLatencyMillis(targetLatencyMillis);
     }
 
     /**
@@ -235,6 +255,7 @@ public class OnlineIndexOperationConfig {
         private long transactionTimeLimitMilliseconds = DEFAULT_TRANSACTION_TIME_LIMIT;
         private long leaseLengthMillis = DEFAULT_LEASE_LENGTH_MILLIS;
         private boolean useSynchronizedSession = true;
+        private long targetLatencyMillis = NO_TARGET_LATENCY;
 
         protected Builder() {
 
@@ -510,6 +531,39 @@ public class OnlineIndexOperationConfig {
             return this;
         }
 
+        /**
+         * Get the target latency of the cluster's read version and commit requests.
+         *
+         * @return the target latency in milliseconds
+         *
+         * @see #setTargetLatencyMillis(long)
+         */
+        public long getTargetLatencyMillis() {
+            return targetLatencyMillis;
+        }
+
+        /**
+         * Set the target latency of the cluster's read version and commit requests, as observed by the indexer's own
+         * transactions. If positive, the number of records processed in a single second is adapted to the cluster's
+         * load: it is lowered whenever a transaction observes a higher latency or fails because the cluster is
+         * overloaded, and is gradually raised back up to {@link #getRecordsPerSecond()} otherwise. This applies to
+         * both index building and index scrubbing.
+         * <p>
+         * The latencies are measured with the runner's {@link FDBStoreTimer}, so without a timer only failures
+         * lower the rate. A non-positive value disables the adaptation.
+         * The default value is {@link #NO_TARGET_LATENCY}.
+         * </p>
+         *
+         * @param targetLatencyMillis the target latency in milliseconds
+         *
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setTargetLatencyMillis(long targetLatencyMillis) {
+            this.targetLatencyMillis = Math.max(NO_TARGET_LATENCY, targetLatencyMillis);
+            return this;
+        }
+
         /**
          * Build a {@link OnlineIndexOperationConfig}.
          *
@@ -519,7 +573,7 @@ public class OnlineIndexOperationConfig {
         public OnlineIndexOperationConfig build() {
             return new OnlineIndexOperationConfig(maxLimit, initialLimit, maxRetries, recordsPerSecond, progressLogIntervalMillis, increaseLimitAfter,
                     maxWriteLimitBytes, timeLimitMilliseconds, transactionTimeLimitMilliseconds,
-                    useSynchronizedSession, leaseLengthMillis);
+                    useSynchronizedSession, leaseLengthMillis, targetLatencyMillis);
         }
     }
 }
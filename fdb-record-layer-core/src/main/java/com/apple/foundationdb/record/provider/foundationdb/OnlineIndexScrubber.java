@@ -26,6 +26,7 @@ import com.apple.foundationdb.record.RecordMetaData;
 import com.apple.foundationdb.record.metadata.Index;
 import com.apple.foundationdb.record.metadata.MetaDataException;
 import com.apple.foundationdb.record.metadata.RecordType;
+import com.apple.foundationdb.record.provider.foundationdb.runners.throttled.MaintenanceScheduler;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -54,13 +55,14 @@ public class OnlineIndexScrubber implements AutoCloseable {
                         @Nonnull UnaryOperator<OnlineIndexOperationConfig> configLoader,
                         @Nonnull OnlineIndexOperationConfig config,
                         boolean trackProgress,
-                        @Nonnull OnlineIndexScrubber.ScrubbingPolicy scrubbingPolicy) {
+                        @Nonnull OnlineIndexScrubber.ScrubbingPolicy scrubbingPolicy,
+                        @Nullable MaintenanceScheduler.Job maintenanceJob) {
 
         this.runner = runner;
         this.scrubbingPolicy = scrubbingPolicy;
         this.common = new IndexingCommon(runner, recordStoreBuilder,
                 Collections.singletonList(index), recordTypes, configLoader, config,
-                trackProgress);
+                trackProgress, maintenanceJob);
     }
 
     @Override
@@ -125,21 +127,23 @@ public class OnlineIndexScrubber implements AutoCloseable {
      * A builder for the scrubbing policy.
      */
     public static class ScrubbingPolicy {
-        public static final ScrubbingPolicy DEFAULT = new ScrubbingPolicy(1000, true, 0, 0, false);
+        public static final ScrubbingPolicy DEFAULT = new ScrubbingPolicy(1000, true, 0, 0, false, false);
         private final int logWarningsLimit;
         private final boolean allowRepair;
         private final long entriesScanLimit;
         private final int rangeId;
         private final boolean rangeReset;
+        private final boolean incremental;
 
         private ScrubbingPolicy(int logWarningsLimit, boolean allowRepair, long entriesScanLimit,
-                               int rangeId, boolean rangeReset) {
+                               int rangeId, boolean rangeReset, boolean incremental) {
 
             this.logWarningsLimit = logWarningsLimit;
             this.allowRepair = allowRepair;
             this.entriesScanLimit = entriesScanLimit;
             this.rangeId = rangeId;
             this.rangeReset = rangeReset;
+            this.incremental = incremental;
         }
 
         boolean allowRepair() {
@@ -162,6 +166,10 @@ public class OnlineIndexScrubber implements AutoCloseable {
             return rangeReset;
         }
 
+        public boolean isIncremental() {
+            return incremental;
+        }
+
         /**
          * Create an scrubbing policy builder.
          * @return a new {@link ScrubbingPolicy} builder
@@ -186,6 +194,7 @@ public class OnlineIndexScrubber implements AutoCloseable {
             long entriesScanLimit = 0;
             int rangeId = 0;
             boolean rangeReset = false;
+            boolean incremental = false;
 
             protected Builder() {
             }
@@ -253,8 +262,24 @@ public class OnlineIndexScrubber implements AutoCloseable {
                 return this;
             }
 
+            /**
+             * Scrub incrementally. The first scrubbing covers the whole range, as usual, but once it is done, its
+             * ranges are kept rather than reset. Every following scrubbing only re-verifies the index entries and
+             * records that were changed since, as logged by the index maintenance of an index with the
+             * {@link com.apple.foundationdb.record.metadata.IndexOptions#INCREMENTAL_SCRUB_OPTION} option.
+             * Note that the change log is shared by all the range ids of the index, so incremental scrubbing should
+             * use a single range id. A range reset (see {@link #setScrubbingRangeReset(boolean)}) starts a new full
+             * scrubbing, and discards the logged changes.
+             * @param incremental scrub incrementally if true
+             * @return this builder
+             */
+            public Builder setIncremental(final boolean incremental) {
+                this.incremental = incremental;
+                return this;
+            }
+
             public ScrubbingPolicy build() {
-                return new ScrubbingPolicy(logWarningsLimit, allowRepair, entriesScanLimit, rangeId, rangeReset);
+                return new ScrubbingPolicy(logWarningsLimit, allowRepair, entriesScanLimit, rangeId, rangeReset, incremental);
             }
         }
     }
@@ -365,7 +390,8 @@ public class OnlineIndexScrubber implements AutoCloseable {
                 scrubbingPolicy = ScrubbingPolicy.DEFAULT;
             }
             return new OnlineIndexScrubber(getRunner(), getRecordStoreBuilder(), index, recordTypes,
-                    getConfigLoader(), conf, isTrackProgress(), scrubbingPolicy);
+                    getConfigLoader(), conf, isTrackProgress(), scrubbingPolicy,
+                    newMaintenanceJob("OnlineIndexScrubber:" + index.getName()));
         }
 
         protected void validate() {
@@ -34,6 +34,7 @@ import com.apple.foundationdb.record.metadata.Index;
 import com.apple.foundationdb.record.metadata.MetaDataException;
 import com.apple.foundationdb.record.metadata.RecordType;
 import com.apple.foundationdb.record.provider.common.StoreTimer;
+import com.apple.foundationdb.record.provider.foundationdb.runners.throttled.MaintenanceScheduler;
 import com.apple.foundationdb.synchronizedsession.SynchronizedSession;
 import com.apple.foundationdb.tuple.Tuple;
 import com.google.common.annotations.VisibleForTesting;
@@ -118,14 +119,15 @@ public class OnlineIndexer implements AutoCloseable {
                   @Nullable UnaryOperator<OnlineIndexOperationConfig> configLoader,
                   @Nonnull OnlineIndexOperationConfig config,
                   boolean trackProgress,
-                  @Nonnull IndexingPolicy indexingPolicy) {
+                  @Nonnull IndexingPolicy indexingPolicy,
+                  @Nullable MaintenanceScheduler.Job maintenanceJob) {
         this.runner = runner;
         this.index = targetIndexes.get(0);
         this.indexingPolicy = indexingPolicy;
 
         this.common = new IndexingCommon(runner, recordStoreBuilder,
                 targetIndexes, recordTypes, configLoader, config,
-                trackProgress);
+                trackProgress, maintenanceJob);
     }
 
     @Nonnull
@@ -828,7 +830,8 @@ public class OnlineIndexer implements AutoCloseable {
             validate();
             OnlineIndexOperationConfig conf = getConfig();
             return new OnlineIndexer(getRunner(), getRecordStoreBuilder(), targetIndexes, recordTypes,
-                    getConfigLoader(), conf, isTrackProgress(), indexingPolicy);
+                    getConfigLoader(), conf, isTrackProgress(), indexingPolicy,
+                    newMaintenanceJob("OnlineIndexer:" + targetIndexes.stream().map(Index::getName).collect(Collectors.joining(","))));
         }
 
         private void determineIndexingPolicy() {
@@ -882,6 +885,15 @@ public class OnlineIndexer implements AutoCloseable {
             if (indexingPolicy.isMutual() && indexingPolicy.isByIndex()) {
                 throw new IndexingBase.ValidationException("Indexing mutually by a source index is not supported (yet)");
             }
+            if (indexingPolicy.getParallelism() < 1) {
+                throw new IndexingBase.ValidationException("Indexing parallelism must be positive");
+            }
+            if (indexingPolicy.getBulkLoadSortRunSize() < 1 || indexingPolicy.getBulkLoadSortMaxFileCount() < 1) {
+                throw new IndexingBase.ValidationException("Bulk load sort run size and file count must be positive");
+            }
+            if (indexingPolicy.getParallelism() > 1 && indexingPolicy.isReverseScanOrder()) {
+                throw new IndexingBase.ValidationException("Parallel indexing does not support reverse scan order");
+            }
             targetIndexes.sort(Comparator.comparing(Index::getName));
             for (Index index : targetIndexes) {
                 if (!metaData.hasIndex(index.getName()) || index != metaData.getIndex(index.getName())) {
@@ -921,10 +933,15 @@ public class OnlineIndexer implements AutoCloseable {
         private final long checkIndexingMethodFrequencyMilliseconds;
         private final boolean mutualIndexing;
         private final List<Tuple> mutualIndexingBoundaries;
+        private final boolean mutualIndexingWorkQueue;
         private final boolean allowUnblock;
         private final String allowUnblockId;
         private final long initialMergesCountLimit;
         private final boolean reverseScanOrder;
+        private final int parallelism;
+        private final boolean bulkLoad;
+        private final int bulkLoadSortRunSize;
+        private final int bulkLoadSortMaxFileCount;
 
         /**
          * Possible actions when an index is already partially built.
@@ -968,20 +985,29 @@ public class OnlineIndexer implements AutoCloseable {
          * @param allowedTakeoverSet a subset of {@link TakeoverTypes}, with allowed indexing type conversion
          * @param mutualIndexing if true, use mutual indexing (i.e., index in a way that allows other processes to cooperatively build the index)
          * @param mutualIndexingBoundaries if present, use this predefined list of ranges. Else, split ranges by shards
+         * @param mutualIndexingWorkQueue if true, mutual indexers claim ranges from a shared work queue
          * @param allowUnblock if true, allow unblocking
          * @param allowUnblockId if preset, allow unblocking only if the block ID matches this param
          * @param initialMergesCountLimit the initial max merges count for index merger
          * @param reverseScanOrder if true, scan records in reverse order
+         * @param parallelism the number of ranges to build concurrently when scanning records
+         * @param bulkLoad if true, load new value indexes by sorting their entries before writing them
+         * @param bulkLoadSortRunSize the number of index entries a bulk load sorts in memory before writing them to a file
+         * @param bulkLoadSortMaxFileCount the number of sorted files a bulk load accumulates before merging them
          */
         @SuppressWarnings("squid:S00107") // too many parameters
         private IndexingPolicy(@Nullable String sourceIndex, @Nullable Object sourceIndexSubspaceKey, boolean forbidRecordScan,
                                DesiredAction ifDisabled, DesiredAction ifWriteOnly, DesiredAction ifMismatchPrevious, DesiredAction ifReadable,
                                boolean allowUniquePendingState, Set<TakeoverTypes> allowedTakeoverSet,
                                long checkIndexingMethodFrequencyMilliseconds,
-                               boolean mutualIndexing, List<Tuple> mutualIndexingBoundaries,
+                               boolean mutualIndexing, List<Tuple> mutualIndexingBoundaries, boolean mutualIndexingWorkQueue,
                                boolean allowUnblock, String allowUnblockId,
                                long initialMergesCountLimit,
-                               boolean reverseScanOrder) {
+                               boolean reverseScanOrder,
+                               int parallelism,
+                               boolean bulkLoad,
+                               int bulkLoadSortRunSize,
+                               int bulkLoadSortMaxFileCount) {
             this.sourceIndex = sourceIndex;
             this.forbidRecordScan = forbidRecordScan;
             this.sourceIndexSubspaceKey = sourceIndexSubspaceKey;
@@ -994,10 +1020,15 @@ public class OnlineIndexer implements AutoCloseable {
             this.checkIndexingMethodFrequencyMilliseconds = checkIndexingMethodFrequencyMilliseconds;
             this.mutualIndexing = mutualIndexing;
             this.mutualIndexingBoundaries = mutualIndexingBoundaries;
+            this.mutualIndexingWorkQueue = mutualIndexingWorkQueue;
             this.allowUnblock = allowUnblock;
             this.allowUnblockId = allowUnblockId;
             this.initialMergesCountLimit = initialMergesCountLimit;
             this.reverseScanOrder = reverseScanOrder;
+            this.parallelism = parallelism;
+            this.bulkLoad = bulkLoad;
+            this.bulkLoadSortRunSize = bulkLoadSortRunSize;
+            this.bulkLoadSortMaxFileCount = bulkLoadSortMaxFileCount;
         }
 
         /**
@@ -1038,6 +1069,15 @@ public class OnlineIndexer implements AutoCloseable {
             return mutualIndexing;
         }
 
+        /**
+         * In mutual indexing, claim ranges from a work queue shared with the other indexers.
+         * @return true if mutual indexers use a shared work queue
+         * @see Builder#setMutualIndexingWorkQueue(boolean)
+         */
+        public boolean isMutualWorkQueue() {
+            return mutualIndexingWorkQueue;
+        }
+
         /**
          * Create an indexing policy builder.
          * @return a new {@link IndexingPolicy} builder
@@ -1066,9 +1106,14 @@ public class OnlineIndexer implements AutoCloseable {
                     .checkIndexingStampFrequencyMilliseconds(checkIndexingMethodFrequencyMilliseconds)
                     .setMutualIndexing(mutualIndexing)
                     .setMutualIndexingBoundaries(mutualIndexingBoundaries)
+                    .setMutualIndexingWorkQueue(mutualIndexingWorkQueue)
                     .setAllowUnblock(allowUnblock, allowUnblockId)
                     .setInitialMergesCountLimit(initialMergesCountLimit)
                     .setReverseScanOrder(reverseScanOrder)
+                    .setParallelism(parallelism)
+                    .setBulkLoad(bulkLoad)
+                    .setBulkLoadSortRunSize(bulkLoadSortRunSize)
+                    .setBulkLoadSortMaxFileCount(bulkLoadSortMaxFileCount)
                     ;
         }
 
@@ -1213,6 +1258,42 @@ public class OnlineIndexer implements AutoCloseable {
             return reverseScanOrder;
         }
 
+        /**
+         * Get the number of records ranges that are built concurrently by this indexer.
+         * @return the number of concurrent transactions building the index
+         * @see Builder#setParallelism(int)
+         */
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        /**
+         * Get whether new value indexes are bulk loaded from sorted index entries.
+         * @return true if bulk loading was requested
+         * @see Builder#setBulkLoad(boolean)
+         */
+        public boolean isBulkLoad() {
+            return bulkLoad;
+        }
+
+        /**
+         * Get the number of index entries a bulk load sorts in memory before writing them to a file.
+         * @return the sort run size
+         * @see Builder#setBulkLoadSortRunSize(int)
+         */
+        public int getBulkLoadSortRunSize() {
+            return bulkLoadSortRunSize;
+        }
+
+        /**
+         * Get the number of sorted files a bulk load accumulates before merging them into one.
+         * @return the maximum number of sorted files
+         * @see Builder#setBulkLoadSortMaxFileCount(int)
+         */
+        public int getBulkLoadSortMaxFileCount() {
+            return bulkLoadSortMaxFileCount;
+        }
+
         /**
          * Builder for {@link IndexingPolicy}.
          *
@@ -1240,10 +1321,15 @@ public class OnlineIndexer implements AutoCloseable {
             private long checkIndexingStampFrequency = 60_000;
             private boolean useMutualIndexing = false;
             private List<Tuple> useMutualIndexingBoundaries = null;
+            private boolean useMutualIndexingWorkQueue = false;
             private boolean allowUnblock = false;
             private String allowUnblockId = null;
             private long initialMergesCountLimit = 0;
             private boolean reverseScanOrder = false;
+            private int parallelism = 1;
+            private boolean bulkLoad = false;
+            private int bulkLoadSortRunSize = 1_000_000;
+            private int bulkLoadSortMaxFileCount = 100;
 
             protected Builder() {
             }
@@ -1465,6 +1551,7 @@ public class OnlineIndexer implements AutoCloseable {
                 this.useMutualIndexing = useMutualIndexing;
                 if (!useMutualIndexing) {
                     useMutualIndexingBoundaries = null;
+                    useMutualIndexingWorkQueue = false;
                 }
                 return this;
             }
@@ -1486,6 +1573,23 @@ public class OnlineIndexer implements AutoCloseable {
                 return this;
             }
 
+            /**
+             * If set, mutual indexers coordinate through a work queue stored with the index build data, instead of
+             * each iterating over the fragments in its own order. Each indexer claims an unbuilt fragment for a lease,
+             * which it extends with every transaction (see {@link OnlineIndexer.Builder#setLeaseLengthMillis(long)}).
+             * The fragment of an indexer that stops extending its lease is claimed by another one, and when there are no
+             * more fragments to claim, idle indexers split the remaining range of a fragment that is still being built.
+             * This keeps all the indexers busy until the end of the build. Setting this implies {@link #setMutualIndexing()}.
+             * Indexers with and without a work queue can safely build the same index together.
+             * @param useMutualIndexingWorkQueue if true, claim ranges from a shared work queue
+             * @return this builder
+             */
+            @API(API.Status.EXPERIMENTAL)
+            public Builder setMutualIndexingWorkQueue(final boolean useMutualIndexingWorkQueue) {
+                this.useMutualIndexingWorkQueue = useMutualIndexingWorkQueue;
+                return this;
+            }
+
             /**
              * If the index is partly built and blocked, allowed (or disallow) unblocking before indexing.
              * @param allowUnblock if true, unblock (if blocked) and continue.
@@ -1533,16 +1637,85 @@ public class OnlineIndexer implements AutoCloseable {
                 return this;
             }
 
+            /**
+             * Set the number of records ranges to build concurrently when building by a records scan. The records
+             * space is split at the approximate FDB shard boundaries, and this number of transactions build the
+             * resulting ranges at the same time, each adjusting its own limit. The records per second limit
+             * (see {@link OnlineIndexer.Builder#setRecordsPerSecond(int)}) still applies to the build as a whole, and
+             * is divided equally among them.
+             * The default is 1, which builds the ranges one at a time. Reverse scan order is not supported with a
+             * parallelism greater than 1, and mutual indexing (see {@link #setMutualIndexing()}) ignores it.
+             * @param parallelism the number of concurrent transactions building the index
+             * @return this builder
+             */
+            @API(API.Status.EXPERIMENTAL)
+            public Builder setParallelism(final int parallelism) {
+                this.parallelism = parallelism;
+                return this;
+            }
+
+            /**
+             * Bulk load new indexes instead of updating them record by record. The records are scanned once to
+             * extract the index entries, which are sorted externally (in memory and, if needed, in temporary files)
+             * and then written in index key order, in large contiguous batches. This spreads far fewer writes
+             * across the index's shards than a records-ordered build.
+             * This applies only to a by-records build of non-unique {@link com.apple.foundationdb.record.metadata.IndexTypes#VALUE} indexes that have not
+             * been partly built yet; any other build proceeds as usual. Records saved while the index is bulk loaded
+             * are tracked so that their stale entries are not written, at the cost of an additional write when saving
+             * records while the index is bulk loaded. This requires the store's format version to be at least
+             * {@link FormatVersion#BULK_LOAD_STATE}. The build cannot be continued from a previous process, and the
+             * scan order and parallelism are ignored.
+             * @param bulkLoad if true, bulk load the target indexes when possible
+             * @return this builder
+             * @see #setBulkLoadSortRunSize(int)
+             * @see #setBulkLoadSortMaxFileCount(int)
+             */
+            @API(API.Status.EXPERIMENTAL)
+            public Builder setBulkLoad(final boolean bulkLoad) {
+                this.bulkLoad = bulkLoad;
+                return this;
+            }
+
+            /**
+             * Set the number of index entries a bulk load sorts in memory before writing them, in order, to a
+             * temporary file. Fewer entries than this are sorted entirely in memory. Larger runs use more memory but
+             * produce fewer files to merge. The default is 1,000,000.
+             * @param bulkLoadSortRunSize the number of index entries per sorted run
+             * @return this builder
+             * @see #setBulkLoad(boolean)
+             */
+            @API(API.Status.EXPERIMENTAL)
+            public Builder setBulkLoadSortRunSize(final int bulkLoadSortRunSize) {
+                this.bulkLoadSortRunSize = bulkLoadSortRunSize;
+                return this;
+            }
+
+            /**
+             * Set the number of sorted files a bulk load accumulates before merging them into one. Each merge
+             * rewrites all the entries sorted so far, so the number of times an entry is rewritten is about the total
+             * number of entries divided by the product of this and the sort run size (see
+             * {@link #setBulkLoadSortRunSize(int)}). A merge keeps one file open per input file. The default is 100.
+             * @param bulkLoadSortMaxFileCount the maximum number of sorted files
+             * @return this builder
+             * @see #setBulkLoad(boolean)
+             */
+            @API(API.Status.EXPERIMENTAL)
+            public Builder setBulkLoadSortMaxFileCount(final int bulkLoadSortMaxFileCount) {
+                this.bulkLoadSortMaxFileCount = bulkLoadSortMaxFileCount;
+                return this;
+            }
+
             public IndexingPolicy build() {
-                if (useMutualIndexingBoundaries != null) {
+                if (useMutualIndexingBoundaries != null || useMutualIndexingWorkQueue) {
                     useMutualIndexing = true;
                 }
                 return new IndexingPolicy(sourceIndex, sourceIndexSubspaceKey, forbidRecordScan,
                         ifDisabled, ifWriteOnly, ifMismatchPrevious, ifReadable,
                         doAllowUniquePendingState, allowedTakeoverSet,
                         checkIndexingStampFrequency,
-                        useMutualIndexing, useMutualIndexingBoundaries, allowUnblock, allowUnblockId,
-                        initialMergesCountLimit, reverseScanOrder);
+                        useMutualIndexing, useMutualIndexingBoundaries, useMutualIndexingWorkQueue, allowUnblock, allowUnblockId,
+                        initialMergesCountLimit, reverseScanOrder, parallelism, bulkLoad,
+                        bulkLoadSortRunSize, bulkLoadSortMaxFileCount);
             }
         }
     }
@@ -0,0 +1,71 @@
+/*
+ * TextScoreScanRange.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.IndexScanType;
+import com.apple.foundationdb.record.TupleRange;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * Extend {@link IndexScanRange} to have the query tokens of a scored search of a
+ * {@link com.apple.foundationdb.record.metadata.IndexTypes#TEXT} index that maintains
+ * {@link com.apple.foundationdb.record.metadata.IndexOptions#TEXT_SCORE_STATISTICS_OPTION score statistics}.
+ * The range must select a single group of the index.
+ */
+@API(API.Status.EXPERIMENTAL)
+public class TextScoreScanRange extends IndexScanRange {
+    @Nonnull
+    private final List<String> tokens;
+    private final int k;
+
+    public TextScoreScanRange(@Nonnull TupleRange range, @Nonnull List<String> tokens, int k) {
+        super(IndexScanType.BY_TEXT_SCORE, range);
+        this.tokens = tokens;
+        this.k = k;
+    }
+
+    /**
+     * Get the tokens to search for. Documents containing any of them are scored.
+     * The tokens should already be normalized as the index's tokenizer would, as for a
+     * {@link IndexScanType#BY_TEXT_TOKEN} scan.
+     * @return the query tokens
+     */
+    @Nonnull
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Get the number of highest scoring documents to return.
+     * @return the number of documents
+     */
+    public int getK() {
+        return k;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "@" + tokens + ",k=" + k;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * VectorIndexScanComparisons.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.EvaluationContext;
+import com.apple.foundationdb.record.IndexScanType;
+import com.apple.foundationdb.record.PlanDeserializer;
+import com.apple.foundationdb.record.PlanHashable;
+import com.apple.foundationdb.record.PlanSerializationContext;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.planprotos.PIndexScanParameters;
+import com.apple.foundationdb.record.planprotos.PVectorIndexScanComparisons;
+import com.apple.foundationdb.record.query.plan.ScanComparisons;
+import com.apple.foundationdb.record.query.plan.cascades.AliasMap;
+import com.apple.foundationdb.record.query.plan.cascades.explain.Attribute;
+import com.apple.foundationdb.record.query.plan.explain.ExplainTokensWithPrecedence;
+import com.google.auto.service.AutoService;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Extend {@link IndexScanComparisons} to have the query vector of a nearest neighbor search of a
+ * {@link com.apple.foundationdb.record.metadata.IndexTypes#VECTOR} index. The scan comparisons must be equalities
+ * on all of the grouping columns of the index, if any. The scan returns the {@code k} index entries closest to the
+ * query vector, in order of increasing distance, which is stored as the value of each entry. The Cascades planner
+ * produces these for a {@link com.apple.foundationdb.record.query.expressions.Query#distanceRank} compared with a
+ * {@link com.apple.foundationdb.record.query.expressions.Comparisons.DistanceRankValueComparison}.
+ */
+@API(API.Status.EXPERIMENTAL)
+public class VectorIndexScanComparisons extends IndexScanComparisons {
+    @Nonnull
+    private final double[] queryVector;
+    private final int k;
+    private final int efSearch;
+
+    protected VectorIndexScanComparisons(@Nonnull final PlanSerializationContext serializationContext,
+                                         @Nonnull final PVectorIndexScanComparisons vectorIndexScanComparisonsProto) {
+        super(serializationContext, Objects.requireNonNull(vectorIndexScanComparisonsProto.getSuper()));
+        this.queryVector = vectorIndexScanComparisonsProto.getQueryVectorList().stream().mapToDouble(Double::doubleValue).toArray();
+        this.k = vectorIndexScanComparisonsProto.getK();
+        this.efSearch = vectorIndexScanComparisonsProto.getEfSearch();
+    }
+
+    public VectorIndexScanComparisons(@Nonnull ScanComparisons prefixComparisons, @Nonnull double[] queryVector,
+                                      int k, int efSearch) {
+        super(IndexScanType.BY_DISTANCE, prefixComparisons);
+        this.queryVector = queryVector;
+        this.k = k;
+        this.efSearch = efSearch;
+    }
+
+    @Nonnull
+    public double[] getQueryVector() {
+        return queryVector;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    @Nonnull
+    @Override
+    public VectorIndexScanRange bind(@Nonnull final FDBRecordStoreBase<?> store, @Nonnull Index index, @Nonnull final EvaluationContext context) {
+        return new VectorIndexScanRange(super.bind(store, index, context).getScanRange(), queryVector, k, efSearch);
+    }
+
+    @Override
+    public boolean isUnique(@Nonnull Index index) {
+        return false;
+    }
+
+    @Override
+    public int planHash(@Nonnull final PlanHashMode mode) {
+        return super.planHash(mode) + PlanHashable.objectsPlanHash(mode, queryVector, k, efSearch);
+    }
+
+    @Nonnull
+    @Override
+    public ExplainTokensWithPrecedence explain() {
+        return ExplainTokensWithPrecedence.of(
+                super.explain().getExplainTokens().addToString("@").addToString(Arrays.toString(queryVector))
+                        .addToString(",k=").addToString(k));
+    }
+
+    @Override
+    public void getPlannerGraphDetails(@Nonnull ImmutableList.Builder<String> detailsBuilder, @Nonnull ImmutableMap.Builder<String, Attribute> attributeMapBuilder) {
+        super.getPlannerGraphDetails(detailsBuilder, attributeMapBuilder);
+        detailsBuilder.add("query vector: {{queryVector}}");
+        detailsBuilder.add("k: {{k}}");
+        attributeMapBuilder.put("queryVector", Attribute.gml(Arrays.toString(queryVector)));
+        attributeMapBuilder.put("k", Attribute.gml(k));
+    }
+
+    @Nonnull
+    @Override
+    protected VectorIndexScanComparisons withScanComparisons(@Nonnull final ScanComparisons newScanComparisons) {
+        return new VectorIndexScanComparisons(newScanComparisons, queryVector, k, efSearch);
+    }
+
+    @Override
+    public boolean semanticEquals(@Nullable final Object other, @Nonnull final AliasMap aliasMap) {
+        if (!super.semanticEquals(other, aliasMap)) {
+            return false;
+        }
+        final VectorIndexScanComparisons that = (VectorIndexScanComparisons)other;
+        return k == that.k && efSearch == that.efSearch && Arrays.equals(queryVector, that.queryVector);
+    }
+
+    @Override
+    public int semanticHashCode() {
+        int result = super.semanticHashCode();
+        result = 31 * result + Arrays.hashCode(queryVector);
+        result = 31 * result + k;
+        result = 31 * result + efSearch;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "@" + Arrays.toString(queryVector) + ",k=" + k;
+    }
+
+    @Nonnull
+    @Override
+    public PVectorIndexScanComparisons toProto(@Nonnull final PlanSerializationContext serializationContext) {
+        final PVectorIndexScanComparisons.Builder builder = PVectorIndexScanComparisons.newBuilder()
+                .setSuper(toIndexScanComparisonsProto(serializationContext))
+                .setK(k)
+                .setEfSearch(efSearch);
+        for (double component : queryVector) {
+            builder.addQueryVector(component);
+        }
+        return builder.build();
+    }
+
+    @Nonnull
+    @Override
+    public PIndexScanParameters toIndexScanParametersProto(@Nonnull final PlanSerializationContext serializationContext) {
+        return PIndexScanParameters.newBuilder().setVectorIndexScanComparisons(toProto(serializationContext)).build();
+    }
+
+    @Nonnull
+    public static VectorIndexScanComparisons fromProto(@Nonnull final PlanSerializationContext serializationContext,
+                                                       @Nonnull final PVectorIndexScanComparisons vectorIndexScanComparisonsProto) {
+        return new VectorIndexScanComparisons(serializationContext, vectorIndexScanComparisonsProto);
+    }
+
+    /**
+     * Deserializer.
+     */
+    @AutoService(PlanDeserializer.class)
+    public static class Deserializer implements PlanDeserializer<PVectorIndexScanComparisons, VectorIndexScanComparisons> {
+        @Nonnull
+        @Override
+        public Class<PVectorIndexScanComparisons> getProtoMessageClass() {
+            return PVectorIndexScanComparisons.class;
+        }
+
+        @Nonnull
+        @Override
+        public VectorIndexScanComparisons fromProto(@Nonnull final PlanSerializationContext serializationContext,
+                                                    @Nonnull final PVectorIndexScanComparisons vectorIndexScanComparisonsProto) {
+            return VectorIndexScanComparisons.fromProto(serializationContext, vectorIndexScanComparisonsProto);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * VectorIndexScanRange.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.IndexScanType;
+import com.apple.foundationdb.record.TupleRange;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Extend {@link IndexScanRange} to have the query vector of a nearest neighbor search of a
+ * {@link com.apple.foundationdb.record.metadata.IndexTypes#VECTOR} index.
+ * The range must select a single group of the index.
+ */
+@API(API.Status.EXPERIMENTAL)
+public class VectorIndexScanRange extends IndexScanRange {
+    @Nonnull
+    private final double[] queryVector;
+    private final int k;
+    private final int efSearch;
+
+    public VectorIndexScanRange(@Nonnull TupleRange range, @Nonnull double[] queryVector, int k, int efSearch) {
+        super(IndexScanType.BY_DISTANCE, range);
+        this.queryVector = queryVector;
+        this.k = k;
+        this.efSearch = efSearch;
+    }
+
+    @Nonnull
+    public double[] getQueryVector() {
+        return queryVector;
+    }
+
+    /**
+     * Get the number of nearest neighbors to return.
+     * @return the number of neighbors
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Get the number of candidates considered by the search in the bottom layer of the graph.
+     * @return the size of the candidate list during search
+     */
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + "@" + Arrays.toString(queryVector) + ",k=" + k;
+    }
+}
@@ -0,0 +1,405 @@
+/*
+ * IndexStatisticsCollectorCursor.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.cursors;
+
+import com.apple.foundationdb.KeyValue;
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorContinuation;
+import com.apple.foundationdb.record.RecordCursorProto;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordCursorVisitor;
+import com.apple.foundationdb.record.ScanProperties;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordContext;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore;
+import com.apple.foundationdb.record.provider.foundationdb.KeyValueCursor;
+import com.apple.foundationdb.record.query.plan.cascades.IndexStatistics;
+import com.apple.foundationdb.subspace.Subspace;
+import com.apple.foundationdb.tuple.ByteArrayUtil;
+import com.apple.foundationdb.tuple.ByteArrayUtil2;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.foundationdb.tuple.TupleHelpers;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A cursor that collects the {@link IndexStatistics} of an index. Like {@link SizeStatisticsCollectorCursor}, the
+ * cursor performs a full scan of the index's subspace and is not expected to finish within a single transaction: any
+ * results emitted before the single result carrying the statistics are a manifestation of hitting an execution limit,
+ * and their continuations (which include the partial statistics) can be used to resume the scan. The statistics are
+ * not transactional, so they are only approximate if the index is modified during the scan.
+ *
+ * <p>
+ * The memory used (and the size of the continuations) is bounded independently of the size of the index:
+ * </p>
+ * <ul>
+ *     <li>The histogram of the first column of the index key is built from a uniform sample of the keys, chosen as
+ *     the keys with the smallest hashes (a bottom-k sample).</li>
+ *     <li>The number of distinct values of each prefix of the index key is estimated by a bottom-k (KMV) sketch
+ *     of the hashes of the prefixes.</li>
+ * </ul>
+ *
+ * <p>
+ * The resulting statistics can be saved with {@link FDBRecordStore#saveIndexStatistics} for use by the planner.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class IndexStatisticsCollectorCursor implements RecordCursor<IndexStatistics> {
+    /**
+     * The default number of keys sampled to build the histogram.
+     */
+    public static final int DEFAULT_SAMPLE_SIZE = 512;
+    /**
+     * The default number of hashes kept to estimate the number of distinct values of each key prefix.
+     */
+    public static final int DEFAULT_SKETCH_SIZE = 256;
+    /**
+     * The default maximum number of buckets of the histogram.
+     */
+    public static final int DEFAULT_BUCKET_COUNT = 32;
+
+    @Nonnull
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    @Nonnull
+    private final Subspace subspace;
+    private final int columnCount;
+    @Nonnull
+    private final FDBRecordContext context;
+    @Nonnull
+    private final ScanProperties scanProperties;
+    private final int sampleSize;
+    private final int sketchSize;
+    private final int bucketCount;
+
+    private long keyCount;
+    // bottom-k sample: hash of the key to the packed first column of the key
+    @Nonnull
+    private final TreeMap<Long, byte[]> samples;
+    // bottom-k sketches of the hashes of each prefix of the key
+    @Nonnull
+    private final List<TreeSet<Long>> prefixSketches;
+    @Nullable
+    private byte[] kvCursorContinuation;
+    @Nullable
+    private RecordCursorResult<IndexStatistics> nextResult;
+    private boolean finalResultEmitted;
+    private boolean closed;
+
+    @SuppressWarnings("squid:S00107") // too many parameters
+    private IndexStatisticsCollectorCursor(@Nonnull Subspace subspace, int columnCount, @Nonnull FDBRecordContext context,
+                                           @Nonnull ScanProperties scanProperties, @Nullable byte[] continuation,
+                                           int sampleSize, int sketchSize, int bucketCount) {
+        if (sampleSize <= 0 || sketchSize <= 1 || bucketCount <= 0) {
+            throw new RecordCoreArgumentException("invalid index statistics sample sizes")
+                    .addLogInfo("sampleSize", sampleSize)
+                    .addLogInfo("sketchSize", sketchSize)
+                    .addLogInfo("bucketCount", bucketCount);
+        }
+        this.subspace = subspace;
+        this.columnCount = columnCount;
+        this.context = context;
+        this.scanProperties = scanProperties;
+        this.sampleSize = sampleSize;
+        this.sketchSize = sketchSize;
+        this.bucketCount = bucketCount;
+        this.samples = new TreeMap<>();
+        this.prefixSketches = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            prefixSketches.add(new TreeSet<>());
+        }
+
+        if (continuation != null) {
+            final RecordCursorProto.IndexStatisticsContinuation statsContinuation;
+            try {
+                statsContinuation = RecordCursorProto.IndexStatisticsContinuation.parseFrom(continuation);
+            } catch (InvalidProtocolBufferException ex) {
+                throw new RecordCoreException("Error parsing IndexStatisticsCollectorCursor continuation", ex)
+                        .addLogInfo(LogMessageKeys.RAW_BYTES, ByteArrayUtil2.loggable(continuation));
+            }
+            if (statsContinuation.hasPartialResults()) {
+                final RecordCursorProto.IndexStatisticsPartialResults partialResults = statsContinuation.getPartialResults();
+                keyCount = partialResults.getKeyCount();
+                for (RecordCursorProto.IndexStatisticsSample sample : partialResults.getSamplesList()) {
+                    samples.put(sample.getHash(), sample.getFirstColumn().toByteArray());
+                }
+                for (int i = 0; i < Math.min(columnCount, partialResults.getPrefixSketchesCount()); i++) {
+                    prefixSketches.get(i).addAll(partialResults.getPrefixSketches(i).getHashesList());
+                }
+                kvCursorContinuation = statsContinuation.getContinuation().toByteArray();
+            } else {
+                // the statistics were returned by a previous incarnation of this cursor
+                finalResultEmitted = true;
+            }
+        }
+    }
+
+    @Nonnull
+    @Override
+    public CompletableFuture<RecordCursorResult<IndexStatistics>> onNext() {
+        if (finalResultEmitted) {
+            return CompletableFuture.completedFuture(RecordCursorResult.exhausted());
+        }
+        if (nextResult != null && !nextResult.hasNext()) {
+            return CompletableFuture.completedFuture(nextResult);
+        }
+        final KeyValueCursor kvCursor = KeyValueCursor.Builder.withSubspace(subspace)
+                .setContext(context)
+                .setContinuation(kvCursorContinuation)
+                .setScanProperties(scanProperties)
+                .build();
+        return kvCursor.forEachResult(kvResult -> addKey(kvResult.get()))
+                .thenApply(kvResult -> {
+                    if (kvResult.getNoNextReason() == NoNextReason.SOURCE_EXHAUSTED) {
+                        finalResultEmitted = true;
+                        nextResult = RecordCursorResult.withNextValue(buildStatistics(), new Continuation(null, null));
+                    } else {
+                        kvCursorContinuation = kvResult.getContinuation().toBytes();
+                        nextResult = RecordCursorResult.withoutNextValue(
+                                new Continuation(kvResult.getContinuation().toByteString(), toPartialResults()),
+                                kvResult.getNoNextReason());
+                    }
+                    return nextResult;
+                })
+                .whenComplete((ignore, err) -> kvCursor.close());
+    }
+
+    private void addKey(@Nonnull KeyValue kv) {
+        keyCount++;
+        final Tuple key = subspace.unpack(kv.getKey());
+        if (key.isEmpty()) {
+            return;
+        }
+        final long keyHash = hash(kv.getKey());
+        if (samples.size() < sampleSize || keyHash < samples.lastKey()) {
+            samples.put(keyHash, TupleHelpers.subTuple(key, 0, 1).pack());
+            if (samples.size() > sampleSize) {
+                samples.pollLastEntry();
+            }
+        }
+        for (int i = 0; i < Math.min(columnCount, key.size()); i++) {
+            final TreeSet<Long> sketch = prefixSketches.get(i);
+            final long prefixHash = hash(TupleHelpers.subTuple(key, 0, i + 1).pack());
+            if (sketch.size() < sketchSize || prefixHash < sketch.last()) {
+                sketch.add(prefixHash);
+                if (sketch.size() > sketchSize) {
+                    sketch.pollLast();
+                }
+            }
+        }
+    }
+
+    private static long hash(@Nonnull byte[] bytes) {
+        return HASH_FUNCTION.hashBytes(bytes).asLong();
+    }
+
+    @Nonnull
+    private IndexStatistics buildStatistics() {
+        final long[] distinctPrefixCounts = new long[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            distinctPrefixCounts[i] = Math.min(keyCount, estimateDistinct(prefixSketches.get(i)));
+        }
+        return new IndexStatistics(keyCount, distinctPrefixCounts, buildHistogram(), System.currentTimeMillis());
+    }
+
+    /**
+     * Estimate the number of distinct values from a bottom-k sketch of their hashes. If the sketch is not full,
+     * it contains every distinct hash. Otherwise, the k-th smallest hash out of the range of all hashes estimates the
+     * fraction of distinct values that the sketch saw.
+     */
+    private long estimateDistinct(@Nonnull TreeSet<Long> sketch) {
+        if (sketch.size() < sketchSize) {
+            return sketch.size();
+        }
+        final double fraction = ((double)sketch.last() - (double)Long.MIN_VALUE) / Math.pow(2.0, 64.0);
+        return fraction <= 0.0 ? Long.MAX_VALUE : Math.round((sketchSize - 1) / fraction);
+    }
+
+    /**
+     * Build an equi-depth histogram from the sampled first columns. All samples of the same value end up in the
+     * same bucket, so a frequent value gets a bucket (with a large count) of its own. Each bucket also records how
+     * many of its samples are of its upper bound, which is what makes a frequent value's count known.
+     */
+    @Nonnull
+    private List<IndexStatistics.Bucket> buildHistogram() {
+        final List<byte[]> sorted = new ArrayList<>(samples.values());
+        if (sorted.isEmpty()) {
+            return List.of();
+        }
+        sorted.sort(ByteArrayUtil::compareUnsigned);
+        final double keysPerSample = (double)keyCount / sorted.size();
+        final int samplesPerBucket = Math.max(1, (sorted.size() + bucketCount - 1) / bucketCount);
+        final List<IndexStatistics.Bucket> histogram = new ArrayList<>();
+        int bucketStart = 0;
+        while (bucketStart < sorted.size()) {
+            int bucketEnd = Math.min(sorted.size(), bucketStart + samplesPerBucket);
+            while (bucketEnd < sorted.size() && ByteArrayUtil.compareUnsigned(sorted.get(bucketEnd - 1), sorted.get(bucketEnd)) == 0) {
+                bucketEnd++;
+            }
+            int upperBoundStart = bucketEnd - 1;
+            while (upperBoundStart > bucketStart && ByteArrayUtil.compareUnsigned(sorted.get(upperBoundStart - 1), sorted.get(bucketEnd - 1)) == 0) {
+                upperBoundStart--;
+            }
+            final long count = Math.round((bucketEnd - bucketStart) * keysPerSample);
+            final long upperBoundCount = Math.round((bucketEnd - upperBoundStart) * keysPerSample);
+            histogram.add(new IndexStatistics.Bucket(Tuple.fromBytes(sorted.get(bucketEnd - 1)), count, upperBoundCount));
+            bucketStart = bucketEnd;
+        }
+        return histogram;
+    }
+
+    @Nonnull
+    private RecordCursorProto.IndexStatisticsPartialResults toPartialResults() {
+        final RecordCursorProto.IndexStatisticsPartialResults.Builder builder = RecordCursorProto.IndexStatisticsPartialResults.newBuilder()
+                .setKeyCount(keyCount);
+        for (Map.Entry<Long, byte[]> sample : samples.entrySet()) {
+            builder.addSamples(RecordCursorProto.IndexStatisticsSample.newBuilder()
+                    .setHash(sample.getKey())
+                    .setFirstColumn(ByteString.copyFrom(sample.getValue())));
+        }
+        for (TreeSet<Long> sketch : prefixSketches) {
+            builder.addPrefixSketches(RecordCursorProto.IndexStatisticsSketch.newBuilder().addAllHashes(sketch));
+        }
+        return builder.build();
+    }
+
+    @Nonnull
+    @Override
+    public Executor getExecutor() {
+        return context.getExecutor();
+    }
+
+    @Override
+    public boolean accept(@Nonnull RecordCursorVisitor visitor) {
+        visitor.visitEnter(this);
+        return visitor.visitLeave(this);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // Note that this continuation does not represent an end continuation, even after the statistics were returned.
+    private static class Continuation implements RecordCursorContinuation {
+        @Nullable
+        private final ByteString kvContinuation;
+        @Nullable
+        private final RecordCursorProto.IndexStatisticsPartialResults partialResults;
+        @Nullable
+        private ByteString cachedByteString;
+
+        private Continuation(@Nullable ByteString kvContinuation,
+                             @Nullable RecordCursorProto.IndexStatisticsPartialResults partialResults) {
+            this.kvContinuation = kvContinuation;
+            this.partialResults = partialResults;
+        }
+
+        @Nonnull
+        @Override
+        public byte[] toBytes() {
+            return toByteString().toByteArray();
+        }
+
+        @Nonnull
+        @Override
+        public ByteString toByteString() {
+            if (cachedByteString == null) {
+                final RecordCursorProto.IndexStatisticsContinuation.Builder builder = RecordCursorProto.IndexStatisticsContinuation.newBuilder();
+                if (partialResults != null) {
+                    builder.setPartialResults(partialResults);
+                    if (kvContinuation != null) {
+                        builder.setContinuation(kvContinuation);
+                    }
+                }
+                cachedByteString = builder.build().toByteString();
+            }
+            return cachedByteString;
+        }
+
+        @Override
+        public boolean isEnd() {
+            return false;
+        }
+    }
+
+    /**
+     * Create a cursor that collects the statistics of the given index with the default sample sizes.
+     *
+     * @param store a store with the given index
+     * @param index the index to collect statistics on
+     * @param context the transaction context under which the statistics are collected
+     * @param scanProperties scan direction, limits, etc. under which the index scan is performed
+     * @param continuation the continuation of a previous incarnation of this cursor or {@code null} to start
+     * @return a cursor collecting the statistics of the given index
+     */
+    @Nonnull
+    public static IndexStatisticsCollectorCursor ofIndex(@Nonnull FDBRecordStore store, @Nonnull Index index,
+                                                         @Nonnull FDBRecordContext context, @Nonnull ScanProperties scanProperties,
+                                                         @Nullable byte[] continuation) {
+        return ofIndex(store, index, context, scanProperties, continuation, DEFAULT_SAMPLE_SIZE, DEFAULT_SKETCH_SIZE, DEFAULT_BUCKET_COUNT);
+    }
+
+    /**
+     * Create a cursor that collects the statistics of the given index. The sample sizes must be the same for all
+     * incarnations of the cursor that use each other's continuations.
+     *
+     * @param store a store with the given index
+     * @param index the index to collect statistics on
+     * @param context the transaction context under which the statistics are collected
+     * @param scanProperties scan direction, limits, etc. under which the index scan is performed
+     * @param continuation the continuation of a previous incarnation of this cursor or {@code null} to start
+     * @param sampleSize the number of keys sampled to build the histogram
+     * @param sketchSize the number of hashes kept to estimate the number of distinct values of each key prefix
+     * @param bucketCount the maximum number of buckets of the histogram
+     * @return a cursor collecting the statistics of the given index
+     */
+    @SuppressWarnings("squid:S00107") // too many parameters
+    @Nonnull
+    public static IndexStatisticsCollectorCursor ofIndex(@Nonnull FDBRecordStore store, @Nonnull Index index,
+                                                         @Nonnull FDBRecordContext context, @Nonnull ScanProperties scanProperties,
+                                                         @Nullable byte[] continuation,
+                                                         int sampleSize, int sketchSize, int bucketCount) {
+        return new IndexStatisticsCollectorCursor(store.indexSubspace(index), index.getColumnSize(), context,
+                scanProperties, continuation, sampleSize, sketchSize, bucketCount);
+    }
+}
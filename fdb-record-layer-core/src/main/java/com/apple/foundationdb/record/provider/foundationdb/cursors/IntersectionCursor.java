@@ -44,6 +44,12 @@ import java.util.function.Function;
  */
 @API(API.Status.UNSTABLE)
 public class IntersectionCursor<T> extends IntersectionCursorBase<T, T> {
+    /**
+     * The default number of elements in a row that a child cursor skips before it is re-opened at a later key by
+     * an intersection created with {@link #createSeeking(Function, boolean, List, int, byte[], FDBStoreTimer) createSeeking()}.
+     * Skipping elements that were already read ahead is cheap, so a child is only re-opened once the gap looks large.
+     */
+    public static final int DEFAULT_SEEK_THRESHOLD = 8;
 
     private IntersectionCursor(@Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction,
                                boolean reverse, @Nonnull List<KeyedMergeCursorState<T>> cursorStates,
@@ -181,4 +187,41 @@ public class IntersectionCursor<T> extends IntersectionCursorBase<T, T> {
             @Nullable FDBStoreTimer timer) {
         return new IntersectionCursor<>(comparisonKeyFunction, reverse, createCursorStates(cursorFunctions, continuation, comparisonKeyFunction), timer);
     }
+
+    /**
+     * Create an intersection cursor from two or more compatibly-ordered cursors that can each be re-opened at a
+     * later comparison key. This returns the same elements as the equivalent
+     * {@link #create(Function, boolean, List, byte[], FDBStoreTimer) create()} method, but a child cursor that falls
+     * behind the others does not read every element up to their comparison key. After it skips
+     * {@code seekThreshold} elements in a row, it is re-opened at the greatest comparison key of the other children
+     * (or the least, if {@code reverse} is {@code true}). This way, intersecting a short list of elements with a long
+     * one reads close to as many elements as the short list holds.
+     *
+     * <p>
+     * A re-opened child's continuation is only valid with the key it was re-opened at, so the continuation of this
+     * cursor includes that key, and resuming from it re-opens the child with both. See
+     * {@link SeekableCursorFunction} for the requirements on the child cursors.
+     * </p>
+     *
+     * @param comparisonKeyFunction the function evaluated to compare elements from different cursors
+     * @param reverse whether records are returned in descending or ascending order by the comparison key
+     * @param cursorFunctions a list of functions to produce {@link RecordCursor}s from a seek key and a continuation
+     * @param seekThreshold the number of elements in a row that a child skips before it is re-opened instead
+     * @param continuation any continuation from a previous scan
+     * @param timer the timer used to instrument events
+     * @param <T> the type of elements returned by this cursor
+     * @return a cursor containing all records in all child cursors
+     */
+    @Nonnull
+    @API(API.Status.EXPERIMENTAL)
+    public static <T> IntersectionCursor<T> createSeeking(
+            @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction,
+            boolean reverse,
+            @Nonnull List<SeekableCursorFunction<T>> cursorFunctions,
+            int seekThreshold,
+            @Nullable byte[] continuation,
+            @Nullable FDBStoreTimer timer) {
+        return new IntersectionCursor<>(comparisonKeyFunction, reverse,
+                createSeekingCursorStates(cursorFunctions, seekThreshold, continuation, comparisonKeyFunction), timer);
+    }
 }
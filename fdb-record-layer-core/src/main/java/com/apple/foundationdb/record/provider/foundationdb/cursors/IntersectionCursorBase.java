@@ -126,9 +126,19 @@ abstract class IntersectionCursorBase<T, U> extends MergeCursor<T, U, KeyedMerge
             logDuplicates(maxCursors, nonMaxCursors, startTime);
             if (!nonMaxCursors.isEmpty()) {
                 // Any non-maximal cursor is definitely not in the intersection,
-                // so we can consume those records (which updates their continuations).
+                // so we can skip those records (which updates their continuations),
+                // possibly by re-opening the cursor at the maximal key.
                 // Then we loop again to see if we pick any up the next go around.
-                nonMaxCursors.forEach(KeyedMergeCursorState::consume);
+                final List<Object> maxKey = maxCursors.get(0).getComparisonKey();
+                int seeks = 0;
+                for (KeyedMergeCursorState<T> nonMaxCursor : nonMaxCursors) {
+                    if (nonMaxCursor.skipBehind(maxKey)) {
+                        seeks++;
+                    }
+                }
+                if (seeks > 0 && getTimer() != null) {
+                    getTimer().increment(FDBStoreTimer.Counts.QUERY_INTERSECTION_SEEKS, seeks);
+                }
             }
             return !nonMaxCursors.isEmpty();
         }), getExecutor()).thenApply(vignore -> {
@@ -198,6 +208,29 @@ abstract class IntersectionCursorBase<T, U> extends MergeCursor<T, U, KeyedMerge
                 KeyedMergeCursorState.from(right, continuation.getContinuations().get(1), comparisonKeyFunction));
     }
 
+    @Nonnull
+    protected static <T> List<KeyedMergeCursorState<T>> createSeekingCursorStates(@Nonnull List<SeekableCursorFunction<T>> cursorFunctions,
+                                                                                  int seekThreshold,
+                                                                                  @Nullable byte[] byteContinuation,
+                                                                                  @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction) {
+        if (cursorFunctions.size() < 2) {
+            throw new RecordCoreArgumentException("not enough child cursors provided to IntersectionCursor")
+                    .addLogInfo(LogMessageKeys.CHILD_COUNT, cursorFunctions.size());
+        }
+        if (seekThreshold < 1) {
+            throw new RecordCoreArgumentException("seek threshold must be positive")
+                    .addLogInfo(LogMessageKeys.LIMIT, seekThreshold);
+        }
+        final List<KeyedMergeCursorState<T>> cursorStates = new ArrayList<>(cursorFunctions.size());
+        final IntersectionCursorContinuation continuation = IntersectionCursorContinuation.from(byteContinuation, cursorFunctions.size());
+        int i = 0;
+        for (SeekableCursorFunction<T> cursorFunction : cursorFunctions) {
+            cursorStates.add(SeekingMergeCursorState.from(cursorFunction, continuation.getContinuations().get(i), comparisonKeyFunction, seekThreshold));
+            i++;
+        }
+        return cursorStates;
+    }
+
     @Nonnull
     protected static <T> List<KeyedMergeCursorState<T>> createCursorStates(@Nonnull List<Function<byte[], RecordCursor<T>>> cursorFunctions,
                                                                            @Nullable byte[] byteContinuation,
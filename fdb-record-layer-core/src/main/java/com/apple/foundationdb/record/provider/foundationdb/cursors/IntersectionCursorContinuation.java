@@ -58,7 +58,11 @@ class IntersectionCursorContinuation extends MergeCursorContinuation<RecordCurso
     }
 
     @Override
-    protected void setFirstChild(@Nonnull RecordCursorProto.IntersectionContinuation.Builder builder, @Nonnull RecordCursorContinuation continuation) {
+    protected void setFirstChild(@Nonnull RecordCursorProto.IntersectionContinuation.Builder builder, @Nonnull RecordCursorContinuation childContinuation) {
+        if (childContinuation instanceof SeekCursorContinuation) {
+            builder.setFirstSeekKey(((SeekCursorContinuation)childContinuation).getSeekKey());
+        }
+        final RecordCursorContinuation continuation = unwrapSeek(childContinuation);
         ByteString asBytes = continuation.toByteString();
         if (asBytes.isEmpty() && !continuation.isEnd()) { // first cursor has not started
             builder.setFirstStarted(false);
@@ -71,7 +75,11 @@ class IntersectionCursorContinuation extends MergeCursorContinuation<RecordCurso
     }
 
     @Override
-    protected void setSecondChild(@Nonnull RecordCursorProto.IntersectionContinuation.Builder builder, @Nonnull RecordCursorContinuation continuation) {
+    protected void setSecondChild(@Nonnull RecordCursorProto.IntersectionContinuation.Builder builder, @Nonnull RecordCursorContinuation childContinuation) {
+        if (childContinuation instanceof SeekCursorContinuation) {
+            builder.setSecondSeekKey(((SeekCursorContinuation)childContinuation).getSeekKey());
+        }
+        final RecordCursorContinuation continuation = unwrapSeek(childContinuation);
         ByteString asBytes = continuation.toByteString();
         if (asBytes.isEmpty() && !continuation.isEnd()) { // second cursor not started
             builder.setSecondStarted(false);
@@ -84,8 +92,9 @@ class IntersectionCursorContinuation extends MergeCursorContinuation<RecordCurso
     }
 
     @Override
-    protected void addOtherChild(@Nonnull RecordCursorProto.IntersectionContinuation.Builder builder, @Nonnull RecordCursorContinuation continuation) {
-        final RecordCursorProto.IntersectionContinuation.CursorState cursorState;
+    protected void addOtherChild(@Nonnull RecordCursorProto.IntersectionContinuation.Builder builder, @Nonnull RecordCursorContinuation childContinuation) {
+        final RecordCursorContinuation continuation = unwrapSeek(childContinuation);
+        RecordCursorProto.IntersectionContinuation.CursorState cursorState;
         if (continuation.isEnd()) {
             cursorState = EXHAUSTED_PROTO;
         } else {
@@ -99,9 +108,24 @@ class IntersectionCursorContinuation extends MergeCursorContinuation<RecordCurso
                         .build();
             }
         }
+        if (childContinuation instanceof SeekCursorContinuation) {
+            cursorState = cursorState.toBuilder()
+                    .setSeekKey(((SeekCursorContinuation)childContinuation).getSeekKey())
+                    .build();
+        }
         builder.addOtherChildState(cursorState);
     }
 
+    @Nonnull
+    private static RecordCursorContinuation unwrapSeek(@Nonnull RecordCursorContinuation continuation) {
+        return continuation instanceof SeekCursorContinuation ? ((SeekCursorContinuation)continuation).getChild() : continuation;
+    }
+
+    @Nonnull
+    private static RecordCursorContinuation wrapSeek(@Nonnull RecordCursorContinuation continuation, boolean hasSeekKey, @Nonnull ByteString seekKey) {
+        return hasSeekKey ? new SeekCursorContinuation(continuation, seekKey) : continuation;
+    }
+
     @Override
     @Nonnull
     protected RecordCursorProto.IntersectionContinuation.Builder newProtoBuilder() {
@@ -135,28 +159,34 @@ class IntersectionCursorContinuation extends MergeCursorContinuation<RecordCurso
     @Nonnull
     static IntersectionCursorContinuation from(@Nonnull RecordCursorProto.IntersectionContinuation parsed, int numberOfChildren) {
         ImmutableList.Builder<RecordCursorContinuation> builder = ImmutableList.builder();
+        final RecordCursorContinuation first;
         if (!parsed.getFirstStarted()) {
-            builder.add(RecordCursorStartContinuation.START);
+            first = RecordCursorStartContinuation.START;
         } else if (parsed.hasFirstContinuation()) {
-            builder.add(ByteArrayContinuation.fromNullable(parsed.getFirstContinuation().toByteArray()));
+            first = ByteArrayContinuation.fromNullable(parsed.getFirstContinuation().toByteArray());
         } else {
-            builder.add(RecordCursorEndContinuation.END);
+            first = RecordCursorEndContinuation.END;
         }
+        builder.add(wrapSeek(first, parsed.hasFirstSeekKey(), parsed.getFirstSeekKey()));
+        final RecordCursorContinuation second;
         if (!parsed.getSecondStarted()) {
-            builder.add(RecordCursorStartContinuation.START);
+            second = RecordCursorStartContinuation.START;
         } else if (parsed.hasSecondContinuation()) {
-            builder.add(ByteArrayContinuation.fromNullable(parsed.getSecondContinuation().toByteArray()));
+            second = ByteArrayContinuation.fromNullable(parsed.getSecondContinuation().toByteArray());
         } else {
-            builder.add(RecordCursorEndContinuation.END);
+            second = RecordCursorEndContinuation.END;
         }
+        builder.add(wrapSeek(second, parsed.hasSecondSeekKey(), parsed.getSecondSeekKey()));
         for (RecordCursorProto.IntersectionContinuation.CursorState state : parsed.getOtherChildStateList()) {
+            final RecordCursorContinuation other;
             if (!state.getStarted()) {
-                builder.add(RecordCursorStartContinuation.START);
+                other = RecordCursorStartContinuation.START;
             } else if (state.hasContinuation()) {
-                builder.add(ByteArrayContinuation.fromNullable(state.getContinuation().toByteArray()));
+                other = ByteArrayContinuation.fromNullable(state.getContinuation().toByteArray());
             } else {
-                builder.add(RecordCursorEndContinuation.END);
+                other = RecordCursorEndContinuation.END;
             }
+            builder.add(wrapSeek(other, state.hasSeekKey(), state.getSeekKey()));
         }
         ImmutableList<RecordCursorContinuation> children = builder.build();
         if (children.size() != numberOfChildren) {
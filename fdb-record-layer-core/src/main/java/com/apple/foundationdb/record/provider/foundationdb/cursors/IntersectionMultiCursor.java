@@ -92,4 +92,32 @@ public class IntersectionMultiCursor<T> extends IntersectionCursorBase<T, List<T
         return new IntersectionMultiCursor<>(comparisonKeyFunction, reverse,
                 createCursorStates(cursorFunctions, continuation, comparisonKeyFunction), timer);
     }
+
+    /**
+     * Create an intersection cursor from two or more compatibly-ordered cursors that can each be re-opened at a
+     * later comparison key. This behaves like the equivalent
+     * {@link IntersectionCursor#createSeeking(Function, boolean, List, int, byte[], FDBStoreTimer) createSeeking()}
+     * method, except that it returns the elements of all the child cursors.
+     *
+     * @param comparisonKeyFunction the function evaluated to compare elements from different cursors
+     * @param reverse whether records are returned in descending or ascending order by the comparison key
+     * @param cursorFunctions a list of functions to produce {@link RecordCursor}s from a seek key and a continuation
+     * @param seekThreshold the number of elements in a row that a child skips before it is re-opened instead
+     * @param continuation any continuation from a previous scan
+     * @param timer the timer used to instrument events
+     * @param <T> the type of elements returned by this cursor
+     * @return a cursor containing all records in all child cursors
+     */
+    @Nonnull
+    @API(API.Status.EXPERIMENTAL)
+    public static <T> IntersectionMultiCursor<T> createSeeking(
+            @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction,
+            boolean reverse,
+            @Nonnull List<SeekableCursorFunction<T>> cursorFunctions,
+            int seekThreshold,
+            @Nullable byte[] continuation,
+            @Nullable FDBStoreTimer timer) {
+        return new IntersectionMultiCursor<>(comparisonKeyFunction, reverse,
+                createSeekingCursorStates(cursorFunctions, seekThreshold, continuation, comparisonKeyFunction), timer);
+    }
 }
@@ -65,6 +65,23 @@ class KeyedMergeCursorState<T> extends MergeCursorState<T> {
         this.comparisonKey = null;
     }
 
+    @Override
+    protected void replaceCursor(@Nonnull RecordCursor<T> newCursor, @Nonnull RecordCursorContinuation newContinuation) {
+        super.replaceCursor(newCursor, newContinuation);
+        this.comparisonKey = null;
+    }
+
+    /**
+     * Move past the current element, which is known to come before the given comparison key. By default, this just
+     * consumes the element, but states that can re-open their cursor at a later key may do so instead.
+     * @param targetKey the comparison key that the cursor needs to reach
+     * @return {@code true} if the cursor was re-opened at the target key, {@code false} if it was advanced by one element
+     */
+    public boolean skipBehind(@Nonnull List<Object> targetKey) {
+        consume();
+        return false;
+    }
+
     @Nonnull
     public static <T> KeyedMergeCursorState<T> from(
             @Nonnull Function<byte[], RecordCursor<T>> cursorFunction,
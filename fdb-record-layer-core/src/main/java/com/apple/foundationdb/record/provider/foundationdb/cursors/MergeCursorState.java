@@ -42,7 +42,7 @@ import java.util.function.Function;
 @API(API.Status.INTERNAL)
 public class MergeCursorState<T> implements AutoCloseable {
     @Nonnull
-    private final RecordCursor<T> cursor;
+    private RecordCursor<T> cursor;
     @Nullable
     private CompletableFuture<RecordCursorResult<T>> onNextFuture;
     @Nonnull
@@ -80,6 +80,20 @@ public class MergeCursorState<T> implements AutoCloseable {
         continuation = result.getContinuation();
     }
 
+    /**
+     * Replace the underlying cursor, closing the current one. The new cursor's first result has not been requested
+     * yet, and the given continuation is the one to resume it from.
+     * @param newCursor the cursor to take results from
+     * @param newContinuation the continuation to use until the new cursor's first result is consumed
+     */
+    protected void replaceCursor(@Nonnull RecordCursor<T> newCursor, @Nonnull RecordCursorContinuation newContinuation) {
+        cursor.close();
+        cursor = newCursor;
+        continuation = newContinuation;
+        onNextFuture = null;
+        result = null;
+    }
+
     /**
      * Return whether this cursor may return a result in the future. In particular, this will return {@code true}
      * if this cursor has either not returned its first result or if the most recent result had a next element.
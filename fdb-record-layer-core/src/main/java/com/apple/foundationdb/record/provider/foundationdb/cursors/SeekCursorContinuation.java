@@ -0,0 +1,70 @@
+/*
+ * SeekCursorContinuation.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.cursors;
+
+import com.apple.foundationdb.record.RecordCursorContinuation;
+import com.google.protobuf.ByteString;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The continuation of an intersection child that was re-opened at a seek key. The child continuation is only
+ * meaningful for a cursor opened at the same key, so the two are kept together.
+ */
+class SeekCursorContinuation implements RecordCursorContinuation {
+    @Nonnull
+    private final RecordCursorContinuation childContinuation;
+    @Nonnull
+    private final ByteString seekKey;
+
+    SeekCursorContinuation(@Nonnull RecordCursorContinuation childContinuation, @Nonnull ByteString seekKey) {
+        this.childContinuation = childContinuation;
+        this.seekKey = seekKey;
+    }
+
+    @Override
+    @Nullable
+    public byte[] toBytes() {
+        return childContinuation.toBytes();
+    }
+
+    @Override
+    @Nonnull
+    public ByteString toByteString() {
+        return childContinuation.toByteString();
+    }
+
+    @Nonnull
+    RecordCursorContinuation getChild() {
+        return childContinuation;
+    }
+
+    @Nonnull
+    ByteString getSeekKey() {
+        return seekKey;
+    }
+
+    @Override
+    public boolean isEnd() {
+        return childContinuation.isEnd();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * SeekableCursorFunction.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.cursors;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.tuple.Tuple;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A function producing a child cursor of an intersection that can be opened at a given comparison key. This lets the
+ * intersection skip over long runs of elements of one child that cannot match the others by re-opening that child
+ * with a fresh scan, rather than reading through them.
+ *
+ * @param <T> the type of elements returned by the cursor
+ * @see IntersectionCursor#createSeeking
+ */
+@API(API.Status.EXPERIMENTAL)
+@FunctionalInterface
+public interface SeekableCursorFunction<T> {
+    /**
+     * Create a cursor.
+     * If {@code seekKey} is not {@code null}, the cursor must only return the elements whose comparison key is at or
+     * after it, in the order of the intersection, that is, greater than or equal to it if the intersection is forward
+     * and less than or equal to it if it is reverse. The continuation is one that was returned by a cursor created
+     * with the same seek key, or {@code null} to start from the seek key.
+     *
+     * @param seekKey the comparison key, as a {@link Tuple}, to start the cursor at, or {@code null} for the beginning
+     * @param continuation any continuation from a previous cursor created with the same seek key
+     * @return a cursor of the elements from the seek key
+     */
+    @Nonnull
+    RecordCursor<T> apply(@Nullable Tuple seekKey, @Nullable byte[] continuation);
+}
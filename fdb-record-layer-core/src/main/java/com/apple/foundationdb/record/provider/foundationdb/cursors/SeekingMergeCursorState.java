@@ -0,0 +1,107 @@
+/*
+ * SeekingMergeCursorState.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.cursors;
+
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorContinuation;
+import com.apple.foundationdb.record.RecordCursorEndContinuation;
+import com.apple.foundationdb.record.RecordCursorStartContinuation;
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.protobuf.ByteString;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A {@link KeyedMergeCursorState} whose cursor can be re-opened at a later comparison key. The state counts how
+ * many elements in a row it skipped because they came before the other children's elements. Once that reaches the
+ * seek threshold, the gap is likely to be large, so the next skip re-opens the cursor at the target key instead.
+ *
+ * @param <T> the type of element returned by the underlying cursor
+ */
+class SeekingMergeCursorState<T> extends KeyedMergeCursorState<T> {
+    @Nonnull
+    private final SeekableCursorFunction<T> cursorFunction;
+    private final int seekThreshold;
+    @Nullable
+    private ByteString seekKey;
+    private int skipped;
+
+    private SeekingMergeCursorState(@Nonnull RecordCursor<T> cursor, @Nonnull RecordCursorContinuation continuation,
+                                    @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction,
+                                    @Nonnull SeekableCursorFunction<T> cursorFunction, int seekThreshold,
+                                    @Nullable ByteString seekKey) {
+        super(cursor, continuation, comparisonKeyFunction);
+        this.cursorFunction = cursorFunction;
+        this.seekThreshold = seekThreshold;
+        this.seekKey = seekKey;
+    }
+
+    @Override
+    public void consume() {
+        // the element is part of a match, so this cursor is keeping up with the others
+        super.consume();
+        skipped = 0;
+    }
+
+    @Override
+    public boolean skipBehind(@Nonnull List<Object> targetKey) {
+        if (skipped + 1 < seekThreshold) {
+            super.consume();
+            skipped++;
+            return false;
+        }
+        final Tuple targetTuple = Tuple.fromList(targetKey);
+        seekKey = ByteString.copyFrom(targetTuple.pack());
+        replaceCursor(cursorFunction.apply(targetTuple, null), RecordCursorStartContinuation.START);
+        skipped = 0;
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public RecordCursorContinuation getContinuation() {
+        final RecordCursorContinuation continuation = super.getContinuation();
+        return seekKey == null ? continuation : new SeekCursorContinuation(continuation, seekKey);
+    }
+
+    @Nonnull
+    public static <T> SeekingMergeCursorState<T> from(
+            @Nonnull SeekableCursorFunction<T> cursorFunction,
+            @Nonnull RecordCursorContinuation continuation,
+            @Nonnull Function<? super T, ? extends List<Object>> comparisonKeyFunction,
+            int seekThreshold) {
+        if (continuation.isEnd()) {
+            return new SeekingMergeCursorState<>(RecordCursor.empty(), RecordCursorEndContinuation.END, comparisonKeyFunction,
+                    cursorFunction, seekThreshold, null);
+        } else if (continuation instanceof SeekCursorContinuation) {
+            final SeekCursorContinuation seekContinuation = (SeekCursorContinuation)continuation;
+            final Tuple seekTuple = Tuple.fromBytes(seekContinuation.getSeekKey().toByteArray());
+            return new SeekingMergeCursorState<>(cursorFunction.apply(seekTuple, seekContinuation.getChild().toBytes()),
+                    seekContinuation.getChild(), comparisonKeyFunction, cursorFunction, seekThreshold, seekContinuation.getSeekKey());
+        } else {
+            return new SeekingMergeCursorState<>(cursorFunction.apply(null, continuation.toBytes()), continuation,
+                    comparisonKeyFunction, cursorFunction, seekThreshold, null);
+        }
+    }
+}
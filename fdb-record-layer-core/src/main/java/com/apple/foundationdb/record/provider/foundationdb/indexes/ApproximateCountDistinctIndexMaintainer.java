@@ -0,0 +1,189 @@
+/*
+ * ApproximateCountDistinctIndexMaintainer.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.indexes;
+
+import com.apple.foundationdb.MutationType;
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.ExecuteProperties;
+import com.apple.foundationdb.record.FunctionNames;
+import com.apple.foundationdb.record.IndexEntry;
+import com.apple.foundationdb.record.IndexScanType;
+import com.apple.foundationdb.record.IsolationLevel;
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.ScanProperties;
+import com.apple.foundationdb.record.TupleRange;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.metadata.IndexAggregateFunction;
+import com.apple.foundationdb.record.metadata.IndexOptions;
+import com.apple.foundationdb.record.metadata.MetaDataException;
+import com.apple.foundationdb.record.provider.foundationdb.FDBIndexableRecord;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
+import com.apple.foundationdb.record.provider.foundationdb.IndexFunctionHelper;
+import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainerState;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.foundationdb.tuple.TupleHelpers;
+import com.google.protobuf.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An index maintainer for estimating the number of distinct values of a field within each group.
+ *
+ * <p>
+ * The index is defined on one or more grouped fields, grouped by zero or more fields, like the other aggregate indexes.
+ * Each group keeps a HyperLogLog sketch of the grouped values, whose precision is given by the
+ * {@link IndexOptions#HLL_PRECISION_OPTION} option. If any grouped field is not set, the item is not indexed at all.
+ * </p>
+ *
+ * <p>
+ * Each register of a sketch is stored under its own key, the group followed by the register number, with a one byte value.
+ * Registers are updated with a {@link MutationType#BYTE_MAX} mutation, so concurrent updates to the same group do not conflict
+ * and the index is idempotent. Only registers that have been set are stored.
+ * </p>
+ *
+ * <p>
+ * Like {@link com.apple.foundationdb.record.metadata.IndexTypes#MAX_EVER_LONG}, the sketch only ever grows: deleting a record,
+ * or changing its value, does not remove the old value from the estimate. Rebuilding the index gives an exact sketch again.
+ * </p>
+ *
+ * <p>
+ * The {@link FunctionNames#APPROXIMATE_COUNT_DISTINCT} aggregate function returns the estimate for a group. Because sketches
+ * merge register by register, the function can also be evaluated for any prefix of the grouping, estimating the number of
+ * distinct values across all the groups that share it. A {@link IndexScanType#BY_GROUP} scan returns the registers themselves.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class ApproximateCountDistinctIndexMaintainer extends StandardIndexMaintainer {
+    public static final String AGGREGATE_FUNCTION_NAME = FunctionNames.APPROXIMATE_COUNT_DISTINCT;
+
+    private final int precision;
+
+    public ApproximateCountDistinctIndexMaintainer(IndexMaintainerState state) {
+        super(state);
+        precision = getPrecision(state.index);
+    }
+
+    /**
+     * Get the sketch precision of an index from its options.
+     * @param index an {@code APPROXIMATE_COUNT_DISTINCT} index
+     * @return the base-two log of the number of registers in each sketch
+     */
+    public static int getPrecision(@Nonnull Index index) {
+        final String precisionOption = index.getOption(IndexOptions.HLL_PRECISION_OPTION);
+        if (precisionOption == null) {
+            return HyperLogLogSketch.DEFAULT_PRECISION;
+        }
+        final int precision;
+        try {
+            precision = Integer.parseInt(precisionOption);
+        } catch (NumberFormatException ex) {
+            throw new MetaDataException("sketch precision is not a number",
+                    LogMessageKeys.INDEX_NAME, index.getName(),
+                    LogMessageKeys.VALUE, precisionOption);
+        }
+        if (precision < HyperLogLogSketch.MIN_PRECISION || precision > HyperLogLogSketch.MAX_PRECISION) {
+            throw new MetaDataException("sketch precision is out of range",
+                    LogMessageKeys.INDEX_NAME, index.getName(),
+                    LogMessageKeys.VALUE, precision);
+        }
+        return precision;
+    }
+
+    @Nonnull
+    @Override
+    public RecordCursor<IndexEntry> scan(@Nonnull IndexScanType scanType,
+                                         @Nonnull TupleRange range,
+                                         @Nullable byte[] continuation,
+                                         @Nonnull ScanProperties scanProperties) {
+        if (!scanType.equals(IndexScanType.BY_GROUP)) {
+            throw new RecordCoreException("Can only scan approximate count distinct index by group.");
+        }
+        return scan(range, continuation, scanProperties);
+    }
+
+    @Override
+    protected <M extends Message> CompletableFuture<Void> updateIndexKeys(@Nonnull final FDBIndexableRecord<M> savedRecord,
+                                                                          final boolean remove,
+                                                                          @Nonnull final List<IndexEntry> indexEntries) {
+        if (remove) {
+            // A sketch cannot forget a value.
+            return AsyncUtil.DONE;
+        }
+        final int groupPrefixSize = getGroupingCount();
+        for (IndexEntry indexEntry : indexEntries) {
+            final long startTime = System.nanoTime();
+            final Tuple groupKey = TupleHelpers.subTuple(indexEntry.getKey(), 0, groupPrefixSize);
+            final Tuple value = TupleHelpers.subTuple(indexEntry.getKey(), groupPrefixSize, indexEntry.getKeySize());
+            if (value.getItems().contains(null)) {
+                continue;
+            }
+            final long hash = HyperLogLogSketch.hash(value);
+            final byte[] key = state.indexSubspace.pack(groupKey.add(HyperLogLogSketch.registerIndex(hash, precision)));
+            state.transaction.mutate(MutationType.BYTE_MAX, key, new byte[] { HyperLogLogSketch.registerValue(hash, precision) });
+            if (state.store.getTimer() != null) {
+                state.store.getTimer().recordSinceNanoTime(FDBStoreTimer.Events.MUTATE_INDEX_ENTRY, startTime);
+            }
+        }
+        return AsyncUtil.DONE;
+    }
+
+    @Override
+    @Nonnull
+    protected Tuple decodeValue(@Nonnull byte[] value) {
+        return Tuple.from((long)(value[0] & 0xFF));
+    }
+
+    @Override
+    public boolean canEvaluateAggregateFunction(@Nonnull IndexAggregateFunction function) {
+        return AGGREGATE_FUNCTION_NAME.equals(function.getName()) &&
+                IndexFunctionHelper.isGroupPrefix(function.getOperand(), state.index.getRootExpression());
+    }
+
+    @Override
+    @Nonnull
+    @SuppressWarnings("PMD.CloseResource")
+    public CompletableFuture<Tuple> evaluateAggregateFunction(@Nonnull IndexAggregateFunction function,
+                                                              @Nonnull TupleRange range,
+                                                              @Nonnull IsolationLevel isolationveLevel) {
+        if (!AGGREGATE_FUNCTION_NAME.equals(function.getName())) {
+            throw new MetaDataException("this index does not support aggregate function: " + function);
+        }
+        final RecordCursor<IndexEntry> cursor = scan(IndexScanType.BY_GROUP, range,
+                null, new ScanProperties(ExecuteProperties.newBuilder().setIsolationLevel(isolationveLevel).build()));
+        // Any groups below the requested prefix are merged into a single sketch.
+        return cursor.reduce(new HyperLogLogSketch(precision), (sketch, entry) -> {
+            final Tuple key = entry.getKey();
+            sketch.merge((int)key.getLong(key.size() - 1), (int)entry.getValue().getLong(0));
+            return sketch;
+        }).thenApply(sketch -> Tuple.from(sketch.estimate()));
+    }
+
+    @Override
+    public boolean isIdempotent() {
+        return true;
+    }
+}
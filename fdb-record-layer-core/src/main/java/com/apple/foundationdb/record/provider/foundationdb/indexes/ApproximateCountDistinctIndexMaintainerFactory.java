@@ -0,0 +1,88 @@
+/*
+ * ApproximateCountDistinctIndexMaintainerFactory.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2020 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.indexes;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.metadata.IndexOptions;
+import com.apple.foundationdb.record.metadata.IndexTypes;
+import com.apple.foundationdb.record.metadata.IndexValidator;
+import com.apple.foundationdb.record.metadata.MetaDataException;
+import com.apple.foundationdb.record.metadata.MetaDataValidator;
+import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainer;
+import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainerFactory;
+import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainerState;
+import com.google.auto.service.AutoService;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A factory for {@link ApproximateCountDistinctIndexMaintainer}.
+ */
+@AutoService(IndexMaintainerFactory.class)
+@API(API.Status.EXPERIMENTAL)
+public class ApproximateCountDistinctIndexMaintainerFactory implements IndexMaintainerFactory {
+    @Nonnull
+    private static final List<String> TYPES = Collections.singletonList(IndexTypes.APPROXIMATE_COUNT_DISTINCT);
+
+    @Override
+    @Nonnull
+    public Iterable<String> getIndexTypes() {
+        return TYPES;
+    }
+
+    @Override
+    @Nonnull
+    public IndexValidator getIndexValidator(Index index) {
+        return new IndexValidator(index) {
+            @Override
+            public void validate(@Nonnull MetaDataValidator metaDataValidator) {
+                super.validate(metaDataValidator);
+                validateGrouping(1);
+                validateNotVersion();
+                ApproximateCountDistinctIndexMaintainer.getPrecision(index);
+            }
+
+            @Override
+            public void validateChangedOptions(@Nonnull Index oldIndex, @Nonnull Set<String> changedOptions) {
+                if (changedOptions.contains(IndexOptions.HLL_PRECISION_OPTION)) {
+                    // Allow changing from unspecified to the default (or vice versa), but not otherwise.
+                    if (ApproximateCountDistinctIndexMaintainer.getPrecision(oldIndex) != ApproximateCountDistinctIndexMaintainer.getPrecision(index)) {
+                        throw new MetaDataException("sketch precision changed",
+                                LogMessageKeys.INDEX_NAME, index.getName());
+                    }
+                    changedOptions.remove(IndexOptions.HLL_PRECISION_OPTION);
+                }
+                super.validateChangedOptions(oldIndex, changedOptions);
+            }
+        };
+    }
+
+    @Override
+    @Nonnull
+    public IndexMaintainer getIndexMaintainer(@Nonnull IndexMaintainerState state) {
+        return new ApproximateCountDistinctIndexMaintainer(state);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * BitmapValueContainer.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.indexes;
+
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * The bits of one compressed entry of a {@code BITMAP_VALUE} index.
+ *
+ * <p>
+ * An entry is stored in whichever of three container formats is smallest for its bits, much like the containers
+ * of a roaring bitmap:
+ * </p>
+ * <ul>
+ * <li>{@code ARRAY}: the sorted offsets of the set bits.</li>
+ * <li>{@code RUN}: the sorted runs of consecutive set bits, as pairs of start offset and length minus one.</li>
+ * <li>{@code BITMAP}: the uncompressed bitmap, as stored by an uncompressed index.</li>
+ * </ul>
+ * <p>
+ * The first byte of the stored value is the format. Offsets are two bytes when the entry size allows, four otherwise.
+ * </p>
+ *
+ * @see BitmapValueIndexMaintainer
+ */
+class BitmapValueContainer {
+    static final byte ARRAY = 0;
+    static final byte BITMAP = 1;
+    static final byte RUN = 2;
+
+    private final int entrySize;
+    @Nonnull
+    private final BitSet bits;
+
+    private BitmapValueContainer(int entrySize, @Nonnull BitSet bits) {
+        this.entrySize = entrySize;
+        this.bits = bits;
+    }
+
+    /**
+     * Get an empty container.
+     * @param entrySize the number of positions in the entry
+     * @return a new container with no bits set
+     */
+    @Nonnull
+    static BitmapValueContainer empty(int entrySize) {
+        return new BitmapValueContainer(entrySize, new BitSet(entrySize));
+    }
+
+    /**
+     * Decode a stored container.
+     * @param value the stored value, in any of the container formats
+     * @param entrySize the number of positions in the entry
+     * @return a new container with the stored bits set
+     */
+    @Nonnull
+    static BitmapValueContainer fromBytes(@Nonnull byte[] value, int entrySize) {
+        final ByteBuffer buffer = ByteBuffer.wrap(value);
+        final BitSet bits;
+        final byte format = buffer.get();
+        switch (format) {
+            case ARRAY:
+                bits = new BitSet(entrySize);
+                while (buffer.hasRemaining()) {
+                    bits.set(getOffset(buffer, entrySize));
+                }
+                break;
+            case RUN:
+                bits = new BitSet(entrySize);
+                while (buffer.hasRemaining()) {
+                    final int start = getOffset(buffer, entrySize);
+                    final int length = getOffset(buffer, entrySize) + 1;
+                    bits.set(start, start + length);
+                }
+                break;
+            case BITMAP:
+                bits = BitSet.valueOf(buffer);
+                break;
+            default:
+                throw new RecordCoreException("unknown bitmap container format")
+                        .addLogInfo(LogMessageKeys.VALUE, format);
+        }
+        return new BitmapValueContainer(entrySize, bits);
+    }
+
+    boolean contains(int offset) {
+        return bits.get(offset);
+    }
+
+    void set(int offset) {
+        bits.set(offset);
+    }
+
+    void clear(int offset) {
+        bits.clear(offset);
+    }
+
+    boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    /**
+     * Get the uncompressed bitmap of this entry, the same as an uncompressed index would store.
+     * @return a bitmap of the entry size
+     */
+    @Nonnull
+    byte[] toBitmap() {
+        final byte[] bitmap = new byte[bitmapSize()];
+        final byte[] setBytes = bits.toByteArray();
+        System.arraycopy(setBytes, 0, bitmap, 0, setBytes.length);
+        return bitmap;
+    }
+
+    /**
+     * Encode this container in its smallest format.
+     * @return the value to store for the entry
+     */
+    @Nonnull
+    byte[] toBytes() {
+        final int offsetSize = offsetSize(entrySize);
+        final int arraySize = bits.cardinality() * offsetSize;
+        final int runSize = countRuns() * 2 * offsetSize;
+        final int bitmapSize = bitmapSize();
+        final ByteBuffer buffer;
+        if (arraySize <= runSize && arraySize <= bitmapSize) {
+            buffer = ByteBuffer.allocate(1 + arraySize);
+            buffer.put(ARRAY);
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                putOffset(buffer, i, offsetSize);
+            }
+        } else if (runSize <= bitmapSize) {
+            buffer = ByteBuffer.allocate(1 + runSize);
+            buffer.put(RUN);
+            int start = bits.nextSetBit(0);
+            while (start >= 0) {
+                final int end = bits.nextClearBit(start);
+                putOffset(buffer, start, offsetSize);
+                putOffset(buffer, end - start - 1, offsetSize);
+                start = bits.nextSetBit(end);
+            }
+        } else {
+            buffer = ByteBuffer.allocate(1 + bitmapSize);
+            buffer.put(BITMAP);
+            buffer.put(toBitmap());
+        }
+        return buffer.array();
+    }
+
+    private int countRuns() {
+        int runs = 0;
+        for (int start = bits.nextSetBit(0); start >= 0; start = bits.nextSetBit(bits.nextClearBit(start))) {
+            runs++;
+        }
+        return runs;
+    }
+
+    private int bitmapSize() {
+        return (entrySize + 7) / 8;
+    }
+
+    private static int offsetSize(int entrySize) {
+        return entrySize <= 0x10000 ? 2 : 4;
+    }
+
+    private static int getOffset(@Nonnull ByteBuffer buffer, int entrySize) {
+        return offsetSize(entrySize) == 2 ? Short.toUnsignedInt(buffer.getShort()) : buffer.getInt();
+    }
+
+    private static void putOffset(@Nonnull ByteBuffer buffer, int offset, int offsetSize) {
+        if (offsetSize == 2) {
+            buffer.putShort((short)offset);
+        } else {
+            buffer.putInt(offset);
+        }
+    }
+}
@@ -35,6 +35,7 @@ import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.RecordIndexUniquenessViolation;
 import com.apple.foundationdb.record.ScanProperties;
 import com.apple.foundationdb.record.TupleRange;
+import com.apple.foundationdb.record.locking.LockIdentifier;
 import com.apple.foundationdb.record.logging.LogMessageKeys;
 import com.apple.foundationdb.record.metadata.IndexAggregateFunction;
 import com.apple.foundationdb.record.metadata.IndexOptions;
@@ -79,6 +80,14 @@ import java.util.concurrent.CompletableFuture;
  * </p>
  *
  * <p>
+ * With the {@link IndexOptions#BITMAP_VALUE_COMPRESSED_OPTION} option, each bitmap is instead stored in a compressed container,
+ * either the sorted positions that are set, the runs of set positions or the uncompressed bitmap, whichever is smallest.
+ * Sparse bitmaps then take far less space and far less time to scan. Scans still return uncompressed bitmaps.
+ * The containers cannot be updated with atomic mutations, so each update reads and rewrites the container, and
+ * concurrent updates to the same bitmap conflict.
+ * </p>
+ *
+ * <p>
  * A {@code unique} option means that the index <em>checks</em> uniqueness of the position, with the expense of an additional
  * read at update time. Also, when a uniqueness violation does occur, it is not possible to know what other record caused it.
  * A separate unique index on the position field, if it is not the primary key, is therefore generally preferable.
@@ -94,6 +103,7 @@ public class BitmapValueIndexMaintainer extends StandardIndexMaintainer {
 
     private final int entrySize;
     private final boolean unique;
+    private final boolean compressed;
 
     public BitmapValueIndexMaintainer(IndexMaintainerState state) {
         super(state);
@@ -104,6 +114,7 @@ public class BitmapValueIndexMaintainer extends StandardIndexMaintainer {
                     .addLogInfo("entrySize", entrySize, "maxEntrySize", MAX_ENTRY_SIZE);
         }
         unique = state.index.isUnique();
+        compressed = state.index.getBooleanOption(IndexOptions.BITMAP_VALUE_COMPRESSED_OPTION, false);
     }
 
     @Nonnull
@@ -179,7 +190,7 @@ public class BitmapValueIndexMaintainer extends StandardIndexMaintainer {
                                                                           final boolean remove,
                                                                           @Nonnull final List<IndexEntry> indexEntries) {
         final int groupPrefixSize = getGroupingCount();
-        final List<CompletableFuture<Void>> futures = unique && !remove ? new ArrayList<>(indexEntries.size()) : null;
+        final List<CompletableFuture<Void>> futures = compressed || (unique && !remove) ? new ArrayList<>(indexEntries.size()) : null;
         for (IndexEntry indexEntry : indexEntries) {
             final long startTime = System.nanoTime();
             final Tuple groupKey = TupleHelpers.subTuple(indexEntry.getKey(), 0, groupPrefixSize);
@@ -198,6 +209,10 @@ public class BitmapValueIndexMaintainer extends StandardIndexMaintainer {
             final int offset = (int)Math.floorMod(position, (long)entrySize);
             position -= offset;
             final byte[] key = state.indexSubspace.pack(groupKey.add(position));
+            if (compressed) {
+                futures.add(updateCompressed(savedRecord, remove, indexEntry, key, offset, startTime));
+                continue;
+            }
             // This has to be the same size every time, with all the unset bits, or else it gets truncated.
             // We really could use a new mutation that took a linear bit position to set / clear and only did length extension or something like that.
             final byte[] bitmap = new byte[(entrySize + 7) / 8];
@@ -239,9 +254,49 @@ public class BitmapValueIndexMaintainer extends StandardIndexMaintainer {
         return futures != null ? AsyncUtil.whenAll(futures) : AsyncUtil.DONE;
     }
 
+    @Nonnull
+    private <M extends Message> CompletableFuture<Void> updateCompressed(@Nonnull final FDBIndexableRecord<M> savedRecord,
+                                                                         final boolean remove,
+                                                                         @Nonnull final IndexEntry indexEntry,
+                                                                         @Nonnull final byte[] key, final int offset,
+                                                                         final long startTime) {
+        // Updates of the same container by records in this transaction must not overlap, or one would be lost.
+        return state.context.doWithWriteLock(new LockIdentifier(new Subspace(key)), () ->
+                // Not a snapshot read, so that any concurrent update of the container conflicts.
+                state.transaction.get(key).thenAccept(existing -> {
+                    if (existing == null && remove) {
+                        // If the index isn't built, it's possible this key wasn't reached.
+                        return;
+                    }
+                    final BitmapValueContainer container = existing == null ?
+                                                           BitmapValueContainer.empty(entrySize) :
+                                                           BitmapValueContainer.fromBytes(existing, entrySize);
+                    if (remove) {
+                        container.clear(offset);
+                    } else {
+                        if (unique && container.contains(offset)) {
+                            throw new RecordIndexUniquenessViolation(state.index, indexEntry, savedRecord.getPrimaryKey(),
+                                    null);  // Unfortunately, we don't know the other key.
+                        }
+                        container.set(offset);
+                    }
+                    if (container.isEmpty()) {
+                        state.transaction.clear(key);
+                    } else {
+                        state.transaction.set(key, container.toBytes());
+                    }
+                    if (state.store.getTimer() != null) {
+                        state.store.getTimer().recordSinceNanoTime(FDBStoreTimer.Events.MUTATE_INDEX_ENTRY, startTime);
+                    }
+                }));
+    }
+
     @Override
     @Nonnull
     protected Tuple decodeValue(@Nonnull byte[] value) {
+        if (compressed) {
+            return Tuple.from(BitmapValueContainer.fromBytes(value, entrySize).toBitmap());
+        }
         return Tuple.from(value);  // The byte array itself is the value.
     }
 
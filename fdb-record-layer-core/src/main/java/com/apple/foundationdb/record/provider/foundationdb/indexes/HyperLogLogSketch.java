@@ -0,0 +1,146 @@
+/*
+ * HyperLogLogSketch.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.indexes;
+
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The registers of one group of an {@code APPROXIMATE_COUNT_DISTINCT} index.
+ *
+ * <p>
+ * Each value is hashed to 64 bits. The top {@code precision} bits of the hash select a register and the register
+ * remembers the most leading zeros (plus one) seen in the remaining bits. Since a register only ever takes the
+ * maximum, sketches merge by taking the maximum of each register, which is what lets the index store each register
+ * under its own key and update it with a byte-max atomic mutation.
+ * </p>
+ *
+ * @see ApproximateCountDistinctIndexMaintainer
+ */
+class HyperLogLogSketch {
+    static final int MIN_PRECISION = 4;
+    static final int MAX_PRECISION = 16;
+    static final int DEFAULT_PRECISION = 12;
+
+    @Nonnull
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final int precision;
+    @Nonnull
+    private final byte[] registers;
+
+    HyperLogLogSketch(int precision) {
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Hash a value for adding to a sketch.
+     * @param value the value, as it appears in the index entry
+     * @return a 64-bit hash of the value
+     */
+    static long hash(@Nonnull Tuple value) {
+        return HASH_FUNCTION.hashBytes(value.pack()).asLong();
+    }
+
+    /**
+     * Get the register that a hash updates.
+     * @param hash the hash of a value
+     * @param precision the precision of the sketch
+     * @return the register number
+     */
+    static int registerIndex(long hash, int precision) {
+        return (int)(hash >>> (Long.SIZE - precision));
+    }
+
+    /**
+     * Get the value that a hash puts into its register, one more than the number of leading zeros after the register bits.
+     * @param hash the hash of a value
+     * @param precision the precision of the sketch
+     * @return the register value, between {@code 1} and {@code 65 - precision}
+     */
+    static byte registerValue(long hash, int precision) {
+        // The extra one bit keeps an all zero remainder from counting past the end.
+        return (byte)(Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+    }
+
+    int getRegisterCount() {
+        return registers.length;
+    }
+
+    int getRegister(int index) {
+        return registers[index];
+    }
+
+    void add(long hash) {
+        merge(registerIndex(hash, precision), registerValue(hash, precision));
+    }
+
+    void merge(int index, int value) {
+        if (value > registers[index]) {
+            registers[index] = (byte)value;
+        }
+    }
+
+    void merge(@Nonnull HyperLogLogSketch other) {
+        for (int i = 0; i < registers.length; i++) {
+            merge(i, other.registers[i]);
+        }
+    }
+
+    /**
+     * Estimate the number of distinct values added to this sketch.
+     * Small cardinalities, where many registers are still empty, use linear counting instead.
+     * @return the estimated number of distinct values
+     */
+    long estimate() {
+        final int m = registers.length;
+        double sum = 0.0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double)m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1.0 + 1.079 / m);
+        }
+    }
+}
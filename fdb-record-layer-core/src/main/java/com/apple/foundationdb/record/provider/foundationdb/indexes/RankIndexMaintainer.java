@@ -52,6 +52,9 @@ import com.google.protobuf.Message;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -245,6 +248,44 @@ public class RankIndexMaintainer extends StandardIndexMaintainer {
         return RankedSetIndexHelper.rankForScore(state, rankedSet, scoreValue, true);
     }
 
+    /**
+     * Get the ranks of several records according to this index.
+     * The lookups for records in the same group share their reads of that group's ranked set, so this takes
+     * about as many round trips as a single {@link #rank(FDBRecord)}.
+     * @param records the records to rank
+     * @param <M> type used to represent stored records
+     * @return a future that completes to the rank of each of {@code records}, in the same order, or {@code null}
+     * for any record that does not have an entry in the index
+     */
+    @Nonnull
+    public <M extends Message> CompletableFuture<List<Long>> rank(@Nonnull List<? extends FDBRecord<M>> records) {
+        final int groupPrefixSize = getGroupingCount();
+        final Map<Tuple, List<Integer>> positionsByGroup = new LinkedHashMap<>();
+        final Map<Tuple, List<Tuple>> scoresByGroup = new HashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            Key.Evaluated indexKey = IndexFunctionHelper.recordFunctionIndexEntry(state.store, state.index, EvaluationContext.empty(), null, records.get(i), groupPrefixSize);
+            if (indexKey == null) {
+                continue;
+            }
+            Tuple scoreValue = indexKey.toTuple();
+            Tuple group = TupleHelpers.subTuple(scoreValue, 0, groupPrefixSize);
+            positionsByGroup.computeIfAbsent(group, g -> new ArrayList<>()).add(i);
+            scoresByGroup.computeIfAbsent(group, g -> new ArrayList<>()).add(TupleHelpers.subTuple(scoreValue, groupPrefixSize, scoreValue.size()));
+        }
+        final Long[] ranks = new Long[records.size()];
+        final List<CompletableFuture<Void>> futures = new ArrayList<>(positionsByGroup.size());
+        for (Map.Entry<Tuple, List<Integer>> entry : positionsByGroup.entrySet()) {
+            final List<Integer> positions = entry.getValue();
+            final RankedSet rankedSet = new RankedSetIndexHelper.InstrumentedRankedSet(state, getSecondarySubspace().subspace(entry.getKey()), config);
+            futures.add(RankedSetIndexHelper.ranksForScores(state, rankedSet, scoresByGroup.get(entry.getKey()), true).thenAccept(groupRanks -> {
+                for (int i = 0; i < positions.size(); i++) {
+                    ranks[positions.get(i)] = groupRanks.get(i);
+                }
+            }));
+        }
+        return AsyncUtil.whenAll(futures).thenApply(vignore -> Arrays.asList(ranks));
+    }
+
     @Override
     public CompletableFuture<Void> deleteWhere(Transaction tr, @Nonnull Tuple prefix) {
         return super.deleteWhere(tr, prefix).thenApply(v -> {
@@ -90,6 +90,13 @@ public class RankIndexMaintainerFactory implements IndexMaintainerFactory {
                         }
                         changedOptions.remove(IndexOptions.RANK_COUNT_DUPLICATES);
                     }
+                    if (changedOptions.contains(IndexOptions.RANK_CACHE_UPPER_LEVELS)) {
+                        if (oldOptions.isVersioned() != newOptions.isVersioned()) {
+                            throw new MetaDataException("rank cache upper levels changed",
+                                    LogMessageKeys.INDEX_NAME, index.getName());
+                        }
+                        changedOptions.remove(IndexOptions.RANK_CACHE_UPPER_LEVELS);
+                    }
                 }
                 super.validateChangedOptions(oldIndex, changedOptions);
             }
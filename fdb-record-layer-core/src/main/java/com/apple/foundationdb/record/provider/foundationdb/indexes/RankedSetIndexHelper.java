@@ -47,6 +47,9 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -75,6 +78,10 @@ public class RankedSetIndexHelper {
         if (duplicatesOption != null) {
             builder.setCountDuplicates(Boolean.parseBoolean(duplicatesOption));
         }
+        String cacheOption = index.getOption(IndexOptions.RANK_CACHE_UPPER_LEVELS);
+        if (cacheOption != null) {
+            builder.setVersioned(Boolean.parseBoolean(cacheOption));
+        }
         return builder.build();
     }
 
@@ -147,9 +154,10 @@ public class RankedSetIndexHelper {
 
         final RankedSet rankedSet = new InstrumentedRankedSet(state, rankSubspace, config);
         return init(state, rankedSet).thenCompose(v -> {
-            CompletableFuture<Tuple> lowScoreFuture = scoreForRank(state, rankedSet, startFromBeginning ? 0L : lowRankNum, null);
-            CompletableFuture<Tuple> highScoreFuture = scoreForRank(state, rankedSet, highRankNum, null);
-            return lowScoreFuture.thenCombine(highScoreFuture, (lowScore, highScore) -> {
+            final List<Number> ranks = Arrays.asList(startFromBeginning ? 0L : lowRankNum, highRankNum);
+            return scoresForRanks(state, rankedSet, ranks, null).thenApply(scores -> {
+                final Tuple lowScore = scores.get(0);
+                final Tuple highScore = scores.get(1);
                 // At this point, if either lowScore or highScore are null, it means they are past the end of the list of
                 // records. For low, this means the whole range is missed; for high, this means return all of the elements
                 // from low until the end.
@@ -232,6 +240,45 @@ public class RankedSetIndexHelper {
         }
     }
 
+    /**
+     * Get the scores at several ranks, sharing the reads of the ranked set between them.
+     * @param state the index maintainer state
+     * @param rankedSet the ranked set to look in
+     * @param ranks the ranks to find, any of which may be {@code null}
+     * @param outOfRange the score to return for a rank that is out of range
+     * @return a future that completes to the score for each of {@code ranks}, in the same order, or {@code null} for a {@code null} rank
+     */
+    @Nonnull
+    public static CompletableFuture<List<Tuple>> scoresForRanks(@Nonnull IndexMaintainerState state,
+                                                                @Nonnull RankedSet rankedSet,
+                                                                @Nonnull List<Number> ranks,
+                                                                @Nullable Tuple outOfRange) {
+        final List<Long> lookupRanks = new ArrayList<>(ranks.size());
+        for (Number rank : ranks) {
+            if (rank != null) {
+                lookupRanks.add(rank.longValue());
+            }
+        }
+        rankedSet.preloadForLookup(state.context.readTransaction(true));
+        CompletableFuture<List<Tuple>> result = rankedSet.getNth(state.transaction, lookupRanks).thenApply(keys -> {
+            final List<Tuple> scores = new ArrayList<>(ranks.size());
+            int next = 0;
+            for (Number rank : ranks) {
+                if (rank == null) {
+                    scores.add(null);
+                } else {
+                    final byte[] scoreBytes = keys.get(next++);
+                    scores.add(scoreBytes == null ? outOfRange : Tuple.fromBytes(scoreBytes));
+                }
+            }
+            return scores;
+        });
+        if (state.store.getTimer() != null) {
+            result = state.store.instrument(Events.RANKED_SET_SCORE_FOR_RANK, result);
+        }
+        return result;
+    }
+
     public static CompletableFuture<Long> rankForScore(@Nonnull IndexMaintainerState state,
                                                        @Nonnull RankedSet rankedSet,
                                                        @Nullable Tuple score,
@@ -245,6 +292,28 @@ public class RankedSetIndexHelper {
         }
     }
 
+    /**
+     * Get the ranks of several scores, sharing the reads of the ranked set between them.
+     * @param state the index maintainer state
+     * @param rankedSet the ranked set to look in
+     * @param scores the scores to find
+     * @param nullIfMissing whether to return {@code null} for a score that is not in the ranked set
+     * @return a future that completes to the rank of each of {@code scores}, in the same order
+     */
+    @Nonnull
+    public static CompletableFuture<List<Long>> ranksForScores(@Nonnull IndexMaintainerState state,
+                                                               @Nonnull RankedSet rankedSet,
+                                                               @Nonnull List<Tuple> scores,
+                                                               boolean nullIfMissing) {
+        final List<byte[]> keys = new ArrayList<>(scores.size());
+        for (Tuple score : scores) {
+            keys.add(score.pack());
+        }
+        rankedSet.preloadForLookup(state.context.readTransaction(true));
+        CompletableFuture<List<Long>> result = rankedSet.rank(state.transaction, keys, nullIfMissing);
+        return state.store.instrument(Events.RANKED_SET_RANK_FOR_SCORE, result);
+    }
+
     @Nonnull
     public static CompletableFuture<Void> updateRankedSet(@Nonnull IndexMaintainerState state,
                                                           @Nonnull Subspace rankSubspace,
@@ -294,7 +363,8 @@ public class RankedSetIndexHelper {
         public InstrumentedRankedSet(@Nonnull IndexMaintainerState state,
                                      @Nonnull Subspace rankSubspace,
                                      @Nonnull Config config) {
-            super(rankSubspace, state.context.getExecutor(), config);
+            super(rankSubspace, state.context.getExecutor(), config,
+                    config.isVersioned() ? state.context.getDatabase().getRankedSetUpperLevelCache() : null);
             this.context = state.context;
         }
 
@@ -26,16 +26,20 @@ import com.apple.foundationdb.Range;
 import com.apple.foundationdb.async.AsyncUtil;
 import com.apple.foundationdb.map.BunchedMap;
 import com.apple.foundationdb.map.BunchedMapMultiIterator;
+import com.apple.foundationdb.Transaction;
 import com.apple.foundationdb.record.ByteScanLimiter;
+import com.apple.foundationdb.record.EndpointType;
 import com.apple.foundationdb.record.ExecuteProperties;
 import com.apple.foundationdb.record.IndexEntry;
 import com.apple.foundationdb.record.IndexScanType;
 import com.apple.foundationdb.record.PipelineOperation;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCursor;
 import com.apple.foundationdb.record.ScanProperties;
 import com.apple.foundationdb.annotation.SpotBugsSuppressWarnings;
 import com.apple.foundationdb.record.TupleRange;
+import com.apple.foundationdb.record.cursors.LazyCursor;
 import com.apple.foundationdb.record.logging.KeyValueLogMessage;
 import com.apple.foundationdb.record.logging.LogMessageKeys;
 import com.apple.foundationdb.record.metadata.Index;
@@ -53,6 +57,8 @@ import com.apple.foundationdb.record.provider.foundationdb.FDBRecordContext;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore;
 import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
 import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainerState;
+import com.apple.foundationdb.record.provider.foundationdb.IndexScanBounds;
+import com.apple.foundationdb.record.provider.foundationdb.TextScoreScanRange;
 import com.apple.foundationdb.record.query.QueryToKeyMatcher;
 import com.apple.foundationdb.record.query.expressions.QueryComponent;
 import com.apple.foundationdb.record.util.pair.NonnullPair;
@@ -71,6 +77,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
@@ -140,17 +147,21 @@ public class TextIndexMaintainer extends StandardIndexMaintainer {
     private static final BunchedMap<Tuple, List<Integer>> BUNCHED_MAP = new BunchedMap<>(TextIndexBunchedSerializer.instance(), Comparator.naturalOrder(), BUNCH_SIZE);
 
     // Subspaces used within the index secondary subspace for additional meta-data.
-    // (Currently, there is only one, but this allows for expansion if we ever decide
-    // to use a more compact format or add an indirection layer for keys to reduce the key-size, etc.)
+    // (This allows for expansion if we ever decide to use a more compact format or
+    // add an indirection layer for keys to reduce the key-size, etc.)
     @VisibleForTesting
     @Nonnull
     static final Tuple TOKENIZER_VERSION_SUBSPACE_TUPLE = Tuple.from(0L);
+    @Nonnull
+    static final Tuple SCORE_STATISTICS_SUBSPACE_TUPLE = Tuple.from(1L);
 
     @Nonnull
     private final TextTokenizer tokenizer;
     private final int tokenizerVersion;
     private final boolean addAggressiveConflictRanges;
     private final boolean omitPositionLists;
+    @Nullable
+    private final TextIndexScorer scorer;
 
     /**
      * Get the text tokenizer associated with this index. This uses the
@@ -200,6 +211,10 @@ public class TextIndexMaintainer extends StandardIndexMaintainer {
         return index.getBooleanOption(IndexOptions.TEXT_OMIT_POSITIONS_OPTION, false);
     }
 
+    static boolean getIfScoreStatistics(@Nonnull Index index) {
+        return index.getBooleanOption(IndexOptions.TEXT_SCORE_STATISTICS_OPTION, false);
+    }
+
     // Gets the position of the text field this index is tokenizing from within the
     // index's expression. This is the first column of the index expression after
     // all grouping columns (or the first column if there are no grouping columns).
@@ -226,6 +241,9 @@ public class TextIndexMaintainer extends StandardIndexMaintainer {
         this.tokenizerVersion = getIndexTokenizerVersion(state.index);
         this.addAggressiveConflictRanges = getIfAddAggressiveConflictRanges(state.index);
         this.omitPositionLists = getIfOmitPositions(state.index);
+        this.scorer = getIfScoreStatistics(state.index) ?
+                      new TextIndexScorer(state, getSecondarySubspace().subspace(SCORE_STATISTICS_SUBSPACE_TUPLE), omitPositionLists) :
+                      null;
     }
 
     private static int varIntSize(int val) {
@@ -325,6 +343,9 @@ public class TextIndexMaintainer extends StandardIndexMaintainer {
             }
             return AsyncUtil.DONE;
         }
+        if (scorer != null) {
+            scorer.updateStatistics(groupingKey == null ? TupleHelpers.EMPTY : groupingKey, groupedKey, positionMap, remove);
+        }
         if (addAggressiveConflictRanges) {
             // Add a read and write conflict range over the whole index to decrease the number of mutations
             // sent to the resolver. In theory, this will increase the number of conflicts in that if two
@@ -500,6 +521,89 @@ public class TextIndexMaintainer extends StandardIndexMaintainer {
         return canDeleteGroup(matcher, evaluated);
     }
 
+    @Override
+    public CompletableFuture<Void> deleteWhere(Transaction tr, @Nonnull Tuple prefix) {
+        if (scorer != null) {
+            scorer.deleteWhere(prefix);
+        }
+        return super.deleteWhere(tr, prefix);
+    }
+
+    @Override
+    public boolean isIdempotent() {
+        // The score statistics are counts that are incremented and decremented, so indexing a record twice (or
+        // removing a record that was never indexed) would leave them wrong.
+        return scorer == null;
+    }
+
+    /**
+     * Scan this index for the documents that best match a set of tokens. This index only supports
+     * {@link IndexScanType#BY_TEXT_SCORE} scans if it maintains
+     * {@linkplain IndexOptions#TEXT_SCORE_STATISTICS_OPTION score statistics}, and the scan bounds must be
+     * a {@link TextScoreScanRange} selecting a single group. Documents are scored with BM25, and only the
+     * highest scoring ones are returned, highest first. Other scan types are as for
+     * {@link #scan(IndexScanType, TupleRange, byte[], ScanProperties)}.
+     *
+     * <p>
+     * The keys of the returned index entries have a {@code null} in place of the token, and the value of each is a
+     * tuple whose only element is the score. The whole search is done before the first result is returned, and a
+     * continuation repeats the search and skips the results returned before, so results can be missed or repeated
+     * if the index changed in between.
+     * </p>
+     *
+     * @param scanBounds the tokens to search for and the group to search in
+     * @param continuation any continuation from a previous scan invocation
+     * @param scanProperties skip, limit and other properties of the scan
+     * @return a cursor over the highest scoring documents
+     * @see TextIndexScorer
+     */
+    @Nonnull
+    @Override
+    @SuppressWarnings("PMD.CloseResource")
+    public RecordCursor<IndexEntry> scan(@Nonnull IndexScanBounds scanBounds,
+                                         @Nullable byte[] continuation,
+                                         @Nonnull ScanProperties scanProperties) {
+        if (!scanBounds.getScanType().equals(IndexScanType.BY_TEXT_SCORE)) {
+            return super.scan(scanBounds, continuation, scanProperties);
+        }
+        if (!(scanBounds instanceof TextScoreScanRange)) {
+            throw new RecordCoreException("Need proper text score scan bounds.");
+        }
+        if (scorer == null) {
+            throw new RecordCoreException("text index does not maintain score statistics")
+                    .addLogInfo(LogMessageKeys.INDEX_NAME, state.index.getName());
+        }
+        final TextScoreScanRange scoreScanRange = (TextScoreScanRange)scanBounds;
+        final Tuple groupingKey = getScoreGroupingKey(scoreScanRange.getScanRange());
+        final ExecuteProperties executeProperties = scanProperties.getExecuteProperties();
+        final ScanProperties postingsScanProperties = new ScanProperties(ExecuteProperties.newBuilder()
+                .setIsolationLevel(executeProperties.getIsolationLevel())
+                .build());
+        final BunchedMap<Tuple, List<Integer>> bunchedMap = getBunchedMap(state.context);
+        final CompletableFuture<List<IndexEntry>> entriesFuture = scorer.scoreTopK(
+                state.context.readTransaction(executeProperties.getIsolationLevel().isSnapshot()),
+                groupingKey, scoreScanRange.getTokens(), scoreScanRange.getK(),
+                token -> scan(IndexScanType.BY_TEXT_TOKEN, TupleRange.allOf(groupingKey.add(token)), null, postingsScanProperties),
+                (token, groupedKey) -> bunchedMap.get(state.transaction, state.indexSubspace.subspace(groupingKey.add(token)), groupedKey));
+        return new LazyCursor<>(entriesFuture.thenApply(entries -> RecordCursor.fromList(getExecutor(), entries, continuation)), getExecutor())
+                .skipThenLimit(executeProperties.getSkip(), executeProperties.getReturnedRowLimit());
+    }
+
+    @Nonnull
+    private Tuple getScoreGroupingKey(@Nonnull TupleRange range) {
+        final int groupingCount = textFieldPosition(state.index.getRootExpression());
+        if (groupingCount == 0 && range.getLow() == null && range.getHigh() == null) {
+            return TupleHelpers.EMPTY;
+        }
+        if (range.getLowEndpoint() != EndpointType.RANGE_INCLUSIVE || range.getHighEndpoint() != EndpointType.RANGE_INCLUSIVE ||
+                !Objects.equals(range.getLow(), range.getHigh()) || Objects.requireNonNull(range.getLow()).size() != groupingCount) {
+            throw new RecordCoreArgumentException("text score scan must select a single group")
+                    .addLogInfo(LogMessageKeys.INDEX_NAME, state.index.getName())
+                    .addLogInfo(LogMessageKeys.RANGE, range);
+        }
+        return range.getLow();
+    }
+
     /**
      * Scan this index between a range of tokens. This index type requires that it be scanned only
      * by text token. The range to scan can otherwise be between any two entries in the list, and
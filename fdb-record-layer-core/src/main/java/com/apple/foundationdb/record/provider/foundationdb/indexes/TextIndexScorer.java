@@ -0,0 +1,448 @@
+/*
+ * TextIndexScorer.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.indexes;
+
+import com.apple.foundationdb.MutationType;
+import com.apple.foundationdb.ReadTransaction;
+import com.apple.foundationdb.Transaction;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.IndexEntry;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
+import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainerState;
+import com.apple.foundationdb.subspace.Subspace;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.foundationdb.tuple.TupleHelpers;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * BM25 scoring for a {@link TextIndexMaintainer text index} that maintains
+ * {@link com.apple.foundationdb.record.metadata.IndexOptions#TEXT_SCORE_STATISTICS_OPTION score statistics}.
+ *
+ * <p>
+ * For each group of the index, the statistics are the number of documents, their total length, the length of each
+ * document, and, for each token, the number of documents containing it and the largest number of times it occurs in
+ * any one document. The term frequency of a token in a document is the length of its position list in the index.
+ * Documents are the index entries, so a record that has several entries is several documents.
+ * </p>
+ *
+ * <p>
+ * The top documents are found with max-score pruning. Each token has an upper bound on what it can add to any
+ * document's score, computed from its largest term frequency. Tokens are ordered by that bound. Once the lowest
+ * score in the top results is at least the sum of the bounds of the tokens with the smallest bounds, a document
+ * containing only those tokens cannot make the top results. Their postings are then no longer read in full. Instead,
+ * they are only looked up for documents found in the postings of the other tokens, and only while the document can
+ * still make the top results.
+ * </p>
+ */
+class TextIndexScorer {
+    /** The BM25 term frequency saturation parameter. */
+    static final double K1 = 1.2;
+    /** The BM25 document length normalization parameter. */
+    static final double B = 0.75;
+
+    private static final long DOCUMENT_COUNT_KEY = 0L;
+    private static final long TOTAL_LENGTH_KEY = 1L;
+    private static final long DOCUMENT_FREQUENCY_KEY = 2L;
+    private static final long MAX_TERM_FREQUENCY_KEY = 3L;
+    private static final long DOCUMENT_LENGTH_KEY = 4L;
+    private static final byte[] ZERO = new byte[Long.BYTES];
+
+    @Nonnull
+    private final IndexMaintainerState state;
+    @Nonnull
+    private final Subspace statisticsSubspace;
+    private final boolean omitPositionLists;
+
+    TextIndexScorer(@Nonnull IndexMaintainerState state, @Nonnull Subspace statisticsSubspace, boolean omitPositionLists) {
+        this.state = state;
+        this.statisticsSubspace = statisticsSubspace;
+        this.omitPositionLists = omitPositionLists;
+    }
+
+    /**
+     * Update the statistics for a document added to or removed from the index.
+     * @param groupingKey the grouping key of the document's index entry
+     * @param groupedKey the part of the document's index entry after the text
+     * @param positionMap the positions of each token in the document
+     * @param remove whether the document is being removed
+     */
+    void updateStatistics(@Nonnull Tuple groupingKey, @Nonnull Tuple groupedKey,
+                          @Nonnull Map<String, List<Integer>> positionMap, boolean remove) {
+        final Transaction tr = state.transaction;
+        final Subspace groupSubspace = statisticsSubspace.subspace(groupingKey);
+        final long length = positionMap.values().stream().mapToInt(List::size).sum();
+        tr.mutate(MutationType.ADD, groupSubspace.pack(Tuple.from(DOCUMENT_COUNT_KEY)),
+                remove ? FDBRecordStore.LITTLE_ENDIAN_INT64_MINUS_ONE : FDBRecordStore.LITTLE_ENDIAN_INT64_ONE);
+        tr.mutate(MutationType.ADD, groupSubspace.pack(Tuple.from(TOTAL_LENGTH_KEY)),
+                AtomicMutation.Standard.encodeUnsignedLong(remove ? -length : length));
+        for (Map.Entry<String, List<Integer>> tokenEntry : positionMap.entrySet()) {
+            final byte[] documentFrequencyKey = groupSubspace.pack(Tuple.from(DOCUMENT_FREQUENCY_KEY, tokenEntry.getKey()));
+            if (remove) {
+                tr.mutate(MutationType.ADD, documentFrequencyKey, FDBRecordStore.LITTLE_ENDIAN_INT64_MINUS_ONE);
+                tr.mutate(MutationType.COMPARE_AND_CLEAR, documentFrequencyKey, ZERO);
+            } else {
+                tr.mutate(MutationType.ADD, documentFrequencyKey, FDBRecordStore.LITTLE_ENDIAN_INT64_ONE);
+                // The maximum is not lowered when documents are removed, so it is only an upper bound,
+                // which is all that pruning needs.
+                tr.mutate(MutationType.MAX, groupSubspace.pack(Tuple.from(MAX_TERM_FREQUENCY_KEY, tokenEntry.getKey())),
+                        AtomicMutation.Standard.encodeUnsignedLong(termFrequency(tokenEntry.getValue())));
+            }
+        }
+        final byte[] documentLengthKey = groupSubspace.subspace(Tuple.from(DOCUMENT_LENGTH_KEY)).pack(groupedKey);
+        if (remove) {
+            tr.clear(documentLengthKey);
+        } else {
+            tr.set(documentLengthKey, Tuple.from(length).pack());
+        }
+    }
+
+    /**
+     * Remove the statistics of all the groups with the given prefix.
+     * @param prefix a prefix of the grouping key
+     */
+    void deleteWhere(@Nonnull Tuple prefix) {
+        state.context.clear(statisticsSubspace.range(prefix));
+    }
+
+    /**
+     * Find the highest scoring documents in a group.
+     * @param tr the transaction to read the statistics with
+     * @param groupingKey the group to search
+     * @param tokens the query tokens
+     * @param k the number of documents to return
+     * @param postings a function from a token to a cursor over its postings in the group, in order
+     * @param lookup a function from a token and a grouped key to the token's posting in that document, if any
+     * @return a future that completes to index entries for the highest scoring documents, highest score first,
+     * with a {@code null} in place of the text and the score as the value
+     */
+    @Nonnull
+    CompletableFuture<List<IndexEntry>> scoreTopK(@Nonnull ReadTransaction tr, @Nonnull Tuple groupingKey,
+                                                  @Nonnull List<String> tokens, int k,
+                                                  @Nonnull Function<String, RecordCursor<IndexEntry>> postings,
+                                                  @Nonnull BiFunction<String, Tuple, CompletableFuture<Optional<List<Integer>>>> lookup) {
+        final Subspace groupSubspace = statisticsSubspace.subspace(groupingKey);
+        final List<String> distinctTokens = new ArrayList<>(new LinkedHashSet<>(tokens));
+        final CompletableFuture<byte[]> documentCountFuture = tr.get(groupSubspace.pack(Tuple.from(DOCUMENT_COUNT_KEY)));
+        final CompletableFuture<byte[]> totalLengthFuture = tr.get(groupSubspace.pack(Tuple.from(TOTAL_LENGTH_KEY)));
+        final List<CompletableFuture<TokenScorer>> tokenFutures = new ArrayList<>(distinctTokens.size());
+        for (String token : distinctTokens) {
+            final CompletableFuture<byte[]> documentFrequencyFuture = tr.get(groupSubspace.pack(Tuple.from(DOCUMENT_FREQUENCY_KEY, token)));
+            final CompletableFuture<byte[]> maxTermFrequencyFuture = tr.get(groupSubspace.pack(Tuple.from(MAX_TERM_FREQUENCY_KEY, token)));
+            tokenFutures.add(documentFrequencyFuture.thenCombine(maxTermFrequencyFuture, (documentFrequency, maxTermFrequency) ->
+                    new TokenScorer(token, decodeCount(documentFrequency), decodeCount(maxTermFrequency))));
+        }
+        return documentCountFuture.thenCombine(totalLengthFuture, (documentCount, totalLength) -> new long[] {decodeCount(documentCount), decodeCount(totalLength)})
+                .thenCompose(counts -> AsyncUtil.getAll(tokenFutures).thenCompose(tokenScorers -> {
+                    if (counts[0] <= 0 || k <= 0) {
+                        return CompletableFuture.completedFuture(Collections.emptyList());
+                    }
+                    final List<TokenScorer> presentTokens = new ArrayList<>(tokenScorers.size());
+                    for (TokenScorer tokenScorer : tokenScorers) {
+                        if (tokenScorer.documentFrequency > 0) {
+                            tokenScorer.prepare(counts[0], postings);
+                            presentTokens.add(tokenScorer);
+                        }
+                    }
+                    if (presentTokens.isEmpty()) {
+                        return CompletableFuture.completedFuture(Collections.emptyList());
+                    }
+                    final double averageLength = Math.max(1.0, (double)counts[1] / counts[0]);
+                    final Search search = new Search(tr, groupSubspace, presentTokens, k, averageLength, lookup);
+                    return AsyncUtil.whileTrue(search::step, state.context.getExecutor())
+                            .whenComplete((vignore, err) -> search.close())
+                            .thenApply(vignore -> search.getResults(groupingKey));
+                }));
+    }
+
+    private int termFrequency(@Nonnull List<?> positions) {
+        return omitPositionLists || positions.isEmpty() ? 1 : positions.size();
+    }
+
+    private static long decodeCount(@Nullable byte[] value) {
+        return value == null ? 0L : AtomicMutation.Standard.decodeUnsignedLong(value);
+    }
+
+    /**
+     * The scoring state of one query token.
+     */
+    private static class TokenScorer {
+        @Nonnull
+        private final String token;
+        private final long documentFrequency;
+        private final long maxTermFrequency;
+        private double idf;
+        private double upperBound;
+        @Nullable
+        private RecordCursor<IndexEntry> cursor;
+        @Nullable
+        private IndexEntry current;
+        private boolean exhausted;
+
+        TokenScorer(@Nonnull String token, long documentFrequency, long maxTermFrequency) {
+            this.token = token;
+            this.documentFrequency = documentFrequency;
+            this.maxTermFrequency = maxTermFrequency;
+        }
+
+        void prepare(long documentCount, @Nonnull Function<String, RecordCursor<IndexEntry>> postings) {
+            idf = Math.log(1.0 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            // The score increases with the term frequency and decreases with the document length, so the bound is for
+            // the largest term frequency in a document of length zero.
+            upperBound = score(Math.max(1L, maxTermFrequency), 0.0);
+            cursor = postings.apply(token);
+        }
+
+        double score(long termFrequency, double lengthNorm) {
+            return idf * termFrequency * (K1 + 1) / (termFrequency + K1 * (1 - B + B * lengthNorm));
+        }
+    }
+
+    /**
+     * A document in the top results.
+     */
+    private static class ScoredDocument {
+        @Nonnull
+        private final Tuple groupedKey;
+        private final double score;
+
+        ScoredDocument(@Nonnull Tuple groupedKey, double score) {
+            this.groupedKey = groupedKey;
+            this.score = score;
+        }
+    }
+
+    // Worst first: lowest score, and for the same score, the later document, since documents are found in order.
+    private static final Comparator<ScoredDocument> WORST_FIRST = Comparator.<ScoredDocument>comparingDouble(doc -> doc.score)
+            .thenComparing(doc -> doc.groupedKey, Comparator.reverseOrder());
+
+    /**
+     * The state of a document-at-a-time search over the postings of the query tokens.
+     */
+    private class Search {
+        @Nonnull
+        private final ReadTransaction tr;
+        @Nonnull
+        private final Subspace groupSubspace;
+        // In increasing order of upper bound.
+        @Nonnull
+        private final List<TokenScorer> tokenScorers;
+        // The sum of the upper bounds of the tokens up to and including each one.
+        @Nonnull
+        private final double[] boundSums;
+        private final int k;
+        private final double averageLength;
+        @Nonnull
+        private final BiFunction<String, Tuple, CompletableFuture<Optional<List<Integer>>>> lookup;
+        @Nonnull
+        private final PriorityQueue<ScoredDocument> top;
+        // Tokens before this one are not essential: their postings are looked up rather than read.
+        private int firstEssential;
+
+        Search(@Nonnull ReadTransaction tr, @Nonnull Subspace groupSubspace, @Nonnull List<TokenScorer> tokenScorers,
+               int k, double averageLength,
+               @Nonnull BiFunction<String, Tuple, CompletableFuture<Optional<List<Integer>>>> lookup) {
+            this.tr = tr;
+            this.groupSubspace = groupSubspace;
+            this.tokenScorers = new ArrayList<>(tokenScorers);
+            this.tokenScorers.sort(Comparator.comparingDouble(tokenScorer -> tokenScorer.upperBound));
+            this.boundSums = new double[tokenScorers.size()];
+            double sum = 0.0;
+            for (int i = 0; i < boundSums.length; i++) {
+                sum += this.tokenScorers.get(i).upperBound;
+                boundSums[i] = sum;
+            }
+            this.k = k;
+            this.averageLength = averageLength;
+            this.lookup = lookup;
+            this.top = new PriorityQueue<>(k + 1, WORST_FIRST);
+        }
+
+        private boolean isFull() {
+            return top.size() >= k;
+        }
+
+        // Any document scoring at most this cannot make the top results.
+        private double threshold() {
+            return isFull() ? top.peek().score : Double.NEGATIVE_INFINITY;
+        }
+
+        private double boundSumBefore(int index) {
+            return index == 0 ? 0.0 : boundSums[index - 1];
+        }
+
+        @Nonnull
+        CompletableFuture<Boolean> step() {
+            if (boundSums[boundSums.length - 1] <= threshold()) {
+                // No further document can make the top results.
+                return AsyncUtil.READY_FALSE;
+            }
+            final List<CompletableFuture<Void>> advances = new ArrayList<>();
+            for (int i = firstEssential; i < tokenScorers.size(); i++) {
+                final TokenScorer tokenScorer = tokenScorers.get(i);
+                if (tokenScorer.current == null && !tokenScorer.exhausted) {
+                    advances.add(tokenScorer.cursor.onNext().thenAccept(result -> advance(tokenScorer, result)));
+                }
+            }
+            return AsyncUtil.whenAll(advances).thenCompose(vignore -> {
+                Tuple candidate = null;
+                for (int i = firstEssential; i < tokenScorers.size(); i++) {
+                    final IndexEntry current = tokenScorers.get(i).current;
+                    if (current != null) {
+                        final Tuple groupedKey = groupedKey(current);
+                        if (candidate == null || groupedKey.compareTo(candidate) < 0) {
+                            candidate = groupedKey;
+                        }
+                    }
+                }
+                if (candidate == null) {
+                    return AsyncUtil.READY_FALSE;
+                }
+                return scoreCandidate(candidate).thenApply(vignore2 -> true);
+            });
+        }
+
+        private void advance(@Nonnull TokenScorer tokenScorer, @Nonnull RecordCursorResult<IndexEntry> result) {
+            if (result.hasNext()) {
+                tokenScorer.current = result.get();
+            } else {
+                tokenScorer.exhausted = true;
+            }
+        }
+
+        @Nonnull
+        private Tuple groupedKey(@Nonnull IndexEntry indexEntry) {
+            final Tuple key = indexEntry.getKey();
+            final int textPosition = TextIndexMaintainer.textFieldPosition(state.index.getRootExpression());
+            return TupleHelpers.subTuple(key, textPosition + 1, key.size());
+        }
+
+        @Nonnull
+        private CompletableFuture<Void> scoreCandidate(@Nonnull Tuple candidate) {
+            // Collect the term frequencies from the essential tokens positioned at the candidate, consuming those entries.
+            final long[] termFrequencies = new long[tokenScorers.size()];
+            double bound = boundSumBefore(firstEssential);
+            for (int i = firstEssential; i < tokenScorers.size(); i++) {
+                final TokenScorer tokenScorer = tokenScorers.get(i);
+                if (tokenScorer.current != null && groupedKey(tokenScorer.current).equals(candidate)) {
+                    termFrequencies[i] = termFrequency(tokenScorer.current.getValue().getNestedList(0));
+                    bound += tokenScorer.score(termFrequencies[i], 0.0);
+                    tokenScorer.current = null;
+                }
+            }
+            final double threshold = threshold();
+            if (bound <= threshold) {
+                increment(FDBStoreTimer.Counts.TEXT_SCORE_DOCUMENTS_PRUNED);
+                return AsyncUtil.DONE;
+            }
+            final byte[] documentLengthKey = groupSubspace.subspace(Tuple.from(DOCUMENT_LENGTH_KEY)).pack(candidate);
+            return tr.get(documentLengthKey).thenCompose(documentLength -> {
+                final double lengthNorm = documentLength == null ? 1.0 : Tuple.fromBytes(documentLength).getLong(0) / averageLength;
+                double score = 0.0;
+                for (int i = firstEssential; i < tokenScorers.size(); i++) {
+                    if (termFrequencies[i] > 0) {
+                        score += tokenScorers.get(i).score(termFrequencies[i], lengthNorm);
+                    }
+                }
+                return addNonEssential(candidate, score, lengthNorm, firstEssential - 1);
+            });
+        }
+
+        // Add the scores of the non-essential tokens, from the largest bound down, while the document can still make it.
+        @Nonnull
+        private CompletableFuture<Void> addNonEssential(@Nonnull Tuple candidate, double score, double lengthNorm, int index) {
+            if (index < 0 || score + boundSums[index] <= threshold()) {
+                if (index >= 0) {
+                    increment(FDBStoreTimer.Counts.TEXT_SCORE_DOCUMENTS_PRUNED);
+                } else {
+                    offer(candidate, score);
+                }
+                return AsyncUtil.DONE;
+            }
+            final TokenScorer tokenScorer = tokenScorers.get(index);
+            return lookup.apply(tokenScorer.token, candidate).thenCompose(positions -> {
+                final double newScore = positions.map(list -> score + tokenScorer.score(termFrequency(list), lengthNorm)).orElse(score);
+                return addNonEssential(candidate, newScore, lengthNorm, index - 1);
+            });
+        }
+
+        private void offer(@Nonnull Tuple candidate, double score) {
+            increment(FDBStoreTimer.Counts.TEXT_SCORE_DOCUMENTS_SCORED);
+            if (isFull() && score <= threshold()) {
+                return;
+            }
+            top.add(new ScoredDocument(candidate, score));
+            if (top.size() > k) {
+                top.poll();
+            }
+            if (isFull()) {
+                // Stop reading the postings of tokens that can no longer get a document into the top results on their own.
+                final double threshold = threshold();
+                while (firstEssential < tokenScorers.size() - 1 && boundSums[firstEssential] <= threshold) {
+                    tokenScorers.get(firstEssential).cursor.close();
+                    tokenScorers.get(firstEssential).current = null;
+                    firstEssential++;
+                }
+            }
+        }
+
+        private void increment(@Nonnull FDBStoreTimer.Counts count) {
+            if (state.store.getTimer() != null) {
+                state.store.getTimer().increment(count);
+            }
+        }
+
+        @Nonnull
+        List<IndexEntry> getResults(@Nonnull Tuple groupingKey) {
+            final List<ScoredDocument> documents = new ArrayList<>(top);
+            documents.sort(WORST_FIRST.reversed());
+            final List<IndexEntry> entries = new ArrayList<>(documents.size());
+            for (ScoredDocument document : documents) {
+                final Tuple key = groupingKey.addObject(null).addAll(document.groupedKey);
+                entries.add(new IndexEntry(state.index, key, Tuple.from(document.score)));
+            }
+            return entries;
+        }
+
+        void close() {
+            for (TokenScorer tokenScorer : tokenScorers) {
+                if (tokenScorer.cursor != null) {
+                    tokenScorer.cursor.close();
+                }
+            }
+        }
+    }
+}
@@ -32,18 +32,24 @@ import com.apple.foundationdb.record.ScanProperties;
 import com.apple.foundationdb.record.TupleRange;
 import com.apple.foundationdb.record.cursors.ConcatCursor;
 import com.apple.foundationdb.record.metadata.IndexAggregateFunction;
+import com.apple.foundationdb.record.metadata.IndexOptions;
 import com.apple.foundationdb.record.metadata.MetaDataException;
 import com.apple.foundationdb.record.metadata.expressions.GroupingKeyExpression;
 import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
+import com.apple.foundationdb.record.provider.foundationdb.FDBIndexableRecord;
 import com.apple.foundationdb.record.provider.foundationdb.FDBIndexedRawRecord;
 import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainerState;
 import com.apple.foundationdb.record.provider.foundationdb.IndexScanBounds;
 import com.apple.foundationdb.record.provider.foundationdb.IndexScrubbingTools;
+import com.apple.foundationdb.record.provider.foundationdb.indexing.IndexScrubbingChangeLog;
+import com.apple.foundationdb.record.provider.foundationdb.indexing.IndexingBulkLoadState;
 import com.apple.foundationdb.tuple.Tuple;
 import com.apple.foundationdb.tuple.TupleHelpers;
+import com.google.protobuf.Message;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -69,6 +75,46 @@ public class ValueIndexMaintainer extends StandardIndexMaintainer {
         return scan(range, continuation, scanProperties);
     }
 
+    @Override
+    @Nonnull
+    public <M extends Message> CompletableFuture<Void> updateWhileWriteOnly(@Nullable final FDBIndexableRecord<M> oldRecord,
+                                                                            @Nullable final FDBIndexableRecord<M> newRecord) {
+        // A bulk load writes the entries it extracted after the fact, so it must know which records changed since.
+        // Whether one is in progress comes from the store header, which is already loaded.
+        final IndexingBulkLoadState bulkLoadState = IndexingBulkLoadState.forIndexBuild(state.store, state.index);
+        if (bulkLoadState.isActive()) {
+            if (oldRecord != null) {
+                bulkLoadState.markDirty(oldRecord.getPrimaryKey());
+            }
+            if (newRecord != null) {
+                bulkLoadState.markDirty(newRecord.getPrimaryKey());
+            }
+        }
+        return super.updateWhileWriteOnly(oldRecord, newRecord);
+    }
+
+    @Override
+    protected <M extends Message> CompletableFuture<Void> updateIndexKeys(@Nonnull final FDBIndexableRecord<M> savedRecord,
+                                                                          final boolean remove,
+                                                                          @Nonnull final List<IndexEntry> indexEntries) {
+        if (state.index.getBooleanOption(IndexOptions.INCREMENTAL_SCRUB_OPTION, false)
+                && state.store.getIndexState(state.index).isScannable()) {
+            // An incremental scrubbing only re-verifies the entries that were written, which could later be left dangling,
+            // and the records they were written for, whose entries could be missing.
+            // Removed entries are not logged, as they are gone by the end of this transaction.
+            if (!remove) {
+                final IndexScrubbingChangeLog changeLog = IndexScrubbingChangeLog.forIndex(state.store, state.index);
+                for (IndexEntry indexEntry : indexEntries) {
+                    changeLog.log(IndexScrubbingTools.ScrubbingType.DANGLING, indexEntryKey(indexEntry.getKey(), savedRecord.getPrimaryKey()));
+                }
+                if (!savedRecord.getRecordType().isSynthetic()) {
+                    changeLog.log(IndexScrubbingTools.ScrubbingType.MISSING, savedRecord.getPrimaryKey());
+                }
+            }
+        }
+        return super.updateIndexKeys(savedRecord, remove, indexEntries);
+    }
+
     /**
      * Validate entries in the index. It scans the index and checks if the record associated with each index entry exists.
      * @param continuation any continuation from a previous validation invocation
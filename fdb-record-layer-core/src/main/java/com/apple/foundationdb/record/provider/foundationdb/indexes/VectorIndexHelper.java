@@ -0,0 +1,96 @@
+/*
+ * VectorIndexHelper.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.indexes;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.hnsw.HNSW;
+import com.apple.foundationdb.async.hnsw.Metric;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.metadata.IndexOptions;
+import com.apple.foundationdb.record.provider.common.StoreTimer;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Helper functions for index maintainers that use a {@link HNSW}.
+ */
+@API(API.Status.EXPERIMENTAL)
+public class VectorIndexHelper {
+    private VectorIndexHelper() {
+    }
+
+    /**
+     * Parse standard options into {@link HNSW.Config}.
+     * @param index the index definition to get options from
+     * @return parsed config options
+     */
+    public static HNSW.Config getConfig(@Nonnull final Index index) {
+        final HNSW.ConfigBuilder builder = HNSW.newConfigBuilder();
+        final String hnswMOption = index.getOption(IndexOptions.HNSW_M);
+        if (hnswMOption != null) {
+            builder.setM(Integer.parseInt(hnswMOption));
+        }
+        final String hnswEfConstructionOption = index.getOption(IndexOptions.HNSW_EF_CONSTRUCTION);
+        if (hnswEfConstructionOption != null) {
+            builder.setEfConstruction(Integer.parseInt(hnswEfConstructionOption));
+        }
+        final String hnswMetricOption = index.getOption(IndexOptions.HNSW_METRIC);
+        if (hnswMetricOption != null) {
+            builder.setMetric(Metric.valueOf(hnswMetricOption));
+        }
+        final String hnswStorageOption = index.getOption(IndexOptions.HNSW_STORAGE);
+        if (hnswStorageOption != null) {
+            builder.setStorage(HNSW.Storage.valueOf(hnswStorageOption));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Instrumentation events specific to vector index maintenance.
+     */
+    public enum Events implements StoreTimer.DetailEvent {
+        VECTOR_SCAN("searching the HNSW graph of a vector index"),
+        VECTOR_MODIFICATION("modifying the HNSW graph of a vector index");
+
+        private final String title;
+        private final String logKey;
+
+        Events(String title, String logKey) {
+            this.title = title;
+            this.logKey = (logKey != null) ? logKey : StoreTimer.DetailEvent.super.logKey();
+        }
+
+        Events(String title) {
+            this(title, null);
+        }
+
+        @Override
+        public String title() {
+            return title;
+        }
+
+        @Override
+        @Nonnull
+        public String logKey() {
+            return this.logKey;
+        }
+    }
+}
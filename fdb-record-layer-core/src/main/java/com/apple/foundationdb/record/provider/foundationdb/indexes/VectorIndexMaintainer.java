@@ -0,0 +1,230 @@
+/*
+ * VectorIndexMaintainer.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.indexes;
+
+import com.apple.foundationdb.ReadTransaction;
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.async.hnsw.HNSW;
+import com.apple.foundationdb.async.hnsw.NodeReferenceWithDistance;
+import com.apple.foundationdb.async.hnsw.OnReadListener;
+import com.apple.foundationdb.record.EndpointType;
+import com.apple.foundationdb.record.ExecuteProperties;
+import com.apple.foundationdb.record.IndexEntry;
+import com.apple.foundationdb.record.IndexScanType;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.ScanProperties;
+import com.apple.foundationdb.record.TupleRange;
+import com.apple.foundationdb.record.cursors.LazyCursor;
+import com.apple.foundationdb.record.locking.LockIdentifier;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.record.metadata.expressions.GroupingKeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
+import com.apple.foundationdb.record.provider.foundationdb.FDBIndexableRecord;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
+import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainerState;
+import com.apple.foundationdb.record.provider.foundationdb.IndexScanBounds;
+import com.apple.foundationdb.record.provider.foundationdb.VectorIndexScanRange;
+import com.apple.foundationdb.subspace.Subspace;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.foundationdb.tuple.TupleHelpers;
+import com.google.common.collect.Lists;
+import com.google.protobuf.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * An index maintainer for keeping a {@link HNSW} graph of vectors for approximate nearest neighbor searches.
+ * <br>
+ * The indexed vector is a single column holding a list of numbers. If the index is grouped, each group has its own
+ * graph, stored in the index subspace under the group's key, and a search must select a single group. Each record
+ * can have at most one vector in each group.
+ * <br>
+ * The index is scanned {@link IndexScanType#BY_DISTANCE} using {@link VectorIndexScanRange} bounds. A scan returns
+ * the approximate {@code k} nearest entries, ordered by increasing distance from the query vector, with the distance
+ * as the value of each entry. Since the search result is computed all at once, the continuation is a position in that
+ * result, and resuming in a later transaction is only exact if the graph has not changed in the meantime.
+ */
+@API(API.Status.EXPERIMENTAL)
+public class VectorIndexMaintainer extends StandardIndexMaintainer {
+    @Nonnull
+    private final HNSW.Config config;
+
+    public VectorIndexMaintainer(IndexMaintainerState state) {
+        super(state);
+        this.config = VectorIndexHelper.getConfig(state.index);
+    }
+
+    @Nonnull
+    @Override
+    public RecordCursor<IndexEntry> scan(@Nonnull final IndexScanBounds scanBounds, @Nullable final byte[] continuation,
+                                         @Nonnull final ScanProperties scanProperties) {
+        if (!scanBounds.getScanType().equals(IndexScanType.BY_DISTANCE)) {
+            throw new RecordCoreException("Can only scan vector index by distance.");
+        }
+        if (!(scanBounds instanceof VectorIndexScanRange)) {
+            throw new RecordCoreException("Need proper vector index scan bounds.");
+        }
+        final VectorIndexScanRange vectorScanRange = (VectorIndexScanRange)scanBounds;
+        final Tuple groupKey = getGroupKey(vectorScanRange.getScanRange());
+        final Subspace hnswSubspace = getIndexSubspace().subspace(groupKey);
+        final HNSW hnsw = new HNSW(hnswSubspace, getExecutor(), config, getOnReadListener());
+
+        final ExecuteProperties executeProperties = scanProperties.getExecuteProperties();
+        final ReadTransaction transaction = state.context.readTransaction(executeProperties.getIsolationLevel().isSnapshot());
+        final CompletableFuture<List<IndexEntry>> entriesFuture = state.context.doWithReadLock(new LockIdentifier(hnswSubspace),
+                () -> hnsw.kNearestNeighborsSearch(transaction, vectorScanRange.getK(), vectorScanRange.getEfSearch(),
+                        vectorScanRange.getQueryVector()))
+                .thenApply(neighbors -> neighbors.stream()
+                        .map(neighbor -> toIndexEntry(groupKey, neighbor))
+                        .collect(Collectors.toList()));
+        return new LazyCursor<>(state.context.instrument(VectorIndexHelper.Events.VECTOR_SCAN, entriesFuture)
+                .thenApply(entries -> RecordCursor.fromList(getExecutor(), entries, continuation)), getExecutor())
+                .skipThenLimit(executeProperties.getSkip(), executeProperties.getReturnedRowLimit());
+    }
+
+    @Nonnull
+    @Override
+    public RecordCursor<IndexEntry> scan(@Nonnull final IndexScanType scanType, @Nonnull final TupleRange range,
+                                         @Nullable final byte[] continuation, @Nonnull final ScanProperties scanProperties) {
+        throw new RecordCoreException("index maintainer does not support this scan api");
+    }
+
+    @Nonnull
+    private IndexEntry toIndexEntry(@Nonnull final Tuple groupKey, @Nonnull final NodeReferenceWithDistance neighbor) {
+        final List<Object> keyItems = Lists.newArrayList(groupKey.getItems());
+        final List<Object> vectorItems = Lists.newArrayListWithCapacity(neighbor.getVector().length);
+        for (double component : neighbor.getVector()) {
+            vectorItems.add(component);
+        }
+        keyItems.add(vectorItems);
+        keyItems.addAll(neighbor.getPrimaryKey().getItems());
+        return new IndexEntry(state.index, Tuple.fromList(keyItems), Tuple.from(neighbor.getDistance()));
+    }
+
+    @Nonnull
+    private Tuple getGroupKey(@Nonnull final TupleRange range) {
+        final int groupingCount = getGroupingCount(state.index.getRootExpression());
+        if (groupingCount == 0 && range.getLow() == null && range.getHigh() == null) {
+            return TupleHelpers.EMPTY;
+        }
+        if (range.getLowEndpoint() != EndpointType.RANGE_INCLUSIVE || range.getHighEndpoint() != EndpointType.RANGE_INCLUSIVE ||
+                !Objects.equals(range.getLow(), range.getHigh()) || Objects.requireNonNull(range.getLow()).size() != groupingCount) {
+            throw new RecordCoreArgumentException("vector index scan must select a single group")
+                    .addLogInfo(LogMessageKeys.INDEX_NAME, state.index.getName())
+                    .addLogInfo(LogMessageKeys.RANGE, range);
+        }
+        return range.getLow();
+    }
+
+    @Override
+    protected <M extends Message> CompletableFuture<Void> updateIndexKeys(@Nonnull final FDBIndexableRecord<M> savedRecord,
+                                                                          final boolean remove,
+                                                                          @Nonnull final List<IndexEntry> indexEntries) {
+        final int groupingCount = getGroupingCount(state.index.getRootExpression());
+        final List<Object> primaryKeyParts = Lists.newArrayList(savedRecord.getPrimaryKey().getItems());
+        state.index.trimPrimaryKey(primaryKeyParts);
+        final Tuple primaryKey = Tuple.fromList(primaryKeyParts);
+        final var futures = indexEntries.stream().map(indexEntry -> {
+            final List<Object> indexKeyItems = indexEntry.getKey().getItems();
+            final Tuple groupKey = Tuple.fromList(indexKeyItems.subList(0, groupingCount));
+            final double[] vector = toVector(indexKeyItems.get(groupingCount));
+            if (vector == null) {
+                return AsyncUtil.DONE;
+            }
+            final Subspace hnswSubspace = getIndexSubspace().subspace(groupKey);
+            return state.context.doWithWriteLock(new LockIdentifier(hnswSubspace), () -> {
+                final HNSW hnsw = new HNSW(hnswSubspace, getExecutor(), config, getOnReadListener());
+                final CompletableFuture<Void> future;
+                if (remove) {
+                    future = hnsw.delete(state.transaction, primaryKey);
+                } else {
+                    future = hnsw.insertOrUpdate(state.transaction, primaryKey, vector);
+                }
+                return state.context.instrument(VectorIndexHelper.Events.VECTOR_MODIFICATION, future);
+            });
+        }).collect(Collectors.toList());
+        return AsyncUtil.whenAll(futures);
+    }
+
+    @Nullable
+    private double[] toVector(@Nullable final Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof List)) {
+            throw new RecordCoreException("vector index column must be a list of numbers")
+                    .addLogInfo(LogMessageKeys.INDEX_NAME, state.index.getName());
+        }
+        final List<?> components = (List<?>)value;
+        if (components.isEmpty()) {
+            return null;
+        }
+        final double[] vector = new double[components.size()];
+        for (int i = 0; i < vector.length; i++) {
+            final Object component = components.get(i);
+            if (!(component instanceof Number)) {
+                throw new RecordCoreException("vector index column must be a list of numbers")
+                        .addLogInfo(LogMessageKeys.INDEX_NAME, state.index.getName());
+            }
+            vector[i] = ((Number)component).doubleValue();
+        }
+        return vector;
+    }
+
+    private static int getGroupingCount(@Nonnull final KeyExpression root) {
+        return root instanceof GroupingKeyExpression ? ((GroupingKeyExpression)root).getGroupingCount() : 0;
+    }
+
+    @Nonnull
+    private OnReadListener getOnReadListener() {
+        final FDBStoreTimer timer = getTimer();
+        return timer == null ? OnReadListener.NOOP : new OnRead(timer);
+    }
+
+    static class OnRead implements OnReadListener {
+        @Nonnull
+        private final FDBStoreTimer timer;
+
+        public OnRead(@Nonnull final FDBStoreTimer timer) {
+            this.timer = timer;
+        }
+
+        @Override
+        public void onNodeRead(final int layer, @Nonnull final byte[] key, @Nonnull final byte[] value) {
+            timer.increment(FDBStoreTimer.Counts.VECTOR_NODE_READS);
+            timer.increment(FDBStoreTimer.Counts.VECTOR_NODE_READ_BYTES, key.length + value.length);
+        }
+
+        @Override
+        public void onExactVectorRead(@Nonnull final byte[] key, @Nonnull final byte[] value) {
+            timer.increment(FDBStoreTimer.Counts.VECTOR_EXACT_VECTOR_READS);
+            timer.increment(FDBStoreTimer.Counts.VECTOR_EXACT_VECTOR_READ_BYTES, key.length + value.length);
+        }
+    }
+}
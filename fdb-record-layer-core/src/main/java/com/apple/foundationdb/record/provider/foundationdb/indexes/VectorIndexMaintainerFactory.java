@@ -0,0 +1,141 @@
+/*
+ * VectorIndexMaintainerFactory.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.indexes;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.hnsw.HNSW;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.metadata.IndexOptions;
+import com.apple.foundationdb.record.metadata.IndexTypes;
+import com.apple.foundationdb.record.metadata.IndexValidator;
+import com.apple.foundationdb.record.metadata.MetaDataException;
+import com.apple.foundationdb.record.metadata.MetaDataValidator;
+import com.apple.foundationdb.record.metadata.expressions.GroupingKeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
+import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainer;
+import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainerFactory;
+import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainerState;
+import com.google.auto.service.AutoService;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * A factory for {@link VectorIndexMaintainer} indexes.
+ */
+@AutoService(IndexMaintainerFactory.class)
+@API(API.Status.EXPERIMENTAL)
+public class VectorIndexMaintainerFactory implements IndexMaintainerFactory {
+    static final String[] TYPES = { IndexTypes.VECTOR };
+
+    @Override
+    @Nonnull
+    public Iterable<String> getIndexTypes() {
+        return Arrays.asList(TYPES);
+    }
+
+    @Override
+    @Nonnull
+    public IndexValidator getIndexValidator(Index index) {
+        return new IndexValidator(index) {
+            @Override
+            public void validate(@Nonnull MetaDataValidator metaDataValidator) {
+                super.validate(metaDataValidator);
+                validateNotVersion();
+                validateNotUnique();
+                validateStructure();
+                validateStorage();
+            }
+
+            private void validateStorage() {
+                // A product quantization codebook has to be trained on the data before anything is inserted,
+                // which index maintenance cannot do.
+                if (VectorIndexHelper.getConfig(index).getStorage() == HNSW.Storage.PRODUCT_QUANTIZED) {
+                    throw new MetaDataException("vector index does not support product quantized storage",
+                            LogMessageKeys.INDEX_NAME, index.getName());
+                }
+            }
+
+            /**
+             * Validate the structure of the {@link KeyExpression} associated with a vector index. The vector is a
+             * single column holding a list of numbers, such as a repeated field with concatenate fan type. If the
+             * index is grouped, that column is the one grouped column, and each group has its own graph.
+             */
+            private void validateStructure() {
+                final KeyExpression key = index.getRootExpression();
+                final int vectorColumns;
+                if (key instanceof GroupingKeyExpression) {
+                    vectorColumns = ((GroupingKeyExpression)key).getGroupedCount();
+                } else {
+                    vectorColumns = key.getColumnSize();
+                }
+                if (vectorColumns != 1) {
+                    throw new KeyExpression.InvalidExpressionException(
+                            "vector index requires exactly one vector column",
+                            LogMessageKeys.INDEX_TYPE, index.getType(),
+                            LogMessageKeys.INDEX_NAME, index.getName(),
+                            LogMessageKeys.INDEX_KEY, key);
+                }
+            }
+
+            @Override
+            public void validateChangedOptions(@Nonnull Index oldIndex, @Nonnull Set<String> changedOptions) {
+                if (!changedOptions.isEmpty()) {
+                    // Allow changing from unspecified to the default (or vice versa), but not otherwise.
+                    final HNSW.Config oldOptions = VectorIndexHelper.getConfig(oldIndex);
+                    final HNSW.Config newOptions = VectorIndexHelper.getConfig(index);
+                    if (changedOptions.contains(IndexOptions.HNSW_M)) {
+                        if (oldOptions.getM() != newOptions.getM()) {
+                            throw new MetaDataException("hnsw M changed",
+                                    LogMessageKeys.INDEX_NAME, index.getName());
+                        }
+                        changedOptions.remove(IndexOptions.HNSW_M);
+                    }
+                    if (changedOptions.contains(IndexOptions.HNSW_METRIC)) {
+                        if (oldOptions.getMetric() != newOptions.getMetric()) {
+                            throw new MetaDataException("hnsw metric changed",
+                                    LogMessageKeys.INDEX_NAME, index.getName());
+                        }
+                        changedOptions.remove(IndexOptions.HNSW_METRIC);
+                    }
+                    if (changedOptions.contains(IndexOptions.HNSW_STORAGE)) {
+                        if (oldOptions.getStorage() != newOptions.getStorage()) {
+                            throw new MetaDataException("hnsw storage changed",
+                                    LogMessageKeys.INDEX_NAME, index.getName());
+                        }
+                        changedOptions.remove(IndexOptions.HNSW_STORAGE);
+                    }
+                    // The candidate list size only affects the quality of future inserts.
+                    changedOptions.remove(IndexOptions.HNSW_EF_CONSTRUCTION);
+                }
+                super.validateChangedOptions(oldIndex, changedOptions);
+            }
+        };
+    }
+
+    @Override
+    @Nonnull
+    public IndexMaintainer getIndexMaintainer(@Nonnull final IndexMaintainerState state) {
+        return new VectorIndexMaintainer(state);
+    }
+}
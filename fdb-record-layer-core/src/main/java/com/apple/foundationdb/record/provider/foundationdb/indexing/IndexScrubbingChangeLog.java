@@ -0,0 +1,143 @@
+/*
+ * IndexScrubbingChangeLog.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.indexing;
+
+import com.apple.foundationdb.KeyValue;
+import com.apple.foundationdb.MutationType;
+import com.apple.foundationdb.Range;
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordContext;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStoreBase;
+import com.apple.foundationdb.record.provider.foundationdb.IndexScrubbingTools;
+import com.apple.foundationdb.record.provider.foundationdb.IndexingSubspaces;
+import com.apple.foundationdb.subspace.Subspace;
+import com.apple.foundationdb.tuple.ByteArrayUtil;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.foundationdb.tuple.Versionstamp;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The changes made to an index since it was last scrubbed, for incremental scrubbing. For each
+ * {@link IndexScrubbingTools.ScrubbingType}, the log holds the keys that the matching scrubber should re-verify:
+ * the written index entries, which could later be left dangling by a record that is changed or deleted without
+ * them, and the primary keys of the records that index entries were written for, which could be missing.
+ *
+ * <p>
+ * The keys are logged under versionstamped keys, so that logging a change is a blind write that never conflicts.
+ * The log is consumed in commit order. Consuming it reads at snapshot isolation, and only clears up to the last
+ * key that was read. Any change committed after the read version has a greater versionstamp, so it is kept.
+ * </p>
+ */
+@API(API.Status.INTERNAL)
+public class IndexScrubbingChangeLog {
+    private static final long DANGLING_KEY = 0L;
+    private static final long MISSING_KEY = 1L;
+
+    @Nonnull
+    private final FDBRecordContext context;
+    @Nonnull
+    private final Subspace subspace;
+
+    private IndexScrubbingChangeLog(@Nonnull FDBRecordContext context, @Nonnull Subspace subspace) {
+        this.context = context;
+        this.subspace = subspace;
+    }
+
+    /**
+     * Log a key to be re-verified by the next incremental scrubbing.
+     * @param scrubbingType the scrubbing that should re-verify the key
+     * @param key an index entry key for {@link IndexScrubbingTools.ScrubbingType#DANGLING}, or a primary key for
+     * {@link IndexScrubbingTools.ScrubbingType#MISSING}
+     */
+    public void log(@Nonnull IndexScrubbingTools.ScrubbingType scrubbingType, @Nonnull Tuple key) {
+        final Tuple logKey = Tuple.from(Versionstamp.incomplete(context.claimLocalVersion()));
+        context.addVersionMutation(MutationType.SET_VERSIONSTAMPED_KEY,
+                typeSubspace(scrubbingType).packWithVersionstamp(logKey), key.pack());
+    }
+
+    /**
+     * Read the oldest logged keys.
+     * @param scrubbingType the scrubbing to read the keys of
+     * @param limit the maximum number of keys to read
+     * @return a future that completes to the oldest log entries, in commit order
+     * @see #getLoggedKey(KeyValue)
+     */
+    @Nonnull
+    public CompletableFuture<List<KeyValue>> readAsync(@Nonnull IndexScrubbingTools.ScrubbingType scrubbingType, int limit) {
+        return context.ensureActive().snapshot().getRange(typeSubspace(scrubbingType).range(), limit).asList();
+    }
+
+    /**
+     * Remove the log entries up to, and including, a log entry that was read.
+     * @param scrubbingType the scrubbing that consumed the keys
+     * @param lastEntry the last log entry that was consumed
+     */
+    public void clearThrough(@Nonnull IndexScrubbingTools.ScrubbingType scrubbingType, @Nonnull KeyValue lastEntry) {
+        final Range range = typeSubspace(scrubbingType).range();
+        context.ensureActive().clear(range.begin, ByteArrayUtil.join(lastEntry.getKey(), new byte[] {0x00}));
+    }
+
+    /**
+     * Remove all the log entries of a scrubbing, which is about to re-verify the whole range anyway.
+     * @param scrubbingType the scrubbing to remove the log entries of
+     */
+    public void clear(@Nonnull IndexScrubbingTools.ScrubbingType scrubbingType) {
+        context.ensureActive().clear(typeSubspace(scrubbingType).range());
+    }
+
+    @Nonnull
+    private Subspace typeSubspace(@Nonnull IndexScrubbingTools.ScrubbingType scrubbingType) {
+        switch (scrubbingType) {
+            case DANGLING:
+                return subspace.subspace(Tuple.from(DANGLING_KEY));
+            case MISSING:
+                return subspace.subspace(Tuple.from(MISSING_KEY));
+            default:
+                throw new RecordCoreArgumentException("Unpredicted scrubbing type " + scrubbingType);
+        }
+    }
+
+    /**
+     * Get the key that a log entry asks to re-verify.
+     * @param entry a log entry returned by {@link #readAsync}
+     * @return the logged index entry key or primary key
+     */
+    @Nonnull
+    public static Tuple getLoggedKey(@Nonnull KeyValue entry) {
+        return Tuple.fromBytes(entry.getValue());
+    }
+
+    /**
+     * Get the change log of an index.
+     * @param store the store containing the index
+     * @param index the index being scrubbed
+     * @return the change log, bound to the store's transaction
+     */
+    @Nonnull
+    public static IndexScrubbingChangeLog forIndex(@Nonnull FDBRecordStoreBase<?> store, @Nonnull Index index) {
+        return new IndexScrubbingChangeLog(store.getContext(), IndexingSubspaces.indexScrubChangeLogSubspace(store, index));
+    }
+}
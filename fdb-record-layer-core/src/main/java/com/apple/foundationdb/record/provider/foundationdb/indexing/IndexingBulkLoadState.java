@@ -0,0 +1,151 @@
+/*
+ * IndexingBulkLoadState.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.indexing;
+
+import com.apple.foundationdb.KeyValue;
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.TupleRange;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore;
+import com.apple.foundationdb.record.provider.foundationdb.IndexingSubspaces;
+import com.apple.foundationdb.subspace.Subspace;
+import com.apple.foundationdb.tuple.Tuple;
+
+import javax.annotation.Nonnull;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The state of an index that is being bulk loaded. A bulk load writes the entries of the records it scanned only
+ * after all of them were scanned and sorted, so the records that are saved or deleted in the meantime are marked as
+ * dirty, and the bulk load skips their entries. The index maintenance of those records already wrote their current
+ * entries.
+ *
+ * <p>
+ * Whether a bulk load is in progress is recorded in the store header (see
+ * {@link FDBRecordStore#isIndexBulkLoading(Index)}), so saving a record only costs a write when it is. Like
+ * {@link IndexingRangeSet}, this binds the state to a specific transaction. Marking a record as dirty is a blind write,
+ * so saving records does not conflict with anything. Checking whether records are dirty reads their keys, so a bulk
+ * load transaction that writes the entries of a record conflicts with any concurrent transaction that marks it dirty.
+ * </p>
+ */
+@API(API.Status.INTERNAL)
+public class IndexingBulkLoadState {
+    private static final long DIRTY_RECORDS_KEY = 1L;
+    private static final byte[] EMPTY_VALUE = new byte[0];
+
+    @Nonnull
+    private final FDBRecordStore store;
+    @Nonnull
+    private final Index index;
+    @Nonnull
+    private final Subspace subspace;
+
+    private IndexingBulkLoadState(@Nonnull FDBRecordStore store, @Nonnull Index index, @Nonnull Subspace subspace) {
+        this.store = store;
+        this.index = index;
+        this.subspace = subspace;
+    }
+
+    /**
+     * Mark the bulk load as in progress, so that records saved from now on are tracked.
+     * @return a future that completes when the bulk load is marked
+     */
+    @Nonnull
+    public CompletableFuture<Void> startAsync() {
+        return store.setIndexBulkLoadingAsync(index, true);
+    }
+
+    /**
+     * Get whether a bulk load is in progress. This does not read from the database.
+     * @return {@code true} if saved records need to be marked as dirty
+     */
+    public boolean isActive() {
+        return store.isIndexBulkLoading(index);
+    }
+
+    /**
+     * Mark a record as changed since the bulk load started.
+     * @param primaryKey the primary key of the saved or deleted record
+     */
+    public void markDirty(@Nonnull Tuple primaryKey) {
+        store.getContext().ensureActive().set(dirtyKey(primaryKey), EMPTY_VALUE);
+    }
+
+    /**
+     * Get whether a record has changed since the bulk load started.
+     * @param primaryKey the primary key of the record
+     * @return a future that completes to {@code true} if the bulk load must not write the record's entries
+     */
+    @Nonnull
+    public CompletableFuture<Boolean> isDirtyAsync(@Nonnull Tuple primaryKey) {
+        return store.getContext().ensureActive().get(dirtyKey(primaryKey)).thenApply(value -> value != null);
+    }
+
+    /**
+     * Get the records within a range of primary keys that have changed since the bulk load started. This reads the
+     * whole range, so it conflicts with a record anywhere in it being marked dirty.
+     * @param lowPrimaryKey the smallest primary key to check
+     * @param highPrimaryKey the largest primary key to check
+     * @return a future that completes to the primary keys within the range whose entries the bulk load must not write
+     */
+    @Nonnull
+    public CompletableFuture<Set<Tuple>> dirtyRecordsAsync(@Nonnull Tuple lowPrimaryKey, @Nonnull Tuple highPrimaryKey) {
+        final Subspace dirtySubspace = subspace.subspace(Tuple.from(DIRTY_RECORDS_KEY));
+        return store.getContext().ensureActive()
+                .getRange(TupleRange.betweenInclusive(lowPrimaryKey, highPrimaryKey).toRange(dirtySubspace))
+                .asList()
+                .thenApply(kvs -> {
+                    final Set<Tuple> dirty = new HashSet<>();
+                    for (KeyValue kv : kvs) {
+                        dirty.add(dirtySubspace.unpack(kv.getKey()));
+                    }
+                    return dirty;
+                });
+    }
+
+    /**
+     * End the bulk load, removing its state.
+     * @return a future that completes when the state is removed
+     */
+    @Nonnull
+    public CompletableFuture<Void> clearAsync() {
+        store.getContext().ensureActive().clear(subspace.range());
+        return store.setIndexBulkLoadingAsync(index, false);
+    }
+
+    @Nonnull
+    private byte[] dirtyKey(@Nonnull Tuple primaryKey) {
+        return subspace.pack(Tuple.from(DIRTY_RECORDS_KEY).addAll(primaryKey));
+    }
+
+    /**
+     * Get the bulk load state of an index build.
+     * @param store the store containing the index
+     * @param index the index being built
+     * @return the bulk load state, bound to the store's transaction
+     */
+    @Nonnull
+    public static IndexingBulkLoadState forIndexBuild(@Nonnull FDBRecordStore store, @Nonnull Index index) {
+        return new IndexingBulkLoadState(store, index, IndexingSubspaces.indexBuildBulkLoadSubspace(store, index));
+    }
+}
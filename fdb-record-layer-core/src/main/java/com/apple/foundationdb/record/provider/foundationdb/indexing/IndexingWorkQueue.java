@@ -0,0 +1,303 @@
+/*
+ * IndexingWorkQueue.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.indexing;
+
+import com.apple.foundationdb.KeyValue;
+import com.apple.foundationdb.Range;
+import com.apple.foundationdb.Transaction;
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordContext;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore;
+import com.apple.foundationdb.record.provider.foundationdb.IndexingSubspaces;
+import com.apple.foundationdb.subspace.Subspace;
+import com.apple.foundationdb.tuple.ByteArrayUtil2;
+import com.apple.foundationdb.tuple.Tuple;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * A queue of records ranges to be indexed, shared by indexers that cooperatively build the same index. Each
+ * {@linkplain WorkItem work item} is a range of primary keys that an indexer claims for a limited lease, which it
+ * extends while it builds the range. An item whose lease has expired can be claimed by any other indexer, and an
+ * item that is still being built can be split so that another indexer builds the rest of it.
+ *
+ * <p>
+ * Like {@link IndexingRangeSet}, this binds the queue to a specific transaction. The queue only coordinates the
+ * indexers: which ranges were actually built is still recorded in the index's range set.
+ * </p>
+ */
+@API(API.Status.INTERNAL)
+public class IndexingWorkQueue {
+    @Nonnull
+    private final FDBRecordContext context;
+    @Nonnull
+    private final Subspace subspace;
+
+    private IndexingWorkQueue(@Nonnull FDBRecordContext context, @Nonnull Subspace subspace) {
+        this.context = context;
+        this.subspace = subspace;
+    }
+
+    /**
+     * List all the work items in the queue, ordered by range. The items are read at snapshot isolation, so
+     * an item must be {@linkplain #claimAsync claimed} before it is used.
+     *
+     * @return a future containing all the work items
+     */
+    @Nonnull
+    public CompletableFuture<List<WorkItem>> listItemsAsync() {
+        return context.ensureActive().snapshot().getRange(subspace.range()).asList()
+                .thenApply(keyValues -> keyValues.stream().map(this::decodeItem).collect(Collectors.toList()));
+    }
+
+    /**
+     * Fill an empty queue with unclaimed work items. Concurrent attempts to fill the queue conflict with each other,
+     * so only one of them succeeds.
+     *
+     * @param ranges the records ranges to build
+     *
+     * @return the new work items
+     */
+    @Nonnull
+    public List<WorkItem> populate(@Nonnull List<Range> ranges) {
+        final Transaction transaction = context.ensureActive();
+        transaction.addReadConflictRange(subspace.range().begin, subspace.range().end);
+        final List<WorkItem> items = new ArrayList<>(ranges.size());
+        for (Range range : ranges) {
+            final WorkItem item = new WorkItem(range.begin, range.end, null, 0L);
+            writeItem(item);
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * Claim a work item, unless another indexer has changed it since it was listed.
+     *
+     * @param item the item to claim, as listed by {@link #listItemsAsync()}
+     * @param owner the id of the claiming indexer
+     * @param leaseEndMillis the time at which the claim expires
+     *
+     * @return a future containing the claimed item, or {@code null} if it has changed
+     */
+    @Nonnull
+    public CompletableFuture<WorkItem> claimAsync(@Nonnull WorkItem item, @Nonnull UUID owner, long leaseEndMillis) {
+        return readItemAsync(item.getBegin()).thenApply(current -> {
+            if (!item.equals(current)) {
+                return null;
+            }
+            final WorkItem claimed = new WorkItem(item.getBegin(), item.getEnd(), owner, leaseEndMillis);
+            writeItem(claimed);
+            return claimed;
+        });
+    }
+
+    /**
+     * Extend the lease of a claimed work item. As another indexer may have split the item in the meantime, the
+     * returned item is the one to build.
+     *
+     * @param begin the beginning of the claimed item
+     * @param owner the id of the claiming indexer
+     * @param leaseEndMillis the new time at which the claim expires
+     *
+     * @return a future containing the current item, or {@code null} if the item is no longer claimed by {@code owner}
+     */
+    @Nonnull
+    public CompletableFuture<WorkItem> extendLeaseAsync(@Nonnull byte[] begin, @Nonnull UUID owner, long leaseEndMillis) {
+        return readItemAsync(begin).thenApply(current -> {
+            if (current == null || !owner.equals(current.getOwner())) {
+                return null;
+            }
+            final WorkItem extended = new WorkItem(current.getBegin(), current.getEnd(), owner, leaseEndMillis);
+            writeItem(extended);
+            return extended;
+        });
+    }
+
+    /**
+     * Split a work item claimed by another indexer and claim its upper part. The other indexer keeps the lower
+     * part, so the split key must be after the point it has already reached.
+     *
+     * @param item the item to split, as listed by {@link #listItemsAsync()}
+     * @param splitKey the key at which to split the item
+     * @param owner the id of the indexer claiming the upper part
+     * @param leaseEndMillis the time at which the claim on the upper part expires
+     *
+     * @return a future containing the claimed upper part, or {@code null} if the item has changed
+     */
+    @Nonnull
+    public CompletableFuture<WorkItem> splitAsync(@Nonnull WorkItem item, @Nonnull byte[] splitKey,
+                                                  @Nonnull UUID owner, long leaseEndMillis) {
+        return readItemAsync(item.getBegin()).thenApply(current -> {
+            if (current == null || !Arrays.equals(current.getEnd(), item.getEnd()) ||
+                    !Objects.equals(current.getOwner(), item.getOwner())) {
+                return null;
+            }
+            writeItem(new WorkItem(current.getBegin(), splitKey, current.getOwner(), current.getLeaseEndMillis()));
+            final WorkItem claimed = new WorkItem(splitKey, current.getEnd(), owner, leaseEndMillis);
+            writeItem(claimed);
+            return claimed;
+        });
+    }
+
+    /**
+     * Remove a work item once its range has been built.
+     *
+     * @param item the item to remove
+     */
+    public void remove(@Nonnull WorkItem item) {
+        context.ensureActive().clear(subspace.pack(Tuple.from(item.getBegin())));
+    }
+
+    /**
+     * Remove all the work items.
+     */
+    public void clear() {
+        context.ensureActive().clear(subspace.range());
+    }
+
+    @Nonnull
+    private CompletableFuture<WorkItem> readItemAsync(@Nonnull byte[] begin) {
+        final byte[] key = subspace.pack(Tuple.from(begin));
+        return context.ensureActive().get(key).thenApply(value -> value == null ? null : decodeItem(begin, value));
+    }
+
+    private void writeItem(@Nonnull WorkItem item) {
+        context.ensureActive().set(subspace.pack(Tuple.from(item.getBegin())),
+                Tuple.from(item.getEnd(), item.getOwner(), item.getLeaseEndMillis()).pack());
+    }
+
+    @Nonnull
+    private WorkItem decodeItem(@Nonnull KeyValue keyValue) {
+        return decodeItem(subspace.unpack(keyValue.getKey()).getBytes(0), keyValue.getValue());
+    }
+
+    @Nonnull
+    private static WorkItem decodeItem(@Nonnull byte[] begin, @Nonnull byte[] value) {
+        final Tuple tuple = Tuple.fromBytes(value);
+        return new WorkItem(begin, tuple.getBytes(0), tuple.getUUID(1), tuple.getLong(2));
+    }
+
+    /**
+     * Get the work queue of an index build.
+     *
+     * @param store the store containing the index
+     * @param index the index being built
+     *
+     * @return the work queue, bound to the store's transaction
+     */
+    @Nonnull
+    public static IndexingWorkQueue forIndexBuild(@Nonnull FDBRecordStore store, @Nonnull Index index) {
+        return new IndexingWorkQueue(store.getContext(), IndexingSubspaces.indexBuildWorkQueueSubspace(store, index));
+    }
+
+    /**
+     * A range of primary keys in the queue, possibly claimed by an indexer.
+     */
+    public static final class WorkItem {
+        @Nonnull
+        private final byte[] begin;
+        @Nonnull
+        private final byte[] end;
+        @Nullable
+        private final UUID owner;
+        private final long leaseEndMillis;
+
+        WorkItem(@Nonnull byte[] begin, @Nonnull byte[] end, @Nullable UUID owner, long leaseEndMillis) {
+            this.begin = begin;
+            this.end = end;
+            this.owner = owner;
+            this.leaseEndMillis = leaseEndMillis;
+        }
+
+        @Nonnull
+        public byte[] getBegin() {
+            return begin;
+        }
+
+        @Nonnull
+        public byte[] getEnd() {
+            return end;
+        }
+
+        @Nonnull
+        public Range getRange() {
+            return new Range(begin, end);
+        }
+
+        /**
+         * Get the id of the indexer that claimed this item.
+         * @return the claiming indexer's id or {@code null} if the item was never claimed
+         */
+        @Nullable
+        public UUID getOwner() {
+            return owner;
+        }
+
+        public long getLeaseEndMillis() {
+            return leaseEndMillis;
+        }
+
+        /**
+         * Get whether this item can be claimed, either because it was never claimed or because its lease has expired.
+         * @param nowMillis the current time
+         * @return {@code true} if this item can be claimed
+         */
+        public boolean isAvailable(long nowMillis) {
+            return owner == null || leaseEndMillis < nowMillis;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final WorkItem workItem = (WorkItem)o;
+            return leaseEndMillis == workItem.leaseEndMillis &&
+                   Arrays.equals(begin, workItem.begin) &&
+                   Arrays.equals(end, workItem.end) &&
+                   Objects.equals(owner, workItem.owner);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(Arrays.hashCode(begin), Arrays.hashCode(end), owner, leaseEndMillis);
+        }
+
+        @Override
+        public String toString() {
+            return "WorkItem{" + ByteArrayUtil2.loggable(begin) + ".." + ByteArrayUtil2.loggable(end) +
+                   ", owner=" + owner + ", leaseEndMillis=" + leaseEndMillis + "}";
+        }
+    }
+}
@@ -28,6 +28,7 @@ import com.apple.foundationdb.record.logging.LogMessageKeys;
 import com.apple.foundationdb.record.provider.foundationdb.FDBDatabase;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore;
 import com.apple.foundationdb.record.provider.foundationdb.runners.throttled.CursorFactory;
+import com.apple.foundationdb.record.provider.foundationdb.runners.throttled.MaintenanceScheduler;
 import com.apple.foundationdb.record.provider.foundationdb.runners.throttled.ThrottledRetryingIterator;
 import com.apple.foundationdb.tuple.Tuple;
 import com.apple.foundationdb.util.CloseException;
@@ -176,7 +177,9 @@ public abstract class RecordRepair implements AutoCloseable {
                 .withMaxRecordsDeletesPerTransaction(config.getMaxRecordDeletesPerTransaction())
                 .withMaxRecordsScannedPerSec(config.getMaxRecordScannedPerSec())
                 .withMaxRecordsDeletesPerSec(config.getMaxRecordDeletesPerSec())
-                .withNumOfRetries(config.getNumOfRetries());
+                .withNumOfRetries(config.getNumOfRetries())
+                .withMaintenanceJob(config.getMaintenanceScheduler() == null ? null :
+                                    config.getMaintenanceScheduler().newJob("RecordRepair", config.getMaintenancePriority()));
     }
 
     @SuppressWarnings("PMD.UnusedFormalParameter")
@@ -212,6 +215,9 @@ public abstract class RecordRepair implements AutoCloseable {
         private int maxRecordScannedPerSec = 0;
         private int maxRecordDeletesPerSec = 1000;
         private int numOfRetries = 4;
+        @Nullable
+        private MaintenanceScheduler maintenanceScheduler = null;
+        private int maintenancePriority = 0;
 
         /**
          * Constructor.
@@ -326,6 +332,20 @@ public abstract class RecordRepair implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Schedule the runner's transactions with other maintenance jobs.
+         * Each transaction would wait for a turn from the scheduler, in addition to the limits of this runner.
+         * @param maintenanceScheduler the scheduler that shares a budget between maintenance jobs
+         * @param maintenancePriority the priority of this runner among the scheduler's jobs (higher goes first)
+         * Default: null (transactions are not scheduled)
+         * @return this builder
+         */
+        public Builder withMaintenanceScheduler(@Nullable final MaintenanceScheduler maintenanceScheduler, final int maintenancePriority) {
+            this.maintenanceScheduler = maintenanceScheduler;
+            this.maintenancePriority = maintenancePriority;
+            return this;
+        }
+
         @Nonnull
         public FDBDatabase getDatabase() {
             return database;
@@ -364,5 +384,14 @@ public abstract class RecordRepair implements AutoCloseable {
         public int getNumOfRetries() {
             return numOfRetries;
         }
+
+        @Nullable
+        public MaintenanceScheduler getMaintenanceScheduler() {
+            return maintenanceScheduler;
+        }
+
+        public int getMaintenancePriority() {
+            return maintenancePriority;
+        }
     }
 }
@@ -0,0 +1,426 @@
+/*
+ * MaintenanceScheduler.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.runners.throttled;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A scheduler that shares a single budget between background maintenance jobs, such as index builds, index scrubbing,
+ * index merges and record repairs. Each job throttles itself as usual, but it also waits for a turn from the scheduler
+ * before each of its transactions, so that together the jobs stay within the budget.
+ *
+ * <p>
+ * The budget is a number of transactions per second and a number of bytes per second, either of which can be
+ * unlimited. Turns are granted to the waiting job with the highest priority, and to the job that has waited the
+ * longest among jobs with the same priority. As each job waits for a single turn at a time, lower priority jobs still
+ * get turns while the higher priority ones are running their transactions. The bytes of a transaction are only known
+ * once it is done, so they are charged after the fact: no turns are granted until the bytes budget is refilled.
+ * </p>
+ *
+ * <p>
+ * A scheduler is meant to be created once per process and shared by all the maintenance jobs of the stores it
+ * protects. The waits, transactions, records and bytes of all the jobs are reported to the scheduler's
+ * {@link FDBStoreTimer}, if any, and each {@link Job} reports its own progress.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class MaintenanceScheduler {
+    /**
+     * A transactions or bytes rate indicating that there is no limit.
+     */
+    public static final long UNLIMITED = 0;
+
+    private static final long MIN_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Nonnull
+    private final ScheduledExecutorService scheduledExecutor;
+    @Nullable
+    private final FDBStoreTimer timer;
+    private final long transactionsPerSecond;
+    private final long bytesPerSecond;
+
+    @Nonnull
+    private final List<Job> jobs = new CopyOnWriteArrayList<>();
+    @Nonnull
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparingInt((Waiter waiter) -> -waiter.job.priority).thenComparingLong(waiter -> waiter.sequence));
+    private long waiterSequence = 0;
+    private double transactionTokens;
+    private double byteTokens;
+    private long lastRefillNanos;
+    private boolean dispatchScheduled = false;
+
+    private MaintenanceScheduler(@Nonnull Builder builder) {
+        this.scheduledExecutor = builder.scheduledExecutor;
+        this.timer = builder.timer;
+        this.transactionsPerSecond = builder.transactionsPerSecond;
+        this.bytesPerSecond = builder.bytesPerSecond;
+        this.transactionTokens = transactionsCapacity();
+        this.byteTokens = bytesPerSecond;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Register a new maintenance job. The job should be {@linkplain Job#close() closed} once it is done.
+     * @param name a name that identifies the job in its progress reports
+     * @param priority the job's priority, where jobs with higher priorities are granted turns first
+     * @return the new job
+     */
+    @Nonnull
+    public Job newJob(@Nonnull String name, int priority) {
+        final Job job = new Job(name, priority);
+        jobs.add(job);
+        return job;
+    }
+
+    /**
+     * Get the jobs currently registered with this scheduler, in registration order.
+     * @return the registered jobs
+     */
+    @Nonnull
+    public List<Job> getJobs() {
+        return new ArrayList<>(jobs);
+    }
+
+    public long getTransactionsPerSecond() {
+        return transactionsPerSecond;
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    private double transactionsCapacity() {
+        // allow a burst of up to a second's worth of transactions, and at least one
+        return Math.max(1, transactionsPerSecond);
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> acquire(@Nonnull Job job) {
+        final Waiter waiter = new Waiter(job);
+        synchronized (this) {
+            waiter.sequence = waiterSequence++;
+            waiters.add(waiter);
+        }
+        dispatch();
+        return waiter.future;
+    }
+
+    private void charge(long bytes) {
+        if (bytesPerSecond != UNLIMITED && bytes > 0) {
+            synchronized (this) {
+                refill(System.nanoTime());
+                byteTokens -= bytes;
+            }
+        }
+    }
+
+    private void remove(@Nonnull Job job) {
+        jobs.remove(job);
+        final List<Waiter> removed = new ArrayList<>();
+        synchronized (this) {
+            waiters.removeIf(waiter -> {
+                if (waiter.job == job) {
+                    removed.add(waiter);
+                    return true;
+                }
+                return false;
+            });
+        }
+        for (Waiter waiter : removed) {
+            waiter.future.completeExceptionally(new RecordCoreException("maintenance job closed while waiting for a turn",
+                    LogMessageKeys.NAME, job.name));
+        }
+        dispatch();
+    }
+
+    private void dispatch() {
+        final List<Waiter> granted = new ArrayList<>();
+        long delayNanos = 0;
+        synchronized (this) {
+            final long now = System.nanoTime();
+            refill(now);
+            while (!waiters.isEmpty() && hasBudget()) {
+                final Waiter waiter = waiters.poll();
+                if (transactionsPerSecond != UNLIMITED) {
+                    transactionTokens -= 1;
+                }
+                waiter.waitNanos = now - waiter.enqueuedNanos;
+                granted.add(waiter);
+            }
+            if (!waiters.isEmpty() && !dispatchScheduled) {
+                dispatchScheduled = true;
+                delayNanos = nanosUntilBudget();
+            }
+        }
+        if (delayNanos > 0) {
+            scheduledExecutor.schedule(() -> {
+                synchronized (this) {
+                    dispatchScheduled = false;
+                }
+                dispatch();
+            }, delayNanos, TimeUnit.NANOSECONDS);
+        }
+        for (Waiter waiter : granted) {
+            waiter.job.waitNanos.addAndGet(waiter.waitNanos);
+            if (timer != null) {
+                timer.record(FDBStoreTimer.Events.MAINTENANCE_SCHEDULER_WAIT, waiter.waitNanos);
+            }
+            waiter.future.complete(null);
+        }
+    }
+
+    private void refill(long now) {
+        final double elapsedSeconds = (now - lastRefillNanos) / (double)TimeUnit.SECONDS.toNanos(1);
+        lastRefillNanos = now;
+        if (transactionsPerSecond != UNLIMITED) {
+            transactionTokens = Math.min(transactionsCapacity(), transactionTokens + elapsedSeconds * transactionsPerSecond);
+        }
+        if (bytesPerSecond != UNLIMITED) {
+            byteTokens = Math.min(bytesPerSecond, byteTokens + elapsedSeconds * bytesPerSecond);
+        }
+    }
+
+    private boolean hasBudget() {
+        return (transactionsPerSecond == UNLIMITED || transactionTokens >= 1) &&
+               (bytesPerSecond == UNLIMITED || byteTokens >= 0);
+    }
+
+    private long nanosUntilBudget() {
+        double seconds = 0;
+        if (transactionsPerSecond != UNLIMITED && transactionTokens < 1) {
+            seconds = (1 - transactionTokens) / transactionsPerSecond;
+        }
+        if (bytesPerSecond != UNLIMITED && byteTokens < 0) {
+            seconds = Math.max(seconds, -byteTokens / bytesPerSecond);
+        }
+        return Math.max(MIN_DELAY_NANOS, (long)(seconds * TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    /**
+     * Create a builder for a scheduler.
+     * @param scheduledExecutor the executor used to grant turns once the budget is refilled, for example
+     * {@link com.apple.foundationdb.record.provider.foundationdb.FDBDatabase#getScheduledExecutor()}
+     * @return a new builder
+     */
+    @Nonnull
+    public static Builder newBuilder(@Nonnull ScheduledExecutorService scheduledExecutor) {
+        return new Builder(scheduledExecutor);
+    }
+
+    /**
+     * A maintenance job registered with a {@link MaintenanceScheduler}. The job must wait for a turn before each of
+     * its transactions, and report each transaction once it is done.
+     */
+    public final class Job implements AutoCloseable {
+        @Nonnull
+        private final String name;
+        private final int priority;
+        private final AtomicLong transactions = new AtomicLong();
+        private final AtomicLong records = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private volatile boolean closed = false;
+
+        private Job(@Nonnull String name, int priority) {
+            this.name = name;
+            this.priority = priority;
+        }
+
+        /**
+         * Wait for the scheduler to grant a turn to run one transaction.
+         * @return a future that completes once the transaction can start
+         */
+        @Nonnull
+        public CompletableFuture<Void> acquireAsync() {
+            if (closed) {
+                return AsyncUtil.DONE;
+            }
+            return acquire(this);
+        }
+
+        /**
+         * Report a transaction that was run in the last granted turn, whether it succeeded or not.
+         * @param recordCount the number of records processed by the transaction
+         * @param byteCount the approximate size of the transaction, charged to the bytes budget
+         */
+        public void reportTransaction(long recordCount, long byteCount) {
+            transactions.incrementAndGet();
+            records.addAndGet(recordCount);
+            bytes.addAndGet(byteCount);
+            charge(byteCount);
+            if (timer != null) {
+                timer.increment(FDBStoreTimer.Counts.MAINTENANCE_SCHEDULER_TRANSACTIONS);
+                timer.increment(FDBStoreTimer.Counts.MAINTENANCE_SCHEDULER_RECORDS, (int)Math.min(Integer.MAX_VALUE, recordCount));
+                timer.increment(FDBStoreTimer.Counts.MAINTENANCE_SCHEDULER_BYTES, (int)Math.min(Integer.MAX_VALUE, byteCount));
+            }
+        }
+
+        /**
+         * Unregister this job. Turns that it still waits for fail, and later turns are granted immediately.
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                remove(this);
+            }
+        }
+
+        @Nonnull
+        public String getName() {
+            return name;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        /**
+         * Get the number of transactions reported by this job.
+         * @return the number of transactions
+         */
+        public long getTransactionCount() {
+            return transactions.get();
+        }
+
+        /**
+         * Get the number of records reported by this job.
+         * @return the number of records
+         */
+        public long getRecordCount() {
+            return records.get();
+        }
+
+        /**
+         * Get the number of bytes reported by this job.
+         * @return the number of bytes
+         */
+        public long getByteCount() {
+            return bytes.get();
+        }
+
+        /**
+         * Get the total time this job waited for turns.
+         * @return the total wait time in nanoseconds
+         */
+        public long getWaitNanos() {
+            return waitNanos.get();
+        }
+
+        @Override
+        public String toString() {
+            return "Job{" + name + ", priority=" + priority + ", transactions=" + transactions + ", records=" + records +
+                   ", bytes=" + bytes + "}";
+        }
+    }
+
+    private static final class Waiter {
+        @Nonnull
+        private final Job job;
+        @Nonnull
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final long enqueuedNanos = System.nanoTime();
+        private long sequence;
+        private long waitNanos;
+
+        private Waiter(@Nonnull Job job) {
+            this.job = job;
+        }
+    }
+
+    /**
+     * A builder for {@link MaintenanceScheduler}.
+     */
+    public static class Builder {
+        @Nonnull
+        private final ScheduledExecutorService scheduledExecutor;
+        @Nullable
+        private FDBStoreTimer timer = null;
+        private long transactionsPerSecond = UNLIMITED;
+        private long bytesPerSecond = UNLIMITED;
+
+        private Builder(@Nonnull ScheduledExecutorService scheduledExecutor) {
+            this.scheduledExecutor = scheduledExecutor;
+        }
+
+        /**
+         * Set the timer to which all the jobs' waits, transactions, records and bytes are reported.
+         * Defaults to {@code null} (no reporting).
+         * @param timer the timer to use
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setTimer(@Nullable FDBStoreTimer timer) {
+            this.timer = timer;
+            return this;
+        }
+
+        /**
+         * Set the number of transactions that all the jobs together may start in a second.
+         * Defaults to {@link #UNLIMITED}.
+         * @param transactionsPerSecond the maximum number of transactions per second
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setTransactionsPerSecond(long transactionsPerSecond) {
+            this.transactionsPerSecond = Math.max(UNLIMITED, transactionsPerSecond);
+            return this;
+        }
+
+        /**
+         * Set the number of bytes that the transactions of all the jobs together may write in a second.
+         * Defaults to {@link #UNLIMITED}.
+         * @param bytesPerSecond the maximum number of bytes per second
+         * @return this builder
+         */
+        @Nonnull
+        public Builder setBytesPerSecond(long bytesPerSecond) {
+            this.bytesPerSecond = Math.max(UNLIMITED, bytesPerSecond);
+            return this;
+        }
+
+        /**
+         * Create the scheduler.
+         * @return the new scheduler
+         */
+        @Nonnull
+        public MaintenanceScheduler build() {
+            return new MaintenanceScheduler(this);
+        }
+    }
+}
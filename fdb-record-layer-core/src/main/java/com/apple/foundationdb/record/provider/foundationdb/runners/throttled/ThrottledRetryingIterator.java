@@ -91,6 +91,8 @@ public class ThrottledRetryingIterator<T> implements AutoCloseable {
     @Nullable
     private final Consumer<QuotaManager> transactionInitNotification;
     private final int numOfRetries;
+    @Nullable
+    private final MaintenanceScheduler.Job maintenanceJob;
 
     private boolean closed = false;
     /** Starting time of the current/most-recent transaction. */
@@ -116,6 +118,7 @@ public class ThrottledRetryingIterator<T> implements AutoCloseable {
         this.transactionInitNotification = builder.transactionInitNotification;
         this.cursorRowsLimit = 0;
         this.numOfRetries = builder.numOfRetries;
+        this.maintenanceJob = builder.maintenanceJob;
         futureManager = new FutureAutoClose();
     }
 
@@ -137,9 +140,11 @@ public class ThrottledRetryingIterator<T> implements AutoCloseable {
         final AtomicReference<RecordCursorResult<T>> lastSuccessCont = new AtomicReference<>(null);
         final QuotaManager singleIterationQuotaManager = new QuotaManager();
         return AsyncUtil.whileTrue(() ->
-                // iterate ranges
-                iterateOneRange(storeBuilder, lastSuccessCont.get(), singleIterationQuotaManager)
+                // iterate ranges, each after a turn from the maintenance scheduler (if any)
+                acquireMaintenanceTurn()
+                        .thenCompose(ignore -> iterateOneRange(storeBuilder, lastSuccessCont.get(), singleIterationQuotaManager))
                         .handle((continuation, ex) -> {
+                            reportMaintenanceTransaction(singleIterationQuotaManager);
                             if (ex == null) {
                                 lastSuccessCont.set(continuation);
                                 return handleSuccess(singleIterationQuotaManager);
@@ -156,10 +161,23 @@ public class ThrottledRetryingIterator<T> implements AutoCloseable {
             return;
         }
         closed = true;
+        if (maintenanceJob != null) {
+            maintenanceJob.close();
+        }
         // Ensure we call both close() methods, capturing all exceptions
         CloseableUtils.closeAll(futureManager, transactionalRunner);
     }
 
+    private CompletableFuture<Void> acquireMaintenanceTurn() {
+        return maintenanceJob == null ? AsyncUtil.DONE : futureManager.registerFuture(maintenanceJob.acquireAsync());
+    }
+
+    private void reportMaintenanceTransaction(QuotaManager quotaManager) {
+        if (maintenanceJob != null) {
+            maintenanceJob.reportTransaction(quotaManager.scannedCount, quotaManager.transactionBytes);
+        }
+    }
+
     /**
      * Run a single transaction.
      * Start a transaction and iterate until done: Either source exhausted, error occurred or constraint reached.
@@ -216,7 +234,9 @@ public class ThrottledRetryingIterator<T> implements AutoCloseable {
                     });
                 }, executor)
                     .whenComplete((r, e) ->
-                            cursor.close());
+                            cursor.close())
+                    .thenCompose(ignore -> maintenanceJob == null ? AsyncUtil.DONE :
+                                           transaction.getApproximateTransactionSize().thenAccept(size -> singleIterationQuotaManager.transactionBytes = size));
             });
         }).thenApply(ignore -> cont.get());
     }
@@ -350,6 +370,7 @@ public class ThrottledRetryingIterator<T> implements AutoCloseable {
     public static class QuotaManager {
         int deletesCount;
         int scannedCount;
+        long transactionBytes;
         boolean hasMore;
 
         public int getDeletesCount() {
@@ -385,6 +406,7 @@ public class ThrottledRetryingIterator<T> implements AutoCloseable {
         void init() {
             deletesCount = 0;
             scannedCount = 0;
+            transactionBytes = 0;
             hasMore = true;
         }
     }
@@ -421,6 +443,7 @@ public class ThrottledRetryingIterator<T> implements AutoCloseable {
         private int maxRecordScannedPerSec;
         private int maxRecordDeletesPerSec;
         private int numOfRetries;
+        private MaintenanceScheduler.Job maintenanceJob;
 
         /**
          * Constructor.
@@ -538,6 +561,19 @@ public class ThrottledRetryingIterator<T> implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Set the maintenance job through which the iterator's transactions are scheduled.
+         * Each transaction waits for a turn from the job's {@link MaintenanceScheduler}, and is reported to it once done.
+         * The job is closed when the iterator is closed.
+         * Defaults to null (transactions are not scheduled).
+         * @param maintenanceJob the job to use
+         * @return this builder
+         */
+        public Builder<T> withMaintenanceJob(@Nullable MaintenanceScheduler.Job maintenanceJob) {
+            this.maintenanceJob = maintenanceJob;
+            return this;
+        }
+
         /**
          * Create the iterator.
          * @return the newly minted iterator
@@ -39,6 +39,7 @@ import com.apple.foundationdb.record.metadata.expressions.InvertibleFunctionKeyE
 import com.apple.foundationdb.record.metadata.expressions.TupleFieldsHelper;
 import com.apple.foundationdb.record.planprotos.PComparison;
 import com.apple.foundationdb.record.planprotos.PComparison.PComparisonType;
+import com.apple.foundationdb.record.planprotos.PDistanceRankValueComparison;
 import com.apple.foundationdb.record.planprotos.PInvertedFunctionComparison;
 import com.apple.foundationdb.record.planprotos.PListComparison;
 import com.apple.foundationdb.record.planprotos.PMultiColumnComparison;
@@ -634,7 +635,9 @@ public class Comparisons {
         @API(API.Status.EXPERIMENTAL)
         SORT(false),
         @API(API.Status.EXPERIMENTAL)
-        LIKE;
+        LIKE,
+        @API(API.Status.EXPERIMENTAL)
+        DISTANCE_RANK_LESS_THAN_OR_EQUAL;
 
         @Nonnull
         private static final Supplier<BiMap<Type, PComparisonType>> protoEnumBiMapSupplier =
@@ -725,6 +728,7 @@ public class Comparisons {
             case LESS_THAN:
                 return compare(value, comparand) < 0;
             case LESS_THAN_OR_EQUALS:
+            case DISTANCE_RANK_LESS_THAN_OR_EQUAL:
                 return compare(value, comparand) <= 0;
             case GREATER_THAN:
                 return compare(value, comparand) > 0;
@@ -1135,6 +1139,139 @@ public class Comparisons {
         }
     }
 
+    /**
+     * A comparison that limits the rank of a record by its distance from a query vector, that is, that selects the
+     * {@code k} nearest neighbors of the query vector. It is only meaningful for a
+     * {@link com.apple.foundationdb.record.query.plan.cascades.values.DistanceRankValue}, and can only be satisfied
+     * by scanning a {@link com.apple.foundationdb.record.metadata.IndexTypes#VECTOR} index.
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public static class DistanceRankValueComparison extends SimpleComparisonBase {
+        private static final ObjectPlanHash BASE_HASH = new ObjectPlanHash("Distance-Rank-Value-Comparison");
+
+        @Nonnull
+        private final double[] queryVector;
+
+        public DistanceRankValueComparison(@Nonnull double[] queryVector, int k) {
+            this(Type.DISTANCE_RANK_LESS_THAN_OR_EQUAL, (long)k, queryVector);
+        }
+
+        protected DistanceRankValueComparison(@Nonnull Type type, @Nonnull Object comparand, @Nonnull double[] queryVector) {
+            super(type, comparand);
+            this.queryVector = queryVector;
+        }
+
+        @Nonnull
+        public double[] getQueryVector() {
+            return queryVector;
+        }
+
+        /**
+         * Get the number of nearest neighbors that satisfy this comparison.
+         * @return the number of neighbors
+         */
+        public int getK() {
+            return ((Number)comparand).intValue();
+        }
+
+        @Nonnull
+        @Override
+        public Comparison withType(@Nonnull final Type newType) {
+            if (type == newType) {
+                return this;
+            }
+            return new DistanceRankValueComparison(newType, comparand, queryVector);
+        }
+
+        @Nonnull
+        @Override
+        public Comparison withValue(@Nonnull final Value value) {
+            if (value instanceof LiteralValue<?>) {
+                return new DistanceRankValueComparison(type,
+                        Objects.requireNonNull(((LiteralValue<?>)value).getLiteralValue()), queryVector);
+            }
+            throw new RecordCoreException("distance rank comparison requires a constant number of neighbors");
+        }
+
+        @Nonnull
+        @Override
+        public String typelessString() {
+            return toPrintable(comparand) + " @" + Arrays.toString(queryVector);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return super.equals(o) && Arrays.equals(queryVector, ((DistanceRankValueComparison)o).queryVector);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * super.hashCode() + Arrays.hashCode(queryVector);
+        }
+
+        @Override
+        public int planHash(@Nonnull final PlanHashMode mode) {
+            return PlanHashable.objectsPlanHash(mode, BASE_HASH, super.planHash(mode), queryVector);
+        }
+
+        @Override
+        public int queryHash(@Nonnull final QueryHashKind hashKind) {
+            switch (hashKind) {
+                case STRUCTURAL_WITH_LITERALS:
+                    return HashUtils.queryHash(hashKind, BASE_HASH, type, comparand, Arrays.hashCode(queryVector));
+                case STRUCTURAL_WITHOUT_LITERALS:
+                    return HashUtils.queryHash(hashKind, BASE_HASH, type);
+                default:
+                    throw new UnsupportedOperationException("Hash Kind " + hashKind.name() + " is not supported");
+            }
+        }
+
+        @Nonnull
+        @Override
+        public PDistanceRankValueComparison toProto(@Nonnull final PlanSerializationContext serializationContext) {
+            final PDistanceRankValueComparison.Builder builder = PDistanceRankValueComparison.newBuilder()
+                    .setType(type.toProto(serializationContext))
+                    .setObject(PlanSerialization.valueObjectToProto(comparand));
+            for (double component : queryVector) {
+                builder.addQueryVector(component);
+            }
+            return builder.build();
+        }
+
+        @Nonnull
+        @Override
+        public PComparison toComparisonProto(@Nonnull final PlanSerializationContext serializationContext) {
+            return PComparison.newBuilder().setDistanceRankValueComparison(toProto(serializationContext)).build();
+        }
+
+        @Nonnull
+        public static DistanceRankValueComparison fromProto(@Nonnull final PlanSerializationContext serializationContext,
+                                                            @Nonnull final PDistanceRankValueComparison distanceRankValueComparisonProto) {
+            return new DistanceRankValueComparison(Type.fromProto(serializationContext, Objects.requireNonNull(distanceRankValueComparisonProto.getType())),
+                    Objects.requireNonNull(PlanSerialization.protoToValueObject(Objects.requireNonNull(distanceRankValueComparisonProto.getObject()))),
+                    distanceRankValueComparisonProto.getQueryVectorList().stream().mapToDouble(Double::doubleValue).toArray());
+        }
+
+        /**
+         * Deserializer.
+         */
+        @AutoService(PlanDeserializer.class)
+        public static class Deserializer implements PlanDeserializer<PDistanceRankValueComparison, DistanceRankValueComparison> {
+            @Nonnull
+            @Override
+            public Class<PDistanceRankValueComparison> getProtoMessageClass() {
+                return PDistanceRankValueComparison.class;
+            }
+
+            @Nonnull
+            @Override
+            public DistanceRankValueComparison fromProto(@Nonnull final PlanSerializationContext serializationContext,
+                                                         @Nonnull final PDistanceRankValueComparison distanceRankValueComparisonProto) {
+                return DistanceRankValueComparison.fromProto(serializationContext, distanceRankValueComparisonProto);
+            }
+        }
+    }
+
     /**
      * Exception thrown when comparison evaluation needs the query context, but none was supplied.
      */
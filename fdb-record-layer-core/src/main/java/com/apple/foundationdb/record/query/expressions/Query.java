@@ -133,6 +133,20 @@ public class Query {
         return rank(Key.Expressions.field(fieldName).ungrouped());
     }
 
+    /**
+     * A record function that can be used to select the nearest neighbors of a query vector, by comparing it with a
+     * {@link Comparisons.DistanceRankValueComparison}. The operand has the vector as its one grouped column, as in the
+     * definition of a {@link com.apple.foundationdb.record.metadata.IndexTypes#VECTOR} index. Only the Cascades planner
+     * can plan such a comparison, by scanning that index.
+     * @param operand the vector to rank by distance, grouped by the partitions of the index
+     * @return a record function that evaluates the rank of the operand by distance
+     */
+    @API(API.Status.EXPERIMENTAL)
+    @Nonnull
+    public static QueryRecordFunction<Long> distanceRank(@Nonnull GroupingKeyExpression operand) {
+        return new QueryRecordFunction<>(new IndexRecordFunction<>(FunctionNames.DISTANCE_RANK, operand, null));
+    }
+
     /**
      * A record function that can be used to determine or compare the rank value for a record for a time window.
      * @param timeWindow the time window for which to get the rank
@@ -36,10 +36,13 @@ import com.apple.foundationdb.record.query.plan.cascades.KeyExpressionExpansionV
 import com.apple.foundationdb.record.query.plan.cascades.Quantifier;
 import com.apple.foundationdb.record.query.plan.cascades.Reference;
 import com.apple.foundationdb.record.query.plan.cascades.predicates.ValuePredicate;
+import com.apple.foundationdb.record.query.plan.cascades.values.DistanceRankValue;
 import com.apple.foundationdb.record.query.plan.cascades.values.QuantifiedObjectValue;
 import com.apple.foundationdb.record.query.plan.cascades.values.QuantifiedRecordValue;
 import com.apple.foundationdb.record.query.plan.cascades.values.RankValue;
+import com.apple.foundationdb.record.query.plan.cascades.values.Value;
 import com.apple.foundationdb.record.query.plan.cascades.values.VersionValue;
+import com.apple.foundationdb.record.query.plan.cascades.values.WindowedValue;
 import com.apple.foundationdb.record.util.HashUtils;
 import com.google.common.collect.Lists;
 import com.google.protobuf.Descriptors;
@@ -124,10 +127,11 @@ public class QueryRecordFunctionWithComparison implements ComponentWithCompariso
                                  @Nonnull final Supplier<Quantifier.ForEach> outerQuantifierSupplier,
                                  @Nonnull final List<String> fieldNamePrefix) {
         // TODO for now we only do this for rank but we can do this for more than that
-        if (function instanceof IndexRecordFunction && FunctionNames.RANK.equals(function.getName())) {
+        if (function instanceof IndexRecordFunction && isWindowedFunction(function.getName())) {
             final var groupingKeyExpression = ((IndexRecordFunction<?>)function).getOperand();
             final var wholeKeyExpression = groupingKeyExpression.getWholeKey();
-            final var expansionVisitor = new KeyExpressionExpansionVisitor();
+            // the vector of a vector index is a concatenated repeated field
+            final var expansionVisitor = new KeyExpressionExpansionVisitor(FunctionNames.DISTANCE_RANK.equals(function.getName()));
             final var innerBaseQuantifier = outerQuantifierSupplier.get();
             final var partitioningAndArgumentExpansion =
                     wholeKeyExpression.expand(
@@ -140,7 +144,7 @@ public class QueryRecordFunctionWithComparison implements ComponentWithCompariso
             final var partitioningSize = groupingKeyExpression.getGroupingCount();
             final var partitioningExpressions = sealedPartitioningAndArgumentExpansion.getResultValues().subList(0, partitioningSize);
             final var argumentExpressions = sealedPartitioningAndArgumentExpansion.getResultValues().subList(partitioningSize, groupingKeyExpression.getColumnSize());
-            final var rankValue = new RankValue(partitioningExpressions, argumentExpressions);
+            final var rankValue = createWindowedValue(partitioningExpressions, argumentExpressions);
             final var rankPredicate = new ValuePredicate(rankValue, comparison);
             final var selfJoinPredicate =
                     innerBaseQuantifier.getFlowedObjectValue()
@@ -172,6 +176,21 @@ public class QueryRecordFunctionWithComparison implements ComponentWithCompariso
         throw new UnsupportedOperationException();
     }
 
+    private boolean isWindowedFunction(@Nonnull String functionName) {
+        // the nearest neighbors of a query vector can only be found with the query vector of a distance rank comparison
+        return FunctionNames.RANK.equals(functionName) ||
+                (FunctionNames.DISTANCE_RANK.equals(functionName) && comparison instanceof Comparisons.DistanceRankValueComparison);
+    }
+
+    @Nonnull
+    private WindowedValue createWindowedValue(@Nonnull List<? extends Value> partitioningValues,
+                                              @Nonnull List<? extends Value> argumentValues) {
+        if (FunctionNames.DISTANCE_RANK.equals(function.getName())) {
+            return new DistanceRankValue(partitioningValues, argumentValues);
+        }
+        return new RankValue(partitioningValues, argumentValues);
+    }
+
     @Override
     public String toString() {
         return function + " " + getComparison();
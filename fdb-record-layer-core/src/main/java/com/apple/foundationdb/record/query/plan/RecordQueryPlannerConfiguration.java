@@ -67,6 +67,8 @@ public class RecordQueryPlannerConfiguration {
     private static final long PLAN_OTHER_ATTEMPT_FULL_FILTER_MASK = 1L << 9;
     private static final long NORMALIZE_NESTED_FIELDS_MASK = 1L << 10;
     private static final long OMIT_PRIMARY_KEY_IN_ORDERING_KEY_FOR_IN_UNION_MASK = 1L << 11;
+    private static final long PLAN_HASH_JOINS_MASK = 1L << 12;
+    private static final long PLAN_HASH_AGGREGATIONS_MASK = 1L << 13;
 
     @Nonnull
     private final RecordPlannerConfigurationProto.PlannerConfiguration proto;
@@ -383,6 +385,28 @@ public class RecordQueryPlannerConfiguration {
         return flagSet(NORMALIZE_NESTED_FIELDS_MASK);
     }
 
+    /**
+     * Whether the {@link com.apple.foundationdb.record.query.plan.cascades.CascadesPlanner} should consider
+     * hash joins (see {@link com.apple.foundationdb.record.query.plan.plans.RecordQueryHashJoinPlan}) as an
+     * alternative to nested loop joins for joins that contain at least one equality predicate between their legs.
+     * @return {@code true} if the planner should plan hash joins, {@code false} otherwise
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public boolean shouldPlanHashJoins() {
+        return flagSet(PLAN_HASH_JOINS_MASK);
+    }
+
+    /**
+     * Whether the {@link com.apple.foundationdb.record.query.plan.cascades.CascadesPlanner} should consider
+     * hash aggregations (see {@link com.apple.foundationdb.record.query.plan.plans.RecordQueryHashAggregationPlan})
+     * for {@code GROUP BY}s whose input cannot be provided in the order of the grouping value.
+     * @return {@code true} if the planner should plan hash aggregations, {@code false} otherwise
+     */
+    @API(API.Status.EXPERIMENTAL)
+    public boolean shouldPlanHashAggregations() {
+        return flagSet(PLAN_HASH_AGGREGATIONS_MASK);
+    }
+
     /**
      * Return a protobuf representation of this configuration object. This can then be serialized and
      * returned along with, say, a plan continuation. If the original query is re-planned, the serialized
@@ -788,6 +812,36 @@ public class RecordQueryPlannerConfiguration {
             return this;
         }
 
+        /**
+         * Set whether the planner should consider hash joins for equi-joins. This option only applies to
+         * {@link com.apple.foundationdb.record.query.plan.cascades.CascadesPlanner}.
+         * @param planHashJoins whether to plan hash joins
+         * @return this builder
+         * @see #shouldPlanHashJoins()
+         */
+        @API(API.Status.EXPERIMENTAL)
+        @CanIgnoreReturnValue
+        @Nonnull
+        public Builder setPlanHashJoins(final boolean planHashJoins) {
+            updateFlags(planHashJoins, PLAN_HASH_JOINS_MASK);
+            return this;
+        }
+
+        /**
+         * Set whether the planner should consider hash aggregations for {@code GROUP BY}s over unordered inputs.
+         * This option only applies to {@link com.apple.foundationdb.record.query.plan.cascades.CascadesPlanner}.
+         * @param planHashAggregations whether to plan hash aggregations
+         * @return this builder
+         * @see #shouldPlanHashAggregations()
+         */
+        @API(API.Status.EXPERIMENTAL)
+        @CanIgnoreReturnValue
+        @Nonnull
+        public Builder setPlanHashAggregations(final boolean planHashAggregations) {
+            updateFlags(planHashAggregations, PLAN_HASH_AGGREGATIONS_MASK);
+            return this;
+        }
+
         public RecordQueryPlannerConfiguration build() {
             if (protoBuilder.getFlags() != flags) {
                 protoBuilder.setFlags(flags);
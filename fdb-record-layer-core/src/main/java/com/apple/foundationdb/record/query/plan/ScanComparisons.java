@@ -159,6 +159,7 @@ public class ScanComparisons implements PlanHashable, Correlated<ScanComparisons
             case STARTS_WITH:
             case NOT_NULL:
             case SORT:
+            case DISTANCE_RANK_LESS_THAN_OR_EQUAL:
                 return ComparisonType.INEQUALITY;
             case NOT_EQUALS:
             default:
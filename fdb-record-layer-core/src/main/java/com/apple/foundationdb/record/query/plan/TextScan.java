@@ -21,6 +21,7 @@
 package com.apple.foundationdb.record.query.plan;
 
 import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.EndpointType;
 import com.apple.foundationdb.record.EvaluationContext;
 import com.apple.foundationdb.record.ExecuteProperties;
 import com.apple.foundationdb.record.IndexEntry;
@@ -39,6 +40,7 @@ import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
 import com.apple.foundationdb.record.provider.foundationdb.cursors.IntersectionCursor;
 import com.apple.foundationdb.record.provider.foundationdb.cursors.IntersectionMultiCursor;
 import com.apple.foundationdb.record.provider.foundationdb.cursors.ProbableIntersectionCursor;
+import com.apple.foundationdb.record.provider.foundationdb.cursors.SeekableCursorFunction;
 import com.apple.foundationdb.record.provider.foundationdb.cursors.UnionCursor;
 import com.apple.foundationdb.record.provider.foundationdb.cursors.UnorderedUnionCursor;
 import com.apple.foundationdb.record.provider.foundationdb.indexes.TextIndexMaintainer;
@@ -197,10 +199,11 @@ public class TextScan implements PlanHashable {
             // Take the intersection of all children. Note that to handle skip and the returned row limit correctly,
             // the skip and limit are both removed and then applied later.
             final ScanProperties childScanProperties = scanProperties.with(ExecuteProperties::clearSkipAndLimit);
-            List<Function<byte[], RecordCursor<IndexEntry>>> intersectionChildren = tokenList.stream()
-                    .map(token -> scanToken(store, token, prefix, suffix, index, childScanProperties))
+            List<SeekableCursorFunction<IndexEntry>> intersectionChildren = tokenList.stream()
+                    .map(token -> seekToken(store, token, prefix, suffix, index, childScanProperties))
                     .collect(Collectors.toList());
-            return IntersectionCursor.create(suffixComparisonKeyFunction(prefixEntries), scanProperties.isReverse(), intersectionChildren, continuation, store.getTimer())
+            return IntersectionCursor.createSeeking(suffixComparisonKeyFunction(prefixEntries), scanProperties.isReverse(), intersectionChildren,
+                            IntersectionCursor.DEFAULT_SEEK_THRESHOLD, continuation, store.getTimer())
                     .skip(scanProperties.getExecuteProperties().getSkip())
                     .limitRowsTo(scanProperties.getExecuteProperties().getReturnedRowLimit());
         } else if (comparisonType.equals(Comparisons.Type.TEXT_CONTAINS_ALL_PREFIXES)) {
@@ -251,8 +254,9 @@ public class TextScan implements PlanHashable {
             // It's either TEXT_CONTAINS_ALL_WITHIN_DISTANCE or TEXT_CONTAINS_PHRASE. In any case, we need to scan
             // all tokens, intersect, and then apply a filter on the returned list.
             final ScanProperties childScanProperties = scanProperties.with(ExecuteProperties::clearSkipAndLimit);
-            List<Function<byte[], RecordCursor<IndexEntry>>> intersectionChildren = tokenList.stream().map(token -> scanToken(store, token, prefix, suffix, index, childScanProperties)).collect(Collectors.toList());
-            final RecordCursor<List<IndexEntry>> intersectionCursor = IntersectionMultiCursor.create(suffixComparisonKeyFunction(prefixEntries), scanProperties.isReverse(), intersectionChildren, continuation, store.getTimer());
+            List<SeekableCursorFunction<IndexEntry>> intersectionChildren = tokenList.stream().map(token -> seekToken(store, token, prefix, suffix, index, childScanProperties)).collect(Collectors.toList());
+            final RecordCursor<List<IndexEntry>> intersectionCursor = IntersectionMultiCursor.createSeeking(suffixComparisonKeyFunction(prefixEntries), scanProperties.isReverse(), intersectionChildren,
+                    IntersectionCursor.DEFAULT_SEEK_THRESHOLD, continuation, store.getTimer());
             return intersectionCursor
                     .filterInstrumented(predicate, store.getTimer(), inCounts, duringEvents, successCounts, failureCounts)
                     .map(indexEntries -> indexEntries.get(0))
@@ -456,6 +460,32 @@ public class TextScan implements PlanHashable {
         };
     }
 
+    // Like scanToken, but the scan can start at a given suffix instead of the beginning of the token's range. The
+    // suffix is the comparison key of the intersection, so the new range starts (or, in reverse, ends) with all the
+    // entries of the token that have that suffix as a prefix.
+    @Nonnull
+    private <M extends Message> SeekableCursorFunction<IndexEntry> seekToken(@Nonnull FDBRecordStoreBase<M> store, @Nonnull String token, @Nullable Tuple prefix, @Nullable TupleRange suffix,
+                                                                             @Nonnull Index index, @Nonnull ScanProperties scanProperties) {
+        return (Tuple seekKey, byte[] continuation) -> {
+            if (seekKey == null) {
+                return scanToken(store, token, prefix, suffix, index, scanProperties).apply(continuation);
+            }
+            Tuple seekPrefix = Tuple.from(token);
+            TupleRange scanRange = suffix != null ? suffix.prepend(seekPrefix) : TupleRange.allOf(seekPrefix);
+            if (prefix != null) {
+                seekPrefix = prefix.addAll(seekPrefix);
+                scanRange = scanRange.prepend(prefix);
+            }
+            final Tuple seekStart = seekPrefix.addAll(seekKey);
+            if (scanProperties.isReverse()) {
+                scanRange = new TupleRange(scanRange.getLow(), seekStart, scanRange.getLowEndpoint(), EndpointType.RANGE_INCLUSIVE);
+            } else {
+                scanRange = new TupleRange(seekStart, scanRange.getHigh(), EndpointType.RANGE_INCLUSIVE, scanRange.getHighEndpoint());
+            }
+            return store.scanIndex(index, IndexScanType.BY_TEXT_TOKEN, scanRange, continuation, scanProperties);
+        };
+    }
+
     /**
      * Determines whether this scan might return duplicate results for the same
      * record. This can happen if this is a prefix scan (as the same prefix might
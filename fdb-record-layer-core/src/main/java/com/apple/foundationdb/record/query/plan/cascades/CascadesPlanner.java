@@ -213,6 +213,8 @@ public class CascadesPlanner implements QueryPlanner {
     @Nonnull
     private final RecordStoreState recordStoreState;
     @Nonnull
+    private PlannerStatistics statistics;
+    @Nonnull
     private Reference currentRoot;
     @Nonnull
     private PlanContext planContext;
@@ -231,6 +233,7 @@ public class CascadesPlanner implements QueryPlanner {
         this.configuration = RecordQueryPlannerConfiguration.builder().build();
         this.metaData = metaData;
         this.recordStoreState = recordStoreState;
+        this.statistics = PlannerStatistics.empty();
         // Placeholders until we get a query.
         this.currentRoot = Reference.empty();
         this.planContext = PlanContext.emptyContext();
@@ -307,6 +310,19 @@ public class CascadesPlanner implements QueryPlanner {
         this.configuration = configuration;
     }
 
+    @Nonnull
+    public PlannerStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Set the statistics the cost model uses to estimate the number of index entries read by index scans.
+     * @param statistics the statistics of the indexes of the record store
+     */
+    public void setStatistics(@Nonnull final PlannerStatistics statistics) {
+        this.statistics = statistics;
+    }
+
     private boolean isTaskQueueSizeExceeded(final RecordQueryPlannerConfiguration configuration, final int queueSize) {
         return ((configuration.getMaxTaskQueueSize() > 0) && (queueSize > configuration.getMaxTaskQueueSize()));
     }
@@ -607,7 +623,7 @@ public class CascadesPlanner implements QueryPlanner {
         @Override
         public void execute() {
             RelationalExpression bestFinalExpression = null;
-            final var costModel = plannerPhase.createCostModel(configuration);
+            final var costModel = plannerPhase.createCostModel(configuration, statistics);
             for (final var finalExpression : group.getFinalExpressions()) {
                 if (bestFinalExpression == null || costModel.compare(finalExpression, bestFinalExpression) < 0) {
                     if (bestFinalExpression != null) {
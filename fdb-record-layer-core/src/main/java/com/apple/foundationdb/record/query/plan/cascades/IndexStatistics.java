@@ -0,0 +1,416 @@
+/*
+ * IndexStatistics.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.query.plan.cascades;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.IndexStatisticsProto;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.query.expressions.Comparisons;
+import com.apple.foundationdb.record.query.plan.ScanComparisons;
+import com.apple.foundationdb.tuple.Tuple;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Statistics about the keys of an index, used by the {@link PlanningCostModel} to estimate how many index entries an
+ * index scan reads. The statistics consist of
+ * <ul>
+ *     <li>the number of index entries,</li>
+ *     <li>the estimated number of distinct values of each prefix of the index key, which is used to estimate the
+ *     selectivity of equality comparisons, and</li>
+ *     <li>an equi-depth histogram of the first column of the index key, which is used to estimate the selectivity of
+ *     range comparisons on that column and, when the compared value is known, of an equality comparison on it.</li>
+ * </ul>
+ *
+ * <p>
+ * The statistics are collected by
+ * {@link com.apple.foundationdb.record.provider.foundationdb.cursors.IndexStatisticsCollectorCursor} and persisted
+ * with {@link com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore#saveIndexStatistics}. They are only
+ * ever approximate and can be arbitrarily stale.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class IndexStatistics {
+    /**
+     * The selectivity assumed for a range comparison that cannot be estimated using the histogram.
+     */
+    public static final double DEFAULT_RANGE_SELECTIVITY = 1.0 / 3.0;
+
+    private final long keyCount;
+    @Nonnull
+    private final long[] distinctPrefixCounts;
+    @Nonnull
+    private final List<Bucket> histogram;
+    private final long collectedTimestampMillis;
+
+    public IndexStatistics(final long keyCount, @Nonnull final long[] distinctPrefixCounts,
+                           @Nonnull final List<Bucket> histogram, final long collectedTimestampMillis) {
+        if (keyCount < 0) {
+            throw new RecordCoreArgumentException("key count must not be negative");
+        }
+        this.keyCount = keyCount;
+        this.distinctPrefixCounts = distinctPrefixCounts.clone();
+        this.histogram = ImmutableList.copyOf(histogram);
+        this.collectedTimestampMillis = collectedTimestampMillis;
+    }
+
+    /**
+     * Get the number of entries of the index.
+     * @return the number of index entries
+     */
+    public long getKeyCount() {
+        return keyCount;
+    }
+
+    /**
+     * Get the number of columns of the index key for which distinct counts are known.
+     * @return the number of columns with statistics
+     */
+    public int getColumnCount() {
+        return distinctPrefixCounts.length;
+    }
+
+    /**
+     * Get the estimated number of distinct values of the prefix of the index key of the given length.
+     * @param prefixLength the number of leading columns of the index key
+     * @return the estimated number of distinct values of that prefix
+     */
+    public long getDistinctCount(final int prefixLength) {
+        if (prefixLength <= 0 || distinctPrefixCounts.length == 0) {
+            return 1L;
+        }
+        return Math.max(1L, distinctPrefixCounts[Math.min(prefixLength, distinctPrefixCounts.length) - 1]);
+    }
+
+    @Nonnull
+    public List<Bucket> getHistogram() {
+        return histogram;
+    }
+
+    public long getCollectedTimestampMillis() {
+        return collectedTimestampMillis;
+    }
+
+    /**
+     * Estimate the fraction of index entries that match equality comparisons on the given number of leading columns
+     * of the index key. This assumes that all values of the prefix are equally frequent.
+     * @param prefixLength the number of leading columns with equality comparisons
+     * @return the estimated selectivity between {@code 0} and {@code 1}
+     */
+    public double estimateEqualitySelectivity(final int prefixLength) {
+        return 1.0 / getDistinctCount(prefixLength);
+    }
+
+    /**
+     * Estimate the fraction of index entries that match equality comparisons on the given number of leading columns
+     * of the index key, the first of which is compared to a known value. The frequency of that value is taken from
+     * the histogram, so that skewed values are not assumed to be as frequent as any other; the remaining columns are
+     * still assumed to be equally frequent within it.
+     * @param firstColumnValue the value the first column of the index key is compared to
+     * @param prefixLength the number of leading columns with equality comparisons
+     * @return the estimated selectivity between {@code 0} and {@code 1}
+     */
+    public double estimateEqualitySelectivity(@Nonnull final Tuple firstColumnValue, final int prefixLength) {
+        final double uniformSelectivity = estimateEqualitySelectivity(prefixLength);
+        if (prefixLength <= 0) {
+            return uniformSelectivity;
+        }
+        final double frequency = estimateFrequency(firstColumnValue);
+        if (frequency < 0.0) {
+            return uniformSelectivity;
+        }
+        // scale the uniform estimate by how much more (or less) frequent the first value is than an average value
+        return Math.min(1.0, uniformSelectivity * frequency * getDistinctCount(1) / keyCount);
+    }
+
+    /**
+     * Estimate the number of index entries whose first column is the given value, or return a negative number if the
+     * histogram cannot tell. A value that is the upper bound of a bucket has its own count; any other value is assumed
+     * to be as frequent as the other values that are not upper bounds, but no more frequent than all of its bucket.
+     */
+    private double estimateFrequency(@Nonnull final Tuple value) {
+        if (histogram.isEmpty() || keyCount == 0) {
+            return -1.0;
+        }
+        long upperBoundEntries = 0L;
+        for (final Bucket bucket : histogram) {
+            if (bucket.getUpperBoundCount() < 0L) {
+                return -1.0;
+            }
+            upperBoundEntries += bucket.getUpperBoundCount();
+        }
+        for (final Bucket bucket : histogram) {
+            final int compare = bucket.getUpperBound().compareTo(value);
+            if (compare == 0) {
+                return Math.max(1.0, bucket.getUpperBoundCount());
+            } else if (compare > 0) {
+                final long otherEntries = Math.max(0L, keyCount - upperBoundEntries);
+                final long otherValues = Math.max(1L, getDistinctCount(1) - histogram.size());
+                final long bucketOtherEntries = bucket.getCount() - bucket.getUpperBoundCount();
+                // never estimate a value to be absent, as the statistics may be stale
+                return Math.max(1.0, Math.min(bucketOtherEntries, (double)otherEntries / otherValues));
+            }
+        }
+        return 1.0;
+    }
+
+    /**
+     * Estimate the fraction of index entries whose first column lies within the given range using the histogram.
+     * @param low the lower bound of the range or {@code null} if the range is not bounded from below
+     * @param lowInclusive whether the lower bound is part of the range
+     * @param high the upper bound of the range or {@code null} if the range is not bounded from above
+     * @param highInclusive whether the upper bound is part of the range
+     * @return the estimated selectivity between {@code 0} and {@code 1}
+     */
+    public double estimateRangeSelectivity(@Nullable final Tuple low, final boolean lowInclusive,
+                                           @Nullable final Tuple high, final boolean highInclusive) {
+        if (histogram.isEmpty() || keyCount == 0) {
+            return DEFAULT_RANGE_SELECTIVITY;
+        }
+        final double below = low == null ? 0.0 : countBelow(low, !lowInclusive);
+        final double above = high == null ? keyCount : countBelow(high, highInclusive);
+        final double selectivity = (above - below) / keyCount;
+        // never estimate a range to be empty, as the statistics may be stale
+        return Math.min(1.0, Math.max(selectivity, 1.0 / keyCount));
+    }
+
+    /**
+     * Estimate the number of index entries below (or at) the given value of the first column. Entries within the
+     * bucket containing the value are assumed to be evenly split around it.
+     */
+    private double countBelow(@Nonnull final Tuple value, final boolean inclusive) {
+        double count = 0.0;
+        for (final Bucket bucket : histogram) {
+            final int compare = bucket.getUpperBound().compareTo(value);
+            if (compare < 0) {
+                count += bucket.getCount();
+            } else if (compare == 0) {
+                // the upper bound of the bucket is the most frequent value in its bucket if the bucket was closed
+                // early because of a skewed value, so this does not try to split off the value itself
+                return count + (inclusive ? bucket.getCount() : bucket.getCount() / 2.0);
+            } else {
+                return count + bucket.getCount() / 2.0;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Estimate the fraction of index entries a scan using the given comparisons reads.
+     * @param scanComparisons the comparisons of the index scan
+     * @return the estimated selectivity between {@code 0} and {@code 1}
+     */
+    public double estimateSelectivity(@Nonnull final ScanComparisons scanComparisons) {
+        final int equalitySize = scanComparisons.getEqualitySize();
+        final Tuple firstColumnValue = equalitySize == 0 ? null : literalValue(scanComparisons.getEqualityComparisons().get(0));
+        double selectivity = equalitySelectivity(firstColumnValue, equalitySize);
+        if (!scanComparisons.getInequalityComparisons().isEmpty()) {
+            if (equalitySize == 0) {
+                selectivity = estimateFirstColumnSelectivity(scanComparisons);
+            } else {
+                // the range cannot be more selective than an equality comparison on the same column
+                selectivity = Math.max(selectivity * DEFAULT_RANGE_SELECTIVITY, equalitySelectivity(firstColumnValue, equalitySize + 1));
+            }
+        }
+        return selectivity;
+    }
+
+    private double equalitySelectivity(@Nullable final Tuple firstColumnValue, final int prefixLength) {
+        return firstColumnValue == null
+               ? estimateEqualitySelectivity(prefixLength)
+               : estimateEqualitySelectivity(firstColumnValue, prefixLength);
+    }
+
+    /**
+     * Get the value of an equality comparison if it is known at planning time.
+     */
+    @Nullable
+    private static Tuple literalValue(@Nonnull final Comparisons.Comparison comparison) {
+        if (!(comparison instanceof Comparisons.SimpleComparison) || comparison.getType() != Comparisons.Type.EQUALS) {
+            return null;
+        }
+        return Tuple.from(ScanComparisons.toTupleItem(comparison.getComparand()));
+    }
+
+    /**
+     * Estimate the number of index entries a scan using the given comparisons reads.
+     * @param scanComparisons the comparisons of the index scan
+     * @return the estimated number of index entries
+     */
+    public double estimateCardinality(@Nonnull final ScanComparisons scanComparisons) {
+        return keyCount * estimateSelectivity(scanComparisons);
+    }
+
+    private double estimateFirstColumnSelectivity(@Nonnull final ScanComparisons scanComparisons) {
+        Tuple low = null;
+        boolean lowInclusive = false;
+        Tuple high = null;
+        boolean highInclusive = false;
+        for (final Comparisons.Comparison comparison : scanComparisons.getInequalityComparisons()) {
+            // only literal comparands are known at planning time
+            if (!(comparison instanceof Comparisons.SimpleComparison)) {
+                return DEFAULT_RANGE_SELECTIVITY;
+            }
+            final Tuple bound = Tuple.from(ScanComparisons.toTupleItem(comparison.getComparand()));
+            switch (comparison.getType()) {
+                case GREATER_THAN:
+                case GREATER_THAN_OR_EQUALS:
+                    low = bound;
+                    lowInclusive = comparison.getType() == Comparisons.Type.GREATER_THAN_OR_EQUALS;
+                    break;
+                case LESS_THAN:
+                case LESS_THAN_OR_EQUALS:
+                    high = bound;
+                    highInclusive = comparison.getType() == Comparisons.Type.LESS_THAN_OR_EQUALS;
+                    break;
+                default:
+                    return DEFAULT_RANGE_SELECTIVITY;
+            }
+        }
+        return estimateRangeSelectivity(low, lowInclusive, high, highInclusive);
+    }
+
+    @Nonnull
+    public IndexStatisticsProto.IndexStatistics toProto() {
+        final IndexStatisticsProto.IndexStatistics.Builder builder = IndexStatisticsProto.IndexStatistics.newBuilder()
+                .setKeyCount(keyCount)
+                .setCollectedTimestampMillis(collectedTimestampMillis);
+        for (final long distinctPrefixCount : distinctPrefixCounts) {
+            builder.addDistinctPrefixCounts(distinctPrefixCount);
+        }
+        for (final Bucket bucket : histogram) {
+            final IndexStatisticsProto.HistogramBucket.Builder bucketBuilder = IndexStatisticsProto.HistogramBucket.newBuilder()
+                    .setUpperBound(ByteString.copyFrom(bucket.getUpperBound().pack()))
+                    .setCount(bucket.getCount());
+            if (bucket.getUpperBoundCount() >= 0L) {
+                bucketBuilder.setUpperBoundCount(bucket.getUpperBoundCount());
+            }
+            builder.addHistogram(bucketBuilder);
+        }
+        return builder.build();
+    }
+
+    @Nonnull
+    public static IndexStatistics fromProto(@Nonnull final IndexStatisticsProto.IndexStatistics proto) {
+        final long[] distinctPrefixCounts = proto.getDistinctPrefixCountsList().stream().mapToLong(Long::longValue).toArray();
+        final ImmutableList.Builder<Bucket> histogram = ImmutableList.builder();
+        for (final IndexStatisticsProto.HistogramBucket bucket : proto.getHistogramList()) {
+            histogram.add(new Bucket(Tuple.fromBytes(bucket.getUpperBound().toByteArray()), bucket.getCount(),
+                    bucket.hasUpperBoundCount() ? bucket.getUpperBoundCount() : -1L));
+        }
+        return new IndexStatistics(proto.getKeyCount(), distinctPrefixCounts, histogram.build(), proto.getCollectedTimestampMillis());
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final IndexStatistics that = (IndexStatistics)o;
+        return keyCount == that.keyCount &&
+                collectedTimestampMillis == that.collectedTimestampMillis &&
+                Arrays.equals(distinctPrefixCounts, that.distinctPrefixCounts) &&
+                histogram.equals(that.histogram);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(keyCount, Arrays.hashCode(distinctPrefixCounts), histogram, collectedTimestampMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "IndexStatistics{keyCount=" + keyCount +
+                ", distinctPrefixCounts=" + Arrays.toString(distinctPrefixCounts) +
+                ", buckets=" + histogram.size() + "}";
+    }
+
+    /**
+     * A bucket of the equi-depth histogram over the first column of the index key. A bucket contains the entries
+     * whose first column is greater than the upper bound of the previous bucket and less than or equal to its own
+     * upper bound. The bucket also knows how many of its entries are for the upper bound itself, unless it was built
+     * without that count.
+     */
+    public static class Bucket {
+        @Nonnull
+        private final Tuple upperBound;
+        private final long count;
+        private final long upperBoundCount;
+
+        public Bucket(@Nonnull final Tuple upperBound, final long count) {
+            this(upperBound, count, -1L);
+        }
+
+        public Bucket(@Nonnull final Tuple upperBound, final long count, final long upperBoundCount) {
+            this.upperBound = upperBound;
+            this.count = count;
+            this.upperBoundCount = upperBoundCount;
+        }
+
+        @Nonnull
+        public Tuple getUpperBound() {
+            return upperBound;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Get the estimated number of entries of the bucket whose first column is the upper bound.
+         * @return the number of entries for the upper bound or a negative number if it is not known
+         */
+        public long getUpperBoundCount() {
+            return upperBoundCount;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Bucket bucket = (Bucket)o;
+            return count == bucket.count && upperBoundCount == bucket.upperBoundCount && upperBound.equals(bucket.upperBound);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(upperBound, count, upperBoundCount);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + upperBound + ": " + count + (upperBoundCount < 0L ? "" : ", " + upperBoundCount) + ")";
+        }
+    }
+}
@@ -63,8 +63,20 @@ public class KeyExpressionExpansionVisitor implements KeyExpressionVisitor<Visit
      */
     private final Deque<VisitorState> states;
 
+    /**
+     * Whether a field with {@link KeyExpression.FanType#Concatenate} is expanded into the (array) value of the
+     * repeated field. This is only correct where the column is not used for ordering or comparisons, such as the
+     * vector of a vector index.
+     */
+    private final boolean expandConcatenatedFields;
+
     public KeyExpressionExpansionVisitor() {
+        this(false);
+    }
+
+    public KeyExpressionExpansionVisitor(final boolean expandConcatenatedFields) {
         this.states = new ArrayDeque<>();
+        this.expandConcatenatedFields = expandConcatenatedFields;
     }
 
     @Override
@@ -152,6 +164,12 @@ public class KeyExpressionExpansionVisitor implements KeyExpressionVisitor<Visit
                         .builderWithInheritedPlaceholders()
                         .pullUpQuantifier(childQuantifier)
                         .build();
+            case Concatenate: // TODO collect/concatenate function
+                if (!expandConcatenatedFields) {
+                    break;
+                }
+                // the concatenated values of a repeated field are the array value of the field itself
+                // fallthrough
             case None:
                 value = state.registerValue(FieldValue.ofFieldNames(baseQuantifier.getFlowedObjectValue(), fieldNames));
                 if (state.isSelectStar()) {
@@ -166,8 +184,8 @@ public class KeyExpressionExpansionVisitor implements KeyExpressionVisitor<Visit
                     }
                     return GraphExpansion.ofResultColumn(column);
                 }
-            case Concatenate: // TODO collect/concatenate function
             default:
+                break;
         }
         throw new UnsupportedOperationException();
     }
@@ -322,6 +322,18 @@ public interface MatchCandidate {
                         new WindowedIndexExpansionVisitor(index, queriedRecordTypes)
                 ).ifPresent(resultBuilder::add);
                 break;
+            case IndexTypes.VECTOR:
+                expandIndexMatchCandidate(
+                        index,
+                        availableRecordTypeNames,
+                        availableRecordTypes,
+                        queriedRecordTypeNames,
+                        queriedRecordTypes,
+                        isReverse,
+                        commonPrimaryKeyForIndex,
+                        new VectorIndexExpansionVisitor(index, queriedRecordTypes)
+                ).ifPresent(resultBuilder::add);
+                break;
             case IndexTypes.MIN_EVER_TUPLE: // fallthrough
             case IndexTypes.MAX_EVER_TUPLE: // fallthrough
             case IndexTypes.MAX_EVER_LONG: // fallthrough
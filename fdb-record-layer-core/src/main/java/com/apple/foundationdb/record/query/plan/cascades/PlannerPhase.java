@@ -27,7 +27,7 @@ import com.apple.foundationdb.record.query.plan.cascades.debug.eventprotos.PPlan
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Objects;
-import java.util.function.Function;
+import java.util.function.BiFunction;
 
 /**
  * Enum for the planner phase a task of the {@link CascadesPlanner} can be in. Members of the enum define which ruleset
@@ -36,26 +36,27 @@ import java.util.function.Function;
 public enum PlannerPhase {
     // note that the phase are declared in a counterintuitive inverse way since a phase has to specify the next phase
     PLANNING(PlanningRuleSet.getDefault(), PlannerStage.PLANNED, PlanningCostModel::new),
-    REWRITING(RewritingRuleSet.getDefault(), PlannerStage.CANONICAL, RewritingCostModel::new, PLANNING);
+    REWRITING(RewritingRuleSet.getDefault(), PlannerStage.CANONICAL,
+            (configuration, statistics) -> new RewritingCostModel(configuration), PLANNING);
 
     @Nonnull
     private final CascadesRuleSet ruleSet;
     @Nonnull
     private final PlannerStage targetStage;
     @Nonnull
-    private final Function<RecordQueryPlannerConfiguration, CascadesCostModel> costModelCreator;
+    private final BiFunction<RecordQueryPlannerConfiguration, PlannerStatistics, CascadesCostModel> costModelCreator;
     @Nullable
     private final PlannerPhase nextPhase;
 
     PlannerPhase(@Nonnull final CascadesRuleSet ruleSet,
                  @Nonnull final PlannerStage targetStage,
-                 @Nonnull final Function<RecordQueryPlannerConfiguration, CascadesCostModel> costModelCreator) {
+                 @Nonnull final BiFunction<RecordQueryPlannerConfiguration, PlannerStatistics, CascadesCostModel> costModelCreator) {
         this(ruleSet, targetStage, costModelCreator, null);
     }
 
     PlannerPhase(@Nonnull final CascadesRuleSet ruleSet,
                  @Nonnull final PlannerStage targetStage,
-                 @Nonnull final Function<RecordQueryPlannerConfiguration, CascadesCostModel> costModelCreator,
+                 @Nonnull final BiFunction<RecordQueryPlannerConfiguration, PlannerStatistics, CascadesCostModel> costModelCreator,
                  @Nullable final PlannerPhase nextPhase) {
         this.ruleSet = ruleSet;
         this.targetStage = targetStage;
@@ -75,7 +76,13 @@ public enum PlannerPhase {
 
     @Nonnull
     public CascadesCostModel createCostModel(@Nonnull final RecordQueryPlannerConfiguration configuration) {
-        return costModelCreator.apply(configuration);
+        return createCostModel(configuration, PlannerStatistics.empty());
+    }
+
+    @Nonnull
+    public CascadesCostModel createCostModel(@Nonnull final RecordQueryPlannerConfiguration configuration,
+                                             @Nonnull final PlannerStatistics statistics) {
+        return costModelCreator.apply(configuration, statistics);
     }
 
     @Nonnull
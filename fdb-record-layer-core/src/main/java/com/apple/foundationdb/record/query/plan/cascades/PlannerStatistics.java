@@ -0,0 +1,90 @@
+/*
+ * PlannerStatistics.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.query.plan.cascades;
+
+import com.apple.foundationdb.annotation.API;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * The {@link IndexStatistics} available to the {@link CascadesPlanner}, by index name. Statistics are loaded from the
+ * record store ahead of planning (see
+ * {@link com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore#loadPlannerStatisticsAsync()}) and handed
+ * to the planner using {@link CascadesPlanner#setStatistics(PlannerStatistics)}. Indexes without statistics are
+ * costed using only the heuristics of the cost model. An estimate of the number of records in the store, if there is
+ * one, lets a scan of all the records be costed against the index scans.
+ */
+@API(API.Status.EXPERIMENTAL)
+public class PlannerStatistics {
+    @Nonnull
+    private static final PlannerStatistics EMPTY = new PlannerStatistics(ImmutableMap.of());
+
+    @Nonnull
+    private final Map<String, IndexStatistics> indexStatistics;
+    // negative if unknown
+    private final long recordCount;
+
+    public PlannerStatistics(@Nonnull final Map<String, IndexStatistics> indexStatistics) {
+        this(indexStatistics, -1L);
+    }
+
+    public PlannerStatistics(@Nonnull final Map<String, IndexStatistics> indexStatistics, final long recordCount) {
+        this.indexStatistics = ImmutableMap.copyOf(indexStatistics);
+        this.recordCount = recordCount;
+    }
+
+    /**
+     * Get the statistics of the given index.
+     * @param indexName the name of the index
+     * @return the statistics of the index or {@code null} if there are none
+     */
+    @Nullable
+    public IndexStatistics getIndexStatistics(@Nonnull final String indexName) {
+        return indexStatistics.get(indexName);
+    }
+
+    @Nonnull
+    public Map<String, IndexStatistics> getAllIndexStatistics() {
+        return indexStatistics;
+    }
+
+    /**
+     * Get the estimated number of records in the record store.
+     * @return the number of records or an empty optional if there is no estimate
+     */
+    @Nonnull
+    public OptionalLong getRecordCount() {
+        return recordCount < 0L ? OptionalLong.empty() : OptionalLong.of(recordCount);
+    }
+
+    public boolean isEmpty() {
+        return indexStatistics.isEmpty();
+    }
+
+    @Nonnull
+    public static PlannerStatistics empty() {
+        return EMPTY;
+    }
+}
@@ -33,10 +33,12 @@ import com.apple.foundationdb.record.query.plan.cascades.properties.ExpressionDe
 import com.apple.foundationdb.record.query.plan.cascades.properties.NormalizedResidualPredicateProperty;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryCoveringIndexPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFetchFromPartialRecordPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryHashJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInUnionPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryMapPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlanWithComparisons;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlanWithIndex;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryPredicatesFilterPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryScanPlan;
@@ -45,7 +47,9 @@ import com.google.common.collect.Sets;
 
 import javax.annotation.Nonnull;
 import java.util.Map;
+import java.util.OptionalDouble;
 import java.util.OptionalInt;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.function.Supplier;
 
@@ -73,14 +77,23 @@ public class PlanningCostModel implements CascadesCostModel {
                     RecordQueryCoveringIndexPlan.class,
                     RecordQueryFetchFromPartialRecordPlan.class,
                     RecordQueryInJoinPlan.class,
+                    RecordQueryHashJoinPlan.class,
                     RecordQueryMapPlan.class,
                     RecordQueryPredicatesFilterPlan.class);
 
     @Nonnull
     private final RecordQueryPlannerConfiguration configuration;
+    @Nonnull
+    private final PlannerStatistics statistics;
 
     public PlanningCostModel(@Nonnull final RecordQueryPlannerConfiguration configuration) {
+        this(configuration, PlannerStatistics.empty());
+    }
+
+    public PlanningCostModel(@Nonnull final RecordQueryPlannerConfiguration configuration,
+                             @Nonnull final PlannerStatistics statistics) {
         this.configuration = configuration;
+        this.statistics = statistics;
     }
 
     @Nonnull
@@ -132,6 +145,25 @@ public class PlanningCostModel implements CascadesCostModel {
             }
         }
 
+        //
+        // If there are statistics for all the data accesses of both plans, prefer the plan that is estimated to read
+        // fewer entries, whether index entries or records. This comes before counting the residual filters, as those
+        // are only a stand-in for the records a plan reads and then discards, which is what the statistics estimate.
+        // The estimates are compared by order of magnitude (base 2), so that small errors in the estimates do not
+        // override the heuristics below.
+        //
+        final OptionalDouble estimatedEntriesA = estimateEntriesRead(planOpsMapA);
+        final OptionalDouble estimatedEntriesB = estimateEntriesRead(planOpsMapB);
+        if (estimatedEntriesA.isPresent() && estimatedEntriesB.isPresent()) {
+            int estimatedEntriesCompare =
+                    Integer.compare(Math.getExponent(1.0 + estimatedEntriesA.getAsDouble()),
+                            Math.getExponent(1.0 + estimatedEntriesB.getAsDouble()));
+            if (estimatedEntriesCompare != 0) {
+                // smaller one wins
+                return estimatedEntriesCompare;
+            }
+        }
+
         int unsatisfiedFilterCompare = Long.compare(NormalizedResidualPredicateProperty.countNormalizedConjuncts(a),
                 NormalizedResidualPredicateProperty.countNormalizedConjuncts(b));
         if (unsatisfiedFilterCompare != 0) {
@@ -260,7 +292,21 @@ public class PlanningCostModel implements CascadesCostModel {
             // smaller one wins
             return numSimpleOperationsCompare;
         }
-        
+
+        //
+        //  If both plans use hash joins, prefer the one that builds its hash tables over fewer records.
+        //
+        final Cardinality maxBuildCardinalityA = maxOfMaxCardinalitiesOfHashJoinBuildSides(planOpsMapA);
+        final Cardinality maxBuildCardinalityB = maxOfMaxCardinalitiesOfHashJoinBuildSides(planOpsMapB);
+        if (!maxBuildCardinalityA.isUnknown() && !maxBuildCardinalityB.isUnknown()) {
+            int maxBuildCardinalityCompare =
+                    Long.compare(maxBuildCardinalityA.getCardinality(), maxBuildCardinalityB.getCardinality());
+            if (maxBuildCardinalityCompare != 0) {
+                // smaller one wins
+                return maxBuildCardinalityCompare;
+            }
+        }
+
         //
         // If plans are indistinguishable from a cost perspective, select one by planHash. This makes the cost model
         // stable (select the same plan on subsequent plannings).
@@ -291,6 +337,66 @@ public class PlanningCostModel implements CascadesCostModel {
                         });
     }
 
+    /**
+     * Estimate the total number of entries read by the data accesses of a plan using the {@link PlannerStatistics}.
+     * An index scan reads the index entries estimated from the {@link IndexStatistics} of its index and, unless it is
+     * covering, as many records again. A scan of the records without comparisons reads every record of the store.
+     * @param planOpsMap map of the interesting operators of the plan
+     * @return the estimated number of entries, or {@code OptionalDouble.empty()} if the plan contains a data
+     *         access that cannot be estimated
+     */
+    @Nonnull
+    private OptionalDouble estimateEntriesRead(@Nonnull final Map<Class<? extends RelationalExpression>, Set<RelationalExpression>> planOpsMap) {
+        if (statistics.isEmpty()) {
+            return OptionalDouble.empty();
+        }
+        final boolean fetchesCoveredRecords = count(planOpsMap, RecordQueryFetchFromPartialRecordPlan.class) > 0;
+        double estimatedEntries = 0.0;
+        for (final RelationalExpression dataAccess : FindExpressionVisitor.slice(planOpsMap, RecordQueryScanPlan.class, RecordQueryPlanWithIndex.class, RecordQueryCoveringIndexPlan.class)) {
+            if (dataAccess instanceof RecordQueryScanPlan) {
+                final OptionalLong recordCount = statistics.getRecordCount();
+                if (!recordCount.isPresent() || !((RecordQueryScanPlan)dataAccess).getScanComparisons().isEmpty()) {
+                    // there are no statistics on the primary key to tell how much of the store a range reads
+                    return OptionalDouble.empty();
+                }
+                estimatedEntries += recordCount.getAsLong();
+                continue;
+            }
+            final RecordQueryPlan indexPlan = dataAccess instanceof RecordQueryCoveringIndexPlan
+                                              ? ((RecordQueryCoveringIndexPlan)dataAccess).getIndexPlan()
+                                              : (RecordQueryPlan)dataAccess;
+            if (!(indexPlan instanceof RecordQueryPlanWithIndex) || !(indexPlan instanceof RecordQueryPlanWithComparisons) ||
+                    !((RecordQueryPlanWithComparisons)indexPlan).hasScanComparisons()) {
+                return OptionalDouble.empty();
+            }
+            final IndexStatistics indexStatistics = statistics.getIndexStatistics(((RecordQueryPlanWithIndex)indexPlan).getIndexName());
+            if (indexStatistics == null) {
+                return OptionalDouble.empty();
+            }
+            final double indexEntries = indexStatistics.estimateCardinality(((RecordQueryPlanWithComparisons)indexPlan).getScanComparisons());
+            final boolean fetches = !(dataAccess instanceof RecordQueryCoveringIndexPlan) || fetchesCoveredRecords;
+            estimatedEntries += fetches ? 2.0 * indexEntries : indexEntries;
+        }
+        return OptionalDouble.of(estimatedEntries);
+    }
+
+    @Nonnull
+    private Cardinality maxOfMaxCardinalitiesOfHashJoinBuildSides(@Nonnull final Map<Class<? extends RelationalExpression>, Set<RelationalExpression>> planOpsMap) {
+        return FindExpressionVisitor.slice(planOpsMap, RecordQueryHashJoinPlan.class)
+                .stream()
+                .map(plan -> cardinalities().evaluate(((RecordQueryHashJoinPlan)plan).getBuildQuantifier().getRangesOverPlan()).getMaxCardinality())
+                .reduce(Cardinality.ofCardinality(0),
+                        (l, r) -> {
+                            if (l.isUnknown()) {
+                                return l;
+                            }
+                            if (r.isUnknown()) {
+                                return r;
+                            }
+                            return l.getCardinality() > r.getCardinality() ? l : r;
+                        });
+    }
+
     /**
      * Method to break a tie between a plan using singular index scan and one using a singular primary scan.
      * <br>
@@ -0,0 +1,101 @@
+/*
+ * VectorIndexExpansionVisitor.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.query.plan.cascades;
+
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.metadata.IndexTypes;
+import com.apple.foundationdb.record.metadata.RecordType;
+import com.apple.foundationdb.record.metadata.expressions.GroupingKeyExpression;
+import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
+import com.apple.foundationdb.record.query.plan.cascades.typing.Type;
+import com.apple.foundationdb.record.query.plan.cascades.values.DistanceRankValue;
+import com.apple.foundationdb.record.query.plan.cascades.values.Value;
+import com.apple.foundationdb.record.query.plan.cascades.values.WindowedValue;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Class to expand a nearest neighbor access of a {@link IndexTypes#VECTOR} index into a candidate graph. The vector
+ * is treated like the score of a rank index, with the rank by distance from a query vector, a {@link DistanceRankValue},
+ * taking the place of the rank.
+ */
+public class VectorIndexExpansionVisitor extends WindowedIndexExpansionVisitor {
+    public VectorIndexExpansionVisitor(@Nonnull Index index, @Nonnull Collection<RecordType> recordTypes) {
+        super(index, recordTypes, true);
+        Preconditions.checkArgument(IndexTypes.VECTOR.equals(index.getType()));
+    }
+
+    @Nonnull
+    @Override
+    protected GroupingKeyExpression getGroupingKeyExpression() {
+        final var rootExpression = getIndex().getRootExpression();
+        if (rootExpression instanceof GroupingKeyExpression) {
+            return (GroupingKeyExpression)rootExpression;
+        }
+        // an ungrouped vector index is a single partition
+        return new GroupingKeyExpression(rootExpression, 1);
+    }
+
+    @Nonnull
+    @Override
+    protected WindowedValue createWindowedValue(@Nonnull final List<Value> partitioningValues,
+                                                @Nonnull final List<Value> argumentValues) {
+        return new DistanceRankValue(partitioningValues, argumentValues);
+    }
+
+    @Nonnull
+    @Override
+    protected List<CorrelationIdentifier> orderingAliases(@Nonnull final List<CorrelationIdentifier> groupingAliases,
+                                                          @Nonnull final CorrelationIdentifier scoreAlias,
+                                                          @Nonnull final List<CorrelationIdentifier> primaryKeyAliases) {
+        return VectorIndexScanMatchCandidate.orderingAliases(groupingAliases);
+    }
+
+    @Nonnull
+    @Override
+    protected MatchCandidate createMatchCandidate(@Nonnull final Traversal traversal,
+                                                  @Nonnull final Type baseType,
+                                                  @Nonnull final CorrelationIdentifier baseAlias,
+                                                  @Nonnull final List<CorrelationIdentifier> groupingAliases,
+                                                  @Nonnull final CorrelationIdentifier scoreAlias,
+                                                  @Nonnull final CorrelationIdentifier rankAlias,
+                                                  @Nonnull final List<CorrelationIdentifier> primaryKeyAliases,
+                                                  @Nonnull final List<Value> indexKeyValues,
+                                                  @Nullable final KeyExpression primaryKey) {
+        return new VectorIndexScanMatchCandidate(
+                getIndex(),
+                getRecordTypes(),
+                traversal,
+                baseType,
+                baseAlias,
+                groupingAliases,
+                scoreAlias,
+                rankAlias,
+                primaryKeyAliases,
+                indexKeyValues,
+                ValueIndexExpansionVisitor.fullKey(getIndex(), primaryKey),
+                primaryKey);
+    }
+}
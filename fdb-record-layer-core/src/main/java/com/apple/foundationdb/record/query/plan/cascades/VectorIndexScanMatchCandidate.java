@@ -0,0 +1,158 @@
+/*
+ * VectorIndexScanMatchCandidate.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.query.plan.cascades;
+
+import com.apple.foundationdb.async.hnsw.HNSW;
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.RecordMetaData;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.metadata.RecordType;
+import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
+import com.apple.foundationdb.record.provider.foundationdb.VectorIndexScanComparisons;
+import com.apple.foundationdb.record.query.expressions.Comparisons;
+import com.apple.foundationdb.record.query.plan.QueryPlanConstraint;
+import com.apple.foundationdb.record.query.plan.ScanComparisons;
+import com.apple.foundationdb.record.query.plan.cascades.Ordering.Binding;
+import com.apple.foundationdb.record.query.plan.cascades.typing.Type;
+import com.apple.foundationdb.record.query.plan.cascades.values.Value;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryFetchFromPartialRecordPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryIndexPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlan;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSetMultimap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Case class to represent a match candidate that is backed by a {@link com.apple.foundationdb.record.metadata.IndexTypes#VECTOR}
+ * index. A match binds all the grouping columns by equality and the distance rank of the vector by a
+ * {@link Comparisons.DistanceRankValueComparison}, which is turned into a scan for the nearest neighbors of its query
+ * vector. The nearest neighbors are returned by increasing distance, which is not a value of the record, so the index
+ * provides no ordering beyond the fixed grouping columns.
+ */
+public class VectorIndexScanMatchCandidate extends WindowedIndexScanMatchCandidate {
+    public VectorIndexScanMatchCandidate(@Nonnull Index index,
+                                         @Nonnull Collection<RecordType> queriedRecordTypes,
+                                         @Nonnull final Traversal traversal,
+                                         @Nonnull final Type baseType,
+                                         @Nonnull final CorrelationIdentifier baseAlias,
+                                         @Nonnull final List<CorrelationIdentifier> groupingAliases,
+                                         @Nonnull final CorrelationIdentifier vectorAlias,
+                                         @Nonnull final CorrelationIdentifier distanceRankAlias,
+                                         @Nonnull final List<CorrelationIdentifier> primaryKeyAliases,
+                                         @Nonnull final List<Value> indexKeyValues,
+                                         @Nonnull final KeyExpression fullKeyExpression,
+                                         @Nullable final KeyExpression primaryKey) {
+        super(index, queriedRecordTypes, traversal, baseType, baseAlias, groupingAliases, vectorAlias,
+                distanceRankAlias, primaryKeyAliases, indexKeyValues, fullKeyExpression, primaryKey);
+    }
+
+    @Nonnull
+    @Override
+    public List<CorrelationIdentifier> getOrderingAliases() {
+        return orderingAliases(getGroupingAliases());
+    }
+
+    @Override
+    public String toString() {
+        return "Vector[" + getName() + "]";
+    }
+
+    @Nonnull
+    @Override
+    public Ordering computeOrderingFromScanComparisons(@Nonnull final ScanComparisons scanComparisons, final boolean isReverse, final boolean isDistinct) {
+        final var bindingMapBuilder = ImmutableSetMultimap.<Value, Binding>builder();
+        final var normalizedKeyExpressions = getFullKeyExpression().normalizeKeyForPositions();
+        final var equalityComparisons = scanComparisons.getEqualityComparisons();
+
+        for (var i = 0; i < equalityComparisons.size(); i++) {
+            final var normalizedKeyExpression = normalizedKeyExpressions.get(i);
+            if (normalizedKeyExpression.createsDuplicates()) {
+                continue;
+            }
+
+            final var normalizedValue =
+                    new ScalarTranslationVisitor(normalizedKeyExpression).toResultValue(Quantifier.current(),
+                            getBaseType());
+            MatchCandidate.simplifyComparisonMaybe(normalizedValue, equalityComparisons.get(i))
+                    .ifPresent(simplifiedComparisonPair ->
+                            bindingMapBuilder.put(simplifiedComparisonPair.getLeft(), Binding.fixed(simplifiedComparisonPair.getRight())));
+        }
+
+        return Ordering.ofOrderingSequence(bindingMapBuilder.build(), ImmutableList.of(), isDistinct);
+    }
+
+    @Nonnull
+    @Override
+    public RecordQueryPlan toEquivalentPlan(@Nonnull final PartialMatch partialMatch,
+                                            @Nonnull final PlanContext planContext,
+                                            @Nonnull final Memoizer memoizer,
+                                            @Nonnull final List<ComparisonRange> comparisonRanges,
+                                            final boolean reverseScanOrder) {
+        final var baseRecordType =
+                Type.Record.fromFieldDescriptorsMap(RecordMetaData.getFieldDescriptorMapFromTypes(getQueriedRecordTypes()));
+        // the nearest neighbors are always returned nearest first, so there is no reverse scan
+        return new RecordQueryIndexPlan(getName(),
+                getPrimaryKey(),
+                toScanComparisons(comparisonRanges),
+                planContext.getPlannerConfiguration().getIndexFetchMethod(),
+                RecordQueryFetchFromPartialRecordPlan.FetchIndexRecords.PRIMARY_KEY,
+                false,
+                false,
+                partialMatch.getMatchCandidate(),
+                baseRecordType,
+                QueryPlanConstraint.noConstraint());
+    }
+
+    @Nonnull
+    private VectorIndexScanComparisons toScanComparisons(@Nonnull final List<ComparisonRange> comparisonRanges) {
+        final ScanComparisons.Builder prefixBuilder = new ScanComparisons.Builder();
+        Comparisons.DistanceRankValueComparison distanceRankComparison = null;
+        for (ComparisonRange comparisonRange : comparisonRanges) {
+            if (comparisonRange.isEquality()) {
+                prefixBuilder.addEqualityComparison(comparisonRange.getEqualityComparison());
+            } else if (comparisonRange.isInequality()) {
+                for (Comparisons.Comparison comparison : comparisonRange.getInequalityComparisons()) {
+                    if (comparison instanceof Comparisons.DistanceRankValueComparison) {
+                        distanceRankComparison = (Comparisons.DistanceRankValueComparison)comparison;
+                    }
+                }
+            }
+        }
+        final ScanComparisons prefixComparisons = prefixBuilder.build();
+        if (distanceRankComparison == null || prefixComparisons.getEqualitySize() != getGroupingAliases().size()) {
+            throw new RecordCoreException("vector index scan needs equalities on all grouping columns and a distance rank comparison")
+                    .addLogInfo(LogMessageKeys.INDEX_NAME, getName());
+        }
+        final int k = distanceRankComparison.getK();
+        return new VectorIndexScanComparisons(prefixComparisons, distanceRankComparison.getQueryVector(), k,
+                Math.max(k, HNSW.DEFAULT_EF_SEARCH));
+    }
+
+    @Nonnull
+    public static List<CorrelationIdentifier> orderingAliases(@Nonnull final List<CorrelationIdentifier> groupingAliases) {
+        return ImmutableList.copyOf(groupingAliases);
+    }
+}
@@ -31,9 +31,11 @@ import com.apple.foundationdb.record.query.plan.cascades.expressions.MatchableSo
 import com.apple.foundationdb.record.query.plan.cascades.expressions.SelectExpression;
 import com.apple.foundationdb.record.query.plan.cascades.predicates.Placeholder;
 import com.apple.foundationdb.record.query.plan.cascades.predicates.PredicateWithValueAndRanges;
+import com.apple.foundationdb.record.query.plan.cascades.typing.Type;
 import com.apple.foundationdb.record.query.plan.cascades.values.QuantifiedObjectValue;
 import com.apple.foundationdb.record.query.plan.cascades.values.RankValue;
 import com.apple.foundationdb.record.query.plan.cascades.values.Value;
+import com.apple.foundationdb.record.query.plan.cascades.values.WindowedValue;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Verify;
 import com.google.common.collect.ImmutableList;
@@ -58,11 +60,103 @@ public class WindowedIndexExpansionVisitor extends KeyExpressionExpansionVisitor
     private final List<RecordType> recordTypes;
 
     public WindowedIndexExpansionVisitor(@Nonnull Index index, @Nonnull Collection<RecordType> recordTypes) {
+        this(index, recordTypes, false);
         Preconditions.checkArgument(IndexTypes.RANK.equals(index.getType()));
+    }
+
+    protected WindowedIndexExpansionVisitor(@Nonnull Index index, @Nonnull Collection<RecordType> recordTypes,
+                                            final boolean expandConcatenatedFields) {
+        super(expandConcatenatedFields);
         this.index = index;
         this.recordTypes = ImmutableList.copyOf(recordTypes);
     }
 
+    @Nonnull
+    protected Index getIndex() {
+        return index;
+    }
+
+    @Nonnull
+    protected List<RecordType> getRecordTypes() {
+        return recordTypes;
+    }
+
+    /**
+     * Get the key expression of the index with the partitioning columns as its groupings and the ranked columns as its
+     * grouped columns.
+     * @return the grouping key expression of the index
+     */
+    @Nonnull
+    protected GroupingKeyExpression getGroupingKeyExpression() {
+        final var rootExpression = index.getRootExpression();
+        Verify.verify(rootExpression instanceof GroupingKeyExpression);
+        return (GroupingKeyExpression)rootExpression;
+    }
+
+    /**
+     * Create the windowed value that the index maintains for each record.
+     * @param partitioningValues the values of the partitioning columns
+     * @param argumentValues the values of the ranked columns
+     * @return a new windowed value
+     */
+    @Nonnull
+    protected WindowedValue createWindowedValue(@Nonnull List<Value> partitioningValues,
+                                                @Nonnull List<Value> argumentValues) {
+        return new RankValue(partitioningValues, argumentValues);
+    }
+
+    /**
+     * Get the aliases of the placeholders whose values the index is ordered by.
+     * @param groupingAliases the aliases of the grouping placeholders
+     * @param scoreAlias the alias of the score placeholder
+     * @param primaryKeyAliases the aliases of the primary key placeholders
+     * @return the ordering aliases
+     */
+    @Nonnull
+    protected List<CorrelationIdentifier> orderingAliases(@Nonnull final List<CorrelationIdentifier> groupingAliases,
+                                                          @Nonnull final CorrelationIdentifier scoreAlias,
+                                                          @Nonnull final List<CorrelationIdentifier> primaryKeyAliases) {
+        return WindowedIndexScanMatchCandidate.orderingAliases(groupingAliases, scoreAlias, primaryKeyAliases);
+    }
+
+    /**
+     * Create the match candidate for the expanded index.
+     * @param traversal the traversal of the expanded candidate graph
+     * @param baseType the type of the records that the index is defined on
+     * @param baseAlias the alias of the base quantifier
+     * @param groupingAliases the aliases of the grouping placeholders
+     * @param scoreAlias the alias of the score placeholder
+     * @param rankAlias the alias of the placeholder of the windowed value
+     * @param primaryKeyAliases the aliases of the primary key placeholders
+     * @param indexKeyValues the values of the index key
+     * @param primaryKey the primary key of the data object the caller wants to access
+     * @return a new match candidate
+     */
+    @Nonnull
+    protected MatchCandidate createMatchCandidate(@Nonnull final Traversal traversal,
+                                                  @Nonnull final Type baseType,
+                                                  @Nonnull final CorrelationIdentifier baseAlias,
+                                                  @Nonnull final List<CorrelationIdentifier> groupingAliases,
+                                                  @Nonnull final CorrelationIdentifier scoreAlias,
+                                                  @Nonnull final CorrelationIdentifier rankAlias,
+                                                  @Nonnull final List<CorrelationIdentifier> primaryKeyAliases,
+                                                  @Nonnull final List<Value> indexKeyValues,
+                                                  @Nullable final KeyExpression primaryKey) {
+        return new WindowedIndexScanMatchCandidate(
+                index,
+                recordTypes,
+                traversal,
+                baseType,
+                baseAlias,
+                groupingAliases,
+                scoreAlias,
+                rankAlias,
+                primaryKeyAliases,
+                indexKeyValues,
+                ValueIndexExpansionVisitor.fullKey(index, primaryKey),
+                primaryKey);
+    }
+
     /**
      * We expand a rank index into a QGM representing the nature of the index as relational-algebra.
      *
@@ -95,8 +189,7 @@ public class WindowedIndexExpansionVisitor extends KeyExpressionExpansionVisitor
     public MatchCandidate expand(@Nonnull final Supplier<Quantifier.ForEach> baseQuantifierSupplier,
                                  @Nullable final KeyExpression primaryKey,
                                  final boolean isReverse) {
-        var rootExpression = index.getRootExpression();
-        Verify.verify(rootExpression instanceof GroupingKeyExpression);
+        final var groupingKeyExpression = getGroupingKeyExpression();
 
         Debugger.updateIndex(PredicateWithValueAndRanges.class, old -> 0);
         final var allExpansionsBuilder = ImmutableList.<GraphExpansion>builder();
@@ -114,7 +207,6 @@ public class WindowedIndexExpansionVisitor extends KeyExpressionExpansionVisitor
         final var baseAlias = baseQuantifier.getAlias();
 
         final var groupingAndArgumentValues = Lists.<Value>newArrayList();
-        final var groupingKeyExpression = (GroupingKeyExpression)rootExpression;
         // TODO verify if there is only ever going to be a grouped count of 1, for now assert on it
         Verify.verify(groupingKeyExpression.getGroupedCount() == 1);
 
@@ -169,11 +261,9 @@ public class WindowedIndexExpansionVisitor extends KeyExpressionExpansionVisitor
         final var groupingAndArgumentAliases = expandGroupingsAndArgumentsResult.getGroupingsAndArgumentsAliases();
         final var groupingAliases = groupingAndArgumentAliases.subList(0, groupingKeyExpression.getGroupingCount());
         final var scoreAlias = groupingAndArgumentAliases.get(groupingAndArgumentAliases.size() - 1);
-        final var matchableSortExpression = new MatchableSortExpression(WindowedIndexScanMatchCandidate.orderingAliases(groupingAliases, scoreAlias, primaryKeyAliases), isReverse, completeExpansion.buildSelect());
+        final var matchableSortExpression = new MatchableSortExpression(orderingAliases(groupingAliases, scoreAlias, primaryKeyAliases), isReverse, completeExpansion.buildSelect());
 
-        return new WindowedIndexScanMatchCandidate(
-                index,
-                recordTypes,
+        return createMatchCandidate(
                 Traversal.withRoot(Reference.initialOf(matchableSortExpression)),
                 baseQuantifier.getFlowedObjectType(),
                 baseAlias,
@@ -182,7 +272,6 @@ public class WindowedIndexExpansionVisitor extends KeyExpressionExpansionVisitor
                 rankAlias,
                 primaryKeyAliases,
                 indexKeyValues,
-                ValueIndexExpansionVisitor.fullKey(index, primaryKey),
                 primaryKey);
     }
 
@@ -279,7 +368,7 @@ public class WindowedIndexExpansionVisitor extends KeyExpressionExpansionVisitor
         final var partitioningSize = groupingKeyExpression.getGroupingCount();
         final var partitioningExpressions = sealedPartitioningAndArgumentExpansion.getResultValues().subList(0, partitioningSize);
         final var argumentExpressions = sealedPartitioningAndArgumentExpansion.getResultValues().subList(partitioningSize, groupingKeyExpression.getColumnSize());
-        final var rankValue = new RankValue(partitioningExpressions, argumentExpressions);
+        final var rankValue = createWindowedValue(partitioningExpressions, argumentExpressions);
         final var rankAlias = newParameterAlias();
         final var rankPlaceholder = Placeholder.newInstanceWithoutRanges(rankValue, rankAlias);
         final var selfJoinPredicate =
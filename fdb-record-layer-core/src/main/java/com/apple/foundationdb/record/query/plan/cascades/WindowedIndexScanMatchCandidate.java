@@ -209,6 +209,21 @@ public class WindowedIndexScanMatchCandidate implements ScanWithFetchMatchCandid
         return baseType;
     }
 
+    @Nonnull
+    protected Index getIndex() {
+        return index;
+    }
+
+    @Nonnull
+    protected List<CorrelationIdentifier> getGroupingAliases() {
+        return groupingAliases;
+    }
+
+    @Nullable
+    protected KeyExpression getPrimaryKey() {
+        return primaryKey;
+    }
+
     @Nonnull
     public List<Value> getIndexKeyValues() {
         return indexKeyValues;
@@ -46,6 +46,8 @@ import com.apple.foundationdb.record.query.plan.plans.RecordQueryFetchFromPartia
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFilterPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFirstOrDefaultPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFlatMapPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryHashAggregationPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryHashJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInComparandJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInParameterJoinPlan;
@@ -311,6 +313,34 @@ public class ExplainPlanVisitor extends ExplainTokens implements RecordQueryPlan
                 .addWhitespace().addClosingBrace();
     }
 
+    @Nonnull
+    @Override
+    public ExplainTokens visitHashAggregationPlan(@Nonnull final RecordQueryHashAggregationPlan hashAggregationPlan) {
+        visit(hashAggregationPlan.getChild());
+        return pipe().addKeyword("HASHAGG").addWhitespace().addPush()
+                .addCurrentAliasDefinition(hashAggregationPlan.getInner().getAlias())
+                .addNested(hashAggregationPlan.getAggregateValue().explain().getExplainTokens())
+                .addWhitespace().addKeyword("GROUP").addWhitespace().addKeyword("BY").addWhitespace()
+                .addNested(hashAggregationPlan.getGroupingValue().explain().getExplainTokens());
+    }
+
+    @Nonnull
+    @Override
+    public ExplainTokens visitHashJoinPlan(@Nonnull final RecordQueryHashJoinPlan hashJoinPlan) {
+        final var probeQuantifier = hashJoinPlan.getProbeQuantifier();
+        visit(probeQuantifier.getRangesOverPlan());
+        pipe().addKeyword("HASHJOIN").addWhitespace().addAliasDefinition(probeQuantifier.getAlias()).addWhitespace()
+                .addToString("->").addWhitespace().addOpeningBrace().addLinebreakOrWhitespace();
+        final var buildQuantifier = hashJoinPlan.getBuildQuantifier();
+        return visit(buildQuantifier.getRangesOverPlan())
+                .addWhitespace().addKeyword("AS").addWhitespace().addAliasDefinition(buildQuantifier.getAlias())
+                .addLinebreakOrWhitespace().addKeyword("ON").addWhitespace()
+                .addNested(hashJoinPlan.getJoinPredicate().explain().getExplainTokens())
+                .addLinebreakOrWhitespace().addKeyword("RETURN").addWhitespace()
+                .addNested(hashJoinPlan.getResultValue().explain().getExplainTokens())
+                .addWhitespace().addClosingBrace();
+    }
+
     @Nonnull
     private ExplainTokens visitInJoinPlan(@Nonnull final RecordQueryInJoinPlan inJoinPlan) {
         final var inSource = inJoinPlan.getInSource();
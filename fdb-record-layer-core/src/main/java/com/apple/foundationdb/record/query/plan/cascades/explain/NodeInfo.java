@@ -84,6 +84,17 @@ public class NodeInfo {
             NodeIcon.COMPUTATION_OPERATOR,
             "Nested Loop Join",
             "A nested loop join operator performs a relational join between its two input operands by reevaluating the right (inner) side for each left (outer) record.");
+    public static final NodeInfo HASH_AGGREGATE_OPERATOR = new NodeInfo(
+            "HashAggregateOperator",
+            NodeIcon.COMPUTATION_OPERATOR,
+            "Hash Aggregate",
+            "A hash aggregate operator accumulates values from its input and applies a function to produce new values (e.g. SUM, MAX). It groups the inputs by its grouping parameters using a hash table and does not require its input to be ordered.");
+    @Nonnull
+    public static final NodeInfo HASH_JOIN_OPERATOR = new NodeInfo(
+            "HashJoinOperator",
+            NodeIcon.COMPUTATION_OPERATOR,
+            "Hash Join",
+            "A hash join operator performs an equi-join between its two input operands by building a hash table over the right (build) side once and probing it with each left (probe) record.");
     public static final NodeInfo LOAD_BY_KEYS_OPERATOR = new NodeInfo(
             "LoadByKeysOperator",
             NodeIcon.DATA_ACCESS_OPERATOR,
@@ -247,6 +258,8 @@ public class NodeInfo {
                 INDEX_SCAN_OPERATOR,
                 INTERSECTION_OPERATOR,
                 NESTED_LOOP_JOIN_OPERATOR,
+                HASH_AGGREGATE_OPERATOR,
+                HASH_JOIN_OPERATOR,
                 LOAD_BY_KEYS_OPERATOR,
                 PREDICATE_FILTER_OPERATOR,
                 SCAN_OPERATOR,
@@ -763,6 +763,7 @@ public class RangeConstraints implements PlanHashable, Correlated<RangeConstrain
                 case STARTS_WITH:
                 case NOT_NULL:
                 case IS_NULL:
+                case DISTANCE_RANK_LESS_THAN_OR_EQUAL:
                     return true;
                 case TEXT_CONTAINS_ALL:
                 case TEXT_CONTAINS_ALL_WITHIN:
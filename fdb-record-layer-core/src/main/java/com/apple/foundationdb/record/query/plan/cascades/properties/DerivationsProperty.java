@@ -27,6 +27,7 @@ import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.query.expressions.Comparisons;
 import com.apple.foundationdb.record.query.plan.bitmap.ComposedBitmapIndexQueryPlan;
 import com.apple.foundationdb.record.query.plan.cascades.AliasMap;
+import com.apple.foundationdb.record.query.plan.cascades.CorrelationIdentifier;
 import com.apple.foundationdb.record.query.plan.cascades.ExpressionProperty;
 import com.apple.foundationdb.record.query.plan.cascades.Reference;
 import com.apple.foundationdb.record.query.plan.cascades.Quantifier;
@@ -53,6 +54,8 @@ import com.apple.foundationdb.record.query.plan.plans.RecordQueryFetchFromPartia
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFilterPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFirstOrDefaultPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFlatMapPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryHashAggregationPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryHashJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInComparandJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInParameterJoinPlan;
@@ -70,6 +73,7 @@ import com.apple.foundationdb.record.query.plan.plans.RecordQueryIntersectionOnV
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryLoadByKeysPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryMapPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlanWithChild;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlanVisitor;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlanWithComparisonKeyValues;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlanWithComparisons;
@@ -97,6 +101,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Objects;
 
@@ -627,28 +632,82 @@ public class DerivationsProperty implements ExpressionProperty<DerivationsProper
                             .build());
         }
 
+        @Nonnull
+        @Override
+        public Derivations visitHashAggregationPlan(@Nonnull final RecordQueryHashAggregationPlan hashAggregationPlan) {
+            return aggregationDerivations(hashAggregationPlan, hashAggregationPlan.getInner(),
+                    hashAggregationPlan.getGroupingValue(), hashAggregationPlan.getGroupingKeyAlias(),
+                    hashAggregationPlan.getAggregateValue(), hashAggregationPlan.getAggregateAlias());
+        }
+
+        @Nonnull
+        @Override
+        public Derivations visitHashJoinPlan(@Nonnull final RecordQueryHashJoinPlan hashJoinPlan) {
+            final var probeQuantifier = hashJoinPlan.getProbeQuantifier();
+            final var buildQuantifier = hashJoinPlan.getBuildQuantifier();
+            final var probeDerivations = derivationsFromQuantifier(probeQuantifier);
+            final var buildDerivations = derivationsFromQuantifier(buildQuantifier);
+
+            //
+            // The legs of a hash join are not correlated to each other, so the result value (and the join predicate)
+            // only need to be translated using the result values of both legs.
+            //
+            final var resultValue = hashJoinPlan.getResultValue();
+            final var valuesFromJoinPredicate = hashJoinPlan.getJoinPredicate().fold(valuesInPredicate(), combineValuesInChildren());
+            final var decorrelatedResultValuesBuilder = ImmutableList.<Value>builder();
+            final var localValuesBuilder = ImmutableList.<Value>builder();
+            localValuesBuilder.addAll(probeDerivations.getLocalValues());
+            localValuesBuilder.addAll(buildDerivations.getLocalValues());
+            for (final var probeResultValue : probeDerivations.getResultValues()) {
+                for (final var buildResultValue : buildDerivations.getResultValues()) {
+                    final var translationMap = TranslationMap.regularBuilder()
+                            .when(probeQuantifier.getAlias()).then((sourceAlias, leafValue) -> probeResultValue)
+                            .when(buildQuantifier.getAlias()).then((sourceAlias, leafValue) -> buildResultValue)
+                            .build();
+                    decorrelatedResultValuesBuilder.add(resultValue.translateCorrelations(translationMap, true));
+                    valuesFromJoinPredicate.stream()
+                            .map(value -> value.translateCorrelations(translationMap, true))
+                            .forEach(localValuesBuilder::add);
+                }
+            }
+
+            final var decorrelatedResultValues = decorrelatedResultValuesBuilder.build();
+            return new Derivations(decorrelatedResultValues,
+                    localValuesBuilder.addAll(decorrelatedResultValues).build());
+        }
+
         @Nonnull
         @Override
         public Derivations visitStreamingAggregationPlan(@Nonnull final RecordQueryStreamingAggregationPlan streamingAggregationPlan) {
+            return aggregationDerivations(streamingAggregationPlan, streamingAggregationPlan.getInner(),
+                    streamingAggregationPlan.getGroupingValue(), streamingAggregationPlan.getGroupingKeyAlias(),
+                    streamingAggregationPlan.getAggregateValue(), streamingAggregationPlan.getAggregateAlias());
+        }
+
+        @Nonnull
+        private Derivations aggregationDerivations(@Nonnull final RecordQueryPlanWithChild aggregationPlan,
+                                                   @Nonnull final Quantifier.Physical innerQuantifier,
+                                                   @Nullable final Value groupingValue,
+                                                   @Nonnull final CorrelationIdentifier groupingKeyAlias,
+                                                   @Nonnull final Value aggregateValue,
+                                                   @Nonnull final CorrelationIdentifier aggregateAlias) {
             //
             // get the result value and translate the groupings and aggregations into it
             //
-            final var resultValue = streamingAggregationPlan.getResultValue();
+            final var resultValue = aggregationPlan.getResultValue();
             final var resultTranslationMap = TranslationMap.regularBuilder();
 
-            final var groupingValue = streamingAggregationPlan.getGroupingValue();
             if (groupingValue != null) {
                 resultTranslationMap
-                        .when(streamingAggregationPlan.getGroupingKeyAlias())
-                        .then((sourceAlias, leafValue) -> streamingAggregationPlan.getGroupingValue());
+                        .when(groupingKeyAlias)
+                        .then((sourceAlias, leafValue) -> groupingValue);
             }
 
-            resultTranslationMap.when(streamingAggregationPlan.getAggregateAlias())
-                    .then((sourceAlias, leafValue) -> streamingAggregationPlan.getAggregateValue());
+            resultTranslationMap.when(aggregateAlias)
+                    .then((sourceAlias, leafValue) -> aggregateValue);
 
             final var expandedResultValue = resultValue.translateCorrelations(resultTranslationMap.build(), true);
-            final var childDerivations = derivationsFromSingleChild(streamingAggregationPlan);
-            final var innerQuantifier = streamingAggregationPlan.getInner();
+            final var childDerivations = derivationsFromSingleChild(aggregationPlan);
             final var decorrelatedResultValuesBuilder = ImmutableList.<Value>builder();
             for (final var childResultValue : childDerivations.getResultValues()) {
                 final var translationMap = TranslationMap.regularBuilder()
@@ -52,6 +52,8 @@ import com.apple.foundationdb.record.query.plan.plans.RecordQueryFetchFromPartia
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFilterPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFirstOrDefaultPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFlatMapPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryHashAggregationPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryHashJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInComparandJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInParameterJoinPlan;
@@ -613,6 +615,20 @@ public class OrderingProperty implements ExpressionProperty<Ordering> {
             return Ordering.empty();
         }
 
+        @Nonnull
+        @Override
+        public Ordering visitHashAggregationPlan(@Nonnull final RecordQueryHashAggregationPlan hashAggregationPlan) {
+            // groups are returned partition by partition, ordered by their serialized grouping key
+            return Ordering.empty();
+        }
+
+        @Nonnull
+        @Override
+        public Ordering visitHashJoinPlan(@Nonnull final RecordQueryHashJoinPlan hashJoinPlan) {
+            // a hash join that spills its build side probes in multiple passes and does not preserve any order
+            return Ordering.empty();
+        }
+
         @Nonnull
         @Override
         public Ordering visitScanPlan(@Nonnull final RecordQueryScanPlan scanPlan) {
@@ -40,6 +40,8 @@ import com.apple.foundationdb.record.query.plan.plans.RecordQueryFetchFromPartia
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFilterPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFirstOrDefaultPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFlatMapPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryHashAggregationPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryHashJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInComparandJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInParameterJoinPlan;
@@ -372,6 +374,18 @@ public class PrimaryKeyProperty implements ExpressionProperty<Optional<List<Valu
             return Optional.empty();
         }
 
+        @Nonnull
+        @Override
+        public Optional<List<Value>> visitHashAggregationPlan(@Nonnull final RecordQueryHashAggregationPlan element) {
+            return Optional.empty();
+        }
+
+        @Nonnull
+        @Override
+        public Optional<List<Value>> visitHashJoinPlan(@Nonnull final RecordQueryHashJoinPlan hashJoinPlan) {
+            return Optional.empty();
+        }
+
         @Nonnull
         @Override
         public Optional<List<Value>> visitStreamingAggregationPlan(@Nonnull final RecordQueryStreamingAggregationPlan element) {
@@ -37,6 +37,8 @@ import com.apple.foundationdb.record.query.plan.plans.RecordQueryFetchFromPartia
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFilterPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFirstOrDefaultPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryFlatMapPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryHashAggregationPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryHashJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInComparandJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInJoinPlan;
 import com.apple.foundationdb.record.query.plan.plans.RecordQueryInParameterJoinPlan;
@@ -332,6 +334,18 @@ public class StoredRecordProperty implements ExpressionProperty<Boolean> {
             return false;
         }
 
+        @Nonnull
+        @Override
+        public Boolean visitHashAggregationPlan(@Nonnull final RecordQueryHashAggregationPlan element) {
+            return false;
+        }
+
+        @Nonnull
+        @Override
+        public Boolean visitHashJoinPlan(@Nonnull final RecordQueryHashJoinPlan hashJoinPlan) {
+            return false;
+        }
+
         @Nonnull
         @Override
         public Boolean visitStreamingAggregationPlan(@Nonnull final RecordQueryStreamingAggregationPlan element) {
@@ -0,0 +1,123 @@
+/*
+ * ImplementHashAggregationRule.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.query.plan.cascades.rules;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.query.plan.cascades.AliasMap;
+import com.apple.foundationdb.record.query.plan.cascades.ImplementationCascadesRule;
+import com.apple.foundationdb.record.query.plan.cascades.ImplementationCascadesRuleCall;
+import com.apple.foundationdb.record.query.plan.cascades.PlanPartitions;
+import com.apple.foundationdb.record.query.plan.cascades.Quantifier;
+import com.apple.foundationdb.record.query.plan.cascades.Reference;
+import com.apple.foundationdb.record.query.plan.cascades.RequestedOrderingConstraint;
+import com.apple.foundationdb.record.query.plan.cascades.expressions.GroupByExpression;
+import com.apple.foundationdb.record.query.plan.cascades.matching.structure.BindingMatcher;
+import com.apple.foundationdb.record.query.plan.cascades.matching.structure.ReferenceMatchers;
+import com.apple.foundationdb.record.query.plan.cascades.properties.OrderingProperty;
+import com.apple.foundationdb.record.query.plan.cascades.values.AggregateValue;
+import com.apple.foundationdb.record.query.plan.cascades.values.Values;
+import com.apple.foundationdb.record.query.plan.cascades.values.simplification.DefaultValueSimplificationRuleSet;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryHashAggregationPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlan;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+
+import javax.annotation.Nonnull;
+import java.util.Set;
+
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.AnyMatcher.any;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.MultiMatcher.all;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.QuantifierMatchers.forEachQuantifierOverRef;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RelationalExpressionMatchers.groupByExpression;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.ValueMatchers.recordConstructorValue;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.ValueMatchers.streamableAggregateValue;
+
+/**
+ * Rule for implementing logical {@code GROUP BY} into a physical hash aggregate operator
+ * {@link RecordQueryHashAggregationPlan}. The rule only yields a plan if none of the plans of the input provide an
+ * ordering compatible with the grouping value, i.e. if {@link ImplementStreamingAggregationRule} cannot implement the
+ * {@code GROUP BY}. Aggregations without a grouping value are always left to the streaming aggregation.
+ * The rule is only active if {@link com.apple.foundationdb.record.query.plan.RecordQueryPlannerConfiguration#shouldPlanHashAggregations()}.
+ */
+@API(API.Status.EXPERIMENTAL)
+@SuppressWarnings("PMD.TooManyStaticImports")
+public class ImplementHashAggregationRule extends ImplementationCascadesRule<GroupByExpression> {
+    @Nonnull
+    private static final BindingMatcher<Reference> lowerRefMatcher = ReferenceMatchers.anyRef();
+    @Nonnull
+    private static final BindingMatcher<Quantifier.ForEach> innerQuantifierMatcher = forEachQuantifierOverRef(lowerRefMatcher);
+    @Nonnull
+    private static final BindingMatcher<GroupByExpression> root =
+            groupByExpression(recordConstructorValue(all(streamableAggregateValue())), any(innerQuantifierMatcher));
+
+    public ImplementHashAggregationRule() {
+        super(root, ImmutableSet.of(RequestedOrderingConstraint.REQUESTED_ORDERING));
+    }
+
+    @Override
+    public void onMatch(@Nonnull final ImplementationCascadesRuleCall call) {
+        if (!call.getContext().getPlannerConfiguration().shouldPlanHashAggregations()) {
+            return;
+        }
+        final var bindings = call.getBindings();
+
+        final var groupByExpression = bindings.get(root);
+        final var groupingValue = groupByExpression.getGroupingValue();
+        if (groupingValue == null) {
+            return;
+        }
+
+        final var correlatedTo = groupByExpression.getCorrelatedTo();
+        final var innerQuantifier = Iterables.getOnlyElement(groupByExpression.getQuantifiers());
+        final var currentGroupingValue = groupingValue.rebase(AliasMap.ofAliases(innerQuantifier.getAlias(), Quantifier.current()));
+        final var requiredOrderingKeyValues =
+                ImmutableSet.copyOf(
+                        Values.simplify(Values.primitiveAccessorsForType(currentGroupingValue.getResultType(),
+                                () -> currentGroupingValue),
+                                DefaultValueSimplificationRuleSet.instance(),
+                                call.getEvaluationContext(), AliasMap.emptyMap(), correlatedTo));
+
+        final var innerReference = innerQuantifier.getRangesOver();
+        final var planPartitions = PlanPartitions.rollUpTo(innerReference.toPlanPartitions(), OrderingProperty.ordering());
+        final var plansBuilder = ImmutableSet.<RecordQueryPlan>builder();
+        for (final var planPartition : planPartitions) {
+            final var providedOrdering = planPartition.getPartitionPropertyValue(OrderingProperty.ordering());
+            if (providedOrdering.satisfiesGroupingValues(requiredOrderingKeyValues)) {
+                // the streaming aggregation is cheaper and returns the groups in order
+                return;
+            }
+            plansBuilder.addAll(planPartition.getPlans());
+        }
+        final Set<RecordQueryPlan> plans = plansBuilder.build();
+        if (plans.isEmpty()) {
+            return;
+        }
+
+        final var newInnerPlanReference = call.memoizeMemberPlansFromOther(innerReference, plans);
+        final var newPlanQuantifier = Quantifier.physical(newInnerPlanReference);
+        final var aliasMap = AliasMap.ofAliases(innerQuantifier.getAlias(), newPlanQuantifier.getAlias());
+        final var rebasedAggregatedValue = groupByExpression.getAggregateValue().rebase(aliasMap);
+        final var rebasedGroupingValue = groupingValue.rebase(aliasMap);
+        call.yieldPlan(RecordQueryHashAggregationPlan.of(newPlanQuantifier, rebasedGroupingValue,
+                (AggregateValue)rebasedAggregatedValue,
+                groupByExpression.getResultValueFunction()));
+    }
+}
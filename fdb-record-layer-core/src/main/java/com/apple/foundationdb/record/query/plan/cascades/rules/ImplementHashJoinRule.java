@@ -0,0 +1,246 @@
+/*
+ * ImplementHashJoinRule.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.query.plan.cascades.rules;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.logging.KeyValueLogMessage;
+import com.apple.foundationdb.record.query.expressions.Comparisons;
+import com.apple.foundationdb.record.query.plan.cascades.CorrelationIdentifier;
+import com.apple.foundationdb.record.query.plan.cascades.ImplementationCascadesRule;
+import com.apple.foundationdb.record.query.plan.cascades.ImplementationCascadesRuleCall;
+import com.apple.foundationdb.record.query.plan.cascades.PlanPartition;
+import com.apple.foundationdb.record.query.plan.cascades.Quantifier;
+import com.apple.foundationdb.record.query.plan.cascades.Reference;
+import com.apple.foundationdb.record.query.plan.cascades.RequestedOrderingConstraint;
+import com.apple.foundationdb.record.query.plan.cascades.debug.Debugger;
+import com.apple.foundationdb.record.query.plan.cascades.expressions.SelectExpression;
+import com.apple.foundationdb.record.query.plan.cascades.matching.structure.BindingMatcher;
+import com.apple.foundationdb.record.query.plan.cascades.predicates.QueryPredicate;
+import com.apple.foundationdb.record.query.plan.cascades.predicates.ValuePredicate;
+import com.apple.foundationdb.record.query.plan.cascades.values.Value;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryHashJoinPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryPredicatesFilterPlan;
+import com.google.common.base.Verify;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Set;
+
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.MultiMatcher.all;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.PlanPartitionMatchers.anyPlanPartition;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.PlanPartitionMatchers.planPartitions;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.PlanPartitionMatchers.rollUpPartitions;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.QuantifierMatchers.anyQuantifierOverRef;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RelationalExpressionMatchers.canBeImplemented;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RelationalExpressionMatchers.selectExpression;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.SetMatcher.exactlyInAnyOrder;
+
+/**
+ * A rule that implements an inner equi-join of its (already implemented) children as a {@link RecordQueryHashJoinPlan}.
+ * The rule only fires if the join contains at least one equality predicate between a value that only depends on the
+ * probe (outer) leg and a value that only depends on the build (inner) leg, and if neither leg is correlated to the
+ * other. As the rule matches both orientations of the join, it yields plans using either leg as the build side and
+ * leaves it to the cost model to pick one. The rule is only active if
+ * {@link com.apple.foundationdb.record.query.plan.RecordQueryPlannerConfiguration#shouldPlanHashJoins()} is set.
+ */
+@API(API.Status.EXPERIMENTAL)
+@SuppressWarnings("PMD.TooManyStaticImports")
+public class ImplementHashJoinRule extends ImplementationCascadesRule<SelectExpression> {
+    @Nonnull
+    private static final Logger logger = LoggerFactory.getLogger(ImplementHashJoinRule.class);
+
+    @Nonnull
+    private static final BindingMatcher<PlanPartition> probePlanPartitionsMatcher = anyPlanPartition();
+
+    @Nonnull
+    private static final BindingMatcher<Reference> probeReferenceMatcher =
+            planPartitions(rollUpPartitions(all(probePlanPartitionsMatcher)));
+    @Nonnull
+    private static final BindingMatcher<Quantifier> probeQuantifierMatcher = anyQuantifierOverRef(probeReferenceMatcher);
+    @Nonnull
+    private static final BindingMatcher<PlanPartition> buildPlanPartitionsMatcher = anyPlanPartition();
+
+    @Nonnull
+    private static final BindingMatcher<Reference> buildReferenceMatcher =
+            planPartitions(rollUpPartitions(all(buildPlanPartitionsMatcher)));
+    @Nonnull
+    private static final BindingMatcher<Quantifier> buildQuantifierMatcher = anyQuantifierOverRef(buildReferenceMatcher);
+    @Nonnull
+    private static final BindingMatcher<SelectExpression> root =
+            selectExpression(exactlyInAnyOrder(probeQuantifierMatcher, buildQuantifierMatcher)).where(canBeImplemented());
+
+    public ImplementHashJoinRule() {
+        super(root, ImmutableSet.of(RequestedOrderingConstraint.REQUESTED_ORDERING));
+    }
+
+    @Override
+    @SuppressWarnings({"java:S135", "java:S2629", "PMD.GuardLogStatement"})
+    public void onMatch(@Nonnull final ImplementationCascadesRuleCall call) {
+        if (!call.getContext().getPlannerConfiguration().shouldPlanHashJoins()) {
+            return;
+        }
+        final var requestedOrderingsOptional = call.getPlannerConstraintMaybe(RequestedOrderingConstraint.REQUESTED_ORDERING);
+        if (requestedOrderingsOptional.isEmpty()) {
+            return;
+        }
+        final var bindings = call.getBindings();
+        final var selectExpression = bindings.get(root);
+
+        final var probeQuantifier = bindings.get(probeQuantifierMatcher);
+        final var buildQuantifier = bindings.get(buildQuantifierMatcher);
+
+        // only inner joins; existential and null-on-empty legs are left to the nested loop join
+        if (!isPlainForEach(probeQuantifier) || !isPlainForEach(buildQuantifier)) {
+            return;
+        }
+
+        final var probeAlias = probeQuantifier.getAlias();
+        final var buildAlias = buildQuantifier.getAlias();
+
+        final var fullCorrelationOrder =
+                selectExpression.getCorrelationOrder().getTransitiveClosure();
+        if (fullCorrelationOrder.get(probeAlias).contains(buildAlias) ||
+                fullCorrelationOrder.get(buildAlias).contains(probeAlias)) {
+            // the build side is executed only once, so the legs must be independent
+            return;
+        }
+
+        final var aliasToQuantifierMap = selectExpression.getAliasToQuantifierMap();
+
+        //
+        // Classify predicates according to their correlations. Equalities between a probe-only value and a build-only
+        // value become hash keys, predicates over one leg only are pushed to that leg, everything else is evaluated
+        // on each joined pair.
+        //
+        final var probeKeyValuesBuilder = ImmutableList.<Value>builder();
+        final var buildKeyValuesBuilder = ImmutableList.<Value>builder();
+        final var probePredicatesBuilder = ImmutableList.<QueryPredicate>builder();
+        final var buildPredicatesBuilder = ImmutableList.<QueryPredicate>builder();
+        final var residualPredicatesBuilder = ImmutableList.<QueryPredicate>builder();
+        boolean hasEquality = false;
+
+        for (final var predicate : selectExpression.getPredicates()) {
+            final var correlatedToInExpression =
+                    Sets.intersection(predicate.getCorrelatedTo(), aliasToQuantifierMap.keySet());
+            Verify.verify(correlatedToInExpression.stream()
+                    .allMatch(alias -> alias.equals(probeAlias) || alias.equals(buildAlias)));
+            final var residualPredicate = predicate.toResidualPredicate();
+            if (!correlatedToInExpression.contains(buildAlias)) {
+                probePredicatesBuilder.add(residualPredicate);
+            } else if (!correlatedToInExpression.contains(probeAlias)) {
+                buildPredicatesBuilder.add(residualPredicate);
+            } else {
+                final var keyValues =
+                        equalityKeyValues(residualPredicate, probeAlias, buildAlias, aliasToQuantifierMap.keySet());
+                if (keyValues == null) {
+                    residualPredicatesBuilder.add(residualPredicate);
+                } else {
+                    probeKeyValuesBuilder.add(keyValues.get(0));
+                    buildKeyValuesBuilder.add(keyValues.get(1));
+                    hasEquality = true;
+                }
+            }
+        }
+
+        if (!hasEquality) {
+            return;
+        }
+
+        final var joinName = Debugger.mapDebugger(debugger -> debugger.nameForObject(call.getRoot()) + "[" + debugger.nameForObject(selectExpression) + "]: " + probeAlias + " ⨝ " + buildAlias).orElse("not in debug mode");
+        Debugger.withDebugger(debugger -> logger.debug(KeyValueLogMessage.of("attempting hash join", "joinedTables", joinName)));
+
+        final var probeRef = memoizeLeg(call, bindings.get(probeReferenceMatcher),
+                bindings.get(probePlanPartitionsMatcher), probeAlias, probePredicatesBuilder.build());
+        final var buildRef = memoizeLeg(call, bindings.get(buildReferenceMatcher),
+                bindings.get(buildPlanPartitionsMatcher), buildAlias, buildPredicatesBuilder.build());
+
+        call.yieldPlan(new RecordQueryHashJoinPlan(Quantifier.physicalBuilder().withAlias(probeAlias).build(probeRef),
+                Quantifier.physicalBuilder().withAlias(buildAlias).build(buildRef),
+                probeKeyValuesBuilder.build(),
+                buildKeyValuesBuilder.build(),
+                residualPredicatesBuilder.build(),
+                selectExpression.getResultValue()));
+    }
+
+    private static boolean isPlainForEach(@Nonnull final Quantifier quantifier) {
+        return quantifier instanceof Quantifier.ForEach && !((Quantifier.ForEach)quantifier).isNullOnEmpty();
+    }
+
+    @Nonnull
+    private static Reference memoizeLeg(@Nonnull final ImplementationCascadesRuleCall call,
+                                        @Nonnull final Reference reference,
+                                        @Nonnull final PlanPartition planPartition,
+                                        @Nonnull final CorrelationIdentifier alias,
+                                        @Nonnull final List<QueryPredicate> predicates) {
+        var ref = call.memoizeMemberPlansFromOther(reference, planPartition.getPlans());
+        if (!predicates.isEmpty()) {
+            final var lowerQuantifier = Quantifier.physicalBuilder().withAlias(alias).build(ref);
+            ref = call.memoizePlan(new RecordQueryPredicatesFilterPlan(lowerQuantifier, predicates));
+        }
+        return ref;
+    }
+
+    /**
+     * Determine whether the given predicate is an equality between a value only depending on the probe leg and a
+     * value only depending on the build leg.
+     * @return a list containing the probe key value and the build key value, or {@code null} if the predicate cannot
+     *         be used as a hash key
+     */
+    @Nullable
+    private static List<Value> equalityKeyValues(@Nonnull final QueryPredicate predicate,
+                                                 @Nonnull final CorrelationIdentifier probeAlias,
+                                                 @Nonnull final CorrelationIdentifier buildAlias,
+                                                 @Nonnull final Set<CorrelationIdentifier> aliasesInExpression) {
+        if (!(predicate instanceof ValuePredicate)) {
+            return null;
+        }
+        final var valuePredicate = (ValuePredicate)predicate;
+        final var comparison = valuePredicate.getComparison();
+        if (comparison.getType() != Comparisons.Type.EQUALS || !(comparison instanceof Comparisons.ValueComparison)) {
+            return null;
+        }
+        final var value = valuePredicate.getValue();
+        final var comparandValue = ((Comparisons.ValueComparison)comparison).getComparandValue();
+        if (!isHashable(value) || !isHashable(comparandValue)) {
+            return null;
+        }
+        final var valueAliases = Sets.intersection(value.getCorrelatedTo(), aliasesInExpression);
+        final var comparandAliases = Sets.intersection(comparandValue.getCorrelatedTo(), aliasesInExpression);
+        if (valueAliases.equals(ImmutableSet.of(probeAlias)) && comparandAliases.equals(ImmutableSet.of(buildAlias))) {
+            return ImmutableList.of(value, comparandValue);
+        }
+        if (valueAliases.equals(ImmutableSet.of(buildAlias)) && comparandAliases.equals(ImmutableSet.of(probeAlias))) {
+            return ImmutableList.of(comparandValue, value);
+        }
+        return null;
+    }
+
+    private static boolean isHashable(@Nonnull final Value value) {
+        final var resultType = value.getResultType();
+        return resultType.isPrimitive() || resultType.isEnum();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * DistanceRankValue.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.query.plan.cascades.values;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.ObjectPlanHash;
+import com.apple.foundationdb.record.PlanDeserializer;
+import com.apple.foundationdb.record.PlanSerializationContext;
+import com.apple.foundationdb.record.planprotos.PDistanceRankValue;
+import com.apple.foundationdb.record.planprotos.PValue;
+import com.apple.foundationdb.record.query.plan.cascades.typing.Type;
+import com.google.auto.service.AutoService;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+
+/**
+ * A windowed value that computes the rank of a vector by its distance from a query vector, that is, its position among
+ * the nearest neighbors of the query vector. The vectors can optionally be partitioned by expressions defining a
+ * window. The query vector is not part of the value; it is held by the
+ * {@link com.apple.foundationdb.record.query.expressions.Comparisons.DistanceRankValueComparison} that limits the rank.
+ */
+@API(API.Status.EXPERIMENTAL)
+public class DistanceRankValue extends WindowedValue implements Value.IndexOnlyValue {
+    private static final String NAME = "DISTANCE_RANK";
+    private static final ObjectPlanHash BASE_HASH = new ObjectPlanHash(NAME + "-Value");
+
+    public DistanceRankValue(@Nonnull final PlanSerializationContext serializationContext,
+                             @Nonnull final PDistanceRankValue distanceRankValueProto) {
+        super(serializationContext, Objects.requireNonNull(distanceRankValueProto.getSuper()));
+    }
+
+    public DistanceRankValue(@Nonnull Iterable<? extends Value> partitioningValues,
+                             @Nonnull Iterable<? extends Value> argumentValues) {
+        super(partitioningValues, argumentValues);
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public int planHash(@Nonnull final PlanHashMode mode) {
+        return basePlanHash(mode, BASE_HASH);
+    }
+
+    @Nonnull
+    @Override
+    public Type getResultType() {
+        return Type.primitiveType(Type.TypeCode.LONG);
+    }
+
+    @Nonnull
+    @Override
+    public DistanceRankValue withChildren(final Iterable<? extends Value> newChildren) {
+        final var childrenPair = splitNewChildren(newChildren);
+        return new DistanceRankValue(childrenPair.getKey(), childrenPair.getValue());
+    }
+
+    @Nonnull
+    @Override
+    public PDistanceRankValue toProto(@Nonnull final PlanSerializationContext serializationContext) {
+        return PDistanceRankValue.newBuilder().setSuper(toWindowedValueProto(serializationContext)).build();
+    }
+
+    @Nonnull
+    @Override
+    public PValue toValueProto(@Nonnull final PlanSerializationContext serializationContext) {
+        return PValue.newBuilder().setDistanceRankValue(toProto(serializationContext)).build();
+    }
+
+    @Nonnull
+    public static DistanceRankValue fromProto(@Nonnull final PlanSerializationContext serializationContext,
+                                              @Nonnull final PDistanceRankValue distanceRankValueProto) {
+        return new DistanceRankValue(serializationContext, distanceRankValueProto);
+    }
+
+    /**
+     * Deserializer.
+     */
+    @AutoService(PlanDeserializer.class)
+    public static class Deserializer implements PlanDeserializer<PDistanceRankValue, DistanceRankValue> {
+        @Nonnull
+        @Override
+        public Class<PDistanceRankValue> getProtoMessageClass() {
+            return PDistanceRankValue.class;
+        }
+
+        @Nonnull
+        @Override
+        public DistanceRankValue fromProto(@Nonnull final PlanSerializationContext serializationContext,
+                                           @Nonnull final PDistanceRankValue distanceRankValueProto) {
+            return DistanceRankValue.fromProto(serializationContext, distanceRankValueProto);
+        }
+    }
+}
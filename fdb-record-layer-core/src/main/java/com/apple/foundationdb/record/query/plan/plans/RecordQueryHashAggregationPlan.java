@@ -0,0 +1,384 @@
+/*
+ * RecordQueryHashAggregationPlan.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.query.plan.plans;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.EvaluationContext;
+import com.apple.foundationdb.record.ExecuteProperties;
+import com.apple.foundationdb.record.FDBRecordStoreProperties;
+import com.apple.foundationdb.record.ObjectPlanHash;
+import com.apple.foundationdb.record.PlanDeserializer;
+import com.apple.foundationdb.record.PlanHashable;
+import com.apple.foundationdb.record.PlanSerializationContext;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.cursors.aggregate.HashAggregateCursor;
+import com.apple.foundationdb.record.planprotos.PRecordQueryHashAggregationPlan;
+import com.apple.foundationdb.record.planprotos.PRecordQueryPlan;
+import com.apple.foundationdb.record.provider.common.StoreTimer;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStoreBase;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
+import com.apple.foundationdb.record.query.plan.cascades.AliasMap;
+import com.apple.foundationdb.record.query.plan.cascades.CorrelationIdentifier;
+import com.apple.foundationdb.record.query.plan.cascades.Quantifier;
+import com.apple.foundationdb.record.query.plan.cascades.Reference;
+import com.apple.foundationdb.record.query.plan.cascades.explain.Attribute;
+import com.apple.foundationdb.record.query.plan.cascades.explain.ExplainPlanVisitor;
+import com.apple.foundationdb.record.query.plan.cascades.explain.NodeInfo;
+import com.apple.foundationdb.record.query.plan.cascades.explain.PlannerGraph;
+import com.apple.foundationdb.record.query.plan.cascades.expressions.RelationalExpression;
+import com.apple.foundationdb.record.query.plan.cascades.typing.Type;
+import com.apple.foundationdb.record.query.plan.cascades.values.AggregateValue;
+import com.apple.foundationdb.record.query.plan.cascades.values.ObjectValue;
+import com.apple.foundationdb.record.query.plan.cascades.values.Value;
+import com.apple.foundationdb.record.query.plan.cascades.values.translation.TranslationMap;
+import com.google.auto.service.AutoService;
+import com.google.common.base.Verify;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.protobuf.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * A query plan that groups its (unordered) inputs by a grouping key using a hash table and applies aggregate
+ * function(s) to each group. Unlike {@link RecordQueryStreamingAggregationPlan}, this plan does not require its input
+ * to be ordered by the grouping key, but it also does not return the groups in any meaningful order.
+ *
+ * <p>
+ * The number of groups held in memory is bounded by
+ * {@link FDBRecordStoreProperties#HASH_AGGREGATION_MAX_GROUPS_IN_MEMORY}. Inputs with more groups than that are
+ * aggregated in several passes over ranges of the grouping key hashes; see {@link HashAggregateCursor}.
+ * The number of partial groups in a continuation is bounded by
+ * {@link FDBRecordStoreProperties#HASH_AGGREGATION_MAX_GROUPS_IN_CONTINUATION}.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class RecordQueryHashAggregationPlan implements RecordQueryPlanWithChild {
+    private static final ObjectPlanHash BASE_HASH = new ObjectPlanHash("Record-Query-Hash-Aggregation-Plan");
+
+    @Nonnull
+    private final Quantifier.Physical inner;
+    @Nonnull
+    private final AggregateValue aggregateValue;
+    @Nonnull
+    private final Value groupingKeyValue;
+    @Nonnull
+    private final CorrelationIdentifier groupingKeyAlias;
+    @Nonnull
+    private final CorrelationIdentifier aggregateAlias;
+    @Nonnull
+    private final Value completeResultValue;
+
+    private RecordQueryHashAggregationPlan(@Nonnull final Quantifier.Physical inner,
+                                           @Nonnull final Value groupingKeyValue,
+                                           @Nonnull final AggregateValue aggregateValue,
+                                           @Nonnull final CorrelationIdentifier groupingKeyAlias,
+                                           @Nonnull final CorrelationIdentifier aggregateAlias,
+                                           @Nonnull final Value completeResultValue) {
+        this.inner = inner;
+        this.groupingKeyValue = groupingKeyValue;
+        this.aggregateValue = aggregateValue;
+        this.groupingKeyAlias = groupingKeyAlias;
+        this.aggregateAlias = aggregateAlias;
+        this.completeResultValue = completeResultValue;
+    }
+
+    @Nonnull
+    @Override
+    public <M extends Message> RecordCursor<QueryResult> executePlan(@Nonnull FDBRecordStoreBase<M> store,
+                                                                     @Nonnull EvaluationContext context,
+                                                                     @Nullable byte[] continuation,
+                                                                     @Nonnull ExecuteProperties executeProperties) {
+        final var nestedExecuteProperties = executeProperties.clearSkipAndLimit();
+        final Integer maxGroupsInMemory = store.getContext().getPropertyStorage()
+                .getPropertyValue(FDBRecordStoreProperties.HASH_AGGREGATION_MAX_GROUPS_IN_MEMORY);
+        final Integer maxGroupsInContinuation = store.getContext().getPropertyStorage()
+                .getPropertyValue(FDBRecordStoreProperties.HASH_AGGREGATION_MAX_GROUPS_IN_CONTINUATION);
+        return new HashAggregateCursor<>(
+                innerContinuation -> getInnerPlan().executePlan(store, context, innerContinuation, nestedExecuteProperties),
+                groupingKeyValue,
+                aggregateValue,
+                completeResultValue,
+                groupingKeyAlias,
+                aggregateAlias,
+                store,
+                context,
+                inner.getAlias(),
+                maxGroupsInMemory == null ? FDBRecordStoreProperties.HASH_AGGREGATION_MAX_GROUPS_IN_MEMORY.getDefaultValue() : maxGroupsInMemory,
+                maxGroupsInContinuation == null ? FDBRecordStoreProperties.HASH_AGGREGATION_MAX_GROUPS_IN_CONTINUATION.getDefaultValue() : maxGroupsInContinuation,
+                continuation)
+                .skipThenLimit(executeProperties.getSkip(), executeProperties.getReturnedRowLimit());
+    }
+
+    @Override
+    public boolean isReverse() {
+        return false;
+    }
+
+    @Nonnull
+    @Override
+    public List<? extends Quantifier> getQuantifiers() {
+        return ImmutableList.of(inner);
+    }
+
+    @Nonnull
+    public Quantifier.Physical getInner() {
+        return inner;
+    }
+
+    @Nonnull
+    @Override
+    public Set<Type> getDynamicTypes() {
+        return ImmutableSet.copyOf(Iterables.concat(
+                RecordQueryPlanWithChild.super.getDynamicTypes(),
+                groupingKeyValue.getDynamicTypes(),
+                aggregateValue.getDynamicTypes()));
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return ExplainPlanVisitor.toStringForDebugging(this);
+    }
+
+    @Nonnull
+    @Override
+    public Set<CorrelationIdentifier> getCorrelatedToWithoutChildren() {
+        return ImmutableSet.copyOf(Iterables.concat(groupingKeyValue.getCorrelatedTo(), aggregateValue.getCorrelatedTo()));
+    }
+
+    @Nonnull
+    @Override
+    public RecordQueryHashAggregationPlan translateCorrelations(@Nonnull final TranslationMap translationMap,
+                                                                final boolean shouldSimplifyValues,
+                                                                @Nonnull final List<? extends Quantifier> translatedQuantifiers) {
+        Verify.verify(translatedQuantifiers.size() == 1);
+        final var translatedGroupingKeyValue = groupingKeyValue.translateCorrelations(translationMap, shouldSimplifyValues);
+        final var translatedAggregateValue =
+                (AggregateValue)aggregateValue.translateCorrelations(translationMap, shouldSimplifyValues);
+
+        return new RecordQueryHashAggregationPlan(Iterables.getOnlyElement(translatedQuantifiers).narrow(Quantifier.Physical.class),
+                translatedGroupingKeyValue,
+                translatedAggregateValue,
+                groupingKeyAlias,
+                aggregateAlias,
+                completeResultValue);
+    }
+
+    @Nonnull
+    @Override
+    public RecordQueryHashAggregationPlan withChild(@Nonnull final Reference childRef) {
+        return new RecordQueryHashAggregationPlan(Quantifier.physical(childRef, inner.getAlias()),
+                groupingKeyValue,
+                aggregateValue,
+                groupingKeyAlias,
+                aggregateAlias,
+                completeResultValue);
+    }
+
+    @Nonnull
+    @Override
+    public Value getResultValue() {
+        return completeResultValue;
+    }
+
+    @SuppressWarnings("EqualsWhichDoesntCheckParameterClass")
+    @Override
+    public boolean equals(final Object other) {
+        return structuralEquals(other);
+    }
+
+    @Override
+    @SuppressWarnings("PMD.CompareObjectsWithEquals")
+    public boolean equalsWithoutChildren(@Nonnull RelationalExpression otherExpression,
+                                         @Nonnull final AliasMap equivalencesMap) {
+        if (this == otherExpression) {
+            return true;
+        }
+        if (getClass() != otherExpression.getClass()) {
+            return false;
+        }
+
+        final var otherHashAggregationPlan = (RecordQueryHashAggregationPlan)otherExpression;
+
+        if (!groupingKeyValue.semanticEquals(otherHashAggregationPlan.getGroupingValue(), equivalencesMap)) {
+            return false;
+        }
+
+        if (!aggregateValue.semanticEquals(otherHashAggregationPlan.getAggregateValue(), equivalencesMap)) {
+            return false;
+        }
+
+        final var extendedEquivalencesMap = equivalencesMap.toBuilder()
+                .put(groupingKeyAlias, otherHashAggregationPlan.getGroupingKeyAlias())
+                .put(aggregateAlias, otherHashAggregationPlan.getAggregateAlias())
+                .build();
+
+        return semanticEqualsForResults(otherExpression, extendedEquivalencesMap);
+    }
+
+    @Override
+    public int hashCode() {
+        return structuralHashCode();
+    }
+
+    @Override
+    public int hashCodeWithoutChildren() {
+        return Objects.hash(BASE_HASH, groupingKeyValue, aggregateValue, completeResultValue);
+    }
+
+    @Override
+    public int planHash(@Nonnull final PlanHashMode mode) {
+        return PlanHashable.objectsPlanHash(mode, BASE_HASH, getInnerPlan(), groupingKeyValue, aggregateValue, completeResultValue);
+    }
+
+    @Nonnull
+    public RecordQueryPlan getInnerPlan() {
+        return inner.getRangesOverPlan();
+    }
+
+    @Override
+    @Nonnull
+    public RecordQueryPlan getChild() {
+        return getInnerPlan();
+    }
+
+    @Override
+    public void logPlanStructure(StoreTimer timer) {
+        timer.increment(FDBStoreTimer.Counts.PLAN_HASH_AGGREGATE);
+        getInnerPlan().logPlanStructure(timer);
+    }
+
+    @Override
+    public int getComplexity() {
+        return 1 + getInnerPlan().getComplexity();
+    }
+
+    @Nonnull
+    @Override
+    public PlannerGraph rewritePlannerGraph(@Nonnull List<? extends PlannerGraph> childGraphs) {
+        return PlannerGraph.fromNodeAndChildGraphs(
+                new PlannerGraph.OperatorNodeWithInfo(this,
+                        NodeInfo.HASH_AGGREGATE_OPERATOR,
+                        ImmutableList.of("COLLECT {{agg}}", "GROUP BY {{groupingKey}}"),
+                        ImmutableMap.of("agg", Attribute.gml(aggregateValue.toString()), "groupingKey", Attribute.gml(groupingKeyValue.toString()))),
+                childGraphs);
+    }
+
+    @Nonnull
+    public AggregateValue getAggregateValue() {
+        return aggregateValue;
+    }
+
+    @Nonnull
+    public CorrelationIdentifier getAggregateAlias() {
+        return aggregateAlias;
+    }
+
+    @Nonnull
+    public Value getGroupingValue() {
+        return groupingKeyValue;
+    }
+
+    @Nonnull
+    public CorrelationIdentifier getGroupingKeyAlias() {
+        return groupingKeyAlias;
+    }
+
+    @Nonnull
+    public Value getCompleteResultValue() {
+        return completeResultValue;
+    }
+
+    @Nonnull
+    @Override
+    public PRecordQueryHashAggregationPlan toProto(@Nonnull final PlanSerializationContext serializationContext) {
+        return PRecordQueryHashAggregationPlan.newBuilder()
+                .setInner(inner.toProto(serializationContext))
+                .setAggregateValue(aggregateValue.toValueProto(serializationContext))
+                .setGroupingKeyValue(groupingKeyValue.toValueProto(serializationContext))
+                .setGroupingKeyAlias(groupingKeyAlias.getId())
+                .setAggregateAlias(aggregateAlias.getId())
+                .setCompleteResultValue(completeResultValue.toValueProto(serializationContext))
+                .build();
+    }
+
+    @Nonnull
+    @Override
+    public PRecordQueryPlan toRecordQueryPlanProto(@Nonnull final PlanSerializationContext serializationContext) {
+        return PRecordQueryPlan.newBuilder().setHashAggregationPlan(toProto(serializationContext)).build();
+    }
+
+    @Nonnull
+    public static RecordQueryHashAggregationPlan fromProto(@Nonnull final PlanSerializationContext serializationContext,
+                                                           @Nonnull final PRecordQueryHashAggregationPlan recordQueryHashAggregationPlanProto) {
+        // Deserialize the values in the same order as they are serialized to keep the serialization context's
+        // cache of referenced values consistent.
+        final Quantifier.Physical inner = Quantifier.Physical.fromProto(serializationContext, Objects.requireNonNull(recordQueryHashAggregationPlanProto.getInner()));
+        final AggregateValue aggregateValue = (AggregateValue)Value.fromValueProto(serializationContext, Objects.requireNonNull(recordQueryHashAggregationPlanProto.getAggregateValue()));
+        final Value groupingKeyValue = Value.fromValueProto(serializationContext, Objects.requireNonNull(recordQueryHashAggregationPlanProto.getGroupingKeyValue()));
+        final CorrelationIdentifier groupingKeyAlias = CorrelationIdentifier.of(Objects.requireNonNull(recordQueryHashAggregationPlanProto.getGroupingKeyAlias()));
+        final CorrelationIdentifier aggregateAlias = CorrelationIdentifier.of(Objects.requireNonNull(recordQueryHashAggregationPlanProto.getAggregateAlias()));
+        final Value completeResultValue = Value.fromValueProto(serializationContext, Objects.requireNonNull(recordQueryHashAggregationPlanProto.getCompleteResultValue()));
+        return new RecordQueryHashAggregationPlan(inner, groupingKeyValue, aggregateValue, groupingKeyAlias, aggregateAlias, completeResultValue);
+    }
+
+    @Nonnull
+    public static RecordQueryHashAggregationPlan of(@Nonnull final Quantifier.Physical inner,
+                                                    @Nonnull final Value groupingKeyValue,
+                                                    @Nonnull final AggregateValue aggregateValue,
+                                                    @Nonnull final BiFunction<Value, Value, Value> resultValueFunction) {
+        final var groupingKeyAlias = CorrelationIdentifier.uniqueID();
+        final var aggregateAlias = CorrelationIdentifier.uniqueID();
+
+        final var referencedGroupingKeyValue = ObjectValue.of(groupingKeyAlias, groupingKeyValue.getResultType());
+        final var referencedAggregateValue = ObjectValue.of(aggregateAlias, aggregateValue.getResultType());
+
+        return new RecordQueryHashAggregationPlan(inner, groupingKeyValue, aggregateValue, groupingKeyAlias, aggregateAlias,
+                resultValueFunction.apply(referencedGroupingKeyValue, referencedAggregateValue));
+    }
+
+    /**
+     * Deserializer.
+     */
+    @AutoService(PlanDeserializer.class)
+    public static class Deserializer implements PlanDeserializer<PRecordQueryHashAggregationPlan, RecordQueryHashAggregationPlan> {
+        @Nonnull
+        @Override
+        public Class<PRecordQueryHashAggregationPlan> getProtoMessageClass() {
+            return PRecordQueryHashAggregationPlan.class;
+        }
+
+        @Nonnull
+        @Override
+        public RecordQueryHashAggregationPlan fromProto(@Nonnull final PlanSerializationContext serializationContext,
+                                                        @Nonnull final PRecordQueryHashAggregationPlan recordQueryHashAggregationPlanProto) {
+            return RecordQueryHashAggregationPlan.fromProto(serializationContext, recordQueryHashAggregationPlanProto);
+        }
+    }
+}
@@ -0,0 +1,496 @@
+/*
+ * RecordQueryHashJoinPlan.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.query.plan.plans;
+
+import com.apple.foundationdb.annotation.API;
+import com.apple.foundationdb.record.Bindings;
+import com.apple.foundationdb.record.EvaluationContext;
+import com.apple.foundationdb.record.ExecuteProperties;
+import com.apple.foundationdb.record.FDBRecordStoreProperties;
+import com.apple.foundationdb.record.ObjectPlanHash;
+import com.apple.foundationdb.record.PipelineOperation;
+import com.apple.foundationdb.record.PlanDeserializer;
+import com.apple.foundationdb.record.PlanHashable;
+import com.apple.foundationdb.record.PlanSerializationContext;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.cursors.HashJoinCursor;
+import com.apple.foundationdb.record.planprotos.PRecordQueryHashJoinPlan;
+import com.apple.foundationdb.record.planprotos.PRecordQueryPlan;
+import com.apple.foundationdb.record.provider.common.StoreTimer;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStoreBase;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
+import com.apple.foundationdb.record.query.expressions.Comparisons;
+import com.apple.foundationdb.record.query.plan.AvailableFields;
+import com.apple.foundationdb.record.query.plan.cascades.AliasMap;
+import com.apple.foundationdb.record.query.plan.cascades.CorrelationIdentifier;
+import com.apple.foundationdb.record.query.plan.cascades.FinalMemoizer;
+import com.apple.foundationdb.record.query.plan.cascades.Quantifier;
+import com.apple.foundationdb.record.query.plan.cascades.Quantifiers;
+import com.apple.foundationdb.record.query.plan.cascades.explain.Attribute;
+import com.apple.foundationdb.record.query.plan.cascades.explain.ExplainPlanVisitor;
+import com.apple.foundationdb.record.query.plan.cascades.explain.NodeInfo;
+import com.apple.foundationdb.record.query.plan.cascades.explain.PlannerGraph;
+import com.apple.foundationdb.record.query.plan.cascades.expressions.RelationalExpression;
+import com.apple.foundationdb.record.query.plan.cascades.expressions.RelationalExpressionWithChildren;
+import com.apple.foundationdb.record.query.plan.cascades.predicates.AndPredicate;
+import com.apple.foundationdb.record.query.plan.cascades.predicates.QueryPredicate;
+import com.apple.foundationdb.record.query.plan.cascades.predicates.ValuePredicate;
+import com.apple.foundationdb.record.query.plan.cascades.values.Value;
+import com.apple.foundationdb.record.query.plan.cascades.values.translation.TranslationMap;
+import com.google.auto.service.AutoService;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Verify;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Streams;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A query plan that joins the results of two children on one or more equality predicates by building a hash table
+ * over the results of the <em>build</em> child and then probing that table with each result of the <em>probe</em>
+ * child. Unlike {@link RecordQueryFlatMapPlan}, the build child is executed only once (per pass, see
+ * {@link HashJoinCursor}) and therefore must not be correlated to the probe child.
+ *
+ * <p>
+ * A probe result {@code p} and a build result {@code b} are joined if for every {@code i}
+ * {@code probeKeyValues[i](p) = buildKeyValues[i](b)} and all residual predicates evaluate to {@code true} on the
+ * pair. Join keys that contain a {@code null} never match. If the build side exceeds
+ * {@link FDBRecordStoreProperties#HASH_JOIN_MAX_BUILD_RECORDS_IN_MEMORY}, it is spilled to disk and the plan does not
+ * preserve the order of the probe side. If the build child cannot be executed to completion within the execution
+ * limits, the plan continues as a nested loop join that executes the build child once for each probe result.
+ * </p>
+ */
+@API(API.Status.EXPERIMENTAL)
+public class RecordQueryHashJoinPlan implements RecordQueryPlanWithChildren, RelationalExpressionWithChildren {
+    private static final ObjectPlanHash BASE_HASH = new ObjectPlanHash("Record-Query-Hash-Join-Plan");
+
+    @Nonnull
+    private final Quantifier.Physical probeQuantifier;
+    @Nonnull
+    private final Quantifier.Physical buildQuantifier;
+    @Nonnull
+    private final List<Value> probeKeyValues;
+    @Nonnull
+    private final List<Value> buildKeyValues;
+    @Nonnull
+    private final List<QueryPredicate> residualPredicates;
+    @Nonnull
+    private final Value resultValue;
+    @Nonnull
+    private final Supplier<Integer> hashCodeWithoutChildrenSupplier;
+    @Nonnull
+    private final Supplier<Set<CorrelationIdentifier>> correlatedToWithoutChildrenSupplier;
+
+    public RecordQueryHashJoinPlan(@Nonnull final Quantifier.Physical probeQuantifier,
+                                   @Nonnull final Quantifier.Physical buildQuantifier,
+                                   @Nonnull final List<? extends Value> probeKeyValues,
+                                   @Nonnull final List<? extends Value> buildKeyValues,
+                                   @Nonnull final List<? extends QueryPredicate> residualPredicates,
+                                   @Nonnull final Value resultValue) {
+        Verify.verify(!probeKeyValues.isEmpty());
+        Verify.verify(probeKeyValues.size() == buildKeyValues.size());
+        this.probeQuantifier = probeQuantifier;
+        this.buildQuantifier = buildQuantifier;
+        this.probeKeyValues = ImmutableList.copyOf(probeKeyValues);
+        this.buildKeyValues = ImmutableList.copyOf(buildKeyValues);
+        this.residualPredicates = ImmutableList.copyOf(residualPredicates);
+        this.resultValue = resultValue;
+        this.hashCodeWithoutChildrenSupplier = Suppliers.memoize(this::computeHashCodeWithoutChildren);
+        this.correlatedToWithoutChildrenSupplier = Suppliers.memoize(this::computeCorrelatedToWithoutChildren);
+    }
+
+    @Nonnull
+    public Quantifier.Physical getProbeQuantifier() {
+        return probeQuantifier;
+    }
+
+    @Nonnull
+    public Quantifier.Physical getBuildQuantifier() {
+        return buildQuantifier;
+    }
+
+    @Nonnull
+    public List<Value> getProbeKeyValues() {
+        return probeKeyValues;
+    }
+
+    @Nonnull
+    public List<Value> getBuildKeyValues() {
+        return buildKeyValues;
+    }
+
+    @Nonnull
+    public List<QueryPredicate> getResidualPredicates() {
+        return residualPredicates;
+    }
+
+    /**
+     * Returns the complete join predicate, i.e. the equalities between the probe and build keys together with the
+     * residual predicates.
+     * @return a predicate that is equivalent to the join condition of this plan
+     */
+    @Nonnull
+    public QueryPredicate getJoinPredicate() {
+        final ImmutableList.Builder<QueryPredicate> conjunctsBuilder = ImmutableList.builder();
+        for (int i = 0; i < probeKeyValues.size(); i++) {
+            conjunctsBuilder.add(new ValuePredicate(probeKeyValues.get(i),
+                    new Comparisons.ValueComparison(Comparisons.Type.EQUALS, buildKeyValues.get(i))));
+        }
+        conjunctsBuilder.addAll(residualPredicates);
+        return AndPredicate.and(conjunctsBuilder.build());
+    }
+
+    @SuppressWarnings("resource")
+    @Nonnull
+    @Override
+    public <M extends Message> RecordCursor<QueryResult> executePlan(@Nonnull final FDBRecordStoreBase<M> store,
+                                                                     @Nonnull final EvaluationContext context,
+                                                                     @Nullable final byte[] continuation,
+                                                                     @Nonnull final ExecuteProperties executeProperties) {
+        final var nestedExecuteProperties = executeProperties.clearSkipAndLimit();
+        final Integer maxInMemory = store.getContext().getPropertyStorage()
+                .getPropertyValue(FDBRecordStoreProperties.HASH_JOIN_MAX_BUILD_RECORDS_IN_MEMORY);
+        // Spilled build results are stored without their descriptor; all of them share the descriptor of the first one.
+        final AtomicReference<Descriptors.Descriptor> buildDescriptor = new AtomicReference<>();
+        return new HashJoinCursor<QueryResult, QueryResult, List<Object>, QueryResult>(
+                buildContinuation -> buildQuantifier.getRangesOverPlan().executePlan(store, context, buildContinuation, nestedExecuteProperties),
+                probeContinuation -> probeQuantifier.getRangesOverPlan().executePlan(store, context, probeContinuation, nestedExecuteProperties),
+                buildResult -> evalKey(store, context.withBinding(Bindings.Internal.CORRELATION, buildQuantifier.getAlias(), buildResult), buildKeyValues),
+                probeResult -> evalKey(store, context.withBinding(Bindings.Internal.CORRELATION, probeQuantifier.getAlias(), probeResult), probeKeyValues),
+                (probeResult, buildResult) -> {
+                    final EvaluationContext nestedContext = context
+                            .withBinding(Bindings.Internal.CORRELATION, probeQuantifier.getAlias(), probeResult)
+                            .withBinding(Bindings.Internal.CORRELATION, buildQuantifier.getAlias(), buildResult);
+                    for (final QueryPredicate residualPredicate : residualPredicates) {
+                        if (!Boolean.TRUE.equals(residualPredicate.eval(store, nestedContext))) {
+                            return null;
+                        }
+                    }
+                    return QueryResult.ofComputed(resultValue.eval(store, nestedContext));
+                },
+                buildResult -> {
+                    final Object datum = buildResult.getDatum();
+                    if (datum instanceof Message) {
+                        buildDescriptor.compareAndSet(null, ((Message)datum).getDescriptorForType());
+                    }
+                    return buildResult.toProto().toByteArray();
+                },
+                bytes -> QueryResult.from(buildDescriptor.get(), bytes),
+                maxInMemory == null ? FDBRecordStoreProperties.HASH_JOIN_MAX_BUILD_RECORDS_IN_MEMORY.getDefaultValue() : maxInMemory,
+                store.getPipelineSize(PipelineOperation.HASH_JOIN),
+                store.getExecutor(),
+                store.getTimer(),
+                continuation).skipThenLimit(executeProperties.getSkip(), executeProperties.getReturnedRowLimit());
+    }
+
+    /**
+     * Evaluate the key values in the given context. The components of the key are normalized so that values that
+     * compare equal also have equal (and stable) hash codes, e.g. an {@code int} and a {@code long} of the same value.
+     * @return the normalized key or {@code null} if any of its components is {@code null}
+     */
+    @Nullable
+    private static List<Object> evalKey(@Nonnull final FDBRecordStoreBase<?> store,
+                                        @Nonnull final EvaluationContext context,
+                                        @Nonnull final List<Value> keyValues) {
+        final ImmutableList.Builder<Object> keyBuilder = ImmutableList.builderWithExpectedSize(keyValues.size());
+        for (final Value keyValue : keyValues) {
+            final Object component = normalizeKeyComponent(keyValue.eval(store, context));
+            if (component == null) {
+                return null;
+            }
+            keyBuilder.add(component);
+        }
+        return keyBuilder.build();
+    }
+
+    @Nullable
+    private static Object normalizeKeyComponent(@Nullable final Object component) {
+        if (component instanceof Integer || component instanceof Long || component instanceof Short || component instanceof Byte) {
+            return ((Number)component).longValue();
+        } else if (component instanceof Float || component instanceof Double) {
+            final double d = ((Number)component).doubleValue();
+            // -0.0 and 0.0 are equal but do not have the same hash code
+            return d == 0.0 ? 0.0 : d;
+        } else if (component instanceof Message) {
+            return ((Message)component).toByteString();
+        } else if (component instanceof Descriptors.EnumValueDescriptor) {
+            return (long)((Descriptors.EnumValueDescriptor)component).getNumber();
+        } else if (component instanceof List) {
+            final ImmutableList.Builder<Object> elementsBuilder = ImmutableList.builder();
+            for (final Object element : (List<?>)component) {
+                final Object normalizedElement = normalizeKeyComponent(element);
+                if (normalizedElement == null) {
+                    return null;
+                }
+                elementsBuilder.add(normalizedElement);
+            }
+            return elementsBuilder.build();
+        }
+        return component;
+    }
+
+    @Override
+    public int getRelationalChildCount() {
+        return 2;
+    }
+
+    @Override
+    public boolean canCorrelate() {
+        return true;
+    }
+
+    @Nonnull
+    @Override
+    public List<RecordQueryPlan> getChildren() {
+        return ImmutableList.of(probeQuantifier.getRangesOverPlan(), buildQuantifier.getRangesOverPlan());
+    }
+
+    @Nonnull
+    @Override
+    public AvailableFields getAvailableFields() {
+        return AvailableFields.NO_FIELDS;
+    }
+
+    @Nonnull
+    @Override
+    public Set<CorrelationIdentifier> getCorrelatedToWithoutChildren() {
+        return correlatedToWithoutChildrenSupplier.get();
+    }
+
+    @Nonnull
+    private Set<CorrelationIdentifier> computeCorrelatedToWithoutChildren() {
+        final ImmutableSet.Builder<CorrelationIdentifier> correlatedToBuilder = ImmutableSet.builder();
+        probeKeyValues.forEach(value -> correlatedToBuilder.addAll(value.getCorrelatedTo()));
+        buildKeyValues.forEach(value -> correlatedToBuilder.addAll(value.getCorrelatedTo()));
+        residualPredicates.forEach(predicate -> correlatedToBuilder.addAll(predicate.getCorrelatedTo()));
+        correlatedToBuilder.addAll(resultValue.getCorrelatedTo());
+        return correlatedToBuilder.build();
+    }
+
+    @Nonnull
+    @Override
+    public RecordQueryHashJoinPlan translateCorrelations(@Nonnull final TranslationMap translationMap,
+                                                         final boolean shouldSimplifyValues,
+                                                         @Nonnull final List<? extends Quantifier> translatedQuantifiers) {
+        Verify.verify(translatedQuantifiers.size() == 2);
+        return new RecordQueryHashJoinPlan(translatedQuantifiers.get(0).narrow(Quantifier.Physical.class),
+                translatedQuantifiers.get(1).narrow(Quantifier.Physical.class),
+                translateValues(probeKeyValues, translationMap, shouldSimplifyValues),
+                translateValues(buildKeyValues, translationMap, shouldSimplifyValues),
+                residualPredicates.stream()
+                        .map(predicate -> predicate.translateCorrelations(translationMap, shouldSimplifyValues))
+                        .collect(ImmutableList.toImmutableList()),
+                resultValue.translateCorrelations(translationMap, shouldSimplifyValues));
+    }
+
+    @Nonnull
+    private static List<Value> translateValues(@Nonnull final List<Value> values,
+                                               @Nonnull final TranslationMap translationMap,
+                                               final boolean shouldSimplifyValues) {
+        return values.stream()
+                .map(value -> value.translateCorrelations(translationMap, shouldSimplifyValues))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    @Override
+    public boolean isReverse() {
+        return Quantifiers.isReversed(Quantifiers.narrow(Quantifier.Physical.class, getQuantifiers()));
+    }
+
+    @Override
+    public RecordQueryHashJoinPlan strictlySorted(@Nonnull FinalMemoizer memoizer) {
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public Value getResultValue() {
+        return resultValue;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return ExplainPlanVisitor.toStringForDebugging(this);
+    }
+
+    @Override
+    @SuppressWarnings("PMD.CompareObjectsWithEquals")
+    public boolean equalsWithoutChildren(@Nonnull RelationalExpression otherExpression,
+                                         @Nonnull final AliasMap aliasMap) {
+        if (this == otherExpression) {
+            return true;
+        }
+        if (getClass() != otherExpression.getClass()) {
+            return false;
+        }
+        final var otherPlan = (RecordQueryHashJoinPlan)otherExpression;
+        if (probeKeyValues.size() != otherPlan.probeKeyValues.size() ||
+                residualPredicates.size() != otherPlan.residualPredicates.size()) {
+            return false;
+        }
+        return semanticEqualsForResults(otherExpression, aliasMap) &&
+                Streams.zip(probeKeyValues.stream(), otherPlan.probeKeyValues.stream(),
+                        (value, otherValue) -> value.semanticEquals(otherValue, aliasMap)).allMatch(isSame -> isSame) &&
+                Streams.zip(buildKeyValues.stream(), otherPlan.buildKeyValues.stream(),
+                        (value, otherValue) -> value.semanticEquals(otherValue, aliasMap)).allMatch(isSame -> isSame) &&
+                Streams.zip(residualPredicates.stream(), otherPlan.residualPredicates.stream(),
+                        (predicate, otherPredicate) -> predicate.semanticEquals(otherPredicate, aliasMap)).allMatch(isSame -> isSame);
+    }
+
+    @SuppressWarnings("EqualsWhichDoesntCheckParameterClass")
+    @Override
+    public boolean equals(final Object other) {
+        return structuralEquals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return structuralHashCode();
+    }
+
+    @Override
+    public int hashCodeWithoutChildren() {
+        return hashCodeWithoutChildrenSupplier.get();
+    }
+
+    private int computeHashCodeWithoutChildren() {
+        return Objects.hash(probeKeyValues, buildKeyValues, residualPredicates, getResultValue());
+    }
+
+    @Override
+    public void logPlanStructure(StoreTimer timer) {
+        timer.increment(FDBStoreTimer.Counts.PLAN_HASH_JOIN);
+        getChildren().forEach(child -> child.logPlanStructure(timer));
+    }
+
+    @Override
+    public int getComplexity() {
+        return 1 + probeQuantifier.getRangesOverPlan().getComplexity() + buildQuantifier.getRangesOverPlan().getComplexity();
+    }
+
+    @Override
+    public int planHash(@Nonnull final PlanHashMode mode) {
+        switch (mode.getKind()) {
+            case LEGACY:
+            case FOR_CONTINUATION:
+                return PlanHashable.objectsPlanHash(mode, BASE_HASH, getChildren(), probeKeyValues, buildKeyValues,
+                        residualPredicates, getResultValue());
+            default:
+                throw new UnsupportedOperationException("Hash kind " + mode.name() + " is not supported");
+        }
+    }
+
+    @Nonnull
+    @Override
+    public List<? extends Quantifier> getQuantifiers() {
+        return ImmutableList.of(probeQuantifier, buildQuantifier);
+    }
+
+    @Nonnull
+    @Override
+    public PlannerGraph rewritePlannerGraph(@Nonnull final List<? extends PlannerGraph> childGraphs) {
+        return PlannerGraph.fromNodeAndChildGraphs(
+                new PlannerGraph.OperatorNodeWithInfo(this,
+                        NodeInfo.HASH_JOIN_OPERATOR,
+                        ImmutableList.of("HASH JOIN ON {{pred}}", "RESULT {{expr}}"),
+                        ImmutableMap.of("pred", Attribute.gml(getJoinPredicate().toString()),
+                                "expr", Attribute.gml(getResultValue().toString()))),
+                childGraphs,
+                getQuantifiers());
+    }
+
+    @Nonnull
+    @Override
+    public PRecordQueryHashJoinPlan toProto(@Nonnull final PlanSerializationContext serializationContext) {
+        final PRecordQueryHashJoinPlan.Builder builder = PRecordQueryHashJoinPlan.newBuilder()
+                .setProbeQuantifier(probeQuantifier.toProto(serializationContext))
+                .setBuildQuantifier(buildQuantifier.toProto(serializationContext));
+        for (final Value probeKeyValue : probeKeyValues) {
+            builder.addProbeKeyValues(probeKeyValue.toValueProto(serializationContext));
+        }
+        for (final Value buildKeyValue : buildKeyValues) {
+            builder.addBuildKeyValues(buildKeyValue.toValueProto(serializationContext));
+        }
+        for (final QueryPredicate residualPredicate : residualPredicates) {
+            builder.addResidualPredicates(residualPredicate.toQueryPredicateProto(serializationContext));
+        }
+        return builder.setResultValue(resultValue.toValueProto(serializationContext)).build();
+    }
+
+    @Nonnull
+    @Override
+    public PRecordQueryPlan toRecordQueryPlanProto(@Nonnull final PlanSerializationContext serializationContext) {
+        return PRecordQueryPlan.newBuilder().setHashJoinPlan(toProto(serializationContext)).build();
+    }
+
+    @Nonnull
+    public static RecordQueryHashJoinPlan fromProto(@Nonnull final PlanSerializationContext serializationContext,
+                                                    @Nonnull final PRecordQueryHashJoinPlan recordQueryHashJoinPlanProto) {
+        final ImmutableList.Builder<Value> probeKeyValuesBuilder = ImmutableList.builder();
+        for (int i = 0; i < recordQueryHashJoinPlanProto.getProbeKeyValuesCount(); i++) {
+            probeKeyValuesBuilder.add(Value.fromValueProto(serializationContext, recordQueryHashJoinPlanProto.getProbeKeyValues(i)));
+        }
+        final ImmutableList.Builder<Value> buildKeyValuesBuilder = ImmutableList.builder();
+        for (int i = 0; i < recordQueryHashJoinPlanProto.getBuildKeyValuesCount(); i++) {
+            buildKeyValuesBuilder.add(Value.fromValueProto(serializationContext, recordQueryHashJoinPlanProto.getBuildKeyValues(i)));
+        }
+        final ImmutableList.Builder<QueryPredicate> residualPredicatesBuilder = ImmutableList.builder();
+        for (int i = 0; i < recordQueryHashJoinPlanProto.getResidualPredicatesCount(); i++) {
+            residualPredicatesBuilder.add(QueryPredicate.fromQueryPredicateProto(serializationContext, recordQueryHashJoinPlanProto.getResidualPredicates(i)));
+        }
+        return new RecordQueryHashJoinPlan(Quantifier.Physical.fromProto(serializationContext, Objects.requireNonNull(recordQueryHashJoinPlanProto.getProbeQuantifier())),
+                Quantifier.Physical.fromProto(serializationContext, Objects.requireNonNull(recordQueryHashJoinPlanProto.getBuildQuantifier())),
+                probeKeyValuesBuilder.build(),
+                buildKeyValuesBuilder.build(),
+                residualPredicatesBuilder.build(),
+                Value.fromValueProto(serializationContext, Objects.requireNonNull(recordQueryHashJoinPlanProto.getResultValue())));
+    }
+
+    /**
+     * Deserializer.
+     */
+    @AutoService(PlanDeserializer.class)
+    public static class Deserializer implements PlanDeserializer<PRecordQueryHashJoinPlan, RecordQueryHashJoinPlan> {
+        @Nonnull
+        @Override
+        public Class<PRecordQueryHashJoinPlan> getProtoMessageClass() {
+            return PRecordQueryHashJoinPlan.class;
+        }
+
+        @Nonnull
+        @Override
+        public RecordQueryHashJoinPlan fromProto(@Nonnull final PlanSerializationContext serializationContext,
+                                                 @Nonnull final PRecordQueryHashJoinPlan recordQueryHashJoinPlanProto) {
+            return RecordQueryHashJoinPlan.fromProto(serializationContext, recordQueryHashJoinPlanProto);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * HashJoinCursorTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors;
+
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.tuple.Tuple;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HashJoinCursorTest {
+    private static final List<Long> BUILD = LongStream.range(0, 50).boxed().collect(Collectors.toList());
+    private static final List<Long> PROBE = LongStream.range(0, 40).map(i -> i * 3).boxed().collect(Collectors.toList());
+
+    @Test
+    void inMemoryJoinPreservesProbeOrder() throws ExecutionException, InterruptedException {
+        final List<String> actual = hashJoin(BUILD, PROBE, 1000, null).asList().get();
+        assertEquals(nestedLoopJoin(BUILD, PROBE), actual);
+    }
+
+    @Test
+    void nullKeysNeverMatch() throws ExecutionException, InterruptedException {
+        final List<Long> build = new ArrayList<>(BUILD);
+        build.add(-1L);
+        final List<Long> probe = new ArrayList<>(PROBE);
+        probe.add(-1L);
+        final List<String> actual = hashJoin(build, probe, 1000, null).asList().get();
+        assertEquals(nestedLoopJoin(BUILD, PROBE), actual);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 20})
+    void spilledJoin(int maxInMemory) throws ExecutionException, InterruptedException {
+        final List<String> actual = hashJoin(BUILD, PROBE, maxInMemory, null).asList().get();
+        assertEquals(sorted(nestedLoopJoin(BUILD, PROBE)), sorted(actual));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 1000})
+    void continuations(int maxInMemory) {
+        final List<String> actual = new ArrayList<>();
+        byte[] continuation = null;
+        int iterations = 0;
+        do {
+            try (RecordCursor<String> cursor = hashJoin(BUILD, PROBE, maxInMemory, continuation).limitRowsTo(4)) {
+                RecordCursorResult<String> result;
+                do {
+                    result = cursor.getNext();
+                    if (result.hasNext()) {
+                        actual.add(result.get());
+                    }
+                } while (result.hasNext());
+                if (result.getNoNextReason().isSourceExhausted()) {
+                    assertTrue(result.getContinuation().isEnd());
+                    assertNull(result.getContinuation().toBytes());
+                } else {
+                    assertEquals(RecordCursor.NoNextReason.RETURN_LIMIT_REACHED, result.getNoNextReason());
+                    assertFalse(result.getContinuation().isEnd());
+                }
+                continuation = result.getContinuation().toBytes();
+            }
+            iterations++;
+        } while (continuation != null);
+        final List<String> expected = nestedLoopJoin(BUILD, PROBE);
+        assertTrue(iterations >= expected.size() / 4);
+        assertEquals(sorted(expected), sorted(actual));
+    }
+
+    @Test
+    void incompleteBuildSideFallsBackToNestedLoop() throws ExecutionException, InterruptedException {
+        final byte[] continuation;
+        try (RecordCursor<String> cursor = hashJoin(BUILD, PROBE, 1000, 10, null)) {
+            final RecordCursorResult<String> result = cursor.getNext();
+            assertFalse(result.hasNext());
+            assertEquals(RecordCursor.NoNextReason.RETURN_LIMIT_REACHED, result.getNoNextReason());
+            assertFalse(result.getContinuation().isEnd());
+            continuation = result.getContinuation().toBytes();
+        }
+        // The nested loop join starts from the beginning of the probe side and preserves its order.
+        final List<String> actual = hashJoin(BUILD, PROBE, 1000, 0, continuation).asList().get();
+        assertEquals(nestedLoopJoin(BUILD, PROBE), actual);
+    }
+
+    @Test
+    void buildSideNeverCompletes() {
+        // Every build scan stops after 10 records, but each one picks up where the previous one stopped.
+        final List<String> actual = new ArrayList<>();
+        final byte[] continuation = drain(BUILD, PROBE, 1000, 10, null, Integer.MAX_VALUE, actual);
+        assertNull(continuation);
+        assertEquals(nestedLoopJoin(BUILD, PROBE), actual);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 1000})
+    void nestedLoopTakesOverWithinProbeElement(int maxInMemory) {
+        final List<String> actual = new ArrayList<>();
+        // Without spilling, 7 results end in the middle of the matches of the probe element 18.
+        byte[] continuation = drain(BUILD, PROBE, maxInMemory, 0, null, 7, actual);
+        assertEquals(7, actual.size());
+        continuation = drain(BUILD, PROBE, maxInMemory, 10, continuation, Integer.MAX_VALUE, actual);
+        assertNull(continuation);
+        assertEquals(sorted(nestedLoopJoin(BUILD, PROBE)), sorted(actual));
+    }
+
+    /**
+     * Run the join until it is exhausted or has returned {@code maxResults} results, resuming it whenever it stops
+     * early.
+     * @return the continuation after the last result or {@code null} if the join is exhausted
+     */
+    @Nullable
+    private static byte[] drain(@Nonnull List<Long> build, @Nonnull List<Long> probe, int maxInMemory, int buildLimit,
+                                @Nullable byte[] continuation, int maxResults, @Nonnull List<String> results) {
+        int remaining = maxResults;
+        byte[] nextContinuation = continuation;
+        do {
+            try (RecordCursor<String> cursor = hashJoin(build, probe, maxInMemory, buildLimit, nextContinuation)) {
+                RecordCursorResult<String> result;
+                do {
+                    result = cursor.getNext();
+                    if (result.hasNext()) {
+                        results.add(result.get());
+                        remaining--;
+                    }
+                } while (result.hasNext() && remaining > 0);
+                nextContinuation = result.getContinuation().toBytes();
+            }
+        } while (nextContinuation != null && remaining > 0);
+        return nextContinuation;
+    }
+
+    @Nonnull
+    private static RecordCursor<String> hashJoin(@Nonnull List<Long> build, @Nonnull List<Long> probe,
+                                                 int maxInMemory, @Nullable byte[] continuation) {
+        return hashJoin(build, probe, maxInMemory, 0, continuation);
+    }
+
+    @Nonnull
+    private static RecordCursor<String> hashJoin(@Nonnull List<Long> build, @Nonnull List<Long> probe,
+                                                 int maxInMemory, int buildLimit, @Nullable byte[] continuation) {
+        return new HashJoinCursor<Long, Long, Long, String>(
+                buildContinuation -> buildLimit > 0
+                                     ? new ListCursor<>(build, buildContinuation).limitRowsTo(buildLimit)
+                                     : new ListCursor<>(build, buildContinuation),
+                probeContinuation -> new ListCursor<>(probe, probeContinuation),
+                HashJoinCursorTest::key,
+                HashJoinCursorTest::key,
+                HashJoinCursorTest::join,
+                b -> Tuple.from(b).pack(),
+                bytes -> Tuple.fromBytes(bytes).getLong(0),
+                maxInMemory,
+                2,
+                ForkJoinPool.commonPool(),
+                null,
+                continuation);
+    }
+
+    @Nonnull
+    private static List<String> nestedLoopJoin(@Nonnull List<Long> build, @Nonnull List<Long> probe) {
+        final List<String> results = new ArrayList<>();
+        for (Long p : probe) {
+            for (Long b : build) {
+                final Long probeKey = key(p);
+                if (probeKey != null && probeKey.equals(key(b))) {
+                    final String joined = join(p, b);
+                    if (joined != null) {
+                        results.add(joined);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    @Nullable
+    private static Long key(@Nonnull Long value) {
+        return value < 0 ? null : value % 10;
+    }
+
+    @Nullable
+    private static String join(@Nonnull Long probe, @Nonnull Long build) {
+        // residual condition: discard pairs where the build value is larger than the probe value
+        return build > probe ? null : probe + ":" + build;
+    }
+
+    @Nonnull
+    private static List<String> sorted(@Nonnull List<String> list) {
+        return list.stream().sorted().collect(Collectors.toList());
+    }
+}
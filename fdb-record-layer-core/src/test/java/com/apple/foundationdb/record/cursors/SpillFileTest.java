@@ -0,0 +1,74 @@
+/*
+ * SpillFileTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors;
+
+import com.apple.foundationdb.record.RecordCoreException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SpillFileTest {
+    @Test
+    void readBackInOrder() {
+        final List<String> elements = IntStream.range(0, 1000)
+                .mapToObj(i -> "element-" + "x".repeat(i % 37) + i)
+                .collect(Collectors.toList());
+        try (SpillFile spillFile = new SpillFile("test")) {
+            for (String element : elements) {
+                spillFile.write(element.getBytes(StandardCharsets.UTF_8));
+            }
+            assertEquals(elements.size(), spillFile.getCount());
+            for (int pass = 0; pass < 2; pass++) {
+                final List<String> actual = new ArrayList<>();
+                spillFile.forEach(bytes -> actual.add(new String(bytes, StandardCharsets.UTF_8)));
+                assertEquals(elements, actual);
+            }
+        }
+    }
+
+    @Test
+    void emptyElements() {
+        try (SpillFile spillFile = new SpillFile("test")) {
+            spillFile.write(new byte[0]);
+            spillFile.write(new byte[0]);
+            final List<byte[]> actual = new ArrayList<>();
+            spillFile.forEach(actual::add);
+            assertEquals(2, actual.size());
+            assertEquals(0, actual.get(0).length);
+        }
+    }
+
+    @Test
+    void noWritesAfterReading() {
+        try (SpillFile spillFile = new SpillFile("test")) {
+            spillFile.write(new byte[] {1, 2, 3});
+            spillFile.forEach(bytes -> { });
+            assertThrows(RecordCoreException.class, () -> spillFile.write(new byte[] {4}));
+        }
+    }
+}
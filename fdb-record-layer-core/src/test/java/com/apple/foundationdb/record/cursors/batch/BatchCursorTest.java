@@ -0,0 +1,168 @@
+/*
+ * BatchCursorTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.cursors.batch;
+
+import com.apple.foundationdb.record.ByteArrayContinuation;
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.cursors.FirableCursor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link BatchCursor} and its adapters to and from {@link RecordCursor}.
+ */
+public class BatchCursorTest {
+    private static final List<Integer> ints = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+
+    @Test
+    public void batchesOfReadyResults() {
+        final BatchCursor<Integer> cursor = RecordCursor.fromList(ints).asBatchCursor(3);
+        final List<Integer> sizes = new ArrayList<>();
+        RecordCursorBatch<Integer> batch;
+        do {
+            batch = cursor.onNextBatch().join();
+            sizes.add(batch.size());
+        } while (batch.hasNext());
+        assertEquals(List.of(3, 3, 3, 1), sizes);
+        assertEquals(RecordCursor.NoNextReason.SOURCE_EXHAUSTED, batch.getNoNextResult().getNoNextReason());
+
+        // The final result is repeated once the cursor is done.
+        final RecordCursorBatch<Integer> afterEnd = cursor.onNextBatch().join();
+        assertTrue(afterEnd.isEmpty());
+        assertFalse(afterEnd.hasNext());
+    }
+
+    @Test
+    public void roundTrip() {
+        final RecordCursor<Integer> cursor = RecordCursor.fromList(ints).asBatchCursor(4).asRecordCursor();
+        final List<Integer> first = new ArrayList<>();
+        RecordCursorResult<Integer> result = null;
+        for (int i = 0; i < 6; i++) {
+            result = cursor.getNext();
+            first.add(result.get());
+        }
+        assertEquals(ints.subList(0, 6), first);
+
+        // Each element's continuation resumes right after it, even in the middle of a batch.
+        final RecordCursor<Integer> resumed = RecordCursor.fromList(ints, result.getContinuation().toBytes())
+                .asBatchCursor(4).asRecordCursor();
+        assertEquals(ints.subList(6, 10), resumed.asList().join());
+        assertEquals(RecordCursor.NoNextReason.SOURCE_EXHAUSTED, resumed.getNext().getNoNextReason());
+    }
+
+    @Test
+    public void mapAndFilter() {
+        final List<Integer> expected = RecordCursor.fromList(ints)
+                .map(i -> i * 2)
+                .filter(i -> i % 3 == 0)
+                .asList().join();
+        final List<Integer> actual = RecordCursor.fromList(ints).asBatchCursor(4)
+                .map(i -> i * 2)
+                .filter(i -> i % 3 == 0)
+                .asRecordCursor()
+                .asList().join();
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void filterEverything() {
+        final RecordCursor<Integer> cursor = RecordCursor.fromList(ints).asBatchCursor(2)
+                .filter(i -> false)
+                .asRecordCursor();
+        final RecordCursorResult<Integer> result = cursor.getNext();
+        assertFalse(result.hasNext());
+        assertEquals(RecordCursor.NoNextReason.SOURCE_EXHAUSTED, result.getNoNextReason());
+    }
+
+    @Test
+    public void limitPreserved() {
+        final RecordCursor<Integer> cursor = RecordCursor.fromList(ints).limitRowsTo(5).asBatchCursor(3).asRecordCursor();
+        assertEquals(ints.subList(0, 5), cursor.asList().join());
+        final RecordCursorResult<Integer> result = cursor.getNext();
+        assertEquals(RecordCursor.NoNextReason.RETURN_LIMIT_REACHED, result.getNoNextReason());
+        assertEquals(ints.subList(5, 10), RecordCursor.fromList(ints, result.getContinuation().toBytes()).asList().join());
+    }
+
+    @Test
+    public void reduceAndCount() {
+        assertEquals(45, RecordCursor.fromList(ints).asBatchCursor(3).reduce(0, Integer::sum).join());
+        assertEquals(10, RecordCursor.fromList(ints).asBatchCursor(3).getCount().join());
+        assertEquals(0, RecordCursor.<Integer>empty().asBatchCursor(3).getCount().join());
+    }
+
+    @Test
+    public void pendingResultStartsNextBatch() {
+        final FirableCursor<Integer> firable = new FirableCursor<>(RecordCursor.fromList(ints));
+        final BatchCursor<Integer> cursor = firable.asBatchCursor(5);
+        firable.fire();
+        final RecordCursorBatch<Integer> first = cursor.onNextBatch().join();
+        // The next element is not ready yet, so the batch ends rather than wait for it.
+        assertEquals(1, first.size());
+        assertTrue(first.hasNext());
+
+        // The result that was not ready when the first batch ended begins the next one.
+        firable.fireAll();
+        final RecordCursorBatch<Integer> second = cursor.onNextBatch().join();
+        assertEquals(5, second.size());
+        assertEquals(1, second.get(0));
+    }
+
+    @Test
+    public void derivedContinuations() {
+        final AtomicInteger derived = new AtomicInteger();
+        final RecordCursorBatch.Builder<Integer> builder = RecordCursorBatch.newBuilder(4, i -> {
+            derived.incrementAndGet();
+            return ByteArrayContinuation.fromInt(i);
+        });
+        for (int i = 0; i < 6; i++) {
+            builder.add(i);
+        }
+        assertThrows(RecordCoreArgumentException.class, () -> builder.add(6, ByteArrayContinuation.fromInt(6)));
+        final RecordCursorBatch<Integer> batch = builder.build();
+        assertEquals(0, derived.get());
+
+        // Continuations still come from the original elements after mapping and filtering.
+        final RecordCursorBatch<String> mapped = batch.filter(i -> i % 2 == 1).map(i -> "v" + i);
+        assertEquals(List.of("v1", "v3", "v5"), List.of(mapped.get(0), mapped.get(1), mapped.get(2)));
+        assertArrayEquals(ByteArrayContinuation.fromInt(5).toBytes(), mapped.getContinuation(2).toBytes());
+        assertEquals(1, derived.get());
+        assertArrayEquals(ByteArrayContinuation.fromInt(1).toBytes(), mapped.getResult(0).getContinuation().toBytes());
+        assertEquals(2, derived.get());
+    }
+
+    @Test
+    public void invalidBatchSize() {
+        assertThrows(RecordCoreArgumentException.class, () -> RecordCursor.fromList(ints).asBatchCursor(0));
+    }
+}
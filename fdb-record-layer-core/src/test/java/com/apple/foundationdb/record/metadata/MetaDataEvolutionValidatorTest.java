@@ -1567,6 +1567,22 @@ public class MetaDataEvolutionValidatorTest {
         validator.validate(metaData2, metaData3);
     }
 
+    @Test
+    public void rankCacheUpperLevelsChanged() {
+        final String indexName = "MySimpleRecord$rank(num_value_2)";
+        RecordMetaDataBuilder metaDataBuilder = RecordMetaData.newBuilder().setRecords(TestRecords1Proto.getDescriptor());
+        metaDataBuilder.addIndex("MySimpleRecord", new Index(indexName, Key.Expressions.field("num_value_2").ungrouped(), IndexTypes.RANK));
+        RecordMetaData metaData1 = metaDataBuilder.getRecordMetaData();
+
+        validateIndexMutation("rank cache upper levels changed", metaData1, indexName,
+                indexProto -> changeOption(indexProto, IndexOptions.RANK_CACHE_UPPER_LEVELS, "true"));
+
+        // Setting the default explicitly is fine
+        RecordMetaData metaData2 = replaceIndex(metaData1, indexName,
+                indexProto -> changeOption(indexProto, IndexOptions.RANK_CACHE_UPPER_LEVELS, "false"));
+        validator.validate(metaData1, metaData2);
+    }
+
     @Test
     public void textOptionsChanged() {
         final String indexName = "MySimpleRecord$text(str_value_indexed)";
@@ -0,0 +1,112 @@
+/*
+ * CompressionDictionaryTrainerTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.common;
+
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.TestRecords1Proto.MySimpleRecord;
+import com.apple.foundationdb.record.TestRecords1Proto.RecordTypeUnion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for {@link CompressionDictionaryTrainer}.
+ */
+public class CompressionDictionaryTrainerTest {
+    private static final String[] WORDS = {"alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel"};
+
+    private static byte[] sample(int i) {
+        return RecordTypeUnion.newBuilder()
+                .setMySimpleRecord(MySimpleRecord.newBuilder()
+                        .setRecNo(i)
+                        .setStrValueIndexed("status: " + WORDS[i % WORDS.length] + "; region: us-west-" + (i % 3) +
+                                            "; description: a record with a fairly long and repetitive description")
+                        .setNumValueUnique(i * 7)
+                        .setNumValue2(i % 5))
+                .build()
+                .toByteArray();
+    }
+
+    private static List<byte[]> samples(int count) {
+        final List<byte[]> samples = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            samples.add(sample(i));
+        }
+        return samples;
+    }
+
+    private static int deflatedSize(byte[] data, @Nullable byte[] dictionary) {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(data);
+            deflater.finish();
+            final byte[] buffer = new byte[data.length * 2 + 64];
+            int size = 0;
+            while (!deflater.finished()) {
+                size += deflater.deflate(buffer);
+            }
+            return size;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {64, 256, CompressionDictionaryTrainer.DEFAULT_DICTIONARY_SIZE})
+    public void trainDictionary(int dictionarySize) {
+        final byte[] dictionary = CompressionDictionaryTrainer.train(samples(200), dictionarySize);
+        assertThat(dictionary.length, greaterThan(0));
+        assertThat(dictionary.length, lessThanOrEqualTo(dictionarySize));
+
+        // A record that was not in the sample still compresses better with the dictionary.
+        final byte[] unseen = sample(1000);
+        assertThat(deflatedSize(unseen, dictionary), lessThan(deflatedSize(unseen, null)));
+    }
+
+    @Test
+    public void nothingInCommon() {
+        assertEquals(0, CompressionDictionaryTrainer.train(List.of(sample(1)), 1024).length);
+        assertEquals(0, CompressionDictionaryTrainer.train(List.of(), 1024).length);
+    }
+
+    @Test
+    public void dictionarySizeOutOfRange() {
+        final List<byte[]> samples = samples(10);
+        assertThrows(RecordCoreArgumentException.class, () -> CompressionDictionaryTrainer.train(samples, 0));
+        assertThrows(RecordCoreArgumentException.class,
+                () -> CompressionDictionaryTrainer.train(samples, CompressionDictionaryTrainer.MAX_DICTIONARY_SIZE + 1));
+    }
+}
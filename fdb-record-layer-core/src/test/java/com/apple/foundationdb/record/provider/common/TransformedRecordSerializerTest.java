@@ -214,6 +214,84 @@ public class TransformedRecordSerializerTest {
                 "raw_length", rawLength, "compressed_length", serialized.length);
     }
 
+    @ParameterizedTest
+    @MethodSource("longRecords")
+    public void compressWithLZ4(@Nonnull final MySimpleRecord longRecord, @Nonnull final Tuple primaryKey) {
+        TransformedRecordSerializer<Message> serializer = TransformedRecordSerializer.newDefaultBuilder()
+                .setCompressWhenSerializing(true)
+                .setCompressionAlgorithm(TransformedRecordSerializer.CompressionAlgorithm.LZ4)
+                .setWriteValidationRatio(1.0)
+                .build();
+
+        final RecordTypeUnion largeUnionRecord = RecordTypeUnion.newBuilder().setMySimpleRecord(longRecord).build();
+        byte[] serialized = serialize(serializer, longRecord);
+        assertTrue(isCompressed(serialized));
+        assertEquals(TransformedRecordSerializer.CompressionAlgorithm.LZ4.getCompressionVersion(), serialized[1]);
+        assertEquals(largeUnionRecord.toByteArray().length, getUncompressedSize(serialized));
+        assertThat(storeTimer.getCount(RecordSerializer.Counts.RECORD_BYTES_BEFORE_COMPRESSION),
+                greaterThan(storeTimer.getCount(RecordSerializer.Counts.RECORD_BYTES_AFTER_COMPRESSION)));
+        assertEquals(longRecord, deserialize(serializer, primaryKey, serialized));
+
+        // Records are decompressed with the algorithm they were compressed with, whatever the serializer writes with
+        TransformedRecordSerializer<Message> deflateSerializer = TransformedRecordSerializer.newDefaultBuilder()
+                .setCompressWhenSerializing(true)
+                .build();
+        assertEquals(longRecord, deserialize(deflateSerializer, primaryKey, serialized));
+        byte[] deflated = serialize(deflateSerializer, longRecord);
+        assertEquals(TransformedRecordSerializer.CompressionAlgorithm.DEFLATE.getCompressionVersion(), deflated[1]);
+        assertEquals(longRecord, deserialize(serializer, primaryKey, deflated));
+    }
+
+    @Test
+    public void lz4DecompressionError() {
+        TransformedRecordSerializer<Message> serializer = TransformedRecordSerializer.newDefaultBuilder()
+                .setCompressWhenSerializing(true)
+                .setCompressionAlgorithm(TransformedRecordSerializer.CompressionAlgorithm.LZ4)
+                .build();
+        MySimpleRecord simpleRecord = MySimpleRecord.newBuilder().setRecNo(1066L).setStrValueIndexed(Strings.repeat("foo", 1000)).build();
+        byte[] serialized = serialize(serializer, simpleRecord);
+        assertTrue(isCompressed(serialized));
+
+        RecordSerializationException e = assertThrows(RecordSerializationException.class,
+                () -> deserialize(serializer, Tuple.from(1066L), Arrays.copyOf(serialized, serialized.length - 3)));
+        assertThat(e.getMessage(), either(containsString("decompression error")).or(containsString("decompressed record too small")));
+    }
+
+    @Test
+    public void compressWithDictionary() {
+        final MySimpleRecord simpleRecord = MySimpleRecord.newBuilder().setRecNo(1066L).setStrValueIndexed(SONNET_108).build();
+        final byte[] dictionary = RecordTypeUnion.newBuilder()
+                .setMySimpleRecord(simpleRecord.toBuilder().setRecNo(1215L))
+                .build()
+                .toByteArray();
+        TransformedRecordSerializer<Message> serializer = TransformedRecordSerializer.newDefaultBuilder()
+                .setCompressWhenSerializing(true)
+                .setCompressionDictionary("MySimpleRecord", dictionary)
+                .setWriteValidationRatio(1.0)
+                .build();
+        TransformedRecordSerializer<Message> noDictionarySerializer = TransformedRecordSerializer.newDefaultBuilder()
+                .setCompressWhenSerializing(true)
+                .build();
+
+        byte[] serialized = serialize(serializer, simpleRecord);
+        assertTrue(isCompressed(serialized));
+        byte[] serializedWithoutDictionary = serialize(noDictionarySerializer, simpleRecord);
+        assertThat(serializedWithoutDictionary.length, greaterThan(serialized.length));
+        assertEquals(simpleRecord, deserialize(serializer, Tuple.from(1066L), serialized));
+        // Records without a dictionary can still be read
+        assertEquals(simpleRecord, deserialize(serializer, Tuple.from(1066L), serializedWithoutDictionary));
+
+        RecordSerializationException e = assertThrows(RecordSerializationException.class,
+                () -> deserialize(noDictionarySerializer, Tuple.from(1066L), serialized));
+        assertThat(e.getMessage(), containsString("missing compression dictionary"));
+
+        // A retired dictionary can still be used for reading
+        TransformedRecordSerializer<Message> retiredDictionarySerializer = TransformedRecordSerializer.newDefaultBuilder()
+                .addDecompressionDictionary(dictionary)
+                .build();
+        assertEquals(simpleRecord, deserialize(retiredDictionarySerializer, Tuple.from(1066L), serialized));
+    }
+
     @Test
     public void decompressWithoutAdler() {
         final TransformedRecordSerializer<Message> serializer = TransformedRecordSerializer.newDefaultBuilder()
@@ -269,7 +347,7 @@ public class TransformedRecordSerializerTest {
         MySimpleRecord simpleRecord = MySimpleRecord.newBuilder().setRecNo(1066L).setStrValueIndexed(SONNET_108).build();
         byte[] serialized = serialize(serializer, simpleRecord);
         assertTrue(isCompressed(serialized));
-        serialized[1] += 1; // Bump the compression version to an unknown value.
+        serialized[1] = (byte) (TransformedRecordSerializer.MAX_COMPRESSION_VERSION + 1); // Set the compression version to an unknown value.
 
         RecordSerializationException e = assertThrows(RecordSerializationException.class,
                 () -> deserialize(serializer, Tuple.from(1066L), serialized));
@@ -0,0 +1,163 @@
+/*
+ * FDBRecordCacheTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.TestRecords1Proto;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.test.Tags;
+import com.google.protobuf.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the cross-transaction {@link FDBRecordCache}.
+ */
+@Tag(Tags.RequiresFDB)
+public class FDBRecordCacheTest extends FDBRecordStoreTestBase {
+    private static final Tuple PRIMARY_KEY = Tuple.from(1066L);
+
+    @BeforeEach
+    void setUpRecordCache() {
+        fdb.setRecordCache(new FDBRecordCache());
+    }
+
+    @AfterEach
+    void clearRecordCache() {
+        fdb.setRecordCache(null);
+    }
+
+    private void saveRecord(String value) throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .setRecNo(1066L)
+                    .setStrValueIndexed(value)
+                    .build());
+            commit(context);
+        }
+    }
+
+    private void makeCacheable() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            assertTrue(recordStore.setRecordsCacheability(true));
+            commit(context);
+        }
+    }
+
+    private String loadValue() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            FDBStoredRecord<Message> rec = recordStore.loadRecord(PRIMARY_KEY);
+            assertNotNull(rec);
+            return TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(rec.getRecord()).build().getStrValueIndexed();
+        }
+    }
+
+    @Test
+    public void hitAcrossTransactions() throws Exception {
+        makeCacheable();
+        saveRecord("first_value");
+        timer.reset();
+        assertEquals("first_value", loadValue());
+        assertEquals("first_value", loadValue());
+        assertEquals(1, timer.getCount(FDBStoreTimer.Counts.RECORD_CACHE_MISS));
+        assertEquals(1, timer.getCount(FDBStoreTimer.Counts.RECORD_CACHE_HIT));
+        assertEquals(1, fdb.getRecordCache().size());
+    }
+
+    @Test
+    public void writeInvalidates() throws Exception {
+        makeCacheable();
+        saveRecord("first_value");
+        assertEquals("first_value", loadValue());
+        saveRecord("second_value");
+        timer.reset();
+        assertEquals("second_value", loadValue());
+        assertEquals(0, timer.getCount(FDBStoreTimer.Counts.RECORD_CACHE_HIT));
+        assertEquals(1, timer.getCount(FDBStoreTimer.Counts.RECORD_CACHE_MISS));
+    }
+
+    @Test
+    public void notCacheableByDefault() throws Exception {
+        saveRecord("first_value");
+        timer.reset();
+        assertEquals("first_value", loadValue());
+        assertEquals("first_value", loadValue());
+        assertEquals(0, timer.getCount(FDBStoreTimer.Counts.RECORD_CACHE_HIT));
+        assertEquals(0, timer.getCount(FDBStoreTimer.Counts.RECORD_CACHE_MISS));
+        assertEquals(0, fdb.getRecordCache().size());
+    }
+
+    @Test
+    public void notCachedAfterOwnWrite() throws Exception {
+        makeCacheable();
+        saveRecord("first_value");
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .setRecNo(1066L)
+                    .setStrValueIndexed("uncommitted_value")
+                    .build());
+            assertNotNull(recordStore.loadRecord(PRIMARY_KEY));
+            // Not committed.
+        }
+        assertEquals(0, fdb.getRecordCache().size());
+        assertEquals("first_value", loadValue());
+    }
+
+    @Test
+    public void serializableHitAddsConflict() throws Exception {
+        makeCacheable();
+        saveRecord("first_value");
+        assertEquals("first_value", loadValue());
+        timer.reset();
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            final FDBRecordStore store = recordStore;
+            assertNotNull(store.loadRecord(PRIMARY_KEY));
+            assertEquals(1, timer.getCount(FDBStoreTimer.Counts.RECORD_CACHE_HIT));
+
+            saveRecord("concurrent_value");
+
+            store.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .setRecNo(1415L)
+                    .build());
+            assertThrows(FDBExceptions.FDBStoreTransactionConflictException.class, context::commit);
+        }
+    }
+
+    @Test
+    public void requiresFormatVersion() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            FDBRecordStore store = openSimpleRecordStore(context, NO_HOOK, FormatVersion.CACHEABLE_STATE);
+            assertThrows(RecordCoreException.class, () -> store.setRecordsCacheability(true));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * FDBRecordReadCacheTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.record.TestRecords1Proto;
+import com.apple.foundationdb.record.provider.foundationdb.properties.RecordLayerPropertyStorage;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.test.Tags;
+import com.google.protobuf.Message;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the transaction-scoped record cache enabled by {@link FDBRecordContextConfig.Builder#setRecordReadCacheSize}.
+ */
+@Tag(Tags.RequiresFDB)
+public class FDBRecordReadCacheTest extends FDBRecordStoreTestBase {
+    private static final Tuple PRIMARY_KEY = Tuple.from(1066L);
+
+    private FDBRecordContext openCachingContext() {
+        return fdb.openContext(contextConfig(RecordLayerPropertyStorage.newBuilder())
+                .setRecordReadCacheSize(100)
+                .build());
+    }
+
+    private void saveInitialRecord() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .setRecNo(1066L)
+                    .setStrValueIndexed("first_value")
+                    .build());
+            commit(context);
+        }
+        timer.reset();
+    }
+
+    @Test
+    public void loadTwice() throws Exception {
+        saveInitialRecord();
+        try (FDBRecordContext context = openCachingContext()) {
+            openSimpleRecordStore(context);
+            FDBStoredRecord<Message> first = recordStore.loadRecord(PRIMARY_KEY);
+            assertNotNull(first);
+            // Another store instance for the same store, opened with separately built meta-data, shares the cache.
+            openSimpleRecordStore(context);
+            FDBStoredRecord<Message> second = recordStore.loadRecord(PRIMARY_KEY);
+            assertNotNull(second);
+            assertSame(first.getRecord(), second.getRecord());
+            assertEquals(1, timer.getCount(FDBStoreTimer.Counts.RECORD_READ_CACHE_MISS));
+            assertEquals(1, timer.getCount(FDBStoreTimer.Counts.RECORD_READ_CACHE_HIT));
+        }
+    }
+
+    @Test
+    public void disabledByDefault() throws Exception {
+        saveInitialRecord();
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            assertNotNull(recordStore.loadRecord(PRIMARY_KEY));
+            assertNotNull(recordStore.loadRecord(PRIMARY_KEY));
+            assertEquals(0, timer.getCount(FDBStoreTimer.Counts.RECORD_READ_CACHE_HIT));
+            assertEquals(0, timer.getCount(FDBStoreTimer.Counts.RECORD_READ_CACHE_MISS));
+        }
+    }
+
+    @Test
+    public void saveInvalidates() throws Exception {
+        saveInitialRecord();
+        try (FDBRecordContext context = openCachingContext()) {
+            openSimpleRecordStore(context);
+            assertNotNull(recordStore.loadRecord(PRIMARY_KEY));
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .setRecNo(1066L)
+                    .setStrValueIndexed("second_value")
+                    .build());
+            FDBStoredRecord<Message> rec = recordStore.loadRecord(PRIMARY_KEY);
+            assertNotNull(rec);
+            TestRecords1Proto.MySimpleRecord simpleRecord = TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .mergeFrom(rec.getRecord())
+                    .build();
+            assertEquals("second_value", simpleRecord.getStrValueIndexed());
+        }
+    }
+
+    @Test
+    public void deleteInvalidates() throws Exception {
+        saveInitialRecord();
+        try (FDBRecordContext context = openCachingContext()) {
+            openSimpleRecordStore(context);
+            assertNotNull(recordStore.loadRecord(PRIMARY_KEY));
+            recordStore.deleteRecord(PRIMARY_KEY);
+            assertNull(recordStore.loadRecord(PRIMARY_KEY));
+        }
+        try (FDBRecordContext context = openCachingContext()) {
+            openSimpleRecordStore(context);
+            assertNull(recordStore.loadRecord(PRIMARY_KEY));
+        }
+    }
+
+    @Test
+    public void deleteAllInvalidates() throws Exception {
+        saveInitialRecord();
+        try (FDBRecordContext context = openCachingContext()) {
+            openSimpleRecordStore(context);
+            assertNotNull(recordStore.loadRecord(PRIMARY_KEY));
+            recordStore.deleteAllRecords();
+            assertNull(recordStore.loadRecord(PRIMARY_KEY));
+        }
+    }
+
+    @Test
+    public void snapshotThenSerializable() throws Exception {
+        saveInitialRecord();
+        try (FDBRecordContext context = openCachingContext()) {
+            openSimpleRecordStore(context);
+            final FDBRecordStore store = recordStore;
+            assertNotNull(store.loadRecord(PRIMARY_KEY, true));
+            // The cached record is returned, but the read conflict that the snapshot read skipped is added.
+            assertNotNull(store.loadRecord(PRIMARY_KEY, false));
+            assertEquals(1, timer.getCount(FDBStoreTimer.Counts.RECORD_READ_CACHE_HIT));
+
+            try (FDBRecordContext otherContext = openContext()) {
+                openSimpleRecordStore(otherContext);
+                recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                        .setRecNo(1066L)
+                        .setStrValueIndexed("concurrent_value")
+                        .build());
+                commit(otherContext);
+            }
+
+            store.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .setRecNo(1415L)
+                    .build());
+            assertThrows(FDBExceptions.FDBStoreTransactionConflictException.class, context::commit);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * IndexStatisticsCollectorTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.record.ExecuteProperties;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.ScanProperties;
+import com.apple.foundationdb.record.TestRecords1Proto.MySimpleRecord;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.provider.foundationdb.cursors.IndexStatisticsCollectorCursor;
+import com.apple.foundationdb.record.query.plan.cascades.IndexStatistics;
+import com.apple.foundationdb.record.query.plan.cascades.PlannerStatistics;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.test.Tags;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.OptionalLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the {@link IndexStatisticsCollectorCursor} and of saving and loading {@link IndexStatistics}.
+ */
+@Tag(Tags.RequiresFDB)
+public class IndexStatisticsCollectorTest extends FDBRecordStoreTestBase {
+    private static final String INDEX_NAME = "MySimpleRecord$num_value_3_indexed";
+
+    private void saveRecords(int recordCount, int distinctValues) throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            for (int i = 0; i < recordCount; i++) {
+                recordStore.saveRecord(MySimpleRecord.newBuilder()
+                        .setRecNo(i)
+                        .setNumValue3Indexed(i % distinctValues)
+                        .build());
+            }
+            commit(context);
+        }
+    }
+
+    @Nonnull
+    private IndexStatistics collect(@Nonnull FDBRecordContext context, @Nonnull ExecuteProperties executeProperties,
+                                    int sampleSize, int sketchSize, int bucketCount) {
+        final Index index = recordStore.getRecordMetaData().getIndex(INDEX_NAME);
+        byte[] continuation = null;
+        while (true) {
+            final RecordCursorResult<IndexStatistics> result = IndexStatisticsCollectorCursor.ofIndex(recordStore, index,
+                    context, new ScanProperties(executeProperties), continuation, sampleSize, sketchSize, bucketCount)
+                    .getNext();
+            if (result.hasNext()) {
+                return result.get();
+            }
+            assertFalse(result.getContinuation().isEnd());
+            continuation = result.getContinuation().toBytes();
+        }
+    }
+
+    private static long histogramCount(@Nonnull IndexStatistics statistics) {
+        return statistics.getHistogram().stream().mapToLong(IndexStatistics.Bucket::getCount).sum();
+    }
+
+    @Test
+    public void empty() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            final IndexStatistics statistics = collect(context, ExecuteProperties.SERIAL_EXECUTE,
+                    IndexStatisticsCollectorCursor.DEFAULT_SAMPLE_SIZE, IndexStatisticsCollectorCursor.DEFAULT_SKETCH_SIZE,
+                    IndexStatisticsCollectorCursor.DEFAULT_BUCKET_COUNT);
+            assertEquals(0L, statistics.getKeyCount());
+            assertTrue(statistics.getHistogram().isEmpty());
+        }
+    }
+
+    @Test
+    public void exactWhenSketchesAreNotFull() throws Exception {
+        saveRecords(100, 10);
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            final IndexStatistics statistics = collect(context, ExecuteProperties.SERIAL_EXECUTE,
+                    IndexStatisticsCollectorCursor.DEFAULT_SAMPLE_SIZE, IndexStatisticsCollectorCursor.DEFAULT_SKETCH_SIZE,
+                    IndexStatisticsCollectorCursor.DEFAULT_BUCKET_COUNT);
+            assertEquals(100L, statistics.getKeyCount());
+            assertEquals(1, statistics.getColumnCount());
+            assertEquals(10L, statistics.getDistinctCount(1));
+            assertEquals(100L, histogramCount(statistics));
+            // every value has its own bucket
+            assertEquals(10, statistics.getHistogram().size());
+            for (int i = 0; i < 10; i++) {
+                final IndexStatistics.Bucket bucket = statistics.getHistogram().get(i);
+                assertEquals(Tuple.from((long)i), bucket.getUpperBound());
+                assertEquals(10L, bucket.getCount());
+                assertEquals(10L, bucket.getUpperBoundCount());
+            }
+        }
+    }
+
+    @Test
+    public void estimatedWhenSketchesAreFull() throws Exception {
+        saveRecords(1000, 1000);
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            final IndexStatistics statistics = collect(context, ExecuteProperties.SERIAL_EXECUTE, 32, 16, 4);
+            assertEquals(1000L, statistics.getKeyCount());
+            // a sketch of 16 hashes has a standard error of about a quarter
+            assertThat(statistics.getDistinctCount(1), allOf(greaterThanOrEqualTo(400L), lessThanOrEqualTo(1000L)));
+            assertThat(statistics.getHistogram().size(), allOf(greaterThan(0), lessThanOrEqualTo(4)));
+            assertEquals(1000L, histogramCount(statistics));
+        }
+    }
+
+    @Test
+    public void resumeFromContinuations() throws Exception {
+        saveRecords(500, 50);
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            final IndexStatistics expected = collect(context, ExecuteProperties.SERIAL_EXECUTE, 32, 16, 4);
+            final IndexStatistics resumed = collect(context, ExecuteProperties.newBuilder().setReturnedRowLimit(7).build(), 32, 16, 4);
+            assertEquals(expected.getKeyCount(), resumed.getKeyCount());
+            assertEquals(expected.getDistinctCount(1), resumed.getDistinctCount(1));
+            assertEquals(expected.getHistogram(), resumed.getHistogram());
+        }
+    }
+
+    @Test
+    public void saveAndLoad() throws Exception {
+        saveRecords(100, 10);
+        final IndexStatistics statistics;
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            final Index index = recordStore.getRecordMetaData().getIndex(INDEX_NAME);
+            assertNull(recordStore.loadIndexStatisticsAsync(index).join());
+            assertTrue(recordStore.loadPlannerStatisticsAsync().join().isEmpty());
+            statistics = collect(context, ExecuteProperties.SERIAL_EXECUTE,
+                    IndexStatisticsCollectorCursor.DEFAULT_SAMPLE_SIZE, IndexStatisticsCollectorCursor.DEFAULT_SKETCH_SIZE,
+                    IndexStatisticsCollectorCursor.DEFAULT_BUCKET_COUNT);
+            recordStore.saveIndexStatistics(index, statistics);
+            commit(context);
+        }
+
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            final Index index = recordStore.getRecordMetaData().getIndex(INDEX_NAME);
+            assertEquals(statistics, recordStore.loadIndexStatisticsAsync(index).join());
+            final PlannerStatistics plannerStatistics = recordStore.loadPlannerStatisticsAsync().join();
+            assertEquals(statistics, plannerStatistics.getIndexStatistics(INDEX_NAME));
+            assertNull(plannerStatistics.getIndexStatistics("MySimpleRecord$str_value_indexed"));
+            assertEquals(OptionalLong.of(100L), plannerStatistics.getRecordCount());
+
+            // disabling the index clears its statistics along with its data
+            recordStore.markIndexDisabled(index).join();
+            assertNull(recordStore.loadIndexStatisticsAsync(index).join());
+            assertNull(recordStore.loadPlannerStatisticsAsync().join().getIndexStatistics(INDEX_NAME));
+            commit(context);
+        }
+    }
+}
@@ -33,6 +33,8 @@ import com.apple.foundationdb.record.RecordScanLimiterFactory;
 import com.apple.foundationdb.record.ScanProperties;
 import com.apple.foundationdb.record.TupleRange;
 import com.apple.foundationdb.record.cursors.CursorLimitManager;
+import com.apple.foundationdb.record.cursors.batch.BatchCursor;
+import com.apple.foundationdb.record.cursors.batch.RecordCursorBatch;
 import com.apple.foundationdb.record.provider.foundationdb.keyspace.KeySpacePath;
 import com.apple.foundationdb.record.test.FDBDatabaseExtension;
 import com.apple.foundationdb.record.test.TestKeySpace;
@@ -45,12 +47,15 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -324,6 +329,65 @@ public class KeyValueCursorTest {
         });
     }
 
+    @Test
+    public void batchScan() {
+        fdb.run(context -> {
+            BatchCursor<KeyValue> cursor = KeyValueCursor.Builder.withSubspace(subspace)
+                    .setContext(context)
+                    .setRange(TupleRange.ALL)
+                    .setContinuation(null)
+                    .setScanProperties(ScanProperties.FORWARD_SCAN)
+                    .build()
+                    .asBatchCursor(4);
+            final List<Tuple> values = new ArrayList<>();
+            byte[] continuation = null;
+            RecordCursorBatch<KeyValue> batch;
+            do {
+                batch = cursor.onNextBatch().join();
+                assertThat(batch.size(), lessThanOrEqualTo(4));
+                for (int i = 0; i < batch.size(); i++) {
+                    values.add(Tuple.fromBytes(batch.get(i).getValue()));
+                    if (values.size() == 7) {
+                        continuation = batch.getContinuation(i).toBytes();
+                    }
+                }
+            } while (batch.hasNext());
+            assertEquals(25, values.size());
+            assertEquals(Tuple.from(4L, 4L), values.get(24));
+            assertEquals(RecordCursor.NoNextReason.SOURCE_EXHAUSTED, batch.getNoNextResult().getNoNextReason());
+
+            // Resuming from the continuation of an element in the middle of a batch continues right after it.
+            cursor = KeyValueCursor.Builder.withSubspace(subspace)
+                    .setContext(context)
+                    .setRange(TupleRange.ALL)
+                    .setContinuation(continuation)
+                    .setScanProperties(ScanProperties.FORWARD_SCAN)
+                    .build()
+                    .asBatchCursor(4);
+            assertEquals(18, (int)cursor.getCount().join());
+            return null;
+        });
+    }
+
+    @Test
+    public void batchScanLimit() {
+        fdb.run(context -> {
+            RecordScanLimiter limiter = RecordScanLimiterFactory.enforce(6);
+            RecordCursor<KeyValue> cursor = KeyValueCursor.Builder.withSubspace(subspace)
+                    .setContext(context)
+                    .setRange(TupleRange.ALL)
+                    .setScanProperties(forwardScanWithLimiter(limiter))
+                    .build()
+                    .asBatchCursor(4)
+                    .asRecordCursor();
+            assertEquals(6, (int)cursor.getCount().join());
+            RecordCursorResult<KeyValue> result = cursor.getNext();
+            assertEquals(RecordCursor.NoNextReason.SCAN_LIMIT_REACHED, result.getNoNextReason());
+            assertEquals(Tuple.from(1L, 0L), Tuple.fromBytes(result.getContinuation().toBytes()));
+            return null;
+        });
+    }
+
     @Test
     public void limitNotReached() {
         fdb.run(context -> {
@@ -0,0 +1,280 @@
+/*
+ * OnlineDictionaryTrainerTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2018 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.record.TestRecords1Proto;
+import com.apple.foundationdb.record.metadata.RecordType;
+import com.apple.foundationdb.record.provider.common.RecordSerializationException;
+import com.apple.foundationdb.record.provider.common.TransformedRecordSerializer;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.test.Tags;
+import com.google.protobuf.Message;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link OnlineDictionaryTrainer} and the compression dictionaries it saves in the record store.
+ */
+@Tag(Tags.RequiresFDB)
+class OnlineDictionaryTrainerTest extends FDBRecordStoreTestBase {
+
+    @Test
+    void trainAndReload() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, NO_HOOK);
+            saveRecords(0, 500, "order");
+            commit(context);
+        }
+        assertEquals(1L, train(OnlineDictionaryTrainer.DEFAULT_SAMPLE_SIZE));
+
+        final Map<String, List<byte[]>> dictionaries = loadDictionaries();
+        assertEquals(1, dictionaries.get("MySimpleRecord").size());
+        assertFalse(dictionaries.containsKey("MyOtherRecord"));
+
+        // New records are compressed with the dictionary, so can only be read with it.
+        try (FDBRecordContext context = openContext()) {
+            openWithDictionaries(context, dictionaries);
+            saveRecords(1000, 1010, "order");
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openWithDictionaries(context, dictionaries);
+            assertLoadable(1000, 1010);
+            assertLoadable(0, 10);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openWithDictionaries(context, Map.of());
+            assertLoadable(0, 10);
+            final RecordSerializationException e = assertThrows(RecordSerializationException.class,
+                    () -> recordStore.loadRecord(Tuple.from(1000L)));
+            assertThat(e.getMessage(), containsString("missing compression dictionary"));
+        }
+    }
+
+    @Test
+    void readWithOlderDictionary() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, NO_HOOK);
+            saveRecords(0, 500, "order");
+            commit(context);
+        }
+        assertEquals(1L, train(OnlineDictionaryTrainer.DEFAULT_SAMPLE_SIZE));
+        try (FDBRecordContext context = openContext()) {
+            openWithDictionaries(context, loadDictionaries());
+            saveRecords(1000, 1010, "order");
+            commit(context);
+        }
+
+        // Records change shape and a new dictionary is trained from them.
+        try (FDBRecordContext context = openContext()) {
+            openWithDictionaries(context, loadDictionaries());
+            saveRecords(0, 500, "shipment");
+            commit(context);
+        }
+        assertEquals(2L, train(OnlineDictionaryTrainer.DEFAULT_SAMPLE_SIZE));
+        final Map<String, List<byte[]>> dictionaries = loadDictionaries();
+        final List<byte[]> versions = dictionaries.get("MySimpleRecord");
+        assertEquals(2, versions.size());
+        assertFalse(Arrays.equals(versions.get(0), versions.get(1)));
+
+        try (FDBRecordContext context = openContext()) {
+            openWithDictionaries(context, dictionaries);
+            saveRecords(2000, 2010, "shipment");
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openWithDictionaries(context, dictionaries);
+            // Compressed with the first dictionary.
+            assertLoadable(1000, 1010);
+            // Compressed with the second.
+            assertLoadable(2000, 2010);
+        }
+        try (FDBRecordContext context = openContext()) {
+            // Only the latest dictionary: the older records can no longer be read.
+            openWithDictionaries(context, Map.of("MySimpleRecord", List.of(versions.get(1))));
+            assertLoadable(2000, 2010);
+            assertThrows(RecordSerializationException.class, () -> recordStore.loadRecord(Tuple.from(1000L)));
+        }
+    }
+
+    @Test
+    void sampleStopsWhenFull() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, NO_HOOK);
+            saveRecords(0, 2000, "order");
+            commit(context);
+        }
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, NO_HOOK);
+            final FDBDatabaseRunner runner = fdb.newRunner();
+            runner.setTimer(timer);
+            try (OnlineDictionaryTrainer trainer = OnlineDictionaryTrainer.newBuilder()
+                    .setRunner(runner)
+                    .setRecordStore(recordStore)
+                    .setRecordType("MySimpleRecord")
+                    .setSampleSize(100)
+                    .setLimit(30)
+                    .build()) {
+                assertEquals(100, trainer.sampleAsync().join().size());
+            }
+        }
+        // Far from all the records were read.
+        assertTrue(timer.getCount(FDBStoreTimer.Counts.LOAD_SCAN_ENTRY) < 1000,
+                () -> "read " + timer.getCount(FDBStoreTimer.Counts.LOAD_SCAN_ENTRY) + " records");
+    }
+
+    @Test
+    void maxRecordsScanned() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, NO_HOOK);
+            final RecordType recordType = recordStore.getRecordMetaData().getRecordType("MySimpleRecord");
+            // The types share the primary key space, so records of the other type must be read past.
+            assertFalse(recordType.primaryKeyHasRecordTypePrefix());
+            for (int i = 0; i < 1000; i++) {
+                recordStore.saveRecord(TestRecords1Proto.MyOtherRecord.newBuilder().setRecNo(i).setNumValue2(i).build());
+            }
+            saveRecords(1000, 1100, "order");
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, NO_HOOK);
+            try (OnlineDictionaryTrainer trainer = OnlineDictionaryTrainer.newBuilder()
+                    .setRecordStore(recordStore)
+                    .setRecordType("MySimpleRecord")
+                    .setSampleSize(50)
+                    .setMaxRecordsScanned(500)
+                    .build()) {
+                assertEquals(0, trainer.sampleAsync().join().size());
+            }
+            try (OnlineDictionaryTrainer trainer = OnlineDictionaryTrainer.newBuilder()
+                    .setRecordStore(recordStore)
+                    .setRecordType("MySimpleRecord")
+                    .setSampleSize(50)
+                    .setMaxRecordsScanned(2000)
+                    .build()) {
+                assertEquals(50, trainer.sampleAsync().join().size());
+            }
+        }
+    }
+
+    @Test
+    void deleteAllRecordsKeepsDictionaries() {
+        final byte[] dictionary = TestRecords1Proto.MySimpleRecord.newBuilder()
+                .setRecNo(1L)
+                .setStrValueIndexed(text(1, "order"))
+                .build()
+                .toByteArray();
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, NO_HOOK);
+            assertEquals(1L, recordStore.saveCompressionDictionaryAsync("MySimpleRecord", dictionary).join());
+            commit(context);
+        }
+        final Map<String, List<byte[]>> dictionaries = loadDictionaries();
+        try (FDBRecordContext context = openContext()) {
+            openWithDictionaries(context, dictionaries);
+            saveRecords(0, 10, "order");
+            recordStore.deleteAllRecords();
+            saveRecords(10, 20, "order");
+            commit(context);
+        }
+        final Map<String, List<byte[]>> reloaded = loadDictionaries();
+        assertEquals(1, reloaded.get("MySimpleRecord").size());
+        assertArrayEquals(dictionary, reloaded.get("MySimpleRecord").get(0));
+        try (FDBRecordContext context = openContext()) {
+            openWithDictionaries(context, reloaded);
+            assertLoadable(10, 20);
+            assertNull(recordStore.loadRecord(Tuple.from(0L)));
+        }
+    }
+
+    private long train(int sampleSize) {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, NO_HOOK);
+            try (OnlineDictionaryTrainer trainer = OnlineDictionaryTrainer.newBuilder()
+                    .setRecordStore(recordStore)
+                    .setRecordType("MySimpleRecord")
+                    .setSampleSize(sampleSize)
+                    .build()) {
+                return trainer.trainDictionary();
+            }
+        }
+    }
+
+    @Nonnull
+    private Map<String, List<byte[]>> loadDictionaries() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, NO_HOOK);
+            return recordStore.loadCompressionDictionariesAsync().join();
+        }
+    }
+
+    private void openWithDictionaries(@Nonnull FDBRecordContext context, @Nonnull Map<String, List<byte[]>> dictionaries) {
+        final TransformedRecordSerializer<Message> serializer = OnlineDictionaryTrainer.addDictionaries(
+                TransformedRecordSerializer.newDefaultBuilder()
+                        .setCompressWhenSerializing(true)
+                        .setWriteValidationRatio(1.0),
+                dictionaries).build();
+        recordStore = getStoreBuilder(context, simpleMetaData(NO_HOOK))
+                .setSerializer(serializer)
+                .createOrOpen();
+    }
+
+    private void saveRecords(int start, int end, @Nonnull String kind) {
+        for (int i = start; i < end; i++) {
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .setRecNo(i)
+                    .setStrValueIndexed(text(i, kind))
+                    .setNumValue2(i % 7)
+                    .build());
+        }
+    }
+
+    private void assertLoadable(int start, int end) {
+        for (int i = start; i < end; i++) {
+            final FDBStoredRecord<Message> rec = recordStore.loadRecord(Tuple.from((long)i));
+            assertNotNull(rec);
+            assertEquals(i, ((TestRecords1Proto.MySimpleRecord)rec.getRecord()).getRecNo());
+        }
+    }
+
+    @Nonnull
+    private static String text(int i, @Nonnull String kind) {
+        return "{\"kind\": \"" + kind + "\", \"customer\": \"customer-" + (i % 97) + "\", \"status\": \"" +
+               (i % 3 == 0 ? "pending" : "complete") + "\", \"warehouse\": \"north-east distribution centre\", " +
+               "\"notes\": \"handle with care; deliver between nine and five on weekdays only\"}";
+    }
+}
@@ -26,6 +26,7 @@ import com.apple.foundationdb.async.RangeSet;
 import com.apple.foundationdb.record.IndexEntry;
 import com.apple.foundationdb.record.IndexScanType;
 import com.apple.foundationdb.record.ScanProperties;
+import com.apple.foundationdb.record.TestRecords1Proto;
 import com.apple.foundationdb.record.TestRecordsJoinIndexProto;
 import com.apple.foundationdb.record.TestRecordsNestedMapProto;
 import com.apple.foundationdb.record.TupleRange;
@@ -47,6 +48,7 @@ import org.junit.jupiter.params.provider.ValueSource;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -1009,6 +1011,114 @@ class OnlineIndexScrubberTest extends OnlineIndexerTest {
         assertFullIterationNoFix(tgtIndex, 77, numRecords, false, false);
     }
 
+    @Test
+    void testScrubberIncrementalMissing() {
+        final long numRecords = 40;
+        final Index tgtIndex = createIncrementalValueIndexAndPopulateData(numRecords);
+
+        // the first scrubbing covers all the records
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        assertEquals(0, incrementalScrub(tgtIndex, timer, true));
+        assertEquals(numRecords, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_SCANNED));
+
+        // nothing has changed since
+        timer.reset();
+        assertEquals(0, incrementalScrub(tgtIndex, timer, true));
+        assertEquals(0, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_SCANNED));
+
+        // change a few records, and lose the new index entry of one of them
+        final List<Long> changed = List.of(3L, 17L, 30L);
+        try (FDBRecordContext context = openContext()) {
+            for (long recNo : changed) {
+                recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                        .setRecNo(recNo)
+                        .setNumValue2(-(int)recNo)
+                        .build());
+            }
+            context.ensureActive().clear(recordStore.indexSubspace(tgtIndex).pack(Tuple.from(-17L, 17L)));
+            context.commit();
+        }
+
+        // only the changed records are scrubbed
+        timer.reset();
+        assertEquals(1, incrementalScrub(tgtIndex, timer, true));
+        assertEquals(changed.size(), timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_SCANNED));
+        assertEquals(changed.size(), timer.getCount(FDBStoreTimer.Counts.INDEX_SCRUBBER_CHANGES_VERIFIED));
+        assertEquals(1, timer.getCount(FDBStoreTimer.Counts.INDEX_SCRUBBER_MISSING_ENTRIES));
+
+        // now verify it's fixed
+        timer.reset();
+        assertEquals(0, incrementalScrub(tgtIndex, timer, true));
+        assertEquals(0, timer.getCount(FDBStoreTimer.Counts.INDEX_SCRUBBER_MISSING_ENTRIES));
+        assertFullIterationNoFix(tgtIndex, 0, numRecords, true, false);
+    }
+
+    @Test
+    void testScrubberIncrementalDangling() {
+        final long numRecords = 40;
+        final Index tgtIndex = createIncrementalValueIndexAndPopulateData(numRecords);
+
+        // the first scrubbing covers all the index entries
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        assertEquals(0, incrementalScrub(tgtIndex, timer, false));
+        assertEquals(numRecords, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_SCANNED));
+
+        // change a few records, and lose one of them without its new index entry
+        final List<Long> changed = List.of(5L, 11L, 23L);
+        try (FDBRecordContext context = openContext()) {
+            for (long recNo : changed) {
+                recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                        .setRecNo(recNo)
+                        .setNumValue2(-(int)recNo)
+                        .build());
+            }
+            context.ensureActive().clear(recordStore.recordsSubspace().range(Tuple.from(11L)));
+            context.commit();
+        }
+
+        // only the written index entries are scrubbed
+        timer.reset();
+        assertEquals(1, incrementalScrub(tgtIndex, timer, false));
+        assertEquals(changed.size(), timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_SCANNED));
+        assertEquals(changed.size(), timer.getCount(FDBStoreTimer.Counts.INDEX_SCRUBBER_CHANGES_VERIFIED));
+        assertEquals(1, timer.getCount(FDBStoreTimer.Counts.INDEX_SCRUBBER_DANGLING_ENTRIES));
+
+        // the changes were consumed
+        timer.reset();
+        assertEquals(0, incrementalScrub(tgtIndex, timer, false));
+        assertEquals(0, timer.getCount(FDBStoreTimer.Counts.INDEX_SCRUBBER_CHANGES_VERIFIED));
+
+        // a reset starts a new full scrubbing
+        timer.reset();
+        try (OnlineIndexScrubber indexScrubber = newScrubberBuilder(tgtIndex, timer)
+                .setScrubbingPolicy(OnlineIndexScrubber.ScrubbingPolicy.newBuilder()
+                        .setIncremental(true)
+                        .setScrubbingRangeReset(true))
+                .build()) {
+            assertEquals(0, indexScrubber.scrubDanglingIndexEntries());
+        }
+        // the dangling entry was removed by the repair
+        assertEquals(numRecords - 1, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_SCANNED));
+    }
+
+    private long incrementalScrub(Index index, FDBStoreTimer timer, boolean missing) {
+        try (OnlineIndexScrubber indexScrubber = newScrubberBuilder(index, timer)
+                .setScrubbingPolicy(OnlineIndexScrubber.ScrubbingPolicy.newBuilder()
+                        .setIncremental(true))
+                .build()) {
+            return missing ? indexScrubber.scrubMissingIndexEntries() : indexScrubber.scrubDanglingIndexEntries();
+        }
+    }
+
+    private Index createIncrementalValueIndexAndPopulateData(long numRecords) {
+        Index tgtIndex = new Index("tgt_index", field("num_value_2"), EmptyKeyExpression.EMPTY,
+                IndexTypes.VALUE, Map.of(IndexOptions.INCREMENTAL_SCRUB_OPTION, "true"));
+        populateData(numRecords);
+        openSimpleMetaData(myHook(tgtIndex));
+        buildIndexClean(tgtIndex);
+        return tgtIndex;
+    }
+
     private void assertFullIterationNoFix(Index index, int rangeId, long numRecords, boolean missing, boolean expectIssues) {
         FDBStoreTimer timer = new FDBStoreTimer();
         long res;
@@ -0,0 +1,141 @@
+/*
+ * OnlineIndexerBuildTextIndexTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.record.ScanProperties;
+import com.apple.foundationdb.record.TestRecords1Proto;
+import com.apple.foundationdb.record.TupleRange;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.metadata.IndexOptions;
+import com.apple.foundationdb.record.metadata.IndexTypes;
+import com.apple.foundationdb.record.util.pair.Pair;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.test.Tags;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static com.apple.foundationdb.record.metadata.Key.Expressions.field;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test building text indexes that maintain score statistics.
+ */
+@SuppressWarnings("try")
+public abstract class OnlineIndexerBuildTextIndexTest extends OnlineIndexerBuildIndexTest {
+    private static final List<String> WORDS = ImmutableList.of("apple", "banana", "cherry", "damson", "elderberry", "fig", "grape");
+    private static final List<List<String>> SEARCHES = ImmutableList.of(
+            ImmutableList.of("apple"),
+            ImmutableList.of("banana", "fig"),
+            ImmutableList.of("cherry", "damson", "grape"),
+            WORDS);
+
+    private OnlineIndexerBuildTextIndexTest(boolean safeBuild) {
+        super(safeBuild);
+    }
+
+    @Nonnull
+    private static TestRecords1Proto.MySimpleRecord randomRecord(@Nonnull Random r, long recNo) {
+        final String text = IntStream.range(0, 1 + r.nextInt(8))
+                .mapToObj(i -> WORDS.get(r.nextInt(WORDS.size())))
+                .collect(Collectors.joining(" "));
+        return TestRecords1Proto.MySimpleRecord.newBuilder().setRecNo(recNo).setStrValueIndexed(text).build();
+    }
+
+    @Nonnull
+    private List<List<Pair<Long, Double>>> scoreTopK(@Nonnull Index index) {
+        return SEARCHES.stream()
+                .map(tokens -> recordStore.scanIndex(index, new TextScoreScanRange(TupleRange.ALL, tokens, 10), null, ScanProperties.FORWARD_SCAN)
+                        .map(entry -> Pair.of(entry.getPrimaryKey().getLong(0), entry.getValue().getDouble(0)))
+                        .asList()
+                        .join())
+                .collect(Collectors.toList());
+    }
+
+    private void textRebuild(@Nonnull List<TestRecords1Proto.MySimpleRecord> records,
+                             @Nullable List<TestRecords1Proto.MySimpleRecord> recordsWhileBuilding,
+                             @Nullable List<Tuple> deleteWhileBuilding) {
+        final OnlineIndexerTestRecordHandler<TestRecords1Proto.MySimpleRecord> recordHandler = OnlineIndexerTestSimpleRecordHandler.instance();
+        final Index index = new Index("newTextIndex", field("str_value_indexed"), IndexTypes.TEXT,
+                ImmutableMap.of(IndexOptions.TEXT_SCORE_STATISTICS_OPTION, "true"));
+
+        final Runnable afterReadable = () -> {
+            final List<List<Pair<Long, Double>>> builtOnline;
+            try (FDBRecordContext context = openContext()) {
+                builtOnline = scoreTopK(index);
+            }
+            // Rebuilding within a single transaction counts every record exactly once, so the scores must not change.
+            try (FDBRecordContext context = openContext()) {
+                recordStore.rebuildIndex(index).join();
+                assertEquals(scoreTopK(index), builtOnline);
+            }
+        };
+
+        singleRebuild(recordHandler, records, recordsWhileBuilding, deleteWhileBuilding, 1, false, false, index, null,
+                () -> { }, () -> { }, afterReadable);
+    }
+
+    @ParameterizedTest
+    @MethodSource("randomSeeds")
+    @Tag(Tags.Slow)
+    void saveAndDeleteWhileBuildingText(long seed) {
+        Random r = new Random(seed);
+        List<TestRecords1Proto.MySimpleRecord> records = LongStream.range(0, 100)
+                .mapToObj(recNo -> randomRecord(r, recNo))
+                .collect(Collectors.toList());
+        // Update some existing records and add some new ones.
+        List<TestRecords1Proto.MySimpleRecord> recordsWhileBuilding = r.longs(60, 0, 150).distinct().sorted()
+                .mapToObj(recNo -> randomRecord(r, recNo))
+                .collect(Collectors.toList());
+        List<Tuple> deleteWhileBuilding = r.longs(30, 0, 150).distinct().sorted()
+                .mapToObj(recNo -> Tuple.from(recNo))
+                .collect(Collectors.toList());
+        textRebuild(records, recordsWhileBuilding, deleteWhileBuilding);
+    }
+
+    /**
+     * Build indexes with the unchecked index build interfaces.
+     */
+    public static class Unsafe extends OnlineIndexerBuildTextIndexTest {
+        Unsafe() {
+            super(false);
+        }
+    }
+
+    /**
+     * Build indexes with the safe index build interfaces.
+     */
+    public static class Safe extends OnlineIndexerBuildTextIndexTest {
+        Safe() {
+            super(true);
+        }
+    }
+}
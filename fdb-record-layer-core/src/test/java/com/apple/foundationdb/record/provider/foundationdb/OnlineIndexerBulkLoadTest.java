@@ -0,0 +1,211 @@
+/*
+ * OnlineIndexerBulkLoadTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb;
+
+import com.apple.foundationdb.record.TestRecords1Proto;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.metadata.IndexOptions;
+import com.apple.foundationdb.record.metadata.IndexTypes;
+import com.apple.foundationdb.record.metadata.expressions.EmptyKeyExpression;
+import com.apple.foundationdb.record.provider.foundationdb.indexing.IndexingBulkLoadState;
+import com.apple.foundationdb.record.sorting.SortEvents;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.test.Tags;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.apple.foundationdb.record.metadata.Key.Expressions.concatenateFields;
+import static com.apple.foundationdb.record.metadata.Key.Expressions.field;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for bulk loading indexes with {@link OnlineIndexer}.
+ */
+@Tag(Tags.Slow)
+class OnlineIndexerBulkLoadTest extends OnlineIndexerTest {
+
+    private void bulkLoad(List<Index> indexes, FDBStoreTimer timer) {
+        bulkLoad(indexes, timer, OnlineIndexer.IndexingPolicy.newBuilder());
+    }
+
+    private void bulkLoad(List<Index> indexes, FDBStoreTimer timer, OnlineIndexer.IndexingPolicy.Builder policy) {
+        try (OnlineIndexer indexBuilder = newIndexerBuilder(indexes, timer)
+                .setIndexingPolicy(policy.setBulkLoad(true))
+                .setLimit(17)
+                .build()) {
+            indexBuilder.buildIndex(true);
+        }
+    }
+
+    @Test
+    void testBulkLoad() {
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        final int numRecords = 150;
+        final List<Index> indexes = List.of(
+                new Index("indexB", field("num_value_3_indexed"), IndexTypes.VALUE),
+                new Index("indexE", concatenateFields("num_value_2", "num_value_unique"), IndexTypes.VALUE));
+
+        populateData(numRecords);
+        openSimpleMetaData(allIndexesHook(indexes));
+        disableAll(indexes);
+        bulkLoad(indexes, timer);
+
+        assertEquals(numRecords, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_SCANNED));
+        assertEquals(2 * numRecords, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_BULK_LOAD_ENTRIES));
+        assertEquals(0, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_BULK_LOAD_SKIPPED));
+        assertReadable(indexes);
+        scrubAndValidate(indexes);
+
+        try (FDBRecordContext context = openContext()) {
+            for (Index index : indexes) {
+                assertFalse(IndexingBulkLoadState.forIndexBuild(recordStore, index).isActive());
+            }
+        }
+    }
+
+    @Test
+    void testBulkLoadMergesSortedFiles() {
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        final int numRecords = 200;
+        final List<Index> indexes = List.of(
+                new Index("indexB", field("num_value_3_indexed"), IndexTypes.VALUE),
+                new Index("indexE", concatenateFields("num_value_2", "num_value_unique"), IndexTypes.VALUE));
+
+        populateData(numRecords);
+        openSimpleMetaData(allIndexesHook(indexes));
+        disableAll(indexes);
+        // Small runs, merged every few files, so that the entries go through several merges
+        bulkLoad(indexes, timer, OnlineIndexer.IndexingPolicy.newBuilder()
+                .setBulkLoadSortRunSize(25)
+                .setBulkLoadSortMaxFileCount(3));
+
+        assertEquals(2 * numRecords, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_BULK_LOAD_ENTRIES));
+        assertTrue(timer.getCount(SortEvents.Events.FILE_SORT_MERGE_FILES) > 0);
+        assertReadable(indexes);
+        scrubAndValidate(indexes);
+    }
+
+    @Test
+    void testBulkLoadSkipsChangedRecords() {
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        final int numRecords = 40;
+        final Index index = new Index("indexB", field("num_value_3_indexed"), IndexTypes.VALUE);
+        final List<Index> indexes = List.of(index);
+
+        populateData(numRecords);
+        openSimpleMetaData(allIndexesHook(indexes));
+        disableAll(indexes);
+        try (FDBRecordContext context = openContext()) {
+            recordStore.markIndexWriteOnly(index).join();
+            IndexingBulkLoadState.forIndexBuild(recordStore, index).startAsync().join();
+            context.commit();
+        }
+
+        // Records saved while the index is bulk loaded are marked, and maintained as usual
+        try (FDBRecordContext context = openContext()) {
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .setRecNo(7L)
+                    .setNumValue3Indexed(-1)
+                    .build());
+            recordStore.deleteRecord(Tuple.from(8L));
+            context.commit();
+        }
+        try (FDBRecordContext context = openContext()) {
+            final IndexingBulkLoadState bulkLoadState = IndexingBulkLoadState.forIndexBuild(recordStore, index);
+            assertTrue(bulkLoadState.isDirtyAsync(Tuple.from(7L)).join());
+            assertTrue(bulkLoadState.isDirtyAsync(Tuple.from(8L)).join());
+            assertFalse(bulkLoadState.isDirtyAsync(Tuple.from(9L)).join());
+            assertEquals(Set.of(Tuple.from(7L), Tuple.from(8L)), bulkLoadState.dirtyRecordsAsync(Tuple.from(0L), Tuple.from(39L)).join());
+            assertEquals(Set.of(Tuple.from(8L)), bulkLoadState.dirtyRecordsAsync(Tuple.from(8L), Tuple.from(9L)).join());
+            assertEquals(Set.of(), bulkLoadState.dirtyRecordsAsync(Tuple.from(9L), Tuple.from(39L)).join());
+        }
+
+        bulkLoad(indexes, timer);
+
+        assertEquals(numRecords - 1, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_SCANNED));
+        assertEquals(numRecords - 2, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_BULK_LOAD_ENTRIES));
+        assertEquals(1, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_BULK_LOAD_SKIPPED));
+        assertReadable(indexes);
+        scrubAndValidate(indexes);
+    }
+
+    @Test
+    void testBulkLoadFallsBackForUniqueIndex() {
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        final int numRecords = 50;
+        final List<Index> indexes = List.of(
+                new Index("indexB", field("num_value_3_indexed"), IndexTypes.VALUE),
+                new Index("indexC", field("num_value_unique"), EmptyKeyExpression.EMPTY, IndexTypes.VALUE, IndexOptions.UNIQUE_OPTIONS));
+
+        populateData(numRecords);
+        openSimpleMetaData(allIndexesHook(indexes));
+        disableAll(indexes);
+        bulkLoad(indexes, timer);
+
+        assertEquals(numRecords, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_INDEXED));
+        assertEquals(0, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_BULK_LOAD_ENTRIES));
+        assertReadable(indexes);
+        scrubAndValidate(indexes);
+    }
+
+    @Test
+    void testBuildAbandonsInterruptedBulkLoad() {
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        final int numRecords = 30;
+        final Index index = new Index("indexB", field("num_value_3_indexed"), IndexTypes.VALUE);
+        final List<Index> indexes = List.of(index);
+
+        populateData(numRecords);
+        openSimpleMetaData(allIndexesHook(indexes));
+        disableAll(indexes);
+        try (FDBRecordContext context = openContext()) {
+            recordStore.markIndexWriteOnly(index).join();
+            IndexingBulkLoadState.forIndexBuild(recordStore, index).startAsync().join();
+            context.commit();
+        }
+        try (FDBRecordContext context = openContext()) {
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .setRecNo(3L)
+                    .setNumValue3Indexed(-1)
+                    .build());
+            context.commit();
+        }
+
+        // A build that does not bulk load clears the state of the interrupted one
+        try (OnlineIndexer indexBuilder = newIndexerBuilder(indexes, timer).build()) {
+            indexBuilder.buildIndex(true);
+        }
+
+        assertEquals(0, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_BULK_LOAD_ENTRIES));
+        try (FDBRecordContext context = openContext()) {
+            final IndexingBulkLoadState bulkLoadState = IndexingBulkLoadState.forIndexBuild(recordStore, index);
+            assertFalse(bulkLoadState.isActive());
+            assertFalse(bulkLoadState.isDirtyAsync(Tuple.from(3L)).join());
+        }
+        assertReadable(indexes);
+        scrubAndValidate(indexes);
+    }
+}
@@ -20,6 +20,7 @@
 
 package com.apple.foundationdb.record.provider.foundationdb;
 
+import com.apple.foundationdb.Range;
 import com.apple.foundationdb.record.IndexBuildProto;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.TestRecords1Proto;
@@ -31,6 +32,7 @@ import com.apple.foundationdb.record.metadata.IndexTypes;
 import com.apple.foundationdb.record.metadata.expressions.EmptyKeyExpression;
 import com.apple.foundationdb.record.metadata.expressions.GroupingKeyExpression;
 import com.apple.foundationdb.synchronizedsession.SynchronizedSessionLockedException;
+import com.apple.foundationdb.tuple.Tuple;
 import com.apple.test.BooleanSource;
 import com.apple.test.Tags;
 import org.junit.jupiter.api.Tag;
@@ -199,6 +201,71 @@ class OnlineIndexerMultiTargetTest extends OnlineIndexerTest {
         scrubAndValidate(indexes);
     }
 
+    @Test
+    void testMultiTargetParallel() {
+        // Build the index with several concurrent workers, each in small chunks
+
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        final int numRecords = 107;
+
+        List<Index> indexes = new ArrayList<>();
+        indexes.add(new Index("indexA", field("num_value_2"), EmptyKeyExpression.EMPTY, IndexTypes.VALUE, IndexOptions.UNIQUE_OPTIONS));
+        indexes.add(new Index("indexB", field("num_value_3_indexed"), IndexTypes.VALUE));
+        indexes.add(new Index("indexC", field("num_value_unique"), EmptyKeyExpression.EMPTY, IndexTypes.VALUE, IndexOptions.UNIQUE_OPTIONS));
+
+        populateData(numRecords);
+
+        FDBRecordStoreTestBase.RecordMetaDataHook hook = allIndexesHook(indexes);
+        openSimpleMetaData(hook);
+        disableAll(indexes);
+        try (OnlineIndexer indexBuilder = newIndexerBuilder(indexes, timer)
+                .setIndexingPolicy(OnlineIndexer.IndexingPolicy.newBuilder()
+                        .setParallelism(4))
+                .setLimit(13)
+                .build()) {
+            indexBuilder.buildIndex(true);
+        }
+
+        assertEquals(numRecords, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_SCANNED));
+        assertEquals(numRecords, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_INDEXED));
+        assertReadable(indexes);
+        scrubAndValidate(indexes);
+    }
+
+    @Test
+    void testMultiTargetParallelReverseScanFailure() {
+        List<Index> indexes = new ArrayList<>();
+        indexes.add(new Index("indexA", field("num_value_2"), EmptyKeyExpression.EMPTY, IndexTypes.VALUE, IndexOptions.UNIQUE_OPTIONS));
+        indexes.add(new Index("indexB", field("num_value_3_indexed"), IndexTypes.VALUE));
+
+        populateData(10);
+
+        FDBRecordStoreTestBase.RecordMetaDataHook hook = allIndexesHook(indexes);
+        openSimpleMetaData(hook);
+        disableAll(indexes);
+        final OnlineIndexer.Builder builder = newIndexerBuilder(indexes)
+                .setIndexingPolicy(OnlineIndexer.IndexingPolicy.newBuilder()
+                        .setParallelism(2)
+                        .setReverseScanOrder(true));
+        assertThrows(IndexingBase.ValidationException.class, builder::build);
+    }
+
+    @Test
+    void testSplitRangesAtBoundaries() {
+        final byte[] low = Tuple.from(0L).pack();
+        final byte[] mid = Tuple.from(50L).pack();
+        final byte[] high = Tuple.from(100L).pack();
+        final List<Range> ranges = List.of(new Range(low, mid), new Range(mid, high));
+        // Boundaries outside of a range, or at its ends, do not split it
+        final List<Range> split = IndexingMultiTargetByRecords.splitRanges(ranges,
+                List.of(Tuple.from(0L), Tuple.from(10L), Tuple.from(20L), Tuple.from(50L), Tuple.from(200L)));
+        assertEquals(List.of(
+                new Range(low, Tuple.from(10L).pack()),
+                new Range(Tuple.from(10L).pack(), Tuple.from(20L).pack()),
+                new Range(Tuple.from(20L).pack(), mid),
+                new Range(mid, high)), split);
+    }
+
     @ParameterizedTest
     @BooleanSource
     void testMultiTargetWithTimeQuota(boolean reverseScan) {
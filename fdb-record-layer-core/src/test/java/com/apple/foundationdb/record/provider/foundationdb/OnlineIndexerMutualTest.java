@@ -36,6 +36,7 @@ import com.apple.foundationdb.record.metadata.IndexOptions;
 import com.apple.foundationdb.record.metadata.IndexTypes;
 import com.apple.foundationdb.record.metadata.expressions.EmptyKeyExpression;
 import com.apple.foundationdb.record.metadata.expressions.GroupingKeyExpression;
+import com.apple.foundationdb.record.provider.foundationdb.indexing.IndexingWorkQueue;
 import com.apple.foundationdb.tuple.Tuple;
 import com.apple.test.BooleanSource;
 import com.apple.test.Tags;
@@ -53,6 +54,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
@@ -223,13 +225,93 @@ class OnlineIndexerMutualTest extends OnlineIndexerTest  {
         scrubAndValidate(indexes);
     }
 
+    @ParameterizedTest
+    @CsvSource({
+            // single threads:
+            "0, 103, 10",
+            "0, 30, 1",
+            // multi threads:
+            "4, 103, 17",
+            "20, 299, 19",
+            "3, 30, 1",
+    })
+    void testMutualIndexingWorkQueue(int numThreads, long numRecords, long boundarySize) {
+        List<Index> indexes = new ArrayList<>();
+        indexes.add(new Index("indexA", field("num_value_2"), EmptyKeyExpression.EMPTY, IndexTypes.VALUE, IndexOptions.UNIQUE_OPTIONS));
+        indexes.add(new Index("indexB", field("num_value_3_indexed"), IndexTypes.VALUE));
+        indexes.add(new Index("indexD", new GroupingKeyExpression(EmptyKeyExpression.EMPTY, 0), IndexTypes.COUNT));
+
+        populateData(numRecords);
+
+        FDBRecordStoreTestBase.RecordMetaDataHook hook = allIndexesHook(indexes);
+        openSimpleMetaData(hook);
+        disableAll(indexes);
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        final List<Tuple> boundariesList = getBoundariesList(numRecords, boundarySize);
+        IntStream.rangeClosed(0, numThreads).parallel().forEach(ignore -> oneThreadIndexing(indexes, timer, boundariesList, true));
+
+        if (numThreads < 1) {
+            assertEquals(numRecords, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_SCANNED));
+            assertEquals(boundariesList.size() - 1, timer.getCount(FDBStoreTimer.Counts.MUTUAL_INDEXER_QUEUE_CLAIM));
+        }
+        // Every fragment was built by one of the indexers.
+        assertTrue(timer.getCount(FDBStoreTimer.Counts.MUTUAL_INDEXER_QUEUE_DONE) >= boundariesList.size() - 1);
+        try (FDBRecordContext context = openContext()) {
+            assertEquals(List.of(), IndexingWorkQueue.forIndexBuild(recordStore, indexes.get(0)).listItemsAsync().join());
+        }
+        assertReadable(indexes);
+        scrubAndValidate(indexes);
+    }
+
+    @Test
+    void testMutualIndexingWorkQueueSplitsClaimedRange() {
+        List<Index> indexes = List.of(new Index("indexB", field("num_value_3_indexed"), IndexTypes.VALUE));
+        long numRecords = 100;
+        populateData(numRecords);
+
+        FDBRecordStoreTestBase.RecordMetaDataHook hook = allIndexesHook(indexes);
+        openSimpleMetaData(hook);
+        disableAll(indexes);
+        // Here: another indexer has claimed the whole records range, but is not building it
+        try (FDBRecordContext context = openContext()) {
+            recordStore.markIndexWriteOnly(indexes.get(0)).join();
+            final IndexingWorkQueue queue = IndexingWorkQueue.forIndexBuild(recordStore, indexes.get(0));
+            final IndexingWorkQueue.WorkItem item = queue.populate(List.of(new Range(new byte[] {0x00}, new byte[] {(byte)0xff}))).get(0);
+            assertNotNull(queue.claimAsync(item, UUID.randomUUID(), System.currentTimeMillis() + 5_000).join());
+            context.commit();
+        }
+
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        try (OnlineIndexer indexBuilder = newIndexerBuilder(indexes, timer)
+                .setIndexingPolicy(OnlineIndexer.IndexingPolicy.newBuilder()
+                        .setMutualIndexingBoundaries(getBoundariesList(numRecords, 10))
+                        .setMutualIndexingWorkQueue(true)
+                        .build())
+                .build()) {
+            indexBuilder.buildIndex(true);
+        }
+        // The claimed range was split at the fragment boundaries, until only its first fragment was left. That one
+        // could only be built after the other indexer's lease had expired.
+        assertTrue(timer.getCount(FDBStoreTimer.Counts.MUTUAL_INDEXER_QUEUE_SPLIT) > 0);
+        assertTrue(timer.getCount(FDBStoreTimer.Counts.MUTUAL_INDEXER_QUEUE_WAIT) > 0);
+        assertEquals(1, timer.getCount(FDBStoreTimer.Counts.MUTUAL_INDEXER_QUEUE_CLAIM));
+        assertEquals(numRecords, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RECORDS_SCANNED));
+        assertReadable(indexes);
+        scrubAndValidate(indexes);
+    }
+
     int oneThreadIndexing(List<Index> indexes, FDBStoreTimer callerTimer, List<Tuple> boundaries) {
+        return oneThreadIndexing(indexes, callerTimer, boundaries, false);
+    }
+
+    int oneThreadIndexing(List<Index> indexes, FDBStoreTimer callerTimer, List<Tuple> boundaries, boolean workQueue) {
         FDBRecordStoreTestBase.RecordMetaDataHook hook = allIndexesHook(indexes);
         openSimpleMetaData(hook);
         final FDBStoreTimer timer = callerTimer != null ? callerTimer : new FDBStoreTimer();
         try (OnlineIndexer indexBuilder = newIndexerBuilder(indexes, timer)
                 .setIndexingPolicy(OnlineIndexer.IndexingPolicy.newBuilder()
                         .setMutualIndexingBoundaries(boundaries)
+                        .setMutualIndexingWorkQueue(workQueue)
                         .build())
                 .build()) {
             try {
@@ -48,6 +48,7 @@ import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
@@ -768,6 +769,73 @@ public class OnlineIndexerSimpleTest extends OnlineIndexerTest {
         }
     }
 
+    @Test
+    void testIndexingThrottleBookerAdaptiveRate() {
+        final OnlineIndexOperationConfig config = OnlineIndexOperationConfig.newBuilder()
+                .setInitialLimit(10)
+                .setRecordsPerSecond(1000)
+                .setIncreaseLimitAfter(2)
+                .setMaxLimit(1000)
+                .setTargetLatencyMillis(100)
+                .build();
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        openSimpleMetaData();
+        try (FDBRecordContext context = openContext()) {
+            final IndexingCommon common = new IndexingCommon(fdb.newRunner(timer, null),
+                    recordStore.asBuilder(),
+                    Collections.emptyList(),
+                    Collections.emptyList(),
+                    null,
+                    config,
+                    false);
+
+            final IndexingThrottle.Booker booker = new IndexingThrottle.Booker(common);
+            postTransaction(booker, 1);
+            assertEquals(1000, booker.getRecordsPerSecond());
+            // slow commits lower the rate, and keep the limit
+            for (int i = 0; i < 2; i++) {
+                timer.record(FDBStoreTimer.Events.COMMIT, TimeUnit.MILLISECONDS.toNanos(500));
+                postTransaction(booker, 1);
+            }
+            assertEquals(563, booker.getRecordsPerSecond()); // 1000 * 3 / 4 * 3 / 4
+            assertEquals(10, booker.getRecordsLimit());
+            assertEquals(2, timer.getCount(FDBStoreTimer.Counts.ONLINE_INDEX_BUILDER_RATE_DECREASED));
+            // fast transactions raise both back up
+            postTransaction(booker, 3);
+            assertEquals(713, booker.getRecordsPerSecond());
+            assertEquals(20, booker.getRecordsLimit());
+            postTransaction(booker, 6);
+            assertEquals(1000, booker.getRecordsPerSecond()); // never above the configured rate
+            // an overloaded cluster halves the rate, other failures do not
+            booker.handleLimitsPostRunnerTransaction(new FDBException("process_behind", 1037), new AtomicLong(10), true, null);
+            assertEquals(500, booker.getRecordsPerSecond());
+            postTransaction(booker, 1, 10, true);
+            assertEquals(500, booker.getRecordsPerSecond());
+        }
+    }
+
+    @Test
+    void testIndexingThrottleBookerSharedRate() {
+        final OnlineIndexOperationConfig config = OnlineIndexOperationConfig.newBuilder()
+                .setRecordsPerSecond(1000)
+                .build();
+        openSimpleMetaData();
+        try (FDBRecordContext context = openContext()) {
+            final IndexingCommon common = new IndexingCommon(context.newRunner(),
+                    recordStore.asBuilder(),
+                    Collections.emptyList(),
+                    Collections.emptyList(),
+                    null,
+                    config,
+                    false);
+
+            // parallel workers divide the configured rate among themselves
+            assertEquals(1000, new IndexingThrottle.Booker(common, 1).getRecordsPerSecond());
+            assertEquals(250, new IndexingThrottle.Booker(common, 4).getRecordsPerSecond());
+            assertEquals(1, new IndexingThrottle.Booker(common, 5000).getRecordsPerSecond());
+        }
+    }
+
     void mayRetryAfterHandlingException(@Nonnull IndexingThrottle.Booker booker, @Nullable Throwable ex, int currTries, boolean shouldRetryExpected) {
         final FDBException fdbException = IndexingThrottle.getFDBException(ex);
         final boolean shouldRetry = booker.mayRetryAfterHandlingException(fdbException, Collections.emptyList(), currTries, true);
@@ -0,0 +1,153 @@
+/*
+ * IntersectionCursorSeekTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.cursors;
+
+import com.apple.foundationdb.record.RecordCoreArgumentException;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorProto;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of intersection cursors created with {@link IntersectionCursor#createSeeking}.
+ */
+public class IntersectionCursorSeekTest {
+    @Nonnull
+    private static final Function<Integer, List<Object>> comparisonKeyFunction = Collections::singletonList;
+
+    // A child over a sorted list, which can be started at any element. Its continuations are positions in the list
+    // from the seek key, so they are only valid with the same seek key.
+    @Nonnull
+    private static SeekableCursorFunction<Integer> seekable(@Nonnull List<Integer> list, boolean reverse, @Nonnull AtomicInteger reads) {
+        return (seekKey, continuation) -> {
+            int start = 0;
+            if (seekKey != null) {
+                final long key = seekKey.getLong(0);
+                while (start < list.size() && (reverse ? list.get(start) > key : list.get(start) < key)) {
+                    start++;
+                }
+            }
+            return RecordCursor.fromList(list.subList(start, list.size()), continuation).map(value -> {
+                reads.incrementAndGet();
+                return value;
+            });
+        };
+    }
+
+    @Nonnull
+    private static List<Integer> range(int start, int end, int step, boolean reverse) {
+        final List<Integer> list = IntStream.range(start, end).filter(i -> i % step == 0).boxed().collect(Collectors.toList());
+        if (reverse) {
+            Collections.reverse(list);
+        }
+        return list;
+    }
+
+    @ParameterizedTest(name = "seekPastLongList [reverse = {0}]")
+    @ValueSource(booleans = {false, true})
+    public void seekPastLongList(boolean reverse) {
+        final List<Integer> rare = reverse ? List.of(2500, 1500, 500) : List.of(500, 1500, 2500);
+        final List<Integer> common = range(0, 3000, 1, reverse);
+        final AtomicInteger rareReads = new AtomicInteger();
+        final AtomicInteger commonReads = new AtomicInteger();
+        final FDBStoreTimer timer = new FDBStoreTimer();
+
+        final List<Integer> results = IntersectionCursor.createSeeking(comparisonKeyFunction, reverse,
+                List.of(seekable(rare, reverse, rareReads), seekable(common, reverse, commonReads)),
+                IntersectionCursor.DEFAULT_SEEK_THRESHOLD, null, timer).asList().join();
+        assertEquals(rare, results);
+        assertEquals(rare.size(), rareReads.get());
+        assertTrue(commonReads.get() < 4 * IntersectionCursor.DEFAULT_SEEK_THRESHOLD, "read " + commonReads.get() + " common elements");
+        assertEquals(rare.size(), timer.getCount(FDBStoreTimer.Counts.QUERY_INTERSECTION_SEEKS));
+    }
+
+    @Test
+    public void sameResultsAsWithoutSeeking() {
+        final List<Integer> evens = range(0, 500, 2, false);
+        final List<Integer> threes = range(0, 500, 3, false);
+        final List<Integer> sevens = range(0, 500, 7, false);
+        final List<Integer> expected = IntersectionCursor.create(comparisonKeyFunction, false,
+                List.<Function<byte[], RecordCursor<Integer>>>of(
+                        continuation -> RecordCursor.fromList(evens, continuation),
+                        continuation -> RecordCursor.fromList(threes, continuation),
+                        continuation -> RecordCursor.fromList(sevens, continuation)),
+                null, null).asList().join();
+        final AtomicInteger reads = new AtomicInteger();
+        for (int seekThreshold : List.of(1, 2, 5)) {
+            final List<Integer> results = IntersectionCursor.createSeeking(comparisonKeyFunction, false,
+                    List.of(seekable(evens, false, reads), seekable(threes, false, reads), seekable(sevens, false, reads)),
+                    seekThreshold, null, null).asList().join();
+            assertEquals(expected, results);
+        }
+    }
+
+    @Test
+    public void resumeAfterSeek() throws InvalidProtocolBufferException {
+        final List<Integer> rare = List.of(100, 200, 300, 400);
+        final List<Integer> common = range(0, 500, 1, false);
+        final AtomicInteger reads = new AtomicInteger();
+        final List<SeekableCursorFunction<Integer>> children = List.of(seekable(rare, false, reads), seekable(common, false, reads));
+
+        final List<Integer> results = new ArrayList<>();
+        boolean seeked = false;
+        byte[] continuation = null;
+        do {
+            // take one element from each new cursor, resuming from the previous one
+            final RecordCursorResult<Integer> result = IntersectionCursor.createSeeking(comparisonKeyFunction, false, children, 4, continuation, null)
+                    .limitRowsTo(1)
+                    .getNext();
+            if (result.hasNext()) {
+                results.add(result.get());
+            }
+            continuation = result.getContinuation().toBytes();
+            if (continuation != null) {
+                seeked |= RecordCursorProto.IntersectionContinuation.parseFrom(continuation).hasSecondSeekKey();
+            }
+        } while (continuation != null);
+        assertEquals(rare, results);
+        assertTrue(seeked, "continuation should include the seek key");
+    }
+
+    @Test
+    public void invalidSeekThreshold() {
+        final AtomicInteger reads = new AtomicInteger();
+        final List<SeekableCursorFunction<Integer>> children = List.of(seekable(List.of(1), false, reads), seekable(List.of(1), false, reads));
+        assertThrows(RecordCoreArgumentException.class,
+                () -> IntersectionCursor.createSeeking(comparisonKeyFunction, false, children, 0, null, null));
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * ApproximateCountDistinctIndexTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2020 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.apple.foundationdb.record.provider.foundationdb.indexes;
+
+import com.apple.foundationdb.record.FunctionNames;
+import com.apple.foundationdb.record.IndexEntry;
+import com.apple.foundationdb.record.IndexScanType;
+import com.apple.foundationdb.record.IsolationLevel;
+import com.apple.foundationdb.record.ScanProperties;
+import com.apple.foundationdb.record.TestRecords1Proto;
+import com.apple.foundationdb.record.TupleRange;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.metadata.IndexAggregateFunction;
+import com.apple.foundationdb.record.metadata.IndexAggregateFunctionCall;
+import com.apple.foundationdb.record.metadata.IndexOptions;
+import com.apple.foundationdb.record.metadata.IndexTypes;
+import com.apple.foundationdb.record.metadata.Key;
+import com.apple.foundationdb.record.metadata.MetaDataException;
+import com.apple.foundationdb.record.metadata.expressions.GroupingKeyExpression;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordContext;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStoreTestBase;
+import com.apple.foundationdb.record.provider.foundationdb.IndexFunctionHelper;
+import com.apple.foundationdb.record.query.IndexQueryabilityFilter;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.test.Tags;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.apple.foundationdb.record.metadata.Key.Expressions.field;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@code APPROXIMATE_COUNT_DISTINCT} type indexes.
+ */
+@Tag(Tags.RequiresFDB)
+class ApproximateCountDistinctIndexTest extends FDBRecordStoreTestBase {
+    private static final GroupingKeyExpression NUM_VALUE_2_BY_STR = field("num_value_2").groupBy(field("str_value_indexed"));
+    private static final GroupingKeyExpression NUM_VALUE_2 = field("num_value_2").ungrouped();
+    private static final List<String> TYPES = Collections.singletonList("MySimpleRecord");
+
+    private static final RecordMetaDataHook HOOK = metaData ->
+            metaData.addIndex("MySimpleRecord", new Index("distinct_num_value_2_by_str", NUM_VALUE_2_BY_STR,
+                    IndexTypes.APPROXIMATE_COUNT_DISTINCT));
+
+    @Test
+    void aggregateFunction() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, HOOK);
+            saveRecords(0, 2000);
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, HOOK);
+            final IndexAggregateFunction byStr = new IndexAggregateFunction(FunctionNames.APPROXIMATE_COUNT_DISTINCT, NUM_VALUE_2_BY_STR, null);
+            assertApproximately(500, evaluate(byStr, Key.Evaluated.scalar("even")));
+            assertApproximately(500, evaluate(byStr, Key.Evaluated.scalar("odd")));
+            assertEquals(0, evaluate(byStr, Key.Evaluated.scalar("none")));
+            // The sketches of the two groups merge into one for the whole index.
+            final IndexAggregateFunction overall = new IndexAggregateFunction(FunctionNames.APPROXIMATE_COUNT_DISTINCT, NUM_VALUE_2, null);
+            assertApproximately(1000, evaluate(overall, Key.Evaluated.EMPTY));
+        }
+    }
+
+    @Test
+    void unsetValuesNotCounted() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, HOOK);
+            for (int i = 0; i < 10; i++) {
+                recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                        .setRecNo(i)
+                        .setStrValueIndexed("even")
+                        .build());
+            }
+            final IndexAggregateFunction byStr = new IndexAggregateFunction(FunctionNames.APPROXIMATE_COUNT_DISTINCT, NUM_VALUE_2_BY_STR, null);
+            assertEquals(0, evaluate(byStr, Key.Evaluated.scalar("even")));
+            final Index index = recordStore.getRecordMetaData().getIndex("distinct_num_value_2_by_str");
+            assertEquals(0, recordStore.scanIndex(index, IndexScanType.BY_GROUP, TupleRange.ALL, null, ScanProperties.FORWARD_SCAN)
+                    .getCount().join().intValue());
+        }
+    }
+
+    @Test
+    void deletesNotReflected() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, HOOK);
+            saveRecords(0, 200);
+            commit(context);
+        }
+        final IndexAggregateFunction byStr = new IndexAggregateFunction(FunctionNames.APPROXIMATE_COUNT_DISTINCT, NUM_VALUE_2_BY_STR, null);
+        final long before;
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, HOOK);
+            before = evaluate(byStr, Key.Evaluated.scalar("even"));
+            assertApproximately(100, before);
+            for (int i = 0; i < 200; i += 2) {
+                recordStore.deleteRecord(Tuple.from(i));
+            }
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, HOOK);
+            assertEquals(before, evaluate(byStr, Key.Evaluated.scalar("even")));
+        }
+    }
+
+    @Test
+    void registers() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, metaData ->
+                    metaData.addIndex("MySimpleRecord", new Index("distinct_num_value_2_by_str", NUM_VALUE_2_BY_STR,
+                            IndexTypes.APPROXIMATE_COUNT_DISTINCT, Map.of(IndexOptions.HLL_PRECISION_OPTION, "4"))));
+            saveRecords(0, 2000);
+            final Index index = recordStore.getRecordMetaData().getIndex("distinct_num_value_2_by_str");
+            final List<IndexEntry> entries = recordStore.scanIndex(index, IndexScanType.BY_GROUP, TupleRange.allOf(Tuple.from("even")),
+                    null, ScanProperties.FORWARD_SCAN).asList().join();
+            // With enough values, every one of the 16 registers is set.
+            assertEquals(16, entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                assertEquals(Tuple.from("even", i), entries.get(i).getKey());
+                final long register = entries.get(i).getValue().getLong(0);
+                assertTrue(register > 0 && register <= 61, () -> "register value " + register);
+            }
+        }
+    }
+
+    @Test
+    void bindAggregateFunctionCall() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, HOOK);
+            final Optional<IndexAggregateFunction> bound = IndexFunctionHelper.bindAggregateFunctionCall(recordStore,
+                    new IndexAggregateFunctionCall(FunctionNames.APPROXIMATE_COUNT_DISTINCT, NUM_VALUE_2_BY_STR),
+                    TYPES, IndexQueryabilityFilter.DEFAULT);
+            assertTrue(bound.isPresent());
+            assertEquals("distinct_num_value_2_by_str", bound.get().getIndex());
+        }
+    }
+
+    @Test
+    void invalidPrecision() {
+        for (String precision : List.of("3", "17", "twelve")) {
+            assertThrows(MetaDataException.class, () -> {
+                try (FDBRecordContext context = openContext()) {
+                    openSimpleRecordStore(context, metaData ->
+                            metaData.addIndex("MySimpleRecord", new Index("distinct_num_value_2_by_str", NUM_VALUE_2_BY_STR,
+                                    IndexTypes.APPROXIMATE_COUNT_DISTINCT, Map.of(IndexOptions.HLL_PRECISION_OPTION, precision))));
+                }
+            });
+        }
+    }
+
+    private void saveRecords(int start, int end) {
+        for (int i = start; i < end; i++) {
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .setRecNo(i)
+                    .setStrValueIndexed((i & 1) == 0 ? "even" : "odd")
+                    .setNumValue2(i % 1000)
+                    .build());
+        }
+    }
+
+    private long evaluate(@Nonnull IndexAggregateFunction function, @Nonnull Key.Evaluated group) {
+        return recordStore.evaluateAggregateFunction(TYPES, function, group, IsolationLevel.SERIALIZABLE).join().getLong(0);
+    }
+
+    private static void assertApproximately(long expected, long actual) {
+        // Well within the error of the default precision at these sizes.
+        assertTrue(Math.abs(actual - expected) <= expected / 20, () -> "estimate " + actual + " too far from " + expected);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * BitmapValueContainerTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.indexes;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.annotation.Nonnull;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link BitmapValueContainer}.
+ */
+class BitmapValueContainerTest {
+
+    @ParameterizedTest(name = "sparse [entrySize = {0}]")
+    @ValueSource(ints = {10_000, 250_000})
+    void sparse(int entrySize) {
+        final BitmapValueContainer container = BitmapValueContainer.empty(entrySize);
+        container.set(1);
+        container.set(entrySize - 1);
+        final byte[] bytes = container.toBytes();
+        assertEquals(BitmapValueContainer.ARRAY, bytes[0]);
+        assertRoundTrip(container, bytes, entrySize);
+    }
+
+    @ParameterizedTest(name = "runs [entrySize = {0}]")
+    @ValueSource(ints = {10_000, 250_000})
+    void runs(int entrySize) {
+        final BitmapValueContainer container = BitmapValueContainer.empty(entrySize);
+        IntStream.range(100, 2000).forEach(container::set);
+        IntStream.range(entrySize - 500, entrySize).forEach(container::set);
+        final byte[] bytes = container.toBytes();
+        assertEquals(BitmapValueContainer.RUN, bytes[0]);
+        assertRoundTrip(container, bytes, entrySize);
+    }
+
+    @ParameterizedTest(name = "dense [entrySize = {0}]")
+    @ValueSource(ints = {16, 10_000})
+    void dense(int entrySize) {
+        final Random random = new Random(entrySize);
+        final BitmapValueContainer container = BitmapValueContainer.empty(entrySize);
+        IntStream.range(0, entrySize).filter(i -> random.nextBoolean()).forEach(container::set);
+        final byte[] bytes = container.toBytes();
+        assertEquals(BitmapValueContainer.BITMAP, bytes[0]);
+        assertEquals(1 + (entrySize + 7) / 8, bytes.length);
+        assertRoundTrip(container, bytes, entrySize);
+    }
+
+    @ParameterizedTest(name = "setAndClear [entrySize = {0}]")
+    @ValueSource(ints = {16, 10_000})
+    void setAndClear(int entrySize) {
+        BitmapValueContainer container = BitmapValueContainer.empty(entrySize);
+        assertTrue(container.isEmpty());
+        for (int i = 0; i < entrySize; i += 3) {
+            container.set(i);
+            container = BitmapValueContainer.fromBytes(container.toBytes(), entrySize);
+        }
+        for (int i = 0; i < entrySize; i++) {
+            assertEquals(i % 3 == 0, container.contains(i));
+        }
+        for (int i = 0; i < entrySize; i += 3) {
+            container.clear(i);
+            container = BitmapValueContainer.fromBytes(container.toBytes(), entrySize);
+        }
+        assertTrue(container.isEmpty());
+    }
+
+    private static void assertRoundTrip(@Nonnull BitmapValueContainer container, @Nonnull byte[] bytes, int entrySize) {
+        final byte[] bitmap = container.toBitmap();
+        assertEquals((entrySize + 7) / 8, bitmap.length);
+        final BitmapValueContainer decoded = BitmapValueContainer.fromBytes(bytes, entrySize);
+        assertFalse(decoded.isEmpty());
+        assertArrayEquals(bitmap, decoded.toBitmap());
+        for (int i = 0; i < entrySize; i++) {
+            assertEquals((bitmap[i / 8] & (1 << (i % 8))) != 0, decoded.contains(i));
+        }
+    }
+}
@@ -20,6 +20,7 @@
 
 package com.apple.foundationdb.record.provider.foundationdb.indexes;
 
+import com.apple.foundationdb.KeyValue;
 import com.apple.foundationdb.record.EvaluationContext;
 import com.apple.foundationdb.record.ExecuteProperties;
 import com.apple.foundationdb.record.FunctionNames;
@@ -638,6 +639,105 @@ class BitmapValueIndexTest extends FDBRecordStoreTestBase {
         }
     }
 
+    @Test
+    void compressed() {
+        final RecordMetaDataHook hook = metadata -> {
+            final RecordTypeBuilder recordType = metadata.getRecordType("MySimpleRecord");
+            metadata.addIndex(recordType, new Index("rec_no_by_str_num3", REC_NO_BY_STR_NUM3, IndexTypes.BITMAP_VALUE,
+                    Collections.singletonMap(IndexOptions.BITMAP_VALUE_COMPRESSED_OPTION, "true")));
+        };
+        try (FDBRecordContext context = openContext()) {
+            createOrOpenRecordStore(context, metaData(hook));
+            saveRecords(100, 200);
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            createOrOpenRecordStore(context, metaData(hook));
+            final Index index = recordStore.getRecordMetaData().getIndex("rec_no_by_str_num3");
+            // Ten positions in a 10,000 position entry are stored as an array of offsets.
+            final List<KeyValue> stored = context.ensureActive().getRange(recordStore.indexSubspace(index).range(Tuple.from("odd", 1))).asList().join();
+            assertEquals(1, stored.size());
+            assertEquals(1 + 10 * 2, stored.get(0).getValue().length);
+            assertThat(
+                    collectOnBits(recordStore.scanIndex(index, IndexScanType.BY_GROUP,
+                            TupleRange.between(Tuple.from("odd", 1, 150), Tuple.from("odd", 1, 175)),
+                            null, ScanProperties.FORWARD_SCAN)),
+                    equalTo(IntStream.range(150, 175).boxed()
+                            .filter(i -> (i & 1) == 1)
+                            .filter(i -> (i % 5) == 1)
+                            .collect(Collectors.toList())));
+            for (int recNo = 100; recNo < 200; recNo++) {
+                if (recNo != 111) {
+                    recordStore.deleteRecord(Tuple.from(recNo));
+                }
+            }
+            assertThat(
+                    collectOnBits(recordStore.scanIndex(index, IndexScanType.BY_GROUP,
+                            TupleRange.ALL, null, ScanProperties.FORWARD_SCAN)),
+                    equalTo(Collections.singletonList(111)));
+            recordStore.deleteRecord(Tuple.from(111));
+            // Empty containers are not stored.
+            assertEquals(Collections.emptyList(), context.ensureActive().getRange(recordStore.indexSubspace(index).range()).asList().join());
+        }
+    }
+
+    @Test
+    void compressedAndQuery() {
+        final Map<String, String> options = ImmutableMap.of(IndexOptions.BITMAP_VALUE_ENTRY_SIZE_OPTION, "64", IndexOptions.BITMAP_VALUE_COMPRESSED_OPTION, "true");
+        final RecordMetaDataHook hook = metadata -> {
+            final RecordTypeBuilder recordType = metadata.getRecordType("MySimpleRecord");
+            metadata.addIndex(recordType, new Index("rec_no_by_str_num2", REC_NO_BY_STR_NUM2, IndexTypes.BITMAP_VALUE, options));
+            metadata.addIndex(recordType, new Index("rec_no_by_str_num3", REC_NO_BY_STR_NUM3, IndexTypes.BITMAP_VALUE, options));
+        };
+        try (FDBRecordContext context = openContext()) {
+            createOrOpenRecordStore(context, metaData(hook));
+            saveRecords(100, 200);
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            createOrOpenRecordStore(context, metaData(hook));
+            setupPlanner(null);
+            final RecordQueryPlan queryPlan = plan(BITMAP_VALUE_REC_NO_BY_STR, Query.and(
+                    Query.field("str_value").equalsValue("odd"),
+                    Query.field("num_value_2").equalsValue(3),
+                    Query.field("num_value_3").equalsValue(4)));
+            assertThat(
+                    collectOnBits(queryPlan.execute(recordStore).map(FDBQueriedRecord::getIndexEntry)),
+                    equalTo(IntStream.range(100, 200).boxed()
+                            .filter(i -> (i & 1) == 1)
+                            .filter(i -> (i % 7) == 3 && (i % 5) == 4)
+                            .collect(Collectors.toList())));
+        }
+    }
+
+    @Test
+    void compressedUniquenessViolationChecked() {
+        final RecordMetaDataHook hook = metadata -> {
+            metadata.removeIndex("MySimpleRecord$num_value_unique");
+            metadata.addIndex(metadata.getRecordType("MySimpleRecord"),
+                    new Index("num_by_num3",
+                            concatenateFields("num_value_3", "num_value_unique").group(1),
+                            IndexTypes.BITMAP_VALUE, ImmutableMap.of(IndexOptions.BITMAP_VALUE_COMPRESSED_OPTION, "true", IndexOptions.UNIQUE_OPTION, "true")));
+        };
+        try (FDBRecordContext context = openContext()) {
+            createOrOpenRecordStore(context, metaData(hook));
+            saveRecords(0, 10);
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            createOrOpenRecordStore(context, metaData(hook));
+            assertThrows(RecordIndexUniquenessViolation.class, () -> {
+                // This is a duplicate of record #2.
+                recordStore.saveRecord(TestRecordsBitmapProto.MySimpleRecord.newBuilder()
+                        .setRecNo(1002)
+                        .setStrValue("even")
+                        .setNumValueUnique(1002)
+                        .setNumValue3(2)
+                        .build());
+            });
+        }
+    }
+
     protected static final GroupingKeyExpression REC_NO_BY_STR = concatenateFields("str_value", "rec_no").group(1);
     protected static final GroupingKeyExpression REC_NO_BY_STR_NUM2 = concatenateFields("str_value", "num_value_2", "rec_no").group(1);
     protected static final GroupingKeyExpression REC_NO_BY_STR_NUM3 = concatenateFields("str_value", "num_value_3", "rec_no").group(1);
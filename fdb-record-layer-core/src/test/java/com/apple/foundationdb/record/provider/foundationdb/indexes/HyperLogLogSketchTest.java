@@ -0,0 +1,93 @@
+/*
+ * HyperLogLogSketchTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.apple.foundationdb.record.provider.foundationdb.indexes;
+
+import com.apple.foundationdb.tuple.Tuple;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link HyperLogLogSketch}.
+ */
+class HyperLogLogSketchTest {
+
+    @Test
+    void empty() {
+        assertEquals(0, new HyperLogLogSketch(HyperLogLogSketch.DEFAULT_PRECISION).estimate());
+    }
+
+    @ParameterizedTest(name = "registerValue [precision = {0}]")
+    @ValueSource(ints = {4, 12, 16})
+    void registerValue(int precision) {
+        assertEquals((1 << precision) - 1, HyperLogLogSketch.registerIndex(-1L, precision));
+        assertEquals(0, HyperLogLogSketch.registerIndex(0L, precision));
+        assertEquals(1, HyperLogLogSketch.registerValue(-1L, precision));
+        assertEquals(65 - precision, HyperLogLogSketch.registerValue(0L, precision));
+    }
+
+    @ParameterizedTest(name = "accuracy [precision = {0}]")
+    @ValueSource(ints = {10, 12, 14})
+    void accuracy(int precision) {
+        final double standardError = 1.04 / Math.sqrt(1 << precision);
+        for (int count : new int[] {10, 1_000, 100_000}) {
+            final HyperLogLogSketch sketch = new HyperLogLogSketch(precision);
+            for (int i = 0; i < count; i++) {
+                // Adding each value twice must not change anything.
+                sketch.add(HyperLogLogSketch.hash(Tuple.from(i)));
+                sketch.add(HyperLogLogSketch.hash(Tuple.from(i)));
+            }
+            assertWithin(count, sketch.estimate(), 4 * standardError);
+        }
+    }
+
+    @Test
+    void merge() {
+        final HyperLogLogSketch left = new HyperLogLogSketch(HyperLogLogSketch.DEFAULT_PRECISION);
+        final HyperLogLogSketch right = new HyperLogLogSketch(HyperLogLogSketch.DEFAULT_PRECISION);
+        final HyperLogLogSketch both = new HyperLogLogSketch(HyperLogLogSketch.DEFAULT_PRECISION);
+        for (int i = 0; i < 20_000; i++) {
+            final long hash = HyperLogLogSketch.hash(Tuple.from("user", i));
+            if (i < 15_000) {
+                left.add(hash);
+            }
+            if (i >= 5_000) {
+                right.add(hash);
+            }
+            both.add(hash);
+        }
+        left.merge(right);
+        for (int i = 0; i < both.getRegisterCount(); i++) {
+            assertEquals(both.getRegister(i), left.getRegister(i));
+        }
+        assertEquals(both.estimate(), left.estimate());
+        assertWithin(20_000, left.estimate(), 0.1);
+    }
+
+    private static void assertWithin(long expected, long actual, double relativeError) {
+        assertTrue(Math.abs(actual - expected) <= Math.max(1.0, expected * relativeError),
+                () -> "estimate " + actual + " too far from " + expected);
+    }
+}
@@ -350,6 +350,85 @@ class RankIndexTest extends FDBRecordStoreQueryTestBase {
         }
     }
 
+    @Test
+    void rankRecordsTogether() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openRecordStore(context);
+            final List<FDBStoredRecord<Message>> records = new ArrayList<>();
+            for (Object[] rec : RECORDS) {
+                records.add(recordStore.loadRecord(Tuple.from(rec[0])));
+            }
+            records.add(recordStore.loadRecord(Tuple.from("achilles")));
+            final RankIndexMaintainer byGender = (RankIndexMaintainer)recordStore.getIndexMaintainer(
+                    recordStore.getRecordMetaData().getIndex("rank_by_gender"));
+            assertEquals(Arrays.asList(1L, 0L, 0L, 0L, 1L, 1L), byGender.rank(records).join());
+            final RankIndexMaintainer byScore = (RankIndexMaintainer)recordStore.getIndexMaintainer(
+                    recordStore.getRecordMetaData().getIndex("BasicRankedRecord$score"));
+            assertEquals(Arrays.asList(1L, 2L, 0L, 2L, 3L, 1L), byScore.rank(records).join());
+            for (FDBStoredRecord<Message> rec : records) {
+                assertEquals(byScore.rank(rec).join(), byScore.rank(Collections.singletonList(rec)).join().get(0));
+            }
+        }
+    }
+
+    @Test
+    void cacheUpperLevels() throws Exception {
+        final RecordMetaDataHook hook = md -> {
+            md.removeIndex("BasicRankedRecord$score");
+            md.addIndex("BasicRankedRecord", new Index("score_cached", field("score").ungrouped(),
+                    IndexTypes.RANK, Collections.singletonMap(IndexOptions.RANK_CACHE_UPPER_LEVELS, "true")));
+        };
+        final List<String> names = Arrays.asList("achilles", "helen", "hector", "penelope", "laodice");
+        try (FDBRecordContext context = openContext()) {
+            openRecordStore(context, hook);
+            recordStore.rebuildIndex(recordStore.getRecordMetaData().getIndex("score_cached")).join();
+            commit(context);
+        }
+        for (int i = 0; i < 2; i++) {
+            try (FDBRecordContext context = openContext()) {
+                openRecordStore(context, hook);
+                assertEquals(Arrays.asList(1L, 2L, 0L, 2L, 3L), rankCached(names));
+                final TupleRange range = new TupleRange(Tuple.from(1L), Tuple.from(3L), EndpointType.RANGE_INCLUSIVE, EndpointType.RANGE_EXCLUSIVE);
+                assertEquals(3, recordStore.scanIndexRecords("score_cached", IndexScanType.BY_RANK, range, null, ScanProperties.FORWARD_SCAN)
+                        .getCount().join().intValue());
+            }
+        }
+        try (FDBRecordContext context = openContext()) {
+            openRecordStore(context, hook);
+            recordStore.saveRecord(TestRecordsRankProto.BasicRankedRecord.newBuilder()
+                    .setName("paris")
+                    .setScore(150)
+                    .setGender("M")
+                    .build());
+            // The transaction that changed the ranked set sees its own changes.
+            assertEquals(Arrays.asList(1L, 3L, 0L, 3L, 4L, 2L), rankCached(concat(names, "paris")));
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openRecordStore(context, hook);
+            assertEquals(Arrays.asList(1L, 3L, 0L, 3L, 4L, 2L), rankCached(concat(names, "paris")));
+        }
+    }
+
+    @Nonnull
+    private static List<String> concat(@Nonnull List<String> names, @Nonnull String name) {
+        final List<String> result = new ArrayList<>(names);
+        result.add(name);
+        return result;
+    }
+
+    @Nonnull
+    private List<Long> rankCached(@Nonnull List<String> names) {
+        final List<FDBStoredRecord<Message>> records = new ArrayList<>();
+        for (String name : names) {
+            final FDBStoredRecord<Message> rec = recordStore.loadRecord(Tuple.from(name));
+            assertNotNull(rec);
+            records.add(rec);
+        }
+        final RankIndexMaintainer maintainer = (RankIndexMaintainer)recordStore.getIndexMaintainer(
+                recordStore.getRecordMetaData().getIndex("score_cached"));
+        return maintainer.rank(records).join();
+    }
 
     @Test
     void checkUpdateWithTies() throws Exception {
@@ -77,6 +77,7 @@ import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStoreTestBase;
 import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
 import com.apple.foundationdb.record.provider.foundationdb.FDBStoredRecord;
+import com.apple.foundationdb.record.provider.foundationdb.TextScoreScanRange;
 import com.apple.foundationdb.record.query.RecordQuery;
 import com.apple.foundationdb.record.query.expressions.AndOrComponent;
 import com.apple.foundationdb.record.query.expressions.Comparisons;
@@ -212,6 +213,8 @@ public class TextIndexTest extends FDBRecordStoreTestBase {
             ImmutableMap.of(IndexOptions.TEXT_TOKENIZER_NAME_OPTION, AllSuffixesTextTokenizer.NAME));
     private static final Index SIMPLE_TEXT_NO_POSITIONS = new Index("Simple$text_no_positions", field("text"), IndexTypes.TEXT,
             ImmutableMap.of(IndexOptions.TEXT_OMIT_POSITIONS_OPTION, "true"));
+    private static final Index SIMPLE_TEXT_SCORED = new Index("Simple$text_scored", field("text"), IndexTypes.TEXT,
+            ImmutableMap.of(IndexOptions.TEXT_SCORE_STATISTICS_OPTION, "true"));
     private static final Index COMBINED_TEXT_BY_GROUP = new Index("Combined$text_by_group", field("text").groupBy(field("group")), IndexTypes.TEXT);
     private static final Index COMPLEX_MULTI_TAG_INDEX = new Index("Complex$multi_tag", field("text").groupBy(field("tag", FanType.FanOut)), IndexTypes.TEXT);
     private static final Index COMPLEX_THEN_TAG_INDEX = new Index("Complex$text_tag", concat(field("text"), field("tag", FanType.FanOut)), IndexTypes.TEXT);
@@ -758,6 +761,113 @@ public class TextIndexTest extends FDBRecordStoreTestBase {
         }
     }
 
+    @Nonnull
+    private List<Pair<Long, Double>> scoreTopK(@Nonnull Index index, @Nonnull List<String> tokens, int k) {
+        return recordStore.scanIndex(index, new TextScoreScanRange(TupleRange.ALL, tokens, k), null, ScanProperties.FORWARD_SCAN)
+                .map(entry -> Pair.of(entry.getPrimaryKey().getLong(0), entry.getValue().getDouble(0)))
+                .asList()
+                .join();
+    }
+
+    // Score every document directly, to check the pruned search against.
+    @Nonnull
+    private static List<Pair<Long, Double>> expectedTopK(@Nonnull Map<Long, String> documents, @Nonnull List<String> tokens, int k) {
+        final Map<Long, List<String>> tokenized = new HashMap<>();
+        documents.forEach((docId, text) -> tokenized.put(docId, Arrays.asList(text.split(" "))));
+        final double averageLength = tokenized.values().stream().mapToInt(List::size).average().orElse(1.0);
+        final List<Pair<Long, Double>> scores = new ArrayList<>();
+        for (Map.Entry<Long, List<String>> document : tokenized.entrySet()) {
+            double score = 0.0;
+            for (String token : tokens) {
+                final long termFrequency = document.getValue().stream().filter(token::equals).count();
+                if (termFrequency > 0) {
+                    final long documentFrequency = tokenized.values().stream().filter(words -> words.contains(token)).count();
+                    final double idf = Math.log(1.0 + (tokenized.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                    final double lengthNorm = document.getValue().size() / averageLength;
+                    score += idf * termFrequency * (TextIndexScorer.K1 + 1) /
+                             (termFrequency + TextIndexScorer.K1 * (1 - TextIndexScorer.B + TextIndexScorer.B * lengthNorm));
+                }
+            }
+            if (score > 0.0) {
+                scores.add(Pair.of(document.getKey(), score));
+            }
+        }
+        scores.sort(Comparator.comparing((Pair<Long, Double> pair) -> pair.getRight()).reversed().thenComparing(Pair::getLeft));
+        return scores.subList(0, Math.min(k, scores.size()));
+    }
+
+    private static void assertScores(@Nonnull List<Pair<Long, Double>> expected, @Nonnull List<Pair<Long, Double>> actual) {
+        assertEquals(expected.stream().map(Pair::getLeft).collect(Collectors.toList()), actual.stream().map(Pair::getLeft).collect(Collectors.toList()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getRight(), actual.get(i).getRight(), 1e-9);
+        }
+    }
+
+    @Test
+    void scoreSimpleDocuments() {
+        final Map<Long, String> documents = new HashMap<>();
+        documents.put(1L, "apple banana");
+        documents.put(2L, "apple apple apple cherry");
+        documents.put(3L, "banana cherry durian");
+        documents.put(4L, "apple");
+        documents.put(5L, "cherry cherry banana banana elderberry");
+        for (long docId = 6L; docId < 30L; docId++) {
+            documents.put(docId, "filler words number " + docId);
+        }
+        final RecordMetaDataHook hook = metaDataBuilder -> metaDataBuilder.addIndex(SIMPLE_DOC, SIMPLE_TEXT_SCORED);
+        try (FDBRecordContext context = openContext()) {
+            openRecordStore(context, hook);
+            documents.forEach((docId, text) -> recordStore.saveRecord(SimpleDocument.newBuilder().setDocId(docId).setText(text).build()));
+            commit(context);
+        }
+        final List<String> tokens = Arrays.asList("apple", "cherry");
+        try (FDBRecordContext context = openContext()) {
+            openRecordStore(context, hook);
+            for (int k : Arrays.asList(1, 2, 3, 10)) {
+                assertScores(expectedTopK(documents, tokens, k), scoreTopK(SIMPLE_TEXT_SCORED, tokens, k));
+            }
+            assertEquals(Collections.emptyList(), scoreTopK(SIMPLE_TEXT_SCORED, Collections.singletonList("missing"), 10));
+
+            // Removing a document updates the statistics used to score the others.
+            recordStore.deleteRecord(Tuple.from(2L));
+            documents.remove(2L);
+            assertScores(expectedTopK(documents, tokens, 10), scoreTopK(SIMPLE_TEXT_SCORED, tokens, 10));
+            commit(context);
+        }
+    }
+
+    @Test
+    void scoreSkipsCommonToken() {
+        final RecordMetaDataHook hook = metaDataBuilder -> metaDataBuilder.addIndex(SIMPLE_DOC, SIMPLE_TEXT_SCORED);
+        try (FDBRecordContext context = openContext()) {
+            openRecordStore(context, hook);
+            recordStore.saveRecord(SimpleDocument.newBuilder().setDocId(0L).setText("common rare").build());
+            for (long docId = 1L; docId <= 200L; docId++) {
+                recordStore.saveRecord(SimpleDocument.newBuilder().setDocId(docId).setText("common filler").build());
+            }
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openRecordStore(context, hook);
+            resetTimer(recordStore);
+            final List<Pair<Long, Double>> results = scoreTopK(SIMPLE_TEXT_SCORED, Arrays.asList("common", "rare"), 1);
+            assertEquals(Collections.singletonList(0L), results.stream().map(Pair::getLeft).collect(Collectors.toList()));
+            // Once the first document is in the top results, no document with only the common token can beat it,
+            // so the rest of that token's postings are not read.
+            assertEquals(1, getCount(recordStore, FDBStoreTimer.Counts.TEXT_SCORE_DOCUMENTS_SCORED));
+            assertThat(getCount(recordStore, FDBStoreTimer.Counts.LOAD_TEXT_ENTRY), lessThan(10));
+        }
+    }
+
+    @Test
+    void scoreRequiresStatistics() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openRecordStore(context);
+            final Index index = recordStore.getRecordMetaData().getIndex(TextIndexTestUtils.SIMPLE_DEFAULT_NAME);
+            assertThrows(RecordCoreException.class, () -> scoreTopK(index, Collections.singletonList("apple"), 1));
+        }
+    }
+
     @Test
     void saveComplexDocuments() throws Exception {
         ComplexDocument complexDocument = ComplexDocument.newBuilder()
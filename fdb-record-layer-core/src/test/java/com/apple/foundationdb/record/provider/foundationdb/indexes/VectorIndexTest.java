@@ -0,0 +1,245 @@
+/*
+ * VectorIndexTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.indexes;
+
+import com.apple.foundationdb.async.hnsw.HNSW;
+import com.apple.foundationdb.async.hnsw.Metric;
+import com.apple.foundationdb.record.IndexEntry;
+import com.apple.foundationdb.record.IndexScanType;
+import com.apple.foundationdb.record.ScanProperties;
+import com.apple.foundationdb.record.TestRecords1Proto;
+import com.apple.foundationdb.record.TupleRange;
+import com.apple.foundationdb.record.metadata.Index;
+import com.apple.foundationdb.record.metadata.IndexOptions;
+import com.apple.foundationdb.record.metadata.IndexTypes;
+import com.apple.foundationdb.record.metadata.Key;
+import com.apple.foundationdb.record.metadata.MetaDataException;
+import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
+import com.apple.foundationdb.record.provider.foundationdb.FDBQueriedRecord;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordContext;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
+import com.apple.foundationdb.record.provider.foundationdb.VectorIndexScanComparisons;
+import com.apple.foundationdb.record.provider.foundationdb.VectorIndexScanRange;
+import com.apple.foundationdb.record.provider.foundationdb.query.DualPlannerTest;
+import com.apple.foundationdb.record.provider.foundationdb.query.FDBRecordStoreQueryTestBase;
+import com.apple.foundationdb.record.query.RecordQuery;
+import com.apple.foundationdb.record.query.expressions.Comparisons;
+import com.apple.foundationdb.record.query.expressions.Query;
+import com.apple.foundationdb.record.query.plan.ScanComparisons;
+import com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryIndexPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlan;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.test.Tags;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.indexPlan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@code VECTOR} type indexes.
+ */
+@Tag(Tags.RequiresFDB)
+class VectorIndexTest extends FDBRecordStoreQueryTestBase {
+    private static final String INDEX_NAME = "vector";
+
+    @Nonnull
+    private static RecordMetaDataHook hook() {
+        return hook(HNSW.Storage.FULL);
+    }
+
+    @Nonnull
+    private static RecordMetaDataHook hook(@Nonnull HNSW.Storage storage) {
+        return md -> md.addIndex("MySimpleRecord", new Index(INDEX_NAME,
+                Key.Expressions.concat(Key.Expressions.field("num_value_2"),
+                        Key.Expressions.field("repeater", KeyExpression.FanType.Concatenate)).group(1),
+                IndexTypes.VECTOR,
+                Map.of(IndexOptions.HNSW_M, "4", IndexOptions.HNSW_METRIC, Metric.EUCLIDEAN_METRIC.name(),
+                        IndexOptions.HNSW_STORAGE, storage.name())));
+    }
+
+    private void saveRecord(long recNo, int group, Integer... vector) {
+        recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                .setRecNo(recNo)
+                .setNumValue2(group)
+                .addAllRepeater(Arrays.asList(vector))
+                .build());
+    }
+
+    private void saveGrid() {
+        // Group 1 holds a 10x10 grid of points with record numbers 100 * x + y; group 2 holds a single far away point.
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                saveRecord(100L * x + y, 1, x, y);
+            }
+        }
+        saveRecord(5000L, 2, 1000, 1000);
+    }
+
+    @Nonnull
+    private List<IndexEntry> scanNearest(int group, int k, double... queryVector) {
+        final Index index = recordStore.getRecordMetaData().getIndex(INDEX_NAME);
+        return recordStore.scanIndex(index, new VectorIndexScanRange(TupleRange.allOf(Tuple.from(group)), queryVector, k, 64),
+                null, ScanProperties.FORWARD_SCAN).asList().join();
+    }
+
+    @Nonnull
+    private static List<Long> primaryKeys(@Nonnull List<IndexEntry> entries) {
+        return entries.stream().map(entry -> entry.getPrimaryKey().getLong(0)).collect(Collectors.toList());
+    }
+
+    @Test
+    void nearestNeighbors() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, hook());
+            saveGrid();
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, hook());
+            final List<IndexEntry> entries = scanNearest(1, 4, 4.1, 6.2);
+            assertEquals(List.of(406L, 407L, 506L, 306L), primaryKeys(entries));
+            for (int i = 1; i < entries.size(); i++) {
+                assertTrue(entries.get(i - 1).getValue().getDouble(0) <= entries.get(i).getValue().getDouble(0));
+            }
+            assertEquals(Tuple.from(1, List.of(4.0, 6.0), 406L), entries.get(0).getKey());
+
+            // Groups have separate graphs.
+            assertEquals(List.of(5000L), primaryKeys(scanNearest(2, 5, 4.1, 6.2)));
+        }
+    }
+
+    @Test
+    void scalarQuantized() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, hook(HNSW.Storage.SCALAR_QUANTIZED));
+            saveGrid();
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, hook(HNSW.Storage.SCALAR_QUANTIZED));
+            timer.reset();
+            final List<IndexEntry> entries = scanNearest(1, 4, 4.1, 6.2);
+            assertEquals(List.of(406L, 407L, 506L, 306L), primaryKeys(entries));
+            // Results are re-ranked using the exact vectors.
+            assertEquals(Tuple.from(1, List.of(4.0, 6.0), 406L), entries.get(0).getKey());
+            assertTrue(timer.getCount(FDBStoreTimer.Counts.VECTOR_NODE_READS) > 0);
+            assertTrue(timer.getCount(FDBStoreTimer.Counts.VECTOR_EXACT_VECTOR_READS) > 0);
+            assertTrue(timer.getCount(FDBStoreTimer.Counts.VECTOR_EXACT_VECTOR_READS) <= 64);
+        }
+    }
+
+    @Test
+    void productQuantizedNotSupported() {
+        try (FDBRecordContext context = openContext()) {
+            assertThrows(MetaDataException.class, () -> openSimpleRecordStore(context, hook(HNSW.Storage.PRODUCT_QUANTIZED)));
+        }
+    }
+
+    @Test
+    void updateAndDelete() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, hook());
+            saveGrid();
+            commit(context);
+        }
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, hook());
+            saveRecord(0L, 1, 50, 50);
+            recordStore.deleteRecord(Tuple.from(909L));
+            assertEquals(List.of(809L, 908L), primaryKeys(scanNearest(1, 2, 9.0, 9.1)));
+            // Moving a record to a different group moves its vector to that group's graph.
+            saveRecord(1L, 2, 999, 999);
+            assertEquals(List.of(5000L, 1L), primaryKeys(scanNearest(2, 5, 1000.0, 1000.0)));
+            assertFalse(primaryKeys(scanNearest(1, 100, 0.0, 0.0)).contains(1L));
+            commit(context);
+        }
+    }
+
+    @Test
+    void scanRequiresSingleGroup() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, hook());
+            final Index index = recordStore.getRecordMetaData().getIndex(INDEX_NAME);
+            final VectorIndexScanRange scanRange = new VectorIndexScanRange(TupleRange.ALL, new double[] {0.0, 0.0}, 1, 10);
+            assertThrows(RuntimeException.class, () -> recordStore.scanIndex(index, scanRange, null, ScanProperties.FORWARD_SCAN));
+        }
+    }
+
+    @Test
+    void indexPlan() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, hook());
+            saveGrid();
+            commit(context);
+        }
+        final RecordQueryPlan plan = verifySerialization(new RecordQueryIndexPlan(INDEX_NAME,
+                new VectorIndexScanComparisons(ScanComparisons.from(new Comparisons.SimpleComparison(Comparisons.Type.EQUALS, 1)),
+                        new double[] {0.2, 0.1}, 3, 64),
+                false));
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, hook());
+            final List<Long> recNos = plan.execute(recordStore).map(FDBQueriedRecord::getRecord)
+                    .map(rec -> TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(rec).getRecNo())
+                    .asList().join();
+            assertEquals(List.of(0L, 100L, 1L), recNos);
+        }
+    }
+
+    @DualPlannerTest(planner = DualPlannerTest.Planner.CASCADES)
+    void planNearestNeighbors() {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, hook());
+            saveGrid();
+            commit(context);
+        }
+        final RecordQuery query = RecordQuery.newBuilder()
+                .setRecordType("MySimpleRecord")
+                .setFilter(Query.and(
+                        Query.field("num_value_2").equalsValue(1),
+                        Query.distanceRank(Key.Expressions.concat(Key.Expressions.field("num_value_2"),
+                                        Key.Expressions.field("repeater", KeyExpression.FanType.Concatenate)).group(1))
+                                .withComparison(new Comparisons.DistanceRankValueComparison(new double[] {0.2, 0.1}, 3))))
+                .build();
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, hook());
+            final RecordQueryPlan plan = planQuery(query);
+            assertMatchesExactly(plan,
+                    indexPlan()
+                            .where(RecordQueryPlanMatchers.indexName(INDEX_NAME))
+                            .and(RecordQueryPlanMatchers.indexScanType(IndexScanType.BY_DISTANCE)));
+            final List<Long> recNos = recordStore.executeQuery(plan).map(FDBQueriedRecord::getRecord)
+                    .map(rec -> TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(rec).getRecNo())
+                    .asList().join();
+            assertEquals(List.of(0L, 100L, 1L), recNos);
+        }
+    }
+}
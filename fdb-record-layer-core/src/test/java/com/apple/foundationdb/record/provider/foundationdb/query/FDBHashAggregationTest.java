@@ -0,0 +1,253 @@
+/*
+ * FDBHashAggregationTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.query;
+
+import com.apple.foundationdb.record.ByteScanLimiterFactory;
+import com.apple.foundationdb.record.EvaluationContext;
+import com.apple.foundationdb.record.ExecuteProperties;
+import com.apple.foundationdb.record.ExecuteState;
+import com.apple.foundationdb.record.FDBRecordStoreProperties;
+import com.apple.foundationdb.record.RecordCursor;
+import com.apple.foundationdb.record.RecordCursorProto;
+import com.apple.foundationdb.record.RecordCursorResult;
+import com.apple.foundationdb.record.RecordScanLimiterFactory;
+import com.apple.foundationdb.record.TestRecords1Proto;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordContext;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
+import com.apple.foundationdb.record.provider.foundationdb.properties.RecordLayerPropertyStorage;
+import com.apple.foundationdb.record.query.plan.ScanComparisons;
+import com.apple.foundationdb.record.query.plan.cascades.Quantifier;
+import com.apple.foundationdb.record.query.plan.cascades.Reference;
+import com.apple.foundationdb.record.query.plan.cascades.expressions.GroupByExpression;
+import com.apple.foundationdb.record.query.plan.cascades.typing.Type;
+import com.apple.foundationdb.record.query.plan.cascades.typing.TypeRepository;
+import com.apple.foundationdb.record.query.plan.cascades.values.FieldValue;
+import com.apple.foundationdb.record.query.plan.cascades.values.NumericAggregationValue;
+import com.apple.foundationdb.record.query.plan.cascades.values.RecordConstructorValue;
+import com.apple.foundationdb.record.query.plan.plans.QueryResult;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryHashAggregationPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryScanPlan;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryTypeFilterPlan;
+import com.apple.test.Tags;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for executing a {@link RecordQueryHashAggregationPlan}, including when its groups do not fit in memory.
+ */
+@Tag(Tags.RequiresFDB)
+class FDBHashAggregationTest extends FDBRecordStoreQueryTestBase {
+    private static final int RECORD_COUNT = 100;
+    private static final int GROUP_COUNT = 20;
+
+    @BeforeEach
+    void setup() throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            for (int i = 0; i < RECORD_COUNT; i++) {
+                recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                        .setRecNo(i)
+                        .setNumValue2(i)
+                        .setNumValue3Indexed(i % GROUP_COUNT)
+                        .build());
+            }
+            commit(context);
+        }
+    }
+
+    @Test
+    void inMemory() {
+        try (FDBRecordContext context = openContext(properties(1000, 100))) {
+            openSimpleRecordStore(context);
+            timer.reset();
+            final List<List<Long>> results = executeToEnd(plan(), null);
+            assertEquals(expected(), toMap(results));
+            assertEquals(1, timer.getCount(FDBStoreTimer.Counts.QUERY_HASH_AGGREGATE_PASSES));
+            assertEquals(0, timer.getCount(FDBStoreTimer.Counts.QUERY_HASH_AGGREGATE_SPILLED_RECORDS));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 7})
+    void spilled(int maxGroupsInMemory) {
+        try (FDBRecordContext context = openContext(properties(maxGroupsInMemory, 100))) {
+            openSimpleRecordStore(context);
+            timer.reset();
+            final List<List<Long>> results = executeToEnd(plan(), null);
+            assertEquals(expected(), toMap(results));
+            assertTrue(timer.getCount(FDBStoreTimer.Counts.QUERY_HASH_AGGREGATE_PASSES) > 1);
+            assertTrue(timer.getCount(FDBStoreTimer.Counts.QUERY_HASH_AGGREGATE_SPILLED_RECORDS) > 0);
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1000, 100, 30", "5, 2, 30", "1000, 3, 7", "3, 1, 45"})
+    void scanLimitContinuations(int maxGroupsInMemory, int maxGroupsInContinuation, int recordScanLimit) throws InvalidProtocolBufferException {
+        try (FDBRecordContext context = openContext(properties(maxGroupsInMemory, maxGroupsInContinuation))) {
+            openSimpleRecordStore(context);
+            final RecordQueryPlan plan = plan();
+            final List<List<Long>> results = new ArrayList<>();
+            byte[] continuation = null;
+            int iterations = 0;
+            while (true) {
+                try (RecordCursor<QueryResult> cursor = executePlan(plan, 0, recordScanLimit, continuation)) {
+                    RecordCursorResult<QueryResult> result;
+                    while ((result = cursor.getNext()).hasNext()) {
+                        results.add(toList(result.get()));
+                    }
+                    continuation = result.getContinuation().toBytes();
+                    if (result.getNoNextReason().isSourceExhausted()) {
+                        assertNull(continuation);
+                        break;
+                    }
+                    assertEquals(RecordCursor.NoNextReason.SCAN_LIMIT_REACHED, result.getNoNextReason());
+                    // The partial groups carried in the continuation are bounded, whatever is in memory.
+                    assertTrue(RecordCursorProto.HashAggregationContinuation.parseFrom(continuation).getPartialAggregationResultsCount() <= maxGroupsInContinuation);
+                }
+                iterations++;
+                assertTrue(iterations < 1000, "hash aggregation did not make progress");
+            }
+            assertEquals(expected(), toMap(results));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {4, 1000})
+    void resumeFromEveryContinuation(int maxGroupsInMemory) {
+        try (FDBRecordContext context = openContext(properties(maxGroupsInMemory, 100))) {
+            openSimpleRecordStore(context);
+            final RecordQueryPlan plan = plan();
+            final List<List<Long>> allResults = executeToEnd(plan, null);
+            assertEquals(expected(), toMap(allResults));
+
+            final List<byte[]> continuations = new ArrayList<>();
+            byte[] continuation = null;
+            do {
+                try (RecordCursor<QueryResult> cursor = executePlan(plan, 1, 0, continuation)) {
+                    final RecordCursorResult<QueryResult> result = cursor.getNext();
+                    assertTrue(result.hasNext());
+                    continuation = result.getContinuation().toBytes();
+                }
+                continuations.add(continuation);
+            } while (continuation != null);
+            assertEquals(allResults.size(), continuations.size());
+
+            // The groups are returned in a stable order, so resuming after any group returns exactly the rest.
+            for (int i = 0; i < continuations.size() - 1; i++) {
+                assertEquals(allResults.subList(i + 1, allResults.size()), executeToEnd(plan, continuations.get(i)));
+            }
+        }
+    }
+
+    @Nonnull
+    private RecordLayerPropertyStorage.Builder properties(int maxGroupsInMemory, int maxGroupsInContinuation) {
+        return RecordLayerPropertyStorage.newBuilder()
+                .addProp(FDBRecordStoreProperties.HASH_AGGREGATION_MAX_GROUPS_IN_MEMORY, maxGroupsInMemory)
+                .addProp(FDBRecordStoreProperties.HASH_AGGREGATION_MAX_GROUPS_IN_CONTINUATION, maxGroupsInContinuation);
+    }
+
+    @Nonnull
+    private RecordQueryPlan plan() {
+        final String recordTypeName = "MySimpleRecord";
+        final var resultType = Type.Record.fromFieldDescriptorsMap(recordStore.getRecordMetaData().getFieldDescriptorMapFromNames(ImmutableSet.of(recordTypeName)));
+        final var scanPlan = new RecordQueryScanPlan(ImmutableSet.of(recordTypeName), resultType, null, ScanComparisons.EMPTY, false, false);
+        final var filterPlan = new RecordQueryTypeFilterPlan(Quantifier.physical(Reference.plannedOf(scanPlan)),
+                Collections.singleton(recordTypeName), resultType);
+        final var quantifier = Quantifier.physical(Reference.plannedOf(filterPlan));
+        final var groupingKeyValue = RecordConstructorValue.ofUnnamed(ImmutableList.of(
+                FieldValue.ofFieldName(quantifier.getFlowedObjectValue(), "num_value_3_indexed")));
+        final var aggregateValue = RecordConstructorValue.ofUnnamed(ImmutableList.of(
+                new NumericAggregationValue.Sum(NumericAggregationValue.PhysicalOperator.SUM_I,
+                        FieldValue.ofFieldName(quantifier.getFlowedObjectValue(), "num_value_2"))));
+        return verifySerialization(RecordQueryHashAggregationPlan.of(quantifier, groupingKeyValue, aggregateValue, GroupByExpression::flattenedResults));
+    }
+
+    @Nonnull
+    private RecordCursor<QueryResult> executePlan(@Nonnull RecordQueryPlan plan, int rowLimit, int recordScanLimit, @Nullable byte[] continuation) {
+        final var typeRepository = TypeRepository.newBuilder().addAllTypes(plan.getDynamicTypes()).build();
+        final ExecuteState executeState = recordScanLimit > 0
+                                          ? new ExecuteState(RecordScanLimiterFactory.enforce(recordScanLimit), ByteScanLimiterFactory.tracking())
+                                          : ExecuteState.NO_LIMITS;
+        final ExecuteProperties executeProperties = ExecuteProperties.SERIAL_EXECUTE.setReturnedRowLimit(rowLimit).setState(executeState);
+        return plan.executePlan(recordStore, EvaluationContext.forTypeRepository(typeRepository), continuation, executeProperties);
+    }
+
+    @Nonnull
+    private List<List<Long>> executeToEnd(@Nonnull RecordQueryPlan plan, @Nullable byte[] continuation) {
+        try (RecordCursor<QueryResult> cursor = executePlan(plan, 0, 0, continuation)) {
+            final List<List<Long>> results = new ArrayList<>();
+            for (QueryResult result : cursor.asList().join()) {
+                results.add(toList(result));
+            }
+            return results;
+        }
+    }
+
+    @Nonnull
+    private static List<Long> toList(@Nonnull QueryResult result) {
+        final Message message = result.getMessage();
+        final List<Long> fields = new ArrayList<>();
+        for (var field : message.getDescriptorForType().getFields()) {
+            fields.add(((Number)message.getField(field)).longValue());
+        }
+        return fields;
+    }
+
+    @Nonnull
+    private static Map<Long, Long> toMap(@Nonnull List<List<Long>> results) {
+        final Map<Long, Long> map = new HashMap<>();
+        for (List<Long> result : results) {
+            assertEquals(2, result.size());
+            assertNull(map.put(result.get(0), result.get(1)), () -> "group " + result.get(0) + " returned more than once");
+        }
+        return map;
+    }
+
+    @Nonnull
+    private static Map<Long, Long> expected() {
+        final Map<Long, Long> map = new HashMap<>();
+        for (long i = 0; i < RECORD_COUNT; i++) {
+            map.merge(i % GROUP_COUNT, i, Long::sum);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * FDBIndexStatisticsQueryTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.query;
+
+import com.apple.foundationdb.record.TestRecords1Proto;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordContext;
+import com.apple.foundationdb.record.query.RecordQuery;
+import com.apple.foundationdb.record.query.expressions.Query;
+import com.apple.foundationdb.record.query.plan.cascades.CascadesPlanner;
+import com.apple.foundationdb.record.query.plan.cascades.IndexStatistics;
+import com.apple.foundationdb.record.query.plan.plans.RecordQueryPlan;
+import com.apple.foundationdb.tuple.Tuple;
+import com.apple.test.Tags;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Tag;
+
+import javax.annotation.Nonnull;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that the {@link CascadesPlanner} uses {@link IndexStatistics} saved in the record store to choose between
+ * index scans that the heuristics of the cost model cannot tell apart, and between an index scan and a record scan.
+ */
+@Tag(Tags.RequiresFDB)
+public class FDBIndexStatisticsQueryTest extends FDBRecordStoreQueryTestBase {
+    private static final String STR_INDEX = "MySimpleRecord$str_value_indexed";
+    private static final String NUM_INDEX = "MySimpleRecord$num_value_3_indexed";
+    private static final long KEY_COUNT = 100_000L;
+
+    // an equality on str_value_indexed and a range on num_value_3_indexed cannot be intersected, so either index
+    // could be scanned with the other comparison as a residual filter
+    private static final RecordQuery QUERY = RecordQuery.newBuilder()
+            .setRecordType("MySimpleRecord")
+            .setFilter(Query.and(
+                    Query.field("str_value_indexed").equalsValue("even"),
+                    Query.field("num_value_3_indexed").greaterThan(5)))
+            .build();
+    private static final RecordQuery RANGE_QUERY = RecordQuery.newBuilder()
+            .setRecordType("MySimpleRecord")
+            .setFilter(Query.field("num_value_3_indexed").greaterThan(5))
+            .build();
+
+    @DualPlannerTest(planner = DualPlannerTest.Planner.CASCADES)
+    void selectiveEqualityIndex() throws Exception {
+        // 100 entries per string, but almost all entries are above 5
+        saveStatistics(1000L, ImmutableList.of(
+                new IndexStatistics.Bucket(Tuple.from(5L), 1_000L),
+                new IndexStatistics.Bucket(Tuple.from(1000L), KEY_COUNT - 1_000L)));
+        assertEquals(ImmutableSet.of(STR_INDEX), planWithStatistics().getUsedIndexes());
+    }
+
+    @DualPlannerTest(planner = DualPlannerTest.Planner.CASCADES)
+    void selectiveRangeIndex() throws Exception {
+        // 50,000 entries per string, but only 1,000 entries are above 5
+        saveStatistics(2L, ImmutableList.of(
+                new IndexStatistics.Bucket(Tuple.from(5L), KEY_COUNT - 1_000L),
+                new IndexStatistics.Bucket(Tuple.from(10L), 1_000L)));
+        assertEquals(ImmutableSet.of(NUM_INDEX), planWithStatistics().getUsedIndexes());
+    }
+
+    @DualPlannerTest(planner = DualPlannerTest.Planner.CASCADES)
+    void unselectiveRangeScansRecords() throws Exception {
+        // almost all entries are above 5, so fetching them through the index reads more than scanning the records
+        saveStatistics(2L, ImmutableList.of(
+                new IndexStatistics.Bucket(Tuple.from(5L), 1_000L),
+                new IndexStatistics.Bucket(Tuple.from(1000L), KEY_COUNT - 1_000L)));
+        assertEquals(ImmutableSet.of(), planWithStatistics(RANGE_QUERY).getUsedIndexes());
+    }
+
+    @DualPlannerTest(planner = DualPlannerTest.Planner.CASCADES)
+    void selectiveRangeUsesIndex() throws Exception {
+        saveStatistics(2L, ImmutableList.of(
+                new IndexStatistics.Bucket(Tuple.from(5L), KEY_COUNT - 1_000L),
+                new IndexStatistics.Bucket(Tuple.from(10L), 1_000L)));
+        assertEquals(ImmutableSet.of(NUM_INDEX), planWithStatistics(RANGE_QUERY).getUsedIndexes());
+    }
+
+    private void saveStatistics(long distinctStrings, @Nonnull ImmutableList<IndexStatistics.Bucket> numHistogram) throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            recordStore.saveRecord(TestRecords1Proto.MySimpleRecord.newBuilder()
+                    .setRecNo(1L)
+                    .setStrValueIndexed("even")
+                    .setNumValue3Indexed(6)
+                    .build());
+            recordStore.saveIndexStatistics(recordStore.getRecordMetaData().getIndex(STR_INDEX),
+                    new IndexStatistics(KEY_COUNT, new long[] {distinctStrings}, ImmutableList.of(), System.currentTimeMillis()));
+            recordStore.saveIndexStatistics(recordStore.getRecordMetaData().getIndex(NUM_INDEX),
+                    new IndexStatistics(KEY_COUNT, new long[] {1000L}, numHistogram, System.currentTimeMillis()));
+            commit(context);
+        }
+    }
+
+    @Nonnull
+    private RecordQueryPlan planWithStatistics() throws Exception {
+        return planWithStatistics(QUERY);
+    }
+
+    @Nonnull
+    private RecordQueryPlan planWithStatistics(@Nonnull RecordQuery query) throws Exception {
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context);
+            ((CascadesPlanner)planner).setStatistics(recordStore.loadPlannerStatisticsAsync().join());
+            final RecordQueryPlan plan = planQuery(query);
+            assertEquals(ImmutableList.of(TestRecords1Proto.MySimpleRecord.newBuilder()
+                            .setRecNo(1L)
+                            .setStrValueIndexed("even")
+                            .setNumValue3Indexed(6)
+                            .build()),
+                    recordStore.executeQuery(plan)
+                            .map(queriedRecord -> TestRecords1Proto.MySimpleRecord.newBuilder().mergeFrom(queriedRecord.getRecord()).build())
+                            .asList()
+                            .join());
+            return plan;
+        }
+    }
+}
@@ -83,6 +83,7 @@ import static com.apple.foundationdb.record.provider.foundationdb.query.FDBQuery
 import static com.apple.foundationdb.record.provider.foundationdb.query.FDBQueryGraphTestHelpers.forEachWithNullOnEmpty;
 import static com.apple.foundationdb.record.provider.foundationdb.query.FDBQueryGraphTestHelpers.fullScan;
 import static com.apple.foundationdb.record.provider.foundationdb.query.FDBQueryGraphTestHelpers.fullTypeScan;
+import static com.apple.foundationdb.record.provider.foundationdb.query.FDBQueryGraphTestHelpers.getField;
 import static com.apple.foundationdb.record.provider.foundationdb.query.FDBQueryGraphTestHelpers.projectColumn;
 import static com.apple.foundationdb.record.provider.foundationdb.query.FDBQueryGraphTestHelpers.resultColumn;
 import static com.apple.foundationdb.record.provider.foundationdb.query.FDBQueryGraphTestHelpers.selectWithPredicates;
@@ -96,6 +97,7 @@ import static com.apple.foundationdb.record.query.plan.cascades.matching.structu
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.PrimitiveMatchers.containsAll;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.PrimitiveMatchers.equalsObject;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.QueryPredicateMatchers.valuePredicate;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.anyPlan;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.coveringIndexPlan;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.defaultOnEmptyPlan;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.descendantPlans;
@@ -103,6 +105,7 @@ import static com.apple.foundationdb.record.query.plan.cascades.matching.structu
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.fetchFromPartialRecordPlan;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.firstOrDefaultPlan;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.flatMapPlan;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.hashJoinPlan;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.inParameterJoinPlan;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.indexName;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.indexPlan;
@@ -737,6 +740,69 @@ public class FDBSimpleQueryGraphTest extends FDBRecordStoreQueryTestBase {
                 });
     }
 
+    @DualPlannerTest(planner = DualPlannerTest.Planner.CASCADES)
+    void testHashJoin() {
+        CascadesPlanner cascadesPlanner = setUp();
+        cascadesPlanner.setConfiguration(cascadesPlanner.getConfiguration()
+                .asBuilder()
+                .setPlanHashJoins(true)
+                .build());
+
+        // neither leg has an index on hometown, so the nested loop join would have to filter every pair
+        final var plan = verifySerialization(planHometownJoin(cascadesPlanner));
+        assertMatchesExactly(plan,
+                hashJoinPlan(
+                        typeFilterPlan(scanPlan().where(scanComparisons(unbounded()))),
+                        typeFilterPlan(scanPlan().where(scanComparisons(unbounded())))));
+
+        try (FDBRecordContext context = openContext()) {
+            openNestedRecordStore(context);
+            try (RecordCursor<QueryResult> cursor = executeCascades(recordStore, plan)) {
+                final var results = cursor.map(result -> ImmutableList.of(
+                                getField(result, String.class, "reviewerName"),
+                                getField(result, String.class, "neighborName")))
+                        .asList()
+                        .join();
+                assertThat(results, Matchers.containsInAnyOrder(
+                        ImmutableList.of("Javert", "Javert"),
+                        ImmutableList.of("M. le Maire", "M. le Maire")));
+            }
+        }
+    }
+
+    @DualPlannerTest(planner = DualPlannerTest.Planner.CASCADES)
+    void testHashJoinNotPlannedByDefault() {
+        CascadesPlanner cascadesPlanner = setUp();
+
+        final var plan = planHometownJoin(cascadesPlanner);
+        assertMatchesExactly(plan, flatMapPlan(anyPlan(), anyPlan()));
+    }
+
+    @Nonnull
+    private RecordQueryPlan planHometownJoin(@Nonnull final CascadesPlanner cascadesPlanner) {
+        return planGraph(
+                () -> {
+                    final var graphExpansionBuilder = GraphExpansion.builder();
+
+                    final var outerQun = fullTypeScan(cascadesPlanner.getRecordMetaData(), "RestaurantReviewer");
+                    graphExpansionBuilder.addQuantifier(outerQun);
+                    final var innerQun = fullTypeScan(cascadesPlanner.getRecordMetaData(), "RestaurantReviewer");
+                    graphExpansionBuilder.addQuantifier(innerQun);
+
+                    final var outerQuantifiedValue = QuantifiedObjectValue.of(outerQun.getAlias(), outerQun.getFlowedObjectType());
+                    final var innerQuantifiedValue = QuantifiedObjectValue.of(innerQun.getAlias(), innerQun.getFlowedObjectType());
+
+                    graphExpansionBuilder.addPredicate(new ValuePredicate(FieldValue.ofFieldNames(innerQuantifiedValue, ImmutableList.of("stats", "hometown")),
+                            new Comparisons.ValueComparison(Comparisons.Type.EQUALS, FieldValue.ofFieldNames(outerQuantifiedValue, ImmutableList.of("stats", "hometown")))));
+
+                    graphExpansionBuilder.addResultColumn(resultColumn(FieldValue.ofFieldName(outerQuantifiedValue, "name"), "reviewerName"));
+                    graphExpansionBuilder.addResultColumn(resultColumn(FieldValue.ofFieldName(innerQuantifiedValue, "name"), "neighborName"));
+
+                    final var qun = Quantifier.forEach(Reference.initialOf(graphExpansionBuilder.build().buildSelect()));
+                    return Reference.initialOf(LogicalSortExpression.unsorted(qun));
+                });
+    }
+
     @DualPlannerTest(planner = DualPlannerTest.Planner.CASCADES)
     void testMediumJoin() {
         CascadesPlanner cascadesPlanner = setUp();
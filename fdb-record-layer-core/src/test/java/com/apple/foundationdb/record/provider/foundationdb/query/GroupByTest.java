@@ -85,7 +85,9 @@ import static com.apple.foundationdb.record.query.plan.cascades.matching.structu
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.aggregateIndexPlan;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.aggregateIndexPlanOf;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.aggregations;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.anyPlan;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.groupings;
+import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.hashAggregationPlan;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.indexName;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.indexPlan;
 import static com.apple.foundationdb.record.query.plan.cascades.matching.structure.RecordQueryPlanMatchers.mapPlan;
@@ -136,6 +138,68 @@ public class GroupByTest extends FDBRecordStoreQueryTestBase {
                 EvaluationContext.empty()), "Cascades planner could not plan query");
     }
 
+    @DualPlannerTest(planner = DualPlannerTest.Planner.CASCADES)
+    public void testHashAggregationWithoutCompatiblySortedIndex() {
+        final RecordMetaDataHook hook = setupHookAndAddData(false, false, false, false, 0, false);
+        final var cascadesPlanner = (CascadesPlanner)planner;
+        cascadesPlanner.setConfiguration(cascadesPlanner.getConfiguration().asBuilder()
+                .setPlanHashAggregations(true)
+                .build());
+        final var plan = cascadesPlanner.planGraph(
+                () -> constructGroupByPlan(false, false, GroupingKind.REGULAR_GROUPING),
+                Optional.empty(),
+                IndexQueryabilityFilter.TRUE,
+                EvaluationContext.empty()).getPlan();
+
+        assertMatchesExactly(plan, mapPlan(hashAggregationPlan(anyPlan())));
+        // also checks that the deserialized plan has the same plan hash
+        final var deserializedPlan = verifySerialization(plan);
+
+        final Map<Pair<Integer, String>, Integer> sums = new HashMap<>();
+        try (FDBRecordContext context = openContext()) {
+            openSimpleRecordStore(context, hook);
+            try (RecordCursor<QueryResult> cursor = FDBQueryGraphTestHelpers.executeCascades(recordStore, deserializedPlan, Bindings.EMPTY_BINDINGS)) {
+                cursor.forEach(queryResult -> {
+                    final Message message = queryResult.getMessage();
+                    final Descriptors.Descriptor descriptor = message.getDescriptorForType();
+                    sums.put(Pair.of((Integer)message.getField(descriptor.findFieldByName("num_value_2")),
+                                    (String)message.getField(descriptor.findFieldByName("str_value_indexed"))),
+                            (Integer)message.getField(descriptor.getFields().get(2)));
+                }).join();
+            }
+        }
+        // Every (num_value_2, str_value_indexed) pair is unique, so each sum is the num_value_3_indexed of one record.
+        assertEquals(ImmutableMap.<Pair<Integer, String>, Integer>builder()
+                .put(Pair.of(1, "1"), 10).put(Pair.of(7, "1"), 10).put(Pair.of(1, "2"), 20).put(Pair.of(1, "3"), 30)
+                .put(Pair.of(2, "4"), 5).put(Pair.of(5, "4"), 5).put(Pair.of(2, "5"), 5).put(Pair.of(2, "6"), 5)
+                .put(Pair.of(3, "7"), -10).put(Pair.of(6, "7"), -10).put(Pair.of(3, "8"), -20).put(Pair.of(3, "9"), -30)
+                .put(Pair.of(4, "10"), 100).put(Pair.of(4, "11"), 2000)
+                .build(), sums);
+    }
+
+    @DualPlannerTest(planner = DualPlannerTest.Planner.CASCADES)
+    public void testHashAggregationNotPlannedWithCompatiblySortedIndex() {
+        setupHookAndAddData(true, false);
+        final var cascadesPlanner = (CascadesPlanner)planner;
+        cascadesPlanner.setConfiguration(cascadesPlanner.getConfiguration().asBuilder()
+                .setPlanHashAggregations(true)
+                .build());
+        final var plan = cascadesPlanner.planGraph(
+                () -> constructGroupByPlan(false, false, GroupingKind.REGULAR_GROUPING),
+                Optional.empty(),
+                IndexQueryabilityFilter.TRUE,
+                EvaluationContext.empty()).getPlan();
+
+        assertMatchesExactly(plan,
+                mapPlan(
+                        streamingAggregationPlan(
+                                mapPlan(
+                                        indexPlan()
+                                                .where(scanComparisons(range("<,>")))
+                                )).where(aggregations(recordConstructorValue(exactly(sumAggregationValue())))
+                                .and(groupings(ValueMatchers.anyValue())))));
+    }
+
     @DualPlannerTest(planner = DualPlannerTest.Planner.CASCADES)
     public void testAggregateIndexPlanning() {
         setupHookAndAddData(false, true);
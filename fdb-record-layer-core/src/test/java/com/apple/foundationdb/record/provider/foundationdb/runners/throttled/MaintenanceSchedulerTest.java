@@ -0,0 +1,126 @@
+/*
+ * MaintenanceSchedulerTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.provider.foundationdb.runners.throttled;
+
+import com.apple.foundationdb.record.RecordCoreException;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MaintenanceSchedulerTest {
+    private ScheduledExecutorService scheduledExecutor;
+
+    @BeforeEach
+    void setUp() {
+        scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduledExecutor.shutdownNow();
+    }
+
+    @Test
+    void unlimitedGrantsImmediately() {
+        final FDBStoreTimer timer = new FDBStoreTimer();
+        final MaintenanceScheduler scheduler = MaintenanceScheduler.newBuilder(scheduledExecutor).setTimer(timer).build();
+        try (MaintenanceScheduler.Job job = scheduler.newJob("job", 0)) {
+            assertThat(scheduler.getJobs()).containsExactly(job);
+            for (int i = 0; i < 10; i++) {
+                assertThat(job.acquireAsync()).isCompleted();
+                job.reportTransaction(5, 100);
+            }
+            assertThat(job.getTransactionCount()).isEqualTo(10);
+            assertThat(job.getRecordCount()).isEqualTo(50);
+            assertThat(job.getByteCount()).isEqualTo(1000);
+        }
+        assertThat(scheduler.getJobs()).isEmpty();
+        assertThat(timer.getCount(FDBStoreTimer.Events.MAINTENANCE_SCHEDULER_WAIT)).isEqualTo(10);
+        assertThat(timer.getCount(FDBStoreTimer.Counts.MAINTENANCE_SCHEDULER_TRANSACTIONS)).isEqualTo(10);
+        assertThat(timer.getCount(FDBStoreTimer.Counts.MAINTENANCE_SCHEDULER_RECORDS)).isEqualTo(50);
+        assertThat(timer.getCount(FDBStoreTimer.Counts.MAINTENANCE_SCHEDULER_BYTES)).isEqualTo(1000);
+    }
+
+    @Test
+    void higherPriorityFirst() {
+        final MaintenanceScheduler scheduler = MaintenanceScheduler.newBuilder(scheduledExecutor)
+                .setTransactionsPerSecond(4)
+                .build();
+        try (MaintenanceScheduler.Job low = scheduler.newJob("low", 0);
+                MaintenanceScheduler.Job high = scheduler.newJob("high", 10)) {
+            // use up the initial burst
+            for (int i = 0; i < 4; i++) {
+                assertThat(low.acquireAsync()).isCompleted();
+            }
+            final List<String> granted = Collections.synchronizedList(new ArrayList<>());
+            final CompletableFuture<Void> lowTurn = low.acquireAsync().thenRun(() -> granted.add(low.getName()));
+            final CompletableFuture<Void> highTurn = high.acquireAsync().thenRun(() -> granted.add(high.getName()));
+            assertThat(lowTurn).isNotDone();
+            assertThat(highTurn).isNotDone();
+            CompletableFuture.allOf(lowTurn, highTurn).join();
+            assertThat(granted).containsExactly("high", "low");
+            assertThat(low.getWaitNanos()).isGreaterThan(high.getWaitNanos());
+        }
+    }
+
+    @Test
+    void bytesAreChargedAfterTheTransaction() {
+        final MaintenanceScheduler scheduler = MaintenanceScheduler.newBuilder(scheduledExecutor)
+                .setBytesPerSecond(10_000)
+                .build();
+        try (MaintenanceScheduler.Job job = scheduler.newJob("job", 0)) {
+            assertThat(job.acquireAsync()).isCompleted();
+            job.reportTransaction(1, 15_000);
+            final CompletableFuture<Void> turn = job.acquireAsync();
+            assertThat(turn).isNotDone();
+            turn.join();
+            assertThat(job.getWaitNanos()).isPositive();
+        }
+    }
+
+    @Test
+    void closeFailsPendingTurns() {
+        final MaintenanceScheduler scheduler = MaintenanceScheduler.newBuilder(scheduledExecutor)
+                .setTransactionsPerSecond(1)
+                .build();
+        final MaintenanceScheduler.Job job = scheduler.newJob("job", 0);
+        assertThat(job.acquireAsync()).isCompleted();
+        final CompletableFuture<Void> turn = job.acquireAsync();
+        job.close();
+        assertThatThrownBy(turn::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(RecordCoreException.class);
+        // once closed, a job is no longer scheduled
+        assertThat(job.acquireAsync()).isCompleted();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * IndexStatisticsTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.query.plan.cascades;
+
+import com.apple.foundationdb.record.query.expressions.Comparisons;
+import com.apple.foundationdb.record.query.plan.ScanComparisons;
+import com.apple.foundationdb.tuple.Tuple;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for {@link IndexStatistics}.
+ */
+class IndexStatisticsTest {
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Statistics of an index on {@code (a, b)} with 1000 entries where {@code a} takes the values {@code 0..99}
+     * evenly and there are 500 distinct pairs.
+     */
+    @Nonnull
+    private static IndexStatistics sampleStatistics() {
+        final List<IndexStatistics.Bucket> histogram = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            histogram.add(new IndexStatistics.Bucket(Tuple.from(i * 10L + 9L), 100L));
+        }
+        return new IndexStatistics(1000L, new long[] {100L, 500L}, histogram, 1234L);
+    }
+
+    /**
+     * Statistics of an index on {@code (a, b)} with 1000 entries where half of them have {@code a = 0} and the rest
+     * are spread evenly over 100 other values, with 500 distinct pairs.
+     */
+    @Nonnull
+    private static IndexStatistics skewedStatistics() {
+        final List<IndexStatistics.Bucket> histogram = new ArrayList<>();
+        histogram.add(new IndexStatistics.Bucket(Tuple.from(0L), 500L, 500L));
+        for (int i = 1; i <= 5; i++) {
+            histogram.add(new IndexStatistics.Bucket(Tuple.from(i * 20L - 1L), 100L, 5L));
+        }
+        return new IndexStatistics(1000L, new long[] {101L, 500L}, histogram, 1234L);
+    }
+
+    @Test
+    void protoRoundTrip() {
+        final IndexStatistics statistics = sampleStatistics();
+        assertEquals(statistics, IndexStatistics.fromProto(statistics.toProto()));
+        final IndexStatistics skewed = skewedStatistics();
+        assertEquals(skewed, IndexStatistics.fromProto(skewed.toProto()));
+    }
+
+    @Test
+    void equalitySelectivity() {
+        final IndexStatistics statistics = sampleStatistics();
+        assertEquals(1.0, statistics.estimateEqualitySelectivity(0), DELTA);
+        assertEquals(0.01, statistics.estimateEqualitySelectivity(1), DELTA);
+        assertEquals(0.002, statistics.estimateEqualitySelectivity(2), DELTA);
+        // longer prefixes than known are estimated using the longest known prefix
+        assertEquals(0.002, statistics.estimateEqualitySelectivity(3), DELTA);
+    }
+
+    @Test
+    void skewedEqualitySelectivity() {
+        final IndexStatistics statistics = skewedStatistics();
+        // the frequent value has a bucket of its own
+        assertEquals(0.5, statistics.estimateEqualitySelectivity(Tuple.from(0L), 1), DELTA);
+        assertEquals(0.101, statistics.estimateEqualitySelectivity(Tuple.from(0L), 2), DELTA);
+        // the other values share what the upper bounds leave
+        assertEquals(0.005, statistics.estimateEqualitySelectivity(Tuple.from(42L), 1), DELTA);
+        assertEquals(0.005, statistics.estimateEqualitySelectivity(Tuple.from(39L), 1), DELTA);
+        // never estimated as empty
+        assertEquals(0.001, statistics.estimateEqualitySelectivity(Tuple.from(200L), 1), DELTA);
+
+        final ScanComparisons frequent = new ScanComparisons.Builder()
+                .addEqualityComparison(new Comparisons.SimpleComparison(Comparisons.Type.EQUALS, 0L))
+                .build();
+        assertEquals(500.0, statistics.estimateCardinality(frequent), DELTA);
+        final ScanComparisons parameter = new ScanComparisons.Builder()
+                .addEqualityComparison(new Comparisons.ParameterComparison(Comparisons.Type.EQUALS, "p"))
+                .build();
+        assertEquals(1000.0 / 101.0, statistics.estimateCardinality(parameter), DELTA);
+    }
+
+    @Test
+    void rangeSelectivity() {
+        final IndexStatistics statistics = sampleStatistics();
+        assertEquals(0.5, statistics.estimateRangeSelectivity(null, false, Tuple.from(49L), true), DELTA);
+        assertEquals(0.5, statistics.estimateRangeSelectivity(Tuple.from(49L), false, null, false), DELTA);
+        assertEquals(0.2, statistics.estimateRangeSelectivity(Tuple.from(29L), false, Tuple.from(49L), true), DELTA);
+        // half of the bucket containing the bound
+        assertEquals(0.55, statistics.estimateRangeSelectivity(null, false, Tuple.from(50L), false), DELTA);
+        // never estimated as empty
+        assertEquals(0.001, statistics.estimateRangeSelectivity(Tuple.from(200L), true, null, false), DELTA);
+    }
+
+    @Test
+    void scanComparisonsSelectivity() {
+        final IndexStatistics statistics = sampleStatistics();
+        final ScanComparisons equality = new ScanComparisons.Builder()
+                .addEqualityComparison(new Comparisons.SimpleComparison(Comparisons.Type.EQUALS, 42L))
+                .build();
+        assertEquals(10.0, statistics.estimateCardinality(equality), DELTA);
+
+        final ScanComparisons range = new ScanComparisons.Builder()
+                .addInequalityComparison(new Comparisons.SimpleComparison(Comparisons.Type.GREATER_THAN, 29L))
+                .addInequalityComparison(new Comparisons.SimpleComparison(Comparisons.Type.LESS_THAN_OR_EQUALS, 49L))
+                .build();
+        assertEquals(200.0, statistics.estimateCardinality(range), DELTA);
+
+        final ScanComparisons parameterRange = new ScanComparisons.Builder()
+                .addInequalityComparison(new Comparisons.ParameterComparison(Comparisons.Type.GREATER_THAN, "p"))
+                .build();
+        assertEquals(IndexStatistics.DEFAULT_RANGE_SELECTIVITY, statistics.estimateSelectivity(parameterRange), DELTA);
+
+        final ScanComparisons equalityAndRange = new ScanComparisons.Builder()
+                .addEqualityComparison(new Comparisons.SimpleComparison(Comparisons.Type.EQUALS, 42L))
+                .addInequalityComparison(new Comparisons.SimpleComparison(Comparisons.Type.LESS_THAN, "m"))
+                .build();
+        assertEquals(0.01 * IndexStatistics.DEFAULT_RANGE_SELECTIVITY, statistics.estimateSelectivity(equalityAndRange), DELTA);
+    }
+}
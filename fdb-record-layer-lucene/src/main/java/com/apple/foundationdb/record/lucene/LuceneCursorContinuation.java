@@ -23,6 +23,7 @@ package com.apple.foundationdb.record.lucene;
 import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.RecordCursorContinuation;
 import com.apple.foundationdb.tuple.Tuple;
+import com.google.common.base.Suppliers;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.ZeroCopyByteString;
 import org.apache.lucene.search.FieldDoc;
@@ -31,6 +32,7 @@ import org.apache.lucene.util.BytesRef;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.function.Supplier;
 
 /**
  * Continuation from scanning a Lucene index. This wraps the LuceneIndexContinuation protobuf message,
@@ -40,13 +42,17 @@ import javax.annotation.Nullable;
  */
 class LuceneCursorContinuation implements RecordCursorContinuation {
     @Nonnull
-    private final LuceneContinuationProto.LuceneIndexContinuation protoContinuation;
+    private final Supplier<LuceneContinuationProto.LuceneIndexContinuation> protoContinuation;
 
     @SuppressWarnings("squid:S3077") // Byte array is immutable once created, so does not need to use atomic array
     private volatile byte[] byteContinuation;
 
     private LuceneCursorContinuation(@Nonnull LuceneContinuationProto.LuceneIndexContinuation protoContinuation) {
-        this.protoContinuation = protoContinuation;
+        this.protoContinuation = () -> protoContinuation;
+    }
+
+    private LuceneCursorContinuation(@Nonnull Supplier<LuceneContinuationProto.LuceneIndexContinuation> protoContinuation) {
+        this.protoContinuation = Suppliers.memoize(protoContinuation::get);
     }
 
     @Nullable
@@ -65,7 +71,7 @@ class LuceneCursorContinuation implements RecordCursorContinuation {
     @Nonnull
     @Override
     public ByteString toByteString() {
-        return protoContinuation.toByteString();
+        return protoContinuation.get().toByteString();
     }
 
     @Override
@@ -111,6 +117,36 @@ class LuceneCursorContinuation implements RecordCursorContinuation {
         return new LuceneCursorContinuation(builder.build());
     }
 
+    /**
+     * Create a continuation for a query that searches several partitions concurrently. The message is only built if
+     * the continuation is actually serialized, since one is created for every result.
+     * @param scoreDoc the document just returned
+     * @param partitionIds the partitions being searched
+     * @param lastReturned the last document returned from each partition, or {@code null} if none has been yet
+     * @param exhausted whether all the matching documents of each partition have been returned
+     * @return a new continuation
+     */
+    public static LuceneCursorContinuation fromPartitionPositions(@Nullable ScoreDoc scoreDoc,
+                                                                  @Nonnull int[] partitionIds,
+                                                                  @Nonnull ScoreDoc[] lastReturned,
+                                                                  @Nonnull boolean[] exhausted) {
+        return new LuceneCursorContinuation(() -> {
+            LuceneContinuationProto.LuceneIndexContinuation.Builder builder = LuceneContinuationProto.LuceneIndexContinuation.newBuilder()
+                    .setDoc(scoreDoc == null ? 0 : scoreDoc.doc)
+                    .setScore(scoreDoc == null ? 0.0f : scoreDoc.score);
+            for (int i = 0; i < partitionIds.length; i++) {
+                final LuceneContinuationProto.LuceneIndexContinuation.PartitionPosition.Builder position = builder.addPartitionPositionsBuilder()
+                        .setPartitionId(partitionIds[i]);
+                if (exhausted[i]) {
+                    position.setExhausted(true);
+                } else if (lastReturned[i] != null) {
+                    position.setDoc(lastReturned[i].doc).setScore(lastReturned[i].score);
+                }
+            }
+            return builder.build();
+        });
+    }
+
     @Nonnull
     public static ScoreDoc toScoreDoc(@Nonnull LuceneContinuationProto.LuceneIndexContinuation luceneIndexContinuation) {
         int doc = (int)luceneIndexContinuation.getDoc();
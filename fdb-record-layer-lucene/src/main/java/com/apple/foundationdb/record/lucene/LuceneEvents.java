@@ -238,7 +238,15 @@ public class LuceneEvents {
         /** Count of times a rebalance was called. */
         LUCENE_REPARTITION_CALLS("Count of Lucene repartition calls", false),
         /** Count of the number of times a block was removed from the block cache. */
-        LUCENE_BLOCK_CACHE_REMOVE("Count of blocks removed from cache", false);
+        LUCENE_BLOCK_CACHE_REMOVE("Count of blocks removed from cache", false),
+        /** Number of searches of individual partitions by a query that searches partitions concurrently. */
+        LUCENE_FAN_OUT_PARTITION_SEARCHES("Count of Lucene partition searches for concurrent partition queries", false),
+        /** Number of blocks read ahead of a sequential reader. */
+        LUCENE_READ_AHEAD_BLOCKS("lucene read ahead blocks", false),
+        /** Number of blocks that a reader moved to after they were read ahead. */
+        LUCENE_READ_AHEAD_HITS("lucene read ahead hits", false),
+        /** Number of blocks read ahead that the reader did not move to before seeking elsewhere or closing. */
+        LUCENE_READ_AHEAD_WASTED("lucene read ahead wasted", false);
 
         private final String title;
         private final boolean isSize;
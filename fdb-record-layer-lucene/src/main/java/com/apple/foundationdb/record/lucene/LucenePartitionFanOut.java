@@ -0,0 +1,371 @@
+/*
+ * LucenePartitionFanOut.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2015-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.record.lucene;
+
+import com.apple.foundationdb.async.AsyncUtil;
+import com.apple.foundationdb.record.RecordCursorContinuation;
+import com.apple.foundationdb.record.logging.LogMessageKeys;
+import com.apple.foundationdb.record.lucene.directory.FDBDirectoryManager;
+import com.apple.foundationdb.record.lucene.search.LuceneOptimizedIndexSearcher;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
+import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainerState;
+import com.apple.foundationdb.tuple.Tuple;
+import org.apache.lucene.index.IndexNotFoundException;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.util.IOUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+/**
+ * Searches several partitions of a partitioned Lucene index concurrently and merges their hits by score.
+ *
+ * <p>
+ * Each partition keeps a buffer of the hits fetched from it that have not been returned yet. A page of merged hits
+ * is produced by repeatedly taking the best hit at the head of any buffer, and it ends as soon as the buffer of a
+ * partition that may still have more matches runs out, since that partition's next hit could be better than any
+ * other. Before the next page, the buffers that ran out are refilled by searching those partitions, at most
+ * {@link LuceneRecordContextProperties#LUCENE_PARTITION_FAN_OUT_CONCURRENCY} at a time. So after the first round
+ * trip to every partition, a page usually only has to search the few partitions whose hits it used up.
+ * </p>
+ *
+ * <p>
+ * Every hit carries a continuation with the position of the last returned hit in every partition, which resumes
+ * the merge right after it.
+ * </p>
+ */
+class LucenePartitionFanOut {
+    private static final Comparator<ScoreDoc> HIT_ORDER = Comparator
+            .comparing((ScoreDoc hit) -> hit.score, Comparator.reverseOrder())
+            .thenComparingInt(hit -> hit.shardIndex)
+            .thenComparingInt(hit -> hit.doc);
+
+    @Nonnull
+    private final IndexMaintainerState state;
+    @Nonnull
+    private final Executor executor;
+    @Nullable
+    private final ExecutorService executorService;
+    @Nonnull
+    private final Query query;
+    @Nullable
+    private final Tuple groupingKey;
+    private final int concurrency;
+    @Nullable
+    private final FDBStoreTimer timer;
+
+    // Per partition state, indexed by the slot of the partition, from newest to oldest.
+    private int[] partitionIds;
+    private Slot[] slots;
+    // Positions as of the last hit that was handed out, shared by the continuations of hits until the next one.
+    private ScoreDoc[] lastReturned;
+    private boolean[] exhausted;
+
+    LucenePartitionFanOut(@Nonnull IndexMaintainerState state,
+                          @Nonnull Executor executor,
+                          @Nullable ExecutorService executorService,
+                          @Nonnull Query query,
+                          @Nullable Tuple groupingKey,
+                          int concurrency) {
+        this.state = state;
+        this.executor = executor;
+        this.executorService = executorService;
+        this.query = query;
+        this.groupingKey = groupingKey;
+        this.concurrency = concurrency;
+        this.timer = state.context.getTimer();
+    }
+
+    /**
+     * Start a new search over the given partition and all the partitions older than it, which are the partitions
+     * that a serial scan starting at that partition would visit.
+     * @param partitioner the index's partitioner
+     * @param startKey the partitioning key of the newest partition to search
+     * @return a future that completes when the partitions have been determined
+     */
+    @Nonnull
+    CompletableFuture<Void> startAsync(@Nonnull LucenePartitioner partitioner, @Nonnull Tuple startKey) {
+        return partitioner.getAllPartitionMetaInfo(groupingKeyOrEmpty()).thenAccept(partitionInfos -> {
+            final List<LucenePartitionInfoProto.LucenePartitionInfo> toSearch = partitionInfos.stream()
+                    .filter(partitionInfo -> LucenePartitioner.getPartitionKey(partitionInfo).compareTo(startKey) <= 0)
+                    .sorted(Comparator.comparing(LucenePartitioner::getPartitionKey, Comparator.reverseOrder()))
+                    .collect(Collectors.toList());
+            init(toSearch, null);
+        });
+    }
+
+    /**
+     * Resume a search from the partition positions in a continuation. Partitions that no longer exist are skipped.
+     * @param partitioner the index's partitioner
+     * @param positions the positions from the continuation
+     * @return a future that completes when the partitions have been determined
+     */
+    @Nonnull
+    CompletableFuture<Void> resumeAsync(@Nonnull LucenePartitioner partitioner,
+                                        @Nonnull List<LuceneContinuationProto.LuceneIndexContinuation.PartitionPosition> positions) {
+        return partitioner.getAllPartitionMetaInfo(groupingKeyOrEmpty()).thenAccept(partitionInfos -> {
+            final Map<Integer, LucenePartitionInfoProto.LucenePartitionInfo> byId = new HashMap<>();
+            for (LucenePartitionInfoProto.LucenePartitionInfo partitionInfo : partitionInfos) {
+                byId.put(partitionInfo.getId(), partitionInfo);
+            }
+            final List<LucenePartitionInfoProto.LucenePartitionInfo> toSearch = new ArrayList<>(positions.size());
+            final List<LuceneContinuationProto.LuceneIndexContinuation.PartitionPosition> found = new ArrayList<>(positions.size());
+            for (LuceneContinuationProto.LuceneIndexContinuation.PartitionPosition position : positions) {
+                final LucenePartitionInfoProto.LucenePartitionInfo partitionInfo = byId.get(position.getPartitionId());
+                if (partitionInfo != null) {
+                    toSearch.add(partitionInfo);
+                    found.add(position);
+                }
+            }
+            init(toSearch, found);
+        });
+    }
+
+    private void init(@Nonnull List<LucenePartitionInfoProto.LucenePartitionInfo> partitionInfos,
+                      @Nullable List<LuceneContinuationProto.LuceneIndexContinuation.PartitionPosition> positions) {
+        final int count = partitionInfos.size();
+        partitionIds = new int[count];
+        slots = new Slot[count];
+        lastReturned = new ScoreDoc[count];
+        exhausted = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            final LucenePartitionInfoProto.LucenePartitionInfo partitionInfo = partitionInfos.get(i);
+            partitionIds[i] = partitionInfo.getId();
+            slots[i] = new Slot(i, partitionInfo.getId());
+            if (positions != null) {
+                final LuceneContinuationProto.LuceneIndexContinuation.PartitionPosition position = positions.get(i);
+                if (position.getExhausted()) {
+                    exhausted[i] = true;
+                    slots[i].searchExhausted = true;
+                } else if (position.hasDoc()) {
+                    // Like the serial scan, keep the document within the partition, which might have shrunk since.
+                    final int doc = (int)Math.min(position.getDoc(), Math.max(0, partitionInfo.getCount() - 1));
+                    lastReturned[i] = new ScoreDoc(doc, position.getScore(), i);
+                    slots[i].searchAfter = lastReturned[i];
+                }
+            }
+        }
+    }
+
+    @Nonnull
+    private Tuple groupingKeyOrEmpty() {
+        return groupingKey == null ? Tuple.from() : groupingKey;
+    }
+
+    /**
+     * Get whether all the matching documents of all partitions have been returned.
+     * @return {@code true} if there are no more hits
+     */
+    boolean isExhausted() {
+        for (boolean partitionExhausted : exhausted) {
+            if (!partitionExhausted) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get a continuation that resumes the search from before the next hit.
+     * @return a continuation for the current position
+     */
+    @Nonnull
+    RecordCursorContinuation getContinuation() {
+        return LuceneCursorContinuation.fromPartitionPositions(null, partitionIds, lastReturned.clone(), exhausted.clone());
+    }
+
+    /**
+     * Get the next page of merged hits.
+     * @param maxHits the maximum number of hits to return
+     * @return a future that completes to the next hits, which is only empty if the search is exhausted
+     */
+    @Nonnull
+    CompletableFuture<List<Hit>> nextPageAsync(int maxHits) {
+        return refillAsync(maxHits).thenApply(vignore -> merge(maxHits));
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> refillAsync(int fetchSize) {
+        final List<Slot> toRefill = new ArrayList<>();
+        for (Slot slot : slots) {
+            if (slot.buffer.isEmpty() && !slot.searchExhausted) {
+                toRefill.add(slot);
+            }
+        }
+        if (toRefill.isEmpty()) {
+            return AsyncUtil.DONE;
+        }
+        // Search the partitions in waves of at most the configured concurrency.
+        CompletableFuture<Void> waves = AsyncUtil.DONE;
+        for (int start = 0; start < toRefill.size(); start += concurrency) {
+            final List<Slot> wave = toRefill.subList(start, Math.min(start + concurrency, toRefill.size()));
+            waves = waves.thenCompose(vignore -> CompletableFuture.allOf(wave.stream()
+                    .map(slot -> CompletableFuture.runAsync(() -> slot.search(fetchSize), executor))
+                    .toArray(CompletableFuture[]::new)));
+        }
+        return waves;
+    }
+
+    @Nonnull
+    private List<Hit> merge(int maxHits) {
+        final List<Hit> hits = new ArrayList<>(Math.min(maxHits, 64));
+        for (Slot slot : slots) {
+            if (slot.buffer.isEmpty() && slot.searchExhausted) {
+                exhausted[slot.slotIndex] = true;
+            }
+        }
+        while (hits.size() < maxHits) {
+            Slot best = null;
+            for (Slot slot : slots) {
+                if (slot.buffer.isEmpty()) {
+                    if (!slot.searchExhausted) {
+                        // This partition's next hit is unknown, so nothing can safely be returned before refilling it.
+                        return hits;
+                    }
+                } else if (best == null || HIT_ORDER.compare(slot.buffer.peekFirst(), best.buffer.peekFirst()) < 0) {
+                    best = slot;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            final ScoreDoc scoreDoc = best.buffer.pollFirst();
+            final int slotIndex = scoreDoc.shardIndex;
+            lastReturned[slotIndex] = scoreDoc;
+            if (best.buffer.isEmpty() && best.searchExhausted) {
+                exhausted[slotIndex] = true;
+            }
+            hits.add(new Hit(scoreDoc, best.searcher,
+                    LuceneCursorContinuation.fromPartitionPositions(scoreDoc, partitionIds, lastReturned.clone(), exhausted.clone())));
+        }
+        return hits;
+    }
+
+    void close() {
+        if (slots != null) {
+            for (Slot slot : slots) {
+                if (slot.indexReader != null) {
+                    IOUtils.closeWhileHandlingException(slot.indexReader);
+                    slot.indexReader = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * A hit merged from one of the partitions.
+     */
+    static final class Hit {
+        @Nonnull
+        private final ScoreDoc scoreDoc;
+        @Nonnull
+        private final IndexSearcher searcher;
+        @Nonnull
+        private final RecordCursorContinuation continuation;
+
+        private Hit(@Nonnull ScoreDoc scoreDoc, @Nonnull IndexSearcher searcher, @Nonnull RecordCursorContinuation continuation) {
+            this.scoreDoc = scoreDoc;
+            this.searcher = searcher;
+            this.continuation = continuation;
+        }
+
+        @Nonnull
+        ScoreDoc getScoreDoc() {
+            return scoreDoc;
+        }
+
+        @Nonnull
+        IndexSearcher getSearcher() {
+            return searcher;
+        }
+
+        @Nonnull
+        RecordCursorContinuation getContinuation() {
+            return continuation;
+        }
+    }
+
+    private final class Slot {
+        private final int slotIndex;
+        private final int partitionId;
+        @Nonnull
+        private final ArrayDeque<ScoreDoc> buffer = new ArrayDeque<>();
+        @Nullable
+        private ScoreDoc searchAfter;
+        private boolean searchExhausted;
+        @Nullable
+        private IndexReader indexReader;
+        private IndexSearcher searcher;
+
+        private Slot(int slotIndex, int partitionId) {
+            this.slotIndex = slotIndex;
+            this.partitionId = partitionId;
+        }
+
+        private void search(int fetchSize) {
+            final long startTime = System.nanoTime();
+            try {
+                if (indexReader == null) {
+                    // The reader is kept for the following pages, unlike the serial scan which reopens it every page.
+                    indexReader = FDBDirectoryManager.getManager(state).getIndexReader(groupingKey, partitionId);
+                    searcher = new LuceneOptimizedIndexSearcher(indexReader, executorService);
+                }
+                final TopDocs topDocs = searchAfter == null ? searcher.search(query, fetchSize) : searcher.searchAfter(searchAfter, query, fetchSize);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    scoreDoc.shardIndex = slotIndex;
+                    buffer.addLast(scoreDoc);
+                }
+                if (topDocs.scoreDocs.length < fetchSize) {
+                    searchExhausted = true;
+                }
+                if (topDocs.scoreDocs.length != 0) {
+                    searchAfter = topDocs.scoreDocs[topDocs.scoreDocs.length - 1];
+                }
+                if (timer != null) {
+                    timer.recordSinceNanoTime(LuceneEvents.Events.LUCENE_INDEX_SCAN, startTime);
+                    timer.increment(LuceneEvents.Counts.LUCENE_SCAN_MATCHED_DOCUMENTS, topDocs.scoreDocs.length);
+                    timer.increment(LuceneEvents.Counts.LUCENE_FAN_OUT_PARTITION_SEARCHES);
+                }
+            } catch (IndexNotFoundException indexNotFoundException) {
+                // An empty directory has no documents to return.
+                searchExhausted = true;
+            } catch (IOException ioException) {
+                throw LuceneExceptions.toRecordCoreException("Partition search failed", ioException,
+                        LogMessageKeys.QUERY, query, LuceneLogMessageKeys.INDEX_PARTITION, partitionId);
+            }
+        }
+    }
+}
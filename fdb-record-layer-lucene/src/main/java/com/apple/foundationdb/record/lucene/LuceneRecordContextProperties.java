@@ -125,4 +125,21 @@ public final class LuceneRecordContextProperties {
      * Lucene async to sync behavior: Whether to use the legacy async to sync calls or the non-exception-mapping behavior.
      */
     public static final RecordLayerPropertyKey<Boolean> LUCENE_USE_LEGACY_ASYNC_TO_SYNC = RecordLayerPropertyKey.booleanPropertyKey("com.apple.foundationdb.record.lucene.exception.mapping.enabled", true);
+    /**
+     * Maximum number of partitions of a partitioned Lucene index that a query ordered by relevance searches at the same
+     * time. The hits from all the partitions are merged by score. The default of {@code 0} searches the partitions one
+     * after another, returning all the hits of the newest partition first.
+     */
+    public static final RecordLayerPropertyKey<Integer> LUCENE_PARTITION_FAN_OUT_CONCURRENCY = RecordLayerPropertyKey.integerPropertyKey("com.apple.foundationdb.record.lucene.partition.fanOut.concurrency", 0);
+    /**
+     * Maximum number of blocks that an input of a Lucene directory reads ahead once it detects that it is being read
+     * sequentially, as by merges and full postings scans. The window starts small and doubles up to this size as long as
+     * the reads stay sequential. The default of {@code 0} disables read-ahead.
+     */
+    public static final RecordLayerPropertyKey<Integer> LUCENE_READ_AHEAD_MAX_BLOCKS = RecordLayerPropertyKey.integerPropertyKey("com.apple.foundationdb.record.lucene.readAhead.maxBlocks", 0);
+    /**
+     * Maximum number of read-ahead blocks that may be outstanding at once for all the inputs of a Lucene directory.
+     * Read-ahead needs both this and {@link #LUCENE_READ_AHEAD_MAX_BLOCKS} to be set; the default of {@code 0} allows none.
+     */
+    public static final RecordLayerPropertyKey<Integer> LUCENE_READ_AHEAD_DIRECTORY_BUDGET = RecordLayerPropertyKey.integerPropertyKey("com.apple.foundationdb.record.lucene.readAhead.directoryBudget", 0);
 }
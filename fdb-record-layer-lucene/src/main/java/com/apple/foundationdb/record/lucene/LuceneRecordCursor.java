@@ -39,6 +39,7 @@ import com.apple.foundationdb.record.metadata.Index;
 import com.apple.foundationdb.record.metadata.expressions.KeyExpression;
 import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
 import com.apple.foundationdb.record.provider.foundationdb.IndexMaintainerState;
+import com.apple.foundationdb.record.util.pair.NonnullPair;
 import com.apple.foundationdb.tuple.Tuple;
 import com.apple.foundationdb.tuple.TupleHelpers;
 import com.google.common.collect.Lists;
@@ -52,6 +53,7 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
@@ -169,6 +171,25 @@ public class LuceneRecordCursor implements BaseCursor<IndexEntry> {
      */
     private boolean isReverseSort = false;
 
+    /**
+     * When not {@code null}, the partitions are searched concurrently rather than one after another.
+     */
+    @Nullable
+    private LucenePartitionFanOut fanOut;
+    /**
+     * The partition positions from the continuation to resume a concurrent search from.
+     */
+    @Nullable
+    private List<LuceneContinuationProto.LuceneIndexContinuation.PartitionPosition> fanOutResumePositions;
+    private boolean fanOutStarted = false;
+    @Nullable
+    private RecordCursor<NonnullPair<ScoreDocIndexEntry, RecordCursorContinuation>> fanOutEntries;
+    /**
+     * The continuation after the last entry returned by a concurrent search.
+     */
+    @Nullable
+    private RecordCursorContinuation fanOutContinuation;
+
     //TODO: once we fix the available fields logic for lucene to take into account which fields are
     // stored there should be no need to pass in a list of fields, or we could only pass in the store field values.
     @SuppressWarnings("squid:S107")
@@ -238,6 +259,9 @@ public class LuceneRecordCursor implements BaseCursor<IndexEntry> {
                     this.partitionId = parsed.getPartitionId();
                     this.partitionKey = Tuple.fromBytes(parsed.getPartitionKey().toByteArray());
                 }
+                if (parsed.getPartitionPositionsCount() > 0) {
+                    fanOutResumePositions = parsed.getPartitionPositionsList();
+                }
                 // if we're sorted by partition field, then the ScoreDoc in the continuation
                 // must be a FieldDoc that has the partition field value and primary key...
                 // otherwise something isn't right and we bail
@@ -268,9 +292,34 @@ public class LuceneRecordCursor implements BaseCursor<IndexEntry> {
         this.termMap = termMap;
         this.analyzerSelector = analyzerSelector;
         this.autoCompleteAnalyzerSelector = autoCompleteAnalyzerSelector;
+        final int fanOutConcurrency = state.context.getPropertyStorage().getPropertyValue(LuceneRecordContextProperties.LUCENE_PARTITION_FAN_OUT_CONCURRENCY);
+        if (fanOutResumePositions != null || (continuation == null && partitionKey != null && fanOutConcurrency > 1 && isRelevanceOrder(sort))) {
+            // A continuation from a concurrent search must be resumed the same way, whatever the current setting.
+            this.fanOut = new LucenePartitionFanOut(state, executor, executorService, query, groupingKey, Math.max(1, fanOutConcurrency));
+        }
         closed = false;
     }
 
+    /**
+     * Whether the hits are ordered by relevance only, so that the hits of all partitions can be merged by score.
+     * @param sort the sort of the query
+     * @return {@code true} if the query is not sorted or only sorted by descending score
+     */
+    private boolean isRelevanceOrder(@Nullable Sort sort) {
+        if (!partitioner.isPartitioningEnabled() || sortedByPartitioningKey) {
+            return false;
+        }
+        if (sort == null) {
+            return true;
+        }
+        for (SortField sortField : sort.getSort()) {
+            if (sortField.getType() != SortField.Type.SCORE || sortField.getReverse()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Nonnull
     @Override
     public CompletableFuture<RecordCursorResult<IndexEntry>> onNext() {
@@ -279,6 +328,9 @@ public class LuceneRecordCursor implements BaseCursor<IndexEntry> {
             // hasNext is false to avoid the NoNextReason changing.
             return CompletableFuture.completedFuture(nextResult);
         }
+        if (fanOut != null) {
+            return onNextFromPartitions(fanOut);
+        }
 
         return handleCrossPartitionDiscontinuity().thenCompose(noval -> {
             // Scan all the pages within skip range firstly
@@ -320,6 +372,74 @@ public class LuceneRecordCursor implements BaseCursor<IndexEntry> {
         });
     }
 
+    @Nonnull
+    private CompletableFuture<RecordCursorResult<IndexEntry>> onNextFromPartitions(@Nonnull LucenePartitionFanOut partitions) {
+        final CompletableFuture<Void> started;
+        if (fanOutStarted) {
+            started = AsyncUtil.DONE;
+        } else {
+            fanOutStarted = true;
+            started = (fanOutResumePositions != null
+                       ? partitions.resumeAsync(partitioner, fanOutResumePositions)
+                       : partitions.startAsync(partitioner, Objects.requireNonNull(partitionKey)))
+                    .thenRun(() -> fanOutContinuation = partitions.getContinuation());
+        }
+        return started.thenCompose(vignore -> AsyncUtil.whileTrue(() -> {
+            if (limitRemaining <= 0) {
+                nextResult = RecordCursorResult.withoutNextValue(fanOutContinuation, NoNextReason.RETURN_LIMIT_REACHED);
+                return AsyncUtil.READY_FALSE;
+            }
+            if (fanOutEntries == null) {
+                if (partitions.isExhausted()) {
+                    nextResult = RecordCursorResult.exhausted();
+                    return AsyncUtil.READY_FALSE;
+                }
+                final int limit = limitRemaining == Integer.MAX_VALUE ? pageSize : Math.min(limitRemaining + leftToSkip, pageSize);
+                return partitions.nextPageAsync(limit).thenApply(hits -> {
+                    fanOutEntries = lookupHits(hits);
+                    return true;
+                });
+            }
+            return fanOutEntries.onNext().thenApply(result -> {
+                if (!result.hasNext()) {
+                    fanOutEntries.close();
+                    fanOutEntries = null;
+                    return true;
+                }
+                if (!limitManager.tryRecordScan()) {
+                    final Optional<NoNextReason> stoppedReason = limitManager.getStoppedReason();
+                    if (stoppedReason.isEmpty()) {
+                        throw new RecordCoreException("limit manager stopped LuceneRecordCursor but did not report a reason");
+                    }
+                    nextResult = RecordCursorResult.withoutNextValue(fanOutContinuation, stoppedReason.get());
+                    return false;
+                }
+                currentPosition++;
+                if (limitRemaining != Integer.MAX_VALUE) {
+                    limitRemaining--;
+                }
+                final NonnullPair<ScoreDocIndexEntry, RecordCursorContinuation> entryAndContinuation = Objects.requireNonNull(result.get());
+                fanOutContinuation = entryAndContinuation.getRight();
+                nextResult = RecordCursorResult.withNextValue(entryAndContinuation.getLeft(), fanOutContinuation);
+                return false;
+            });
+        }, executor).thenApply(vignore -> nextResult));
+    }
+
+    @Nonnull
+    private RecordCursor<NonnullPair<ScoreDocIndexEntry, RecordCursorContinuation>> lookupHits(@Nonnull List<LucenePartitionFanOut.Hit> hits) {
+        // Skipped hits are dropped here, but resuming must still start after them.
+        final int toSkip = Math.min(leftToSkip, hits.size());
+        if (toSkip > 0) {
+            fanOutContinuation = hits.get(toSkip - 1).getContinuation();
+            leftToSkip -= toSkip;
+        }
+        return RecordCursor.fromList(executor, hits.subList(toSkip, hits.size()))
+                .mapPipelined(hit -> buildIndexEntryFromScoreDocAsync(hit.getSearcher(), hit.getScoreDoc())
+                                .thenApply(entry -> NonnullPair.of(entry, hit.getContinuation())),
+                        state.store.getPipelineSize(PipelineOperation.KEY_TO_RECORD));
+    }
+
     private CompletableFuture<Void> handleCrossPartitionDiscontinuity() {
         if (!withContinuation ||
                 continuationPartitionSanitized ||
@@ -426,6 +546,13 @@ public class LuceneRecordCursor implements BaseCursor<IndexEntry> {
             IOUtils.closeWhileHandlingException(indexReader);
         }
         indexReader = null;
+        if (fanOutEntries != null) {
+            fanOutEntries.close();
+            fanOutEntries = null;
+        }
+        if (fanOut != null) {
+            fanOut.close();
+        }
         closed = true;
     }
 
@@ -459,7 +586,7 @@ public class LuceneRecordCursor implements BaseCursor<IndexEntry> {
         TopDocs newTopDocs = searchForTopDocs(limit);
 
         lookupResults = RecordCursor.fromIterator(executor, Arrays.stream(newTopDocs.scoreDocs).iterator()).skip(leftToSkip)
-                .mapPipelined(this::buildIndexEntryFromScoreDocAsync, state.store.getPipelineSize(PipelineOperation.KEY_TO_RECORD))
+                .mapPipelined(scoreDoc -> buildIndexEntryFromScoreDocAsync(searcher, scoreDoc), state.store.getPipelineSize(PipelineOperation.KEY_TO_RECORD))
                 .mapResult(result -> {
                     if (result.hasNext() && limitManager.tryRecordScan()) {
                         RecordCursorContinuation continuationFromDoc = LuceneCursorContinuation.fromScoreDoc(
@@ -522,7 +649,7 @@ public class LuceneRecordCursor implements BaseCursor<IndexEntry> {
         return newTopDocs;
     }
 
-    private CompletableFuture<ScoreDocIndexEntry> buildIndexEntryFromScoreDocAsync(@Nonnull ScoreDoc scoreDoc) {
+    private CompletableFuture<ScoreDocIndexEntry> buildIndexEntryFromScoreDocAsync(@Nonnull IndexSearcher searcher, @Nonnull ScoreDoc scoreDoc) {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 Document document = searcher.doc(scoreDoc.doc, storedFieldsToReturn);
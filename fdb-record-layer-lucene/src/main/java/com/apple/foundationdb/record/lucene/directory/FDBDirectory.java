@@ -175,6 +175,10 @@ public class FDBDirectory extends Directory  {
     private final Tuple sharedCacheKey;
     // Whether to delete K/V data immediately or wait for compound file deletion
     private final boolean deferDeleteToCompoundFile;
+    // The most blocks an input reads ahead of the reader, and how many read-ahead blocks may be outstanding in total.
+    private final int readAheadMaxBlocks;
+    private final int readAheadBudget;
+    private final AtomicInteger readAheadInFlight = new AtomicInteger();
     @Nullable
     private FDBDirectorySharedCache sharedCache;
     // True if sharedCacheManager is present until sharedCache has been set (or not).
@@ -236,6 +240,8 @@ public class FDBDirectory extends Directory  {
         this.sharedCachePending = sharedCacheManager != null && sharedCacheKey != null;
         this.fieldInfosStorage = new FieldInfosStorage(this);
         this.deferDeleteToCompoundFile = deferDeleteToCompoundFile;
+        this.readAheadMaxBlocks = Objects.requireNonNullElse(agilityContext.getPropertyValue(LuceneRecordContextProperties.LUCENE_READ_AHEAD_MAX_BLOCKS), 0);
+        this.readAheadBudget = Objects.requireNonNullElse(agilityContext.getPropertyValue(LuceneRecordContextProperties.LUCENE_READ_AHEAD_DIRECTORY_BUDGET), 0);
     }
 
     private void cacheRemovalCallback() {
@@ -534,6 +540,37 @@ public class FDBDirectory extends Directory  {
         }
     }
 
+    /**
+     * Start reading a block that an {@link FDBIndexInput} expects to need soon, unless it is already cached or too
+     * many read-ahead blocks of this directory are still being read.
+     * @param requestingInput the {@link FDBIndexInput} requesting the block; used for logging
+     * @param fileName Description should be non-null, opaque string describing this resource; used for logging
+     * @param reference the reference where the data lives
+     * @param block the block to read
+     * @return {@code true} if the block is cached or being read, {@code false} if the budget was exhausted
+     */
+    boolean readAhead(@Nonnull IndexInput requestingInput, @Nonnull String fileName,
+                      @Nonnull FDBLuceneFileReference reference, int block) {
+        if (blockCache.getIfPresent(ComparablePair.of(reference.getId(), block)) != null) {
+            return true;
+        }
+        if (readAheadInFlight.incrementAndGet() > readAheadBudget) {
+            readAheadInFlight.decrementAndGet();
+            return false;
+        }
+        agilityContext.increment(LuceneEvents.Counts.LUCENE_READ_AHEAD_BLOCKS);
+        readBlock(requestingInput, fileName, reference, block).whenComplete((data, err) -> readAheadInFlight.decrementAndGet());
+        return true;
+    }
+
+    /**
+     * Get the most blocks that an input reads ahead of a sequential reader.
+     * @return the maximum read-ahead window in blocks, or {@code 0} if read-ahead is disabled
+     */
+    int getReadAheadMaxBlocks() {
+        return readAheadBudget > 0 ? readAheadMaxBlocks : 0;
+    }
+
     private CompletableFuture<byte[]> readData(long id, int block) {
         return agilityContext.instrument(LuceneEvents.Events.LUCENE_FDB_READ_BLOCK,
                 agilityContext.get(dataSubspace.pack(Tuple.from(id, block)))
@@ -47,6 +47,8 @@ import static com.google.common.base.Verify.verify;
 @API(API.Status.EXPERIMENTAL)
 public class FDBIndexInput extends IndexInput {
     private static final Logger LOGGER = LoggerFactory.getLogger(FDBIndexInput.class);
+    // How many blocks in a row must be read sequentially before reading ahead.
+    private static final int READ_AHEAD_SEQUENTIAL_BLOCKS = 2;
     private final String fileName;
     private final FDBDirectory fdbDirectory;
     private final CompletableFuture<FDBLuceneFileReference> reference;
@@ -61,6 +63,13 @@ public class FDBIndexInput extends IndexInput {
     // These actual values are added to remove a hotspot during byte reads.
     private byte[] actualCurrentData;
     private FDBLuceneFileReference actualReference;
+    /*
+     * Read-ahead state: the number of blocks in a row that were read sequentially, the current read-ahead window,
+     * and the block after the last one read ahead.
+     */
+    private int sequentialBlocks;
+    private int readAheadWindow;
+    private int readAheadEnd;
 
     /**
      * Constructor to create an FDBIndexInput from a file referenced in the metadata keyspace.
@@ -142,6 +151,58 @@ public class FDBIndexInput extends IndexInput {
     }
 
 
+    /**
+     * Move to the next block after reading to the end of the current one, reading further ahead if the reads
+     * have been sequential for long enough.
+     */
+    private void readNextBlock() {
+        currentBlock++;
+        numberOfSeeks++;
+        if (currentBlock < readAheadEnd) {
+            fdbDirectory.getAgilityContext().increment(LuceneEvents.Counts.LUCENE_READ_AHEAD_HITS);
+        }
+        readBlock();
+        sequentialBlocks++;
+        if (sequentialBlocks >= READ_AHEAD_SEQUENTIAL_BLOCKS) {
+            readAhead();
+        }
+    }
+
+    /**
+     * Issue reads for the blocks within the read-ahead window past the current block that have not been read ahead
+     * yet. The window doubles every time, up to the directory's maximum, so that a short sequential run
+     * does not read much that is never used.
+     */
+    private void readAhead() {
+        final int maxBlocks = fdbDirectory.getReadAheadMaxBlocks();
+        if (maxBlocks <= 0) {
+            return;
+        }
+        final FDBLuceneFileReference fileReference = getFileReference();
+        if (fileReference.getSize() == 0) {
+            return;
+        }
+        readAheadWindow = Math.min(Math.max(1, readAheadWindow * 2), maxBlocks);
+        final int lastBlock = Math.min(currentBlock + readAheadWindow, getBlock(fileReference.getSize() - 1));
+        int block = Math.max(readAheadEnd, currentBlock + 1);
+        while (block <= lastBlock && fdbDirectory.readAhead(this, fileName, fileReference, block)) {
+            block++;
+        }
+        readAheadEnd = Math.max(readAheadEnd, block);
+    }
+
+    /**
+     * Stop reading ahead after a seek away from the blocks read ahead, counting those never reached as wasted.
+     */
+    private void resetReadAhead() {
+        if (readAheadEnd > currentBlock + 1) {
+            fdbDirectory.getAgilityContext().increment(LuceneEvents.Counts.LUCENE_READ_AHEAD_WASTED, readAheadEnd - currentBlock - 1);
+        }
+        sequentialBlocks = 0;
+        readAheadWindow = 0;
+        readAheadEnd = 0;
+    }
+
     /**
      *
      * Close IndexInput (NoOp).
@@ -152,6 +213,7 @@ public class FDBIndexInput extends IndexInput {
             LOGGER.trace(getLogMessage("close()",
                     LuceneLogMessageKeys.SEEK_NUM, numberOfSeeks));
         }
+        resetReadAhead();
     }
 
     /**
@@ -176,9 +238,16 @@ public class FDBIndexInput extends IndexInput {
     @Override
     public void seek(final long offset) throws IOException {
         try {
-            if (currentBlock != getBlock(offset)) {
+            final int block = getBlock(offset);
+            if (currentBlock != block) {
+                if (block > currentBlock && block < readAheadEnd) {
+                    // A short skip forward, still within what was read ahead.
+                    fdbDirectory.getAgilityContext().increment(LuceneEvents.Counts.LUCENE_READ_AHEAD_HITS);
+                } else {
+                    resetReadAhead();
+                }
                 this.position = offset;
-                this.currentBlock = getBlock(position);
+                this.currentBlock = block;
                 numberOfSeeks++;
                 if (LOGGER.isTraceEnabled()) {
                     LOGGER.trace(getLogMessage("actual seek",
@@ -276,9 +345,7 @@ public class FDBIndexInput extends IndexInput {
             throw LuceneExceptions.toIoException(ex, null);
         } finally {
             if (absolutePosition() % fileReference.getBlockSize() == 0) {
-                currentBlock++;
-                numberOfSeeks++;
-                readBlock();
+                readNextBlock();
             }
         }
     }
@@ -308,17 +375,15 @@ public class FDBIndexInput extends IndexInput {
                 bytesRead += toRead;
                 position += toRead;
                 if (absolutePosition() % blockSize == 0) {
-                    currentBlock++;
-                    numberOfSeeks++;
                     if (LOGGER.isTraceEnabled()) {
                         LOGGER.trace(getLogMessage("hard seek",
-                                LuceneLogMessageKeys.CURRENT_BLOCK, currentBlock,
+                                LuceneLogMessageKeys.CURRENT_BLOCK, currentBlock + 1,
                                 LuceneLogMessageKeys.OFFSET, offset,
                                 LuceneLogMessageKeys.LENGTH, length,
                                 LuceneLogMessageKeys.POSITION, position,
                                 LuceneLogMessageKeys.INITIAL_OFFSET, initialOffset));
                     }
-                    readBlock();
+                    readNextBlock();
                 }
             }
         } catch (RecordCoreException ex) {
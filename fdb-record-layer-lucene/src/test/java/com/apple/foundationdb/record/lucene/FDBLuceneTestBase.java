@@ -85,6 +85,14 @@ public abstract class FDBLuceneTestBase extends FDBRecordStoreTestBase {
             INDEX_PARTITION_HIGH_WATERMARK, "10"));
 
 
+    @Override
+    protected RecordLayerPropertyStorage.Builder addDefaultProps(final RecordLayerPropertyStorage.Builder props) {
+        // read-ahead is off by default, so turn it on to exercise it with the rest of the index
+        return super.addDefaultProps(props)
+                .addProp(LuceneRecordContextProperties.LUCENE_READ_AHEAD_MAX_BLOCKS, 8)
+                .addProp(LuceneRecordContextProperties.LUCENE_READ_AHEAD_DIRECTORY_BUDGET, 64);
+    }
+
     protected StoreTimer.Counter getCounter(@Nonnull final FDBRecordContext recordContext, @Nonnull final StoreTimer.Event event) {
         return Verify.verifyNotNull(recordContext.getTimer()).getCounter(event);
     }
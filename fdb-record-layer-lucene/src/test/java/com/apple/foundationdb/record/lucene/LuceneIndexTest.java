@@ -2181,6 +2181,50 @@ public class LuceneIndexTest extends FDBLuceneTestBase {
         }
     }
 
+    /**
+     * test searching partitions concurrently, with continuations that resume every partition.
+     */
+    @Test
+    void testPartitionedFanOutWithContinuation() throws InvalidProtocolBufferException {
+        final RecordLayerPropertyStorage contextProps = RecordLayerPropertyStorage.newBuilder()
+                .addProp(LuceneRecordContextProperties.LUCENE_PARTITION_FAN_OUT_CONCURRENCY, 2)
+                .build();
+        try (FDBRecordContext context = openContext(contextProps)) {
+            rebuildIndexMetaData(context, COMPLEX_DOC, COMPLEX_PARTITIONED);
+            setTimestamps();
+            createDualPartitionsWithComplexDocs(10);
+
+            List<Tuple> primaryKeys = new ArrayList<>();
+            List<Float> scores = new ArrayList<>();
+            byte[] continuation = null;
+            do {
+                RecordCursor<IndexEntry> cursor = recordStore.scanIndex(COMPLEX_PARTITIONED, groupedTextSearch(COMPLEX_PARTITIONED, "text:propose", 1), continuation, ExecuteProperties.newBuilder().setReturnedRowLimit(7).build().asScanProperties(false));
+                List<IndexEntry> entries = cursor.asList().join();
+                assertThat(entries.size(), Matchers.lessThanOrEqualTo(7));
+                entries.forEach(entry -> {
+                    primaryKeys.add(entry.getPrimaryKey());
+                    scores.add(((LuceneRecordCursor.ScoreDocIndexEntry)entry).getScoreDoc().score);
+                });
+                RecordCursorResult<IndexEntry> lastResult = cursor.onNext().join();
+                if (lastResult.getContinuation().isEnd()) {
+                    continuation = null;
+                } else {
+                    continuation = lastResult.getContinuation().toBytes();
+                    LuceneContinuationProto.LuceneIndexContinuation parsed = LuceneContinuationProto.LuceneIndexContinuation.parseFrom(continuation);
+                    assertEquals(2, parsed.getPartitionPositionsCount());
+                }
+            } while (continuation != null);
+
+            // every document is returned once, in score order across both partitions
+            assertEquals(20, primaryKeys.size());
+            assertEquals(makeKeyTuples(1L, 1000, 1009, 0, 9), new HashSet<>(primaryKeys));
+            assertTrue(Comparators.isInOrder(scores, Comparator.<Float>reverseOrder()));
+            assertThat(getCounter(context, LuceneEvents.Counts.LUCENE_FAN_OUT_PARTITION_SEARCHES).getCount(), Matchers.greaterThanOrEqualTo(2));
+
+            validatePartitionSegmentIntegrity(COMPLEX_PARTITIONED, context, 1, 0, 1);
+        }
+    }
+
     private void setTimestamps() {
         timestamp60DaysAgo = Instant.now().minus(60, ChronoUnit.DAYS).toEpochMilli();
         timestamp30DaysAgo = Instant.now().minus(30, ChronoUnit.DAYS).toEpochMilli();
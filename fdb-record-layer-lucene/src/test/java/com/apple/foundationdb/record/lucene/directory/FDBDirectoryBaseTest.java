@@ -80,7 +80,11 @@ public abstract class FDBDirectoryBaseTest {
         return FDBRecordContextConfig.newBuilder()
                 .setTimer(timer)
                 .setPriority(FDBTransactionPriority.DEFAULT)
-                .setRecordContextProperties(RecordLayerPropertyStorage.newBuilder().addProp(LuceneRecordContextProperties.LUCENE_INDEX_COMPRESSION_ENABLED, true).build())
+                .setRecordContextProperties(RecordLayerPropertyStorage.newBuilder()
+                        .addProp(LuceneRecordContextProperties.LUCENE_INDEX_COMPRESSION_ENABLED, true)
+                        .addProp(LuceneRecordContextProperties.LUCENE_READ_AHEAD_MAX_BLOCKS, 8)
+                        .addProp(LuceneRecordContextProperties.LUCENE_READ_AHEAD_DIRECTORY_BUDGET, 64)
+                        .build())
                 .build();
     }
 
@@ -20,6 +20,7 @@
 
 package com.apple.foundationdb.record.lucene.directory;
 
+import com.apple.foundationdb.record.lucene.LuceneEvents;
 import com.apple.test.Tags;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
@@ -28,6 +29,7 @@ import java.nio.ByteBuffer;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Test to FDBIndexInput functionality.
@@ -79,4 +81,26 @@ public class FDBIndexInputTest extends FDBDirectoryBaseTest {
         input.readBytes(actual, 0, actual.length);
         assertEquals(actual.length, expected.length - offset);
     }
+
+    @Test
+    void testSequentialReadAhead() throws Exception {
+        FDBIndexOutput output = new FDBIndexOutput(FILE_NAME, directory);
+        byte[] expected = new byte[FDBDirectory.DEFAULT_BLOCK_SIZE * 20 + randomInt(0) % FDBDirectory.DEFAULT_BLOCK_SIZE];
+        random.nextBytes(expected);
+        output.writeBytes(expected, expected.length);
+        output.close();
+        directory.getBlockCache().invalidateAll();
+        timer.reset();
+
+        FDBIndexInput input = new FDBIndexInput(FILE_NAME, directory);
+        byte[] actual = new byte[expected.length];
+        for (int offset = 0; offset < expected.length; offset += 100) {
+            input.readBytes(actual, offset, Math.min(100, expected.length - offset));
+        }
+        input.close();
+        assertArrayEquals(expected, actual);
+        assertTrue(timer.getCount(LuceneEvents.Counts.LUCENE_READ_AHEAD_BLOCKS) > 0);
+        assertTrue(timer.getCount(LuceneEvents.Counts.LUCENE_READ_AHEAD_HITS) > 0);
+        assertEquals(0, timer.getCount(LuceneEvents.Counts.LUCENE_READ_AHEAD_WASTED));
+    }
 }
@@ -24,8 +24,11 @@ import com.apple.foundationdb.annotation.API;
 
 import com.apple.foundationdb.record.RecordMetaData;
 import com.apple.foundationdb.record.RecordStoreState;
+import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStore;
 import com.apple.foundationdb.record.provider.foundationdb.FDBRecordStoreBase;
+import com.apple.foundationdb.record.provider.foundationdb.FDBStoreTimer;
 import com.apple.foundationdb.record.query.plan.RecordQueryPlannerConfiguration;
+import com.apple.foundationdb.record.query.plan.cascades.PlannerStatistics;
 import com.apple.foundationdb.relational.api.Options;
 import com.apple.foundationdb.relational.api.ddl.DdlQueryFactory;
 import com.apple.foundationdb.relational.api.ddl.MetadataOperationsFactory;
@@ -35,11 +38,13 @@ import com.apple.foundationdb.relational.api.metrics.MetricCollector;
 import com.apple.foundationdb.relational.recordlayer.AbstractDatabase;
 import com.apple.foundationdb.relational.util.Assert;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Suppliers;
 
 import javax.annotation.Nonnull;
 import java.net.URI;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @API(API.Status.EXPERIMENTAL)
@@ -53,6 +58,8 @@ public final class PlanContext {
     @Nonnull
     private final PlannerConfiguration plannerConfiguration;
     @Nonnull
+    private final Supplier<PlannerStatistics> plannerStatisticsSupplier;
+    @Nonnull
     private final MetadataOperationsFactory metadataOperationsFactory;
     @Nonnull
     private final DdlQueryFactory ddlQueryFactory;
@@ -74,6 +81,8 @@ public final class PlanContext {
      * @param metricCollector             The metricCollector instance bound to the ongoing transaction
      * @param schemaTemplate              The schema template.
      * @param plannerConfiguration        The planner configurations.
+     * @param plannerStatisticsSupplier   Supplies the index statistics used by the planner, only called when a query
+     *                                    is actually planned.
      * @param metadataOperationsFactory   The constant action factory used for DDL and metadata queries
      * @param dbUri                       The URI of the database.
      * @param ddlQueryFactory             The DDL factory.
@@ -86,6 +95,7 @@ public final class PlanContext {
                         @Nonnull MetricCollector metricCollector,
                         @Nonnull SchemaTemplate schemaTemplate,
                         @Nonnull PlannerConfiguration plannerConfiguration,
+                        @Nonnull Supplier<PlannerStatistics> plannerStatisticsSupplier,
                         @Nonnull MetadataOperationsFactory metadataOperationsFactory,
                         @Nonnull DdlQueryFactory ddlQueryFactory,
                         @Nonnull URI dbUri,
@@ -96,6 +106,7 @@ public final class PlanContext {
         this.metricCollector = metricCollector;
         this.schemaTemplate = schemaTemplate;
         this.plannerConfiguration = plannerConfiguration;
+        this.plannerStatisticsSupplier = plannerStatisticsSupplier;
         this.metadataOperationsFactory = metadataOperationsFactory;
         this.ddlQueryFactory = ddlQueryFactory;
         this.dbUri = dbUri;
@@ -119,6 +130,17 @@ public final class PlanContext {
         return plannerConfiguration;
     }
 
+    /**
+     * Get the index statistics the planner uses to cost index scans. They are loaded from the record store on first use,
+     * so queries answered from the plan cache do not read them.
+     *
+     * @return the planner statistics.
+     */
+    @Nonnull
+    public PlannerStatistics getPlannerStatistics() {
+        return plannerStatisticsSupplier.get();
+    }
+
     @Nonnull
     public Optional<Set<String>> getReadableIndexes() {
         return plannerConfiguration.getReadableIndexes();
@@ -171,6 +193,8 @@ public final class PlanContext {
 
         private PlannerConfiguration plannerConfiguration;
 
+        private Supplier<PlannerStatistics> plannerStatisticsSupplier;
+
         private int userVersion;
 
         private SchemaTemplate schemaTemplate;
@@ -212,6 +236,12 @@ public final class PlanContext {
             return this;
         }
 
+        @Nonnull
+        public Builder withPlannerStatistics(@Nonnull Supplier<PlannerStatistics> plannerStatisticsSupplier) {
+            this.plannerStatisticsSupplier = plannerStatisticsSupplier;
+            return this;
+        }
+
         @Nonnull
         public Builder withUserVersion(int userVersion) {
             this.userVersion = userVersion;
@@ -266,6 +296,11 @@ public final class PlanContext {
             final var plannerConfig = recordStore.getRecordStoreState().allIndexesReadable() ?
                     PlannerConfiguration.ofAllAvailableIndexes(options) :
                     PlannerConfiguration.of(getReadableIndexes(recordStore.getRecordMetaData(), recordStore.getRecordStoreState()), options);
+            if (recordStore instanceof FDBRecordStore) {
+                final var store = (FDBRecordStore)recordStore;
+                withPlannerStatistics(Suppliers.memoize(() ->
+                        store.getContext().asyncToSync(FDBStoreTimer.Waits.WAIT_LOAD_PLANNER_STATISTICS, store.loadPlannerStatisticsAsync())));
+            }
             return withPlannerConfiguration(plannerConfig)
                     .withMetadata(recordStore.getRecordMetaData())
                     .withUserVersion(recordStore.getRecordStoreState().getStoreHeader().getUserVersion());
@@ -288,12 +323,15 @@ public final class PlanContext {
             if (preparedStatementParameters == null) {
                 preparedStatementParameters = PreparedParams.empty();
             }
+            if (plannerStatisticsSupplier == null) {
+                plannerStatisticsSupplier = PlannerStatistics::empty;
+            }
         }
 
         @Nonnull
         public PlanContext build() throws RelationalException {
             verify();
-            return new PlanContext(metaData, metricCollector, schemaTemplate, plannerConfiguration, metadataOperationsFactory,
+            return new PlanContext(metaData, metricCollector, schemaTemplate, plannerConfiguration, plannerStatisticsSupplier, metadataOperationsFactory,
                     ddlQueryFactory, dbUri, preparedStatementParameters, userVersion, isCaseSensitive);
         }
 
@@ -312,6 +350,7 @@ public final class PlanContext {
                     .withSchemaTemplate(planContext.schemaTemplate)
                     .withDdlQueryFactory(planContext.ddlQueryFactory)
                     .withPlannerConfiguration(planContext.plannerConfiguration)
+                    .withPlannerStatistics(planContext.plannerStatisticsSupplier)
                     .withUserVersion(planContext.userVersion)
                     .withPreparedParameters(planContext.preparedStatementParameters)
                     .isCaseSensitive(planContext.isCaseSensitive);
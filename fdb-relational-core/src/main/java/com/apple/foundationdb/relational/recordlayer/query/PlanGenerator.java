@@ -235,6 +235,7 @@ public final class PlanGenerator {
                     new BaseVisitor(planGenerationContext, metadata, planContext.getDdlQueryFactory(),
                             planContext.getConstantActionFactory(), planContext.getDbUri(), caseSensitive)
                             .generateLogicalPlan(ast.getParseTree()));
+            planner.setStatistics(planContext.getPlannerStatistics());
             return maybePlan.optimize(planner, planContext, currentPlanHashMode);
         } catch (MetaDataException mde) {
             // we need a better way for translating error codes between record layer and Relational SQL error codes
@@ -0,0 +1,253 @@
+/*
+ * ColumnarEncoding.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2021-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.relational.jdbc;
+
+import com.apple.foundationdb.relational.api.RelationalStruct;
+import com.apple.foundationdb.relational.api.StructMetaData;
+import com.apple.foundationdb.relational.api.metadata.DataType;
+import com.apple.foundationdb.relational.jdbc.grpc.v1.ColumnVector;
+import com.apple.foundationdb.relational.jdbc.grpc.v1.ColumnarRows;
+import com.apple.foundationdb.relational.jdbc.grpc.v1.StringVector;
+import com.apple.foundationdb.relational.jdbc.grpc.v1.column.Column;
+import com.google.protobuf.ByteString;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.sql.SQLException;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversion of result set rows to and from {@link ColumnarRows}, the column-major alternative to the row-major
+ * <code>ResultSet.row</code> encoding. Integral, floating point, boolean and binary columns become packed arrays,
+ * strings are dictionary encoded and nulls are tracked in a bitmap per column. Only columns of other types
+ * (structs and arrays) still have a message per value.
+ */
+final class ColumnarEncoding {
+    private ColumnarEncoding() {
+    }
+
+    /**
+     * Accumulates rows into a {@link ColumnarRows}.
+     */
+    static final class Encoder {
+        private final int leadingPhantomCount;
+        @Nonnull
+        private final ColumnEncoder[] columns;
+        private int rowCount;
+
+        Encoder(@Nonnull StructMetaData metaData) throws SQLException {
+            this.leadingPhantomCount = metaData.getLeadingPhantomColumnCount();
+            final List<DataType.StructType.Field> fields = metaData.getRelationalDataType().getFields();
+            this.columns = new ColumnEncoder[Math.max(0, fields.size() - leadingPhantomCount)];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = new ColumnEncoder(fields.get(leadingPhantomCount + i));
+            }
+        }
+
+        /**
+         * Add the current row of <code>row</code>.
+         * @param row the row to add; usually a result set positioned on a row
+         * @throws SQLException if reading the row fails
+         */
+        void addRow(@Nonnull RelationalStruct row) throws SQLException {
+            for (int i = 0; i < columns.length; i++) {
+                final Object value = row.getObject(leadingPhantomCount + i + 1);
+                columns[i].add(rowCount, value, row.wasNull());
+            }
+            rowCount++;
+        }
+
+        int getRowCount() {
+            return rowCount;
+        }
+
+        @Nonnull
+        ColumnarRows build() {
+            final ColumnarRows.Builder builder = ColumnarRows.newBuilder().setRowCount(rowCount);
+            for (ColumnEncoder column : columns) {
+                builder.addColumn(column.build());
+            }
+            return builder.build();
+        }
+    }
+
+    private static final class ColumnEncoder {
+        @Nonnull
+        private final DataType.StructType.Field field;
+        @Nonnull
+        private final ColumnVector.Builder vector = ColumnVector.newBuilder();
+        @Nonnull
+        private final BitSet nulls = new BitSet();
+        @Nullable
+        private Map<String, Integer> dictionary;
+
+        ColumnEncoder(@Nonnull DataType.StructType.Field field) {
+            this.field = field;
+        }
+
+        void add(int row, @Nullable Object value, boolean wasNull) throws SQLException {
+            if (wasNull) {
+                nulls.set(row);
+            }
+            switch (field.getType().getCode()) {
+                case LONG:
+                    vector.getLongValuesBuilder().addValues(wasNull ? 0L : (Long) value);
+                    break;
+                case INTEGER:
+                    vector.getIntegerValuesBuilder().addValues(wasNull ? 0 : (Integer) value);
+                    break;
+                case DOUBLE:
+                    vector.getDoubleValuesBuilder().addValues(wasNull ? 0.0 : (Double) value);
+                    break;
+                case BOOLEAN:
+                    vector.getBooleanValuesBuilder().addValues(!wasNull && (Boolean) value);
+                    break;
+                case STRING:
+                case ENUM:
+                    vector.getStringValuesBuilder().addIndex(wasNull ? 0 : dictionaryIndex((String) value));
+                    break;
+                case BYTES:
+                case VERSION:
+                    vector.getBinaryValuesBuilder().addValues(wasNull ? ByteString.EMPTY : ByteString.copyFrom((byte[]) value));
+                    break;
+                default:
+                    vector.getOtherValuesBuilder().addColumn(TypeConversion.toColumn(field, value, wasNull));
+                    break;
+            }
+        }
+
+        private int dictionaryIndex(@Nonnull String value) {
+            if (dictionary == null) {
+                dictionary = new HashMap<>();
+            }
+            return dictionary.computeIfAbsent(value, v -> {
+                vector.getStringValuesBuilder().addDictionary(v);
+                return dictionary.size();
+            });
+        }
+
+        @Nonnull
+        ColumnVector build() {
+            if (!nulls.isEmpty()) {
+                vector.setNullBitmap(ByteString.copyFrom(nulls.toByteArray()));
+            }
+            return vector.build();
+        }
+    }
+
+    /**
+     * Random access to the values of a {@link ColumnarRows}. The typed getters, except for {@link #getColumn}, do not
+     * allocate; they expect the caller to have checked the type of the column and
+     * that the value is not null using {@link #has}.
+     */
+    static final class Reader {
+        @Nonnull
+        private final ColumnarRows rows;
+
+        Reader(@Nonnull ColumnarRows rows) {
+            this.rows = rows;
+        }
+
+        int getRowCount() {
+            return rows.getRowCount();
+        }
+
+        boolean isNull(int row, int column) {
+            final ByteString nullBitmap = rows.getColumn(column).getNullBitmap();
+            final int byteIndex = row >>> 3;
+            return byteIndex < nullBitmap.size() && (nullBitmap.byteAt(byteIndex) & (1 << (row & 7))) != 0;
+        }
+
+        /**
+         * Whether the value in the given row and column is not null and is held in a vector of the given kind.
+         * @param row the zero-based row
+         * @param column the zero-based column
+         * @param valuesCase the kind of vector
+         * @return whether the value can be read using the getter for <code>valuesCase</code>
+         */
+        boolean has(int row, int column, @Nonnull ColumnVector.ValuesCase valuesCase) {
+            return rows.getColumn(column).getValuesCase() == valuesCase && !isNull(row, column);
+        }
+
+        long getLong(int row, int column) {
+            return rows.getColumn(column).getLongValues().getValues(row);
+        }
+
+        int getInteger(int row, int column) {
+            return rows.getColumn(column).getIntegerValues().getValues(row);
+        }
+
+        double getDouble(int row, int column) {
+            return rows.getColumn(column).getDoubleValues().getValues(row);
+        }
+
+        boolean getBoolean(int row, int column) {
+            return rows.getColumn(column).getBooleanValues().getValues(row);
+        }
+
+        @Nonnull
+        String getString(int row, int column) {
+            final StringVector strings = rows.getColumn(column).getStringValues();
+            return strings.getDictionary(strings.getIndex(row));
+        }
+
+        @Nonnull
+        ByteString getBinary(int row, int column) {
+            return rows.getColumn(column).getBinaryValues().getValues(row);
+        }
+
+        /**
+         * Get the value in the given row and column in its row-major form.
+         * @param row the zero-based row
+         * @param column the zero-based column
+         * @return the value as a {@link Column}, which has no value set if the value is null
+         */
+        @Nonnull
+        Column getColumn(int row, int column) {
+            final ColumnVector vector = rows.getColumn(column);
+            if (vector.getValuesCase() == ColumnVector.ValuesCase.OTHER_VALUES) {
+                return vector.getOtherValues().getColumn(row);
+            }
+            if (isNull(row, column)) {
+                return Column.getDefaultInstance();
+            }
+            switch (vector.getValuesCase()) {
+                case LONG_VALUES:
+                    return Column.newBuilder().setLong(getLong(row, column)).build();
+                case INTEGER_VALUES:
+                    return Column.newBuilder().setInteger(getInteger(row, column)).build();
+                case DOUBLE_VALUES:
+                    return Column.newBuilder().setDouble(getDouble(row, column)).build();
+                case BOOLEAN_VALUES:
+                    return Column.newBuilder().setBoolean(getBoolean(row, column)).build();
+                case STRING_VALUES:
+                    return Column.newBuilder().setString(getString(row, column)).build();
+                case BINARY_VALUES:
+                    return Column.newBuilder().setBinary(getBinary(row, column)).build();
+                default:
+                    return Column.getDefaultInstance();
+            }
+        }
+    }
+}
@@ -29,19 +29,25 @@ import com.apple.foundationdb.relational.api.RelationalStructMetaData;
 import com.apple.foundationdb.relational.api.StructResultSetMetaData;
 import com.apple.foundationdb.relational.api.exceptions.ErrorCode;
 import com.apple.foundationdb.relational.api.metadata.DataType;
+import com.apple.foundationdb.relational.jdbc.grpc.GrpcSQLExceptionUtil;
+import com.apple.foundationdb.relational.jdbc.grpc.v1.ColumnVector;
 import com.apple.foundationdb.relational.jdbc.grpc.v1.ResultSet;
+import com.apple.foundationdb.relational.jdbc.grpc.v1.RpcContinuation;
 import com.apple.foundationdb.relational.jdbc.grpc.v1.column.Column;
 import com.apple.foundationdb.relational.jdbc.grpc.v1.column.ColumnMetadata;
 import com.apple.foundationdb.relational.util.ExcludeFromJacocoGeneratedReport;
 import com.apple.foundationdb.relational.util.PositionalIndex;
 import com.apple.foundationdb.relational.util.SpotBugsSuppressWarnings;
 import com.google.common.base.Suppliers;
+import io.grpc.StatusRuntimeException;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.sql.SQLWarning;
 import java.sql.Types;
+import java.util.Iterator;
 import java.util.UUID;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -49,12 +55,40 @@ import java.util.stream.Collectors;
 
 /**
  * Facade over grpc protobuf objects that offers a {@link RelationalResultSet} view.
+ * The rows may arrive as a stream of batches, in which case the next batch is only pulled from the stream once the
+ * rows of the current batch have been consumed; see {@link TypeConversion#toProtobufBatches}.
  */
 class RelationalResultSetFacade implements RelationalResultSet {
     private final Supplier<DataType.StructType> type;
 
-    private final ResultSet delegate;
-    private final int rows;
+    private ResultSet delegate;
+    /**
+     * Reader over the rows of {@link #delegate} if they were sent in column-major form, or null.
+     */
+    @Nullable
+    private ColumnarEncoding.Reader columnar;
+    private int rows;
+    /**
+     * Batches that have not been pulled yet when streaming, or null if all rows are in {@link #delegate}.
+     */
+    @Nullable
+    private final Iterator<ResultSet> remainingBatches;
+    /**
+     * Cancels the stream of {@link #remainingBatches} if this is closed before the stream is exhausted.
+     */
+    @Nullable
+    private final Runnable cancelRemainingBatches;
+    private boolean batchesExhausted;
+    /**
+     * The next batch of rows, once pulled from {@link #remainingBatches} by {@link #hasNext()}.
+     */
+    @Nullable
+    private ResultSet nextBatch;
+    /**
+     * The continuation received with the last batch of the stream, which may not have had any rows.
+     */
+    @Nullable
+    private RpcContinuation streamContinuation;
     /**
      * The ResultSet index starts before '1'... you have to call 'next' to get to first ResultSet.
      */
@@ -72,18 +106,76 @@ class RelationalResultSetFacade implements RelationalResultSet {
     static final RelationalResultSet EMPTY = new RelationalResultSetFacade(ResultSet.newBuilder().build());
 
     RelationalResultSetFacade(ResultSet delegate) {
-        this.delegate = delegate;
-        this.type = Suppliers.memoize(() -> TypeConversion.getStructDataType(delegate.getMetadata().getColumnMetadata().getColumnMetadataList(), false));
-        this.rows = delegate.getRowCount();
+        this(delegate, null, null);
+    }
+
+    /**
+     * Create a facade over a stream of batches.
+     * @param firstBatch the first batch, which carries the metadata of the result set
+     * @param remainingBatches the batches following <code>firstBatch</code>
+     * @param cancelRemainingBatches called if this is closed before <code>remainingBatches</code> is exhausted
+     */
+    RelationalResultSetFacade(ResultSet firstBatch, @Nullable Iterator<ResultSet> remainingBatches,
+                              @Nullable Runnable cancelRemainingBatches) {
+        this.delegate = firstBatch;
+        this.type = Suppliers.memoize(() -> TypeConversion.getStructDataType(firstBatch.getMetadata().getColumnMetadata().getColumnMetadataList(), false));
+        this.columnar = columnarReader(firstBatch);
+        this.rows = TypeConversion.getRowCount(firstBatch);
+        this.remainingBatches = remainingBatches;
+        this.cancelRemainingBatches = cancelRemainingBatches;
+        this.batchesExhausted = remainingBatches == null;
     }
 
     @Override
     public boolean next() throws SQLException {
+        if (rowIndex + 1 >= rows && pullNextBatch()) {
+            this.delegate = nextBatch;
+            this.columnar = columnarReader(nextBatch);
+            this.rows = TypeConversion.getRowCount(nextBatch);
+            this.rowIndex = -1;
+            this.nextBatch = null;
+        }
         return ++rowIndex < rows;
     }
 
-    public boolean hasNext() {
-        return rowIndex < (rows - 1);
+    @Nullable
+    private static ColumnarEncoding.Reader columnarReader(@Nonnull ResultSet batch) {
+        return batch.hasColumnarRows() ? new ColumnarEncoding.Reader(batch.getColumnarRows()) : null;
+    }
+
+    public boolean hasNext() throws SQLException {
+        return rowIndex < (rows - 1) || pullNextBatch();
+    }
+
+    /**
+     * Pull the next non-empty batch from the stream into {@link #nextBatch} unless it has already been pulled. The
+     * stream is only read on demand, so a slow reader holds back the server rather than buffering the whole result.
+     * @return whether there is another batch of rows
+     */
+    private boolean pullNextBatch() throws SQLException {
+        try {
+            while (nextBatch == null && !batchesExhausted) {
+                if (!remainingBatches.hasNext()) {
+                    batchesExhausted = true;
+                    break;
+                }
+                ResultSet batch = remainingBatches.next();
+                if (batch.hasContinuation()) {
+                    this.streamContinuation = batch.getContinuation();
+                }
+                if (TypeConversion.getRowCount(batch) > 0) {
+                    // Only the first batch carries the metadata; keep it around for the struct and array accessors.
+                    this.nextBatch = batch.hasMetadata() ? batch : batch.toBuilder().setMetadata(delegate.getMetadata()).build();
+                }
+            }
+        } catch (StatusRuntimeException statusRuntimeException) {
+            SQLException sqlException = GrpcSQLExceptionUtil.map(statusRuntimeException);
+            if (sqlException == null) {
+                throw statusRuntimeException;
+            }
+            throw sqlException;
+        }
+        return nextBatch != null;
     }
 
     @Override
@@ -93,6 +185,9 @@ class RelationalResultSetFacade implements RelationalResultSet {
 
     @Override
     public void close() throws SQLException {
+        if (!this.closed && !batchesExhausted && cancelRemainingBatches != null) {
+            cancelRemainingBatches.run();
+        }
         this.closed = true;
     }
 
@@ -106,14 +201,33 @@ class RelationalResultSetFacade implements RelationalResultSet {
         return this.wasNull;
     }
 
-    private <R> R get(int oneBasedIndex, Function<Column, R> s) {
+    @Nonnull
+    private Column column(int oneBasedIndex) {
         int index = PositionalIndex.toProtobuf(oneBasedIndex);
-        Column column = this.delegate.getRow(rowIndex).getColumns().getColumn(index);
-        return s.apply(column);
+        if (columnar != null) {
+            return columnar.getColumn(rowIndex, index);
+        }
+        return this.delegate.getRow(rowIndex).getColumns().getColumn(index);
+    }
+
+    private <R> R get(int oneBasedIndex, Function<Column, R> s) {
+        return s.apply(column(oneBasedIndex));
+    }
+
+    /**
+     * Whether the given column can be read straight from the column-major rows using the getter for
+     * <code>valuesCase</code>, without materializing a {@link Column}.
+     */
+    private boolean hasColumnar(int oneBasedIndex, @Nonnull ColumnVector.ValuesCase valuesCase) {
+        return columnar != null && columnar.has(rowIndex, PositionalIndex.toProtobuf(oneBasedIndex), valuesCase);
     }
 
     @Override
     public String getString(final int oneBasedColumn) throws SQLException {
+        if (hasColumnar(oneBasedColumn, ColumnVector.ValuesCase.STRING_VALUES)) {
+            this.wasNull = false;
+            return columnar.getString(rowIndex, PositionalIndex.toProtobuf(oneBasedColumn));
+        }
         return get(oneBasedColumn, column -> {
             if (column.hasString()) {
                 // Do I need to update lastColumnReadWasNull for String type?
@@ -128,6 +242,10 @@ class RelationalResultSetFacade implements RelationalResultSet {
 
     @Override
     public boolean getBoolean(int oneBasedColumn) throws SQLException {
+        if (hasColumnar(oneBasedColumn, ColumnVector.ValuesCase.BOOLEAN_VALUES)) {
+            this.wasNull = false;
+            return columnar.getBoolean(rowIndex, PositionalIndex.toProtobuf(oneBasedColumn));
+        }
         return get(oneBasedColumn, column -> {
             if (column.hasBoolean()) {
                 this.wasNull = false;
@@ -140,6 +258,10 @@ class RelationalResultSetFacade implements RelationalResultSet {
 
     @Override
     public int getInt(int oneBasedColumn) throws SQLException {
+        if (hasColumnar(oneBasedColumn, ColumnVector.ValuesCase.INTEGER_VALUES)) {
+            this.wasNull = false;
+            return columnar.getInteger(rowIndex, PositionalIndex.toProtobuf(oneBasedColumn));
+        }
         return get(oneBasedColumn, column -> {
             if (column.hasInteger()) {
                 this.wasNull = false;
@@ -152,6 +274,10 @@ class RelationalResultSetFacade implements RelationalResultSet {
 
     @Override
     public long getLong(int oneBasedColumn) throws SQLException {
+        if (hasColumnar(oneBasedColumn, ColumnVector.ValuesCase.LONG_VALUES)) {
+            this.wasNull = false;
+            return columnar.getLong(rowIndex, PositionalIndex.toProtobuf(oneBasedColumn));
+        }
         return get(oneBasedColumn, column -> {
             if (column.hasLong()) {
                 this.wasNull = false;
@@ -170,6 +296,10 @@ class RelationalResultSetFacade implements RelationalResultSet {
 
     @Override
     public double getDouble(int oneBasedColumn) throws SQLException {
+        if (hasColumnar(oneBasedColumn, ColumnVector.ValuesCase.DOUBLE_VALUES)) {
+            this.wasNull = false;
+            return columnar.getDouble(rowIndex, PositionalIndex.toProtobuf(oneBasedColumn));
+        }
         return get(oneBasedColumn, column -> {
             if (column.hasDouble()) {
                 this.wasNull = false;
@@ -182,6 +312,10 @@ class RelationalResultSetFacade implements RelationalResultSet {
 
     @Override
     public byte[] getBytes(int oneBasedColumn) throws SQLException {
+        if (hasColumnar(oneBasedColumn, ColumnVector.ValuesCase.BINARY_VALUES)) {
+            this.wasNull = false;
+            return columnar.getBinary(rowIndex, PositionalIndex.toProtobuf(oneBasedColumn)).toByteArray();
+        }
         return get(oneBasedColumn, column -> {
             if (column.hasBinary()) {
                 this.wasNull = false;
@@ -280,7 +414,7 @@ class RelationalResultSetFacade implements RelationalResultSet {
         if (hasNext()) {
             throw new SQLException("Continuation can only be returned for the last row");
         }
-        return new RelationalRpcContinuation(delegate.getContinuation());
+        return new RelationalRpcContinuation(streamContinuation != null ? streamContinuation : delegate.getContinuation());
     }
 
     @Override
@@ -292,7 +426,7 @@ class RelationalResultSetFacade implements RelationalResultSet {
 
     @Override
     public RelationalStruct getStruct(int oneBasedColumn) throws SQLException {
-        RelationalStruct s = TypeConversion.getStruct(this.delegate, this.rowIndex, oneBasedColumn);
+        RelationalStruct s = TypeConversion.getStruct(this.delegate, column(oneBasedColumn), oneBasedColumn);
         wasNull = s == null;
         return s;
     }
@@ -307,7 +441,7 @@ class RelationalResultSetFacade implements RelationalResultSet {
     @Override
     @ExcludeFromJacocoGeneratedReport
     public UUID getUUID(int oneBasedColumn) throws SQLException {
-        UUID s = TypeConversion.getUUID(this.delegate, this.rowIndex, oneBasedColumn);
+        UUID s = TypeConversion.getUUID(column(oneBasedColumn));
         wasNull = s == null;
         return s;
     }
@@ -342,9 +476,7 @@ class RelationalResultSetFacade implements RelationalResultSet {
                 o = getBytes(oneBasedColumn);
                 break;
             case Types.OTHER:
-                int index = PositionalIndex.toProtobuf(oneBasedColumn);
-                Column column = this.delegate.getRow(rowIndex).getColumns().getColumn(index);
-                if (column.hasUuid()) {
+                if (column(oneBasedColumn).hasUuid()) {
                     o = getUUID(oneBasedColumn);
                 } else {
                     // Probably an enum, it's not clear exactly how we should handle this, but we currently only have one
@@ -371,7 +503,7 @@ class RelationalResultSetFacade implements RelationalResultSet {
     public RelationalArray getArray(int oneBasedColumn) throws SQLException {
         int index = PositionalIndex.toProtobuf(oneBasedColumn);
         ColumnMetadata columnMetadata = this.delegate.getMetadata().getColumnMetadata().getColumnMetadata(index);
-        Column column = this.delegate.getRow(rowIndex).getColumns().getColumn(index);
+        Column column = column(oneBasedColumn);
         RelationalArrayFacade array = column == null || !column.hasArray() ? null :
                 new RelationalArrayFacade(columnMetadata.getArrayMetadata(), column.getArray());
         wasNull = array == null;
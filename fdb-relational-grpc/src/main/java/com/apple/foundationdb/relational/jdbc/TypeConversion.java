@@ -58,6 +58,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.function.BiFunction;
+import java.util.function.Predicate;
 
 import static com.apple.foundationdb.relational.jdbc.RelationalStructFacade.RelationalStructFacadeMetaData.getDataType;
 
@@ -77,17 +78,14 @@ public class TypeConversion {
      * @return {@link RelationalStruct} instance pulled from <code>resultSet</code>
      * @throws SQLException If failed get of <code>resultSet</code> metadata.
      */
-    static RelationalStruct getStruct(ResultSet resultSet, int rowIndex, int oneBasedColumn) throws SQLException {
+    static RelationalStruct getStruct(ResultSet resultSet, Column column, int oneBasedColumn) throws SQLException {
         int index = PositionalIndex.toProtobuf(oneBasedColumn);
         var metadata =
                 resultSet.getMetadata().getColumnMetadata().getColumnMetadata(index).getStructMetadata();
-        Column column = resultSet.getRow(rowIndex).getColumns().getColumn(index);
         return column.hasStruct() ? new RelationalStructFacade(metadata, column.getStruct()) : null;
     }
 
-    static UUID getUUID(ResultSet resultSet, int rowIndex, int oneBasedColumn) throws SQLException {
-        int index = PositionalIndex.toProtobuf(oneBasedColumn);
-        Column column = resultSet.getRow(rowIndex).getColumns().getColumn(index);
+    static UUID getUUID(Column column) throws SQLException {
         return column.hasUuid() ? new UUID(column.getUuid().getMostSignificantBits(), column.getUuid().getLeastSignificantBits()) : null;
     }
 
@@ -425,7 +423,7 @@ public class TypeConversion {
         return builder.build();
     }
 
-    private static Column toColumn(@Nonnull DataType.StructType.Field field, @Nonnull Object value, boolean wasNull) throws SQLException {
+    static Column toColumn(@Nonnull DataType.StructType.Field field, @Nullable Object value, boolean wasNull) throws SQLException {
         Column column;
         switch (field.getType().getCode()) {
             case STRUCT:
@@ -497,15 +495,37 @@ public class TypeConversion {
     }
 
     public static ResultSet toProtobuf(RelationalResultSet relationalResultSet) throws SQLException {
+        return toProtobuf(relationalResultSet, false);
+    }
+
+    /**
+     * Convert a {@link RelationalResultSet} to protobuf.
+     * @param relationalResultSet the result set to convert
+     * @param columnar whether to encode the rows in column-major form ({@link ResultSet#getColumnarRows()})
+     * @return the converted result set or null if <code>relationalResultSet</code> is null
+     * @throws SQLException if reading <code>relationalResultSet</code> fails
+     */
+    public static ResultSet toProtobuf(RelationalResultSet relationalResultSet, boolean columnar) throws SQLException {
         if (relationalResultSet == null) {
             return null;
         }
         var resultSetBuilder = ResultSet.newBuilder();
+        ColumnarEncoding.Encoder columnarEncoder = null;
         while (relationalResultSet.next()) {
             if (!resultSetBuilder.hasMetadata()) {
                 resultSetBuilder.setMetadata(toResultSetMetaData(relationalResultSet, relationalResultSet.getMetaData().getColumnCount()));
+                if (columnar) {
+                    columnarEncoder = new ColumnarEncoding.Encoder(relationalResultSet.getMetaData());
+                }
+            }
+            if (columnarEncoder != null) {
+                columnarEncoder.addRow(relationalResultSet);
+            } else {
+                resultSetBuilder.addRow(toStruct(relationalResultSet));
             }
-            resultSetBuilder.addRow(toStruct(relationalResultSet));
+        }
+        if (columnarEncoder != null) {
+            resultSetBuilder.setColumnarRows(columnarEncoder.build());
         }
         // Set the continuation after all the rows have been traversed
         Continuation existingContinuation = relationalResultSet.getContinuation();
@@ -515,6 +535,87 @@ public class TypeConversion {
         return resultSetBuilder.build();
     }
 
+    /**
+     * Convert a {@link RelationalResultSet} to protobuf in batches of at most <code>batchSize</code> rows. Each batch
+     * is handed to <code>batchConsumer</code> as soon as it is full so the whole result set is never materialized.
+     * Only the first batch carries the result set metadata and only the last batch, which may have no rows, carries
+     * the continuation.
+     * @param relationalResultSet the result set to convert
+     * @param batchSize the maximum number of rows per batch
+     * @param batchConsumer consumer of batches; returns <code>false</code> to stop the conversion early, in which case
+     * no further batches are produced
+     * @return the number of rows converted
+     * @throws SQLException if reading <code>relationalResultSet</code> fails
+     * @see #toProtobuf(RelationalResultSet)
+     */
+    public static int toProtobufBatches(@Nonnull RelationalResultSet relationalResultSet, int batchSize,
+                                        @Nonnull Predicate<ResultSet> batchConsumer) throws SQLException {
+        return toProtobufBatches(relationalResultSet, batchSize, false, batchConsumer);
+    }
+
+    /**
+     * Convert a {@link RelationalResultSet} to protobuf in batches of at most <code>batchSize</code> rows.
+     * @param relationalResultSet the result set to convert
+     * @param batchSize the maximum number of rows per batch
+     * @param columnar whether to encode the rows in column-major form ({@link ResultSet#getColumnarRows()})
+     * @param batchConsumer consumer of batches; returns <code>false</code> to stop the conversion early
+     * @return the number of rows converted
+     * @throws SQLException if reading <code>relationalResultSet</code> fails
+     * @see #toProtobufBatches(RelationalResultSet, int, Predicate)
+     */
+    public static int toProtobufBatches(@Nonnull RelationalResultSet relationalResultSet, int batchSize, boolean columnar,
+                                        @Nonnull Predicate<ResultSet> batchConsumer) throws SQLException {
+        if (batchSize <= 0) {
+            throw new SQLException("Batch size must be positive: " + batchSize, ErrorCode.INVALID_PARAMETER.getErrorCode());
+        }
+        var resultSetBuilder = ResultSet.newBuilder();
+        ColumnarEncoding.Encoder columnarEncoder = null;
+        boolean hasMetadata = false;
+        int batchRowCount = 0;
+        int rowCount = 0;
+        while (relationalResultSet.next()) {
+            if (!hasMetadata) {
+                resultSetBuilder.setMetadata(toResultSetMetaData(relationalResultSet, relationalResultSet.getMetaData().getColumnCount()));
+                hasMetadata = true;
+            }
+            if (columnar) {
+                if (columnarEncoder == null) {
+                    columnarEncoder = new ColumnarEncoding.Encoder(relationalResultSet.getMetaData());
+                }
+                columnarEncoder.addRow(relationalResultSet);
+            } else {
+                resultSetBuilder.addRow(toStruct(relationalResultSet));
+            }
+            rowCount++;
+            if (++batchRowCount >= batchSize) {
+                if (columnarEncoder != null) {
+                    resultSetBuilder.setColumnarRows(columnarEncoder.build());
+                    columnarEncoder = null;
+                }
+                if (!batchConsumer.test(resultSetBuilder.build())) {
+                    return rowCount;
+                }
+                resultSetBuilder = ResultSet.newBuilder();
+                batchRowCount = 0;
+            }
+        }
+        if (columnarEncoder != null) {
+            resultSetBuilder.setColumnarRows(columnarEncoder.build());
+        }
+        resultSetBuilder.setContinuation(toContinuation(relationalResultSet.getContinuation()));
+        batchConsumer.test(resultSetBuilder.build());
+        return rowCount;
+    }
+
+    /**
+     * Get the number of rows of a protobuf result set, whether they are encoded row-major or column-major.
+     * @param resultSet the result set
+     * @return the number of rows
+     */
+    public static int getRowCount(@Nonnull ResultSet resultSet) {
+        return resultSet.hasColumnarRows() ? resultSet.getColumnarRows().getRowCount() : resultSet.getRowCount();
+    }
+
     private static RpcContinuation toContinuation(@Nonnull Continuation existingContinuation) {
         RpcContinuation.Builder builder = RpcContinuation.newBuilder()
                 .setVersion(RelationalRpcContinuation.CURRENT_VERSION)
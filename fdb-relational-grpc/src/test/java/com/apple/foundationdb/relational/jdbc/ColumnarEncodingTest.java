@@ -0,0 +1,135 @@
+/*
+ * ColumnarEncodingTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2021-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.relational.jdbc;
+
+import com.apple.foundationdb.relational.api.Continuation;
+import com.apple.foundationdb.relational.api.RelationalResultSet;
+import com.apple.foundationdb.relational.jdbc.grpc.v1.ColumnVector;
+import com.apple.foundationdb.relational.jdbc.grpc.v1.ColumnarRows;
+import com.apple.foundationdb.relational.jdbc.grpc.v1.IntegerVector;
+import com.apple.foundationdb.relational.jdbc.grpc.v1.ResultSet;
+import com.apple.foundationdb.relational.jdbc.grpc.v1.StringVector;
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for the column-major encoding of result sets produced by {@link TypeConversion#toProtobuf(RelationalResultSet, boolean)}
+ * and read by {@link RelationalResultSetFacade}.
+ */
+public class ColumnarEncodingTest {
+    private static final Continuation CONTINUATION =
+            new MockContinuation(Continuation.Reason.TRANSACTION_LIMIT_REACHED, new byte[]{7}, false, false);
+    private static final List<List<Integer>> ROWS = List.of(
+            List.of(1, 2, 3), List.of(4, 5, 6), List.of(7, 8, 9), List.of(10, 11, 12), List.of(13, 14, 15));
+
+    private static RelationalResultSet fiveRows() {
+        return TestUtils.resultSet(CONTINUATION, ROWS.stream()
+                .map(row -> TestUtils.row(row.toArray()))
+                .toArray(MockResultSetRow[]::new));
+    }
+
+    private static List<List<Integer>> readRows(RelationalResultSetFacade resultSet) throws SQLException {
+        List<List<Integer>> rows = new ArrayList<>();
+        while (resultSet.next()) {
+            rows.add(List.of(resultSet.getInt(1), (Integer) resultSet.getObject(2), resultSet.getInt(3)));
+            Assertions.assertFalse(resultSet.wasNull());
+        }
+        return rows;
+    }
+
+    @Test
+    void columnar() throws Exception {
+        ResultSet converted = TypeConversion.toProtobuf(fiveRows(), true);
+        Assertions.assertTrue(converted.hasColumnarRows());
+        Assertions.assertEquals(0, converted.getRowCount());
+        Assertions.assertEquals(5, TypeConversion.getRowCount(converted));
+        Assertions.assertEquals(3, converted.getColumnarRows().getColumnCount());
+        for (ColumnVector column : converted.getColumnarRows().getColumnList()) {
+            Assertions.assertEquals(ColumnVector.ValuesCase.INTEGER_VALUES, column.getValuesCase());
+            Assertions.assertTrue(column.getNullBitmap().isEmpty());
+        }
+        try (RelationalResultSetFacade resultSet = new RelationalResultSetFacade(converted)) {
+            Assertions.assertEquals(ROWS, readRows(resultSet));
+            Assertions.assertArrayEquals(CONTINUATION.serialize(), resultSet.getContinuation().serialize());
+        }
+    }
+
+    @Test
+    void rowMajorByDefault() throws Exception {
+        ResultSet converted = TypeConversion.toProtobuf(fiveRows());
+        Assertions.assertFalse(converted.hasColumnarRows());
+        Assertions.assertEquals(5, TypeConversion.getRowCount(converted));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 5, 6})
+    void columnarBatches(int batchSize) throws Exception {
+        List<ResultSet> batches = new ArrayList<>();
+        int rowCount = TypeConversion.toProtobufBatches(fiveRows(), batchSize, true, batches::add);
+        Assertions.assertEquals(5, rowCount);
+        Assertions.assertEquals(rowCount, batches.stream().mapToInt(TypeConversion::getRowCount).sum());
+        for (ResultSet batch : batches) {
+            Assertions.assertEquals(0, batch.getRowCount());
+            Assertions.assertTrue(TypeConversion.getRowCount(batch) <= batchSize);
+        }
+        try (RelationalResultSetFacade resultSet = new RelationalResultSetFacade(batches.get(0),
+                batches.subList(1, batches.size()).iterator(), null)) {
+            Assertions.assertEquals(ROWS, readRows(resultSet));
+            Assertions.assertArrayEquals(CONTINUATION.serialize(), resultSet.getContinuation().serialize());
+        }
+    }
+
+    @Test
+    void nullsAndDictionary() {
+        // Rows: (1, "a"), (null, "b"), (3, "a"), (null, null)
+        ColumnarRows rows = ColumnarRows.newBuilder()
+                .setRowCount(4)
+                .addColumn(ColumnVector.newBuilder()
+                        .setNullBitmap(ByteString.copyFrom(new byte[]{0b1010}))
+                        .setIntegerValues(IntegerVector.newBuilder().addValues(1).addValues(0).addValues(3).addValues(0)))
+                .addColumn(ColumnVector.newBuilder()
+                        .setNullBitmap(ByteString.copyFrom(new byte[]{0b1000}))
+                        .setStringValues(StringVector.newBuilder().addDictionary("a").addDictionary("b")
+                                .addIndex(0).addIndex(1).addIndex(0).addIndex(0)))
+                .build();
+        ColumnarEncoding.Reader reader = new ColumnarEncoding.Reader(rows);
+        Assertions.assertEquals(4, reader.getRowCount());
+        Assertions.assertTrue(reader.has(0, 0, ColumnVector.ValuesCase.INTEGER_VALUES));
+        Assertions.assertFalse(reader.has(0, 0, ColumnVector.ValuesCase.LONG_VALUES));
+        Assertions.assertFalse(reader.has(1, 0, ColumnVector.ValuesCase.INTEGER_VALUES));
+        Assertions.assertTrue(reader.isNull(3, 0));
+        Assertions.assertEquals(3, reader.getInteger(2, 0));
+        Assertions.assertEquals(3, reader.getColumn(2, 0).getInteger());
+        Assertions.assertFalse(reader.getColumn(1, 0).hasInteger());
+        Assertions.assertEquals("b", reader.getString(1, 1));
+        Assertions.assertEquals("a", reader.getColumn(2, 1).getString());
+        Assertions.assertFalse(reader.isNull(2, 1));
+        Assertions.assertTrue(reader.isNull(3, 1));
+        Assertions.assertFalse(reader.getColumn(3, 1).hasString());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * ResultSetBatchingTest.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2021-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.relational.jdbc;
+
+import com.apple.foundationdb.relational.api.Continuation;
+import com.apple.foundationdb.relational.api.RelationalResultSet;
+import com.apple.foundationdb.relational.jdbc.grpc.v1.ResultSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tests for streaming a result set in batches with {@link TypeConversion#toProtobufBatches} and reading it back
+ * with {@link RelationalResultSetFacade}.
+ */
+public class ResultSetBatchingTest {
+    private static final Continuation CONTINUATION =
+            new MockContinuation(Continuation.Reason.TRANSACTION_LIMIT_REACHED, new byte[]{7}, false, false);
+
+    private static RelationalResultSet fiveRows() {
+        return TestUtils.resultSet(CONTINUATION,
+                TestUtils.row(1, 2, 3), TestUtils.row(4, 5, 6), TestUtils.row(7, 8, 9),
+                TestUtils.row(10, 11, 12), TestUtils.row(13, 14, 15));
+    }
+
+    private static List<ResultSet> toBatches(RelationalResultSet resultSet, int batchSize) throws SQLException {
+        List<ResultSet> batches = new ArrayList<>();
+        int rowCount = TypeConversion.toProtobufBatches(resultSet, batchSize, batches::add);
+        Assertions.assertEquals(batches.stream().mapToInt(ResultSet::getRowCount).sum(), rowCount);
+        return batches;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 5, 6})
+    void batches(int batchSize) throws Exception {
+        List<ResultSet> batches = toBatches(fiveRows(), batchSize);
+        Assertions.assertEquals(5 / batchSize + 1, batches.size());
+        for (int i = 0; i < batches.size(); i++) {
+            Assertions.assertEquals(i == 0, batches.get(i).hasMetadata());
+            Assertions.assertEquals(i == batches.size() - 1, batches.get(i).hasContinuation());
+            Assertions.assertTrue(batches.get(i).getRowCount() <= batchSize);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 5, 6})
+    void readBatches(int batchSize) throws Exception {
+        List<ResultSet> batches = toBatches(fiveRows(), batchSize);
+        try (RelationalResultSetFacade resultSet = new RelationalResultSetFacade(batches.get(0),
+                batches.subList(1, batches.size()).iterator(), null)) {
+            List<List<Integer>> rows = new ArrayList<>();
+            while (resultSet.next()) {
+                if (resultSet.hasNext()) {
+                    Assertions.assertThrows(SQLException.class, resultSet::getContinuation);
+                }
+                rows.add(List.of(resultSet.getInt(1), resultSet.getInt(2), resultSet.getInt(3)));
+                Assertions.assertEquals(3, resultSet.getMetaData().getColumnCount());
+            }
+            Assertions.assertEquals(List.of(List.of(1, 2, 3), List.of(4, 5, 6), List.of(7, 8, 9), List.of(10, 11, 12), List.of(13, 14, 15)), rows);
+            Assertions.assertArrayEquals(CONTINUATION.serialize(), resultSet.getContinuation().serialize());
+        }
+    }
+
+    @Test
+    void stopEarly() throws Exception {
+        List<ResultSet> batches = new ArrayList<>();
+        int rowCount = TypeConversion.toProtobufBatches(fiveRows(), 2, batch -> {
+            batches.add(batch);
+            return false;
+        });
+        Assertions.assertEquals(2, rowCount);
+        Assertions.assertEquals(1, batches.size());
+    }
+
+    @Test
+    void closeCancelsUnfinishedStream() throws Exception {
+        List<ResultSet> batches = toBatches(fiveRows(), 2);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        try (RelationalResultSetFacade resultSet = new RelationalResultSetFacade(batches.get(0),
+                batches.subList(1, batches.size()).iterator(), () -> cancelled.set(true))) {
+            Assertions.assertTrue(resultSet.next());
+        }
+        Assertions.assertTrue(cancelled.get());
+
+        cancelled.set(false);
+        try (RelationalResultSetFacade resultSet = new RelationalResultSetFacade(batches.get(0),
+                batches.subList(1, batches.size()).iterator(), () -> cancelled.set(true))) {
+            while (resultSet.next()) {
+                resultSet.getInt(1);
+            }
+        }
+        Assertions.assertFalse(cancelled.get());
+    }
+
+    @Test
+    void invalidBatchSize() {
+        Assertions.assertThrows(SQLException.class, () -> TypeConversion.toProtobufBatches(fiveRows(), 0, batch -> true));
+    }
+}
@@ -67,6 +67,7 @@ import java.sql.SQLFeatureNotSupportedException;
 import java.sql.SQLWarning;
 import java.sql.Struct;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -107,6 +108,11 @@ class JDBCRelationalConnection implements RelationalConnection {
     private final ManagedChannel managedChannel;
     private final String database;
     private String schema;
+    /**
+     * Whether to ask the server for result set rows in column-major form; set with <code>columnar=true</code> on the
+     * query string of the JDBC URL. Servers that do not support it send rows as usual.
+     */
+    private final boolean columnar;
     private final JDBCServiceGrpc.JDBCServiceBlockingStub blockingStub;
     private final JDBCServiceGrpc.JDBCServiceStub asyncStub;
     /**
@@ -126,6 +132,7 @@ class JDBCRelationalConnection implements RelationalConnection {
         this.database = uri.getPath();
         Map<String, List<String>> queryParams = JDBCURI.splitQuery(uri);
         this.schema = JDBCURI.getFirstValue("schema", queryParams);
+        this.columnar = Boolean.parseBoolean(JDBCURI.getFirstValue("columnar", queryParams));
         if (uri.getHost() != null && uri.getHost().length() > 0) {
             int port = uri.getPort();
             if (port == -1) {
@@ -225,6 +232,27 @@ class JDBCRelationalConnection implements RelationalConnection {
         }
     }
 
+    /**
+     * Execute <code>sql</code> using the server-streaming RPC, which returns the rows of a query in batches as the
+     * server produces them. The returned iterator pulls batches on demand. Only available in autoCommit mode, where
+     * each statement runs in its own transaction.
+     * @param sql SQL to execute.
+     * @param options Options to use executing <code>sql</code>, including the fetch size
+     * @param parameters Parameters for <code>sql</code> or null if this is a Statement execute
+     * @return an iterator over the responses; it throws {@link StatusRuntimeException} if the call fails
+     */
+    Iterator<StatementResponse> executeStream(String sql, com.apple.foundationdb.relational.jdbc.grpc.v1.Options options, Collection<Parameter> parameters) {
+        StatementRequest.Builder builder = StatementRequest.newBuilder()
+                .setSql(sql)
+                .setDatabase(getDatabase())
+                .setSchema(getSchema())
+                .setOptions(options);
+        if (parameters != null) {
+            builder.setParameters(Parameters.newBuilder().addAllParameter(parameters).build());
+        }
+        return getStub().executeStream(builder.build());
+    }
+
     public InsertResponse insert(@Nonnull String tableName, @Nonnull List<RelationalStruct> data) throws SQLException {
         InsertRequest.Builder builder = InsertRequest.newBuilder()
                 .setDataResultSet(TypeConversion.toResultSetProtobuf(data))
@@ -482,6 +510,10 @@ class JDBCRelationalConnection implements RelationalConnection {
         return this.schema;
     }
 
+    boolean isColumnar() {
+        return columnar;
+    }
+
     @Override
     public <T> T unwrap(Class<T> iface) throws SQLException {
         return iface.cast(this);
@@ -232,6 +232,16 @@ class JDBCRelationalPreparedStatement implements RelationalPreparedStatement {
         statement.setMaxRows(max);
     }
 
+    @Override
+    public int getFetchSize() throws SQLException {
+        return statement.getFetchSize();
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        statement.setFetchSize(rows);
+    }
+
     @Override
     public void cancel() throws SQLException {
         this.statement.cancel();
@@ -20,6 +20,7 @@
 
 package com.apple.foundationdb.relational.jdbc;
 
+import com.apple.foundationdb.relational.api.Continuation;
 import com.apple.foundationdb.relational.api.KeySet;
 import com.apple.foundationdb.relational.api.Options;
 import com.apple.foundationdb.relational.api.RelationalResultSet;
@@ -36,6 +37,8 @@ import com.apple.foundationdb.relational.jdbc.grpc.v1.ScanRequest;
 import com.apple.foundationdb.relational.jdbc.grpc.v1.ScanResponse;
 import com.apple.foundationdb.relational.jdbc.grpc.v1.StatementResponse;
 import com.apple.foundationdb.relational.util.SpotBugsSuppressWarnings;
+import com.google.protobuf.ByteString;
+import io.grpc.Context;
 import io.grpc.StatusRuntimeException;
 
 import javax.annotation.Nonnull;
@@ -48,6 +51,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.function.Function;
 
 
 class JDBCRelationalStatement implements RelationalStatement {
@@ -80,6 +84,12 @@ class JDBCRelationalStatement implements RelationalStatement {
     public static final int STATEMENT_NO_RESULT = -2;
     private Options options;
 
+    /**
+     * Number of rows to fetch from the server at a time. If positive, queries and scans (in autoCommit mode) stream
+     * their results in batches of this many rows rather than returning all rows in one response.
+     */
+    private int fetchSize;
+
     @SpotBugsSuppressWarnings(value = "CT_CONSTRUCTOR_THROW", justification = "Should consider refactoring but throwing exceptions for now")
     JDBCRelationalStatement(@Nonnull final JDBCRelationalConnection connection) throws SQLException {
         this.connection = connection;
@@ -152,6 +162,9 @@ class JDBCRelationalStatement implements RelationalStatement {
      * @throws SQLException if a database access error occurs or this method is called on a closed Statement
      */
     boolean execute(@Nonnull String sql, Collection<Parameter> parameters) throws SQLException {
+        if (fetchSize > 0 && connection.getAutoCommit()) {
+            return executeStreaming(sql, parameters);
+        }
         StatementResponse response = execute(sql, this.options, parameters);
         this.currentResultSet = response.hasResultSet() ?
                 new RelationalResultSetFacade(response.getResultSet()) : RelationalResultSetFacade.EMPTY;
@@ -176,11 +189,84 @@ class JDBCRelationalStatement implements RelationalStatement {
         return this.connection.execute(sql, optionsAsProto(), parameters);
     }
 
+    /**
+     * Execute <code>sql</code> using the server-streaming RPC. The first batch is awaited here; the remaining batches
+     * are pulled by the returned result set as its rows are consumed, so the server only runs ahead of the client by
+     * what fits into the transport's flow control window.
+     */
+    private boolean executeStreaming(@Nonnull String sql, Collection<Parameter> parameters) throws SQLException {
+        checkOpen();
+        final Context.CancellableContext streamContext = Context.current().withCancellation();
+        final Iterator<StatementResponse> responses;
+        final StatementResponse firstResponse;
+        final Context previous = streamContext.attach();
+        try {
+            responses = this.connection.executeStream(sql, optionsAsProto(), parameters);
+            firstResponse = responses.hasNext() ? responses.next() : StatementResponse.getDefaultInstance();
+        } catch (StatusRuntimeException statusRuntimeException) {
+            streamContext.cancel(statusRuntimeException);
+            throw toSQLException(statusRuntimeException);
+        } finally {
+            streamContext.detach(previous);
+        }
+        if (!firstResponse.hasResultSet()) {
+            streamContext.cancel(null);
+            this.currentResultSet = RelationalResultSetFacade.EMPTY;
+            this.updateCount = firstResponse.getRowCount();
+            return false;
+        }
+        final Iterator<com.apple.foundationdb.relational.jdbc.grpc.v1.ResultSet> remainingBatches =
+                resultSets(responses, StatementResponse::getResultSet);
+        this.currentResultSet = new RelationalResultSetFacade(firstResponse.getResultSet(), remainingBatches,
+                () -> streamContext.cancel(null));
+        this.updateCount = STATEMENT_RESULT_SET;
+        return true;
+    }
+
+    private static <T> Iterator<com.apple.foundationdb.relational.jdbc.grpc.v1.ResultSet> resultSets(
+            @Nonnull Iterator<T> responses, @Nonnull Function<T, com.apple.foundationdb.relational.jdbc.grpc.v1.ResultSet> toResultSet) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return responses.hasNext();
+            }
+
+            @Override
+            public com.apple.foundationdb.relational.jdbc.grpc.v1.ResultSet next() {
+                return toResultSet.apply(responses.next());
+            }
+        };
+    }
+
+    private static SQLException toSQLException(@Nonnull StatusRuntimeException statusRuntimeException) {
+        // Is this incoming statusRuntimeException carrying a SQLException?
+        SQLException sqlException = GrpcSQLExceptionUtil.map(statusRuntimeException);
+        if (sqlException == null) {
+            throw statusRuntimeException;
+        }
+        return sqlException;
+    }
+
     @Override
     public void close() throws SQLException {
         this.closed = true;
     }
 
+    @Override
+    public int getFetchSize() throws SQLException {
+        checkOpen();
+        return fetchSize;
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        checkOpen();
+        if (rows < 0) {
+            throw new SQLException("Fetch size must not be negative: " + rows, ErrorCode.INVALID_PARAMETER.getErrorCode());
+        }
+        this.fetchSize = rows;
+    }
+
     @Override
     public int getMaxRows() throws SQLException {
         int pageSize = options.getOption(Options.Name.MAX_ROWS);
@@ -276,14 +362,12 @@ class JDBCRelationalStatement implements RelationalStatement {
     public RelationalResultSet executeScan(@Nonnull String tableName, @Nonnull KeySet keySet, @Nonnull Options options)
             throws SQLException {
         checkOpen();
+        if (fetchSize > 0) {
+            return executeScanStreaming(tableName, keySet, options);
+        }
         ScanResponse response;
         try {
-            response = this.connection.getStub().scan(ScanRequest.newBuilder()
-                    .setKeySet(TypeConversion.toProtobuf(keySet))
-                    .setDatabase(this.connection.getDatabase())
-                    .setSchema(this.connection.getSchema())
-                    .setTableName(tableName)
-                    .build());
+            response = this.connection.getStub().scan(scanRequest(tableName, keySet, options).build());
         } catch (StatusRuntimeException statusRuntimeException) {
             // Is this incoming statusRuntimeException carrying a SQLException?
             SQLException sqlException = GrpcSQLExceptionUtil.map(statusRuntimeException);
@@ -295,6 +379,49 @@ class JDBCRelationalStatement implements RelationalStatement {
         return response == null ? null : new RelationalResultSetFacade(response.getResultSet());
     }
 
+    /**
+     * Build a scan request, carrying over the continuation and the row limit of the scan options.
+     */
+    @Nonnull
+    private ScanRequest.Builder scanRequest(@Nonnull String tableName, @Nonnull KeySet keySet, @Nonnull Options options) {
+        final ScanRequest.Builder builder = ScanRequest.newBuilder()
+                .setKeySet(TypeConversion.toProtobuf(keySet))
+                .setDatabase(this.connection.getDatabase())
+                .setSchema(this.connection.getSchema())
+                .setTableName(tableName);
+        final Continuation continuation = options.getOption(Options.Name.CONTINUATION);
+        if (continuation != null && !continuation.atBeginning()) {
+            builder.setContinuation(ByteString.copyFrom(continuation.serialize()));
+        }
+        final int maxRows = options.getOption(Options.Name.MAX_ROWS);
+        if (maxRows > 0 && maxRows != (int) Options.defaultOptions().get(Options.Name.MAX_ROWS)) {
+            builder.setMaxRows(maxRows);
+        }
+        return builder;
+    }
+
+    private RelationalResultSet executeScanStreaming(@Nonnull String tableName, @Nonnull KeySet keySet,
+                                                     @Nonnull Options options) throws SQLException {
+        final Context.CancellableContext streamContext = Context.current().withCancellation();
+        final Iterator<ScanResponse> responses;
+        final ScanResponse firstResponse;
+        final Context previous = streamContext.attach();
+        try {
+            responses = this.connection.getStub().scanStream(scanRequest(tableName, keySet, options)
+                    .setFetchSize(fetchSize)
+                    .build());
+            firstResponse = responses.hasNext() ? responses.next() : ScanResponse.getDefaultInstance();
+        } catch (StatusRuntimeException statusRuntimeException) {
+            streamContext.cancel(statusRuntimeException);
+            throw toSQLException(statusRuntimeException);
+        } finally {
+            streamContext.detach(previous);
+        }
+        final Iterator<com.apple.foundationdb.relational.jdbc.grpc.v1.ResultSet> remainingBatches =
+                resultSets(responses, ScanResponse::getResultSet);
+        return new RelationalResultSetFacade(firstResponse.getResultSet(), remainingBatches, () -> streamContext.cancel(null));
+    }
+
     @Override
     public int executeInsert(@Nonnull String tableName, @Nonnull List<RelationalStruct> data, @Nonnull Options options)
             throws SQLException {
@@ -321,6 +448,12 @@ class JDBCRelationalStatement implements RelationalStatement {
         if (maxRows != (int) Options.defaultOptions().get(Options.Name.MAX_ROWS)) {
             builder.setMaxRows(maxRows);
         }
+        if (fetchSize > 0) {
+            builder.setFetchSize(fetchSize);
+        }
+        if (connection.isColumnar()) {
+            builder.setColumnar(true);
+        }
         return builder.build();
     }
 }
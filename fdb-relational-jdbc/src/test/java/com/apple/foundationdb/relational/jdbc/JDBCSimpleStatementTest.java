@@ -94,6 +94,13 @@ public class JDBCSimpleStatementTest {
                 try (RelationalResultSet resultSet = statement.executeQuery("select * from databases")) {
                     checkSelectStarFromDatabasesResultSet(resultSet);
                 }
+                // Stream the rows from the server one at a time.
+                statement.setFetchSize(1);
+                Assertions.assertEquals(1, statement.getFetchSize());
+                try (RelationalResultSet resultSet = statement.executeQuery("select * from databases")) {
+                    checkSelectStarFromDatabasesResultSet(resultSet);
+                }
+                statement.setFetchSize(0);
                 try (RelationalPreparedStatement preparedStatement =
                         connection.prepareStatement("select * from databases")) {
                     try (RelationalResultSet resultSet = preparedStatement.executeQuery()) {
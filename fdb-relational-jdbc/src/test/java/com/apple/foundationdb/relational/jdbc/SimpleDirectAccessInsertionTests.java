@@ -20,6 +20,7 @@
 
 package com.apple.foundationdb.relational.jdbc;
 
+import com.apple.foundationdb.relational.api.Continuation;
 import com.apple.foundationdb.relational.api.KeySet;
 import com.apple.foundationdb.relational.api.Options;
 import com.apple.foundationdb.relational.api.RelationalConnection;
@@ -43,7 +44,9 @@ import java.io.IOException;
 import java.net.URI;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -257,4 +260,44 @@ public class SimpleDirectAccessInsertionTests {
             }
         }
     }
+
+    @Test
+    void streamingScanHonorsOptions() throws SQLException {
+        String jdbcStr = "jdbc:relational://localhost:" + relationalServer.getGrpcPort() + databasePath.getPath() +
+                "?schema=" + SCHEMA_NAME;
+        try (RelationalConnection connection = JDBCRelationalDriverTest.getDriver().connect(jdbcStr, null)
+                .unwrap(RelationalConnection.class)) {
+            try (var statement = connection.createStatement()) {
+                for (long id = 1L; id <= 5L; id++) {
+                    var reviewer = JDBCRelationalStruct.newBuilder()
+                            .addLong("ID", id)
+                            .addString("NAME", "Reviewer " + id)
+                            .build();
+                    Assertions.assertThat(statement.executeInsert(REVIEWER, reviewer)).isEqualTo(1);
+                }
+                // Stream in batches of two, but stop after three rows.
+                statement.setFetchSize(2);
+                final Continuation continuation;
+                try (var rrs = statement.executeScan(REVIEWER, KeySet.EMPTY,
+                        Options.builder().withOption(Options.Name.MAX_ROWS, 3).build())) {
+                    Assertions.assertThat(scannedIds(rrs)).containsExactly(1L, 2L, 3L);
+                    continuation = rrs.getContinuation();
+                }
+                Assertions.assertThat(continuation.atEnd()).isFalse();
+                // Resume the stream where the previous one stopped.
+                try (var rrs = statement.executeScan(REVIEWER, KeySet.EMPTY,
+                        Options.builder().withOption(Options.Name.CONTINUATION, continuation).build())) {
+                    Assertions.assertThat(scannedIds(rrs)).containsExactly(4L, 5L);
+                }
+            }
+        }
+    }
+
+    private static List<Long> scannedIds(RelationalResultSet resultSet) throws SQLException {
+        final List<Long> ids = new ArrayList<>();
+        while (resultSet.next()) {
+            ids.add(resultSet.getLong("ID"));
+        }
+        return ids;
+    }
 }
@@ -25,6 +25,7 @@ import com.apple.foundationdb.record.RecordCoreException;
 import com.apple.foundationdb.record.provider.foundationdb.FDBDatabase;
 import com.apple.foundationdb.record.provider.foundationdb.FDBDatabaseFactory;
 import com.apple.foundationdb.record.provider.foundationdb.keyspace.KeySpace;
+import com.apple.foundationdb.relational.api.Continuation;
 import com.apple.foundationdb.relational.api.EmbeddedRelationalDriver;
 import com.apple.foundationdb.relational.api.KeySet;
 import com.apple.foundationdb.relational.api.Options;
@@ -37,11 +38,14 @@ import com.apple.foundationdb.relational.api.RelationalStruct;
 import com.apple.foundationdb.relational.api.SqlTypeNamesSupport;
 import com.apple.foundationdb.relational.api.Transaction;
 import com.apple.foundationdb.relational.api.catalog.StoreCatalog;
+import com.apple.foundationdb.relational.api.exceptions.ErrorCode;
 import com.apple.foundationdb.relational.api.exceptions.RelationalException;
 import com.apple.foundationdb.relational.api.metrics.NoOpMetricRegistry;
 import com.apple.foundationdb.relational.jdbc.TypeConversion;
 import com.apple.foundationdb.relational.jdbc.grpc.v1.Parameter;
 import com.apple.foundationdb.relational.jdbc.grpc.v1.ResultSet;
+import com.apple.foundationdb.relational.jdbc.grpc.v1.column.Column;
+import com.apple.foundationdb.relational.recordlayer.ContinuationImpl;
 import com.apple.foundationdb.relational.recordlayer.DirectFdbConnection;
 import com.apple.foundationdb.relational.recordlayer.FdbConnection;
 import com.apple.foundationdb.relational.recordlayer.RecordLayerConfig;
@@ -51,6 +55,7 @@ import com.apple.foundationdb.relational.recordlayer.catalog.StoreCatalogProvide
 import com.apple.foundationdb.relational.recordlayer.ddl.RecordLayerMetadataOperationsFactory;
 import com.apple.foundationdb.relational.recordlayer.query.cache.RelationalPlanCache;
 import com.apple.foundationdb.relational.recordlayer.util.ExceptionUtil;
+import com.google.protobuf.InvalidProtocolBufferException;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -64,6 +69,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 /**
  * Temporary class. "The Relational Database".
@@ -143,28 +149,39 @@ public class FRL implements AutoCloseable {
 
     public static final class Response {
         private final Optional<ResultSet> resultSet;
-        //will be -1 if the query is set
+        private final boolean query;
+        //will be -1 if the query is set, unless the query result was streamed
         private final int rowCount;
 
-        private Response(@Nullable ResultSet resultSet, int rowCount) {
+        private Response(@Nullable ResultSet resultSet, boolean query, int rowCount) {
             this.resultSet = Optional.ofNullable(resultSet);
+            this.query = query;
             this.rowCount = rowCount;
         }
 
         public static Response query(@Nonnull ResultSet resultSet) {
-            return new Response(resultSet, -1);
+            return new Response(resultSet, true, -1);
+        }
+
+        /**
+         * A query whose results have already been handed out in batches, so there is no {@link ResultSet}.
+         * @param rowCount the number of rows streamed
+         * @return a query response without a result set
+         */
+        public static Response streamedQuery(int rowCount) {
+            return new Response(null, true, rowCount);
         }
 
         public static Response mutation(int rowCount) {
-            return new Response(null, rowCount);
+            return new Response(null, false, rowCount);
         }
 
         public boolean isQuery() {
-            return resultSet.isPresent();
+            return query;
         }
 
         public boolean isMutation() {
-            return resultSet.isEmpty();
+            return !query;
         }
 
         @SuppressWarnings("OptionalGetWithoutIsPresent") //intentional
@@ -189,6 +206,23 @@ public class FRL implements AutoCloseable {
     @Nonnull
     public Response execute(String database, String schema, String sql, List<Parameter> parameters, Options options)
             throws SQLException {
+        return execute(database, schema, sql, parameters, options, false);
+    }
+
+    /**
+     * Execute <code>sql</code>.
+     * @param database Database to run the <code>sql</code> against.
+     * @param schema Schema to use on <code>database</code>
+     * @param sql SQL to execute.
+     * @param parameters If non-null, then these are parameters and 'sql' is text of a prepared statement.
+     * @param options Options for the connection
+     * @param columnar Whether to encode the rows of a query column-major
+     * @return Returns A Response with either a ResultSet or a Row count, depending on the type of query issued
+     * @throws SQLException For all sorts of reasons.
+     */
+    @Nonnull
+    public Response execute(String database, String schema, String sql, List<Parameter> parameters, Options options,
+                            boolean columnar) throws SQLException {
         // Down inside connect, it calls RecordLayerStorageCluster.loadDatabase which internally creates a Transaction
         // to RecordLayerStorageCluster.loadDatabase and which, internal to loadDatabase, it then closes.
         // We used to explicitly set schema up here but this was provoking a new, separate, transaction; just let
@@ -199,23 +233,100 @@ public class FRL implements AutoCloseable {
         final var driver = (RelationalDriver) DriverManager.getDriver(createEmbeddedJDBCURI(database, schema));
         try (var connection = driver.connect(URI.create(createEmbeddedJDBCURI(database, schema)), options)) {
             // Options are given to the connection, don't override them in the statement
-            return executeInternal(connection, sql, parameters, null);
+            return executeInternal(connection, sql, parameters, null, rs -> materialize(rs, columnar));
+        }
+    }
+
+    /**
+     * Execute <code>sql</code>, handing the rows of a query to <code>batchConsumer</code> in batches as they are
+     * produced instead of materializing them all.
+     * <p>
+     * Each batch is read in its own transaction, which is committed before the batch is handed to
+     * <code>batchConsumer</code>, so no transaction is held open while waiting on a slow client. The next batch
+     * resumes the query from the continuation of the previous one with <code>EXECUTE CONTINUATION</code>. As a
+     * consequence, the batches are not read from a single consistent snapshot of the database.
+     * </p>
+     * @param database Database to run the <code>sql</code> against.
+     * @param schema Schema to use on <code>database</code>
+     * @param sql SQL to execute.
+     * @param parameters If non-null, then these are parameters and 'sql' is text of a prepared statement.
+     * @param options Options for the connection
+     * @param columnar Whether to encode the rows of each batch column-major
+     * @param batchSize Maximum number of rows per batch
+     * @param batchConsumer Consumer of batches; returns false to stop the query early, e.g. because the client went away
+     * @return Returns a streamed query Response with the number of rows streamed, or a mutation Response
+     * @throws SQLException For all sorts of reasons.
+     */
+    @Nonnull
+    public Response executeStreaming(String database, String schema, String sql, List<Parameter> parameters, Options options,
+                                     boolean columnar, int batchSize, @Nonnull Predicate<ResultSet> batchConsumer) throws SQLException {
+        checkBatchSize(batchSize);
+        // Resuming with EXECUTE CONTINUATION needs the compiled statement, and its parameters, in the continuation.
+        final Options connectionOptions = options.withChild(Options.builder()
+                .withOption(Options.Name.CONTINUATIONS_CONTAIN_COMPILED_STATEMENTS, true)
+                .build());
+        final int maxRows = options.getOption(Options.Name.MAX_ROWS);
+        int remaining = maxRows > 0 ? maxRows : Integer.MAX_VALUE;
+        final var driver = (RelationalDriver) DriverManager.getDriver(createEmbeddedJDBCURI(database, schema));
+        try (var connection = driver.connect(URI.create(createEmbeddedJDBCURI(database, schema)), connectionOptions)) {
+            String batchSql = sql;
+            List<Parameter> batchParameters = parameters;
+            int rowCount = 0;
+            while (true) {
+                // Closing the result set of an auto-commit connection commits the transaction of this batch.
+                final Response response = executeInternal(connection, batchSql, batchParameters,
+                        Options.builder().withOption(Options.Name.MAX_ROWS, Math.min(batchSize, remaining)).build(),
+                        rs -> materialize(rs, columnar));
+                if (response.isMutation()) {
+                    return response;
+                }
+                final ResultSet batch = response.getResultSet();
+                final int batchRowCount = TypeConversion.getRowCount(batch);
+                rowCount += batchRowCount;
+                remaining -= batchRowCount;
+                if (!batchConsumer.test(batch) || batch.getContinuation().getAtEnd() || remaining <= 0) {
+                    return Response.streamedQuery(rowCount);
+                }
+                batchSql = "EXECUTE CONTINUATION ?";
+                batchParameters = List.of(Parameter.newBuilder()
+                        .setParameter(Column.newBuilder().setBinary(batch.getContinuation().getInternalState()))
+                        .build());
+            }
+        }
+    }
+
+    private static void checkBatchSize(int batchSize) throws SQLException {
+        if (batchSize <= 0) {
+            throw new SQLException("Batch size must be positive: " + batchSize, ErrorCode.INVALID_PARAMETER.getErrorCode());
         }
     }
 
+    @Nonnull
+    private static Response materialize(@Nonnull RelationalResultSet rs, boolean columnar) throws SQLException {
+        return Response.query(TypeConversion.toProtobuf(rs, columnar));
+    }
+
+    /**
+     * Turns the result set of a query into a {@link Response} while the result set is still open.
+     */
+    @FunctionalInterface
+    private interface QueryResultHandler {
+        @Nonnull
+        Response handle(@Nonnull RelationalResultSet rs) throws SQLException;
+    }
+
     private Response executeInternal(@Nonnull RelationalConnection connection,
                                      @Nonnull String sql,
                                      @Nullable List<Parameter> parameters,
-                                     @Nullable Options options) throws SQLException {
-        ResultSet resultSet;
+                                     @Nullable Options options,
+                                     @Nonnull QueryResultHandler queryResultHandler) throws SQLException {
         if (parameters == null) {
             try (Statement statement = connection.createStatement()) {
                 try (RelationalStatement relationalStatement = statement.unwrap(RelationalStatement.class)) {
                     setStatementOptions(options, statement);
                     if (relationalStatement.execute(sql)) {
                         try (RelationalResultSet rs = relationalStatement.getResultSet()) {
-                            resultSet = TypeConversion.toProtobuf(rs);
-                            return Response.query(resultSet);
+                            return queryResultHandler.handle(rs);
                         }
                     } else {
                         return Response.mutation(relationalStatement.getUpdateCount());
@@ -232,8 +343,7 @@ public class FRL implements AutoCloseable {
             setStatementOptions(options, statement);
             if (statement.execute()) {
                 try (RelationalResultSet rs = statement.getResultSet()) {
-                    resultSet = TypeConversion.toProtobuf(rs);
-                    return Response.query(resultSet);
+                    return queryResultHandler.handle(rs);
                 }
             } else {
                 return Response.mutation(statement.getUpdateCount());
@@ -309,12 +419,71 @@ public class FRL implements AutoCloseable {
         }
     }
 
-    public RelationalResultSet scan(String database, String schema, String tableName, KeySet keySet)
-            throws SQLException {
+    public RelationalResultSet scan(String database, String schema, String tableName, KeySet keySet,
+                                    @Nullable byte[] continuation, int maxRows) throws SQLException {
         try (var connection = DriverManager.getConnection(createEmbeddedJDBCURI(database, schema))) {
             try (Statement statement = connection.createStatement()) {
                 try (RelationalStatement relationalStatement = statement.unwrap(RelationalStatement.class)) {
-                    return relationalStatement.executeScan(tableName, keySet, Options.NONE);
+                    return relationalStatement.executeScan(tableName, keySet, Options.builder()
+                            .withOption(Options.Name.CONTINUATION, parseScanContinuation(continuation))
+                            .withOption(Options.Name.MAX_ROWS, maxRows > 0 ? maxRows : Integer.MAX_VALUE)
+                            .build());
+                }
+            }
+        }
+    }
+
+    @Nonnull
+    private static Continuation parseScanContinuation(@Nullable byte[] continuation) throws SQLException {
+        try {
+            return ContinuationImpl.parseContinuation(continuation);
+        } catch (InvalidProtocolBufferException e) {
+            throw new SQLException("Invalid scan continuation", ErrorCode.INVALID_CONTINUATION.getErrorCode(), e);
+        }
+    }
+
+    /**
+     * Scan <code>tableName</code>, handing the rows to <code>batchConsumer</code> in batches as they are produced.
+     * As with {@link #executeStreaming}, each batch is read in its own transaction, which is committed before the
+     * batch is handed to <code>batchConsumer</code>, and the next batch resumes the scan from its continuation.
+     * @param database Database to scan
+     * @param schema Schema of the table to scan
+     * @param tableName Table to scan
+     * @param keySet Key prefix to scan
+     * @param continuation Serialized continuation of a previous scan to resume from, or <code>null</code> to start
+     *     at the beginning
+     * @param maxRows Maximum number of rows to stream in total, or 0 for no limit
+     * @param batchSize Maximum number of rows per batch
+     * @param batchConsumer Consumer of batches; returns false to stop the scan early
+     * @return the number of rows streamed
+     * @throws SQLException For all sorts of reasons.
+     */
+    public int scanStreaming(String database, String schema, String tableName, KeySet keySet,
+                             @Nullable byte[] continuation, int maxRows, int batchSize,
+                             @Nonnull Predicate<ResultSet> batchConsumer) throws SQLException {
+        checkBatchSize(batchSize);
+        int remaining = maxRows > 0 ? maxRows : Integer.MAX_VALUE;
+        try (var connection = DriverManager.getConnection(createEmbeddedJDBCURI(database, schema))) {
+            try (Statement statement = connection.createStatement()) {
+                try (RelationalStatement relationalStatement = statement.unwrap(RelationalStatement.class)) {
+                    Continuation batchContinuation = parseScanContinuation(continuation);
+                    int rowCount = 0;
+                    while (true) {
+                        final ResultSet batch;
+                        try (RelationalResultSet rs = relationalStatement.executeScan(tableName, keySet, Options.builder()
+                                .withOption(Options.Name.CONTINUATION, batchContinuation)
+                                .withOption(Options.Name.MAX_ROWS, Math.min(batchSize, remaining))
+                                .build())) {
+                            batch = TypeConversion.toProtobuf(rs);
+                            batchContinuation = rs.getContinuation();
+                        }
+                        final int batchRowCount = TypeConversion.getRowCount(batch);
+                        rowCount += batchRowCount;
+                        remaining -= batchRowCount;
+                        if (!batchConsumer.test(batch) || batchContinuation.atEnd() || remaining <= 0) {
+                            return rowCount;
+                        }
+                    }
                 }
             }
         }
@@ -330,8 +499,14 @@ public class FRL implements AutoCloseable {
     @Nonnull
     public Response transactionalExecute(TransactionalToken token, String sql, List<Parameter> parameters, @Nullable Options options)
             throws SQLException {
+        return transactionalExecute(token, sql, parameters, options, false);
+    }
+
+    @Nonnull
+    public Response transactionalExecute(TransactionalToken token, String sql, List<Parameter> parameters, @Nullable Options options,
+                                         boolean columnar) throws SQLException {
         assertValidToken(token);
-        return executeInternal(token.getConnection(), sql, parameters, options);
+        return executeInternal(token.getConnection(), sql, parameters, options, rs -> materialize(rs, columnar));
     }
 
     public int transactionalInsert(TransactionalToken token, String tableName, List<RelationalStruct> data)
@@ -42,12 +42,20 @@ import com.apple.foundationdb.relational.jdbc.grpc.v1.TransactionalResponse;
 import com.apple.foundationdb.relational.server.FRL;
 import com.apple.foundationdb.relational.util.BuildVersion;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import io.grpc.protobuf.StatusProto;
 import io.grpc.stub.StreamObserver;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.sql.SQLException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Field the Relational JDBC Service.
@@ -57,10 +65,37 @@ import java.sql.SQLException;
 // where we register grpc Services on the Server instance.
 @API(API.Status.EXPERIMENTAL)
 public class JDBCService extends JDBCServiceGrpc.JDBCServiceImplBase {
+    /**
+     * Rows per response of the streaming calls if the client does not ask for a fetch size.
+     */
+    @VisibleForTesting
+    static final int DEFAULT_STREAM_FETCH_SIZE = 1000;
+
+    /**
+     * Maximum number of streaming calls that run at the same time with the default streaming executor.
+     */
+    @VisibleForTesting
+    static final int DEFAULT_MAX_CONCURRENT_STREAMS = 64;
+
+    /**
+     * Runs the queries of the streaming calls so the gRPC call thread is free to deliver flow control events.
+     * A streaming call occupies its thread while it waits for the client to be ready for the next batch, so the
+     * number of threads is bounded, and a call that arrives when all of them are busy is rejected rather than queued.
+     */
+    private static final Executor DEFAULT_STREAMING_EXECUTOR = new ThreadPoolExecutor(0, DEFAULT_MAX_CONCURRENT_STREAMS,
+            60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+            new ThreadFactoryBuilder().setNameFormat("jdbc-service-stream-%d").setDaemon(true).build());
+
     private final FRL frl;
+    private final Executor streamingExecutor;
 
     public JDBCService(FRL frl) {
+        this(frl, DEFAULT_STREAMING_EXECUTOR);
+    }
+
+    public JDBCService(FRL frl, Executor streamingExecutor) {
         this.frl = frl;
+        this.streamingExecutor = streamingExecutor;
     }
 
     @Override
@@ -87,12 +122,13 @@ public class JDBCService extends JDBCServiceGrpc.JDBCServiceImplBase {
         try {
             StatementResponse.Builder statementResponseBuilder = StatementResponse.newBuilder();
             FRL.Response response = this.frl.execute(request.getDatabase(), request.getSchema(), request.getSql(),
-                    request.hasParameters() ? request.getParameters().getParameterList() : null, fromProtoOptions(request.getOptions()));
+                    request.hasParameters() ? request.getParameters().getParameterList() : null, fromProtoOptions(request.getOptions()),
+                    request.getOptions().getColumnar());
             if (response.isQuery()) {
                 // Setting row count like this might not be right... It is for updates. Might have to do something
                 // better than this count.
                 ResultSet rs = response.getResultSet();
-                statementResponseBuilder.setRowCount(rs.getRowCount());
+                statementResponseBuilder.setRowCount(TypeConversion.getRowCount(rs));
                 statementResponseBuilder.setResultSet(rs);
             } else {
                 //this is an update statement, so just set the row count directly and leave off the result set
@@ -107,6 +143,40 @@ public class JDBCService extends JDBCServiceGrpc.JDBCServiceImplBase {
         }
     }
 
+    /**
+     * Streaming variant of {@link #execute}. The rows of a query are sent in batches of at most the requested fetch
+     * size as the query produces them, and the query only proceeds as fast as the client consumes the batches.
+     * Each batch is read in its own transaction, so no transaction stays open while waiting on the client.
+     * The call fails with {@link Status#RESOURCE_EXHAUSTED} if too many streaming calls are already running.
+     */
+    @Override
+    public void executeStream(StatementRequest request, StreamObserver<StatementResponse> responseObserver) {
+        if (!checkStatementRequest(request, responseObserver)) {
+            return;
+        }
+        final StreamingResponseSender<StatementResponse> sender = new StreamingResponseSender<>(responseObserver);
+        final int fetchSize = request.getOptions().hasFetchSize() && request.getOptions().getFetchSize() > 0 ?
+                request.getOptions().getFetchSize() : DEFAULT_STREAM_FETCH_SIZE;
+        submitStream(sender, () -> {
+            try {
+                FRL.Response response = this.frl.executeStreaming(request.getDatabase(), request.getSchema(), request.getSql(),
+                        request.hasParameters() ? request.getParameters().getParameterList() : null, fromProtoOptions(request.getOptions()),
+                        request.getOptions().getColumnar(), fetchSize, batch -> sender.send(StatementResponse.newBuilder()
+                                .setRowCount(TypeConversion.getRowCount(batch))
+                                .setResultSet(batch)
+                                .build()));
+                if (response.isMutation()) {
+                    sender.send(StatementResponse.newBuilder().setRowCount(response.getRowCount()).build());
+                }
+                sender.complete();
+            } catch (SQLException e) {
+                sender.error(StatusProto.toStatusRuntimeException(GrpcSQLExceptionUtil.create(e)));
+            } catch (RuntimeException e) {
+                sender.error(handleUncaughtException(e));
+            }
+        });
+    }
+
     /**
      * This is called when the client connection enters "autoCommit=off" state.
      * Requests coming in after that point will be accepted through the returned TransactionRequestHandler,
@@ -248,7 +318,7 @@ public class JDBCService extends JDBCServiceGrpc.JDBCServiceImplBase {
             return;
         }
         try (RelationalResultSet rs = this.frl.scan(request.getDatabase(), request.getSchema(), request.getTableName(),
-                    TypeConversion.fromProtobuf(request.getKeySet()))) {
+                    TypeConversion.fromProtobuf(request.getKeySet()), scanContinuation(request), request.getMaxRows())) {
             ScanResponse scanResponse = ScanResponse.newBuilder().setResultSet(TypeConversion.toProtobuf(rs)).build();
             responseObserver.onNext(scanResponse);
             responseObserver.onCompleted();
@@ -259,6 +329,45 @@ public class JDBCService extends JDBCServiceGrpc.JDBCServiceImplBase {
         }
     }
 
+    /**
+     * Streaming variant of {@link #scan}. The rows are sent in batches of at most the requested fetch size as the scan
+     * produces them, and the scan only proceeds as fast as the client consumes the batches.
+     */
+    @Override
+    public void scanStream(ScanRequest request, StreamObserver<ScanResponse> responseObserver) {
+        if (!checkScanRequest(request, responseObserver)) {
+            return;
+        }
+        final StreamingResponseSender<ScanResponse> sender = new StreamingResponseSender<>(responseObserver);
+        final int fetchSize = request.hasFetchSize() && request.getFetchSize() > 0 ? request.getFetchSize() : DEFAULT_STREAM_FETCH_SIZE;
+        submitStream(sender, () -> {
+            try {
+                this.frl.scanStreaming(request.getDatabase(), request.getSchema(), request.getTableName(),
+                        TypeConversion.fromProtobuf(request.getKeySet()), scanContinuation(request), request.getMaxRows(), fetchSize,
+                        batch -> sender.send(ScanResponse.newBuilder().setResultSet(batch).build()));
+                sender.complete();
+            } catch (SQLException e) {
+                sender.error(StatusProto.toStatusRuntimeException(GrpcSQLExceptionUtil.create(e)));
+            } catch (RuntimeException e) {
+                sender.error(handleUncaughtException(e));
+            }
+        });
+    }
+
+    private void submitStream(@Nonnull StreamingResponseSender<?> sender, @Nonnull Runnable stream) {
+        try {
+            streamingExecutor.execute(stream);
+        } catch (RejectedExecutionException e) {
+            sender.error(Status.RESOURCE_EXHAUSTED.withDescription("Too many concurrent streaming calls")
+                    .withCause(e).asRuntimeException());
+        }
+    }
+
+    @Nullable
+    private static byte[] scanContinuation(@Nonnull ScanRequest request) {
+        return request.hasContinuation() ? request.getContinuation().toByteArray() : null;
+    }
+
     private static boolean checkScanRequest(ScanRequest request, StreamObserver<ScanResponse> responseObserver) {
         if (!request.hasDatabase() || request.getDatabase().isEmpty()) {
             responseObserver.onError(createStatusRuntimeException("Empty database name"));
@@ -0,0 +1,92 @@
+/*
+ * StreamingResponseSender.java
+ *
+ * This source file is part of the FoundationDB open source project
+ *
+ * Copyright 2021-2025 Apple Inc. and the FoundationDB project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.apple.foundationdb.relational.server.jdbc.v1;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Sends the responses of a server-streaming call from a thread other than the gRPC call thread, respecting the
+ * flow control of the call: {@link #send(Object)} blocks while the client is not ready to receive more, so a
+ * slow client holds back the producer instead of having the responses buffer up on the server.
+ * @param <T> the type of the responses
+ */
+class StreamingResponseSender<T> {
+    private final ServerCallStreamObserver<T> responseObserver;
+    private final Object lock = new Object();
+    private volatile boolean cancelled;
+
+    /**
+     * Create a sender. Must be called from the call's service method, before it returns.
+     * @param responseObserver the response observer passed to the service method
+     */
+    StreamingResponseSender(@Nonnull StreamObserver<T> responseObserver) {
+        this.responseObserver = (ServerCallStreamObserver<T>) responseObserver;
+        this.responseObserver.setOnReadyHandler(this::wakeUp);
+        this.responseObserver.setOnCancelHandler(() -> {
+            cancelled = true;
+            wakeUp();
+        });
+    }
+
+    private void wakeUp() {
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Send a response once the client is ready for it.
+     * @param response the response to send
+     * @return <code>false</code> if the call was cancelled and the producer should stop
+     */
+    boolean send(@Nonnull T response) {
+        synchronized (lock) {
+            while (!cancelled && !responseObserver.isReady()) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        if (cancelled) {
+            return false;
+        }
+        responseObserver.onNext(response);
+        return true;
+    }
+
+    void complete() {
+        if (!cancelled) {
+            responseObserver.onCompleted();
+        }
+    }
+
+    void error(@Nonnull Throwable t) {
+        if (!cancelled) {
+            responseObserver.onError(t);
+        }
+    }
+}
@@ -81,7 +81,7 @@ public class TransactionRequestHandler implements StreamObserver<TransactionalRe
                     transactionalToken = frl.createTransactionalToken(request.getDatabase(), request.getSchema(), Options.NONE);
                 }
                 final FRL.Response response = frl.transactionalExecute(transactionalToken, request.getSql(),
-                        request.getParameters().getParameterList(), fromProto(request.getOptions()));
+                        request.getParameters().getParameterList(), fromProto(request.getOptions()), request.getOptions().getColumnar());
 
                 StatementResponse.Builder statementResponseBuilder = StatementResponse.newBuilder();
                 if (response.isQuery()) {
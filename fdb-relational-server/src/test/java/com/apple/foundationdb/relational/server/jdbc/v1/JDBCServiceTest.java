@@ -23,10 +23,14 @@ package com.apple.foundationdb.relational.server.jdbc.v1;
 import com.apple.foundationdb.relational.jdbc.grpc.v1.StatementRequest;
 import com.apple.foundationdb.relational.jdbc.grpc.v1.StatementResponse;
 
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.RejectedExecutionException;
+
 public class JDBCServiceTest {
 
     @Test
@@ -50,4 +54,72 @@ public class JDBCServiceTest {
         JDBCService.checkStatementRequest(StatementRequest.newBuilder().build(), observer);
         Assertions.assertEquals(1, observer.error);
     }
+
+    @Test
+    public void testStreamRejectedWhenExecutorIsFull() {
+        var observer = new ServerCallStreamObserver<StatementResponse>() {
+            Throwable error;
+            int next = 0;
+
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+
+            @Override
+            public void setOnCancelHandler(Runnable onCancelHandler) {
+            }
+
+            @Override
+            public void setCompression(String compression) {
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setOnReadyHandler(Runnable onReadyHandler) {
+            }
+
+            @Override
+            public void disableAutoInboundFlowControl() {
+            }
+
+            @Override
+            public void request(int count) {
+            }
+
+            @Override
+            public void setMessageCompression(boolean enable) {
+            }
+
+            @Override
+            public void onNext(StatementResponse value) {
+                this.next++;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                this.error = t;
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        };
+        // The query is never run, so there is no need for an FRL.
+        JDBCService service = new JDBCService(null, command -> {
+            throw new RejectedExecutionException();
+        });
+        service.executeStream(StatementRequest.newBuilder()
+                .setDatabase("/FRL/DB")
+                .setSchema("S")
+                .setSql("select * from t")
+                .build(), observer);
+        Assertions.assertEquals(0, observer.next);
+        Assertions.assertNotNull(observer.error);
+        Assertions.assertEquals(Status.Code.RESOURCE_EXHAUSTED, Status.fromThrowable(observer.error).getCode());
+    }
 }